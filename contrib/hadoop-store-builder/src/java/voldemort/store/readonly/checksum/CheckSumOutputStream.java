@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly.checksum;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Runs every byte written to the underlying stream through a {@link CheckSum},
+ * so that the checksum matches the bytes which end up on disk
+ */
+public class CheckSumOutputStream extends FilterOutputStream {
+
+    private final CheckSum checkSum;
+
+    public CheckSumOutputStream(OutputStream out, CheckSum checkSum) {
+        super(out);
+        this.checkSum = checkSum;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        checkSum.update(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        checkSum.update(b, off, len);
+    }
+}
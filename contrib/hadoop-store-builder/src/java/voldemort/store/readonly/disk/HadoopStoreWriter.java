@@ -36,10 +36,13 @@ import org.apache.log4j.Logger;
 import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.store.StoreDefinition;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.readonly.HashIndexBuilder;
 import voldemort.store.readonly.ReadOnlyUtils;
 import voldemort.store.readonly.checksum.CheckSum;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
 import voldemort.store.readonly.mr.HadoopStoreBuilder;
+import voldemort.store.readonly.mr.HadoopStoreBuilderUtils;
 import voldemort.utils.ByteUtils;
 import voldemort.xml.ClusterMapper;
 import voldemort.xml.StoreDefinitionsMapper;
@@ -77,6 +80,8 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
     private StoreDefinition storeDef;
     private boolean saveKeys;
     private boolean reducerPerBucket;
+    private CompressionStrategy compressionStrategy;
+    private HashIndexBuilder hashIndex;
 
     public Cluster getCluster() {
         checkNotNull(cluster);
@@ -127,6 +132,9 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
                 throw new VoldemortException("num.chunks not specified in the job conf.");
             this.saveKeys = conf.getBoolean("save.keys", false);
             this.reducerPerBucket = conf.getBoolean("reducer.per.bucket", false);
+            this.compressionStrategy = HadoopStoreBuilderUtils.getDataCompressionStrategy(conf);
+            if(conf.getBoolean(HadoopStoreBuilderUtils.HASH_INDEX, false))
+                this.hashIndex = new HashIndexBuilder();
             this.conf = job;
             this.position = 0;
             this.outputDir = job.get("final.output.dir");
@@ -152,7 +160,9 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
                              new FsPermission(HadoopStoreBuilder.HADOOP_FILE_PERMISSION));
             logger.info("Setting permission to 755 for " + this.taskIndexFileName);
 
-            this.valueFileStream = fs.create(this.taskValueFileName);
+            this.valueFileStream = HadoopStoreBuilderUtils.createDataFileStream(fs.create(this.taskValueFileName),
+                                                                                compressionStrategy,
+                                                                                checkSumDigestValue);
             fs.setPermission(this.taskValueFileName,
                              new FsPermission(HadoopStoreBuilder.HADOOP_FILE_PERMISSION));
             logger.info("Setting permission to 755 for " + this.taskValueFileName);
@@ -170,14 +180,19 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
     public void write(BytesWritable key, Iterator<BytesWritable> iterator, Reporter reporter)
             throws IOException {
 
-        // Write key and position
-        this.indexFileStream.write(key.get(), 0, key.getSize());
-        this.indexFileStream.writeInt(this.position);
-
-        // Run key through checksum digest
-        if(this.checkSumDigestIndex != null) {
-            this.checkSumDigestIndex.update(key.get(), 0, key.getSize());
-            this.checkSumDigestIndex.update(this.position);
+        if(this.hashIndex != null) {
+            // Written out as a whole on close
+            this.hashIndex.add(key.get(), this.position);
+        } else {
+            // Write key and position
+            this.indexFileStream.write(key.get(), 0, key.getSize());
+            this.indexFileStream.writeInt(this.position);
+
+            // Run key through checksum digest
+            if(this.checkSumDigestIndex != null) {
+                this.checkSumDigestIndex.update(key.get(), 0, key.getSize());
+                this.checkSumDigestIndex.update(this.position);
+            }
         }
 
         short numTuples = 0;
@@ -262,7 +277,7 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
             this.valueFileStream.writeShort(numTuples);
             this.position += ByteUtils.SIZE_OF_SHORT;
 
-            if(this.checkSumDigestValue != null) {
+            if(this.checkSumDigestValue != null && this.compressionStrategy == null) {
                 this.checkSumDigestValue.update(numTuples);
             }
         }
@@ -270,7 +285,7 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
         this.valueFileStream.write(value);
         this.position += value.length;
 
-        if(this.checkSumDigestValue != null) {
+        if(this.checkSumDigestValue != null && this.compressionStrategy == null) {
             this.checkSumDigestValue.update(value);
         }
 
@@ -282,6 +297,10 @@ public class HadoopStoreWriter implements KeyValueWriter<BytesWritable, BytesWri
     @Override
     public void close() throws IOException {
 
+        if(this.hashIndex != null)
+            HadoopStoreBuilderUtils.writeHashIndex(this.hashIndex,
+                                                   this.indexFileStream,
+                                                   this.checkSumDigestIndex);
         this.indexFileStream.close();
         this.valueFileStream.close();
 
@@ -36,10 +36,13 @@ import org.apache.log4j.Logger;
 import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.store.StoreDefinition;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.readonly.HashIndexBuilder;
 import voldemort.store.readonly.ReadOnlyUtils;
 import voldemort.store.readonly.checksum.CheckSum;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
 import voldemort.store.readonly.mr.HadoopStoreBuilder;
+import voldemort.store.readonly.mr.HadoopStoreBuilderUtils;
 import voldemort.utils.ByteUtils;
 import voldemort.xml.ClusterMapper;
 import voldemort.xml.StoreDefinitionsMapper;
@@ -64,6 +67,8 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
     private CheckSumType checkSumType;
     private CheckSum[] checkSumDigestIndex;
     private CheckSum[] checkSumDigestValue;
+    private CompressionStrategy compressionStrategy;
+    private HashIndexBuilder[] hashIndex;
 
     private String outputDir;
 
@@ -87,6 +92,9 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
 
             this.saveKeys = conf.getBoolean("save.keys", false);
             this.reducerPerBucket = conf.getBoolean("reducer.per.bucket", false);
+            this.compressionStrategy = HadoopStoreBuilderUtils.getDataCompressionStrategy(conf);
+            if(conf.getBoolean(HadoopStoreBuilderUtils.HASH_INDEX, false))
+                this.hashIndex = new HashIndexBuilder[getNumChunks()];
             this.conf = job;
             this.outputDir = job.get("final.output.dir");
             this.taskId = job.get("mapred.task.id");
@@ -105,6 +113,8 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
                 this.checkSumDigestIndex[chunkId] = CheckSum.getInstance(checkSumType);
                 this.checkSumDigestValue[chunkId] = CheckSum.getInstance(checkSumType);
                 this.position[chunkId] = 0;
+                if(this.hashIndex != null)
+                    this.hashIndex[chunkId] = new HashIndexBuilder();
 
                 this.taskIndexFileName[chunkId] = new Path(FileOutputFormat.getOutputPath(job),
                                                            getStoreName() + "."
@@ -123,7 +133,9 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
                                  new FsPermission(HadoopStoreBuilder.HADOOP_FILE_PERMISSION));
                 logger.info("Setting permission to 755 for " + this.taskIndexFileName[chunkId]);
 
-                this.valueFileStream[chunkId] = fs.create(this.taskValueFileName[chunkId]);
+                this.valueFileStream[chunkId] = HadoopStoreBuilderUtils.createDataFileStream(fs.create(this.taskValueFileName[chunkId]),
+                                                                                         compressionStrategy,
+                                                                                         checkSumDigestValue[chunkId]);
                 fs.setPermission(this.taskValueFileName[chunkId],
                                  new FsPermission(HadoopStoreBuilder.HADOOP_FILE_PERMISSION));
                 logger.info("Setting permission to 755 for " + this.taskValueFileName[chunkId]);
@@ -147,14 +159,19 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
         // Read chunk id
         int chunkId = ReadOnlyUtils.chunk(key.get(), getNumChunks());
 
-        // Write key and position
-        this.indexFileStream[chunkId].write(key.get(), 0, key.getSize());
-        this.indexFileStream[chunkId].writeInt(this.position[chunkId]);
-
-        // Run key through checksum digest
-        if(this.checkSumDigestIndex[chunkId] != null) {
-            this.checkSumDigestIndex[chunkId].update(key.get(), 0, key.getSize());
-            this.checkSumDigestIndex[chunkId].update(this.position[chunkId]);
+        if(this.hashIndex != null) {
+            // Written out as a whole on close
+            this.hashIndex[chunkId].add(key.get(), this.position[chunkId]);
+        } else {
+            // Write key and position
+            this.indexFileStream[chunkId].write(key.get(), 0, key.getSize());
+            this.indexFileStream[chunkId].writeInt(this.position[chunkId]);
+
+            // Run key through checksum digest
+            if(this.checkSumDigestIndex[chunkId] != null) {
+                this.checkSumDigestIndex[chunkId].update(key.get(), 0, key.getSize());
+                this.checkSumDigestIndex[chunkId].update(this.position[chunkId]);
+            }
         }
 
         short numTuples = 0;
@@ -235,7 +252,7 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
             this.valueFileStream[chunkId].writeShort(numTuples);
             this.position[chunkId] += ByteUtils.SIZE_OF_SHORT;
 
-            if(this.checkSumDigestValue[chunkId] != null) {
+            if(this.checkSumDigestValue[chunkId] != null && this.compressionStrategy == null) {
                 this.checkSumDigestValue[chunkId].update(numTuples);
             }
         }
@@ -243,7 +260,7 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
         this.valueFileStream[chunkId].write(value);
         this.position[chunkId] += value.length;
 
-        if(this.checkSumDigestValue[chunkId] != null) {
+        if(this.checkSumDigestValue[chunkId] != null && this.compressionStrategy == null) {
             this.checkSumDigestValue[chunkId].update(value);
         }
 
@@ -257,6 +274,10 @@ public class HadoopStoreWriterPerBucket implements KeyValueWriter<BytesWritable,
     public void close() throws IOException {
 
         for(int chunkId = 0; chunkId < getNumChunks(); chunkId++) {
+            if(this.hashIndex != null)
+                HadoopStoreBuilderUtils.writeHashIndex(this.hashIndex[chunkId],
+                                                       this.indexFileStream[chunkId],
+                                                       this.checkSumDigestIndex[chunkId]);
             this.indexFileStream[chunkId].close();
             this.valueFileStream[chunkId].close();
         }
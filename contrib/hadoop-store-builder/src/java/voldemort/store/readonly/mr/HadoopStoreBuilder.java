@@ -50,6 +50,7 @@ import org.apache.log4j.Logger;
 import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
+import voldemort.serialization.Compression;
 import voldemort.store.StoreDefinition;
 import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.ReadOnlyStorageMetadata;
@@ -88,6 +89,8 @@ public class HadoopStoreBuilder {
     private boolean saveKeys = false;
     private boolean reducerPerBucket = false;
     private int numChunks = -1;
+    private Compression dataCompression = null;
+    private boolean hashIndex = false;
 
     private boolean isAvro;
 
@@ -307,6 +310,36 @@ public class HadoopStoreBuilder {
             throw new VoldemortException("Number of chunks should be greater than zero");
     }
 
+    /**
+     * Compress the data files block by block and build the store in
+     * {@link ReadOnlyStorageFormat#READONLY_V3}. Requires the keys to be saved.
+     * 
+     * @param dataCompression The compression of the data blocks, null to
+     *        build uncompressed data files
+     */
+    public void setDataCompression(Compression dataCompression) {
+        if(dataCompression != null && !saveKeys)
+            throw new VoldemortException("Compressed data files require save keys to be set");
+        if(dataCompression != null && hashIndex)
+            throw new VoldemortException("Compressed data files cannot be combined with a hash index");
+        this.dataCompression = dataCompression;
+    }
+
+    /**
+     * Write each index file as an open-addressed hash table and build the
+     * store in {@link ReadOnlyStorageFormat#READONLY_V4}. Requires the keys to
+     * be saved.
+     * 
+     * @param hashIndex Whether to build hash indexes instead of sorted ones
+     */
+    public void setHashIndex(boolean hashIndex) {
+        if(hashIndex && !saveKeys)
+            throw new VoldemortException("Hash indexes require save keys to be set");
+        if(hashIndex && dataCompression != null)
+            throw new VoldemortException("Compressed data files cannot be combined with a hash index");
+        this.hashIndex = hashIndex;
+    }
+
     /**
      * Run the job
      */
@@ -319,6 +352,13 @@ public class HadoopStoreBuilder {
                      new StoreDefinitionsMapper().writeStoreList(Collections.singletonList(storeDef)));
             conf.setBoolean("save.keys", saveKeys);
             conf.setBoolean("reducer.per.bucket", reducerPerBucket);
+            if(dataCompression != null) {
+                conf.set(HadoopStoreBuilderUtils.DATA_COMPRESSION, dataCompression.getType());
+                if(dataCompression.getOptions() != null)
+                    conf.set(HadoopStoreBuilderUtils.DATA_COMPRESSION_OPTIONS,
+                             dataCompression.getOptions());
+            }
+            conf.setBoolean(HadoopStoreBuilderUtils.HASH_INDEX, hashIndex);
             if(!isAvro) {
                 conf.setPartitionerClass(HadoopStoreBuilderPartitioner.class);
                 conf.setMapperClass(mapperClass);
@@ -458,7 +498,17 @@ public class HadoopStoreBuilder {
 
                 ReadOnlyStorageMetadata metadata = new ReadOnlyStorageMetadata();
 
-                if(saveKeys) {
+                if(dataCompression != null) {
+                    metadata.add(ReadOnlyStorageMetadata.FORMAT,
+                                 ReadOnlyStorageFormat.READONLY_V3.getCode());
+                    metadata.add(ReadOnlyStorageMetadata.COMPRESSION, dataCompression.getType());
+                    if(dataCompression.getOptions() != null)
+                        metadata.add(ReadOnlyStorageMetadata.COMPRESSION_OPTIONS,
+                                     dataCompression.getOptions());
+                } else if(hashIndex) {
+                    metadata.add(ReadOnlyStorageMetadata.FORMAT,
+                                 ReadOnlyStorageFormat.READONLY_V4.getCode());
+                } else if(saveKeys) {
                     metadata.add(ReadOnlyStorageMetadata.FORMAT,
                                  ReadOnlyStorageFormat.READONLY_V2.getCode());
                 } else {
@@ -17,7 +17,9 @@
 package voldemort.store.readonly.mr;
 
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -27,10 +29,18 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.mapred.JobConf;
 
 import voldemort.VoldemortException;
+import voldemort.serialization.Compression;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.store.readonly.HashIndexBuilder;
 import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.ReadOnlyUtils;
+import voldemort.store.readonly.checksum.CheckSum;
+import voldemort.store.readonly.checksum.CheckSumOutputStream;
+import voldemort.store.readonly.chunk.BlockCompressedOutputStream;
 import voldemort.store.readonly.chunk.DataFileChunk;
 import voldemort.store.readonly.chunk.DataFileChunkSet;
 import voldemort.utils.ByteUtils;
@@ -39,6 +49,68 @@ import com.google.common.collect.Lists;
 
 public class HadoopStoreBuilderUtils {
 
+    public static final String DATA_COMPRESSION = "data.compression";
+    public static final String DATA_COMPRESSION_OPTIONS = "data.compression.options";
+    public static final String HASH_INDEX = "hash.index";
+
+    /**
+     * Reads the compression of the data files set by
+     * {@link HadoopStoreBuilder#setDataCompression(Compression)}
+     * 
+     * @param conf The job configuration
+     * @return The compression strategy, or null if the data files are not
+     *         compressed
+     */
+    public static CompressionStrategy getDataCompressionStrategy(JobConf conf) {
+        String type = conf.get(DATA_COMPRESSION);
+        if(type == null)
+            return null;
+        return new CompressionStrategyFactory().get(new Compression(type,
+                                                                    conf.get(DATA_COMPRESSION_OPTIONS)));
+    }
+
+    /**
+     * Wraps the output stream of a data file. If a compression strategy is
+     * given the data is compressed block by block as expected by
+     * {@link ReadOnlyStorageFormat#READONLY_V3}, and the checksum is computed
+     * over the compressed bytes since that is what the fetcher verifies
+     * 
+     * @param out The raw file stream
+     * @param compressionStrategy The compression, or null
+     * @param checkSum The checksum of the data file, may be null
+     * @return The stream to write the data tuples to
+     */
+    public static DataOutputStream createDataFileStream(DataOutputStream out,
+                                                        CompressionStrategy compressionStrategy,
+                                                        CheckSum checkSum) {
+        if(compressionStrategy == null)
+            return out;
+        OutputStream raw = out;
+        if(checkSum != null)
+            raw = new CheckSumOutputStream(raw, checkSum);
+        return new DataOutputStream(new BlockCompressedOutputStream(raw, compressionStrategy));
+    }
+
+    /**
+     * Writes out the hash index of a chunk once all its entries are added. The
+     * checksum is computed over the table as written.
+     * 
+     * @param hashIndex The entries of the chunk
+     * @param indexStream The stream of the index file
+     * @param checkSum The checksum of the index file, may be null
+     * @throws IOException
+     */
+    public static void writeHashIndex(HashIndexBuilder hashIndex,
+                                      OutputStream indexStream,
+                                      CheckSum checkSum) throws IOException {
+        OutputStream out = indexStream;
+        if(checkSum != null)
+            out = new CheckSumOutputStream(out, checkSum);
+        DataOutputStream dataOut = new DataOutputStream(out);
+        hashIndex.write(dataOut);
+        dataOut.flush();
+    }
+
     /**
      * Given a filesystem, path and buffer-size, read the file contents and
      * presents it as a string
@@ -42,6 +42,7 @@ import org.apache.hadoop.util.ToolRunner;
 import org.jdom.JDOMException;
 
 import voldemort.cluster.Cluster;
+import voldemort.serialization.Compression;
 import voldemort.server.VoldemortConfig;
 import voldemort.store.StoreDefinition;
 import voldemort.store.readonly.checksum.CheckSum.CheckSumType;
@@ -92,6 +93,12 @@ public class HadoopStoreJobRunner extends Configured implements Tool {
         parser.accepts("force-overwrite", "deletes final output directory if present.");
         parser.accepts("save-keys", "save the keys in the data file");
         parser.accepts("reducer-per-bucket", "run single reducer per bucket");
+        parser.accepts("compression",
+                       "compress the data files block by block using snappy, lzf, gzip or dictionary (requires save-keys)")
+              .withRequiredArg();
+        parser.accepts("compression-options", "options of the data file compression")
+              .withRequiredArg();
+        parser.accepts("hash-index", "build hash indexes instead of sorted ones (requires save-keys)");
         parser.accepts("help", "print usage information");
         return parser;
     }
@@ -197,6 +204,11 @@ public class HadoopStoreJobRunner extends Configured implements Tool {
                                                             checkSumType,
                                                             saveKeys,
                                                             reducerPerBucket);
+        if(options.has("compression"))
+            builder.setDataCompression(new Compression((String) options.valueOf("compression"),
+                                                       (String) options.valueOf("compression-options")));
+
+        builder.setHashIndex(options.has("hash-index"));
 
         builder.build();
         return 0;
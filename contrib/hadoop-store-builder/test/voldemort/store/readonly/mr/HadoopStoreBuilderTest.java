@@ -40,10 +40,12 @@ import org.junit.runners.Parameterized.Parameters;
 
 import voldemort.ServerTestUtils;
 import voldemort.TestUtils;
+import voldemort.VoldemortException;
 import voldemort.client.RoutingTier;
 import voldemort.cluster.Cluster;
 import voldemort.routing.RoutingStrategyFactory;
 import voldemort.routing.RoutingStrategyType;
+import voldemort.serialization.Compression;
 import voldemort.serialization.DefaultSerializerFactory;
 import voldemort.serialization.Serializer;
 import voldemort.serialization.SerializerDefinition;
@@ -335,4 +337,116 @@ public class HadoopStoreBuilderTest {
             }
         }
     }
+
+    @Test
+    public void testHadoopBuildCompressed() throws Exception {
+        testHadoopBuildWithKeys(new Compression("snappy", null),
+                                false,
+                                ReadOnlyStorageFormat.READONLY_V3);
+    }
+
+    @Test
+    public void testHadoopBuildHashIndex() throws Exception {
+        testHadoopBuildWithKeys(null, true, ReadOnlyStorageFormat.READONLY_V4);
+    }
+
+    private void testHadoopBuildWithKeys(Compression compression,
+                                         boolean hashIndex,
+                                         ReadOnlyStorageFormat format) throws Exception {
+        Map<String, String> values = new HashMap<String, String>();
+        File testDir = TestUtils.createTempDir();
+        File tempDir = new File(testDir, "temp");
+        File outputDir = new File(testDir, "output");
+        File storeDir = TestUtils.createTempDir(testDir);
+        for(int i = 0; i < 200; i++)
+            values.put(Integer.toString(i), Integer.toBinaryString(i));
+
+        File inputFile = File.createTempFile("input", ".txt", testDir);
+        inputFile.deleteOnExit();
+        StringBuilder contents = new StringBuilder();
+        for(Map.Entry<String, String> entry: values.entrySet())
+            contents.append(entry.getKey() + "\t" + entry.getValue() + "\n");
+        FileUtils.writeStringToFile(inputFile, contents.toString());
+
+        String storeName = "test";
+        SerializerDefinition serDef = new SerializerDefinition("string");
+        Cluster cluster = ServerTestUtils.getLocalCluster(1);
+        StoreDefinition def = new StoreDefinitionBuilder().setName(storeName)
+                                                          .setType(ReadOnlyStorageConfiguration.TYPE_NAME)
+                                                          .setKeySerializer(serDef)
+                                                          .setValueSerializer(serDef)
+                                                          .setRoutingPolicy(RoutingTier.CLIENT)
+                                                          .setRoutingStrategyType(RoutingStrategyType.CONSISTENT_STRATEGY)
+                                                          .setReplicationFactor(1)
+                                                          .setPreferredReads(1)
+                                                          .setRequiredReads(1)
+                                                          .setPreferredWrites(1)
+                                                          .setRequiredWrites(1)
+                                                          .build();
+        HadoopStoreBuilder builder = new HadoopStoreBuilder(new Configuration(),
+                                                            TextStoreMapper.class,
+                                                            TextInputFormat.class,
+                                                            cluster,
+                                                            def,
+                                                            64 * 1024,
+                                                            new Path(tempDir.getAbsolutePath()),
+                                                            new Path(outputDir.getAbsolutePath()),
+                                                            new Path(inputFile.getAbsolutePath()),
+                                                            CheckSumType.MD5,
+                                                            saveKeys,
+                                                            false);
+        try {
+            builder.setDataCompression(compression);
+            builder.setHashIndex(hashIndex);
+            if(!saveKeys)
+                fail("Should have thrown an exception since " + format + " requires save keys");
+        } catch(VoldemortException e) {
+            if(saveKeys)
+                fail("Should not have thrown an exception since the keys are saved");
+            return;
+        }
+        builder.build();
+
+        File nodeFile = new File(outputDir, "node-0");
+        ReadOnlyStorageMetadata metadata = new ReadOnlyStorageMetadata(new File(nodeFile,
+                                                                                ".metadata"));
+        Assert.assertEquals(format.getCode(), metadata.get(ReadOnlyStorageMetadata.FORMAT));
+        if(compression != null)
+            Assert.assertEquals(compression.getType(),
+                                metadata.get(ReadOnlyStorageMetadata.COMPRESSION));
+
+        // the fetcher verifies the checksums of the files as written
+        File versionDir = new File(storeDir, "version-0");
+        new HdfsFetcher().fetch(nodeFile.getAbsolutePath(), versionDir.getAbsolutePath());
+        Assert.assertTrue(versionDir.exists());
+
+        @SuppressWarnings("unchecked")
+        Serializer<Object> serializer = (Serializer<Object>) new DefaultSerializerFactory().getSerializer(serDef);
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine(storeName,
+                                                                 searchStrategy,
+                                                                 new RoutingStrategyFactory().updateRoutingStrategy(def,
+                                                                                                                    cluster),
+                                                                 0,
+                                                                 storeDir,
+                                                                 1);
+        Store<Object, Object, Object> store = SerializingStore.wrap(engine,
+                                                                    serializer,
+                                                                    serializer,
+                                                                    serializer);
+        for(Map.Entry<String, String> entry: values.entrySet()) {
+            List<Versioned<Object>> found = store.get(entry.getKey(), null);
+            Assert.assertEquals("Incorrect number of results", 1, found.size());
+            Assert.assertEquals(entry.getValue(), found.get(0).getValue());
+        }
+
+        int numElements = 0;
+        ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator = engine.entries();
+        while(entryIterator.hasNext()) {
+            Pair<ByteArray, Versioned<byte[]>> entry = entryIterator.next();
+            Assert.assertEquals(values.get(serializer.toObject(entry.getFirst().get())),
+                                serializer.toObject(entry.getSecond().getValue()));
+            numElements++;
+        }
+        Assert.assertEquals(values.size(), numElements);
+    }
 }
@@ -62,7 +62,8 @@ public class KratiStorageConfiguration implements StorageConfiguration {
                                           lockStripes,
                                           hashLoadFactor,
                                           initLevel,
-                                          storeDir);
+                                          storeDir,
+                                          strategy);
         }
     }
 
@@ -9,8 +9,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import krati.array.DataArray;
 import krati.core.segment.SegmentFactory;
@@ -20,6 +22,7 @@ import krati.util.FnvHashFunction;
 import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
+import voldemort.routing.RoutingStrategy;
 import voldemort.store.AbstractStorageEngine;
 import voldemort.store.StoreUtils;
 import voldemort.utils.ByteArray;
@@ -37,6 +40,7 @@ public class KratiStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
     private static final Logger logger = Logger.getLogger(KratiStorageEngine.class);
     private final DynamicDataStore datastore;
     private final StripedLock locks;
+    private final RoutingStrategy routingStrategy;
 
     public KratiStorageEngine(String name,
                               SegmentFactory segmentFactory,
@@ -45,7 +49,31 @@ public class KratiStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
                               double hashLoadFactor,
                               int initLevel,
                               File dataDirectory) {
+        this(name,
+             segmentFactory,
+             segmentFileSizeMB,
+             lockStripes,
+             hashLoadFactor,
+             initLevel,
+             dataDirectory,
+             null);
+    }
+
+    /**
+     * @param routingStrategy The routing strategy of the store, used to find
+     *        the partition of a key when scanning a single partition. May be
+     *        null, in which case partition scans are not supported.
+     */
+    public KratiStorageEngine(String name,
+                              SegmentFactory segmentFactory,
+                              int segmentFileSizeMB,
+                              int lockStripes,
+                              double hashLoadFactor,
+                              int initLevel,
+                              File dataDirectory,
+                              RoutingStrategy routingStrategy) {
         super(name);
+        this.routingStrategy = routingStrategy;
         try {
             this.datastore = new DynamicDataStore(dataDirectory,
                                                   initLevel,
@@ -96,57 +124,35 @@ public class KratiStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
 
     @Override
     public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries() {
-        List<Pair<ByteArray, Versioned<byte[]>>> returnedList = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>();
-        DataArray array = datastore.getDataArray();
-        for(int index = 0; index < array.length(); index++) {
-            byte[] returnedBytes = array.get(index);
-            if(returnedBytes != null) {
-                // Extract the key value pair from this
-                // TODO: Move to DynamicDataStore code
-                ByteBuffer bb = ByteBuffer.wrap(returnedBytes);
-                int cnt = bb.getInt();
-                if(cnt > 0) {
-                    int keyLen = bb.getInt();
-                    byte[] key = new byte[keyLen];
-                    bb.get(key);
-
-                    int valueLen = bb.getInt();
-                    byte[] value = new byte[valueLen];
-                    bb.get(value);
-
-                    List<Versioned<byte[]>> versions;
-                    try {
-                        versions = disassembleValues(value);
-                    } catch(IOException e) {
-                        versions = null;
-                    }
-
-                    if(versions != null) {
-                        Iterator<Versioned<byte[]>> iterVersions = versions.iterator();
-                        while(iterVersions.hasNext()) {
-                            Versioned<byte[]> currentVersion = iterVersions.next();
-                            returnedList.add(Pair.create(new ByteArray(key), currentVersion));
-                        }
-                    }
-                }
-            }
-        }
-        return new KratiClosableIterator(returnedList);
+        return new KratiEntriesIterator(null);
     }
 
     @Override
     public ClosableIterator<ByteArray> keys() {
-        return StoreUtils.keys(entries());
+        return new KratiKeysIterator(null);
     }
 
+    /**
+     * Streams the entries of the partition. The data array is not laid out by
+     * partition, so this still walks every slot, but only the records of the
+     * partition have their values read.
+     */
     @Override
     public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries(int partition) {
-        throw new UnsupportedOperationException("Partition based entries scan not supported for this storage type");
+        checkPartitionScan();
+        return new KratiEntriesIterator(partition);
     }
 
     @Override
     public ClosableIterator<ByteArray> keys(int partition) {
-        throw new UnsupportedOperationException("Partition based key scan not supported for this storage type");
+        checkPartitionScan();
+        return new KratiKeysIterator(partition);
+    }
+
+    private void checkPartitionScan() {
+        if(routingStrategy == null)
+            throw new UnsupportedOperationException("Partition based scan not supported without a routing strategy for store "
+                                                    + getName());
     }
 
     @Override
@@ -310,13 +316,68 @@ public class KratiStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
         return returnList;
     }
 
-    private class KratiClosableIterator implements
-            ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> {
+    /**
+     * Walks the data array lazily, one slot at a time. A slot holds all the
+     * records whose keys hash to it, so only a single slot is held in memory
+     * at once, whatever the size of the store.
+     */
+    private abstract class KratiSlotIterator<T> implements ClosableIterator<T> {
+
+        private final DataArray array;
+        private final Integer partition;
+        private final LinkedList<T> buffer;
+        private int index;
+
+        public KratiSlotIterator(Integer partition) {
+            this.array = datastore.getDataArray();
+            this.partition = partition;
+            this.buffer = new LinkedList<T>();
+            this.index = 0;
+        }
 
-        private Iterator<Pair<ByteArray, Versioned<byte[]>>> iter;
+        /**
+         * Adds the items of a record to the buffer
+         * 
+         * @param key The key of the record
+         * @param value The value bytes of the record, positioned at its start
+         *        and limited to its end
+         */
+        protected abstract void addRecord(byte[] key, ByteBuffer value, List<T> buffer);
 
-        public KratiClosableIterator(List<Pair<ByteArray, Versioned<byte[]>>> list) {
-            iter = list.iterator();
+        @Override
+        public boolean hasNext() {
+            while(buffer.isEmpty() && index < array.length())
+                readSlot(array.get(index++));
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext())
+                throw new NoSuchElementException("Iterated to end.");
+            return buffer.removeFirst();
+        }
+
+        private void readSlot(byte[] slot) {
+            if(slot == null)
+                return;
+            // TODO: Move to DynamicDataStore code
+            ByteBuffer bb = ByteBuffer.wrap(slot);
+            int cnt = bb.getInt();
+            for(int i = 0; i < cnt; i++) {
+                byte[] key = new byte[bb.getInt()];
+                bb.get(key);
+                int valueLen = bb.getInt();
+                int valueEnd = bb.position() + valueLen;
+
+                if(partition == null
+                   || partition.equals(routingStrategy.getMasterPartition(key))) {
+                    ByteBuffer value = bb.duplicate();
+                    value.limit(valueEnd);
+                    addRecord(key, value, buffer);
+                }
+                bb.position(valueEnd);
+            }
         }
 
         @Override
@@ -325,20 +386,45 @@ public class KratiStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
         }
 
         @Override
-        public boolean hasNext() {
-            return iter.hasNext();
+        public void remove() {
+            throw new UnsupportedOperationException("No removal");
         }
+    }
 
-        @Override
-        public Pair<ByteArray, Versioned<byte[]>> next() {
-            return iter.next();
+    private class KratiEntriesIterator extends KratiSlotIterator<Pair<ByteArray, Versioned<byte[]>>> {
+
+        public KratiEntriesIterator(Integer partition) {
+            super(partition);
         }
 
         @Override
-        public void remove() {
-            Pair<ByteArray, Versioned<byte[]>> currentPair = next();
-            delete(currentPair.getFirst(), currentPair.getSecond().getVersion());
+        protected void addRecord(byte[] key,
+                                 ByteBuffer value,
+                                 List<Pair<ByteArray, Versioned<byte[]>>> buffer) {
+            byte[] valueBytes = new byte[value.remaining()];
+            value.get(valueBytes);
+            List<Versioned<byte[]>> versions;
+            try {
+                versions = disassembleValues(valueBytes);
+            } catch(IOException e) {
+                logger.error("Skipping unreadable value in store " + getName(), e);
+                return;
+            }
+            ByteArray keyArray = new ByteArray(key);
+            for(Versioned<byte[]> version: versions)
+                buffer.add(Pair.create(keyArray, version));
+        }
+    }
+
+    private class KratiKeysIterator extends KratiSlotIterator<ByteArray> {
+
+        public KratiKeysIterator(Integer partition) {
+            super(partition);
         }
 
+        @Override
+        protected void addRecord(byte[] key, ByteBuffer value, List<ByteArray> buffer) {
+            buffer.add(new ByteArray(key));
+        }
     }
 }
@@ -1,16 +1,23 @@
 package voldemort.store.krati;
 
 import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
 
 import krati.core.segment.MappedSegmentFactory;
 import voldemort.TestUtils;
+import voldemort.routing.RoutingStrategy;
 import voldemort.store.AbstractStorageEngineTest;
 import voldemort.store.StorageEngine;
 import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.versioning.Versioned;
 
 public class KratiStorageEngineTest extends AbstractStorageEngineTest {
 
     private StorageEngine<ByteArray, byte[], byte[]> store = null;
+    private RoutingStrategy routingStrategy;
 
     @Override
     protected void setUp() throws Exception {
@@ -18,13 +25,15 @@ public class KratiStorageEngineTest extends AbstractStorageEngineTest {
         File storeDir = TestUtils.createTempDir();
         storeDir.mkdirs();
         storeDir.deleteOnExit();
+        this.routingStrategy = TestUtils.makeSingleNodeRoutingStrategy();
         this.store = new KratiStorageEngine("storeName",
                                             new MappedSegmentFactory(),
                                             10,
                                             10,
                                             0.75,
                                             0,
-                                            storeDir);
+                                            storeDir,
+                                            routingStrategy);
     }
 
     @Override
@@ -32,6 +41,41 @@ public class KratiStorageEngineTest extends AbstractStorageEngineTest {
         return this.store;
     }
 
+    public void testPartitionScans() {
+        StorageEngine<ByteArray, byte[], byte[]> engine = getStorageEngine();
+        Set<ByteArray> keys = new HashSet<ByteArray>();
+        for(int i = 0; i < 500; i++) {
+            ByteArray key = new ByteArray(("key" + i).getBytes());
+            engine.put(key, new Versioned<byte[]>(key.get()), null);
+            keys.add(key);
+        }
+
+        Set<ByteArray> scannedKeys = new HashSet<ByteArray>();
+        int numEntries = 0;
+        int numPartitions = routingStrategy.getNodes().iterator().next().getNumberOfPartitions();
+        for(int partition = 0; partition < numPartitions; partition++) {
+            ClosableIterator<ByteArray> keyIterator = engine.keys(partition);
+            while(keyIterator.hasNext()) {
+                ByteArray key = keyIterator.next();
+                assertEquals(partition, routingStrategy.getMasterPartition(key.get()).intValue());
+                assertTrue("Key scanned twice", scannedKeys.add(key));
+            }
+            keyIterator.close();
+
+            ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator = engine.entries(partition);
+            while(entryIterator.hasNext()) {
+                Pair<ByteArray, Versioned<byte[]>> entry = entryIterator.next();
+                assertEquals(partition, routingStrategy.getMasterPartition(entry.getFirst().get())
+                                                       .intValue());
+                assertEquals(entry.getFirst(), new ByteArray(entry.getSecond().getValue()));
+                numEntries++;
+            }
+            entryIterator.close();
+        }
+        assertEquals(keys, scannedKeys);
+        assertEquals(keys.size(), numEntries);
+    }
+
     @Override
     public void tearDown() {
         store.truncate();
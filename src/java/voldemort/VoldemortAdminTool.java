@@ -250,6 +250,11 @@ public class VoldemortAdminTool {
               .withRequiredArg()
               .describedAs("size-in-mb")
               .ofType(Long.class);
+        parser.accepts("train-compression-dictionary",
+                       "Train a compression dictionary out of sampled values of the stores")
+              .withRequiredArg()
+              .describedAs("num-samples")
+              .ofType(Integer.class);
         parser.accepts("query-keys", "Get values of keys on specific nodes")
               .withRequiredArg()
               .describedAs("query-keys")
@@ -283,7 +288,8 @@ public class VoldemortAdminTool {
                      || options.has("get-metadata") || options.has("check-metadata"))
                  || options.has("truncate") || options.has("clear-rebalancing-metadata")
                  || options.has("async") || options.has("native-backup") || options.has("rollback")
-                 || options.has("verify-metadata-version") || options.has("reserve-memory"))) {
+                 || options.has("verify-metadata-version") || options.has("reserve-memory")
+                 || options.has("train-compression-dictionary"))) {
                 System.err.println("Missing required arguments: " + Joiner.on(", ").join(missing));
                 printHelp(System.err, parser);
                 System.exit(1);
@@ -390,6 +396,12 @@ public class VoldemortAdminTool {
             ops += "v";
         }
 
+        if(options.has("train-compression-dictionary")) {
+            if(!options.has("stores")) {
+                Utils.croak("Specify the list of stores to train compression dictionaries for");
+            }
+            ops += "x";
+        }
         if(options.has("synchronize-metadata-version")) {
             ops += "z";
         }
@@ -397,7 +409,8 @@ public class VoldemortAdminTool {
             Utils.croak("At least one of (delete-partitions, restore, add-node, fetch-entries, "
                         + "fetch-keys, add-stores, delete-store, update-entries, get-metadata, ro-metadata, "
                         + "set-metadata, check-metadata, clear-rebalancing-metadata, async, "
-                        + "repair-job, native-backup, rollback, reserve-memory, mirror-url, verify-metadata-version, prune-job) must be specified");
+                        + "repair-job, native-backup, rollback, reserve-memory, mirror-url, verify-metadata-version, prune-job, "
+                        + "train-compression-dictionary) must be specified");
         }
 
         List<String> storeNames = null;
@@ -614,6 +627,17 @@ public class VoldemortAdminTool {
                 long reserveMB = (Long) options.valueOf("reserve-memory");
                 adminClient.storeMntOps.reserveMemory(nodeId, storeNames, reserveMB);
             }
+            if(ops.contains("x")) {
+                int numSamples = (Integer) options.valueOf("train-compression-dictionary");
+                for(String storeName: storeNames) {
+                    if(adminClient.storeMgmtOps.trainCompressionDictionary(storeName, numSamples) == null) {
+                        System.out.println("No compression dictionary could be trained for store "
+                                           + storeName + ", its definition is unchanged");
+                    } else {
+                        System.out.println("Added a compression dictionary to store " + storeName);
+                    }
+                }
+            }
             if(ops.contains("q")) {
                 List<String> keyList = (List<String>) options.valuesOf("query-keys");
                 if(storeNames == null || storeNames.size() == 0) {
@@ -1384,7 +1408,8 @@ public class VoldemortAdminTool {
         for(String storeName: storeNames) {
             Iterator<Pair<ByteArray, Versioned<byte[]>>> iterator = readEntriesBinary(inputDir,
                                                                                       storeName);
-            adminClient.streamingOps.updateEntries(nodeId, storeName, iterator, null);
+            // entries were dumped out of storage in key order
+            adminClient.streamingOps.updateEntriesSorted(nodeId, storeName, iterator, null);
         }
 
     }
@@ -23,6 +23,8 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -44,6 +46,10 @@ import voldemort.serialization.SlopSerializer;
 import voldemort.serialization.StringSerializer;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
+import voldemort.store.cache.NearCacheStore;
+import voldemort.store.cache.VersionedCache;
+import voldemort.store.coalescing.CoalescingStore;
+import voldemort.store.coalescing.GetCoalescer;
 import voldemort.store.compress.CompressingStore;
 import voldemort.store.compress.CompressionStrategy;
 import voldemort.store.compress.CompressionStrategyFactory;
@@ -83,6 +89,8 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
 
     public static final int DEFAULT_ROUTING_TIMEOUT_MS = 5000;
 
+    private static final int NEAR_CACHE_SEGMENTS = 16;
+
     protected static final ClusterMapper clusterMapper = new ClusterMapper();
     private static final StoreDefinitionsMapper storeMapper = new StoreDefinitionsMapper();
     protected static final Logger logger = Logger.getLogger(AbstractStoreClientFactory.class);
@@ -105,6 +113,8 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
     private final AtomicInteger clientSequencer;
     private final HashSet<SchedulerService> clientAsyncServiceRepo;
     private final RoutedStoreConfig routedStoreConfig;
+    private final ConcurrentMap<String, VersionedCache> nearCaches;
+    private final ConcurrentMap<String, GetCoalescer> getCoalescers;
 
     private Cluster cluster;
     private List<StoreDefinition> storeDefs;
@@ -130,6 +140,8 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
 
         this.clientSequencer = new AtomicInteger(0);
         this.clientAsyncServiceRepo = new HashSet<SchedulerService>();
+        this.nearCaches = new ConcurrentHashMap<String, VersionedCache>();
+        this.getCoalescers = new ConcurrentHashMap<String, GetCoalescer>();
 
         if(this.isJmxEnabled) {
             JmxUtils.registerMbean(threadPool,
@@ -306,6 +318,16 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
                                                                      + JmxUtils.getJmxId(jmxId)));
         }
 
+        if(this.config.isEnableGetCoalescing()) {
+            store = new CoalescingStore(store, getGetCoalescer(storeName));
+        }
+
+        if(this.config.isNearCacheEnabledFor(storeName) && !storeDef.isView()) {
+            store = new NearCacheStore(store,
+                                       getNearCache(storeName),
+                                       this.config.isNearCacheRevalidateReads());
+        }
+
         if(this.config.isEnableCompressionLayer()) {
             if(storeDef.getKeySerializer().hasCompression()
                || storeDef.getValueSerializer().hasCompression()) {
@@ -351,6 +373,55 @@ public abstract class AbstractStoreClientFactory implements StoreClientFactory {
         return finalStore;
     }
 
+    /**
+     * Near caches are shared by all the clients of a store created by this
+     * factory, so that a write through one client invalidates the values
+     * cached for the others.
+     */
+    private VersionedCache getNearCache(String storeName) {
+        VersionedCache cache = nearCaches.get(storeName);
+        if(cache == null) {
+            VersionedCache newCache = new VersionedCache(config.getNearCacheMaxSizeInBytes(),
+                                                         NEAR_CACHE_SEGMENTS,
+                                                         config.getNearCacheTtlMs(),
+                                                         config.isNearCacheOffHeap(),
+                                                         SystemTime.INSTANCE);
+            cache = nearCaches.putIfAbsent(storeName, newCache);
+            if(cache == null) {
+                cache = newCache;
+                if(isJmxEnabled) {
+                    JmxUtils.registerMbean(cache,
+                                           JmxUtils.createObjectName(JmxUtils.getPackageName(cache.getClass()),
+                                                                     storeName
+                                                                             + JmxUtils.getJmxId(jmxId)));
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Like near caches, coalescers are shared by all the clients of a store
+     * created by this factory.
+     */
+    private GetCoalescer getGetCoalescer(String storeName) {
+        GetCoalescer coalescer = getCoalescers.get(storeName);
+        if(coalescer == null) {
+            GetCoalescer newCoalescer = new GetCoalescer();
+            coalescer = getCoalescers.putIfAbsent(storeName, newCoalescer);
+            if(coalescer == null) {
+                coalescer = newCoalescer;
+                if(isJmxEnabled) {
+                    JmxUtils.registerMbean(coalescer,
+                                           JmxUtils.createObjectName(JmxUtils.getPackageName(coalescer.getClass()),
+                                                                     storeName
+                                                                             + JmxUtils.getJmxId(jmxId)));
+                }
+            }
+        }
+        return coalescer;
+    }
+
     protected ClientConfig getConfig() {
         return config;
     }
@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
@@ -36,6 +37,8 @@ import voldemort.cluster.failuredetector.ThresholdFailureDetector;
 import voldemort.common.VoldemortOpCode;
 import voldemort.serialization.DefaultSerializerFactory;
 import voldemort.serialization.SerializerFactory;
+import voldemort.store.routed.ReadHedgingPolicy;
+import voldemort.store.system.SystemStoreConstants;
 import voldemort.utils.ConfigurationException;
 import voldemort.utils.Props;
 import voldemort.utils.ReflectUtils;
@@ -94,6 +97,8 @@ public class ClientConfig {
     private volatile long failureDetectorAsyncRecoveryIntervalMs = FailureDetectorConfig.DEFAULT_ASYNC_RECOVERY_INTERVAL;
     private volatile List<String> failureDetectorCatastrophicErrorTypes = FailureDetectorConfig.DEFAULT_CATASTROPHIC_ERROR_TYPES;
     private long failureDetectorRequestLengthThreshold = socketTimeoutMs;
+    private volatile double failureDetectorPhiThreshold = FailureDetectorConfig.DEFAULT_PHI_THRESHOLD;
+    private volatile int failureDetectorPhiWindowSize = FailureDetectorConfig.DEFAULT_PHI_WINDOW_SIZE;
 
     private volatile int maxBootstrapRetries = 2;
     private volatile String clientContextName = "";
@@ -117,6 +122,17 @@ public class ClientConfig {
     private volatile boolean enableSerializationLayer = true;
     private volatile boolean enableInconsistencyResolvingLayer = true;
     private volatile ZoneAffinity zoneAffinity = new ZoneAffinity();
+    private volatile boolean enableAdaptiveReplicaSelection = false;
+    private volatile boolean enableHedgedReads = false;
+    private volatile double hedgedReadsPercentile = ReadHedgingPolicy.DEFAULT_PERCENTILE;
+    private volatile double hedgedReadsMaxRatio = ReadHedgingPolicy.DEFAULT_MAX_HEDGE_RATIO;
+    private volatile boolean enableNearCache = false;
+    private volatile List<String> nearCacheStores = new ArrayList<String>();
+    private volatile long nearCacheMaxSizeInBytes = 64 * 1024 * 1024;
+    private volatile long nearCacheTtlMs = 1000;
+    private volatile boolean nearCacheOffHeap = false;
+    private volatile boolean nearCacheRevalidateReads = false;
+    private volatile boolean enableGetCoalescing = false;
 
     public ClientConfig() {}
 
@@ -155,6 +171,8 @@ public class ClientConfig {
     public static final String FAILUREDETECTOR_ASYNCRECOVERY_INTERVAL_PROPERTY = "failuredetector_asyncscan_interval";
     public static final String FAILUREDETECTOR_CATASTROPHIC_ERROR_TYPES_PROPERTY = "failuredetector_catastrophic_error_types";
     public static final String FAILUREDETECTOR_REQUEST_LENGTH_THRESHOLD_PROPERTY = "failuredetector_request_length_threshold";
+    public static final String FAILUREDETECTOR_PHI_THRESHOLD_PROPERTY = "failuredetector_phi_threshold";
+    public static final String FAILUREDETECTOR_PHI_WINDOW_SIZE_PROPERTY = "failuredetector_phi_window_size";
     public static final String MAX_BOOTSTRAP_RETRIES = "max_bootstrap_retries";
     public static final String CLIENT_CONTEXT_NAME = "voldemort_client_context_name";
     public static final String ASYNC_CHECK_METADATA_INTERVAL = "check_metadata_interval_ms";
@@ -175,6 +193,17 @@ public class ClientConfig {
     public static final String GET_OP_ZONE_AFFINITY = "get_op_zone_affinity";
     public static final String GETALL_OP_ZONE_AFFINITY = "getall_op_zone_affinity";
     public static final String GETVERSIONS_OP_ZONE_AFFINITY = "getversions_op_zone_affinity";
+    public static final String ENABLE_ADAPTIVE_REPLICA_SELECTION = "enable_adaptive_replica_selection";
+    public static final String ENABLE_HEDGED_READS = "enable_hedged_reads";
+    public static final String HEDGED_READS_PERCENTILE = "hedged_reads_percentile";
+    public static final String HEDGED_READS_MAX_RATIO = "hedged_reads_max_ratio";
+    public static final String ENABLE_NEAR_CACHE = "enable_near_cache";
+    public static final String NEAR_CACHE_STORES = "near_cache_stores";
+    public static final String NEAR_CACHE_MAX_SIZE_IN_BYTES = "near_cache_max_size_in_bytes";
+    public static final String NEAR_CACHE_TTL_MS = "near_cache_ttl_ms";
+    public static final String NEAR_CACHE_OFF_HEAP = "near_cache_off_heap";
+    public static final String NEAR_CACHE_REVALIDATE_READS = "near_cache_revalidate_reads";
+    public static final String ENABLE_GET_COALESCING = "enable_get_coalescing";
 
     /**
      * Instantiate the client config using a properties file
@@ -331,6 +360,12 @@ public class ClientConfig {
         else
             this.setFailureDetectorRequestLengthThreshold(getSocketTimeout(TimeUnit.MILLISECONDS));
 
+        if(props.containsKey(FAILUREDETECTOR_PHI_THRESHOLD_PROPERTY))
+            this.setFailureDetectorPhiThreshold(props.getDouble(FAILUREDETECTOR_PHI_THRESHOLD_PROPERTY));
+
+        if(props.containsKey(FAILUREDETECTOR_PHI_WINDOW_SIZE_PROPERTY))
+            this.setFailureDetectorPhiWindowSize(props.getInt(FAILUREDETECTOR_PHI_WINDOW_SIZE_PROPERTY));
+
         if(props.containsKey(MAX_BOOTSTRAP_RETRIES))
             this.setMaxBootstrapRetries(props.getInt(MAX_BOOTSTRAP_RETRIES));
 
@@ -413,6 +448,50 @@ public class ClientConfig {
                 .setEnableGetVersionsOpZoneAffinity(props.getBoolean(GETVERSIONS_OP_ZONE_AFFINITY));
         }
 
+        if(props.containsKey(ENABLE_ADAPTIVE_REPLICA_SELECTION)) {
+            this.setEnableAdaptiveReplicaSelection(props.getBoolean(ENABLE_ADAPTIVE_REPLICA_SELECTION));
+        }
+
+        if(props.containsKey(ENABLE_HEDGED_READS)) {
+            this.setEnableHedgedReads(props.getBoolean(ENABLE_HEDGED_READS));
+        }
+
+        if(props.containsKey(HEDGED_READS_PERCENTILE)) {
+            this.setHedgedReadsPercentile(props.getDouble(HEDGED_READS_PERCENTILE));
+        }
+
+        if(props.containsKey(HEDGED_READS_MAX_RATIO)) {
+            this.setHedgedReadsMaxRatio(props.getDouble(HEDGED_READS_MAX_RATIO));
+        }
+
+        if(props.containsKey(ENABLE_NEAR_CACHE)) {
+            this.setEnableNearCache(props.getBoolean(ENABLE_NEAR_CACHE));
+        }
+
+        if(props.containsKey(NEAR_CACHE_STORES)) {
+            this.setNearCacheStores(props.getList(NEAR_CACHE_STORES));
+        }
+
+        if(props.containsKey(NEAR_CACHE_MAX_SIZE_IN_BYTES)) {
+            this.setNearCacheMaxSizeInBytes(props.getLong(NEAR_CACHE_MAX_SIZE_IN_BYTES));
+        }
+
+        if(props.containsKey(NEAR_CACHE_TTL_MS)) {
+            this.setNearCacheTtlMs(props.getLong(NEAR_CACHE_TTL_MS));
+        }
+
+        if(props.containsKey(NEAR_CACHE_OFF_HEAP)) {
+            this.setNearCacheOffHeap(props.getBoolean(NEAR_CACHE_OFF_HEAP));
+        }
+
+        if(props.containsKey(NEAR_CACHE_REVALIDATE_READS)) {
+            this.setNearCacheRevalidateReads(props.getBoolean(NEAR_CACHE_REVALIDATE_READS));
+        }
+
+        if(props.containsKey(ENABLE_GET_COALESCING)) {
+            this.setEnableGetCoalescing(props.getBoolean(ENABLE_GET_COALESCING));
+        }
+
     }
 
     /**
@@ -1002,6 +1081,38 @@ public class ClientConfig {
         return this;
     }
 
+    public double getFailureDetectorPhiThreshold() {
+        return failureDetectorPhiThreshold;
+    }
+
+    /**
+     * Sets the suspicion level at or above which the phi accrual failure
+     * detector considers a server to be down
+     * 
+     * @param failureDetectorPhiThreshold
+     * @return modified ClientConfig
+     */
+    public ClientConfig setFailureDetectorPhiThreshold(double failureDetectorPhiThreshold) {
+        this.failureDetectorPhiThreshold = failureDetectorPhiThreshold;
+        return this;
+    }
+
+    public int getFailureDetectorPhiWindowSize() {
+        return failureDetectorPhiWindowSize;
+    }
+
+    /**
+     * Sets the number of recent inter-response intervals per server that the
+     * phi accrual failure detector uses to estimate normal behaviour
+     * 
+     * @param failureDetectorPhiWindowSize
+     * @return modified ClientConfig
+     */
+    public ClientConfig setFailureDetectorPhiWindowSize(int failureDetectorPhiWindowSize) {
+        this.failureDetectorPhiWindowSize = failureDetectorPhiWindowSize;
+        return this;
+    }
+
     public int getMaxBootstrapRetries() {
         return maxBootstrapRetries;
     }
@@ -1112,6 +1223,177 @@ public class ClientConfig {
         return this.zoneAffinity;
     }
 
+    public boolean isEnableAdaptiveReplicaSelection() {
+        return enableAdaptiveReplicaSelection;
+    }
+
+    /**
+     * Order the replicas contacted by read operations by their observed
+     * latency and outstanding requests, instead of the static preference order
+     * of the routing strategy. Replicas only trade places within a zone.
+     * 
+     * @param enableAdaptiveReplicaSelection Defines if reads pick the fastest
+     *        replicas first
+     */
+    public ClientConfig setEnableAdaptiveReplicaSelection(boolean enableAdaptiveReplicaSelection) {
+        this.enableAdaptiveReplicaSelection = enableAdaptiveReplicaSelection;
+        return this;
+    }
+
+    public boolean isEnableHedgedReads() {
+        return enableHedgedReads;
+    }
+
+    /**
+     * Send a duplicate get or getAll to the next replica in the preference list
+     * when the first replicas take longer than
+     * {@link #setHedgedReadsPercentile(double)} of the recent response times
+     * of the store, and use whichever responses arrive first.
+     * 
+     * @param enableHedgedReads Defines if slow reads are hedged
+     */
+    public ClientConfig setEnableHedgedReads(boolean enableHedgedReads) {
+        this.enableHedgedReads = enableHedgedReads;
+        return this;
+    }
+
+    public double getHedgedReadsPercentile() {
+        return hedgedReadsPercentile;
+    }
+
+    /**
+     * @param hedgedReadsPercentile Percentile of the response times of a store
+     *        after which a read is hedged, 0.95 by default
+     */
+    public ClientConfig setHedgedReadsPercentile(double hedgedReadsPercentile) {
+        this.hedgedReadsPercentile = hedgedReadsPercentile;
+        return this;
+    }
+
+    public double getHedgedReadsMaxRatio() {
+        return hedgedReadsMaxRatio;
+    }
+
+    /**
+     * @param hedgedReadsMaxRatio Maximum share of the reads of a store that
+     *        may be hedged, 0.05 by default
+     */
+    public ClientConfig setHedgedReadsMaxRatio(double hedgedReadsMaxRatio) {
+        this.hedgedReadsMaxRatio = hedgedReadsMaxRatio;
+        return this;
+    }
+
+    public boolean isEnableNearCache() {
+        return enableNearCache;
+    }
+
+    /**
+     * Keep the values read by the client in a size bounded cache and serve
+     * further reads of the same keys from it. Writes made through the client
+     * invalidate the cached values. Writes made by other clients show up
+     * after at most {@link #setNearCacheTtlMs(long)}.
+     * 
+     * @param enableNearCache Defines if the client caches the values it reads
+     */
+    public ClientConfig setEnableNearCache(boolean enableNearCache) {
+        this.enableNearCache = enableNearCache;
+        return this;
+    }
+
+    public List<String> getNearCacheStores() {
+        return nearCacheStores;
+    }
+
+    /**
+     * @param nearCacheStores Names of the stores to cache values of. All the
+     *        stores but the system stores if empty, which is the default
+     */
+    public ClientConfig setNearCacheStores(List<String> nearCacheStores) {
+        this.nearCacheStores = Utils.notNull(nearCacheStores);
+        return this;
+    }
+
+    /**
+     * @return true if the values of the given store are to be cached
+     */
+    public boolean isNearCacheEnabledFor(String storeName) {
+        if(!enableNearCache)
+            return false;
+        if(nearCacheStores.isEmpty())
+            return !SystemStoreConstants.isSystemStore(storeName);
+        return nearCacheStores.contains(storeName);
+    }
+
+    public long getNearCacheMaxSizeInBytes() {
+        return nearCacheMaxSizeInBytes;
+    }
+
+    /**
+     * @param nearCacheMaxSizeInBytes Max # bytes of cached values per store,
+     *        64MB by default
+     */
+    public ClientConfig setNearCacheMaxSizeInBytes(long nearCacheMaxSizeInBytes) {
+        this.nearCacheMaxSizeInBytes = nearCacheMaxSizeInBytes;
+        return this;
+    }
+
+    public long getNearCacheTtlMs() {
+        return nearCacheTtlMs;
+    }
+
+    /**
+     * @param nearCacheTtlMs How long a cached value may be served, 1000 ms by
+     *        default. 0 means no limit
+     */
+    public ClientConfig setNearCacheTtlMs(long nearCacheTtlMs) {
+        this.nearCacheTtlMs = nearCacheTtlMs;
+        return this;
+    }
+
+    public boolean isNearCacheOffHeap() {
+        return nearCacheOffHeap;
+    }
+
+    /**
+     * @param nearCacheOffHeap Defines if cached values are kept in direct
+     *        buffers, outside of the Java heap
+     */
+    public ClientConfig setNearCacheOffHeap(boolean nearCacheOffHeap) {
+        this.nearCacheOffHeap = nearCacheOffHeap;
+        return this;
+    }
+
+    public boolean isNearCacheRevalidateReads() {
+        return nearCacheRevalidateReads;
+    }
+
+    /**
+     * @param nearCacheRevalidateReads Defines if a cached value is checked
+     *        against the versions on the servers, with a getVersions call,
+     *        before it is served
+     */
+    public ClientConfig setNearCacheRevalidateReads(boolean nearCacheRevalidateReads) {
+        this.nearCacheRevalidateReads = nearCacheRevalidateReads;
+        return this;
+    }
+
+    public boolean isEnableGetCoalescing() {
+        return enableGetCoalescing;
+    }
+
+    /**
+     * Let concurrent gets of the same key, made through any of the clients of
+     * a store created by the same factory, share a single lookup on the
+     * servers instead of each issuing their own.
+     * 
+     * @param enableGetCoalescing Defines if concurrent identical gets are
+     *        coalesced
+     */
+    public ClientConfig setEnableGetCoalescing(boolean enableGetCoalescing) {
+        this.enableGetCoalescing = enableGetCoalescing;
+        return this;
+    }
+
     public int getFatClientWrapperMaxPoolSize() {
         return fatClientWrapperMaxPoolSize;
     }
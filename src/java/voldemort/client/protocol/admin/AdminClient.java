@@ -54,6 +54,8 @@ import voldemort.client.SystemStoreClient;
 import voldemort.client.SystemStoreClientFactory;
 import voldemort.client.protocol.RequestFormatType;
 import voldemort.client.protocol.VoldemortFilter;
+import voldemort.client.protocol.admin.filter.AvroProjectionFilter;
+import voldemort.client.protocol.admin.filter.KeyRangeFilter;
 import voldemort.client.protocol.pb.ProtoUtils;
 import voldemort.client.protocol.pb.VAdminProto;
 import voldemort.client.protocol.pb.VAdminProto.RebalanceTaskInfoMap;
@@ -64,6 +66,8 @@ import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategy;
 import voldemort.routing.RoutingStrategyFactory;
+import voldemort.serialization.Compression;
+import voldemort.serialization.SerializerDefinition;
 import voldemort.server.RequestRoutingType;
 import voldemort.server.VoldemortConfig;
 import voldemort.server.protocol.admin.AsyncOperationStatus;
@@ -71,9 +75,13 @@ import voldemort.server.rebalance.VoldemortRebalancingException;
 import voldemort.server.storage.RepairJob;
 import voldemort.server.storage.VersionedPutPruneJob;
 import voldemort.store.ErrorCodeMapper;
+import voldemort.store.PartitionBlockFormat;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreUtils;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.DictionaryCompressionStrategy;
+import voldemort.store.compress.DictionaryTrainer;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.metadata.MetadataStore.VoldemortState;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
@@ -395,6 +403,20 @@ public class AdminClient {
 
         private VAdminProto.VoldemortFilter encodeFilter(VoldemortFilter filter) throws IOException {
             Class<?> cl = filter.getClass();
+            if(filter instanceof AvroProjectionFilter) {
+                byte[] projection = ((AvroProjectionFilter) filter).getProjection().toBytes();
+                return VAdminProto.VoldemortFilter.newBuilder()
+                                                  .setName(cl.getName())
+                                                  .setData(ProtoUtils.encodeBytes(new ByteArray(projection)))
+                                                  .build();
+            }
+            if(filter instanceof KeyRangeFilter) {
+                byte[] ranges = ((KeyRangeFilter) filter).toBytes();
+                return VAdminProto.VoldemortFilter.newBuilder()
+                                                  .setName(cl.getName())
+                                                  .setData(ProtoUtils.encodeBytes(new ByteArray(ranges)))
+                                                  .build();
+            }
             byte[] classBytes = networkClassLoader.dumpClass(cl);
             return VAdminProto.VoldemortFilter.newBuilder()
                                               .setName(cl.getName())
@@ -1138,6 +1160,84 @@ public class AdminClient {
             logger.info("Successfully deleted " + storeName + " on node " + node.getHost() + ":"
                         + node.getId());
         }
+
+        /**
+         * Train a new compression dictionary for the values of a store using
+         * dictionary compression and add it to the store definition on all
+         * active nodes in the cluster. Values are sampled from the primary
+         * partitions of every node. Values already written stay readable,
+         * since the previous dictionaries are kept; clients pick up the new
+         * dictionary once they bootstrap again.
+         * <p>
+         * 
+         * @param storeName name of the store
+         * @param numSamples approximate number of values to sample
+         * @return the new compression definition of the values, or null if the
+         *         sampled values had nothing in common and the store
+         *         definition was left unchanged
+         */
+        public Compression trainCompressionDictionary(String storeName, int numSamples) {
+            int nodeId = currentCluster.getNodes().iterator().next().getId();
+            StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(metadataMgmtOps.getRemoteStoreDefList(nodeId)
+                                                                                                      .getValue(),
+                                                                                       storeName);
+            SerializerDefinition valueSerializer = storeDef.getValueSerializer();
+            if(!valueSerializer.hasCompression()
+               || !DictionaryCompressionStrategy.TYPE.equals(valueSerializer.getCompression()
+                                                                            .getType()))
+                throw new VoldemortException("Store " + storeName
+                                             + " does not use dictionary compression");
+
+            long recordsPerPartition = Math.max(1, (numSamples + currentCluster.getNumberOfPartitions() - 1)
+                                                   / currentCluster.getNumberOfPartitions());
+            List<byte[]> samples = new ArrayList<byte[]>(numSamples);
+            for(Node node: currentCluster.getNodes()) {
+                Iterator<Pair<ByteArray, Versioned<byte[]>>> entries = bulkFetchOps.fetchEntries(node.getId(),
+                                                                                                 storeName,
+                                                                                                 node.getPartitionIds(),
+                                                                                                 null,
+                                                                                                 true,
+                                                                                                 recordsPerPartition);
+                while(entries.hasNext()) {
+                    samples.add(entries.next().getSecond().getValue());
+                }
+            }
+
+            Compression compression;
+            try {
+                compression = DictionaryCompressionStrategy.trainDictionary(valueSerializer.getCompression(),
+                                                                            samples,
+                                                                            new DictionaryTrainer());
+            } catch(IOException e) {
+                throw new VoldemortException("Failed to read the values sampled from store "
+                                             + storeName, e);
+            }
+            if(compression == null) {
+                logger.warn("The " + samples.size() + " values sampled from store " + storeName
+                            + " have nothing in common, leaving its store definition unchanged");
+                return null;
+            }
+
+            SerializerDefinition newValueSerializer = new SerializerDefinition(valueSerializer.getName(),
+                                                                               valueSerializer.getAllSchemaInfoVersions(),
+                                                                               valueSerializer.hasVersion(),
+                                                                               compression);
+            for(Node node: currentCluster.getNodes()) {
+                List<StoreDefinition> storeDefs = new ArrayList<StoreDefinition>(metadataMgmtOps.getRemoteStoreDefList(node.getId())
+                                                                                                .getValue());
+                for(int i = 0; i < storeDefs.size(); i++) {
+                    if(storeDefs.get(i).getName().equals(storeName)) {
+                        storeDefs.set(i,
+                                      StoreDefinitionUtils.withValueSerializer(storeDefs.get(i),
+                                                                               newValueSerializer));
+                    }
+                }
+                metadataMgmtOps.updateRemoteStoreDefList(node.getId(), storeDefs);
+                logger.info("Added compression dictionary to store " + storeName + " on node "
+                            + node.getHost() + ":" + node.getId());
+            }
+            return compression;
+        }
     }
 
     /**
@@ -1756,6 +1856,93 @@ public class AdminClient {
 
         }
 
+        /**
+         * Fetch the entries of a list of partitions of a partition aware
+         * read-write store in bulk. The server streams each partition as a
+         * sequence of compressed blocks holding sorted runs of its entries
+         * (see {@link PartitionBlockFormat}), framed the same way as the
+         * read-only partition files of
+         * {@link ReadOnlySpecificOperations#fetchPartitionFiles(int, String, List, String, Set, AtomicBoolean)}.
+         * <p>
+         * Blocks are decoded one at a time as the iteration happens, and
+         * within a partition entries are returned in key order, which makes
+         * the result suitable for sorted bulk loading on the receiving side.
+         * 
+         * @param nodeId Id of the node to fetch from
+         * @param storeName Name of the store
+         * @param partitionIds List of partition ids
+         * @return An iterator which allows entries to be streamed as they're
+         *         being iterated over.
+         */
+        public Iterator<Pair<ByteArray, Versioned<byte[]>>> fetchPartitionBlocks(int nodeId,
+                                                                                 final String storeName,
+                                                                                 List<Integer> partitionIds) {
+            Node node = AdminClient.this.getAdminClientCluster().getNodeById(nodeId);
+            final SocketDestination destination = new SocketDestination(node.getHost(),
+                                                                        node.getAdminPort(),
+                                                                        RequestFormatType.ADMIN_PROTOCOL_BUFFERS);
+            final SocketAndStreams sands = socketPool.checkout(destination);
+            DataOutputStream outputStream = sands.getOutputStream();
+            final DataInputStream inputStream = sands.getInputStream();
+
+            try {
+                VAdminProto.FetchPartitionFilesRequest fetchPartitionFileRequest = VAdminProto.FetchPartitionFilesRequest.newBuilder()
+                                                                                                                         .setStoreName(storeName)
+                                                                                                                         .addAllPartitionIds(partitionIds)
+                                                                                                                         .build();
+
+                VAdminProto.VoldemortAdminRequest request = VAdminProto.VoldemortAdminRequest.newBuilder()
+                                                                                             .setFetchPartitionFiles(fetchPartitionFileRequest)
+                                                                                             .setType(VAdminProto.AdminRequestType.FETCH_PARTITION_FILES)
+                                                                                             .build();
+                ProtoUtils.writeMessage(outputStream, request);
+                outputStream.flush();
+            } catch(IOException e) {
+                helperOps.close(sands.getSocket());
+                socketPool.checkin(destination, sands);
+                throw new VoldemortException(e);
+            }
+
+            return new AbstractIterator<Pair<ByteArray, Versioned<byte[]>>>() {
+
+                private Iterator<Pair<ByteArray, Versioned<byte[]>>> blockIterator = null;
+
+                @Override
+                public Pair<ByteArray, Versioned<byte[]>> computeNext() {
+                    try {
+                        while(blockIterator == null || !blockIterator.hasNext()) {
+                            int size = inputStream.readInt();
+                            if(size == -1) {
+                                socketPool.checkin(destination, sands);
+                                return endOfData();
+                            }
+
+                            byte[] input = new byte[size];
+                            ByteUtils.read(inputStream, input);
+                            VAdminProto.FileEntry blockEntry = VAdminProto.FileEntry.newBuilder()
+                                                                                    .mergeFrom(input)
+                                                                                    .build();
+                            byte[] block = new byte[(int) blockEntry.getFileSizeBytes()];
+                            ByteUtils.read(inputStream, block);
+
+                            CompressionStrategy compressionStrategy = PartitionBlockFormat.getCompressionStrategy(blockEntry.getFileName());
+                            blockIterator = PartitionBlockFormat.fromByteArray(compressionStrategy.inflate(block))
+                                                                .iterator();
+                            if(logger.isDebugEnabled()) {
+                                logger.debug("Received block " + blockEntry.getFileName()
+                                             + " of store " + storeName);
+                            }
+                        }
+                        return blockIterator.next();
+                    } catch(IOException e) {
+                        helperOps.close(sands.getSocket());
+                        socketPool.checkin(destination, sands);
+                        throw new VoldemortException(e);
+                    }
+                }
+            };
+        }
+
         /**
          * Fetch all the keys on the node that don't belong to it, based on its
          * current metadata and yet stored on the node. i.e all keys orphaned on
@@ -1823,6 +2010,60 @@ public class AdminClient {
             };
         }
 
+        /**
+         * Summarize the entries a node holds for a partition into per-range
+         * digests, computed on the node so that none of the entries has to
+         * be streamed. Keys are assigned to ranges as by
+         * {@link voldemort.client.protocol.admin.filter.KeyRangeFilter}.
+         *
+         * @param nodeId Id of the node to summarize
+         * @param storeName Name of the store
+         * @param partitionId Partition whose master keys are summarized
+         * @param numRanges Number of ranges the partition is split into
+         * @param hashValues Digest the values instead of the vector clocks
+         * @param expiredBeforeMs Leave out versions written before this
+         *        time; null to keep every version
+         * @return The digest of every range
+         */
+        public KeyRangeDigest digestKeyRanges(int nodeId,
+                                              String storeName,
+                                              int partitionId,
+                                              int numRanges,
+                                              boolean hashValues,
+                                              Long expiredBeforeMs) {
+            VAdminProto.DigestKeyRangesRequest.Builder digestRequest = VAdminProto.DigestKeyRangesRequest.newBuilder()
+                                                                                                         .setStore(storeName)
+                                                                                                         .setPartitionId(partitionId)
+                                                                                                         .setNumRanges(numRanges)
+                                                                                                         .setHashValues(hashValues);
+            if(expiredBeforeMs != null) {
+                digestRequest.setExpiredBeforeMs(expiredBeforeMs);
+            }
+
+            VAdminProto.VoldemortAdminRequest request = VAdminProto.VoldemortAdminRequest.newBuilder()
+                                                                                         .setType(VAdminProto.AdminRequestType.DIGEST_KEY_RANGES)
+                                                                                         .setDigestKeyRanges(digestRequest)
+                                                                                         .build();
+            VAdminProto.DigestKeyRangesResponse.Builder response = rpcOps.sendAndReceive(nodeId,
+                                                                                         request,
+                                                                                         VAdminProto.DigestKeyRangesResponse.newBuilder());
+
+            if(response.hasError()) {
+                helperOps.throwException(response.getError());
+            }
+
+            long[] digests = new long[numRanges];
+            long[] keyCounts = new long[numRanges];
+            for(int range = 0; range < numRanges; range++) {
+                digests[range] = response.getDigests(range);
+                keyCounts[range] = response.getKeyCounts(range);
+            }
+            return new KeyRangeDigest(digests,
+                                      keyCounts,
+                                      response.getScanned(),
+                                      response.getExpired());
+        }
+
         /**
          * Legacy interface for fetching entries. See
          * {@link #fetchKeys(int, String, List, VoldemortFilter, boolean, Cluster, long)}
@@ -2097,7 +2338,7 @@ public class AdminClient {
                                   String storeName,
                                   Iterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator,
                                   VoldemortFilter filter) {
-            streamingUpdateEntries(nodeId, storeName, entryIterator, filter, false);
+            streamingUpdateEntries(nodeId, storeName, entryIterator, filter, false, false);
         }
 
         /**
@@ -2121,7 +2362,35 @@ public class AdminClient {
                                            String storeName,
                                            Iterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator,
                                            VoldemortFilter filter) {
-            streamingUpdateEntries(nodeId, storeName, entryIterator, filter, true);
+            streamingUpdateEntries(nodeId, storeName, entryIterator, filter, true, false);
+        }
+
+        /**
+         * Update a stream of key/value entries at the given node in the same
+         * way as
+         * {@link StreamingOperations#updateEntries(int, String, Iterator, VoldemortFilter)}
+         * 
+         * The entries must arrive sorted by key, with all versions of a key
+         * adjacent to each other, so that the server can bulk load them into
+         * storage (see {@link voldemort.store.StorageEngine#bulkLoad(Iterator)}
+         * ) instead of writing them one at a time. Useful for restores and
+         * fork lifts, that stream a storage engine's entries in key order.
+         * 
+         * @param nodeId Id of the remote node (where we wish to update the
+         *        entries)
+         * @param storeName Store name for the entries
+         * @param entryIterator Iterator of key-value pairs for the entries,
+         *        sorted by key
+         * @param filter Custom filter implementation to filter out entries
+         *        which should not be updated.
+         * 
+         * @throws VoldemortException
+         */
+        public void updateEntriesSorted(int nodeId,
+                                        String storeName,
+                                        Iterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator,
+                                        VoldemortFilter filter) {
+            streamingUpdateEntries(nodeId, storeName, entryIterator, filter, false, true);
         }
 
         /**
@@ -2148,13 +2417,16 @@ public class AdminClient {
          * @param overWriteIfLatestTs if true overwrite the existing value if
          *        the supplied version has greater timestamp; else use vector
          *        clocks
+         * @param sorted if true, the entries are sorted by key and can be bulk
+         *        loaded by the server
          * @throws VoldemortException
          */
         private void streamingUpdateEntries(int nodeId,
                                             String storeName,
                                             Iterator<Pair<ByteArray, Versioned<byte[]>>> entryIterator,
                                             VoldemortFilter filter,
-                                            boolean overWriteIfLatestTs) {
+                                            boolean overWriteIfLatestTs,
+                                            boolean sorted) {
             Node node = AdminClient.this.getAdminClientCluster().getNodeById(nodeId);
             SocketDestination destination = new SocketDestination(node.getHost(),
                                                                   node.getAdminPort(),
@@ -2191,6 +2463,9 @@ public class AdminClient {
                             if(filter != null) {
                                 updateRequest.setFilter(helperOps.encodeFilter(filter));
                             }
+                            if(sorted) {
+                                updateRequest.setSorted(true);
+                            }
 
                             ProtoUtils.writeMessage(outputStream,
                                                     VAdminProto.VoldemortAdminRequest.newBuilder()
@@ -2993,10 +3268,12 @@ public class AdminClient {
                                                                                                                                     partitionIdList,
                                                                                                                                     null,
                                                                                                                                     false);
-                                currentAdminClient.streamingOps.updateEntries(nodeId,
-                                                                              storeName,
-                                                                              iterator,
-                                                                              null);
+                                // entries come out of the mirror's storage in key
+                                // order, so they can be bulk loaded
+                                currentAdminClient.streamingOps.updateEntriesSorted(nodeId,
+                                                                                    storeName,
+                                                                                    iterator,
+                                                                                    null);
 
                                 logger.info("Mirroring data for store:" + storeName + " from node "
                                             + nodeIdToMirrorFrom + " completed.");
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client.protocol.admin;
+
+import voldemort.client.protocol.admin.filter.KeyRangeFilter;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ByteUtils;
+import voldemort.utils.FnvHashFunction;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+/**
+ * Order independent summary of the (key, version) pairs a replica holds for
+ * each key range of a partition. Two replicas holding exactly the same
+ * versions in a range produce the same digest for it.
+ * <p>
+ * The servers build it while scanning a partition, see
+ * {@link AdminClient.BulkStreamingFetchOperations#digestKeyRanges}, so that
+ * only the ranges on which replicas disagree need to be streamed.
+ * 
+ */
+public class KeyRangeDigest {
+
+    private final long[] digests;
+    private final long[] keyCounts;
+    private long scanned = 0;
+    private long expired = 0;
+    private ByteArray lastKey = null;
+
+    public KeyRangeDigest(int numRanges) {
+        this.digests = new long[numRanges];
+        this.keyCounts = new long[numRanges];
+    }
+
+    KeyRangeDigest(long[] digests, long[] keyCounts, long scanned, long expired) {
+        this.digests = digests;
+        this.keyCounts = keyCounts;
+        this.scanned = scanned;
+        this.expired = expired;
+    }
+
+    /**
+     * Hash of a version, or of its value if replicas of different clusters
+     * are compared and their clocks cannot be
+     * 
+     * @param versioned The version scanned
+     * @param hashValues true to hash the value instead of the clock
+     * @return hash of the version
+     */
+    public static int hashVersion(Versioned<byte[]> versioned, boolean hashValues) {
+        if(hashValues) {
+            return new FnvHashFunction().hash(versioned.getValue());
+        } else {
+            return new FnvHashFunction().hash(((VectorClock) versioned.getVersion()).toBytes());
+        }
+    }
+
+    /**
+     * Record a scanned version. Versions of the same key are expected to be
+     * scanned consecutively, as the storage engines return them.
+     * 
+     * @param key The key itself
+     * @param versionHash hash of the version (or value) scanned
+     */
+    public void record(ByteArray key, int versionHash) {
+        record(KeyRangeFilter.getRange(key.get(), digests.length), key, versionHash);
+    }
+
+    /**
+     * Record a scanned version
+     * 
+     * @param range range of the key
+     * @param key The key itself
+     * @param versionHash hash of the version (or value) scanned
+     */
+    public void record(int range, ByteArray key, int versionHash) {
+        scanned++;
+        int keyHash = new FnvHashFunction().hash(key.get());
+        digests[range] += ByteUtils.mix64(((long) keyHash << 32) ^ (versionHash & 0xffffffffL));
+        if(!key.equals(lastKey)) {
+            keyCounts[range]++;
+            lastKey = key;
+        }
+    }
+
+    /**
+     * Record a scanned version left out of the digest because it expired
+     */
+    public void recordExpired() {
+        scanned++;
+        expired++;
+    }
+
+    public int getNumRanges() {
+        return digests.length;
+    }
+
+    public long getDigest(int range) {
+        return digests[range];
+    }
+
+    public long getKeyCount(int range) {
+        return keyCounts[range];
+    }
+
+    /**
+     * @return number of versions scanned, expired ones included
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * @return number of versions left out because they expired
+     */
+    public long getExpired() {
+        return expired;
+    }
+
+    public boolean matches(KeyRangeDigest other, int range) {
+        return digests[range] == other.digests[range]
+               && keyCounts[range] == other.keyCounts[range];
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client.protocol.admin.filter;
+
+import voldemort.client.protocol.VoldemortFilter;
+import voldemort.store.projection.AvroProjection;
+import voldemort.versioning.Versioned;
+
+/**
+ * A built-in filter carrying an {@link AvroProjection} to the fetch entries
+ * streams of the admin service. The server applies the projection to every
+ * fetched entry, dropping the versions failing its predicates. The projection
+ * is sent as data instead of class bytes, so the filter works without the
+ * network class loader.
+ * <p>
+ * Key only fetches cannot evaluate predicates and return every key. The filter
+ * is rejected by operations writing the fetched entries back to a store.
+ */
+public class AvroProjectionFilter implements VoldemortFilter {
+
+    private final AvroProjection projection;
+
+    public AvroProjectionFilter(AvroProjection projection) {
+        this.projection = projection;
+    }
+
+    public AvroProjection getProjection() {
+        return projection;
+    }
+
+    public boolean accept(Object key, Versioned<?> value) {
+        return true;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.client.protocol.admin.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collection;
+
+import voldemort.VoldemortException;
+import voldemort.client.protocol.VoldemortFilter;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ByteUtils;
+import voldemort.utils.FnvHashFunction;
+import voldemort.versioning.Versioned;
+
+/**
+ * A built-in filter that only accepts the keys falling into some of the
+ * ranges a partition is split into. A key belongs to range
+ * {@link #getRange(byte[], int)}, which re-mixes the key hash so that the
+ * ranges are evenly used even though all keys of a partition share the same
+ * routing hash modulo the partition count.
+ * <p>
+ * Like {@link AvroProjectionFilter}, the ranges are sent as data instead of
+ * class bytes, so the filter works without the network class loader and the
+ * keys of the other ranges never leave the server.
+ */
+public class KeyRangeFilter implements VoldemortFilter {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int numRanges;
+    private final BitSet ranges;
+
+    /**
+     * @param numRanges number of ranges the key space is split into
+     * @param ranges ranges whose keys are accepted
+     */
+    public KeyRangeFilter(int numRanges, Collection<Integer> ranges) {
+        if(numRanges <= 0)
+            throw new IllegalArgumentException("Number of ranges must be positive: " + numRanges);
+        this.numRanges = numRanges;
+        this.ranges = new BitSet(numRanges);
+        for(int range: ranges) {
+            if(range < 0 || range >= numRanges)
+                throw new IllegalArgumentException("Range " + range + " is not within [0, "
+                                                   + numRanges + ")");
+            this.ranges.set(range);
+        }
+    }
+
+    private KeyRangeFilter(int numRanges, BitSet ranges) {
+        this.numRanges = numRanges;
+        this.ranges = ranges;
+    }
+
+    public int getNumRanges() {
+        return numRanges;
+    }
+
+    public boolean contains(int range) {
+        return ranges.get(range);
+    }
+
+    public int getRange(byte[] key) {
+        return getRange(key, numRanges);
+    }
+
+    public boolean accept(Object key, Versioned<?> value) {
+        return ranges.get(getRange(((ByteArray) key).get()));
+    }
+
+    /**
+     * Determine the range of a key
+     * 
+     * @param key The key itself
+     * @param numRanges number of ranges the key space is split into
+     * @return range of the key, within [0, numRanges)
+     */
+    public static int getRange(byte[] key, int numRanges) {
+        long h = ByteUtils.mix64(new FnvHashFunction().hash(key));
+        return (int) ((h >>> 1) % numRanges);
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(numRanges);
+            output.writeInt(ranges.cardinality());
+            for(int range = ranges.nextSetBit(0); range >= 0; range = ranges.nextSetBit(range + 1))
+                output.writeInt(range);
+            output.flush();
+            return bytes.toByteArray();
+        } catch(IOException e) {
+            throw new VoldemortException("Failed to write key range filter", e);
+        }
+    }
+
+    public static KeyRangeFilter fromBytes(byte[] bytes) {
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+            byte version = input.readByte();
+            if(version != FORMAT_VERSION)
+                throw new VoldemortException("Unsupported key range filter format " + version);
+            int numRanges = input.readInt();
+            if(numRanges <= 0)
+                throw new VoldemortException("Invalid number of key ranges " + numRanges);
+            BitSet ranges = new BitSet(numRanges);
+            int numSetRanges = input.readInt();
+            for(int i = 0; i < numSetRanges; i++) {
+                int range = input.readInt();
+                if(range < 0 || range >= numRanges)
+                    throw new VoldemortException("Invalid key range " + range);
+                ranges.set(range);
+            }
+            return new KeyRangeFilter(numRanges, ranges);
+        } catch(IOException e) {
+            throw new VoldemortException("Failed to read key range filter", e);
+        }
+    }
+}
@@ -38,6 +38,7 @@ public final class VAdminProto {
     NATIVE_BACKUP(25, 28),
     RESERVE_MEMORY(26, 29),
     PRUNE_JOB(27, 30),
+    DIGEST_KEY_RANGES(28, 31),
     ;
     
     
@@ -73,6 +74,7 @@ public final class VAdminProto {
         case 28: return NATIVE_BACKUP;
         case 29: return RESERVE_MEMORY;
         case 30: return PRUNE_JOB;
+        case 31: return DIGEST_KEY_RANGES;
         default: return null;
       }
     }
@@ -103,7 +105,7 @@ public final class VAdminProto {
     }
     
     private static final AdminRequestType[] VALUES = {
-      GET_METADATA, UPDATE_METADATA, UPDATE_PARTITION_ENTRIES, FETCH_PARTITION_ENTRIES, DELETE_PARTITION_ENTRIES, INITIATE_FETCH_AND_UPDATE, ASYNC_OPERATION_STATUS, INITIATE_REBALANCE_NODE, ASYNC_OPERATION_STOP, ASYNC_OPERATION_LIST, TRUNCATE_ENTRIES, ADD_STORE, DELETE_STORE, FETCH_STORE, SWAP_STORE, ROLLBACK_STORE, GET_RO_MAX_VERSION_DIR, GET_RO_CURRENT_VERSION_DIR, FETCH_PARTITION_FILES, UPDATE_SLOP_ENTRIES, FAILED_FETCH_STORE, GET_RO_STORAGE_FORMAT, REBALANCE_STATE_CHANGE, REPAIR_JOB, DELETE_STORE_REBALANCE_STATE, NATIVE_BACKUP, RESERVE_MEMORY, PRUNE_JOB, 
+      GET_METADATA, UPDATE_METADATA, UPDATE_PARTITION_ENTRIES, FETCH_PARTITION_ENTRIES, DELETE_PARTITION_ENTRIES, INITIATE_FETCH_AND_UPDATE, ASYNC_OPERATION_STATUS, INITIATE_REBALANCE_NODE, ASYNC_OPERATION_STOP, ASYNC_OPERATION_LIST, TRUNCATE_ENTRIES, ADD_STORE, DELETE_STORE, FETCH_STORE, SWAP_STORE, ROLLBACK_STORE, GET_RO_MAX_VERSION_DIR, GET_RO_CURRENT_VERSION_DIR, FETCH_PARTITION_FILES, UPDATE_SLOP_ENTRIES, FAILED_FETCH_STORE, GET_RO_STORAGE_FORMAT, REBALANCE_STATE_CHANGE, REPAIR_JOB, DELETE_STORE_REBALANCE_STATE, NATIVE_BACKUP, RESERVE_MEMORY, PRUNE_JOB, DIGEST_KEY_RANGES, 
     };
     public static AdminRequestType valueOf(
         com.google.protobuf.Descriptors.EnumValueDescriptor desc) {
@@ -2197,6 +2199,13 @@ public final class VAdminProto {
     public boolean hasOverwriteIfLatestTs() { return hasOverwriteIfLatestTs; }
     public boolean getOverwriteIfLatestTs() { return overwriteIfLatestTs_; }
     
+    // optional bool sorted = 5;
+    public static final int SORTED_FIELD_NUMBER = 5;
+    private boolean hasSorted;
+    private boolean sorted_ = false;
+    public boolean hasSorted() { return hasSorted; }
+    public boolean getSorted() { return sorted_; }
+    
     private void initFields() {
       partitionEntry_ = voldemort.client.protocol.pb.VAdminProto.PartitionEntry.getDefaultInstance();
       filter_ = voldemort.client.protocol.pb.VAdminProto.VoldemortFilter.getDefaultInstance();
@@ -2226,6 +2235,9 @@ public final class VAdminProto {
       if (hasOverwriteIfLatestTs()) {
         output.writeBool(4, getOverwriteIfLatestTs());
       }
+      if (hasSorted()) {
+        output.writeBool(5, getSorted());
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -2251,6 +2263,10 @@ public final class VAdminProto {
         size += com.google.protobuf.CodedOutputStream
           .computeBoolSize(4, getOverwriteIfLatestTs());
       }
+      if (hasSorted()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(5, getSorted());
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -2421,6 +2437,9 @@ public final class VAdminProto {
         if (other.hasOverwriteIfLatestTs()) {
           setOverwriteIfLatestTs(other.getOverwriteIfLatestTs());
         }
+        if (other.hasSorted()) {
+          setSorted(other.getSorted());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -2472,6 +2491,10 @@ public final class VAdminProto {
               setOverwriteIfLatestTs(input.readBool());
               break;
             }
+            case 40: {
+              setSorted(input.readBool());
+              break;
+            }
           }
         }
       }
@@ -2590,6 +2613,24 @@ public final class VAdminProto {
         return this;
       }
       
+      // optional bool sorted = 5;
+      public boolean hasSorted() {
+        return result.hasSorted();
+      }
+      public boolean getSorted() {
+        return result.getSorted();
+      }
+      public Builder setSorted(boolean value) {
+        result.hasSorted = true;
+        result.sorted_ = value;
+        return this;
+      }
+      public Builder clearSorted() {
+        result.hasSorted = false;
+        result.sorted_ = false;
+        return this;
+      }
+      
       // @@protoc_insertion_point(builder_scope:voldemort.UpdatePartitionEntriesRequest)
     }
     
@@ -22153,167 +22194,1165 @@ public final class VAdminProto {
     // @@protoc_insertion_point(class_scope:voldemort.ReserveMemoryResponse)
   }
   
-  public static final class VoldemortAdminRequest extends
+  public static final class DigestKeyRangesRequest extends
       com.google.protobuf.GeneratedMessage {
-    // Use VoldemortAdminRequest.newBuilder() to construct.
-    private VoldemortAdminRequest() {
+    // Use DigestKeyRangesRequest.newBuilder() to construct.
+    private DigestKeyRangesRequest() {
       initFields();
     }
-    private VoldemortAdminRequest(boolean noInit) {}
+    private DigestKeyRangesRequest(boolean noInit) {}
     
-    private static final VoldemortAdminRequest defaultInstance;
-    public static VoldemortAdminRequest getDefaultInstance() {
+    private static final DigestKeyRangesRequest defaultInstance;
+    public static DigestKeyRangesRequest getDefaultInstance() {
       return defaultInstance;
     }
     
-    public VoldemortAdminRequest getDefaultInstanceForType() {
+    public DigestKeyRangesRequest getDefaultInstanceForType() {
       return defaultInstance;
     }
     
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_VoldemortAdminRequest_descriptor;
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_DigestKeyRangesRequest_descriptor;
     }
     
     protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_VoldemortAdminRequest_fieldAccessorTable;
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_DigestKeyRangesRequest_fieldAccessorTable;
     }
     
-    // required .voldemort.AdminRequestType type = 1;
-    public static final int TYPE_FIELD_NUMBER = 1;
-    private boolean hasType;
-    private voldemort.client.protocol.pb.VAdminProto.AdminRequestType type_;
-    public boolean hasType() { return hasType; }
-    public voldemort.client.protocol.pb.VAdminProto.AdminRequestType getType() { return type_; }
-    
-    // optional .voldemort.GetMetadataRequest get_metadata = 2;
-    public static final int GET_METADATA_FIELD_NUMBER = 2;
-    private boolean hasGetMetadata;
-    private voldemort.client.protocol.pb.VAdminProto.GetMetadataRequest getMetadata_;
-    public boolean hasGetMetadata() { return hasGetMetadata; }
-    public voldemort.client.protocol.pb.VAdminProto.GetMetadataRequest getGetMetadata() { return getMetadata_; }
-    
-    // optional .voldemort.UpdateMetadataRequest update_metadata = 3;
-    public static final int UPDATE_METADATA_FIELD_NUMBER = 3;
-    private boolean hasUpdateMetadata;
-    private voldemort.client.protocol.pb.VAdminProto.UpdateMetadataRequest updateMetadata_;
-    public boolean hasUpdateMetadata() { return hasUpdateMetadata; }
-    public voldemort.client.protocol.pb.VAdminProto.UpdateMetadataRequest getUpdateMetadata() { return updateMetadata_; }
-    
-    // optional .voldemort.UpdatePartitionEntriesRequest update_partition_entries = 4;
-    public static final int UPDATE_PARTITION_ENTRIES_FIELD_NUMBER = 4;
-    private boolean hasUpdatePartitionEntries;
-    private voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest updatePartitionEntries_;
-    public boolean hasUpdatePartitionEntries() { return hasUpdatePartitionEntries; }
-    public voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest getUpdatePartitionEntries() { return updatePartitionEntries_; }
-    
-    // optional .voldemort.FetchPartitionEntriesRequest fetch_partition_entries = 5;
-    public static final int FETCH_PARTITION_ENTRIES_FIELD_NUMBER = 5;
-    private boolean hasFetchPartitionEntries;
-    private voldemort.client.protocol.pb.VAdminProto.FetchPartitionEntriesRequest fetchPartitionEntries_;
-    public boolean hasFetchPartitionEntries() { return hasFetchPartitionEntries; }
-    public voldemort.client.protocol.pb.VAdminProto.FetchPartitionEntriesRequest getFetchPartitionEntries() { return fetchPartitionEntries_; }
-    
-    // optional .voldemort.DeletePartitionEntriesRequest delete_partition_entries = 6;
-    public static final int DELETE_PARTITION_ENTRIES_FIELD_NUMBER = 6;
-    private boolean hasDeletePartitionEntries;
-    private voldemort.client.protocol.pb.VAdminProto.DeletePartitionEntriesRequest deletePartitionEntries_;
-    public boolean hasDeletePartitionEntries() { return hasDeletePartitionEntries; }
-    public voldemort.client.protocol.pb.VAdminProto.DeletePartitionEntriesRequest getDeletePartitionEntries() { return deletePartitionEntries_; }
-    
-    // optional .voldemort.InitiateFetchAndUpdateRequest initiate_fetch_and_update = 7;
-    public static final int INITIATE_FETCH_AND_UPDATE_FIELD_NUMBER = 7;
-    private boolean hasInitiateFetchAndUpdate;
-    private voldemort.client.protocol.pb.VAdminProto.InitiateFetchAndUpdateRequest initiateFetchAndUpdate_;
-    public boolean hasInitiateFetchAndUpdate() { return hasInitiateFetchAndUpdate; }
-    public voldemort.client.protocol.pb.VAdminProto.InitiateFetchAndUpdateRequest getInitiateFetchAndUpdate() { return initiateFetchAndUpdate_; }
-    
-    // optional .voldemort.AsyncOperationStatusRequest async_operation_status = 8;
-    public static final int ASYNC_OPERATION_STATUS_FIELD_NUMBER = 8;
-    private boolean hasAsyncOperationStatus;
-    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationStatusRequest asyncOperationStatus_;
-    public boolean hasAsyncOperationStatus() { return hasAsyncOperationStatus; }
-    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationStatusRequest getAsyncOperationStatus() { return asyncOperationStatus_; }
-    
-    // optional .voldemort.InitiateRebalanceNodeRequest initiate_rebalance_node = 9;
-    public static final int INITIATE_REBALANCE_NODE_FIELD_NUMBER = 9;
-    private boolean hasInitiateRebalanceNode;
-    private voldemort.client.protocol.pb.VAdminProto.InitiateRebalanceNodeRequest initiateRebalanceNode_;
-    public boolean hasInitiateRebalanceNode() { return hasInitiateRebalanceNode; }
-    public voldemort.client.protocol.pb.VAdminProto.InitiateRebalanceNodeRequest getInitiateRebalanceNode() { return initiateRebalanceNode_; }
-    
-    // optional .voldemort.AsyncOperationStopRequest async_operation_stop = 10;
-    public static final int ASYNC_OPERATION_STOP_FIELD_NUMBER = 10;
-    private boolean hasAsyncOperationStop;
-    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationStopRequest asyncOperationStop_;
-    public boolean hasAsyncOperationStop() { return hasAsyncOperationStop; }
-    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationStopRequest getAsyncOperationStop() { return asyncOperationStop_; }
-    
-    // optional .voldemort.AsyncOperationListRequest async_operation_list = 11;
-    public static final int ASYNC_OPERATION_LIST_FIELD_NUMBER = 11;
-    private boolean hasAsyncOperationList;
-    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationListRequest asyncOperationList_;
-    public boolean hasAsyncOperationList() { return hasAsyncOperationList; }
-    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationListRequest getAsyncOperationList() { return asyncOperationList_; }
-    
-    // optional .voldemort.TruncateEntriesRequest truncate_entries = 12;
-    public static final int TRUNCATE_ENTRIES_FIELD_NUMBER = 12;
-    private boolean hasTruncateEntries;
-    private voldemort.client.protocol.pb.VAdminProto.TruncateEntriesRequest truncateEntries_;
-    public boolean hasTruncateEntries() { return hasTruncateEntries; }
-    public voldemort.client.protocol.pb.VAdminProto.TruncateEntriesRequest getTruncateEntries() { return truncateEntries_; }
+    // required string store = 1;
+    public static final int STORE_FIELD_NUMBER = 1;
+    private boolean hasStore;
+    private java.lang.String store_ = "";
+    public boolean hasStore() { return hasStore; }
+    public java.lang.String getStore() { return store_; }
     
-    // optional .voldemort.AddStoreRequest add_store = 13;
-    public static final int ADD_STORE_FIELD_NUMBER = 13;
-    private boolean hasAddStore;
-    private voldemort.client.protocol.pb.VAdminProto.AddStoreRequest addStore_;
-    public boolean hasAddStore() { return hasAddStore; }
-    public voldemort.client.protocol.pb.VAdminProto.AddStoreRequest getAddStore() { return addStore_; }
+    // required int32 partition_id = 2;
+    public static final int PARTITION_ID_FIELD_NUMBER = 2;
+    private boolean hasPartitionId;
+    private int partitionId_ = 0;
+    public boolean hasPartitionId() { return hasPartitionId; }
+    public int getPartitionId() { return partitionId_; }
+    
+    // required int32 num_ranges = 3;
+    public static final int NUM_RANGES_FIELD_NUMBER = 3;
+    private boolean hasNumRanges;
+    private int numRanges_ = 0;
+    public boolean hasNumRanges() { return hasNumRanges; }
+    public int getNumRanges() { return numRanges_; }
+    
+    // optional bool hash_values = 4;
+    public static final int HASH_VALUES_FIELD_NUMBER = 4;
+    private boolean hasHashValues;
+    private boolean hashValues_ = false;
+    public boolean hasHashValues() { return hasHashValues; }
+    public boolean getHashValues() { return hashValues_; }
+    
+    // optional int64 expired_before_ms = 5;
+    public static final int EXPIRED_BEFORE_MS_FIELD_NUMBER = 5;
+    private boolean hasExpiredBeforeMs;
+    private long expiredBeforeMs_ = 0L;
+    public boolean hasExpiredBeforeMs() { return hasExpiredBeforeMs; }
+    public long getExpiredBeforeMs() { return expiredBeforeMs_; }
     
-    // optional .voldemort.DeleteStoreRequest delete_store = 14;
-    public static final int DELETE_STORE_FIELD_NUMBER = 14;
-    private boolean hasDeleteStore;
-    private voldemort.client.protocol.pb.VAdminProto.DeleteStoreRequest deleteStore_;
-    public boolean hasDeleteStore() { return hasDeleteStore; }
-    public voldemort.client.protocol.pb.VAdminProto.DeleteStoreRequest getDeleteStore() { return deleteStore_; }
+    private void initFields() {
+    }
+    public final boolean isInitialized() {
+      if (!hasStore) return false;
+      if (!hasPartitionId) return false;
+      if (!hasNumRanges) return false;
+      return true;
+    }
     
-    // optional .voldemort.FetchStoreRequest fetch_store = 15;
-    public static final int FETCH_STORE_FIELD_NUMBER = 15;
-    private boolean hasFetchStore;
-    private voldemort.client.protocol.pb.VAdminProto.FetchStoreRequest fetchStore_;
-    public boolean hasFetchStore() { return hasFetchStore; }
-    public voldemort.client.protocol.pb.VAdminProto.FetchStoreRequest getFetchStore() { return fetchStore_; }
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (hasStore()) {
+        output.writeString(1, getStore());
+      }
+      if (hasPartitionId()) {
+        output.writeInt32(2, getPartitionId());
+      }
+      if (hasNumRanges()) {
+        output.writeInt32(3, getNumRanges());
+      }
+      if (hasHashValues()) {
+        output.writeBool(4, getHashValues());
+      }
+      if (hasExpiredBeforeMs()) {
+        output.writeInt64(5, getExpiredBeforeMs());
+      }
+      getUnknownFields().writeTo(output);
+    }
     
-    // optional .voldemort.SwapStoreRequest swap_store = 16;
-    public static final int SWAP_STORE_FIELD_NUMBER = 16;
-    private boolean hasSwapStore;
-    private voldemort.client.protocol.pb.VAdminProto.SwapStoreRequest swapStore_;
-    public boolean hasSwapStore() { return hasSwapStore; }
-    public voldemort.client.protocol.pb.VAdminProto.SwapStoreRequest getSwapStore() { return swapStore_; }
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
     
-    // optional .voldemort.RollbackStoreRequest rollback_store = 17;
-    public static final int ROLLBACK_STORE_FIELD_NUMBER = 17;
-    private boolean hasRollbackStore;
-    private voldemort.client.protocol.pb.VAdminProto.RollbackStoreRequest rollbackStore_;
-    public boolean hasRollbackStore() { return hasRollbackStore; }
-    public voldemort.client.protocol.pb.VAdminProto.RollbackStoreRequest getRollbackStore() { return rollbackStore_; }
+      size = 0;
+      if (hasStore()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeStringSize(1, getStore());
+      }
+      if (hasPartitionId()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(2, getPartitionId());
+      }
+      if (hasNumRanges()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(3, getNumRanges());
+      }
+      if (hasHashValues()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(4, getHashValues());
+      }
+      if (hasExpiredBeforeMs()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(5, getExpiredBeforeMs());
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
     
-    // optional .voldemort.GetROMaxVersionDirRequest get_ro_max_version_dir = 18;
-    public static final int GET_RO_MAX_VERSION_DIR_FIELD_NUMBER = 18;
-    private boolean hasGetRoMaxVersionDir;
-    private voldemort.client.protocol.pb.VAdminProto.GetROMaxVersionDirRequest getRoMaxVersionDir_;
-    public boolean hasGetRoMaxVersionDir() { return hasGetRoMaxVersionDir; }
-    public voldemort.client.protocol.pb.VAdminProto.GetROMaxVersionDirRequest getGetRoMaxVersionDir() { return getRoMaxVersionDir_; }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
     
-    // optional .voldemort.GetROCurrentVersionDirRequest get_ro_current_version_dir = 19;
-    public static final int GET_RO_CURRENT_VERSION_DIR_FIELD_NUMBER = 19;
-    private boolean hasGetRoCurrentVersionDir;
-    private voldemort.client.protocol.pb.VAdminProto.GetROCurrentVersionDirRequest getRoCurrentVersionDir_;
-    public boolean hasGetRoCurrentVersionDir() { return hasGetRoCurrentVersionDir; }
-    public voldemort.client.protocol.pb.VAdminProto.GetROCurrentVersionDirRequest getGetRoCurrentVersionDir() { return getRoCurrentVersionDir_; }
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
     
-    // optional .voldemort.FetchPartitionFilesRequest fetch_partition_files = 20;
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> {
+      private voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest result;
+      
+      // Construct using voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.newBuilder()
+      private Builder() {}
+      
+      private static Builder create() {
+        Builder builder = new Builder();
+        builder.result = new voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest();
+        return builder;
+      }
+      
+      protected voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest internalGetResult() {
+        return result;
+      }
+      
+      public Builder clear() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "Cannot call clear() after build().");
+        }
+        result = new voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest();
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(result);
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDescriptor();
+      }
+      
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest getDefaultInstanceForType() {
+        return voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDefaultInstance();
+      }
+      
+      public boolean isInitialized() {
+        return result.isInitialized();
+      }
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest build() {
+        if (result != null && !isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return buildPartial();
+      }
+      
+      private voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        if (!isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return buildPartial();
+      }
+      
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest buildPartial() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "build() has already been called on this Builder.");
+        }
+        voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest returnMe = result;
+        result = null;
+        return returnMe;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest) {
+          return mergeFrom((voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest other) {
+        if (other == voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDefaultInstance()) return this;
+        if (other.hasStore()) {
+          setStore(other.getStore());
+        }
+        if (other.hasPartitionId()) {
+          setPartitionId(other.getPartitionId());
+        }
+        if (other.hasNumRanges()) {
+          setNumRanges(other.getNumRanges());
+        }
+        if (other.hasHashValues()) {
+          setHashValues(other.getHashValues());
+        }
+        if (other.hasExpiredBeforeMs()) {
+          setExpiredBeforeMs(other.getExpiredBeforeMs());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                return this;
+              }
+              break;
+            }
+            case 10: {
+              setStore(input.readString());
+              break;
+            }
+            case 16: {
+              setPartitionId(input.readInt32());
+              break;
+            }
+            case 24: {
+              setNumRanges(input.readInt32());
+              break;
+            }
+            case 32: {
+              setHashValues(input.readBool());
+              break;
+            }
+            case 40: {
+              setExpiredBeforeMs(input.readInt64());
+              break;
+            }
+          }
+        }
+      }
+      
+      
+      // required string store = 1;
+      public boolean hasStore() {
+        return result.hasStore();
+      }
+      public java.lang.String getStore() {
+        return result.getStore();
+      }
+      public Builder setStore(java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  result.hasStore = true;
+        result.store_ = value;
+        return this;
+      }
+      public Builder clearStore() {
+        result.hasStore = false;
+        result.store_ = getDefaultInstance().getStore();
+        return this;
+      }
+      
+      // required int32 partition_id = 2;
+      public boolean hasPartitionId() {
+        return result.hasPartitionId();
+      }
+      public int getPartitionId() {
+        return result.getPartitionId();
+      }
+      public Builder setPartitionId(int value) {
+        result.hasPartitionId = true;
+        result.partitionId_ = value;
+        return this;
+      }
+      public Builder clearPartitionId() {
+        result.hasPartitionId = false;
+        result.partitionId_ = 0;
+        return this;
+      }
+      
+      // required int32 num_ranges = 3;
+      public boolean hasNumRanges() {
+        return result.hasNumRanges();
+      }
+      public int getNumRanges() {
+        return result.getNumRanges();
+      }
+      public Builder setNumRanges(int value) {
+        result.hasNumRanges = true;
+        result.numRanges_ = value;
+        return this;
+      }
+      public Builder clearNumRanges() {
+        result.hasNumRanges = false;
+        result.numRanges_ = 0;
+        return this;
+      }
+      
+      // optional bool hash_values = 4;
+      public boolean hasHashValues() {
+        return result.hasHashValues();
+      }
+      public boolean getHashValues() {
+        return result.getHashValues();
+      }
+      public Builder setHashValues(boolean value) {
+        result.hasHashValues = true;
+        result.hashValues_ = value;
+        return this;
+      }
+      public Builder clearHashValues() {
+        result.hasHashValues = false;
+        result.hashValues_ = false;
+        return this;
+      }
+      
+      // optional int64 expired_before_ms = 5;
+      public boolean hasExpiredBeforeMs() {
+        return result.hasExpiredBeforeMs();
+      }
+      public long getExpiredBeforeMs() {
+        return result.getExpiredBeforeMs();
+      }
+      public Builder setExpiredBeforeMs(long value) {
+        result.hasExpiredBeforeMs = true;
+        result.expiredBeforeMs_ = value;
+        return this;
+      }
+      public Builder clearExpiredBeforeMs() {
+        result.hasExpiredBeforeMs = false;
+        result.expiredBeforeMs_ = 0L;
+        return this;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:voldemort.DigestKeyRangesRequest)
+    }
+    
+    static {
+      defaultInstance = new DigestKeyRangesRequest(true);
+      voldemort.client.protocol.pb.VAdminProto.internalForceInit();
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:voldemort.DigestKeyRangesRequest)
+  }
+  
+  public static final class DigestKeyRangesResponse extends
+      com.google.protobuf.GeneratedMessage {
+    // Use DigestKeyRangesResponse.newBuilder() to construct.
+    private DigestKeyRangesResponse() {
+      initFields();
+    }
+    private DigestKeyRangesResponse(boolean noInit) {}
+    
+    private static final DigestKeyRangesResponse defaultInstance;
+    public static DigestKeyRangesResponse getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public DigestKeyRangesResponse getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_DigestKeyRangesResponse_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_DigestKeyRangesResponse_fieldAccessorTable;
+    }
+    
+    // repeated int64 digests = 1;
+    public static final int DIGESTS_FIELD_NUMBER = 1;
+    private java.util.List<java.lang.Long> digests_ =
+      java.util.Collections.emptyList();
+    public java.util.List<java.lang.Long> getDigestsList() {
+      return digests_;
+    }
+    public int getDigestsCount() { return digests_.size(); }
+    public long getDigests(int index) {
+      return digests_.get(index);
+    }
+    
+    // repeated int64 key_counts = 2;
+    public static final int KEY_COUNTS_FIELD_NUMBER = 2;
+    private java.util.List<java.lang.Long> keyCounts_ =
+      java.util.Collections.emptyList();
+    public java.util.List<java.lang.Long> getKeyCountsList() {
+      return keyCounts_;
+    }
+    public int getKeyCountsCount() { return keyCounts_.size(); }
+    public long getKeyCounts(int index) {
+      return keyCounts_.get(index);
+    }
+    
+    // optional int64 scanned = 3;
+    public static final int SCANNED_FIELD_NUMBER = 3;
+    private boolean hasScanned;
+    private long scanned_ = 0L;
+    public boolean hasScanned() { return hasScanned; }
+    public long getScanned() { return scanned_; }
+    
+    // optional int64 expired = 4;
+    public static final int EXPIRED_FIELD_NUMBER = 4;
+    private boolean hasExpired;
+    private long expired_ = 0L;
+    public boolean hasExpired() { return hasExpired; }
+    public long getExpired() { return expired_; }
+    
+    // optional .voldemort.Error error = 5;
+    public static final int ERROR_FIELD_NUMBER = 5;
+    private boolean hasError;
+    private voldemort.client.protocol.pb.VProto.Error error_;
+    public boolean hasError() { return hasError; }
+    public voldemort.client.protocol.pb.VProto.Error getError() { return error_; }
+    
+    private void initFields() {
+      error_ = voldemort.client.protocol.pb.VProto.Error.getDefaultInstance();
+    }
+    public final boolean isInitialized() {
+      if (hasError()) {
+        if (!getError().isInitialized()) return false;
+      }
+      return true;
+    }
+    
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      for (long element : getDigestsList()) {
+        output.writeInt64(1, element);
+      }
+      for (long element : getKeyCountsList()) {
+        output.writeInt64(2, element);
+      }
+      if (hasScanned()) {
+        output.writeInt64(3, getScanned());
+      }
+      if (hasExpired()) {
+        output.writeInt64(4, getExpired());
+      }
+      if (hasError()) {
+        output.writeMessage(5, getError());
+      }
+      getUnknownFields().writeTo(output);
+    }
+    
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+    
+      size = 0;
+      {
+        int dataSize = 0;
+        for (long element : getDigestsList()) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(element);
+        }
+        size += dataSize;
+        size += 1 * getDigestsList().size();
+      }
+      {
+        int dataSize = 0;
+        for (long element : getKeyCountsList()) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt64SizeNoTag(element);
+        }
+        size += dataSize;
+        size += 1 * getKeyCountsList().size();
+      }
+      if (hasScanned()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(3, getScanned());
+      }
+      if (hasExpired()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt64Size(4, getExpired());
+      }
+      if (hasError()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(5, getError());
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+    
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return newBuilder().mergeFrom(data, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      Builder builder = newBuilder();
+      if (builder.mergeDelimitedFrom(input, extensionRegistry)) {
+        return builder.buildParsed();
+      } else {
+        return null;
+      }
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input).buildParsed();
+    }
+    public static voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return newBuilder().mergeFrom(input, extensionRegistry)
+               .buildParsed();
+    }
+    
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+    
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder> {
+      private voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse result;
+      
+      // Construct using voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.newBuilder()
+      private Builder() {}
+      
+      private static Builder create() {
+        Builder builder = new Builder();
+        builder.result = new voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse();
+        return builder;
+      }
+      
+      protected voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse internalGetResult() {
+        return result;
+      }
+      
+      public Builder clear() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "Cannot call clear() after build().");
+        }
+        result = new voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse();
+        return this;
+      }
+      
+      public Builder clone() {
+        return create().mergeFrom(result);
+      }
+      
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.getDescriptor();
+      }
+      
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse getDefaultInstanceForType() {
+        return voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.getDefaultInstance();
+      }
+      
+      public boolean isInitialized() {
+        return result.isInitialized();
+      }
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse build() {
+        if (result != null && !isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return buildPartial();
+      }
+      
+      private voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse buildParsed()
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        if (!isInitialized()) {
+          throw newUninitializedMessageException(
+            result).asInvalidProtocolBufferException();
+        }
+        return buildPartial();
+      }
+      
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse buildPartial() {
+        if (result == null) {
+          throw new IllegalStateException(
+            "build() has already been called on this Builder.");
+        }
+        if (result.digests_ != java.util.Collections.EMPTY_LIST) {
+          result.digests_ =
+            java.util.Collections.unmodifiableList(result.digests_);
+        }
+        if (result.keyCounts_ != java.util.Collections.EMPTY_LIST) {
+          result.keyCounts_ =
+            java.util.Collections.unmodifiableList(result.keyCounts_);
+        }
+        voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse returnMe = result;
+        result = null;
+        return returnMe;
+      }
+      
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse) {
+          return mergeFrom((voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+      
+      public Builder mergeFrom(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse other) {
+        if (other == voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.getDefaultInstance()) return this;
+        if (!other.digests_.isEmpty()) {
+          if (result.digests_.isEmpty()) {
+            result.digests_ = new java.util.ArrayList<java.lang.Long>();
+          }
+          result.digests_.addAll(other.digests_);
+        }
+        if (!other.keyCounts_.isEmpty()) {
+          if (result.keyCounts_.isEmpty()) {
+            result.keyCounts_ = new java.util.ArrayList<java.lang.Long>();
+          }
+          result.keyCounts_.addAll(other.keyCounts_);
+        }
+        if (other.hasScanned()) {
+          setScanned(other.getScanned());
+        }
+        if (other.hasExpired()) {
+          setExpired(other.getExpired());
+        }
+        if (other.hasError()) {
+          mergeError(other.getError());
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+      
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder(
+            this.getUnknownFields());
+        while (true) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              this.setUnknownFields(unknownFields.build());
+              return this;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                this.setUnknownFields(unknownFields.build());
+                return this;
+              }
+              break;
+            }
+            case 8: {
+              addDigests(input.readInt64());
+              break;
+            }
+            case 10: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              while (input.getBytesUntilLimit() > 0) {
+                addDigests(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 16: {
+              addKeyCounts(input.readInt64());
+              break;
+            }
+            case 18: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              while (input.getBytesUntilLimit() > 0) {
+                addKeyCounts(input.readInt64());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 24: {
+              setScanned(input.readInt64());
+              break;
+            }
+            case 32: {
+              setExpired(input.readInt64());
+              break;
+            }
+            case 42: {
+              voldemort.client.protocol.pb.VProto.Error.Builder subBuilder = voldemort.client.protocol.pb.VProto.Error.newBuilder();
+              if (hasError()) {
+                subBuilder.mergeFrom(getError());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setError(subBuilder.buildPartial());
+              break;
+            }
+          }
+        }
+      }
+      
+      
+      // repeated int64 digests = 1;
+      public java.util.List<java.lang.Long> getDigestsList() {
+        return java.util.Collections.unmodifiableList(result.digests_);
+      }
+      public int getDigestsCount() {
+        return result.getDigestsCount();
+      }
+      public long getDigests(int index) {
+        return result.getDigests(index);
+      }
+      public Builder setDigests(int index, long value) {
+        result.digests_.set(index, value);
+        return this;
+      }
+      public Builder addDigests(long value) {
+        if (result.digests_.isEmpty()) {
+          result.digests_ = new java.util.ArrayList<java.lang.Long>();
+        }
+        result.digests_.add(value);
+        return this;
+      }
+      public Builder addAllDigests(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        if (result.digests_.isEmpty()) {
+          result.digests_ = new java.util.ArrayList<java.lang.Long>();
+        }
+        super.addAll(values, result.digests_);
+        return this;
+      }
+      public Builder clearDigests() {
+        result.digests_ = java.util.Collections.emptyList();
+        return this;
+      }
+      
+      // repeated int64 key_counts = 2;
+      public java.util.List<java.lang.Long> getKeyCountsList() {
+        return java.util.Collections.unmodifiableList(result.keyCounts_);
+      }
+      public int getKeyCountsCount() {
+        return result.getKeyCountsCount();
+      }
+      public long getKeyCounts(int index) {
+        return result.getKeyCounts(index);
+      }
+      public Builder setKeyCounts(int index, long value) {
+        result.keyCounts_.set(index, value);
+        return this;
+      }
+      public Builder addKeyCounts(long value) {
+        if (result.keyCounts_.isEmpty()) {
+          result.keyCounts_ = new java.util.ArrayList<java.lang.Long>();
+        }
+        result.keyCounts_.add(value);
+        return this;
+      }
+      public Builder addAllKeyCounts(
+          java.lang.Iterable<? extends java.lang.Long> values) {
+        if (result.keyCounts_.isEmpty()) {
+          result.keyCounts_ = new java.util.ArrayList<java.lang.Long>();
+        }
+        super.addAll(values, result.keyCounts_);
+        return this;
+      }
+      public Builder clearKeyCounts() {
+        result.keyCounts_ = java.util.Collections.emptyList();
+        return this;
+      }
+      
+      // optional int64 scanned = 3;
+      public boolean hasScanned() {
+        return result.hasScanned();
+      }
+      public long getScanned() {
+        return result.getScanned();
+      }
+      public Builder setScanned(long value) {
+        result.hasScanned = true;
+        result.scanned_ = value;
+        return this;
+      }
+      public Builder clearScanned() {
+        result.hasScanned = false;
+        result.scanned_ = 0L;
+        return this;
+      }
+      
+      // optional int64 expired = 4;
+      public boolean hasExpired() {
+        return result.hasExpired();
+      }
+      public long getExpired() {
+        return result.getExpired();
+      }
+      public Builder setExpired(long value) {
+        result.hasExpired = true;
+        result.expired_ = value;
+        return this;
+      }
+      public Builder clearExpired() {
+        result.hasExpired = false;
+        result.expired_ = 0L;
+        return this;
+      }
+      
+      // optional .voldemort.Error error = 5;
+      public boolean hasError() {
+        return result.hasError();
+      }
+      public voldemort.client.protocol.pb.VProto.Error getError() {
+        return result.getError();
+      }
+      public Builder setError(voldemort.client.protocol.pb.VProto.Error value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        result.hasError = true;
+        result.error_ = value;
+        return this;
+      }
+      public Builder setError(voldemort.client.protocol.pb.VProto.Error.Builder builderForValue) {
+        result.hasError = true;
+        result.error_ = builderForValue.build();
+        return this;
+      }
+      public Builder mergeError(voldemort.client.protocol.pb.VProto.Error value) {
+        if (result.hasError() &&
+            result.error_ != voldemort.client.protocol.pb.VProto.Error.getDefaultInstance()) {
+          result.error_ =
+            voldemort.client.protocol.pb.VProto.Error.newBuilder(result.error_).mergeFrom(value).buildPartial();
+        } else {
+          result.error_ = value;
+        }
+        result.hasError = true;
+        return this;
+      }
+      public Builder clearError() {
+        result.hasError = false;
+        result.error_ = voldemort.client.protocol.pb.VProto.Error.getDefaultInstance();
+        return this;
+      }
+      
+      // @@protoc_insertion_point(builder_scope:voldemort.DigestKeyRangesResponse)
+    }
+    
+    static {
+      defaultInstance = new DigestKeyRangesResponse(true);
+      voldemort.client.protocol.pb.VAdminProto.internalForceInit();
+      defaultInstance.initFields();
+    }
+    
+    // @@protoc_insertion_point(class_scope:voldemort.DigestKeyRangesResponse)
+  }
+  
+  public static final class VoldemortAdminRequest extends
+      com.google.protobuf.GeneratedMessage {
+    // Use VoldemortAdminRequest.newBuilder() to construct.
+    private VoldemortAdminRequest() {
+      initFields();
+    }
+    private VoldemortAdminRequest(boolean noInit) {}
+    
+    private static final VoldemortAdminRequest defaultInstance;
+    public static VoldemortAdminRequest getDefaultInstance() {
+      return defaultInstance;
+    }
+    
+    public VoldemortAdminRequest getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+    
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_VoldemortAdminRequest_descriptor;
+    }
+    
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return voldemort.client.protocol.pb.VAdminProto.internal_static_voldemort_VoldemortAdminRequest_fieldAccessorTable;
+    }
+    
+    // required .voldemort.AdminRequestType type = 1;
+    public static final int TYPE_FIELD_NUMBER = 1;
+    private boolean hasType;
+    private voldemort.client.protocol.pb.VAdminProto.AdminRequestType type_;
+    public boolean hasType() { return hasType; }
+    public voldemort.client.protocol.pb.VAdminProto.AdminRequestType getType() { return type_; }
+    
+    // optional .voldemort.GetMetadataRequest get_metadata = 2;
+    public static final int GET_METADATA_FIELD_NUMBER = 2;
+    private boolean hasGetMetadata;
+    private voldemort.client.protocol.pb.VAdminProto.GetMetadataRequest getMetadata_;
+    public boolean hasGetMetadata() { return hasGetMetadata; }
+    public voldemort.client.protocol.pb.VAdminProto.GetMetadataRequest getGetMetadata() { return getMetadata_; }
+    
+    // optional .voldemort.UpdateMetadataRequest update_metadata = 3;
+    public static final int UPDATE_METADATA_FIELD_NUMBER = 3;
+    private boolean hasUpdateMetadata;
+    private voldemort.client.protocol.pb.VAdminProto.UpdateMetadataRequest updateMetadata_;
+    public boolean hasUpdateMetadata() { return hasUpdateMetadata; }
+    public voldemort.client.protocol.pb.VAdminProto.UpdateMetadataRequest getUpdateMetadata() { return updateMetadata_; }
+    
+    // optional .voldemort.UpdatePartitionEntriesRequest update_partition_entries = 4;
+    public static final int UPDATE_PARTITION_ENTRIES_FIELD_NUMBER = 4;
+    private boolean hasUpdatePartitionEntries;
+    private voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest updatePartitionEntries_;
+    public boolean hasUpdatePartitionEntries() { return hasUpdatePartitionEntries; }
+    public voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest getUpdatePartitionEntries() { return updatePartitionEntries_; }
+    
+    // optional .voldemort.FetchPartitionEntriesRequest fetch_partition_entries = 5;
+    public static final int FETCH_PARTITION_ENTRIES_FIELD_NUMBER = 5;
+    private boolean hasFetchPartitionEntries;
+    private voldemort.client.protocol.pb.VAdminProto.FetchPartitionEntriesRequest fetchPartitionEntries_;
+    public boolean hasFetchPartitionEntries() { return hasFetchPartitionEntries; }
+    public voldemort.client.protocol.pb.VAdminProto.FetchPartitionEntriesRequest getFetchPartitionEntries() { return fetchPartitionEntries_; }
+    
+    // optional .voldemort.DeletePartitionEntriesRequest delete_partition_entries = 6;
+    public static final int DELETE_PARTITION_ENTRIES_FIELD_NUMBER = 6;
+    private boolean hasDeletePartitionEntries;
+    private voldemort.client.protocol.pb.VAdminProto.DeletePartitionEntriesRequest deletePartitionEntries_;
+    public boolean hasDeletePartitionEntries() { return hasDeletePartitionEntries; }
+    public voldemort.client.protocol.pb.VAdminProto.DeletePartitionEntriesRequest getDeletePartitionEntries() { return deletePartitionEntries_; }
+    
+    // optional .voldemort.InitiateFetchAndUpdateRequest initiate_fetch_and_update = 7;
+    public static final int INITIATE_FETCH_AND_UPDATE_FIELD_NUMBER = 7;
+    private boolean hasInitiateFetchAndUpdate;
+    private voldemort.client.protocol.pb.VAdminProto.InitiateFetchAndUpdateRequest initiateFetchAndUpdate_;
+    public boolean hasInitiateFetchAndUpdate() { return hasInitiateFetchAndUpdate; }
+    public voldemort.client.protocol.pb.VAdminProto.InitiateFetchAndUpdateRequest getInitiateFetchAndUpdate() { return initiateFetchAndUpdate_; }
+    
+    // optional .voldemort.AsyncOperationStatusRequest async_operation_status = 8;
+    public static final int ASYNC_OPERATION_STATUS_FIELD_NUMBER = 8;
+    private boolean hasAsyncOperationStatus;
+    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationStatusRequest asyncOperationStatus_;
+    public boolean hasAsyncOperationStatus() { return hasAsyncOperationStatus; }
+    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationStatusRequest getAsyncOperationStatus() { return asyncOperationStatus_; }
+    
+    // optional .voldemort.InitiateRebalanceNodeRequest initiate_rebalance_node = 9;
+    public static final int INITIATE_REBALANCE_NODE_FIELD_NUMBER = 9;
+    private boolean hasInitiateRebalanceNode;
+    private voldemort.client.protocol.pb.VAdminProto.InitiateRebalanceNodeRequest initiateRebalanceNode_;
+    public boolean hasInitiateRebalanceNode() { return hasInitiateRebalanceNode; }
+    public voldemort.client.protocol.pb.VAdminProto.InitiateRebalanceNodeRequest getInitiateRebalanceNode() { return initiateRebalanceNode_; }
+    
+    // optional .voldemort.AsyncOperationStopRequest async_operation_stop = 10;
+    public static final int ASYNC_OPERATION_STOP_FIELD_NUMBER = 10;
+    private boolean hasAsyncOperationStop;
+    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationStopRequest asyncOperationStop_;
+    public boolean hasAsyncOperationStop() { return hasAsyncOperationStop; }
+    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationStopRequest getAsyncOperationStop() { return asyncOperationStop_; }
+    
+    // optional .voldemort.AsyncOperationListRequest async_operation_list = 11;
+    public static final int ASYNC_OPERATION_LIST_FIELD_NUMBER = 11;
+    private boolean hasAsyncOperationList;
+    private voldemort.client.protocol.pb.VAdminProto.AsyncOperationListRequest asyncOperationList_;
+    public boolean hasAsyncOperationList() { return hasAsyncOperationList; }
+    public voldemort.client.protocol.pb.VAdminProto.AsyncOperationListRequest getAsyncOperationList() { return asyncOperationList_; }
+    
+    // optional .voldemort.TruncateEntriesRequest truncate_entries = 12;
+    public static final int TRUNCATE_ENTRIES_FIELD_NUMBER = 12;
+    private boolean hasTruncateEntries;
+    private voldemort.client.protocol.pb.VAdminProto.TruncateEntriesRequest truncateEntries_;
+    public boolean hasTruncateEntries() { return hasTruncateEntries; }
+    public voldemort.client.protocol.pb.VAdminProto.TruncateEntriesRequest getTruncateEntries() { return truncateEntries_; }
+    
+    // optional .voldemort.AddStoreRequest add_store = 13;
+    public static final int ADD_STORE_FIELD_NUMBER = 13;
+    private boolean hasAddStore;
+    private voldemort.client.protocol.pb.VAdminProto.AddStoreRequest addStore_;
+    public boolean hasAddStore() { return hasAddStore; }
+    public voldemort.client.protocol.pb.VAdminProto.AddStoreRequest getAddStore() { return addStore_; }
+    
+    // optional .voldemort.DeleteStoreRequest delete_store = 14;
+    public static final int DELETE_STORE_FIELD_NUMBER = 14;
+    private boolean hasDeleteStore;
+    private voldemort.client.protocol.pb.VAdminProto.DeleteStoreRequest deleteStore_;
+    public boolean hasDeleteStore() { return hasDeleteStore; }
+    public voldemort.client.protocol.pb.VAdminProto.DeleteStoreRequest getDeleteStore() { return deleteStore_; }
+    
+    // optional .voldemort.FetchStoreRequest fetch_store = 15;
+    public static final int FETCH_STORE_FIELD_NUMBER = 15;
+    private boolean hasFetchStore;
+    private voldemort.client.protocol.pb.VAdminProto.FetchStoreRequest fetchStore_;
+    public boolean hasFetchStore() { return hasFetchStore; }
+    public voldemort.client.protocol.pb.VAdminProto.FetchStoreRequest getFetchStore() { return fetchStore_; }
+    
+    // optional .voldemort.SwapStoreRequest swap_store = 16;
+    public static final int SWAP_STORE_FIELD_NUMBER = 16;
+    private boolean hasSwapStore;
+    private voldemort.client.protocol.pb.VAdminProto.SwapStoreRequest swapStore_;
+    public boolean hasSwapStore() { return hasSwapStore; }
+    public voldemort.client.protocol.pb.VAdminProto.SwapStoreRequest getSwapStore() { return swapStore_; }
+    
+    // optional .voldemort.RollbackStoreRequest rollback_store = 17;
+    public static final int ROLLBACK_STORE_FIELD_NUMBER = 17;
+    private boolean hasRollbackStore;
+    private voldemort.client.protocol.pb.VAdminProto.RollbackStoreRequest rollbackStore_;
+    public boolean hasRollbackStore() { return hasRollbackStore; }
+    public voldemort.client.protocol.pb.VAdminProto.RollbackStoreRequest getRollbackStore() { return rollbackStore_; }
+    
+    // optional .voldemort.GetROMaxVersionDirRequest get_ro_max_version_dir = 18;
+    public static final int GET_RO_MAX_VERSION_DIR_FIELD_NUMBER = 18;
+    private boolean hasGetRoMaxVersionDir;
+    private voldemort.client.protocol.pb.VAdminProto.GetROMaxVersionDirRequest getRoMaxVersionDir_;
+    public boolean hasGetRoMaxVersionDir() { return hasGetRoMaxVersionDir; }
+    public voldemort.client.protocol.pb.VAdminProto.GetROMaxVersionDirRequest getGetRoMaxVersionDir() { return getRoMaxVersionDir_; }
+    
+    // optional .voldemort.GetROCurrentVersionDirRequest get_ro_current_version_dir = 19;
+    public static final int GET_RO_CURRENT_VERSION_DIR_FIELD_NUMBER = 19;
+    private boolean hasGetRoCurrentVersionDir;
+    private voldemort.client.protocol.pb.VAdminProto.GetROCurrentVersionDirRequest getRoCurrentVersionDir_;
+    public boolean hasGetRoCurrentVersionDir() { return hasGetRoCurrentVersionDir; }
+    public voldemort.client.protocol.pb.VAdminProto.GetROCurrentVersionDirRequest getGetRoCurrentVersionDir() { return getRoCurrentVersionDir_; }
+    
+    // optional .voldemort.FetchPartitionFilesRequest fetch_partition_files = 20;
     public static final int FETCH_PARTITION_FILES_FIELD_NUMBER = 20;
     private boolean hasFetchPartitionFiles;
     private voldemort.client.protocol.pb.VAdminProto.FetchPartitionFilesRequest fetchPartitionFiles_;
@@ -22383,6 +23422,13 @@ public final class VAdminProto {
     public boolean hasPruneJob() { return hasPruneJob; }
     public voldemort.client.protocol.pb.VAdminProto.PruneJobRequest getPruneJob() { return pruneJob_; }
     
+    // optional .voldemort.DigestKeyRangesRequest digest_key_ranges = 33;
+    public static final int DIGEST_KEY_RANGES_FIELD_NUMBER = 33;
+    private boolean hasDigestKeyRanges;
+    private voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest digestKeyRanges_;
+    public boolean hasDigestKeyRanges() { return hasDigestKeyRanges; }
+    public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest getDigestKeyRanges() { return digestKeyRanges_; }
+    
     private void initFields() {
       type_ = voldemort.client.protocol.pb.VAdminProto.AdminRequestType.GET_METADATA;
       getMetadata_ = voldemort.client.protocol.pb.VAdminProto.GetMetadataRequest.getDefaultInstance();
@@ -22413,6 +23459,7 @@ public final class VAdminProto {
       nativeBackup_ = voldemort.client.protocol.pb.VAdminProto.NativeBackupRequest.getDefaultInstance();
       reserveMemory_ = voldemort.client.protocol.pb.VAdminProto.ReserveMemoryRequest.getDefaultInstance();
       pruneJob_ = voldemort.client.protocol.pb.VAdminProto.PruneJobRequest.getDefaultInstance();
+      digestKeyRanges_ = voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDefaultInstance();
     }
     public final boolean isInitialized() {
       if (!hasType) return false;
@@ -22485,6 +23532,9 @@ public final class VAdminProto {
       if (hasReserveMemory()) {
         if (!getReserveMemory().isInitialized()) return false;
       }
+      if (hasDigestKeyRanges()) {
+        if (!getDigestKeyRanges().isInitialized()) return false;
+      }
       return true;
     }
     
@@ -22578,6 +23628,9 @@ public final class VAdminProto {
       if (hasPruneJob()) {
         output.writeMessage(32, getPruneJob());
       }
+      if (hasDigestKeyRanges()) {
+        output.writeMessage(33, getDigestKeyRanges());
+      }
       getUnknownFields().writeTo(output);
     }
     
@@ -22703,6 +23756,10 @@ public final class VAdminProto {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(32, getPruneJob());
       }
+      if (hasDigestKeyRanges()) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(33, getDigestKeyRanges());
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -22948,6 +24005,9 @@ public final class VAdminProto {
         if (other.hasPruneJob()) {
           mergePruneJob(other.getPruneJob());
         }
+        if (other.hasDigestKeyRanges()) {
+          mergeDigestKeyRanges(other.getDigestKeyRanges());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -23235,6 +24295,15 @@ public final class VAdminProto {
               setPruneJob(subBuilder.buildPartial());
               break;
             }
+            case 266: {
+              voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.Builder subBuilder = voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.newBuilder();
+              if (hasDigestKeyRanges()) {
+                subBuilder.mergeFrom(getDigestKeyRanges());
+              }
+              input.readMessage(subBuilder, extensionRegistry);
+              setDigestKeyRanges(subBuilder.buildPartial());
+              break;
+            }
           }
         }
       }
@@ -24297,6 +25366,43 @@ public final class VAdminProto {
         return this;
       }
       
+      // optional .voldemort.DigestKeyRangesRequest digest_key_ranges = 33;
+      public boolean hasDigestKeyRanges() {
+        return result.hasDigestKeyRanges();
+      }
+      public voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest getDigestKeyRanges() {
+        return result.getDigestKeyRanges();
+      }
+      public Builder setDigestKeyRanges(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest value) {
+        if (value == null) {
+          throw new NullPointerException();
+        }
+        result.hasDigestKeyRanges = true;
+        result.digestKeyRanges_ = value;
+        return this;
+      }
+      public Builder setDigestKeyRanges(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.Builder builderForValue) {
+        result.hasDigestKeyRanges = true;
+        result.digestKeyRanges_ = builderForValue.build();
+        return this;
+      }
+      public Builder mergeDigestKeyRanges(voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest value) {
+        if (result.hasDigestKeyRanges() &&
+            result.digestKeyRanges_ != voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDefaultInstance()) {
+          result.digestKeyRanges_ =
+            voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.newBuilder(result.digestKeyRanges_).mergeFrom(value).buildPartial();
+        } else {
+          result.digestKeyRanges_ = value;
+        }
+        result.hasDigestKeyRanges = true;
+        return this;
+      }
+      public Builder clearDigestKeyRanges() {
+        result.hasDigestKeyRanges = false;
+        result.digestKeyRanges_ = voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.getDefaultInstance();
+        return this;
+      }
+      
       // @@protoc_insertion_point(builder_scope:voldemort.VoldemortAdminRequest)
     }
     
@@ -24614,6 +25720,16 @@ public final class VAdminProto {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_voldemort_ReserveMemoryResponse_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_DigestKeyRangesRequest_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_DigestKeyRangesRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_voldemort_DigestKeyRangesResponse_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_voldemort_DigestKeyRangesResponse_fieldAccessorTable;
   private static com.google.protobuf.Descriptors.Descriptor
     internal_static_voldemort_VoldemortAdminRequest_descriptor;
   private static
@@ -24639,195 +25755,204 @@ public final class VAdminProto {
       ".Error\"7\n\tFileEntry\022\021\n\tfile_name\030\001 \002(\t\022\027" +
       "\n\017file_size_bytes\030\002 \002(\003\"F\n\016PartitionEntr",
       "y\022\013\n\003key\030\001 \002(\014\022\'\n\tversioned\030\002 \002(\0132\024.vold" +
-      "emort.Versioned\"\253\001\n\035UpdatePartitionEntri" +
+      "emort.Versioned\"\273\001\n\035UpdatePartitionEntri" +
       "esRequest\022\r\n\005store\030\001 \002(\t\0222\n\017partition_en" +
       "try\030\002 \002(\0132\031.voldemort.PartitionEntry\022*\n\006" +
       "filter\030\003 \001(\0132\032.voldemort.VoldemortFilter" +
-      "\022\033\n\023overwriteIfLatestTs\030\004 \001(\010\"A\n\036UpdateP" +
-      "artitionEntriesResponse\022\037\n\005error\030\001 \001(\0132\020" +
-      ".voldemort.Error\"-\n\017VoldemortFilter\022\014\n\004n" +
-      "ame\030\001 \002(\t\022\014\n\004data\030\002 \002(\014\"\257\001\n\030UpdateSlopEn" +
-      "triesRequest\022\r\n\005store\030\001 \002(\t\022\013\n\003key\030\002 \002(\014",
-      "\022\'\n\007version\030\003 \002(\0132\026.voldemort.VectorCloc" +
-      "k\022,\n\014request_type\030\004 \002(\0162\026.voldemort.Requ" +
-      "estType\022\r\n\005value\030\005 \001(\014\022\021\n\ttransform\030\006 \001(" +
-      "\014\"<\n\031UpdateSlopEntriesResponse\022\037\n\005error\030" +
-      "\001 \001(\0132\020.voldemort.Error\"G\n\032FetchPartitio" +
-      "nFilesRequest\022\022\n\nstore_name\030\001 \002(\t\022\025\n\rpar" +
-      "tition_ids\030\002 \003(\005\"\202\002\n\034FetchPartitionEntri" +
-      "esRequest\022\025\n\rpartition_ids\030\001 \003(\005\022\r\n\005stor" +
-      "e\030\002 \002(\t\022*\n\006filter\030\003 \001(\0132\032.voldemort.Vold" +
-      "emortFilter\022\024\n\014fetch_values\030\004 \001(\010\022*\n\"OBS",
-      "OLETE__DO_NOT_USE__skip_records\030\005 \001(\003\022\027\n" +
-      "\017initial_cluster\030\006 \001(\t\022\026\n\016fetch_orphaned" +
-      "\030\007 \001(\010\022\035\n\025records_per_partition\030\010 \001(\003\"\201\001" +
-      "\n\035FetchPartitionEntriesResponse\0222\n\017parti" +
-      "tion_entry\030\001 \001(\0132\031.voldemort.PartitionEn" +
-      "try\022\013\n\003key\030\002 \001(\014\022\037\n\005error\030\003 \001(\0132\020.voldem" +
-      "ort.Error\"\212\001\n\035DeletePartitionEntriesRequ" +
-      "est\022\r\n\005store\030\001 \002(\t\022\025\n\rpartition_ids\030\002 \003(" +
-      "\005\022*\n\006filter\030\003 \001(\0132\032.voldemort.VoldemortF" +
-      "ilter\022\027\n\017initial_cluster\030\004 \001(\t\"P\n\036Delete",
-      "PartitionEntriesResponse\022\r\n\005count\030\001 \001(\003\022" +
-      "\037\n\005error\030\002 \001(\0132\020.voldemort.Error\"\303\001\n\035Ini" +
-      "tiateFetchAndUpdateRequest\022\017\n\007node_id\030\001 " +
-      "\002(\005\022\r\n\005store\030\002 \002(\t\022*\n\006filter\030\003 \001(\0132\032.vol" +
-      "demort.VoldemortFilter\022\025\n\rpartition_ids\030" +
-      "\004 \003(\005\022\027\n\017initial_cluster\030\005 \001(\t\022&\n\036OBSOLE" +
-      "TE__DO_NOT_USE__optimize\030\006 \001(\010\"1\n\033AsyncO" +
-      "perationStatusRequest\022\022\n\nrequest_id\030\001 \002(" +
-      "\005\"/\n\031AsyncOperationStopRequest\022\022\n\nreques" +
-      "t_id\030\001 \002(\005\"=\n\032AsyncOperationStopResponse",
-      "\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"2\n\031Asy" +
-      "ncOperationListRequest\022\025\n\rshow_complete\030" +
-      "\002 \002(\010\"R\n\032AsyncOperationListResponse\022\023\n\013r" +
-      "equest_ids\030\001 \003(\005\022\037\n\005error\030\002 \001(\0132\020.voldem" +
-      "ort.Error\":\n\016PartitionTuple\022\024\n\014replica_t" +
-      "ype\030\001 \002(\005\022\022\n\npartitions\030\002 \003(\005\"e\n\026PerStor" +
-      "ePartitionTuple\022\022\n\nstore_name\030\001 \002(\t\0227\n\024r" +
-      "eplica_to_partition\030\002 \003(\0132\031.voldemort.Pa" +
-      "rtitionTuple\"\216\002\n\031RebalancePartitionInfoM" +
-      "ap\022\022\n\nstealer_id\030\001 \002(\005\022\020\n\010donor_id\030\002 \002(\005",
-      "\022%\n\035OBSOLETE__DO_NOT_USE__attempt\030\003 \001(\005\022" +
-      "C\n\030replica_to_add_partition\030\004 \003(\0132!.vold" +
-      "emort.PerStorePartitionTuple\022F\n\033replica_" +
-      "to_delete_partition\030\005 \003(\0132!.voldemort.Pe" +
-      "rStorePartitionTuple\022\027\n\017initial_cluster\030" +
-      "\006 \002(\t\"A\n\024StoreToPartitionsIds\022\022\n\nstore_n" +
-      "ame\030\001 \002(\t\022\025\n\rpartition_ids\030\002 \003(\005\"\227\001\n\024Reb" +
-      "alanceTaskInfoMap\022\022\n\nstealer_id\030\001 \002(\005\022\020\n" +
-      "\010donor_id\030\002 \002(\005\022@\n\027per_store_partition_i" +
-      "ds\030\003 \003(\0132\037.voldemort.StoreToPartitionsId",
-      "s\022\027\n\017initial_cluster\030\004 \002(\t\"\\\n\034InitiateRe" +
-      "balanceNodeRequest\022<\n\023rebalance_task_inf" +
-      "o\030\001 \002(\0132\037.voldemort.RebalanceTaskInfoMap" +
-      "\"m\n#InitiateRebalanceNodeOnDonorRequest\022" +
-      "F\n\030rebalance_partition_info\030\001 \003(\0132$.vold" +
-      "emort.RebalancePartitionInfoMap\"\212\001\n\034Asyn" +
-      "cOperationStatusResponse\022\022\n\nrequest_id\030\001" +
-      " \001(\005\022\023\n\013description\030\002 \001(\t\022\016\n\006status\030\003 \001(" +
-      "\t\022\020\n\010complete\030\004 \001(\010\022\037\n\005error\030\005 \001(\0132\020.vol" +
-      "demort.Error\"\'\n\026TruncateEntriesRequest\022\r",
-      "\n\005store\030\001 \002(\t\":\n\027TruncateEntriesResponse" +
-      "\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"*\n\017Add" +
-      "StoreRequest\022\027\n\017storeDefinition\030\001 \002(\t\"3\n" +
-      "\020AddStoreResponse\022\037\n\005error\030\001 \001(\0132\020.volde" +
-      "mort.Error\"\'\n\022DeleteStoreRequest\022\021\n\tstor" +
-      "eName\030\001 \002(\t\"6\n\023DeleteStoreResponse\022\037\n\005er" +
-      "ror\030\001 \001(\0132\020.voldemort.Error\"P\n\021FetchStor" +
-      "eRequest\022\022\n\nstore_name\030\001 \002(\t\022\021\n\tstore_di" +
-      "r\030\002 \002(\t\022\024\n\014push_version\030\003 \001(\003\"9\n\020SwapSto" +
-      "reRequest\022\022\n\nstore_name\030\001 \002(\t\022\021\n\tstore_d",
-      "ir\030\002 \002(\t\"P\n\021SwapStoreResponse\022\037\n\005error\030\001" +
-      " \001(\0132\020.voldemort.Error\022\032\n\022previous_store" +
-      "_dir\030\002 \001(\t\"@\n\024RollbackStoreRequest\022\022\n\nst" +
-      "ore_name\030\001 \002(\t\022\024\n\014push_version\030\002 \002(\003\"8\n\025" +
-      "RollbackStoreResponse\022\037\n\005error\030\001 \001(\0132\020.v" +
-      "oldemort.Error\"&\n\020RepairJobRequest\022\022\n\nst" +
-      "ore_name\030\001 \001(\t\"4\n\021RepairJobResponse\022\037\n\005e" +
-      "rror\030\001 \001(\0132\020.voldemort.Error\"%\n\017PruneJob" +
-      "Request\022\022\n\nstore_name\030\001 \001(\t\"3\n\020PruneJobR" +
-      "esponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error",
-      "\"=\n\024ROStoreVersionDirMap\022\022\n\nstore_name\030\001" +
-      " \002(\t\022\021\n\tstore_dir\030\002 \002(\t\"/\n\031GetROMaxVersi" +
-      "onDirRequest\022\022\n\nstore_name\030\001 \003(\t\"y\n\032GetR" +
-      "OMaxVersionDirResponse\022:\n\021ro_store_versi" +
-      "ons\030\001 \003(\0132\037.voldemort.ROStoreVersionDirM" +
-      "ap\022\037\n\005error\030\002 \001(\0132\020.voldemort.Error\"3\n\035G" +
-      "etROCurrentVersionDirRequest\022\022\n\nstore_na" +
-      "me\030\001 \003(\t\"}\n\036GetROCurrentVersionDirRespon" +
-      "se\022:\n\021ro_store_versions\030\001 \003(\0132\037.voldemor" +
-      "t.ROStoreVersionDirMap\022\037\n\005error\030\002 \001(\0132\020.",
-      "voldemort.Error\"/\n\031GetROStorageFormatReq" +
-      "uest\022\022\n\nstore_name\030\001 \003(\t\"y\n\032GetROStorage" +
-      "FormatResponse\022:\n\021ro_store_versions\030\001 \003(" +
-      "\0132\037.voldemort.ROStoreVersionDirMap\022\037\n\005er" +
-      "ror\030\002 \001(\0132\020.voldemort.Error\"@\n\027FailedFet" +
-      "chStoreRequest\022\022\n\nstore_name\030\001 \002(\t\022\021\n\tst" +
-      "ore_dir\030\002 \002(\t\";\n\030FailedFetchStoreRespons" +
-      "e\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"\356\001\n\033R" +
-      "ebalanceStateChangeRequest\022<\n\023rebalance_" +
-      "task_list\030\001 \003(\0132\037.voldemort.RebalanceTas",
-      "kInfoMap\022\026\n\016cluster_string\030\002 \002(\t\022\025\n\rstor" +
-      "es_string\030\003 \002(\t\022\017\n\007swap_ro\030\004 \002(\010\022\037\n\027chan" +
-      "ge_cluster_metadata\030\005 \002(\010\022\036\n\026change_reba" +
-      "lance_state\030\006 \002(\010\022\020\n\010rollback\030\007 \002(\010\"?\n\034R" +
-      "ebalanceStateChangeResponse\022\037\n\005error\030\001 \001" +
-      "(\0132\020.voldemort.Error\"G\n DeleteStoreRebal" +
-      "anceStateRequest\022\022\n\nstore_name\030\001 \002(\t\022\017\n\007" +
-      "node_id\030\002 \002(\005\"D\n!DeleteStoreRebalanceSta" +
-      "teResponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Er" +
-      "ror\"h\n\023NativeBackupRequest\022\022\n\nstore_name",
-      "\030\001 \002(\t\022\022\n\nbackup_dir\030\002 \002(\t\022\024\n\014verify_fil" +
-      "es\030\003 \002(\010\022\023\n\013incremental\030\004 \002(\010\">\n\024Reserve" +
-      "MemoryRequest\022\022\n\nstore_name\030\001 \002(\t\022\022\n\nsiz" +
-      "e_in_mb\030\002 \002(\003\"8\n\025ReserveMemoryResponse\022\037" +
-      "\n\005error\030\001 \001(\0132\020.voldemort.Error\"\305\016\n\025Vold" +
+      "\022\033\n\023overwriteIfLatestTs\030\004 \001(\010\022\016\n\006sorted\030" +
+      "\005 \001(\010\"A\n\036UpdatePartitionEntriesResponse\022" +
+      "\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"-\n\017Vold" +
+      "emortFilter\022\014\n\004name\030\001 \002(\t\022\014\n\004data\030\002 \002(\014\"" +
+      "\257\001\n\030UpdateSlopEntriesRequest\022\r\n\005store\030\001 ",
+      "\002(\t\022\013\n\003key\030\002 \002(\014\022\'\n\007version\030\003 \002(\0132\026.vold" +
+      "emort.VectorClock\022,\n\014request_type\030\004 \002(\0162" +
+      "\026.voldemort.RequestType\022\r\n\005value\030\005 \001(\014\022\021" +
+      "\n\ttransform\030\006 \001(\014\"<\n\031UpdateSlopEntriesRe" +
+      "sponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"" +
+      "G\n\032FetchPartitionFilesRequest\022\022\n\nstore_n" +
+      "ame\030\001 \002(\t\022\025\n\rpartition_ids\030\002 \003(\005\"\202\002\n\034Fet" +
+      "chPartitionEntriesRequest\022\025\n\rpartition_i" +
+      "ds\030\001 \003(\005\022\r\n\005store\030\002 \002(\t\022*\n\006filter\030\003 \001(\0132" +
+      "\032.voldemort.VoldemortFilter\022\024\n\014fetch_val",
+      "ues\030\004 \001(\010\022*\n\"OBSOLETE__DO_NOT_USE__skip_" +
+      "records\030\005 \001(\003\022\027\n\017initial_cluster\030\006 \001(\t\022\026" +
+      "\n\016fetch_orphaned\030\007 \001(\010\022\035\n\025records_per_pa" +
+      "rtition\030\010 \001(\003\"\201\001\n\035FetchPartitionEntriesR" +
+      "esponse\0222\n\017partition_entry\030\001 \001(\0132\031.volde" +
+      "mort.PartitionEntry\022\013\n\003key\030\002 \001(\014\022\037\n\005erro" +
+      "r\030\003 \001(\0132\020.voldemort.Error\"\212\001\n\035DeletePart" +
+      "itionEntriesRequest\022\r\n\005store\030\001 \002(\t\022\025\n\rpa" +
+      "rtition_ids\030\002 \003(\005\022*\n\006filter\030\003 \001(\0132\032.vold" +
+      "emort.VoldemortFilter\022\027\n\017initial_cluster",
+      "\030\004 \001(\t\"P\n\036DeletePartitionEntriesResponse" +
+      "\022\r\n\005count\030\001 \001(\003\022\037\n\005error\030\002 \001(\0132\020.voldemo" +
+      "rt.Error\"\303\001\n\035InitiateFetchAndUpdateReque" +
+      "st\022\017\n\007node_id\030\001 \002(\005\022\r\n\005store\030\002 \002(\t\022*\n\006fi" +
+      "lter\030\003 \001(\0132\032.voldemort.VoldemortFilter\022\025" +
+      "\n\rpartition_ids\030\004 \003(\005\022\027\n\017initial_cluster" +
+      "\030\005 \001(\t\022&\n\036OBSOLETE__DO_NOT_USE__optimize" +
+      "\030\006 \001(\010\"1\n\033AsyncOperationStatusRequest\022\022\n" +
+      "\nrequest_id\030\001 \002(\005\"/\n\031AsyncOperationStopR" +
+      "equest\022\022\n\nrequest_id\030\001 \002(\005\"=\n\032AsyncOpera",
+      "tionStopResponse\022\037\n\005error\030\001 \001(\0132\020.voldem" +
+      "ort.Error\"2\n\031AsyncOperationListRequest\022\025" +
+      "\n\rshow_complete\030\002 \002(\010\"R\n\032AsyncOperationL" +
+      "istResponse\022\023\n\013request_ids\030\001 \003(\005\022\037\n\005erro" +
+      "r\030\002 \001(\0132\020.voldemort.Error\":\n\016PartitionTu" +
+      "ple\022\024\n\014replica_type\030\001 \002(\005\022\022\n\npartitions\030" +
+      "\002 \003(\005\"e\n\026PerStorePartitionTuple\022\022\n\nstore" +
+      "_name\030\001 \002(\t\0227\n\024replica_to_partition\030\002 \003(" +
+      "\0132\031.voldemort.PartitionTuple\"\216\002\n\031Rebalan" +
+      "cePartitionInfoMap\022\022\n\nstealer_id\030\001 \002(\005\022\020",
+      "\n\010donor_id\030\002 \002(\005\022%\n\035OBSOLETE__DO_NOT_USE" +
+      "__attempt\030\003 \001(\005\022C\n\030replica_to_add_partit" +
+      "ion\030\004 \003(\0132!.voldemort.PerStorePartitionT" +
+      "uple\022F\n\033replica_to_delete_partition\030\005 \003(" +
+      "\0132!.voldemort.PerStorePartitionTuple\022\027\n\017" +
+      "initial_cluster\030\006 \002(\t\"A\n\024StoreToPartitio" +
+      "nsIds\022\022\n\nstore_name\030\001 \002(\t\022\025\n\rpartition_i" +
+      "ds\030\002 \003(\005\"\227\001\n\024RebalanceTaskInfoMap\022\022\n\nste" +
+      "aler_id\030\001 \002(\005\022\020\n\010donor_id\030\002 \002(\005\022@\n\027per_s" +
+      "tore_partition_ids\030\003 \003(\0132\037.voldemort.Sto",
+      "reToPartitionsIds\022\027\n\017initial_cluster\030\004 \002" +
+      "(\t\"\\\n\034InitiateRebalanceNodeRequest\022<\n\023re" +
+      "balance_task_info\030\001 \002(\0132\037.voldemort.Reba" +
+      "lanceTaskInfoMap\"m\n#InitiateRebalanceNod" +
+      "eOnDonorRequest\022F\n\030rebalance_partition_i" +
+      "nfo\030\001 \003(\0132$.voldemort.RebalancePartition" +
+      "InfoMap\"\212\001\n\034AsyncOperationStatusResponse" +
+      "\022\022\n\nrequest_id\030\001 \001(\005\022\023\n\013description\030\002 \001(" +
+      "\t\022\016\n\006status\030\003 \001(\t\022\020\n\010complete\030\004 \001(\010\022\037\n\005e" +
+      "rror\030\005 \001(\0132\020.voldemort.Error\"\'\n\026Truncate",
+      "EntriesRequest\022\r\n\005store\030\001 \002(\t\":\n\027Truncat" +
+      "eEntriesResponse\022\037\n\005error\030\001 \001(\0132\020.voldem" +
+      "ort.Error\"*\n\017AddStoreRequest\022\027\n\017storeDef" +
+      "inition\030\001 \002(\t\"3\n\020AddStoreResponse\022\037\n\005err" +
+      "or\030\001 \001(\0132\020.voldemort.Error\"\'\n\022DeleteStor" +
+      "eRequest\022\021\n\tstoreName\030\001 \002(\t\"6\n\023DeleteSto" +
+      "reResponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Er" +
+      "ror\"P\n\021FetchStoreRequest\022\022\n\nstore_name\030\001" +
+      " \002(\t\022\021\n\tstore_dir\030\002 \002(\t\022\024\n\014push_version\030" +
+      "\003 \001(\003\"9\n\020SwapStoreRequest\022\022\n\nstore_name\030",
+      "\001 \002(\t\022\021\n\tstore_dir\030\002 \002(\t\"P\n\021SwapStoreRes" +
+      "ponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\022\032" +
+      "\n\022previous_store_dir\030\002 \001(\t\"@\n\024RollbackSt" +
+      "oreRequest\022\022\n\nstore_name\030\001 \002(\t\022\024\n\014push_v" +
+      "ersion\030\002 \002(\003\"8\n\025RollbackStoreResponse\022\037\n" +
+      "\005error\030\001 \001(\0132\020.voldemort.Error\"&\n\020Repair" +
+      "JobRequest\022\022\n\nstore_name\030\001 \001(\t\"4\n\021Repair" +
+      "JobResponse\022\037\n\005error\030\001 \001(\0132\020.voldemort.E" +
+      "rror\"%\n\017PruneJobRequest\022\022\n\nstore_name\030\001 " +
+      "\001(\t\"3\n\020PruneJobResponse\022\037\n\005error\030\001 \001(\0132\020",
+      ".voldemort.Error\"=\n\024ROStoreVersionDirMap" +
+      "\022\022\n\nstore_name\030\001 \002(\t\022\021\n\tstore_dir\030\002 \002(\t\"" +
+      "/\n\031GetROMaxVersionDirRequest\022\022\n\nstore_na" +
+      "me\030\001 \003(\t\"y\n\032GetROMaxVersionDirResponse\022:" +
+      "\n\021ro_store_versions\030\001 \003(\0132\037.voldemort.RO" +
+      "StoreVersionDirMap\022\037\n\005error\030\002 \001(\0132\020.vold" +
+      "emort.Error\"3\n\035GetROCurrentVersionDirReq" +
+      "uest\022\022\n\nstore_name\030\001 \003(\t\"}\n\036GetROCurrent" +
+      "VersionDirResponse\022:\n\021ro_store_versions\030" +
+      "\001 \003(\0132\037.voldemort.ROStoreVersionDirMap\022\037",
+      "\n\005error\030\002 \001(\0132\020.voldemort.Error\"/\n\031GetRO" +
+      "StorageFormatRequest\022\022\n\nstore_name\030\001 \003(\t" +
+      "\"y\n\032GetROStorageFormatResponse\022:\n\021ro_sto" +
+      "re_versions\030\001 \003(\0132\037.voldemort.ROStoreVer" +
+      "sionDirMap\022\037\n\005error\030\002 \001(\0132\020.voldemort.Er" +
+      "ror\"@\n\027FailedFetchStoreRequest\022\022\n\nstore_" +
+      "name\030\001 \002(\t\022\021\n\tstore_dir\030\002 \002(\t\";\n\030FailedF" +
+      "etchStoreResponse\022\037\n\005error\030\001 \001(\0132\020.volde" +
+      "mort.Error\"\356\001\n\033RebalanceStateChangeReque" +
+      "st\022<\n\023rebalance_task_list\030\001 \003(\0132\037.voldem",
+      "ort.RebalanceTaskInfoMap\022\026\n\016cluster_stri" +
+      "ng\030\002 \002(\t\022\025\n\rstores_string\030\003 \002(\t\022\017\n\007swap_" +
+      "ro\030\004 \002(\010\022\037\n\027change_cluster_metadata\030\005 \002(" +
+      "\010\022\036\n\026change_rebalance_state\030\006 \002(\010\022\020\n\010rol" +
+      "lback\030\007 \002(\010\"?\n\034RebalanceStateChangeRespo" +
+      "nse\022\037\n\005error\030\001 \001(\0132\020.voldemort.Error\"G\n " +
+      "DeleteStoreRebalanceStateRequest\022\022\n\nstor" +
+      "e_name\030\001 \002(\t\022\017\n\007node_id\030\002 \002(\005\"D\n!DeleteS" +
+      "toreRebalanceStateResponse\022\037\n\005error\030\001 \001(" +
+      "\0132\020.voldemort.Error\"h\n\023NativeBackupReque",
+      "st\022\022\n\nstore_name\030\001 \002(\t\022\022\n\nbackup_dir\030\002 \002" +
+      "(\t\022\024\n\014verify_files\030\003 \002(\010\022\023\n\013incremental\030" +
+      "\004 \002(\010\">\n\024ReserveMemoryRequest\022\022\n\nstore_n" +
+      "ame\030\001 \002(\t\022\022\n\nsize_in_mb\030\002 \002(\003\"8\n\025Reserve" +
+      "MemoryResponse\022\037\n\005error\030\001 \001(\0132\020.voldemor" +
+      "t.Error\"\201\001\n\026DigestKeyRangesRequest\022\r\n\005st" +
+      "ore\030\001 \002(\t\022\024\n\014partition_id\030\002 \002(\005\022\022\n\nnum_r" +
+      "anges\030\003 \002(\005\022\023\n\013hash_values\030\004 \001(\010\022\031\n\021expi" +
+      "red_before_ms\030\005 \001(\003\"\201\001\n\027DigestKeyRangesR" +
+      "esponse\022\017\n\007digests\030\001 \003(\003\022\022\n\nkey_counts\030\002",
+      " \003(\003\022\017\n\007scanned\030\003 \001(\003\022\017\n\007expired\030\004 \001(\003\022\037" +
+      "\n\005error\030\005 \001(\0132\020.voldemort.Error\"\203\017\n\025Vold" +
       "emortAdminRequest\022)\n\004type\030\001 \002(\0162\033.voldem" +
       "ort.AdminRequestType\0223\n\014get_metadata\030\002 \001" +
       "(\0132\035.voldemort.GetMetadataRequest\0229\n\017upd" +
       "ate_metadata\030\003 \001(\0132 .voldemort.UpdateMet" +
-      "adataRequest\022J\n\030update_partition_entries",
+      "adataRequest\022J\n\030update_partition_entries" +
       "\030\004 \001(\0132(.voldemort.UpdatePartitionEntrie" +
       "sRequest\022H\n\027fetch_partition_entries\030\005 \001(" +
-      "\0132\'.voldemort.FetchPartitionEntriesReque" +
+      "\0132\'.voldemort.FetchPartitionEntriesReque",
       "st\022J\n\030delete_partition_entries\030\006 \001(\0132(.v" +
       "oldemort.DeletePartitionEntriesRequest\022K" +
       "\n\031initiate_fetch_and_update\030\007 \001(\0132(.vold" +
       "emort.InitiateFetchAndUpdateRequest\022F\n\026a" +
       "sync_operation_status\030\010 \001(\0132&.voldemort." +
       "AsyncOperationStatusRequest\022H\n\027initiate_" +
-      "rebalance_node\030\t \001(\0132\'.voldemort.Initiat",
+      "rebalance_node\030\t \001(\0132\'.voldemort.Initiat" +
       "eRebalanceNodeRequest\022B\n\024async_operation" +
       "_stop\030\n \001(\0132$.voldemort.AsyncOperationSt" +
-      "opRequest\022B\n\024async_operation_list\030\013 \001(\0132" +
+      "opRequest\022B\n\024async_operation_list\030\013 \001(\0132",
       "$.voldemort.AsyncOperationListRequest\022;\n" +
       "\020truncate_entries\030\014 \001(\0132!.voldemort.Trun" +
       "cateEntriesRequest\022-\n\tadd_store\030\r \001(\0132\032." +
       "voldemort.AddStoreRequest\0223\n\014delete_stor" +
       "e\030\016 \001(\0132\035.voldemort.DeleteStoreRequest\0221" +
       "\n\013fetch_store\030\017 \001(\0132\034.voldemort.FetchSto" +
-      "reRequest\022/\n\nswap_store\030\020 \001(\0132\033.voldemor",
+      "reRequest\022/\n\nswap_store\030\020 \001(\0132\033.voldemor" +
       "t.SwapStoreRequest\0227\n\016rollback_store\030\021 \001" +
       "(\0132\037.voldemort.RollbackStoreRequest\022D\n\026g" +
-      "et_ro_max_version_dir\030\022 \001(\0132$.voldemort." +
+      "et_ro_max_version_dir\030\022 \001(\0132$.voldemort.",
       "GetROMaxVersionDirRequest\022L\n\032get_ro_curr" +
       "ent_version_dir\030\023 \001(\0132(.voldemort.GetROC" +
       "urrentVersionDirRequest\022D\n\025fetch_partiti" +
       "on_files\030\024 \001(\0132%.voldemort.FetchPartitio" +
       "nFilesRequest\022@\n\023update_slop_entries\030\026 \001" +
       "(\0132#.voldemort.UpdateSlopEntriesRequest\022" +
-      ">\n\022failed_fetch_store\030\030 \001(\0132\".voldemort.",
+      ">\n\022failed_fetch_store\030\030 \001(\0132\".voldemort." +
       "FailedFetchStoreRequest\022C\n\025get_ro_storag" +
       "e_format\030\031 \001(\0132$.voldemort.GetROStorageF" +
-      "ormatRequest\022F\n\026rebalance_state_change\030\032" +
+      "ormatRequest\022F\n\026rebalance_state_change\030\032",
       " \001(\0132&.voldemort.RebalanceStateChangeReq" +
       "uest\022/\n\nrepair_job\030\033 \001(\0132\033.voldemort.Rep" +
       "airJobRequest\022Q\n\034delete_store_rebalance_" +
       "state\030\035 \001(\0132+.voldemort.DeleteStoreRebal" +
       "anceStateRequest\0225\n\rnative_backup\030\036 \001(\0132" +
       "\036.voldemort.NativeBackupRequest\0227\n\016reser" +
-      "ve_memory\030\037 \001(\0132\037.voldemort.ReserveMemor",
+      "ve_memory\030\037 \001(\0132\037.voldemort.ReserveMemor" +
       "yRequest\022-\n\tprune_job\030  \001(\0132\032.voldemort." +
-      "PruneJobRequest*\261\005\n\020AdminRequestType\022\020\n\014" +
-      "GET_METADATA\020\000\022\023\n\017UPDATE_METADATA\020\001\022\034\n\030U" +
-      "PDATE_PARTITION_ENTRIES\020\002\022\033\n\027FETCH_PARTI" +
-      "TION_ENTRIES\020\003\022\034\n\030DELETE_PARTITION_ENTRI" +
-      "ES\020\004\022\035\n\031INITIATE_FETCH_AND_UPDATE\020\005\022\032\n\026A" +
-      "SYNC_OPERATION_STATUS\020\006\022\033\n\027INITIATE_REBA" +
-      "LANCE_NODE\020\007\022\030\n\024ASYNC_OPERATION_STOP\020\010\022\030" +
-      "\n\024ASYNC_OPERATION_LIST\020\t\022\024\n\020TRUNCATE_ENT" +
-      "RIES\020\n\022\r\n\tADD_STORE\020\013\022\020\n\014DELETE_STORE\020\014\022",
-      "\017\n\013FETCH_STORE\020\r\022\016\n\nSWAP_STORE\020\016\022\022\n\016ROLL" +
-      "BACK_STORE\020\017\022\032\n\026GET_RO_MAX_VERSION_DIR\020\020" +
-      "\022\036\n\032GET_RO_CURRENT_VERSION_DIR\020\021\022\031\n\025FETC" +
-      "H_PARTITION_FILES\020\022\022\027\n\023UPDATE_SLOP_ENTRI" +
-      "ES\020\024\022\026\n\022FAILED_FETCH_STORE\020\026\022\031\n\025GET_RO_S" +
-      "TORAGE_FORMAT\020\027\022\032\n\026REBALANCE_STATE_CHANG" +
-      "E\020\030\022\016\n\nREPAIR_JOB\020\031\022 \n\034DELETE_STORE_REBA" +
-      "LANCE_STATE\020\033\022\021\n\rNATIVE_BACKUP\020\034\022\022\n\016RESE" +
-      "RVE_MEMORY\020\035\022\r\n\tPRUNE_JOB\020\036B-\n\034voldemort" +
-      ".client.protocol.pbB\013VAdminProtoH\001"
+      "PruneJobRequest\022<\n\021digest_key_ranges\030! \001" +
+      "(\0132!.voldemort.DigestKeyRangesRequest*\310\005",
+      "\n\020AdminRequestType\022\020\n\014GET_METADATA\020\000\022\023\n\017" +
+      "UPDATE_METADATA\020\001\022\034\n\030UPDATE_PARTITION_EN" +
+      "TRIES\020\002\022\033\n\027FETCH_PARTITION_ENTRIES\020\003\022\034\n\030" +
+      "DELETE_PARTITION_ENTRIES\020\004\022\035\n\031INITIATE_F" +
+      "ETCH_AND_UPDATE\020\005\022\032\n\026ASYNC_OPERATION_STA" +
+      "TUS\020\006\022\033\n\027INITIATE_REBALANCE_NODE\020\007\022\030\n\024AS" +
+      "YNC_OPERATION_STOP\020\010\022\030\n\024ASYNC_OPERATION_" +
+      "LIST\020\t\022\024\n\020TRUNCATE_ENTRIES\020\n\022\r\n\tADD_STOR" +
+      "E\020\013\022\020\n\014DELETE_STORE\020\014\022\017\n\013FETCH_STORE\020\r\022\016" +
+      "\n\nSWAP_STORE\020\016\022\022\n\016ROLLBACK_STORE\020\017\022\032\n\026GE",
+      "T_RO_MAX_VERSION_DIR\020\020\022\036\n\032GET_RO_CURRENT" +
+      "_VERSION_DIR\020\021\022\031\n\025FETCH_PARTITION_FILES\020" +
+      "\022\022\027\n\023UPDATE_SLOP_ENTRIES\020\024\022\026\n\022FAILED_FET" +
+      "CH_STORE\020\026\022\031\n\025GET_RO_STORAGE_FORMAT\020\027\022\032\n" +
+      "\026REBALANCE_STATE_CHANGE\020\030\022\016\n\nREPAIR_JOB\020" +
+      "\031\022 \n\034DELETE_STORE_REBALANCE_STATE\020\033\022\021\n\rN" +
+      "ATIVE_BACKUP\020\034\022\022\n\016RESERVE_MEMORY\020\035\022\r\n\tPR" +
+      "UNE_JOB\020\036\022\025\n\021DIGEST_KEY_RANGES\020\037B-\n\034vold" +
+      "emort.client.protocol.pbB\013VAdminProtoH\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -24887,7 +26012,7 @@ public final class VAdminProto {
           internal_static_voldemort_UpdatePartitionEntriesRequest_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_voldemort_UpdatePartitionEntriesRequest_descriptor,
-              new java.lang.String[] { "Store", "PartitionEntry", "Filter", "OverwriteIfLatestTs", },
+              new java.lang.String[] { "Store", "PartitionEntry", "Filter", "OverwriteIfLatestTs", "Sorted", },
               voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest.class,
               voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest.Builder.class);
           internal_static_voldemort_UpdatePartitionEntriesResponse_descriptor =
@@ -25322,12 +26447,28 @@ public final class VAdminProto {
               new java.lang.String[] { "Error", },
               voldemort.client.protocol.pb.VAdminProto.ReserveMemoryResponse.class,
               voldemort.client.protocol.pb.VAdminProto.ReserveMemoryResponse.Builder.class);
-          internal_static_voldemort_VoldemortAdminRequest_descriptor =
+          internal_static_voldemort_DigestKeyRangesRequest_descriptor =
             getDescriptor().getMessageTypes().get(61);
+          internal_static_voldemort_DigestKeyRangesRequest_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_DigestKeyRangesRequest_descriptor,
+              new java.lang.String[] { "Store", "PartitionId", "NumRanges", "HashValues", "ExpiredBeforeMs",  },
+              voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.class,
+              voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesRequest.Builder.class);
+          internal_static_voldemort_DigestKeyRangesResponse_descriptor =
+            getDescriptor().getMessageTypes().get(62);
+          internal_static_voldemort_DigestKeyRangesResponse_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_voldemort_DigestKeyRangesResponse_descriptor,
+              new java.lang.String[] { "Digests", "KeyCounts", "Scanned", "Expired", "Error",  },
+              voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.class,
+              voldemort.client.protocol.pb.VAdminProto.DigestKeyRangesResponse.Builder.class);
+          internal_static_voldemort_VoldemortAdminRequest_descriptor =
+            getDescriptor().getMessageTypes().get(63);
           internal_static_voldemort_VoldemortAdminRequest_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_voldemort_VoldemortAdminRequest_descriptor,
-              new java.lang.String[] { "Type", "GetMetadata", "UpdateMetadata", "UpdatePartitionEntries", "FetchPartitionEntries", "DeletePartitionEntries", "InitiateFetchAndUpdate", "AsyncOperationStatus", "InitiateRebalanceNode", "AsyncOperationStop", "AsyncOperationList", "TruncateEntries", "AddStore", "DeleteStore", "FetchStore", "SwapStore", "RollbackStore", "GetRoMaxVersionDir", "GetRoCurrentVersionDir", "FetchPartitionFiles", "UpdateSlopEntries", "FailedFetchStore", "GetRoStorageFormat", "RebalanceStateChange", "RepairJob", "DeleteStoreRebalanceState", "NativeBackup", "ReserveMemory", "PruneJob", },
+              new java.lang.String[] { "Type", "GetMetadata", "UpdateMetadata", "UpdatePartitionEntries", "FetchPartitionEntries", "DeletePartitionEntries", "InitiateFetchAndUpdate", "AsyncOperationStatus", "InitiateRebalanceNode", "AsyncOperationStop", "AsyncOperationList", "TruncateEntries", "AddStore", "DeleteStore", "FetchStore", "SwapStore", "RollbackStore", "GetRoMaxVersionDir", "GetRoCurrentVersionDir", "FetchPartitionFiles", "UpdateSlopEntries", "FailedFetchStore", "GetRoStorageFormat", "RebalanceStateChange", "RepairJob", "DeleteStoreRebalanceState", "NativeBackup", "ReserveMemory", "PruneJob", "DigestKeyRanges", },
               voldemort.client.protocol.pb.VAdminProto.VoldemortAdminRequest.class,
               voldemort.client.protocol.pb.VAdminProto.VoldemortAdminRequest.Builder.class);
           return null;
@@ -169,6 +169,26 @@ public class RebalanceTaskInfo {
         this.storeToPartitionIds.remove(storeName);
     }
 
+    /**
+     * Checks whether this task is what is left of the given plan once some of
+     * its stores have been rebalanced, i.e. both tasks move between the same
+     * nodes from the same initial cluster and every store left in this task
+     * moves the same partitions in the plan.
+     * 
+     * @param plan the complete plan
+     * @return true if this task can resume the plan
+     */
+    public synchronized boolean isRemainderOf(RebalanceTaskInfo plan) {
+        if(stealerId != plan.getStealerId() || donorId != plan.getDonorId()
+           || !initialCluster.equals(plan.getInitialCluster()))
+            return false;
+        for(String storeName: storeToPartitionIds.keySet()) {
+            if(!storeToPartitionIds.get(storeName).equals(plan.getPartitionIds(storeName)))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Returns the list of partitions ids corresponding to a store.
      * 
@@ -246,6 +246,20 @@ public abstract class AbstractFailureDetector implements FailureDetector {
             throw new IllegalArgumentException("requestTime - " + requestTime + " - less than 0");
     }
 
+    protected String getCatastrophicError(UnreachableStoreException e) {
+        Throwable t = e != null ? e.getCause() : null;
+
+        if(t == null)
+            return null;
+
+        for(String errorType: getConfig().getCatastrophicErrorTypes()) {
+            if(t.getClass().getName().equals(errorType))
+                return errorType;
+        }
+
+        return null;
+    }
+
     /**
      * We need to distinguish the case where we're newly available and the case
      * where we're already available. So we check the node status before we
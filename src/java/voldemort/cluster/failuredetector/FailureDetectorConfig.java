@@ -62,6 +62,10 @@ public class FailureDetectorConfig {
 
     public static final long DEFAULT_REQUEST_LENGTH_THRESHOLD = 5000;
 
+    public static final double DEFAULT_PHI_THRESHOLD = 8.0;
+
+    public static final int DEFAULT_PHI_WINDOW_SIZE = 100;
+
     protected String implementationClassName = DEFAULT_IMPLEMENTATION_CLASS_NAME;
 
     protected long bannagePeriod = DEFAULT_BANNAGE_PERIOD;
@@ -78,6 +82,10 @@ public class FailureDetectorConfig {
 
     protected long requestLengthThreshold = DEFAULT_REQUEST_LENGTH_THRESHOLD;
 
+    protected double phiThreshold = DEFAULT_PHI_THRESHOLD;
+
+    protected int phiWindowSize = DEFAULT_PHI_WINDOW_SIZE;
+
     protected Collection<Node> nodes;
 
     protected StoreVerifier storeVerifier;
@@ -123,6 +131,8 @@ public class FailureDetectorConfig {
         setAsyncRecoveryInterval(config.getFailureDetectorAsyncRecoveryInterval());
         setCatastrophicErrorTypes(config.getFailureDetectorCatastrophicErrorTypes());
         setRequestLengthThreshold(config.getFailureDetectorRequestLengthThreshold());
+        setPhiThreshold(config.getFailureDetectorPhiThreshold());
+        setPhiWindowSize(config.getFailureDetectorPhiWindowSize());
     }
 
     /**
@@ -147,6 +157,8 @@ public class FailureDetectorConfig {
         setAsyncRecoveryInterval(config.getFailureDetectorAsyncRecoveryInterval());
         setCatastrophicErrorTypes(config.getFailureDetectorCatastrophicErrorTypes());
         setRequestLengthThreshold(config.getFailureDetectorRequestLengthThreshold());
+        setPhiThreshold(config.getFailureDetectorPhiThreshold());
+        setPhiWindowSize(config.getFailureDetectorPhiWindowSize());
     }
 
     /**
@@ -540,6 +552,102 @@ public class FailureDetectorConfig {
         return this;
     }
 
+    /**
+     * Returns the suspicion level (phi) at or above which a node is considered
+     * unavailable. A phi of 1 roughly corresponds to a 10% chance that the
+     * node is still healthy given how long it has been since its last
+     * successful response, a phi of 2 to a 1% chance and so on.
+     * 
+     * <p/>
+     * 
+     * <b>Note</b>: this is only used by the {@link PhiAccrualFailureDetector}
+     * implementation.
+     * 
+     * @return Suspicion level threshold
+     * 
+     * @see PhiAccrualFailureDetector
+     * @see VoldemortConfig#getFailureDetectorPhiThreshold
+     * @see ClientConfig#getFailureDetectorPhiThreshold
+     */
+
+    public double getPhiThreshold() {
+        return phiThreshold;
+    }
+
+    /**
+     * Assigns the suspicion level (phi) at or above which a node is considered
+     * unavailable.
+     * 
+     * <p/>
+     * 
+     * <b>Note</b>: this is only used by the {@link PhiAccrualFailureDetector}
+     * implementation.
+     * 
+     * @param phiThreshold Suspicion level threshold
+     * 
+     * @exception IllegalArgumentException Thrown if the phiThreshold parameter
+     *            is less than or equal to 0
+     * 
+     * @see PhiAccrualFailureDetector
+     * @see VoldemortConfig#getFailureDetectorPhiThreshold
+     * @see ClientConfig#getFailureDetectorPhiThreshold
+     */
+
+    public FailureDetectorConfig setPhiThreshold(double phiThreshold) {
+        if(phiThreshold <= 0)
+            throw new IllegalArgumentException("phiThreshold must be greater than 0");
+
+        this.phiThreshold = phiThreshold;
+        return this;
+    }
+
+    /**
+     * Returns the number of most recent inter-response intervals (per node)
+     * used to estimate the expected interval between successful responses.
+     * 
+     * <p/>
+     * 
+     * <b>Note</b>: this is only used by the {@link PhiAccrualFailureDetector}
+     * implementation.
+     * 
+     * @return Number of intervals kept per node
+     * 
+     * @see PhiAccrualFailureDetector
+     * @see VoldemortConfig#getFailureDetectorPhiWindowSize
+     * @see ClientConfig#getFailureDetectorPhiWindowSize
+     */
+
+    public int getPhiWindowSize() {
+        return phiWindowSize;
+    }
+
+    /**
+     * Assigns the number of most recent inter-response intervals (per node)
+     * used to estimate the expected interval between successful responses.
+     * 
+     * <p/>
+     * 
+     * <b>Note</b>: this is only used by the {@link PhiAccrualFailureDetector}
+     * implementation.
+     * 
+     * @param phiWindowSize Number of intervals kept per node
+     * 
+     * @exception IllegalArgumentException Thrown if the phiWindowSize
+     *            parameter is less than or equal to 0
+     * 
+     * @see PhiAccrualFailureDetector
+     * @see VoldemortConfig#getFailureDetectorPhiWindowSize
+     * @see ClientConfig#getFailureDetectorPhiWindowSize
+     */
+
+    public FailureDetectorConfig setPhiWindowSize(int phiWindowSize) {
+        if(phiWindowSize <= 0)
+            throw new IllegalArgumentException("phiWindowSize must be greater than 0");
+
+        this.phiWindowSize = phiWindowSize;
+        return this;
+    }
+
     /**
      * Returns a reference to the cluster object
      * 
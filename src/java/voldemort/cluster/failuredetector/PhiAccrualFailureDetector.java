@@ -0,0 +1,319 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.cluster.failuredetector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang.StringUtils;
+
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.cluster.Node;
+import voldemort.store.UnreachableStoreException;
+
+/**
+ * PhiAccrualFailureDetector builds upon the AsyncRecoveryFailureDetector and,
+ * rather than a binary up/down decision over fixed intervals, computes a
+ * continuous suspicion level (phi) for each node.
+ * 
+ * <p/>
+ * 
+ * For every node we keep a sliding window of the intervals between successive
+ * successful responses and use its mean and standard deviation to estimate how
+ * likely it is that a healthy node would have gone as long as it has without
+ * answering. phi is <code>-log10</code> of that probability, so a phi of 1
+ * means a 10% chance the node is fine, 2 means 1%, 3 means 0.1% and so on.
+ * Nodes that answer frequently are suspected quickly once they stop, while
+ * nodes with naturally sparse traffic or a short GC pause are given
+ * proportionally more slack.
+ * 
+ * <p/>
+ * 
+ * Silence alone is not evidence of failure in a request driven system, so phi
+ * only accrues once a failure (or a success slower than the request length
+ * threshold) has been recorded since the last good response; a timely success
+ * clears it again. The silence is measured from the later of the last good
+ * response and the moment the first failed request was sent, since a node
+ * nobody talked to for a while had no chance to answer. The node is marked as
+ * unavailable once phi reaches the configured threshold, or immediately on a
+ * catastrophic error. Recovery is delegated to the
+ * AsyncRecoveryFailureDetector background thread.
+ * 
+ * <p/>
+ * 
+ * The current suspicion level of each node is available through
+ * {@link #getSuspicionLevel(Node)} and over JMX, so callers can deprioritize
+ * suspicious nodes before they are actually marked down.
+ * 
+ * @see FailureDetectorConfig#getPhiThreshold()
+ * @see FailureDetectorConfig#getPhiWindowSize()
+ */
+
+@JmxManaged(description = "Detects the availability of the nodes on which a Voldemort cluster runs")
+public class PhiAccrualFailureDetector extends AsyncRecoveryFailureDetector {
+
+    /**
+     * Lower bound on the standard deviation of the inter-response interval, so
+     * that a node answering at a very steady rate isn't suspected on the first
+     * small hiccup.
+     */
+    public static final long MIN_STD_DEVIATION_MS = 500;
+
+    /**
+     * Number of intervals required before the window is trusted; until then
+     * the request length threshold is used as the expected interval.
+     */
+    private static final int MIN_SAMPLES = 5;
+
+    private final ConcurrentMap<Integer, PhiState> phiStates;
+
+    public PhiAccrualFailureDetector(FailureDetectorConfig failureDetectorConfig) {
+        super(failureDetectorConfig);
+        phiStates = new ConcurrentHashMap<Integer, PhiState>();
+    }
+
+    @Override
+    public void recordException(Node node, long requestTime, UnreachableStoreException e) {
+        checkArgs(node, requestTime);
+        suspect(node, requestTime, e);
+    }
+
+    @Override
+    public void recordSuccess(Node node, long requestTime) {
+        checkArgs(node, requestTime);
+
+        if(requestTime > getConfig().getRequestLengthThreshold()) {
+            // Consider slow requests as "soft" errors; they don't count as a
+            // response and start phi accruing.
+            suspect(node,
+                    requestTime,
+                    new UnreachableStoreException("Node " + node.getId()
+                                                  + " recording success, but request time ("
+                                                  + requestTime + ") exceeded threshold ("
+                                                  + getConfig().getRequestLengthThreshold() + ")"));
+            return;
+        }
+
+        PhiState phiState = getPhiState(node);
+
+        synchronized(phiState) {
+            phiState.recordResponse(getConfig().getTime().getMilliseconds());
+        }
+    }
+
+    /**
+     * Returns the current suspicion level (phi) of the given node. This is 0
+     * when nothing has gone wrong since the node's last successful response
+     * and grows the longer the node stays silent after a failure.
+     * 
+     * @param node Node to check
+     * @return Suspicion level, possibly {@link Double#POSITIVE_INFINITY}
+     */
+
+    public double getSuspicionLevel(Node node) {
+        checkNodeArg(node);
+        PhiState phiState = getPhiState(node);
+
+        synchronized(phiState) {
+            return phiState.phi(getConfig().getTime().getMilliseconds());
+        }
+    }
+
+    @JmxGetter(name = "nodeSuspicionLevels", description = "Each node is listed with its status (available/unavailable) and suspicion level (phi)")
+    public String getNodeSuspicionLevels() {
+        List<String> list = new ArrayList<String>();
+
+        for(Node node: getConfig().getCluster().getNodes()) {
+            list.add(node.getId() + ",status="
+                     + (isAvailable(node) ? "available" : "unavailable") + ",phi="
+                     + String.format("%.2f", getSuspicionLevel(node)));
+        }
+
+        return StringUtils.join(list, ";");
+    }
+
+    @JmxGetter(name = "maxSuspicionLevel", description = "The highest suspicion level (phi) across all nodes")
+    public double getMaxSuspicionLevel() {
+        double max = 0;
+
+        for(Node node: getConfig().getCluster().getNodes())
+            max = Math.max(max, getSuspicionLevel(node));
+
+        return max;
+    }
+
+    /**
+     * We delegate node recovery detection to the
+     * {@link AsyncRecoveryFailureDetector} class. When it determines that the
+     * node has recovered, we treat the verification as a fresh response so the
+     * node starts from a clean suspicion level.
+     */
+
+    @Override
+    protected void nodeRecovered(Node node) {
+        PhiState phiState = getPhiState(node);
+
+        synchronized(phiState) {
+            phiState.reset(getConfig().getTime().getMilliseconds());
+        }
+
+        super.nodeRecovered(node);
+    }
+
+    private void suspect(Node node, long requestTime, UnreachableStoreException e) {
+        String catastrophicError = getCatastrophicError(e);
+        PhiState phiState = getPhiState(node);
+        double phi;
+
+        synchronized(phiState) {
+            phi = phiState.suspect(getConfig().getTime().getMilliseconds(), requestTime);
+        }
+
+        if(logger.isTraceEnabled())
+            logger.trace("Node " + node.getId() + " suspected, phi: " + phi, e);
+
+        // Call setUnavailable outside of the synchronized section to keep the
+        // listener notifications out of it.
+        if(catastrophicError != null) {
+            if(logger.isTraceEnabled())
+                logger.trace("Node " + node.getId() + " experienced catastrophic error: "
+                             + catastrophicError);
+
+            setUnavailable(node, e);
+        } else if(phi >= getConfig().getPhiThreshold()) {
+            setUnavailable(node, e);
+        }
+    }
+
+    private PhiState getPhiState(Node node) {
+        PhiState phiState = phiStates.get(node.getId());
+
+        if(phiState == null) {
+            phiState = new PhiState(getConfig().getPhiWindowSize(),
+                                    getConfig().getTime().getMilliseconds());
+            PhiState previous = phiStates.putIfAbsent(node.getId(), phiState);
+
+            if(previous != null)
+                phiState = previous;
+        }
+
+        return phiState;
+    }
+
+    /**
+     * Per node inter-response statistics. Not thread safe, callers synchronize
+     * on the instance.
+     */
+    private class PhiState {
+
+        private final long[] intervals;
+
+        private int index;
+
+        private int count;
+
+        private double sum;
+
+        private double sumOfSquares;
+
+        private long lastResponseMs;
+
+        private boolean suspected;
+
+        private long silentSinceMs;
+
+        PhiState(int windowSize, long nowMs) {
+            this.intervals = new long[windowSize];
+            this.lastResponseMs = nowMs;
+        }
+
+        void recordResponse(long nowMs) {
+            long interval = Math.max(0, nowMs - lastResponseMs);
+
+            if(count == intervals.length) {
+                long evicted = intervals[index];
+                sum -= evicted;
+                sumOfSquares -= (double) evicted * evicted;
+            } else {
+                count++;
+            }
+
+            intervals[index] = interval;
+            index = (index + 1) % intervals.length;
+            sum += interval;
+            sumOfSquares += (double) interval * interval;
+
+            lastResponseMs = nowMs;
+            suspected = false;
+        }
+
+        double suspect(long nowMs, long requestTime) {
+            if(!suspected) {
+                suspected = true;
+                silentSinceMs = Math.max(lastResponseMs, nowMs - requestTime);
+            }
+            return phi(nowMs);
+        }
+
+        void reset(long nowMs) {
+            lastResponseMs = nowMs;
+            suspected = false;
+        }
+
+        double phi(long nowMs) {
+            if(!suspected)
+                return 0;
+
+            double mean;
+            double stdDeviation;
+
+            if(count < MIN_SAMPLES) {
+                mean = getConfig().getRequestLengthThreshold();
+                stdDeviation = mean / 4;
+            } else {
+                mean = sum / count;
+                stdDeviation = Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+            }
+
+            stdDeviation = Math.max(stdDeviation, MIN_STD_DEVIATION_MS);
+
+            return PhiAccrualFailureDetector.phi(Math.max(0, nowMs - silentSinceMs),
+                                                 mean,
+                                                 stdDeviation);
+        }
+
+    }
+
+    /**
+     * Computes <code>-log10(1 - F(elapsed))</code> where F is the cumulative
+     * distribution function of a normal distribution with the given mean and
+     * standard deviation, using a logistic approximation of F.
+     */
+    static double phi(long elapsedMs, double mean, double stdDeviation) {
+        double y = (elapsedMs - mean) / stdDeviation;
+        double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+
+        if(elapsedMs > mean)
+            return -Math.log10(e / (1.0 + e));
+        else
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+    }
+
+}
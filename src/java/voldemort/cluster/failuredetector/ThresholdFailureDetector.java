@@ -193,18 +193,4 @@ public class ThresholdFailureDetector extends AsyncRecoveryFailureDetector {
         }
     }
 
-    protected String getCatastrophicError(UnreachableStoreException e) {
-        Throwable t = e != null ? e.getCause() : null;
-
-        if(t == null)
-            return null;
-
-        for(String errorType: getConfig().getCatastrophicErrorTypes()) {
-            if(t.getClass().getName().equals(errorType))
-                return errorType;
-        }
-
-        return null;
-    }
-
 }
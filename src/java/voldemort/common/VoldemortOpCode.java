@@ -29,4 +29,5 @@ public class VoldemortOpCode {
     public static final byte REDIRECT_GET_OP_CODE = 9;
     public static final byte GET_VERSION_OP_CODE = 10;
     public static final byte GET_METADATA_OP_CODE = 11;
+    public static final byte PUT_ALL_OP_CODE = 12;
 }
@@ -67,6 +67,11 @@ public abstract class AbstractRestRequestHandler extends SimpleChannelUpstreamHa
                 HttpMethod httpMethod = request.getMethod();
                 if(httpMethod.equals(HttpMethod.GET)) {
                     requestValidator = new RestGetRequestValidator(request, messageEvent);
+                } else if(httpMethod.equals(HttpMethod.POST)
+                          && RestPutAllRequestValidator.isPutAllRequest(request)) {
+                    requestValidator = new RestPutAllRequestValidator(request,
+                                                                      messageEvent,
+                                                                      this.isVectorClockOptional);
                 } else if(httpMethod.equals(HttpMethod.POST)) {
                     requestValidator = new RestPutRequestValidator(request,
                                                                    messageEvent,
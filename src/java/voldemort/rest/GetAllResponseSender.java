@@ -1,17 +1,20 @@
 package voldemort.rest;
 
-import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LOCATION;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TRANSFER_ENCODING;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.TRANSFER_ENCODING;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Values.CHUNKED;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.OK;
 import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
 import javax.mail.MessagingException;
+import javax.mail.internet.ContentType;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMultipart;
 
@@ -20,8 +23,11 @@ import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.log4j.Logger;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelFuture;
 import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
 import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpChunk;
 import org.jboss.netty.handler.codec.http.HttpResponse;
 
 import voldemort.store.stats.StoreStats;
@@ -32,8 +38,12 @@ import voldemort.versioning.Versioned;
 
 public class GetAllResponseSender extends RestResponseSender {
 
+    private static final String CRLF = "\r\n";
+
     private Map<ByteArray, List<Versioned<byte[]>>> versionedResponses;
     private String storeName;
+    private String boundary = null;
+    private ChannelFuture lastWriteFuture = null;
     private static final Logger logger = Logger.getLogger(GetAllResponseSender.class);
 
     public GetAllResponseSender(MessageEvent messageEvent,
@@ -44,84 +54,87 @@ public class GetAllResponseSender extends RestResponseSender {
         this.storeName = storeName;
     }
 
+    /**
+     * Constructor used to stream the response one chunk of keys at a time
+     * using {@link #sendResponseChunk(Map)}
+     */
+    public GetAllResponseSender(MessageEvent messageEvent, String storeName) {
+        this(messageEvent, null, storeName);
+    }
+
     /**
      * Sends nested multipart response. Outer multipart wraps all the keys
      * requested. Each key has a separate multipart for the versioned values.
+     * 
+     * The outer multipart is written out as a chunked HTTP response, so the
+     * parts of the keys already streamed with {@link #sendResponseChunk(Map)}
+     * are not buffered again. This completes the response.
      */
 
     @Override
     public void sendResponse(StoreStats performanceStats,
                              boolean isFromLocalZone,
                              long startTimeInMs) throws Exception {
+        if(versionedResponses != null) {
+            sendResponseChunk(versionedResponses);
+            versionedResponses = null;
+        }
+        if(!isStreaming()) {
+            sendResponseHeader();
+        }
 
-        // multiPartKeys is the outer multipart
-        MimeMultipart multiPartKeys = new MimeMultipart();
-        ByteArrayOutputStream keysOutputStream = new ByteArrayOutputStream();
-
-        for(Entry<ByteArray, List<Versioned<byte[]>>> entry: versionedResponses.entrySet()) {
-            ByteArray key = entry.getKey();
-            String contentLocationKey = "/" + this.storeName + "/"
-                                        + new String(Base64.encodeBase64(key.get()));
-
-            // Create the individual body part - for each key requested
-            MimeBodyPart keyBody = new MimeBodyPart();
-            try {
-                // Add the right headers
-                keyBody.addHeader(CONTENT_TYPE, "application/octet-stream");
-                keyBody.addHeader(CONTENT_TRANSFER_ENCODING, "binary");
-                keyBody.addHeader(CONTENT_LOCATION, contentLocationKey);
-            } catch(MessagingException me) {
-                logger.error("Exception while constructing key body headers", me);
-                keysOutputStream.close();
-                throw me;
-            }
-            // multiPartValues is the inner multipart
-            MimeMultipart multiPartValues = new MimeMultipart();
-            for(Versioned<byte[]> versionedValue: entry.getValue()) {
-
-                byte[] responseValue = versionedValue.getValue();
-
-                VectorClock vectorClock = (VectorClock) versionedValue.getVersion();
-                String eTag = RestUtils.getSerializedVectorClock(vectorClock);
-
-                // Create the individual body part - for each versioned value of
-                // a key
-                MimeBodyPart valueBody = new MimeBodyPart();
-                try {
-                    // Add the right headers
-                    valueBody.addHeader(CONTENT_TYPE, "application/octet-stream");
-                    valueBody.addHeader(CONTENT_TRANSFER_ENCODING, "binary");
-                    valueBody.addHeader(RestMessageHeaders.X_VOLD_VECTOR_CLOCK, eTag);
-                    valueBody.setContent(responseValue, "application/octet-stream");
-
-                    multiPartValues.addBodyPart(valueBody);
-                } catch(MessagingException me) {
-                    logger.error("Exception while constructing value body part", me);
-                    keysOutputStream.close();
-                    throw me;
-                }
+        // Close the outer multipart and terminate the chunked response
+        writeChunk(("--" + boundary + "--" + CRLF).getBytes());
+        this.messageEvent.getChannel().write(HttpChunk.LAST_CHUNK);
 
-            }
-            try {
-                // Add the inner multipart as the content of the outer body part
-                keyBody.setContent(multiPartValues);
-                multiPartKeys.addBodyPart(keyBody);
-            } catch(MessagingException me) {
-                logger.error("Exception while constructing key body part", me);
-                keysOutputStream.close();
-                throw me;
-            }
+        if(performanceStats != null && isFromLocalZone) {
+            recordStats(performanceStats, startTimeInMs, Tracked.GET_ALL);
+        }
+    }
 
+    /**
+     * Writes out the body parts of the given keys as a single HTTP chunk. The
+     * response header goes out along with the first chunk. Blocks until the
+     * previous chunk has been flushed, so that only one chunk per request is
+     * ever buffered in Netty.
+     * 
+     * @param versionedResponses the keys resolved since the last chunk
+     */
+    public void sendResponseChunk(Map<ByteArray, List<Versioned<byte[]>>> versionedResponses)
+            throws Exception {
+        if(!isStreaming()) {
+            sendResponseHeader();
         }
+
+        ByteArrayOutputStream keysOutputStream = new ByteArrayOutputStream();
         try {
-            multiPartKeys.writeTo(keysOutputStream);
+            for(Entry<ByteArray, List<Versioned<byte[]>>> entry: versionedResponses.entrySet()) {
+                MimeBodyPart keyBody = createKeyBodyPart(entry.getKey(), entry.getValue());
+                keysOutputStream.write(("--" + boundary + CRLF).getBytes());
+                keyBody.writeTo(keysOutputStream);
+                keysOutputStream.write(CRLF.getBytes());
+            }
         } catch(Exception e) {
             logger.error("Exception while writing mutipart to output stream", e);
             throw e;
+        } finally {
+            keysOutputStream.close();
         }
 
-        ChannelBuffer responseContent = ChannelBuffers.dynamicBuffer();
-        responseContent.writeBytes(keysOutputStream.toByteArray());
+        writeChunk(keysOutputStream.toByteArray());
+    }
+
+    /**
+     * @return true if the response header has already been written out
+     */
+    public boolean isStreaming() {
+        return boundary != null;
+    }
+
+    private void sendResponseHeader() throws MessagingException {
+        // Borrow a unique boundary from javax.mail, since we write the outer
+        // multipart ourselves
+        this.boundary = new ContentType(new MimeMultipart().getContentType()).getParameter("boundary");
 
         // Create the Response object
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
@@ -129,18 +142,74 @@ public class GetAllResponseSender extends RestResponseSender {
         // Set the right headers
         response.setHeader(CONTENT_TYPE, "multipart/binary");
         response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
-
-        // Copy the data into the payload
-        response.setContent(responseContent);
-        response.setHeader(CONTENT_LENGTH, response.getContent().readableBytes());
+        response.setHeader(TRANSFER_ENCODING, CHUNKED);
+        response.setChunked(true);
 
         // Write the response to the Netty Channel
-        this.messageEvent.getChannel().write(response);
+        this.lastWriteFuture = this.messageEvent.getChannel().write(response);
+    }
 
-        if(performanceStats != null && isFromLocalZone) {
-            recordStats(performanceStats, startTimeInMs, Tracked.GET_ALL);
+    private void writeChunk(byte[] bytes) throws IOException {
+        if(lastWriteFuture != null) {
+            lastWriteFuture.awaitUninterruptibly();
+            if(!lastWriteFuture.isSuccess()) {
+                throw new IOException("Could not write get all response", lastWriteFuture.getCause());
+            }
+        }
+        ChannelBuffer responseContent = ChannelBuffers.wrappedBuffer(bytes);
+        this.lastWriteFuture = this.messageEvent.getChannel()
+                                                .write(new DefaultHttpChunk(responseContent));
+    }
+
+    private MimeBodyPart createKeyBodyPart(ByteArray key, List<Versioned<byte[]>> versionedValues)
+            throws MessagingException {
+        String contentLocationKey = "/" + this.storeName + "/"
+                                    + new String(Base64.encodeBase64(key.get()));
+
+        // Create the individual body part - for each key requested
+        MimeBodyPart keyBody = new MimeBodyPart();
+        try {
+            // Add the right headers
+            keyBody.addHeader(CONTENT_TYPE, "application/octet-stream");
+            keyBody.addHeader(CONTENT_TRANSFER_ENCODING, "binary");
+            keyBody.addHeader(CONTENT_LOCATION, contentLocationKey);
+        } catch(MessagingException me) {
+            logger.error("Exception while constructing key body headers", me);
+            throw me;
         }
+        // multiPartValues is the inner multipart
+        MimeMultipart multiPartValues = new MimeMultipart();
+        for(Versioned<byte[]> versionedValue: versionedValues) {
+
+            byte[] responseValue = versionedValue.getValue();
+
+            VectorClock vectorClock = (VectorClock) versionedValue.getVersion();
+            String eTag = RestUtils.getSerializedVectorClock(vectorClock);
+
+            // Create the individual body part - for each versioned value of
+            // a key
+            MimeBodyPart valueBody = new MimeBodyPart();
+            try {
+                // Add the right headers
+                valueBody.addHeader(CONTENT_TYPE, "application/octet-stream");
+                valueBody.addHeader(CONTENT_TRANSFER_ENCODING, "binary");
+                valueBody.addHeader(RestMessageHeaders.X_VOLD_VECTOR_CLOCK, eTag);
+                valueBody.setContent(responseValue, "application/octet-stream");
 
-        keysOutputStream.close();
+                multiPartValues.addBodyPart(valueBody);
+            } catch(MessagingException me) {
+                logger.error("Exception while constructing value body part", me);
+                throw me;
+            }
+
+        }
+        try {
+            // Add the inner multipart as the content of the outer body part
+            keyBody.setContent(multiPartValues);
+        } catch(MessagingException me) {
+            logger.error("Exception while constructing key body part", me);
+            throw me;
+        }
+        return keyBody;
     }
 }
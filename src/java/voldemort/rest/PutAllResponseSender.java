@@ -0,0 +1,114 @@
+package voldemort.rest;
+
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LOCATION;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TRANSFER_ENCODING;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static org.jboss.netty.handler.codec.http.HttpResponseStatus.OK;
+import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMultipart;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.log4j.Logger;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.DefaultHttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponse;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+
+import voldemort.store.stats.StoreStats;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
+
+/**
+ * Sends the outcome of a batched put as a multipart response. Each key gets a
+ * body part with its Content-Location and the X-VOLD-Response-Status header.
+ * Successful puts carry the new vector clock, failed puts carry the error
+ * message as content.
+ */
+public class PutAllResponseSender extends RestResponseSender {
+
+    private final Map<ByteArray, VectorClock> successfulPuts;
+    private final Map<ByteArray, Exception> failedPuts;
+    private final String storeName;
+    private static final Logger logger = Logger.getLogger(PutAllResponseSender.class);
+
+    public PutAllResponseSender(MessageEvent messageEvent,
+                                Map<ByteArray, VectorClock> successfulPuts,
+                                Map<ByteArray, Exception> failedPuts,
+                                String storeName) {
+        super(messageEvent);
+        this.successfulPuts = successfulPuts;
+        this.failedPuts = failedPuts;
+        this.storeName = storeName;
+    }
+
+    @Override
+    public void sendResponse(StoreStats performanceStats,
+                             boolean isFromLocalZone,
+                             long startTimeInMs) throws Exception {
+        MimeMultipart multiPartKeys = new MimeMultipart();
+        for(Entry<ByteArray, VectorClock> entry: successfulPuts.entrySet()) {
+            MimeBodyPart keyBody = createKeyBodyPart(entry.getKey(), HttpResponseStatus.CREATED);
+            if(entry.getValue() != null) {
+                keyBody.addHeader(RestMessageHeaders.X_VOLD_VECTOR_CLOCK,
+                                  RestUtils.getSerializedVectorClock(entry.getValue()));
+            }
+            keyBody.setContent(new byte[0], "application/octet-stream");
+            multiPartKeys.addBodyPart(keyBody);
+        }
+        for(Entry<ByteArray, Exception> entry: failedPuts.entrySet()) {
+            HttpResponseStatus status = RestPutErrorHandler.getResponseStatus(entry.getValue());
+            MimeBodyPart keyBody = createKeyBodyPart(entry.getKey(), status);
+            keyBody.setContent(("Failure: " + status.toString() + ". " + entry.getValue()
+                                                                               .getMessage()).getBytes(),
+                               "application/octet-stream");
+            multiPartKeys.addBodyPart(keyBody);
+        }
+
+        ByteArrayOutputStream keysOutputStream = new ByteArrayOutputStream();
+        try {
+            multiPartKeys.writeTo(keysOutputStream);
+        } catch(Exception e) {
+            logger.error("Exception while writing mutipart to output stream", e);
+            throw e;
+        } finally {
+            keysOutputStream.close();
+        }
+
+        // Create the Response object
+        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+
+        // Set the right headers
+        response.setHeader(CONTENT_TYPE, "multipart/binary");
+        response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
+
+        // Copy the data into the payload
+        response.setContent(ChannelBuffers.wrappedBuffer(keysOutputStream.toByteArray()));
+        response.setHeader(CONTENT_LENGTH, response.getContent().readableBytes());
+
+        // Write the response to the Netty Channel
+        this.messageEvent.getChannel().write(response);
+    }
+
+    private MimeBodyPart createKeyBodyPart(ByteArray key, HttpResponseStatus status)
+            throws MessagingException {
+        String contentLocationKey = "/" + this.storeName + "/"
+                                    + new String(Base64.encodeBase64(key.get()));
+
+        MimeBodyPart keyBody = new MimeBodyPart();
+        keyBody.addHeader(CONTENT_TYPE, "application/octet-stream");
+        keyBody.addHeader(CONTENT_TRANSFER_ENCODING, "binary");
+        keyBody.addHeader(CONTENT_LOCATION, contentLocationKey);
+        keyBody.addHeader(RestMessageHeaders.X_VOLD_RESPONSE_STATUS,
+                          Integer.toString(status.getCode()));
+        return keyBody;
+    }
+}
@@ -2,6 +2,7 @@ package voldemort.rest;
 
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_LENGTH;
 import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.CONTENT_TYPE;
+import static org.jboss.netty.handler.codec.http.HttpHeaders.Names.RETRY_AFTER;
 import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 import org.apache.log4j.Logger;
@@ -41,15 +42,32 @@ public class RestErrorHandler {
     public static void writeErrorResponse(MessageEvent messageEvent,
                                           HttpResponseStatus status,
                                           String message) {
+        messageEvent.getChannel().write(createErrorResponse(status, message));
+    }
 
-        // Create the Response object
+    /**
+     * Writes a 503 (Service Unavailable) response telling the client to back
+     * off and retry the request after the specified number of seconds.
+     * 
+     * @param messageEvent - for retrieving the channel details
+     * @param message - error message
+     * @param retryAfterSeconds - value of the Retry-After header
+     */
+    public static void writeServiceUnavailableResponse(MessageEvent messageEvent,
+                                                       String message,
+                                                       int retryAfterSeconds) {
+        HttpResponse response = createErrorResponse(HttpResponseStatus.SERVICE_UNAVAILABLE,
+                                                    message);
+        response.setHeader(RETRY_AFTER, retryAfterSeconds);
+        messageEvent.getChannel().write(response);
+    }
+
+    private static HttpResponse createErrorResponse(HttpResponseStatus status, String message) {
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, status);
         response.setHeader(CONTENT_TYPE, "text/plain; charset=UTF-8");
         response.setContent(ChannelBuffers.copiedBuffer("Failure: " + status.toString() + ". "
                                                         + message + "\r\n", CharsetUtil.UTF_8));
         response.setHeader(CONTENT_LENGTH, response.getContent().readableBytes());
-
-        // Write the response to the Netty Channel
-        messageEvent.getChannel().write(response);
+        return response;
     }
 }
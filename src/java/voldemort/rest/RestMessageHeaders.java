@@ -14,8 +14,10 @@ public class RestMessageHeaders {
     public static final String X_VOLD_ROUTING_TYPE_CODE = "X-VOLD-Routing-Type-Code";
     public static final String X_VOLD_GET_VERSION = "X-VOLD-Get-Version";
     public static final String X_VOLD_ZONE_ID = "X-VOLD-Zone-Id";
+    public static final String X_VOLD_RESPONSE_STATUS = "X-VOLD-Response-Status";
     public static final String CONTENT_LENGTH = "Content-Length";
     public static final String CONTENT_TYPE = "Content-Type";
+    public static final String CONTENT_LOCATION = "Content-Location";
 
     // Other headers specific to Voldemort protocol
     public static final String SCHEMATA_STORE = "schemata";
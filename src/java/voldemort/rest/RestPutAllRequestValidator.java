@@ -0,0 +1,146 @@
+package voldemort.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.mail.BodyPart;
+import javax.mail.internet.MimeMultipart;
+import javax.mail.util.ByteArrayDataSource;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.HttpResponseStatus;
+
+import voldemort.store.CompositePutAllVoldemortRequest;
+import voldemort.store.CompositeVoldemortRequest;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+/**
+ * This class is used to parse an incoming batched put request. The request is
+ * a POST on /<store_name> with a multipart body. Each body part carries the
+ * value of one key, the key itself in the Content-Location header (formatted
+ * as /<store_name>/<key>) and optionally the vector clock in the
+ * X-VOLD-Vector-Clock header.
+ */
+public class RestPutAllRequestValidator extends RestRequestValidator {
+
+    private final boolean isVectorClockOptional;
+    private Map<ByteArray, Versioned<byte[]>> parsedEntries;
+
+    public RestPutAllRequestValidator(HttpRequest request,
+                                      MessageEvent messageEvent,
+                                      boolean isVectorClockOptional) {
+        super(request, messageEvent);
+        this.isVectorClockOptional = isVectorClockOptional;
+    }
+
+    /**
+     * @return true if the request is a POST of a multipart body on the store
+     *         itself, rather than on a single key
+     */
+    public static boolean isPutAllRequest(HttpRequest request) {
+        String contentType = request.getHeader(RestMessageHeaders.CONTENT_TYPE);
+        return request.getUri().split("/").length == 2 && contentType != null
+               && contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    @Override
+    public CompositeVoldemortRequest<ByteArray, byte[]> constructCompositeVoldemortRequestObject() {
+        if(parseAndValidateRequest() && parseEntries()) {
+            return new CompositePutAllVoldemortRequest<ByteArray, byte[]>(this.parsedEntries,
+                                                                          this.parsedTimeoutInMs,
+                                                                          this.parsedRequestOriginTimeInMs,
+                                                                          this.parsedRoutingType);
+        }
+        // Return null if request is not valid
+        return null;
+    }
+
+    /**
+     * Validations specific to batched PUT. The keys come with the body, not
+     * with the URI.
+     */
+    @Override
+    protected boolean parseAndValidateRequest() {
+        if(!hasTimeOutHeader() || !hasTimeStampHeader() || !isStoreValid()) {
+            return false;
+        }
+
+        // Retrieve the routing code from the header
+        parseRoutingCodeHeader();
+
+        return true;
+    }
+
+    /**
+     * Retrieve the keys, values and vector clocks from the multipart body.
+     * 
+     * @return true if every body part is valid
+     */
+    private boolean parseEntries() {
+        ChannelBuffer content = this.request.getContent();
+        byte[] body = new byte[content.readableBytes()];
+        content.readBytes(body);
+
+        this.parsedEntries = new LinkedHashMap<ByteArray, Versioned<byte[]>>();
+        try {
+            MimeMultipart multiPart = new MimeMultipart(new ByteArrayDataSource(body,
+                                                                                "multipart/mixed"));
+            for(int i = 0; i < multiPart.getCount(); i++) {
+                BodyPart part = multiPart.getBodyPart(i);
+
+                String[] contentLocation = part.getHeader(RestMessageHeaders.CONTENT_LOCATION);
+                if(contentLocation == null || contentLocation.length == 0) {
+                    return writeBadRequest("Missing Content-Location header in body part " + i);
+                }
+                // Base64 keys may contain '/', so take everything past the
+                // store name
+                String keyPrefix = "/" + this.storeName + "/";
+                if(!contentLocation[0].startsWith(keyPrefix)
+                   || contentLocation[0].length() == keyPrefix.length()) {
+                    return writeBadRequest("Invalid Content-Location header in body part " + i
+                                           + ": " + contentLocation[0]);
+                }
+                String rawKey = contentLocation[0].substring(keyPrefix.length()).trim();
+                ByteArray key = new ByteArray(Base64.decodeBase64(rawKey.getBytes()));
+
+                VectorClock vectorClock = null;
+                String[] vectorClockHeader = part.getHeader(RestMessageHeaders.X_VOLD_VECTOR_CLOCK);
+                if(vectorClockHeader != null && vectorClockHeader.length > 0) {
+                    vectorClock = RestUtils.deserializeVectorClock(vectorClockHeader[0]);
+                    if(vectorClock == null) {
+                        return writeBadRequest("Invalid Vector Clock in body part " + i);
+                    }
+                } else if(!this.isVectorClockOptional) {
+                    return writeBadRequest("Missing Vector Clock in body part " + i);
+                }
+
+                byte[] value = IOUtils.toByteArray(part.getInputStream());
+                if(this.parsedEntries.put(key, new Versioned<byte[]>(value, vectorClock)) != null) {
+                    return writeBadRequest("Duplicate key in body part " + i);
+                }
+            }
+        } catch(Exception e) {
+            logger.error("Exception when parsing the batched put request body", e);
+            return writeBadRequest("Invalid multipart body: " + e.getMessage());
+        }
+
+        if(this.parsedEntries.isEmpty()) {
+            return writeBadRequest("No key specified !");
+        }
+        return true;
+    }
+
+    private boolean writeBadRequest(String errorMessage) {
+        logger.error("Error when validating batched put request. " + errorMessage);
+        RestErrorHandler.writeErrorResponse(this.messageEvent,
+                                            HttpResponseStatus.BAD_REQUEST,
+                                            errorMessage);
+        return false;
+    }
+}
@@ -65,4 +65,24 @@ public class RestPutErrorHandler extends RestErrorHandler {
             super.handleExceptions(messageEvent, exception);
         }
     }
+
+    /**
+     * Maps an exception thrown by one of the puts of a batched put to the
+     * status reported for that key. Mirrors {@link #handleExceptions}
+     */
+    public static HttpResponseStatus getResponseStatus(Exception exception) {
+        if(exception instanceof InvalidMetadataException) {
+            return HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
+        } else if(exception instanceof ProxyUnreachableException) {
+            return HttpResponseStatus.SERVICE_UNAVAILABLE;
+        } else if(exception instanceof VoldemortUnsupportedOperationalException) {
+            return HttpResponseStatus.METHOD_NOT_ALLOWED;
+        } else if(exception instanceof ObsoleteVersionException) {
+            return HttpResponseStatus.PRECONDITION_FAILED;
+        } else if(exception instanceof StoreTimeoutException) {
+            return HttpResponseStatus.REQUEST_TIMEOUT;
+        } else {
+            return HttpResponseStatus.INTERNAL_SERVER_ERROR;
+        }
+    }
 }
@@ -40,6 +40,10 @@ public class CoordinatorConfig {
     private volatile int coordinatorCoreThreads = 100;
     private volatile int coordinatorMaxThreads = 200;
     private volatile int numCoordinatorQueuedRequests = 1000;
+    private volatile int maxInflightRequestsPerStore = 500;
+    private volatile int backpressureRetryAfterSeconds = 1;
+    private volatile int getAllChunkSize = 100;
+    private volatile int putAllFanoutThreads = 20;
 
     /* Propery names for propery-based configuration */
     public static final String BOOTSTRAP_URLS_PROPERTY = "bootstrap_urls";
@@ -50,6 +54,10 @@ public class CoordinatorConfig {
     public static final String COORDINATOR_CORE_THREADS = "num_coordinator_core_threads";
     public static final String COORDINATOR_MAX_THREADS = "num_coordinator_max_threads";
     public static final String COORDINATOR_QUEUED_REQUESTS = "num_coordinator_queued_requests";
+    public static final String MAX_INFLIGHT_REQUESTS_PER_STORE = "max_inflight_requests_per_store";
+    public static final String BACKPRESSURE_RETRY_AFTER_SECONDS = "backpressure_retry_after_seconds";
+    public static final String GET_ALL_CHUNK_SIZE = "get_all_chunk_size";
+    public static final String PUT_ALL_FANOUT_THREADS = "num_put_all_fanout_threads";
 
     /**
      * Instantiate the coordinator config using a properties file
@@ -130,6 +138,24 @@ public class CoordinatorConfig {
                                                           this.numCoordinatorQueuedRequests));
         }
 
+        if(props.containsKey(MAX_INFLIGHT_REQUESTS_PER_STORE)) {
+            setMaxInflightRequestsPerStore(props.getInt(MAX_INFLIGHT_REQUESTS_PER_STORE,
+                                                        this.maxInflightRequestsPerStore));
+        }
+
+        if(props.containsKey(BACKPRESSURE_RETRY_AFTER_SECONDS)) {
+            setBackpressureRetryAfterSeconds(props.getInt(BACKPRESSURE_RETRY_AFTER_SECONDS,
+                                                          this.backpressureRetryAfterSeconds));
+        }
+
+        if(props.containsKey(GET_ALL_CHUNK_SIZE)) {
+            setGetAllChunkSize(props.getInt(GET_ALL_CHUNK_SIZE, this.getAllChunkSize));
+        }
+
+        if(props.containsKey(PUT_ALL_FANOUT_THREADS)) {
+            setPutAllFanoutThreads(props.getInt(PUT_ALL_FANOUT_THREADS, this.putAllFanoutThreads));
+        }
+
     }
 
     public String[] getBootstrapURLs() {
@@ -240,4 +266,56 @@ public class CoordinatorConfig {
         this.numCoordinatorQueuedRequests = coordinatorQueuedRequestsSize;
     }
 
+    public int getMaxInflightRequestsPerStore() {
+        return maxInflightRequestsPerStore;
+    }
+
+    /**
+     * @param maxInflightRequestsPerStore Defines the max # requests per store
+     *        that can be accepted but not yet answered. Requests beyond this
+     *        limit are rejected with a 503 (Service Unavailable) response
+     */
+    public void setMaxInflightRequestsPerStore(int maxInflightRequestsPerStore) {
+        this.maxInflightRequestsPerStore = maxInflightRequestsPerStore;
+    }
+
+    public int getBackpressureRetryAfterSeconds() {
+        return backpressureRetryAfterSeconds;
+    }
+
+    /**
+     * @param backpressureRetryAfterSeconds Defines the value of the
+     *        Retry-After header sent along with a 503 (Service Unavailable)
+     *        response
+     */
+    public void setBackpressureRetryAfterSeconds(int backpressureRetryAfterSeconds) {
+        this.backpressureRetryAfterSeconds = backpressureRetryAfterSeconds;
+    }
+
+    public int getGetAllChunkSize() {
+        return getAllChunkSize;
+    }
+
+    /**
+     * @param getAllChunkSize Defines the max # keys fetched and written out
+     *        at a time while streaming a get all response. This bounds the
+     *        memory used by a single get all request
+     */
+    public void setGetAllChunkSize(int getAllChunkSize) {
+        this.getAllChunkSize = getAllChunkSize;
+    }
+
+    public int getPutAllFanoutThreads() {
+        return putAllFanoutThreads;
+    }
+
+    /**
+     * @param putAllFanoutThreads Defines the # threads shared by all the
+     *        batched put requests to write the per node groups of keys in
+     *        parallel
+     */
+    public void setPutAllFanoutThreads(int putAllFanoutThreads) {
+        this.putAllFanoutThreads = putAllFanoutThreads;
+    }
+
 }
@@ -1,34 +1,100 @@
 package voldemort.rest.coordinator;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.jboss.netty.channel.ChannelEvent;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.execution.ExecutionHandler;
 
+import voldemort.rest.RestErrorHandler;
 import voldemort.store.stats.StoreStats;
 
 public class CoordinatorExecutionHandler extends ExecutionHandler {
 
     private final CoordinatorMetadata coordinatorMetadata;
     private final StoreStats coordinatorPerfStats;
+    private final int retryAfterSeconds;
+    private final int getAllChunkSize;
+    private final ExecutorService putAllExecutor;
 
     public CoordinatorExecutionHandler(Executor executor,
                                        CoordinatorMetadata coordinatorMetadata,
                                        StoreStats coordinatorPerfStats) {
+        this(executor, coordinatorMetadata, coordinatorPerfStats, 0);
+    }
+
+    /**
+     * @param retryAfterSeconds Retry hint sent to clients whose request was
+     *        rejected because the worker pool is saturated
+     */
+    public CoordinatorExecutionHandler(Executor executor,
+                                       CoordinatorMetadata coordinatorMetadata,
+                                       StoreStats coordinatorPerfStats,
+                                       int retryAfterSeconds) {
+        this(executor,
+             coordinatorMetadata,
+             coordinatorPerfStats,
+             retryAfterSeconds,
+             Integer.MAX_VALUE,
+             null);
+    }
+
+    /**
+     * @param getAllChunkSize Max # keys fetched and written out at a time
+     *        while streaming a get all response
+     * @param putAllExecutor Executor used to write the per node groups of a
+     *        batched put in parallel. The store operations of the other
+     *        requests run on the handler's executor
+     */
+    public CoordinatorExecutionHandler(Executor executor,
+                                       CoordinatorMetadata coordinatorMetadata,
+                                       StoreStats coordinatorPerfStats,
+                                       int retryAfterSeconds,
+                                       int getAllChunkSize,
+                                       ExecutorService putAllExecutor) {
         super(executor);
         this.coordinatorMetadata = coordinatorMetadata;
         this.coordinatorPerfStats = coordinatorPerfStats;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.getAllChunkSize = getAllChunkSize;
+        this.putAllExecutor = putAllExecutor;
     }
 
+    /**
+     * Submits the store operation of the request to the executor and returns
+     * right away. The response is written from the completion callback of
+     * the operation, so no thread waits on the request in the meantime.
+     */
     @Override
     public void handleUpstream(ChannelHandlerContext context, ChannelEvent channelEvent)
             throws Exception {
         if(channelEvent instanceof MessageEvent) {
-            getExecutor().execute(new CoordinatorWorkerThread((MessageEvent) channelEvent,
-                                                              this.coordinatorMetadata,
-                                                              this.coordinatorPerfStats));
+            MessageEvent messageEvent = (MessageEvent) channelEvent;
+            CoordinatorWorkerThread worker = new CoordinatorWorkerThread(messageEvent,
+                                                                         this.coordinatorMetadata,
+                                                                         this.coordinatorPerfStats,
+                                                                         this.getAllChunkSize,
+                                                                         getExecutor(),
+                                                                         this.putAllExecutor);
+            try {
+                worker.run();
+            } catch(RejectedExecutionException e) {
+                // The bounded worker queue is full. Answer right away rather
+                // than letting the request wait.
+                completeRequest(messageEvent);
+                RestErrorHandler.writeServiceUnavailableResponse(messageEvent,
+                                                                 "Coordinator is overloaded",
+                                                                 retryAfterSeconds);
+            }
+        }
+    }
+
+    private void completeRequest(MessageEvent messageEvent) {
+        if(messageEvent.getMessage() instanceof CoordinatorStoreClientRequest) {
+            ((CoordinatorStoreClientRequest) messageEvent.getMessage()).complete();
         }
     }
 
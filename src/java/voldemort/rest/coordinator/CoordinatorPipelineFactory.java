@@ -19,6 +19,8 @@ package voldemort.rest.coordinator;
 import static org.jboss.netty.channel.Channels.pipeline;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -50,16 +52,35 @@ public class CoordinatorPipelineFactory implements ChannelPipelineFactory {
 
     ThreadFactory threadFactory = new DaemonThreadFactory("Voldemort-Coordinator-Thread");
     private final ThreadPoolExecutor threadPoolExecutor;
+    private final ExecutorService putAllExecutor;
     private final CoordinatorExecutionHandler coordinatorExecutionHandler;
     private final CoordinatorMetadata coordinatorMetadata;
     private final NettyConnectionStatsHandler connectionStatsHandler;
+    private final InflightRequestLimiter inflightRequestLimiter;
+    private final int retryAfterSeconds;
 
     public CoordinatorPipelineFactory(Map<String, DynamicTimeoutStoreClient<ByteArray, byte[]>> fatClientMap,
                                       CoordinatorMetadata coordinatorMetadata,
                                       CoordinatorConfig coordinatorConfig,
                                       StoreStats coordinatorPerfStats,
                                       NettyConnectionStats connectionStats) {
+        this(fatClientMap,
+             coordinatorMetadata,
+             coordinatorConfig,
+             coordinatorPerfStats,
+             connectionStats,
+             new InflightRequestLimiter(coordinatorConfig.getMaxInflightRequestsPerStore()));
+    }
+
+    public CoordinatorPipelineFactory(Map<String, DynamicTimeoutStoreClient<ByteArray, byte[]>> fatClientMap,
+                                      CoordinatorMetadata coordinatorMetadata,
+                                      CoordinatorConfig coordinatorConfig,
+                                      StoreStats coordinatorPerfStats,
+                                      NettyConnectionStats connectionStats,
+                                      InflightRequestLimiter inflightRequestLimiter) {
         this.fatClientMap = fatClientMap;
+        this.inflightRequestLimiter = inflightRequestLimiter;
+        this.retryAfterSeconds = coordinatorConfig.getBackpressureRetryAfterSeconds();
         this.coordinatorPerfStats = coordinatorPerfStats;
 
         this.threadPoolExecutor = new ThreadPoolExecutor(coordinatorConfig.getCoordinatorCoreThreads(),
@@ -69,9 +90,14 @@ public class CoordinatorPipelineFactory implements ChannelPipelineFactory {
                                                          new LinkedBlockingQueue<Runnable>(coordinatorConfig.getCoordinatorQueuedRequestsSize()),
                                                          threadFactory);
         this.coordinatorMetadata = coordinatorMetadata;
+        this.putAllExecutor = Executors.newFixedThreadPool(coordinatorConfig.getPutAllFanoutThreads(),
+                                                           new DaemonThreadFactory("Voldemort-Coordinator-PutAll-Thread"));
         coordinatorExecutionHandler = new CoordinatorExecutionHandler(threadPoolExecutor,
                                                                       this.coordinatorMetadata,
-                                                                      this.coordinatorPerfStats);
+                                                                      this.coordinatorPerfStats,
+                                                                      this.retryAfterSeconds,
+                                                                      coordinatorConfig.getGetAllChunkSize(),
+                                                                      this.putAllExecutor);
 
         this.connectionStatsHandler = new NettyConnectionStatsHandler(connectionStats);
     }
@@ -86,8 +112,17 @@ public class CoordinatorPipelineFactory implements ChannelPipelineFactory {
         pipeline.addLast("aggregator", new HttpChunkAggregator(1048576));
         pipeline.addLast("encoder", new HttpResponseEncoder());
         pipeline.addLast("deflater", new HttpContentCompressor());
-        pipeline.addLast("handler", new RestCoordinatorRequestHandler(fatClientMap));
+        pipeline.addLast("handler", new RestCoordinatorRequestHandler(fatClientMap,
+                                                                      inflightRequestLimiter,
+                                                                      retryAfterSeconds));
         pipeline.addLast("coordinatorExecutionHandler", coordinatorExecutionHandler);
         return pipeline;
     }
+
+    /**
+     * Stops the threads writing the per node groups of put all requests
+     */
+    public void close() {
+        putAllExecutor.shutdown();
+    }
 }
@@ -88,8 +88,10 @@ public class CoordinatorService extends AbstractService {
     protected ThreadPoolExecutor workerPool = null;
     private final StoreStats coordinatorPerfStats;
     private final NettyConnectionStats connectionStats;
+    private final InflightRequestLimiter inflightRequestLimiter;
     private ServerBootstrap bootstrap = null;
     private Channel nettyServerChannel = null;
+    private CoordinatorPipelineFactory pipelineFactory = null;
 
     public CoordinatorService(CoordinatorConfig config) {
         super(ServiceType.COORDINATOR);
@@ -97,6 +99,7 @@ public class CoordinatorService extends AbstractService {
         this.coordinatorPerfStats = new StoreStats();
         this.coordinatorMetadata = new CoordinatorMetadata();
         this.connectionStats = new NettyConnectionStats();
+        this.inflightRequestLimiter = new InflightRequestLimiter(config.getMaxInflightRequestsPerStore());
     }
 
     /**
@@ -190,11 +193,13 @@ public class CoordinatorService extends AbstractService {
         this.bootstrap.setOption("child.reuseAddress", true);
 
         // Set up the event pipeline factory.
-        this.bootstrap.setPipelineFactory(new CoordinatorPipelineFactory(this.fatClientMap,
-                                                                         this.coordinatorMetadata,
-                                                                         this.coordinatorConfig,
-                                                                         this.coordinatorPerfStats,
-                                                                         this.connectionStats));
+        this.pipelineFactory = new CoordinatorPipelineFactory(this.fatClientMap,
+                                                              this.coordinatorMetadata,
+                                                              this.coordinatorConfig,
+                                                              this.coordinatorPerfStats,
+                                                              this.connectionStats,
+                                                              this.inflightRequestLimiter);
+        this.bootstrap.setPipelineFactory(this.pipelineFactory);
 
         // Assuming JMX is always enabled for Coordinator Service
         JmxUtils.registerMbean(this,
@@ -284,6 +289,10 @@ public class CoordinatorService extends AbstractService {
             this.nettyServerChannel.close();
         }
 
+        if(this.pipelineFactory != null) {
+            this.pipelineFactory.close();
+        }
+
         JmxUtils.unregisterMbean(JmxUtils.createObjectName(JmxUtils.getPackageName(this.getClass()),
                                                            JmxUtils.getClassName(this.getClass())));
     }
@@ -335,6 +344,16 @@ public class CoordinatorService extends AbstractService {
         return this.workerPool.getQueue().size();
     }
 
+    @JmxGetter(name = "numberOfInflightRequests", description = "The number of accepted requests, across all stores, that have not been answered yet.")
+    public int getNumberOfInflightRequests() {
+        return this.inflightRequestLimiter.getInflightRequests();
+    }
+
+    @JmxGetter(name = "numberOfRejectedRequests", description = "The number of requests rejected with a 503 because too many requests were in flight for their store.")
+    public long getNumberOfRejectedRequests() {
+        return this.inflightRequestLimiter.getNumRejectedRequests();
+    }
+
     @JmxGetter(name = "averageGetCompletionTimeInMs", description = "The avg. time in ms for GET calls to complete.")
     public double getAverageGetCompletionTimeInMs() {
         return this.coordinatorPerfStats.getAvgTimeInMs(Tracked.GET);
@@ -1,5 +1,7 @@
 package voldemort.rest.coordinator;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import voldemort.store.CompositeVoldemortRequest;
 import voldemort.utils.ByteArray;
 
@@ -7,11 +9,25 @@ public class CoordinatorStoreClientRequest {
 
     private final CompositeVoldemortRequest<ByteArray, byte[]> requestObject;
     private final DynamicTimeoutStoreClient<ByteArray, byte[]> storeClient;
+    private final InflightRequestLimiter inflightRequestLimiter;
+    private final AtomicBoolean completed = new AtomicBoolean(false);
 
     public CoordinatorStoreClientRequest(CompositeVoldemortRequest<ByteArray, byte[]> requestObject,
                                          DynamicTimeoutStoreClient<ByteArray, byte[]> storeClient) {
+        this(requestObject, storeClient, null);
+    }
+
+    /**
+     * @param inflightRequestLimiter Limiter that admitted this request. The
+     *        request gives its slot back when it completes. Null if the
+     *        request was not subject to the limiter.
+     */
+    public CoordinatorStoreClientRequest(CompositeVoldemortRequest<ByteArray, byte[]> requestObject,
+                                         DynamicTimeoutStoreClient<ByteArray, byte[]> storeClient,
+                                         InflightRequestLimiter inflightRequestLimiter) {
         this.requestObject = requestObject;
         this.storeClient = storeClient;
+        this.inflightRequestLimiter = inflightRequestLimiter;
     }
 
     public CompositeVoldemortRequest<ByteArray, byte[]> getRequestObject() {
@@ -22,4 +38,15 @@ public class CoordinatorStoreClientRequest {
         return storeClient;
     }
 
+    /**
+     * Marks the request as answered, releasing its in-flight slot. Safe to
+     * call more than once.
+     */
+    public void complete() {
+        if(inflightRequestLimiter != null && storeClient != null
+           && completed.compareAndSet(false, true)) {
+            inflightRequestLimiter.release(storeClient.getStoreName());
+        }
+    }
+
 }
@@ -4,8 +4,13 @@ import static org.jboss.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.REQUEST_TIMEOUT;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.jboss.netty.channel.MessageEvent;
@@ -15,15 +20,21 @@ import voldemort.rest.DeleteResponseSender;
 import voldemort.rest.GetAllResponseSender;
 import voldemort.rest.GetMetadataResponseSender;
 import voldemort.rest.GetResponseSender;
+import voldemort.rest.PutAllResponseSender;
 import voldemort.rest.PutResponseSender;
 import voldemort.rest.RestDeleteErrorHandler;
 import voldemort.rest.RestErrorHandler;
 import voldemort.rest.RestGetErrorHandler;
-import voldemort.rest.RestGetVersionErrorHandler;
 import voldemort.rest.RestPutErrorHandler;
 import voldemort.rest.RestUtils;
+import voldemort.store.CompositeGetAllVoldemortRequest;
+import voldemort.store.CompositePutAllVoldemortRequest;
+import voldemort.store.CompositePutVoldemortRequest;
+import voldemort.store.CompositeVersionedPutVoldemortRequest;
 import voldemort.store.CompositeVoldemortRequest;
 import voldemort.store.StoreDefinition;
+import voldemort.store.StoreTimeoutException;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
 import voldemort.store.stats.StoreStats;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
@@ -31,310 +42,585 @@ import voldemort.utils.StoreDefinitionUtils;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Lists;
+
+/**
+ * Issues the store operation of a coordinator request without waiting for it.
+ * The operation runs on the store executor and the HTTP response is written
+ * from its completion callback, which also marks the request as answered.
+ */
 public class CoordinatorWorkerThread implements Runnable {
 
     private final static RestGetErrorHandler getErrorHandler = new RestGetErrorHandler();
-    private final static RestGetVersionErrorHandler getVersionErrorHandler = new RestGetVersionErrorHandler();
     private final static RestPutErrorHandler putErrorHandler = new RestPutErrorHandler();
     private final static RestDeleteErrorHandler deleteErrorHandler = new RestDeleteErrorHandler();
 
+    /**
+     * Runs the store operations on the calling thread, for callers that do not
+     * hand over an executor
+     */
+    private final static Executor CALLER_EXECUTOR = new Executor() {
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
     private MessageEvent messageEvent;
+    private CoordinatorStoreClientRequest storeClientRequestObject = null;
     CompositeVoldemortRequest<ByteArray, byte[]> requestObject;
     private DynamicTimeoutStoreClient<ByteArray, byte[]> storeClient = null;
     private final CoordinatorMetadata coordinatorMetadata;
     private final Logger logger = Logger.getLogger(getClass());
     private final StoreStats coordinatorPerfStats;
+    private final int getAllChunkSize;
+    private final Executor storeExecutor;
+    private final Executor putAllExecutor;
 
     public CoordinatorWorkerThread(MessageEvent channelEvent,
                                    CoordinatorMetadata coordinatorMetadata,
                                    StoreStats coordinatorPerfStats) {
+        this(channelEvent, coordinatorMetadata, coordinatorPerfStats, Integer.MAX_VALUE, null, null);
+    }
+
+    /**
+     * @param getAllChunkSize Max # keys fetched and written out at a time
+     *        while streaming a get all response
+     * @param storeExecutor Executor the store operations run on. They run on
+     *        the calling thread if null
+     * @param putAllExecutor Executor used to write the per node groups of a
+     *        batched put in parallel. The store executor is used if null
+     */
+    public CoordinatorWorkerThread(MessageEvent channelEvent,
+                                   CoordinatorMetadata coordinatorMetadata,
+                                   StoreStats coordinatorPerfStats,
+                                   int getAllChunkSize,
+                                   Executor storeExecutor,
+                                   Executor putAllExecutor) {
         this.messageEvent = channelEvent;
         this.coordinatorMetadata = coordinatorMetadata;
         this.coordinatorPerfStats = coordinatorPerfStats;
+        this.getAllChunkSize = getAllChunkSize;
+        this.storeExecutor = storeExecutor == null ? CALLER_EXECUTOR : storeExecutor;
+        this.putAllExecutor = putAllExecutor == null ? this.storeExecutor : putAllExecutor;
     }
 
+    /**
+     * Submits the store operation of the request and returns right away.
+     *
+     * @throws RejectedExecutionException if the store executor cannot take the
+     *         operation. Nothing has been written out in that case and the
+     *         request is still to be answered by the caller
+     */
     @Override
     // TODO: Add perf stats in the next iteration
     public void run() {
         Object message = messageEvent.getMessage();
         if(message instanceof CoordinatorStoreClientRequest) {
-            CoordinatorStoreClientRequest storeClientRequestObject = (CoordinatorStoreClientRequest) message;
+            this.storeClientRequestObject = (CoordinatorStoreClientRequest) message;
             this.requestObject = storeClientRequestObject.getRequestObject();
             this.storeClient = storeClientRequestObject.getStoreClient();
 
             // This shouldn't ideally happen.
-            if(this.requestObject != null) {
-
-                switch(requestObject.getOperationType()) {
-                    case VoldemortOpCode.GET_METADATA_OP_CODE:
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("GET Metadata request received.");
-                        }
-
-                        try {
-
-                            String queryStoreName = ByteUtils.getString(this.requestObject.getKey()
-                                                                                          .get(),
-                                                                        "UTF-8");
-                            StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(this.coordinatorMetadata.getStoresDefs(),
-                                                                                                       queryStoreName);
-                            String serializerInfoXml = RestUtils.constructSerializerInfoXml(storeDef);
-                            GetMetadataResponseSender metadataResponseSender = new GetMetadataResponseSender(messageEvent,
-                                                                                                             serializerInfoXml.getBytes());
-
-                            metadataResponseSender.sendResponse(this.coordinatorPerfStats,
-                                                                true,
-                                                                this.requestObject.getRequestOriginTimeInMs());
-                            if(logger.isDebugEnabled()) {
-                                logger.debug("GET Metadata successful !");
-                            }
-                        } catch(Exception e) {
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "GET METADATA request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            getErrorHandler.handleExceptions(messageEvent, e);
-                        }
-                        break;
-
-                    case VoldemortOpCode.GET_OP_CODE:
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("GET request received.");
-                        }
-
-                        try {
-                            boolean keyExists = false;
-                            List<Versioned<byte[]>> versionedValues = this.storeClient.getWithCustomTimeout(this.requestObject);
-                            if(versionedValues == null || versionedValues.size() == 0) {
-                                if(this.requestObject.getValue() != null) {
-                                    if(versionedValues == null) {
-                                        versionedValues = new ArrayList<Versioned<byte[]>>();
-                                    }
-                                    versionedValues.add(this.requestObject.getValue());
-                                    keyExists = true;
-
-                                }
-                            } else {
-                                keyExists = true;
-                            }
-
-                            if(keyExists) {
-                                GetResponseSender responseConstructor = new GetResponseSender(messageEvent,
-                                                                                              requestObject.getKey(),
-                                                                                              versionedValues,
-                                                                                              this.storeClient.getStoreName());
-                                responseConstructor.sendResponse(this.coordinatorPerfStats,
-                                                                 true,
-                                                                 this.requestObject.getRequestOriginTimeInMs());
-                                if(logger.isDebugEnabled()) {
-                                    logger.debug("GET successful !");
-                                }
-
-                            } else {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    NOT_FOUND,
-                                                                    "Requested Key does not exist");
-                            }
-
-                        } catch(Exception e) {
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "GET request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            getErrorHandler.handleExceptions(messageEvent, e);
-                        }
-                        break;
-
-                    case VoldemortOpCode.GET_ALL_OP_CODE:
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("GET ALL request received.");
-                        }
-
-                        try {
-                            Map<ByteArray, List<Versioned<byte[]>>> versionedResponses = this.storeClient.getAllWithCustomTimeout(this.requestObject);
-                            if(versionedResponses == null
-                               || versionedResponses.values().size() == 0) {
-                                logger.error("Error when doing getall. Keys do not exist.");
-
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    NOT_FOUND,
-                                                                    "Error when doing getall. Keys do not exist.");
-                            } else {
-                                GetAllResponseSender responseConstructor = new GetAllResponseSender(messageEvent,
-                                                                                                    versionedResponses,
-                                                                                                    this.storeClient.getStoreName());
-                                responseConstructor.sendResponse(this.coordinatorPerfStats,
-                                                                 true,
-                                                                 this.requestObject.getRequestOriginTimeInMs());
-
-                                if(logger.isDebugEnabled()) {
-                                    logger.debug("GET ALL successful !");
-                                }
-
-                            }
-
-                        } catch(Exception e) {
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "GET ALL request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            getErrorHandler.handleExceptions(messageEvent, e);
-                        }
-                        break;
-
-                    // TODO: Implement this in the next pass
-                    case VoldemortOpCode.GET_VERSION_OP_CODE:
-
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("Incoming get version request");
-                        }
-
-                        try {
-
-                            if(logger.isDebugEnabled()) {
-                                logger.debug("GET versions request successful !");
-                            }
-
-                        } catch(Exception e) {
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "GET VERSION request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            getVersionErrorHandler.handleExceptions(messageEvent, e);
-                        }
-                        break;
-
-                    case VoldemortOpCode.PUT_OP_CODE:
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("PUT request received.");
-                        }
-
-                        try {
-                            VectorClock successfulPutVC = null;
-
-                            if(this.requestObject.getValue() != null) {
-                                successfulPutVC = ((VectorClock) this.storeClient.putVersionedWithCustomTimeout(this.requestObject)).clone();
-                            } else {
-                                successfulPutVC = ((VectorClock) this.storeClient.putWithCustomTimeout(this.requestObject)).clone();
-                            }
-
-                            PutResponseSender responseConstructor = new PutResponseSender(messageEvent,
-                                                                                          successfulPutVC);
-                            responseConstructor.sendResponse(this.coordinatorPerfStats,
-                                                             true,
-                                                             this.requestObject.getRequestOriginTimeInMs());
-
-                            if(logger.isDebugEnabled()) {
-                                logger.debug("PUT successful !");
-                            }
-
-                        } catch(Exception e) {
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "PUT request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            putErrorHandler.handleExceptions(messageEvent, e);
-                        }
-
-                        break;
-
-                    case VoldemortOpCode.DELETE_OP_CODE:
-                        if(logger.isDebugEnabled()) {
-                            logger.debug("Incoming delete request");
-                        }
-
-                        try {
-                            boolean isDeleted = this.storeClient.deleteWithCustomTimeout(this.requestObject);
-                            if(isDeleted) {
-                                DeleteResponseSender responseConstructor = new DeleteResponseSender(messageEvent);
-                                responseConstructor.sendResponse(this.coordinatorPerfStats,
-                                                                 true,
-                                                                 this.requestObject.getRequestOriginTimeInMs());
-
-                                if(logger.isDebugEnabled()) {
-                                    logger.debug("DELETE request successful !");
-                                }
-
-                            } else {
-                                logger.error("Requested Key with the specified version does not exist");
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    NOT_FOUND,
-                                                                    "Requested Key with the specified version does not exist");
-                            }
-
-                        } catch(Exception e) {
-
-                            /*
-                             * We might get InsufficientOperationalNodes
-                             * exception due to a timeout, thus creating
-                             * confusion in the root cause. Hence explicitly
-                             * check for timeout.
-                             */
-                            if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
-                                RestErrorHandler.writeErrorResponse(this.messageEvent,
-                                                                    REQUEST_TIMEOUT,
-                                                                    "DELETE request timed out: "
-                                                                            + e.getMessage());
-                            }
-
-                            deleteErrorHandler.handleExceptions(messageEvent, e);
-                        }
-                        break;
-
-                    default:
-                        System.err.println("Illegal operation.");
-                        return;
+            if(this.requestObject == null) {
+                complete();
+                return;
+            }
+
+            switch(requestObject.getOperationType()) {
+                case VoldemortOpCode.GET_METADATA_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("GET Metadata request received.");
+                    }
+
+                    try {
+                        getMetadata();
+                    } finally {
+                        complete();
+                    }
+                    break;
+
+                case VoldemortOpCode.GET_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("GET request received.");
+                    }
+
+                    this.storeClient.submitGetRequest(this.requestObject,
+                                                      this.storeExecutor,
+                                                      new GetCallback());
+                    break;
+
+                case VoldemortOpCode.GET_ALL_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("GET ALL request received.");
+                    }
+
+                    GetAllCallback getAllCallback = new GetAllCallback();
+                    try {
+                        getAllCallback.submitNextChunk();
+                    } catch(StoreTimeoutException e) {
+                        getAllCallback.requestComplete(e, 0);
+                    }
+                    break;
+
+                // TODO: Implement this in the next pass
+                case VoldemortOpCode.GET_VERSION_OP_CODE:
+
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("Incoming get version request");
+                    }
+                    complete();
+                    break;
+
+                case VoldemortOpCode.PUT_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("PUT request received.");
+                    }
+
+                    this.storeClient.submitPutRequest(this.requestObject,
+                                                      this.storeExecutor,
+                                                      new PutCallback());
+                    break;
+
+                case VoldemortOpCode.PUT_ALL_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("PUT ALL request received.");
+                    }
+
+                    putAll((CompositePutAllVoldemortRequest<ByteArray, byte[]>) this.requestObject);
+                    break;
+
+                case VoldemortOpCode.DELETE_OP_CODE:
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("Incoming delete request");
+                    }
+
+                    this.storeClient.submitDeleteRequest(this.requestObject,
+                                                         this.storeExecutor,
+                                                         new DeleteCallback());
+                    break;
+
+                default:
+                    System.err.println("Illegal operation.");
+                    complete();
+                    return;
+
+            }
+
+        }
+
+    }
+
+    private void getMetadata() {
+        try {
+            String queryStoreName = ByteUtils.getString(this.requestObject.getKey().get(), "UTF-8");
+            StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(this.coordinatorMetadata.getStoresDefs(),
+                                                                                       queryStoreName);
+            String serializerInfoXml = RestUtils.constructSerializerInfoXml(storeDef);
+            GetMetadataResponseSender metadataResponseSender = new GetMetadataResponseSender(messageEvent,
+                                                                                             serializerInfoXml.getBytes());
+
+            metadataResponseSender.sendResponse(this.coordinatorPerfStats,
+                                                true,
+                                                this.requestObject.getRequestOriginTimeInMs());
+            if(logger.isDebugEnabled()) {
+                logger.debug("GET Metadata successful !");
+            }
+        } catch(Exception e) {
+            if(!writeTimeoutResponse("GET METADATA", e)) {
+                getErrorHandler.handleExceptions(messageEvent, e);
+            }
+        }
+    }
+
+    /**
+     * We might get InsufficientOperationalNodes exception due to a timeout,
+     * thus creating confusion in the root cause. Hence explicitly check for
+     * timeout.
+     *
+     * @return true if the request timed out and the timeout response was
+     *         written out
+     */
+    private boolean writeTimeoutResponse(String operationName, Exception e) {
+        if(System.currentTimeMillis() >= (this.requestObject.getRequestOriginTimeInMs() + this.requestObject.getRoutingTimeoutInMs())) {
+            RestErrorHandler.writeErrorResponse(this.messageEvent,
+                                                REQUEST_TIMEOUT,
+                                                operationName + " request timed out: "
+                                                        + e.getMessage());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Marks the request as answered
+     */
+    private void complete() {
+        if(this.storeClientRequestObject != null) {
+            this.storeClientRequestObject.complete();
+        }
+    }
+
+    /**
+     * Writes the response of a single store operation once it completes and
+     * marks the request as answered
+     */
+    private abstract class ResponseCallback implements NonblockingStoreCallback {
+
+        @Override
+        public void requestComplete(Object result, long requestTime) {
+            try {
+                if(result instanceof Exception) {
+                    handleException((Exception) result);
+                } else {
+                    sendResponse(result);
+                }
+            } catch(Exception e) {
+                handleException(e);
+            } finally {
+                complete();
+            }
+        }
+
+        protected abstract void sendResponse(Object result) throws Exception;
+
+        protected abstract void handleException(Exception e);
+    }
+
+    private class GetCallback extends ResponseCallback {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        protected void sendResponse(Object result) throws Exception {
+            boolean keyExists = false;
+            List<Versioned<byte[]>> versionedValues = (List<Versioned<byte[]>>) result;
+            if(versionedValues == null || versionedValues.size() == 0) {
+                if(requestObject.getValue() != null) {
+                    if(versionedValues == null) {
+                        versionedValues = new ArrayList<Versioned<byte[]>>();
+                    }
+                    versionedValues.add(requestObject.getValue());
+                    keyExists = true;
+
+                }
+            } else {
+                keyExists = true;
+            }
+
+            if(keyExists) {
+                GetResponseSender responseConstructor = new GetResponseSender(messageEvent,
+                                                                              requestObject.getKey(),
+                                                                              versionedValues,
+                                                                              storeClient.getStoreName());
+                responseConstructor.sendResponse(coordinatorPerfStats,
+                                                 true,
+                                                 requestObject.getRequestOriginTimeInMs());
+                if(logger.isDebugEnabled()) {
+                    logger.debug("GET successful !");
+                }
+
+            } else {
+                RestErrorHandler.writeErrorResponse(messageEvent,
+                                                    NOT_FOUND,
+                                                    "Requested Key does not exist");
+            }
+        }
+
+        @Override
+        protected void handleException(Exception e) {
+            if(!writeTimeoutResponse("GET", e)) {
+                getErrorHandler.handleExceptions(messageEvent, e);
+            }
+        }
+    }
+
+    private class PutCallback extends ResponseCallback {
+
+        @Override
+        protected void sendResponse(Object result) throws Exception {
+            VectorClock successfulPutVC = ((VectorClock) result).clone();
+            PutResponseSender responseConstructor = new PutResponseSender(messageEvent,
+                                                                          successfulPutVC);
+            responseConstructor.sendResponse(coordinatorPerfStats,
+                                             true,
+                                             requestObject.getRequestOriginTimeInMs());
+
+            if(logger.isDebugEnabled()) {
+                logger.debug("PUT successful !");
+            }
+        }
+
+        @Override
+        protected void handleException(Exception e) {
+            if(!writeTimeoutResponse("PUT", e)) {
+                putErrorHandler.handleExceptions(messageEvent, e);
+            }
+        }
+    }
+
+    private class DeleteCallback extends ResponseCallback {
+
+        @Override
+        protected void sendResponse(Object result) throws Exception {
+            boolean isDeleted = (Boolean) result;
+            if(isDeleted) {
+                DeleteResponseSender responseConstructor = new DeleteResponseSender(messageEvent);
+                responseConstructor.sendResponse(coordinatorPerfStats,
+                                                 true,
+                                                 requestObject.getRequestOriginTimeInMs());
 
+                if(logger.isDebugEnabled()) {
+                    logger.debug("DELETE request successful !");
                 }
 
+            } else {
+                logger.error("Requested Key with the specified version does not exist");
+                RestErrorHandler.writeErrorResponse(messageEvent,
+                                                    NOT_FOUND,
+                                                    "Requested Key with the specified version does not exist");
+            }
+        }
+
+        @Override
+        protected void handleException(Exception e) {
+            if(!writeTimeoutResponse("DELETE", e)) {
+                deleteErrorHandler.handleExceptions(messageEvent, e);
+            }
+        }
+    }
+
+    /**
+     * Fetches the requested keys one chunk at a time and streams each chunk
+     * out as soon as it resolves, so that only one chunk of values is held in
+     * memory. The next chunk is submitted from the completion of the previous
+     * one and gets whatever is left of the request timeout.
+     */
+    private class GetAllCallback implements NonblockingStoreCallback {
+
+        private final List<ByteArray> keys = Lists.newArrayList(requestObject.getIterableKeys());
+        private final long startTimeInMs = System.currentTimeMillis();
+        private int chunkStart = 0;
+        private GetAllResponseSender responseConstructor = null;
+
+        /**
+         * @throws RejectedExecutionException if the store executor cannot take
+         *         the chunk
+         */
+        private void submitNextChunk() {
+            long timeLeft = requestObject.getRoutingTimeoutInMs()
+                            - (System.currentTimeMillis() - startTimeInMs);
+            if(timeLeft <= 0) {
+                throw new StoreTimeoutException("GET ALL request timed out");
             }
+            List<ByteArray> chunkKeys = keys.subList(chunkStart,
+                                                     (int) Math.min(keys.size(),
+                                                                    (long) chunkStart
+                                                                            + getAllChunkSize));
+            CompositeGetAllVoldemortRequest<ByteArray, byte[]> chunkRequest = new CompositeGetAllVoldemortRequest<ByteArray, byte[]>(chunkKeys,
+                                                                                                                                timeLeft,
+                                                                                                                                requestObject.getRequestOriginTimeInMs(),
+                                                                                                                                requestObject.getRoutingType());
+            chunkRequest.setResolveConflicts(requestObject.resolveConflicts());
+            storeClient.submitGetAllRequest(chunkRequest, storeExecutor, this);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void requestComplete(Object result, long requestTime) {
+            boolean submitted = false;
+            try {
+                if(result instanceof Exception) {
+                    throw (Exception) result;
+                }
 
+                Map<ByteArray, List<Versioned<byte[]>>> versionedResponses = (Map<ByteArray, List<Versioned<byte[]>>>) result;
+                if(versionedResponses != null && versionedResponses.size() > 0) {
+                    if(responseConstructor == null) {
+                        responseConstructor = new GetAllResponseSender(messageEvent,
+                                                                       storeClient.getStoreName());
+                    }
+                    responseConstructor.sendResponseChunk(versionedResponses);
+                }
+
+                chunkStart += getAllChunkSize;
+                if(chunkStart < keys.size()) {
+                    submitNextChunk();
+                    submitted = true;
+                } else if(responseConstructor == null) {
+                    logger.error("Error when doing getall. Keys do not exist.");
+
+                    RestErrorHandler.writeErrorResponse(messageEvent,
+                                                        NOT_FOUND,
+                                                        "Error when doing getall. Keys do not exist.");
+                } else {
+                    responseConstructor.sendResponse(coordinatorPerfStats,
+                                                     true,
+                                                     requestObject.getRequestOriginTimeInMs());
+
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("GET ALL successful !");
+                    }
+                }
+            } catch(Exception e) {
+                if(responseConstructor == null) {
+                    if(!writeTimeoutResponse("GET ALL", e)) {
+                        getErrorHandler.handleExceptions(messageEvent, e);
+                    }
+                } else {
+                    // Part of the response is already out, so there is no way
+                    // to send an error response any more
+                    logger.error("GET ALL failed after the response started streaming. Closing the connection.",
+                                 e);
+                    messageEvent.getChannel().close();
+                }
+            } finally {
+                if(!submitted) {
+                    complete();
+                }
+            }
         }
+    }
 
+    /**
+     * Writes the keys of a batched put grouped by master node. Each group is
+     * written sequentially, each put being submitted from the completion of
+     * the previous one, while the groups are written in parallel on the put
+     * all executor. Every put gets whatever is left of the request timeout.
+     * The outcome of each key is sent back in a multipart response once the
+     * last group completes.
+     */
+    private void putAll(CompositePutAllVoldemortRequest<ByteArray, byte[]> putAllRequest) {
+        Map<Integer, List<ByteArray>> keysByNode = new HashMap<Integer, List<ByteArray>>();
+        for(ByteArray key: putAllRequest.getEntries().keySet()) {
+            int nodeId = this.storeClient.getMasterNodeId(key);
+            List<ByteArray> nodeKeys = keysByNode.get(nodeId);
+            if(nodeKeys == null) {
+                nodeKeys = new ArrayList<ByteArray>();
+                keysByNode.put(nodeId, nodeKeys);
+            }
+            nodeKeys.add(key);
+        }
+
+        PutAllState state = new PutAllState(putAllRequest, keysByNode.size());
+        if(keysByNode.isEmpty()) {
+            state.sendResponse();
+            return;
+        }
+        for(List<ByteArray> nodeKeys: keysByNode.values()) {
+            new PutAllGroupCallback(state, nodeKeys).submitNextPut();
+        }
+    }
+
+    /**
+     * Outcome of a batched put, shared by its per node groups
+     */
+    private class PutAllState {
+
+        private final CompositePutAllVoldemortRequest<ByteArray, byte[]> putAllRequest;
+        private final long deadlineInMs;
+        private final Map<ByteArray, VectorClock> successfulPuts = new ConcurrentHashMap<ByteArray, VectorClock>();
+        private final Map<ByteArray, Exception> failedPuts = new ConcurrentHashMap<ByteArray, Exception>();
+        private final AtomicInteger pendingGroups;
+
+        public PutAllState(CompositePutAllVoldemortRequest<ByteArray, byte[]> putAllRequest,
+                           int numGroups) {
+            this.putAllRequest = putAllRequest;
+            this.deadlineInMs = System.currentTimeMillis() + putAllRequest.getRoutingTimeoutInMs();
+            this.pendingGroups = new AtomicInteger(numGroups);
+        }
+
+        public void groupDone() {
+            if(pendingGroups.decrementAndGet() == 0) {
+                sendResponse();
+            }
+        }
+
+        public void sendResponse() {
+            try {
+                PutAllResponseSender responseConstructor = new PutAllResponseSender(messageEvent,
+                                                                                    successfulPuts,
+                                                                                    failedPuts,
+                                                                                    storeClient.getStoreName());
+                responseConstructor.sendResponse(coordinatorPerfStats,
+                                                 true,
+                                                 putAllRequest.getRequestOriginTimeInMs());
+
+                if(logger.isDebugEnabled()) {
+                    logger.debug("PUT ALL successful !");
+                }
+            } catch(Exception e) {
+                putErrorHandler.handleExceptions(messageEvent, e);
+            } finally {
+                complete();
+            }
+        }
+    }
+
+    /**
+     * Writes the keys of a batched put that belong to one node
+     */
+    private class PutAllGroupCallback implements NonblockingStoreCallback {
+
+        private final PutAllState state;
+        private final List<ByteArray> keys;
+        private int nextKeyIndex = 0;
+        private ByteArray currentKey = null;
+
+        public PutAllGroupCallback(PutAllState state, List<ByteArray> keys) {
+            this.state = state;
+            this.keys = keys;
+        }
+
+        /**
+         * Submits the put of the next key of the group, or completes the group
+         * if there is none left
+         */
+        public void submitNextPut() {
+            while(nextKeyIndex < keys.size()) {
+                ByteArray key = keys.get(nextKeyIndex++);
+                Versioned<byte[]> value = state.putAllRequest.getEntries().get(key);
+                try {
+                    long timeLeft = state.deadlineInMs - System.currentTimeMillis();
+                    if(timeLeft <= 0) {
+                        throw new StoreTimeoutException("PUT ALL request timed out");
+                    }
+
+                    CompositeVoldemortRequest<ByteArray, byte[]> putRequest = null;
+                    if(((VectorClock) value.getVersion()).getVersionMap().isEmpty()) {
+                        putRequest = new CompositePutVoldemortRequest<ByteArray, byte[]>(key,
+                                                                                         value.getValue(),
+                                                                                         timeLeft,
+                                                                                         state.putAllRequest.getRequestOriginTimeInMs(),
+                                                                                         state.putAllRequest.getRoutingType());
+                    } else {
+                        putRequest = new CompositeVersionedPutVoldemortRequest<ByteArray, byte[]>(key,
+                                                                                                  value,
+                                                                                                  timeLeft,
+                                                                                                  state.putAllRequest.getRequestOriginTimeInMs(),
+                                                                                                  state.putAllRequest.getRoutingType());
+                    }
+                    // Set before submitting, the put may complete right away
+                    currentKey = key;
+                    storeClient.submitPutRequest(putRequest, putAllExecutor, this);
+                    return;
+                } catch(Exception e) {
+                    logger.error("Exception when doing put as part of a put all", e);
+                    state.failedPuts.put(key, e);
+                }
+            }
+            state.groupDone();
+        }
+
+        @Override
+        public void requestComplete(Object result, long requestTime) {
+            if(result instanceof Exception) {
+                logger.error("Exception when doing put as part of a put all", (Exception) result);
+                state.failedPuts.put(currentKey, (Exception) result);
+            } else {
+                state.successfulPuts.put(currentKey, ((VectorClock) result).clone());
+            }
+            submitNextPut();
+        }
     }
 }
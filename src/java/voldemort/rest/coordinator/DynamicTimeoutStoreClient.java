@@ -18,6 +18,8 @@ package voldemort.rest.coordinator;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.log4j.Logger;
 
@@ -25,11 +27,17 @@ import voldemort.VoldemortException;
 import voldemort.client.AbstractStoreClientFactory;
 import voldemort.client.DefaultStoreClient;
 import voldemort.client.StoreClientFactory;
+import voldemort.cluster.Node;
+import voldemort.routing.RoutingStrategy;
 import voldemort.store.CompositeVersionedPutVoldemortRequest;
 import voldemort.store.CompositeVoldemortRequest;
 import voldemort.store.InvalidMetadataException;
+import voldemort.store.NoSuchCapabilityException;
 import voldemort.store.Store;
+import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreTimeoutException;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.utils.ByteArray;
 import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Version;
@@ -38,7 +46,8 @@ import voldemort.versioning.Versioned;
 /**
  * A special store client to invoke Voldemort operations with the following new
  * features: 1) Per call timeout facility 2) Ability to disable resolution per
- * call
+ * call 3) Operations that hand their outcome to a callback instead of blocking
+ * the caller
  * 
  * TODO: Merge this with DefaultStoreClient eventually.
  * 
@@ -245,6 +254,144 @@ public class DynamicTimeoutStoreClient<K, V> extends DefaultStoreClient<K, V> {
         return store.delete(deleteRequestObject);
     }
 
+    /**
+     * Submits a get operation with the specified composite request object. The
+     * operation runs on the given executor and the caller returns right away.
+     * 
+     * @param requestWrapper A composite request object containing the key (and
+     *        / or default value) and timeout.
+     * @param executor Executor to run the operation on
+     * @param callback Invoked with the list of versioned values, or the
+     *        exception the operation failed with
+     * @throws RejectedExecutionException if the executor cannot take the
+     *         operation
+     */
+    public void submitGetRequest(final CompositeVoldemortRequest<K, V> requestWrapper,
+                                 Executor executor,
+                                 NonblockingStoreCallback callback) {
+        submit(new StoreOperation<List<Versioned<V>>>() {
+
+            @Override
+            public List<Versioned<V>> execute() {
+                return getWithCustomTimeout(requestWrapper);
+            }
+        }, executor, callback, "get");
+    }
+
+    /**
+     * Submits a get all operation with the specified composite request object.
+     * The operation runs on the given executor and the caller returns right
+     * away.
+     * 
+     * @param requestWrapper Composite request object containing a reference to
+     *        the Iterable keys
+     * @param executor Executor to run the operation on
+     * @param callback Invoked with the map of the keys to the corresponding
+     *        versioned values, or the exception the operation failed with
+     * @throws RejectedExecutionException if the executor cannot take the
+     *         operation
+     */
+    public void submitGetAllRequest(final CompositeVoldemortRequest<K, V> requestWrapper,
+                                    Executor executor,
+                                    NonblockingStoreCallback callback) {
+        submit(new StoreOperation<Map<K, List<Versioned<V>>>>() {
+
+            @Override
+            public Map<K, List<Versioned<V>>> execute() {
+                return getAllWithCustomTimeout(requestWrapper);
+            }
+        }, executor, callback, "get all");
+    }
+
+    /**
+     * Submits a put operation with the specified composite request object. A
+     * request carrying a versioned value is put as is, otherwise the current
+     * version is looked up first. The operation runs on the given executor
+     * and the caller returns right away.
+     * 
+     * @param requestWrapper A composite request object containing the key and
+     *        value
+     * @param executor Executor to run the operation on
+     * @param callback Invoked with the version of the value for the successful
+     *        put, or the exception the operation failed with
+     * @throws RejectedExecutionException if the executor cannot take the
+     *         operation
+     */
+    public void submitPutRequest(final CompositeVoldemortRequest<K, V> requestWrapper,
+                                 Executor executor,
+                                 NonblockingStoreCallback callback) {
+        submit(new StoreOperation<Version>() {
+
+            @Override
+            public Version execute() {
+                if(requestWrapper.getValue() != null) {
+                    return putVersionedWithCustomTimeout(requestWrapper);
+                }
+                return putWithCustomTimeout(requestWrapper);
+            }
+        }, executor, callback, "put");
+    }
+
+    /**
+     * Submits a delete operation with the specified composite request object.
+     * The operation runs on the given executor and the caller returns right
+     * away.
+     * 
+     * @param deleteRequestObject Composite request object containing the key to
+     *        delete
+     * @param executor Executor to run the operation on
+     * @param callback Invoked with true if the delete was successful and false
+     *        otherwise, or the exception the operation failed with
+     * @throws RejectedExecutionException if the executor cannot take the
+     *         operation
+     */
+    public void submitDeleteRequest(final CompositeVoldemortRequest<K, V> deleteRequestObject,
+                                    Executor executor,
+                                    NonblockingStoreCallback callback) {
+        submit(new StoreOperation<Boolean>() {
+
+            @Override
+            public Boolean execute() {
+                return deleteWithCustomTimeout(deleteRequestObject);
+            }
+        }, executor, callback, "delete");
+    }
+
+    private void submit(final StoreOperation<?> operation,
+                        Executor executor,
+                        final NonblockingStoreCallback callback,
+                        final String operationName) {
+        final long startTimeInMs = System.currentTimeMillis();
+        executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                Object result;
+                try {
+                    result = operation.execute();
+                } catch(Exception e) {
+                    result = e;
+                }
+
+                try {
+                    callback.requestComplete(result, System.currentTimeMillis() - startTimeInMs);
+                } catch(Exception e) {
+                    logger.error("Callback of " + operationName + " on store '" + storeName
+                                 + "' failed", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * A blocking operation on the underlying store, run off the caller's
+     * thread
+     */
+    private interface StoreOperation<T> {
+
+        public T execute();
+    }
+
     /**
      * Function to check that the timeout specified is valid
      * 
@@ -261,4 +408,23 @@ public class DynamicTimeoutStoreClient<K, V> extends DefaultStoreClient<K, V> {
         return this.storeName;
     }
 
+    /**
+     * Looks up the master node of the given raw key using the routing strategy
+     * of the underlying store. Used to group the keys of a batched operation
+     * by node.
+     * 
+     * @param key The raw key
+     * @return The id of the master node or -1 if the routing strategy is not
+     *         known
+     */
+    public int getMasterNodeId(ByteArray key) {
+        try {
+            RoutingStrategy strategy = (RoutingStrategy) store.getCapability(StoreCapabilityType.ROUTING_STRATEGY);
+            List<Node> nodes = strategy.routeRequest(key.get());
+            return nodes.isEmpty() ? -1 : nodes.get(0).getId();
+        } catch(NoSuchCapabilityException e) {
+            return -1;
+        }
+    }
+
 }
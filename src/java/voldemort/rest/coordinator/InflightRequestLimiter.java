@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.rest.coordinator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds the number of requests per store that the Coordinator has accepted
+ * but not yet answered. A request that cannot be admitted is meant to be
+ * answered right away (with a 503) from the Netty I/O thread, so that a
+ * latency spike in the cluster turns into backpressure on the clients rather
+ * than into an ever growing backlog of blocked requests on the Coordinator.
+ */
+public class InflightRequestLimiter {
+
+    private final int maxInflightRequestsPerStore;
+    private final ConcurrentMap<String, Semaphore> storeToPermits;
+    private final AtomicLong numRejectedRequests;
+
+    public InflightRequestLimiter(int maxInflightRequestsPerStore) {
+        this.maxInflightRequestsPerStore = maxInflightRequestsPerStore;
+        this.storeToPermits = new ConcurrentHashMap<String, Semaphore>();
+        this.numRejectedRequests = new AtomicLong(0);
+    }
+
+    /**
+     * Admits a request for the given store if the store has fewer than the
+     * maximum number of requests in flight. Never blocks.
+     * 
+     * @param storeName Store the request is for
+     * @return true if the request was admitted and must be followed by a call
+     *         to {@link #release(String)} once it has been answered
+     */
+    public boolean tryAcquire(String storeName) {
+        if(getPermits(storeName).tryAcquire()) {
+            return true;
+        }
+        numRejectedRequests.incrementAndGet();
+        return false;
+    }
+
+    public void release(String storeName) {
+        getPermits(storeName).release();
+    }
+
+    public int getInflightRequests(String storeName) {
+        return maxInflightRequestsPerStore - getPermits(storeName).availablePermits();
+    }
+
+    public int getInflightRequests() {
+        int inflightRequests = 0;
+        for(Semaphore permits: storeToPermits.values()) {
+            inflightRequests += maxInflightRequestsPerStore - permits.availablePermits();
+        }
+        return inflightRequests;
+    }
+
+    public long getNumRejectedRequests() {
+        return numRejectedRequests.get();
+    }
+
+    public int getMaxInflightRequestsPerStore() {
+        return maxInflightRequestsPerStore;
+    }
+
+    private Semaphore getPermits(String storeName) {
+        Semaphore permits = storeToPermits.get(storeName);
+        if(permits == null) {
+            permits = new Semaphore(maxInflightRequestsPerStore);
+            Semaphore existing = storeToPermits.putIfAbsent(storeName, permits);
+            if(existing != null) {
+                permits = existing;
+            }
+        }
+        return permits;
+    }
+}
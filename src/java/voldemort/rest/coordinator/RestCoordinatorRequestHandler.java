@@ -19,11 +19,28 @@ import voldemort.utils.ByteArray;
 public class RestCoordinatorRequestHandler extends AbstractRestRequestHandler {
 
     private Map<String, DynamicTimeoutStoreClient<ByteArray, byte[]>> fatClientMap = null;
+    private final InflightRequestLimiter inflightRequestLimiter;
+    private final int retryAfterSeconds;
     private final Logger logger = Logger.getLogger(RestCoordinatorRequestHandler.class);
 
     public RestCoordinatorRequestHandler(Map<String, DynamicTimeoutStoreClient<ByteArray, byte[]>> fatClientMap) {
+        this(fatClientMap, null, 0);
+    }
+
+    /**
+     * @param fatClientMap Map of store name to the corresponding fat client
+     * @param inflightRequestLimiter Limiter that bounds the requests in flight
+     *        per store. Null to accept every request.
+     * @param retryAfterSeconds Retry hint sent to clients whose request was
+     *        rejected by the limiter
+     */
+    public RestCoordinatorRequestHandler(Map<String, DynamicTimeoutStoreClient<ByteArray, byte[]>> fatClientMap,
+                                         InflightRequestLimiter inflightRequestLimiter,
+                                         int retryAfterSeconds) {
         super(true);
         this.fatClientMap = fatClientMap;
+        this.inflightRequestLimiter = inflightRequestLimiter;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     /**
@@ -60,12 +77,29 @@ public class RestCoordinatorRequestHandler extends AbstractRestRequestHandler {
                                                         "Non Existing store client. Critical error.");
                     return;
                 }
+
+                // Admission happens on the Netty I/O thread, so a store that
+                // is falling behind gets pushed back on immediately instead of
+                // piling up requests in the worker pool.
+                if(inflightRequestLimiter != null
+                   && !inflightRequestLimiter.tryAcquire(storeClient.getStoreName())) {
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("Too many requests in flight for store "
+                                     + storeClient.getStoreName() + ". Rejecting request.");
+                    }
+                    RestErrorHandler.writeServiceUnavailableResponse(messageEvent,
+                                                                     "Too many requests in flight for store "
+                                                                             + storeClient.getStoreName(),
+                                                                     retryAfterSeconds);
+                    return;
+                }
             } else {
                 requestObject.setOperationType(VoldemortOpCode.GET_METADATA_OP_CODE);
             }
 
             CoordinatorStoreClientRequest coordinatorRequest = new CoordinatorStoreClientRequest(requestObject,
-                                                                                                 storeClient);
+                                                                                                 storeClient,
+                                                                                                 inflightRequestLimiter);
             Channels.fireMessageReceived(ctx, coordinatorRequest);
 
         }
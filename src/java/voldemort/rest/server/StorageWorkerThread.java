@@ -2,6 +2,7 @@ package voldemort.rest.server;
 
 import static org.jboss.netty.handler.codec.http.HttpResponseStatus.NOT_FOUND;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -15,18 +16,21 @@ import voldemort.rest.DeleteResponseSender;
 import voldemort.rest.GetAllResponseSender;
 import voldemort.rest.GetResponseSender;
 import voldemort.rest.GetVersionResponseSender;
+import voldemort.rest.PutAllResponseSender;
 import voldemort.rest.PutResponseSender;
 import voldemort.rest.RestDeleteErrorHandler;
 import voldemort.rest.RestErrorHandler;
 import voldemort.rest.RestGetErrorHandler;
 import voldemort.rest.RestGetVersionErrorHandler;
 import voldemort.rest.RestPutErrorHandler;
+import voldemort.store.CompositePutAllVoldemortRequest;
 import voldemort.store.CompositeVoldemortRequest;
 import voldemort.store.Store;
 import voldemort.store.stats.StoreStats;
 import voldemort.store.stats.StoreStatsJmx;
 import voldemort.utils.ByteArray;
 import voldemort.utils.JmxUtils;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
@@ -175,6 +179,34 @@ public class StorageWorkerThread implements Runnable {
                         }
                         break;
 
+                    case VoldemortOpCode.PUT_ALL_OP_CODE:
+                        if(logger.isDebugEnabled()) {
+                            logger.debug("Incoming put all request");
+                        }
+                        try {
+                            Map<ByteArray, VectorClock> successfulPuts = new HashMap<ByteArray, VectorClock>();
+                            Map<ByteArray, Exception> failedPuts = new HashMap<ByteArray, Exception>();
+                            for(Map.Entry<ByteArray, Versioned<byte[]>> entry: ((CompositePutAllVoldemortRequest<ByteArray, byte[]>) requestObject).getEntries()
+                                                                                                                                            .entrySet()) {
+                                try {
+                                    store.put(entry.getKey(), entry.getValue(), null);
+                                    successfulPuts.put(entry.getKey(), null);
+                                } catch(Exception e) {
+                                    failedPuts.put(entry.getKey(), e);
+                                }
+                            }
+                            PutAllResponseSender responseConstructor = new PutAllResponseSender(messageEvent,
+                                                                                                successfulPuts,
+                                                                                                failedPuts,
+                                                                                                store.getName());
+                            responseConstructor.sendResponse(performanceStats,
+                                                             fromLocalZone,
+                                                             requestObject.getRequestOriginTimeInMs());
+                        } catch(Exception e) {
+                            putErrorHandler.handleExceptions(messageEvent, e);
+                        }
+                        break;
+
                     case VoldemortOpCode.DELETE_OP_CODE:
                         if(logger.isDebugEnabled()) {
                             logger.debug("Incoming delete request");
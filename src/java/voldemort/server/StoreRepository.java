@@ -13,6 +13,7 @@ import voldemort.server.storage.VersionedPutPruneJob;
 import voldemort.store.StorageEngine;
 import voldemort.store.Store;
 import voldemort.store.slop.SlopStorageEngine;
+import voldemort.store.stats.StoreStats;
 import voldemort.store.stats.StreamingStats;
 import voldemort.utils.ByteArray;
 import voldemort.utils.JmxUtils;
@@ -62,6 +63,11 @@ public class StoreRepository {
      */
     private final ConcurrentMap<String, StorageEngine<ByteArray, byte[], byte[]>> storageEngines;
 
+    /**
+     * Aggregated statistics about client operations against the local stores
+     */
+    private final StoreStats aggregatedStoreStats;
+
     /**
      * Aggregated statistics about streaming operations
      */
@@ -109,6 +115,7 @@ public class StoreRepository {
         super();
         this.localStores = new ConcurrentHashMap<String, Store<ByteArray, byte[], byte[]>>();
         this.storageEngines = new ConcurrentHashMap<String, StorageEngine<ByteArray, byte[], byte[]>>();
+        this.aggregatedStoreStats = new StoreStats();
         if(jmxEnabled) {
             this.streamingStatsMap = new ConcurrentHashMap<String, StreamingStats>();
             this.aggregatedStreamStats = new StreamingStats();
@@ -304,4 +311,12 @@ public class StoreRepository {
     public StreamingStats getStreamingStats(String store) {
         return streamingStatsMap.get(store);
     }
+
+    public StoreStats getAggregatedStoreStats() {
+        return aggregatedStoreStats;
+    }
+
+    public StreamingStats getAggregatedStreamingStats() {
+        return aggregatedStreamStats;
+    }
 }
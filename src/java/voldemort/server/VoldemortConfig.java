@@ -45,6 +45,7 @@ import voldemort.server.storage.VersionedPutPruneJob;
 import voldemort.store.InvalidMetadataException;
 import voldemort.store.StorageEngine;
 import voldemort.store.bdb.BdbStorageConfiguration;
+import voldemort.store.bdb.PartitionPrefixedBdbStorageEngine;
 import voldemort.store.invalidmetadata.InvalidMetadataCheckingStore;
 import voldemort.store.logging.LoggingStore;
 import voldemort.store.memory.CacheStorageConfiguration;
@@ -55,6 +56,7 @@ import voldemort.store.readonly.InterpolationSearchStrategy;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
 import voldemort.store.stats.StatTrackingStore;
+import voldemort.store.system.SystemStoreConstants;
 import voldemort.utils.ConfigurationException;
 import voldemort.utils.Props;
 import voldemort.utils.Time;
@@ -119,6 +121,8 @@ public class VoldemortConfig implements Serializable {
     private boolean bdbLevelBasedEviction;
     private boolean bdbProactiveBackgroundMigration;
     private boolean bdbCheckpointerOffForBatchWrites;
+    private int bdbBulkLoadBatchSize;
+    private boolean bdbExpiryIndexEnabled;
 
     private String mysqlUsername;
     private String mysqlPassword;
@@ -139,6 +143,8 @@ public class VoldemortConfig implements Serializable {
     private String hadoopConfigPath;
     // flag to indicate if we will mlock and pin index pages in memory
     private boolean useMlock;
+    private boolean readOnlyWarmUpBeforeSwap;
+    private int readOnlyWarmUpSampleSize;
 
     private OpTimeMap testingSlowQueueingDelays;
     private OpTimeMap testingSlowConcurrentDelays;
@@ -166,6 +172,7 @@ public class VoldemortConfig implements Serializable {
     private boolean mayInterruptService;
 
     private int numScanPermits;
+    private int scanPartitionParallelism;
     private RequestFormatType requestFormatType;
 
     private boolean enableSlop;
@@ -205,6 +212,7 @@ public class VoldemortConfig implements Serializable {
     private long streamMaxReadBytesPerSec;
     private long streamMaxWriteBytesPerSec;
     private boolean multiVersionStreamingPutsEnabled;
+    private int sortedStreamingPutsBufferSize;
     private int gossipIntervalMs;
 
     private String failureDetectorImplementation;
@@ -215,6 +223,8 @@ public class VoldemortConfig implements Serializable {
     private long failureDetectorAsyncRecoveryInterval;
     private volatile List<String> failureDetectorCatastrophicErrorTypes;
     private long failureDetectorRequestLengthThreshold;
+    private double failureDetectorPhiThreshold;
+    private int failureDetectorPhiWindowSize;
 
     private int retentionCleanupFirstStartTimeInHour;
     private int retentionCleanupScheduledPeriodInHour;
@@ -222,10 +232,28 @@ public class VoldemortConfig implements Serializable {
     private boolean retentionCleanupPinStartTime;
     private boolean enforceRetentionPolicyOnRead;
     private boolean deleteExpiredValuesOnRead;
+    private int expiredValuesDeleteQueueSize;
+    private boolean enableReadCache;
+    private List<String> readCacheStores;
+    private long readCacheMaxSizeInBytes;
+    private long readCacheTtlMs;
+    private int readCacheAdmissionThreshold;
+    private boolean enableGetCoalescing;
+    private boolean enableAvroProjection;
     private long rebalancingTimeoutSec;
     private int maxParallelStoresRebalancing;
+    private boolean enableAdaptiveRebalancing;
+    private long rebalancingTargetClientP99Ms;
+    private long rebalancingAdaptiveIntervalMs;
     private boolean usePartitionScanForRebalance;
+    private boolean useBulkPartitionMigrationForRebalance;
+    private int bulkPartitionMigrationBlockSizeBytes;
+    private String bulkPartitionMigrationCompression;
     private int maxProxyPutThreads;
+    private int proxyPutQueueSize;
+    private int proxyPutBatchSize;
+    private long proxyPutQueueTimeoutMs;
+    private int proxyGetBatchSize;
     @Deprecated
     // Should be removed once the proxy put implementation is stable.
     private boolean proxyPutsDuringRebalance;
@@ -295,6 +323,12 @@ public class VoldemortConfig implements Serializable {
                                                                 false);
         this.bdbCheckpointerOffForBatchWrites = props.getBoolean("bdb.checkpointer.off.batch.writes",
                                                                  false);
+        // bulk.partition.migration.batch.size is the name this setting had
+        // while only partition migration bulk loaded
+        this.bdbBulkLoadBatchSize = props.getInt("bdb.bulk.load.batch.size",
+                                                 props.getInt("bulk.partition.migration.batch.size",
+                                                              1000));
+        this.bdbExpiryIndexEnabled = props.getBoolean("bdb.expiry.index.enabled", false);
 
         this.numReadOnlyVersions = props.getInt("readonly.backups", 1);
         this.readOnlySearchStrategy = props.getString("readonly.search.strategy",
@@ -317,6 +351,8 @@ public class VoldemortConfig implements Serializable {
         this.setHadoopConfigPath(props.getString("readonly.hadoop.config.path",
                                                  this.metadataDirectory + "/hadoop-conf"));
         this.setUseMlock(props.getBoolean("readonly.mlock.index", true));
+        this.readOnlyWarmUpBeforeSwap = props.getBoolean("readonly.warmup.before.swap", false);
+        this.readOnlyWarmUpSampleSize = props.getInt("readonly.warmup.sample.size", 10000);
 
         this.mysqlUsername = props.getString("mysql.user", "root");
         this.mysqlPassword = props.getString("mysql.password", "");
@@ -368,6 +404,8 @@ public class VoldemortConfig implements Serializable {
                                                         10 * 1000 * 1000);
         this.multiVersionStreamingPutsEnabled = props.getBoolean("use.multi.version.streaming.puts",
                                                                  true);
+        this.sortedStreamingPutsBufferSize = props.getInt("sorted.streaming.puts.buffer.size",
+                                                          1000);
 
         this.socketTimeoutMs = props.getInt("socket.timeout.ms", 5000);
         this.socketBufferSize = (int) props.getBytes("socket.buffer.size", 64 * 1024);
@@ -440,6 +478,7 @@ public class VoldemortConfig implements Serializable {
         this.mayInterruptService = props.getBoolean("service.interruptible", true);
 
         this.numScanPermits = props.getInt("num.scan.permits", 1);
+        this.scanPartitionParallelism = props.getInt("scan.partition.parallelism", 1);
 
         this.storageConfigurations = props.getList("storage.configs",
                                                    ImmutableList.of(BdbStorageConfiguration.class.getName(),
@@ -467,6 +506,17 @@ public class VoldemortConfig implements Serializable {
         // should the online reads issue deletes to clear out stale values when
         // reading them?
         this.deleteExpiredValuesOnRead = props.getBoolean("delete.expired.values.on.read", false);
+        this.expiredValuesDeleteQueueSize = props.getInt("expired.values.delete.queue.size", 10000);
+
+        // server side cache of hot keys, in front of the storage engines
+        this.enableReadCache = props.getBoolean("enable.read.cache", false);
+        this.readCacheStores = props.getList("read.cache.stores", ImmutableList.<String> of());
+        this.readCacheMaxSizeInBytes = props.getBytes("read.cache.max.size.bytes",
+                                                      64 * 1024 * 1024);
+        this.readCacheTtlMs = props.getLong("read.cache.ttl.ms", 0);
+        this.readCacheAdmissionThreshold = props.getInt("read.cache.admission.threshold", 2);
+        this.enableGetCoalescing = props.getBoolean("enable.get.coalescing", false);
+        this.enableAvroProjection = props.getBoolean("enable.avro.projection", true);
 
         // save props for access from plugins
         this.allProps = props;
@@ -478,11 +528,25 @@ public class VoldemortConfig implements Serializable {
         // rebalancing parameters
         this.rebalancingTimeoutSec = props.getLong("rebalancing.timeout.seconds", 10 * 24 * 60 * 60);
         this.maxParallelStoresRebalancing = props.getInt("max.parallel.stores.rebalancing", 3);
+        this.enableAdaptiveRebalancing = props.getBoolean("rebalancing.adaptive.enable", false);
+        this.rebalancingTargetClientP99Ms = props.getLong("rebalancing.target.client.p99.ms", 50);
+        this.rebalancingAdaptiveIntervalMs = props.getLong("rebalancing.adaptive.interval.ms",
+                                                           30 * 1000);
         this.usePartitionScanForRebalance = props.getBoolean("use.partition.scan.for.rebalance",
                                                              true);
+        this.useBulkPartitionMigrationForRebalance = props.getBoolean("use.bulk.partition.migration.for.rebalance",
+                                                                      false);
+        this.bulkPartitionMigrationBlockSizeBytes = props.getInt("bulk.partition.migration.block.size.bytes",
+                                                                 4 * 1024 * 1024);
+        this.bulkPartitionMigrationCompression = props.getString("bulk.partition.migration.compression",
+                                                                 "gzip");
         this.maxProxyPutThreads = props.getInt("max.proxy.put.threads",
                                                Math.max(8, Runtime.getRuntime()
                                                                   .availableProcessors()));
+        this.proxyPutQueueSize = props.getInt("proxy.put.queue.size", 10000);
+        this.proxyPutBatchSize = props.getInt("proxy.put.batch.size", 100);
+        this.proxyPutQueueTimeoutMs = props.getLong("proxy.put.queue.timeout.ms", 1000);
+        this.proxyGetBatchSize = props.getInt("proxy.get.batch.size", 100);
         this.failureDetectorImplementation = props.getString("failuredetector.implementation",
                                                              FailureDetectorConfig.DEFAULT_IMPLEMENTATION_CLASS_NAME);
 
@@ -508,6 +572,10 @@ public class VoldemortConfig implements Serializable {
                                                                    FailureDetectorConfig.DEFAULT_CATASTROPHIC_ERROR_TYPES);
         this.failureDetectorRequestLengthThreshold = props.getLong("failuredetector.request.length.threshold",
                                                                    getSocketTimeoutMs());
+        this.failureDetectorPhiThreshold = props.getDouble("failuredetector.phi.threshold",
+                                                           FailureDetectorConfig.DEFAULT_PHI_THRESHOLD);
+        this.failureDetectorPhiWindowSize = props.getInt("failuredetector.phi.window.size",
+                                                         FailureDetectorConfig.DEFAULT_PHI_WINDOW_SIZE);
 
         // network class loader disable by default.
         this.enableNetworkClassLoader = props.getBoolean("enable.network.classloader", false);
@@ -1197,6 +1265,48 @@ public class VoldemortConfig implements Serializable {
         this.bdbCheckpointerOffForBatchWrites = bdbCheckpointerOffForBulkWrites;
     }
 
+    public int getBdbBulkLoadBatchSize() {
+        return this.bdbBulkLoadBatchSize;
+    }
+
+    /**
+     * Number of keys written in a single transaction, when entries are bulk
+     * loaded from a sorted stream (e.g restores, fork lifts, partition
+     * migration). These transactions do not sync the log; a forced checkpoint
+     * at the end of the load makes them durable.
+     * 
+     * <ul>
+     * <li>Property : "bdb.bulk.load.batch.size"</li>
+     * <li>Default : "bulk.partition.migration.batch.size" if set, 1000
+     * otherwise</li>
+     * </ul>
+     * 
+     */
+    public void setBdbBulkLoadBatchSize(int bdbBulkLoadBatchSize) {
+        this.bdbBulkLoadBatchSize = bdbBulkLoadBatchSize;
+    }
+
+    public boolean isBdbExpiryIndexEnabled() {
+        return this.bdbExpiryIndexEnabled;
+    }
+
+    /**
+     * If true, BDB stores with a retention period also keep an index of their
+     * keys by the hour they were written, so that the retention cleanup job
+     * only visits expired keys instead of scanning the whole store. The first
+     * cleanup run after the index is created still scans, to index the
+     * existing keys.
+     * 
+     * <ul>
+     * <li>Property : "bdb.expiry.index.enabled"</li>
+     * <li>Default : false</li>
+     * </ul>
+     * 
+     */
+    public void setBdbExpiryIndexEnabled(boolean bdbExpiryIndexEnabled) {
+        this.bdbExpiryIndexEnabled = bdbExpiryIndexEnabled;
+    }
+
     public long getBdbCheckpointMs() {
         return this.bdbCheckpointMs;
     }
@@ -1519,6 +1629,25 @@ public class VoldemortConfig implements Serializable {
         return this.multiVersionStreamingPutsEnabled;
     }
 
+    /**
+     * Number of entries buffered by the server, out of an update entries
+     * stream declared sorted by the client, before they are bulk loaded into
+     * storage in one go
+     * 
+     * <ul>
+     * <li>Property : "sorted.streaming.puts.buffer.size"</li>
+     * <li>Default : 1000</li>
+     * </ul>
+     * 
+     */
+    public void setSortedStreamingPutsBufferSize(int sortedStreamingPutsBufferSize) {
+        this.sortedStreamingPutsBufferSize = sortedStreamingPutsBufferSize;
+    }
+
+    public int getSortedStreamingPutsBufferSize() {
+        return this.sortedStreamingPutsBufferSize;
+    }
+
     /**
      * Controls the rate at which the {@link StreamingSlopPusherJob} will send
      * slop writes over the wire
@@ -2273,6 +2402,26 @@ public class VoldemortConfig implements Serializable {
         this.numScanPermits = numScanPermits;
     }
 
+    public int getScanPartitionParallelism() {
+        return scanPartitionParallelism;
+    }
+
+    /**
+     * Number of partitions a background scan like {@link DataCleanupJob},
+     * {@link RepairJob} or {@link VersionedPutPruneJob} works on at once,
+     * for storage engines that can scan a single partition. A job still takes
+     * a single scan permit, and its throttle rate applies to all its
+     * partitions together.
+     * 
+     * <ul>
+     * <li>Property :"scan.partition.parallelism"</li>
+     * <li>Default :1</li>
+     * </ul>
+     */
+    public void setScanPartitionParallelism(int scanPartitionParallelism) {
+        this.scanPartitionParallelism = scanPartitionParallelism;
+    }
+
     public String getFailureDetectorImplementation() {
         return failureDetectorImplementation;
     }
@@ -2401,6 +2550,38 @@ public class VoldemortConfig implements Serializable {
         this.failureDetectorRequestLengthThreshold = failureDetectorRequestLengthThreshold;
     }
 
+    public double getFailureDetectorPhiThreshold() {
+        return failureDetectorPhiThreshold;
+    }
+
+    /**
+     * {@link ClientConfig#setFailureDetectorPhiThreshold(double)}
+     * 
+     * <ul>
+     * <li>Property :"failuredetector.phi.threshold"</li>
+     * <li>Default :FailureDetectorConfig.DEFAULT_PHI_THRESHOLD</li>
+     * </ul>
+     */
+    public void setFailureDetectorPhiThreshold(double failureDetectorPhiThreshold) {
+        this.failureDetectorPhiThreshold = failureDetectorPhiThreshold;
+    }
+
+    public int getFailureDetectorPhiWindowSize() {
+        return failureDetectorPhiWindowSize;
+    }
+
+    /**
+     * {@link ClientConfig#setFailureDetectorPhiWindowSize(int)}
+     * 
+     * <ul>
+     * <li>Property :"failuredetector.phi.window.size"</li>
+     * <li>Default :FailureDetectorConfig.DEFAULT_PHI_WINDOW_SIZE</li>
+     * </ul>
+     */
+    public void setFailureDetectorPhiWindowSize(int failureDetectorPhiWindowSize) {
+        this.failureDetectorPhiWindowSize = failureDetectorPhiWindowSize;
+    }
+
     public int getRetentionCleanupFirstStartTimeInHour() {
         return retentionCleanupFirstStartTimeInHour;
     }
@@ -2492,7 +2673,7 @@ public class VoldemortConfig implements Serializable {
 
     /**
      * If enabled, in addition to filtering stale entries, the server will also
-     * delete the stale value
+     * delete the stale value, in the background
      * 
      * <ul>
      * <li>Property :"delete.expired.values.on.read"</li>
@@ -2503,6 +2684,155 @@ public class VoldemortConfig implements Serializable {
         this.deleteExpiredValuesOnRead = deleteExpiredValuesOnRead;
     }
 
+    public int getExpiredValuesDeleteQueueSize() {
+        return expiredValuesDeleteQueueSize;
+    }
+
+    /**
+     * Number of deletes of expired values found by reads which may wait to be
+     * applied in the background. Once full, further deletes are dropped and
+     * left to the retention cleanup job
+     * 
+     * <ul>
+     * <li>Property :"expired.values.delete.queue.size"</li>
+     * <li>Default :10000</li>
+     * </ul>
+     */
+    public void setExpiredValuesDeleteQueueSize(int expiredValuesDeleteQueueSize) {
+        this.expiredValuesDeleteQueueSize = expiredValuesDeleteQueueSize;
+    }
+
+    public boolean isReadCacheEnabled() {
+        return enableReadCache;
+    }
+
+    /**
+     * If enabled, the server keeps the values of frequently read keys in a
+     * cache in front of the storage engines of read-write stores. The cache is
+     * kept coherent with every write going through the storage engine.
+     * 
+     * <ul>
+     * <li>Property :"enable.read.cache"</li>
+     * <li>Default :false</li>
+     * </ul>
+     */
+    public void setEnableReadCache(boolean enableReadCache) {
+        this.enableReadCache = enableReadCache;
+    }
+
+    public List<String> getReadCacheStores() {
+        return readCacheStores;
+    }
+
+    /**
+     * Stores to keep a read cache for. An empty list caches all the read-write
+     * stores.
+     * 
+     * <ul>
+     * <li>Property :"read.cache.stores"</li>
+     * <li>Default :empty</li>
+     * </ul>
+     */
+    public void setReadCacheStores(List<String> readCacheStores) {
+        this.readCacheStores = readCacheStores;
+    }
+
+    /**
+     * Whether the read cache is enabled for the given store
+     */
+    public boolean isReadCacheEnabledFor(String storeName) {
+        if(!enableReadCache)
+            return false;
+        if(readCacheStores.isEmpty())
+            return !SystemStoreConstants.isSystemStore(storeName);
+        return readCacheStores.contains(storeName);
+    }
+
+    public long getReadCacheMaxSizeInBytes() {
+        return readCacheMaxSizeInBytes;
+    }
+
+    /**
+     * The budget of the read cache of each store, in bytes
+     * 
+     * <ul>
+     * <li>Property :"read.cache.max.size.bytes"</li>
+     * <li>Default :64MB</li>
+     * </ul>
+     */
+    public void setReadCacheMaxSizeInBytes(long readCacheMaxSizeInBytes) {
+        this.readCacheMaxSizeInBytes = readCacheMaxSizeInBytes;
+    }
+
+    public long getReadCacheTtlMs() {
+        return readCacheTtlMs;
+    }
+
+    /**
+     * How long a cached entry may be served. Since all writes invalidate the
+     * cache, this only bounds how long cold entries linger.
+     * 
+     * <ul>
+     * <li>Property :"read.cache.ttl.ms"</li>
+     * <li>Default :0 (no limit)</li>
+     * </ul>
+     */
+    public void setReadCacheTtlMs(long readCacheTtlMs) {
+        this.readCacheTtlMs = readCacheTtlMs;
+    }
+
+    public int getReadCacheAdmissionThreshold() {
+        return readCacheAdmissionThreshold;
+    }
+
+    /**
+     * The # recent reads of a key before its values are admitted into the read
+     * cache. Keeps one-off reads and scans from flushing the hot keys.
+     * 
+     * <ul>
+     * <li>Property :"read.cache.admission.threshold"</li>
+     * <li>Default :2</li>
+     * </ul>
+     */
+    public void setReadCacheAdmissionThreshold(int readCacheAdmissionThreshold) {
+        this.readCacheAdmissionThreshold = readCacheAdmissionThreshold;
+    }
+
+    public boolean isGetCoalescingEnabled() {
+        return enableGetCoalescing;
+    }
+
+    /**
+     * If enabled, concurrent gets of the same key and transforms on a store
+     * share a single lookup of the local store and its result
+     * 
+     * <ul>
+     * <li>Property :"enable.get.coalescing"</li>
+     * <li>Default :false</li>
+     * </ul>
+     */
+    public void setEnableGetCoalescing(boolean enableGetCoalescing) {
+        this.enableGetCoalescing = enableGetCoalescing;
+    }
+
+    public boolean isAvroProjectionEnabled() {
+        return enableAvroProjection;
+    }
+
+    /**
+     * If enabled, gets and getAlls on stores with avro-generic values evaluate
+     * {@link voldemort.store.projection.AvroProjection} transforms on the
+     * server
+     * 
+     * <ul>
+     * <li>Property :"enable.avro.projection"</li>
+     * <li>Default :true</li>
+     * </ul>
+     */
+    public void setEnableAvroProjection(boolean enableAvroProjection) {
+        this.enableAvroProjection = enableAvroProjection;
+    }
+
     public int getAdminSocketTimeout() {
         return adminSocketTimeout;
     }
@@ -2708,6 +3038,60 @@ public class VoldemortConfig implements Serializable {
         this.maxParallelStoresRebalancing = maxParallelStoresRebalancing;
     }
 
+    public boolean isAdaptiveRebalancingEnabled() {
+        return enableAdaptiveRebalancing;
+    }
+
+    /**
+     * If enabled, the number of partition-stores a stealer node migrates in
+     * parallel is adapted between one and max.parallel.stores.rebalancing,
+     * backing off when the client facing p99 latency of the node exceeds
+     * rebalancing.target.client.p99.ms and growing while the streaming
+     * throughput keeps up
+     * 
+     * <ul>
+     * <li>Property :"rebalancing.adaptive.enable"</li>
+     * <li>Default :false</li>
+     * </ul>
+     */
+    public void setEnableAdaptiveRebalancing(boolean enableAdaptiveRebalancing) {
+        this.enableAdaptiveRebalancing = enableAdaptiveRebalancing;
+    }
+
+    public long getRebalancingTargetClientP99Ms() {
+        return rebalancingTargetClientP99Ms;
+    }
+
+    /**
+     * The 99th percentile latency of client gets and puts on a node, which
+     * adaptive rebalancing tries to stay under
+     * 
+     * <ul>
+     * <li>Property :"rebalancing.target.client.p99.ms"</li>
+     * <li>Default :50</li>
+     * </ul>
+     */
+    public void setRebalancingTargetClientP99Ms(long rebalancingTargetClientP99Ms) {
+        this.rebalancingTargetClientP99Ms = rebalancingTargetClientP99Ms;
+    }
+
+    public long getRebalancingAdaptiveIntervalMs() {
+        return rebalancingAdaptiveIntervalMs;
+    }
+
+    /**
+     * How often adaptive rebalancing samples the latency and streaming
+     * statistics to resize the number of parallel partition-store migrations
+     * 
+     * <ul>
+     * <li>Property :"rebalancing.adaptive.interval.ms"</li>
+     * <li>Default :30000</li>
+     * </ul>
+     */
+    public void setRebalancingAdaptiveIntervalMs(long rebalancingAdaptiveIntervalMs) {
+        this.rebalancingAdaptiveIntervalMs = rebalancingAdaptiveIntervalMs;
+    }
+
     public boolean usePartitionScanForRebalance() {
         return usePartitionScanForRebalance;
     }
@@ -2728,6 +3112,75 @@ public class VoldemortConfig implements Serializable {
         return this.maxProxyPutThreads;
     }
 
+    public int getProxyPutQueueSize() {
+        return proxyPutQueueSize;
+    }
+
+    /**
+     * Number of proxy puts of a store which may be queued for one proxy node
+     * during rebalancing. Once full, the writes to be proxied to that node
+     * wait for room in the queue
+     * 
+     * <ul>
+     * <li>Property :"proxy.put.queue.size"</li>
+     * <li>Default :10000</li>
+     * </ul>
+     */
+    public void setProxyPutQueueSize(int proxyPutQueueSize) {
+        this.proxyPutQueueSize = proxyPutQueueSize;
+    }
+
+    public int getProxyPutBatchSize() {
+        return proxyPutBatchSize;
+    }
+
+    /**
+     * Maximum number of queued proxy puts a proxy put thread issues to a proxy
+     * node before moving on to the next node
+     * 
+     * <ul>
+     * <li>Property :"proxy.put.batch.size"</li>
+     * <li>Default :100</li>
+     * </ul>
+     */
+    public void setProxyPutBatchSize(int proxyPutBatchSize) {
+        this.proxyPutBatchSize = proxyPutBatchSize;
+    }
+
+    public long getProxyPutQueueTimeoutMs() {
+        return proxyPutQueueTimeoutMs;
+    }
+
+    /**
+     * How long a write waits for room in a full proxy put queue, before its
+     * proxy put is dropped and counted as failed
+     * 
+     * <ul>
+     * <li>Property :"proxy.put.queue.timeout.ms"</li>
+     * <li>Default :1000</li>
+     * </ul>
+     */
+    public void setProxyPutQueueTimeoutMs(long proxyPutQueueTimeoutMs) {
+        this.proxyPutQueueTimeoutMs = proxyPutQueueTimeoutMs;
+    }
+
+    public int getProxyGetBatchSize() {
+        return proxyGetBatchSize;
+    }
+
+    /**
+     * Maximum number of keys missing locally which are fetched from a proxy
+     * node in one getAll, when concurrent gets miss during rebalancing
+     * 
+     * <ul>
+     * <li>Property :"proxy.get.batch.size"</li>
+     * <li>Default :100</li>
+     * </ul>
+     */
+    public void setProxyGetBatchSize(int proxyGetBatchSize) {
+        this.proxyGetBatchSize = proxyGetBatchSize;
+    }
+
     /**
      * Enables fast, efficient range scans to be used for rebalancing
      * 
@@ -2743,6 +3196,61 @@ public class VoldemortConfig implements Serializable {
         this.usePartitionScanForRebalance = usePartitionScanForRebalance;
     }
 
+    public boolean useBulkPartitionMigrationForRebalance() {
+        return useBulkPartitionMigrationForRebalance;
+    }
+
+    /**
+     * Migrates partitions of partition aware BDB stores during rebalancing by
+     * streaming sorted, compressed blocks of each partition from the donor
+     * and bulk loading them on the stealer, instead of fetching and putting
+     * one entry at a time. Only takes effect if the store supports partition
+     * scans, e.g a {@link PartitionPrefixedBdbStorageEngine}
+     * 
+     * <ul>
+     * <li>Property :"use.bulk.partition.migration.for.rebalance"</li>
+     * <li>Default :false</li>
+     * </ul>
+     */
+    public void setUseBulkPartitionMigrationForRebalance(boolean useBulkPartitionMigrationForRebalance) {
+        this.useBulkPartitionMigrationForRebalance = useBulkPartitionMigrationForRebalance;
+    }
+
+    public int getBulkPartitionMigrationBlockSizeBytes() {
+        return bulkPartitionMigrationBlockSizeBytes;
+    }
+
+    /**
+     * Amount of uncompressed partition data the donor packs into a single
+     * block during bulk partition migration
+     * 
+     * <ul>
+     * <li>Property :"bulk.partition.migration.block.size.bytes"</li>
+     * <li>Default :4MB</li>
+     * </ul>
+     */
+    public void setBulkPartitionMigrationBlockSizeBytes(int bulkPartitionMigrationBlockSizeBytes) {
+        this.bulkPartitionMigrationBlockSizeBytes = bulkPartitionMigrationBlockSizeBytes;
+    }
+
+    public String getBulkPartitionMigrationCompression() {
+        return bulkPartitionMigrationCompression;
+    }
+
+    /**
+     * Compression applied by the donor to each block during bulk partition
+     * migration. One of the types understood by
+     * {@link voldemort.store.compress.CompressionStrategyFactory}
+     * 
+     * <ul>
+     * <li>Property :"bulk.partition.migration.compression"</li>
+     * <li>Default :gzip</li>
+     * </ul>
+     */
+    public void setBulkPartitionMigrationCompression(String bulkPartitionMigrationCompression) {
+        this.bulkPartitionMigrationCompression = bulkPartitionMigrationCompression;
+    }
+
     public boolean isEnableJmxClusterName() {
         return enableJmxClusterName;
     }
@@ -2786,6 +3294,47 @@ public class VoldemortConfig implements Serializable {
         this.useMlock = useMlock;
     }
 
+    public boolean isReadOnlyWarmUpBeforeSwap() {
+        return readOnlyWarmUpBeforeSwap;
+    }
+
+    /**
+     * If true, a new read-only version is brought into the page cache before
+     * it is swapped in, while the current version keeps serving reads. Its
+     * index files are faulted in, and the most recently read keys are looked
+     * up in it to bring in the data pages likely to be read next.
+     * 
+     * <ul>
+     * <li>Property : "readonly.warmup.before.swap"</li>
+     * <li>Default : false</li>
+     * </ul>
+     * 
+     * @param readOnlyWarmUpBeforeSwap
+     */
+    public void setReadOnlyWarmUpBeforeSwap(boolean readOnlyWarmUpBeforeSwap) {
+        this.readOnlyWarmUpBeforeSwap = readOnlyWarmUpBeforeSwap;
+    }
+
+    public int getReadOnlyWarmUpSampleSize() {
+        return readOnlyWarmUpSampleSize;
+    }
+
+    /**
+     * Number of most recently read keys, per read-only store, that are looked
+     * up in a new version while warming it up. Only used if
+     * "readonly.warmup.before.swap" is set.
+     * 
+     * <ul>
+     * <li>Property : "readonly.warmup.sample.size"</li>
+     * <li>Default : 10000</li>
+     * </ul>
+     * 
+     * @param readOnlyWarmUpSampleSize
+     */
+    public void setReadOnlyWarmUpSampleSize(int readOnlyWarmUpSampleSize) {
+        this.readOnlyWarmUpSampleSize = readOnlyWarmUpSampleSize;
+    }
+
     public int getGossipInterval() {
         return gossipIntervalMs;
     }
@@ -33,6 +33,9 @@ import org.apache.log4j.Logger;
 import voldemort.VoldemortException;
 import voldemort.client.protocol.VoldemortFilter;
 import voldemort.client.protocol.admin.AdminClient;
+import voldemort.client.protocol.admin.KeyRangeDigest;
+import voldemort.client.protocol.admin.filter.AvroProjectionFilter;
+import voldemort.client.protocol.admin.filter.KeyRangeFilter;
 import voldemort.client.protocol.admin.filter.DefaultVoldemortFilter;
 import voldemort.client.protocol.pb.ProtoUtils;
 import voldemort.client.protocol.pb.VAdminProto;
@@ -52,12 +55,15 @@ import voldemort.server.storage.StorageService;
 import voldemort.server.storage.VersionedPutPruneJob;
 import voldemort.store.ErrorCodeMapper;
 import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreDefinitionBuilder;
 import voldemort.store.StoreOperationFailureException;
+import voldemort.store.StoreUtils;
 import voldemort.store.backup.NativeBackupable;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.mysql.MysqlStorageEngine;
+import voldemort.store.projection.AvroProjection;
 import voldemort.store.readonly.FileFetcher;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
@@ -79,6 +85,7 @@ import voldemort.versioning.Versioned;
 import voldemort.xml.ClusterMapper;
 import voldemort.xml.StoreDefinitionsMapper;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Lists;
 
 /**
@@ -235,7 +242,7 @@ public class AdminServiceRequestHandler implements RequestHandler {
                                         handleGetROStorageFormat(request.getGetRoStorageFormat()));
                 break;
             case FETCH_PARTITION_FILES:
-                return handleFetchROPartitionFiles(request.getFetchPartitionFiles());
+                return handleFetchPartitionFiles(request.getFetchPartitionFiles());
             case UPDATE_SLOP_ENTRIES:
                 return handleUpdateSlopEntries(request.getUpdateSlopEntries());
             case FAILED_FETCH_STORE:
@@ -263,6 +270,10 @@ public class AdminServiceRequestHandler implements RequestHandler {
                 ProtoUtils.writeMessage(outputStream,
                                         handleReserveMemory(request.getReserveMemory()));
                 break;
+            case DIGEST_KEY_RANGES:
+                ProtoUtils.writeMessage(outputStream,
+                                        handleDigestKeyRanges(request.getDigestKeyRanges()));
+                break;
             default:
                 throw new VoldemortException("Unkown operation " + request.getType());
         }
@@ -501,11 +512,21 @@ public class AdminServiceRequestHandler implements RequestHandler {
         return response.build();
     }
 
-    public StreamRequestHandler handleFetchROPartitionFiles(VAdminProto.FetchPartitionFilesRequest request) {
-        return new FetchPartitionFileStreamRequestHandler(request,
-                                                          metadataStore,
-                                                          voldemortConfig,
-                                                          storeRepository);
+    public StreamRequestHandler handleFetchPartitionFiles(VAdminProto.FetchPartitionFilesRequest request) {
+        StoreDefinition storeDef = metadataStore.getStoreDef(request.getStoreName());
+        if(storeDef.getType().compareTo(ReadOnlyStorageConfiguration.TYPE_NAME) == 0) {
+            return new FetchPartitionFileStreamRequestHandler(request,
+                                                              metadataStore,
+                                                              voldemortConfig,
+                                                              storeRepository);
+        } else {
+            // read-write stores ship their partitions as compressed blocks,
+            // cut from a full scan if the engine cannot scan by partition
+            return new FetchPartitionBlockStreamRequestHandler(request,
+                                                               metadataStore,
+                                                               voldemortConfig,
+                                                               storeRepository);
+        }
     }
 
     public StreamRequestHandler handleUpdateSlopEntries(VAdminProto.UpdateSlopEntriesRequest request) {
@@ -566,6 +587,14 @@ public class AdminServiceRequestHandler implements RequestHandler {
                                                                            storageEngine,
                                                                            storeRepository,
                                                                            networkClassLoader);
+        } else if(request.hasSorted() && request.getSorted()) {
+            // sorted streams, e.g restores and fork lifts, can be bulk loaded
+            return new SortedUpdatePartitionEntriesStreamRequestHandler(request,
+                                                                        errorCodeMapper,
+                                                                        voldemortConfig,
+                                                                        storageEngine,
+                                                                        storeRepository,
+                                                                        networkClassLoader);
         } else {
             // else resort to vector clock based resolving..
             if(doesStorageEngineSupportMultiVersionPuts(storageEngine)) {
@@ -916,9 +945,9 @@ public class AdminServiceRequestHandler implements RequestHandler {
     public VAdminProto.AsyncOperationStatusResponse handleFetchAndUpdate(VAdminProto.InitiateFetchAndUpdateRequest request) {
         final int nodeId = request.getNodeId();
         final List<Integer> partitionIds = request.getPartitionIdsList();
-        final VoldemortFilter filter = request.hasFilter() ? getFilterFromRequest(request.getFilter(),
-                                                                                  voldemortConfig,
-                                                                                  networkClassLoader)
+        final VoldemortFilter filter = request.hasFilter() ? getUpdateFilterFromRequest(request.getFilter(),
+                                                                                        voldemortConfig,
+                                                                                        networkClassLoader)
                                                           : new DefaultVoldemortFilter();
         final String storeName = request.getStore();
 
@@ -936,6 +965,10 @@ public class AdminServiceRequestHandler implements RequestHandler {
                                                 .compareTo(ReadOnlyStorageConfiguration.TYPE_NAME) == 0;
         final StreamingStats streamingStats = voldemortConfig.isJmxEnabled() ? storeRepository.getStreamingStats(storeName)
                                                                             : null;
+        // bulk partition migration ships whole partitions, so it cannot honor
+        // custom filters
+        final boolean useBulkPartitionMigration = !isReadOnlyStore && !request.hasFilter()
+                                                  && voldemortConfig.useBulkPartitionMigrationForRebalance();
 
         try {
             asyncService.submitOperation(requestId, new AsyncOperation(requestId,
@@ -959,7 +992,7 @@ public class AdminServiceRequestHandler implements RequestHandler {
                         StorageEngine<ByteArray, byte[], byte[]> storageEngine = getStorageEngine(storeRepository,
                                                                                                   storeName);
 
-                        EventThrottler throttler = new EventThrottler(voldemortConfig.getStreamMaxWriteBytesPerSec());
+                        final EventThrottler throttler = new EventThrottler(voldemortConfig.getStreamMaxWriteBytesPerSec());
 
                         if(isReadOnlyStore) {
                             ReadOnlyStorageEngine readOnlyStorageEngine = ((ReadOnlyStorageEngine) storageEngine);
@@ -978,6 +1011,54 @@ public class AdminServiceRequestHandler implements RequestHandler {
                                                                                              .keySet(),
                                                                         running);
 
+                        } else if(useBulkPartitionMigration
+                                  && storageEngine.isPartitionScanSupported()) {
+                            logger.info("Fetching partition blocks for RW store '" + storeName
+                                        + "' from node " + nodeId + " ( " + partitionIds + " )");
+                            updateStatus("Fetching partition blocks for RW store '" + storeName
+                                         + "' from node " + nodeId + " ( " + partitionIds + " )");
+
+                            final Iterator<Pair<ByteArray, Versioned<byte[]>>> blockEntries = adminClient.bulkFetchOps.fetchPartitionBlocks(nodeId,
+                                                                                                                                       storeName,
+                                                                                                                                       partitionIds);
+                            final long startTime = System.currentTimeMillis();
+                            Iterator<Pair<ByteArray, Versioned<byte[]>>> entries = new AbstractIterator<Pair<ByteArray, Versioned<byte[]>>>() {
+
+                                private long numTuples = 0;
+
+                                @Override
+                                protected Pair<ByteArray, Versioned<byte[]>> computeNext() {
+                                    if(!running.get() || !blockEntries.hasNext())
+                                        return endOfData();
+
+                                    Pair<ByteArray, Versioned<byte[]>> entry = blockEntries.next();
+                                    throttler.maybeThrottle(entry.getFirst().length()
+                                                            + valueSize(entry.getSecond()));
+                                    if(streamingStats != null)
+                                        streamingStats.reportStreamingPut(Operation.UPDATE_ENTRIES);
+                                    if((numTuples % 100000) == 0 && numTuples > 0) {
+                                        long totalTime = (System.currentTimeMillis() - startTime) / 1000;
+                                        updateStatus(numTuples + " entries bulk loaded from node "
+                                                     + nodeId + " for store '" + storeName
+                                                     + "' in " + totalTime + " seconds");
+                                    }
+                                    numTuples++;
+                                    return entry;
+                                }
+                            };
+
+                            long numKeys = 0;
+                            storageEngine.beginBatchModifications();
+                            try {
+                                numKeys = storageEngine.bulkLoad(entries);
+                            } finally {
+                                storageEngine.endBatchModifications();
+                            }
+
+                            long totalTime = (System.currentTimeMillis() - startTime) / 1000;
+                            logger.info((running.get() ? "Completed" : "Stopped") + " bulk loading "
+                                        + numKeys + " keys from node " + nodeId + " for store '"
+                                        + storeName + "' in " + totalTime + " seconds");
                         } else {
                             logger.info("Fetching entries for RW store '" + storeName
                                         + "' from node " + nodeId + " ( " + partitionIds + " )");
@@ -1110,9 +1191,9 @@ public class AdminServiceRequestHandler implements RequestHandler {
 
             StorageEngine<ByteArray, byte[], byte[]> storageEngine = getStorageEngine(storeRepository,
                                                                                       storeName);
-            VoldemortFilter filter = (request.hasFilter()) ? getFilterFromRequest(request.getFilter(),
-                                                                                  voldemortConfig,
-                                                                                  networkClassLoader)
+            VoldemortFilter filter = (request.hasFilter()) ? getUpdateFilterFromRequest(request.getFilter(),
+                                                                                        voldemortConfig,
+                                                                                        networkClassLoader)
                                                           : new DefaultVoldemortFilter();
             EventThrottler throttler = new EventThrottler(voldemortConfig.getStreamMaxReadBytesPerSec());
             iterator = storageEngine.entries();
@@ -1223,6 +1304,55 @@ public class AdminServiceRequestHandler implements RequestHandler {
         return response.build();
     }
 
+    public VAdminProto.DigestKeyRangesResponse handleDigestKeyRanges(VAdminProto.DigestKeyRangesRequest request) {
+        VAdminProto.DigestKeyRangesResponse.Builder response = VAdminProto.DigestKeyRangesResponse.newBuilder();
+        ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> iterator = null;
+        try {
+            String storeName = request.getStore();
+            int partitionId = request.getPartitionId();
+            StorageEngine<ByteArray, byte[], byte[]> storageEngine = getStorageEngine(storeRepository,
+                                                                                      storeName);
+            StoreRoutingPlan routingPlan = new StoreRoutingPlan(metadataStore.getCluster(),
+                                                                metadataStore.getStoreDef(storeName));
+            boolean partitionScan = storageEngine.isPartitionScanSupported();
+            EventThrottler throttler = new EventThrottler(voldemortConfig.getStreamMaxReadBytesPerSec());
+            KeyRangeDigest digest = new KeyRangeDigest(request.getNumRanges());
+
+            iterator = partitionScan ? storageEngine.entries(partitionId) : storageEngine.entries();
+            while(iterator.hasNext()) {
+                Pair<ByteArray, Versioned<byte[]>> entry = iterator.next();
+
+                ByteArray key = entry.getFirst();
+                Versioned<byte[]> value = entry.getSecond();
+                throttler.maybeThrottle(key.length() + valueSize(value));
+                if(!partitionScan && routingPlan.getMasterPartitionId(key.get()) != partitionId) {
+                    continue;
+                }
+                if(request.hasExpiredBeforeMs()
+                   && ((VectorClock) value.getVersion()).getTimestamp() < request.getExpiredBeforeMs()) {
+                    digest.recordExpired();
+                } else {
+                    digest.record(key, KeyRangeDigest.hashVersion(value, request.getHashValues()));
+                }
+            }
+
+            for(int range = 0; range < digest.getNumRanges(); range++) {
+                response.addDigests(digest.getDigest(range));
+                response.addKeyCounts(digest.getKeyCount(range));
+            }
+            response.setScanned(digest.getScanned());
+            response.setExpired(digest.getExpired());
+        } catch(VoldemortException e) {
+            response.setError(ProtoUtils.encodeError(errorCodeMapper, e));
+            logger.error("handleDigestKeyRanges failed for request(" + request.toString() + ")", e);
+        } finally {
+            if(null != iterator)
+                iterator.close();
+        }
+
+        return response.build();
+    }
+
     public VAdminProto.DeleteStoreResponse handleDeleteStore(VAdminProto.DeleteStoreRequest request) {
         VAdminProto.DeleteStoreResponse.Builder response = VAdminProto.DeleteStoreResponse.newBuilder();
 
@@ -1421,6 +1551,13 @@ public class AdminServiceRequestHandler implements RequestHandler {
 
         byte[] classBytes = ProtoUtils.decodeBytes(request.getData()).get();
         String className = request.getName();
+
+        // built-in filters ship their definition instead of class bytes
+        if(className.equals(AvroProjectionFilter.class.getName()))
+            return new AvroProjectionFilter(AvroProjection.fromBytes(classBytes));
+        if(className.equals(KeyRangeFilter.class.getName()))
+            return KeyRangeFilter.fromBytes(classBytes);
+
         logger.debug("Attempt to load VoldemortFilter class:" + className);
 
         try {
@@ -1445,6 +1582,20 @@ public class AdminServiceRequestHandler implements RequestHandler {
         return filter;
     }
 
+    /**
+     * Loads the filter of a request writing or deleting the entries it
+     * accepts, which cannot use projections since the projected values are
+     * not the stored ones.
+     */
+    static VoldemortFilter getUpdateFilterFromRequest(VAdminProto.VoldemortFilter request,
+                                                      VoldemortConfig voldemortConfig,
+                                                      NetworkClassLoader networkClassLoader) {
+        VoldemortFilter filter = getFilterFromRequest(request, voldemortConfig, networkClassLoader);
+        if(filter instanceof AvroProjectionFilter)
+            throw new VoldemortException("Avro projection filters can only be used to fetch entries");
+        return filter;
+    }
+
     static int valueSize(Versioned<byte[]> value) {
         return value.getValue().length + ((VectorClock) value.getVersion()).sizeInBytes() + 1;
     }
@@ -1482,9 +1633,11 @@ public class AdminServiceRequestHandler implements RequestHandler {
                                                                                                             .setDescription("Native backup")
                                                                                                             .setStatus("started");
         try {
-            final StorageEngine storageEngine = getStorageEngine(storeRepository, storeName);
+            final NativeBackupable backupable = (NativeBackupable) StoreUtils.getCapabilityOrNull(getStorageEngine(storeRepository,
+                                                                                                                  storeName),
+                                                                                                 StoreCapabilityType.NATIVE_BACKUP);
             final long start = System.currentTimeMillis();
-            if(storageEngine instanceof NativeBackupable) {
+            if(backupable != null) {
 
                 asyncService.submitOperation(requestId, new AsyncOperation(requestId,
                                                                            "Native backup") {
@@ -1498,10 +1651,7 @@ public class AdminServiceRequestHandler implements RequestHandler {
 
                     @Override
                     public void operate() {
-                        ((NativeBackupable) storageEngine).nativeBackup(backupDir,
-                                                                        verifyFiles,
-                                                                        isIncremental,
-                                                                        status);
+                        backupable.nativeBackup(backupDir, verifyFiles, isIncremental, status);
                     }
 
                     @Override
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.protocol.admin;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+
+import voldemort.VoldemortException;
+import voldemort.client.protocol.pb.ProtoUtils;
+import voldemort.client.protocol.pb.VAdminProto;
+import voldemort.routing.RoutingStrategy;
+import voldemort.server.StoreRepository;
+import voldemort.server.VoldemortConfig;
+import voldemort.server.protocol.StreamRequestHandler;
+import voldemort.store.PartitionBlockFormat;
+import voldemort.store.StorageEngine;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.metadata.MetadataStore;
+import voldemort.store.stats.StreamingStats;
+import voldemort.store.stats.StreamingStats.Operation;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.EventThrottler;
+import voldemort.utils.Pair;
+import voldemort.utils.Utils;
+import voldemort.versioning.Versioned;
+
+/**
+ * Streams the partitions of a partition aware read-write store as a sequence
+ * of compressed blocks, each holding a sorted run of the partition's entries
+ * in {@link PartitionBlockFormat}. Every block is preceded by a
+ * {@link VAdminProto.FileEntry} header, so the stream is framed the same way
+ * as the read-only partition files sent by
+ * {@link FetchPartitionFileStreamRequestHandler}.
+ * 
+ * Storage engines without partition scans are scanned once in full instead,
+ * keeping the entries whose master partition was asked for. Their blocks mix
+ * the requested partitions and are not sorted by key.
+ */
+public class FetchPartitionBlockStreamRequestHandler implements StreamRequestHandler {
+
+    private final Logger logger = Logger.getLogger(getClass());
+
+    private final VAdminProto.FetchPartitionFilesRequest request;
+
+    private final StorageEngine<ByteArray, byte[], byte[]> storageEngine;
+
+    private final EventThrottler throttler;
+
+    private final StreamingStats streamStats;
+
+    private final long blockSizeBytes;
+
+    private final CompressionStrategy compressionStrategy;
+
+    private final Iterator<Integer> partitionIterator;
+
+    private final boolean isPartitionScanSupported;
+
+    private final Set<Integer> partitionIds;
+
+    private final RoutingStrategy routingStrategy;
+
+    private ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entriesIterator;
+
+    private int currentPartition;
+
+    private int currentBlockId;
+
+    protected FetchPartitionBlockStreamRequestHandler(VAdminProto.FetchPartitionFilesRequest request,
+                                                      MetadataStore metadataStore,
+                                                      VoldemortConfig voldemortConfig,
+                                                      StoreRepository storeRepository) {
+        this.request = request;
+        this.storageEngine = AdminServiceRequestHandler.getStorageEngine(storeRepository,
+                                                                         request.getStoreName());
+        this.isPartitionScanSupported = storageEngine.isPartitionScanSupported();
+        this.partitionIds = new HashSet<Integer>(request.getPartitionIdsList());
+        if(isPartitionScanSupported) {
+            this.routingStrategy = null;
+        } else {
+            this.routingStrategy = metadataStore.getRoutingStrategy(request.getStoreName());
+            logger.info("Store " + request.getStoreName()
+                        + " does not support partition scans, scanning it in full to stream partitions "
+                        + request.getPartitionIdsList());
+        }
+        this.blockSizeBytes = voldemortConfig.getBulkPartitionMigrationBlockSizeBytes();
+        this.compressionStrategy = PartitionBlockFormat.getCompressionStrategyForType(voldemortConfig.getBulkPartitionMigrationCompression());
+        this.throttler = new EventThrottler(voldemortConfig.getStreamMaxReadBytesPerSec());
+        if(voldemortConfig.isJmxEnabled()) {
+            this.streamStats = storeRepository.getStreamingStats(storageEngine.getName());
+        } else {
+            this.streamStats = null;
+        }
+        if(isPartitionScanSupported)
+            this.partitionIterator = Collections.unmodifiableList(request.getPartitionIdsList())
+                                                .iterator();
+        else
+            this.partitionIterator = Collections.singletonList(PartitionBlockFormat.MIXED_PARTITIONS)
+                                                .iterator();
+        this.entriesIterator = null;
+    }
+
+    @Override
+    public StreamRequestDirection getDirection() {
+        return StreamRequestDirection.WRITING;
+    }
+
+    @Override
+    public final void close(DataOutputStream outputStream) throws IOException {
+        if(null != entriesIterator)
+            entriesIterator.close();
+        ProtoUtils.writeEndOfStream(outputStream);
+    }
+
+    @Override
+    public final void handleError(DataOutputStream outputStream, VoldemortException e)
+            throws IOException {
+        logger.error("handleFetchPartitionBlocks failed for request(" + request.toString() + ")",
+                     e);
+    }
+
+    @Override
+    public StreamRequestHandlerState handleRequest(DataInputStream inputStream,
+                                                   DataOutputStream outputStream)
+            throws IOException {
+        if(entriesIterator == null) {
+            if(!partitionIterator.hasNext()) {
+                logger.info("Finished streaming blocks for partitions "
+                            + request.getPartitionIdsList() + " of store "
+                            + storageEngine.getName());
+                return StreamRequestHandlerState.COMPLETE;
+            }
+            currentPartition = partitionIterator.next();
+            currentBlockId = 0;
+            if(isPartitionScanSupported)
+                entriesIterator = storageEngine.entries(currentPartition);
+            else
+                entriesIterator = storageEngine.entries();
+            logger.info("Streaming blocks for partition " + currentPartition + " of store "
+                        + storageEngine.getName());
+            return StreamRequestHandlerState.WRITING;
+        }
+
+        // gather up the next sorted run of entries for the partition
+        long startNs = System.nanoTime();
+        List<Pair<ByteArray, Versioned<byte[]>>> block = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>();
+        long blockBytes = 0;
+        while(blockBytes < blockSizeBytes && entriesIterator.hasNext()) {
+            Pair<ByteArray, Versioned<byte[]>> entry = entriesIterator.next();
+            if(!isPartitionScanSupported
+               && !partitionIds.contains(routingStrategy.getMasterPartition(entry.getFirst().get())))
+                continue;
+            block.add(entry);
+            blockBytes += entry.getFirst().length()
+                          + AdminServiceRequestHandler.valueSize(entry.getSecond());
+        }
+        if(streamStats != null) {
+            streamStats.reportStorageTime(Operation.FETCH_FILE,
+                                          Utils.elapsedTimeNs(startNs, System.nanoTime()));
+        }
+
+        if(!block.isEmpty())
+            writeBlock(outputStream, block);
+
+        if(!entriesIterator.hasNext()) {
+            entriesIterator.close();
+            entriesIterator = null;
+            logger.info("Completed streaming " + currentBlockId + " blocks for partition "
+                        + currentPartition + " of store " + storageEngine.getName());
+        }
+        return StreamRequestHandlerState.WRITING;
+    }
+
+    private void writeBlock(DataOutputStream outputStream,
+                            List<Pair<ByteArray, Versioned<byte[]>>> block) throws IOException {
+        long startNs = System.nanoTime();
+        byte[] data = compressionStrategy.deflate(PartitionBlockFormat.toByteArray(block));
+        VAdminProto.FileEntry header = VAdminProto.FileEntry.newBuilder()
+                                                            .setFileName(PartitionBlockFormat.getBlockName(currentPartition,
+                                                                                                           currentBlockId++,
+                                                                                                           compressionStrategy.getType()))
+                                                            .setFileSizeBytes(data.length)
+                                                            .build();
+        ProtoUtils.writeMessage(outputStream, header);
+        outputStream.write(data);
+
+        if(streamStats != null) {
+            streamStats.reportNetworkTime(Operation.FETCH_FILE,
+                                          Utils.elapsedTimeNs(startNs, System.nanoTime()));
+            streamStats.reportStreamingFetch(Operation.FETCH_FILE);
+        }
+        throttler.maybeThrottle(header.getSerializedSize() + data.length);
+    }
+}
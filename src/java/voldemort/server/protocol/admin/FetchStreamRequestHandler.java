@@ -25,6 +25,7 @@ import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
 import voldemort.client.protocol.VoldemortFilter;
+import voldemort.client.protocol.admin.filter.AvroProjectionFilter;
 import voldemort.client.protocol.admin.filter.DefaultVoldemortFilter;
 import voldemort.client.protocol.pb.ProtoUtils;
 import voldemort.client.protocol.pb.VAdminProto;
@@ -37,6 +38,8 @@ import voldemort.store.ErrorCodeMapper;
 import voldemort.store.StorageEngine;
 import voldemort.store.StoreDefinition;
 import voldemort.store.metadata.MetadataStore;
+import voldemort.store.projection.AvroProjection;
+import voldemort.store.projection.AvroProjector;
 import voldemort.store.stats.StreamingStats;
 import voldemort.store.system.SystemStoreConstants;
 import voldemort.utils.ByteArray;
@@ -44,6 +47,7 @@ import voldemort.utils.EventThrottler;
 import voldemort.utils.NetworkClassLoader;
 import voldemort.utils.Time;
 import voldemort.utils.Utils;
+import voldemort.versioning.Versioned;
 import voldemort.xml.ClusterMapper;
 
 import com.google.protobuf.Message;
@@ -92,6 +96,10 @@ public abstract class FetchStreamRequestHandler implements StreamRequestHandler
 
     protected final StoreRoutingPlan storeInstance;
 
+    protected final AvroProjection projection;
+
+    protected final AvroProjector projector;
+
     protected FetchStreamRequestHandler(VAdminProto.FetchPartitionEntriesRequest request,
                                         MetadataStore metadataStore,
                                         ErrorCodeMapper errorCodeMapper,
@@ -129,6 +137,13 @@ public abstract class FetchStreamRequestHandler implements StreamRequestHandler
         } else {
             this.filter = new DefaultVoldemortFilter();
         }
+        if(filter instanceof AvroProjectionFilter) {
+            this.projection = ((AvroProjectionFilter) filter).getProjection();
+            this.projector = new AvroProjector(storeDef.getValueSerializer());
+        } else {
+            this.projection = null;
+            this.projector = null;
+        }
         this.startTimeMs = System.currentTimeMillis();
         this.scanned = 0;
 
@@ -150,6 +165,19 @@ public abstract class FetchStreamRequestHandler implements StreamRequestHandler
         return def;
     }
 
+    /**
+     * Applies the projection of an {@link AvroProjectionFilter}, if the
+     * request has one, to an entry accepted by the filter.
+     * 
+     * @param value The value as stored
+     * @return The value to send, or null if it fails the projection predicates
+     */
+    protected Versioned<byte[]> projectValue(Versioned<byte[]> value) {
+        if(projector == null)
+            return value;
+        return projector.project(projection, value);
+    }
+
     @Override
     public final StreamRequestDirection getDirection() {
         return StreamRequestDirection.WRITING;
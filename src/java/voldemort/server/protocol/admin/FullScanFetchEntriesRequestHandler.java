@@ -87,20 +87,22 @@ public class FullScanFetchEntriesRequestHandler extends FullScanFetchStreamReque
             throttler.maybeThrottle(key.length());
             for(Versioned<byte[]> value: values) {
 
-                if(filter.accept(key, value)) {
+                Versioned<byte[]> fetchedValue = filter.accept(key, value) ? projectValue(value)
+                                                                           : null;
+                if(fetchedValue != null) {
                     accountForFetchedKey(key.get());
 
                     VAdminProto.FetchPartitionEntriesResponse.Builder response = VAdminProto.FetchPartitionEntriesResponse.newBuilder();
                     VAdminProto.PartitionEntry partitionEntry = VAdminProto.PartitionEntry.newBuilder()
                                                                                           .setKey(ProtoUtils.encodeBytes(key))
-                                                                                          .setVersioned(ProtoUtils.encodeVersioned(value))
+                                                                                          .setVersioned(ProtoUtils.encodeVersioned(fetchedValue))
                                                                                           .build();
                     response.setPartitionEntry(partitionEntry);
                     Message message = response.build();
 
                     sendMessage(outputStream, message);
 
-                    throttler.maybeThrottle(AdminServiceRequestHandler.valueSize(value));
+                    throttler.maybeThrottle(AdminServiceRequestHandler.valueSize(fetchedValue));
                 }
             }
         } else {
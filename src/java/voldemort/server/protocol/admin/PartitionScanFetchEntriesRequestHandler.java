@@ -106,20 +106,22 @@ public class PartitionScanFetchEntriesRequestHandler extends PartitionScanFetchS
 
                 throttler.maybeThrottle(key.length());
 
-                if(filter.accept(key, value)) {
+                Versioned<byte[]> fetchedValue = filter.accept(key, value) ? projectValue(value)
+                                                                           : null;
+                if(fetchedValue != null) {
                     recordFetched();
 
                     VAdminProto.FetchPartitionEntriesResponse.Builder response = VAdminProto.FetchPartitionEntriesResponse.newBuilder();
                     VAdminProto.PartitionEntry partitionEntry = VAdminProto.PartitionEntry.newBuilder()
                                                                                           .setKey(ProtoUtils.encodeBytes(key))
-                                                                                          .setVersioned(ProtoUtils.encodeVersioned(value))
+                                                                                          .setVersioned(ProtoUtils.encodeVersioned(fetchedValue))
                                                                                           .build();
                     response.setPartitionEntry(partitionEntry);
                     Message message = response.build();
 
                     sendMessage(outputStream, message);
 
-                    throttler.maybeThrottle(AdminServiceRequestHandler.valueSize(value));
+                    throttler.maybeThrottle(AdminServiceRequestHandler.valueSize(fetchedValue));
                 }
 
                 accountForScanProgress("entries");
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.protocol.admin;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import voldemort.client.protocol.pb.VAdminProto.UpdatePartitionEntriesRequest;
+import voldemort.server.StoreRepository;
+import voldemort.server.VoldemortConfig;
+import voldemort.store.ErrorCodeMapper;
+import voldemort.store.StorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.utils.NetworkClassLoader;
+import voldemort.utils.Pair;
+import voldemort.versioning.Versioned;
+
+/**
+ * Handles an update entries stream that the client declared sorted by key.
+ * Entries are buffered and handed over to
+ * {@link StorageEngine#bulkLoad(java.util.Iterator)} in chunks, so the storage
+ * engine can write them in large batches instead of one put at a time.
+ * 
+ * The buffer is only flushed at key boundaries, so all the versions of a key
+ * are always loaded together. What is left in the buffer is loaded when the
+ * end of the stream arrives, so a failure to load it is reported to the
+ * client like any other. Entries still buffered when the stream fails are
+ * dropped. Storage engines that relax durability while bulk loading make the
+ * data durable when the batch modifications started by this handler end, on
+ * close.
+ */
+class SortedUpdatePartitionEntriesStreamRequestHandler extends
+        UpdatePartitionEntriesStreamRequestHandler {
+
+    private final int bufferSize;
+
+    private List<Pair<ByteArray, Versioned<byte[]>>> buffer;
+
+    private long numKeysUpdated;
+
+    public SortedUpdatePartitionEntriesStreamRequestHandler(UpdatePartitionEntriesRequest request,
+                                                            ErrorCodeMapper errorCodeMapper,
+                                                            VoldemortConfig voldemortConfig,
+                                                            StorageEngine<ByteArray, byte[], byte[]> storageEngine,
+                                                            StoreRepository storeRepository,
+                                                            NetworkClassLoader networkClassLoader) {
+        super(request,
+              errorCodeMapper,
+              voldemortConfig,
+              storageEngine,
+              storeRepository,
+              networkClassLoader);
+        this.bufferSize = voldemortConfig.getSortedStreamingPutsBufferSize();
+        this.buffer = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>(bufferSize);
+        this.numKeysUpdated = 0;
+    }
+
+    private void loadBufferedEntriesIfAny() {
+        if(buffer.size() > 0) {
+            List<Pair<ByteArray, Versioned<byte[]>>> entries = buffer;
+            buffer = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>(bufferSize);
+            numKeysUpdated += storageEngine.bulkLoad(entries.iterator());
+        }
+    }
+
+    @Override
+    public StreamRequestHandlerState handleRequest(DataInputStream inputStream,
+                                                   DataOutputStream outputStream)
+            throws IOException {
+        StreamRequestHandlerState state = super.handleRequest(inputStream, outputStream);
+        if(state == StreamRequestHandlerState.COMPLETE) {
+            // a failure propagates to handleError, before the response is sent
+            loadBufferedEntriesIfAny();
+            logger.info(getHandlerName() + " bulk loaded " + numKeysUpdated
+                        + " keys for store '" + storageEngine.getName() + "'");
+        }
+        return state;
+    }
+
+    @Override
+    protected void processEntry(ByteArray key, Versioned<byte[]> value) throws IOException {
+        // only flush when the key changes, to keep all its versions together
+        if(buffer.size() >= bufferSize && !key.equals(buffer.get(buffer.size() - 1).getFirst())) {
+            loadBufferedEntriesIfAny();
+        }
+        buffer.add(Pair.create(key, value));
+    }
+
+    @Override
+    protected String getHandlerName() {
+        return "SortedUpdateEntries";
+    }
+}
@@ -81,9 +81,9 @@ public class UpdatePartitionEntriesStreamRequestHandler implements StreamRequest
         this.errorCodeMapper = errorCodeMapper;
         this.storageEngine = storageEngine;
         throttler = new EventThrottler(voldemortConfig.getStreamMaxReadBytesPerSec());
-        filter = (request.hasFilter()) ? AdminServiceRequestHandler.getFilterFromRequest(request.getFilter(),
-                                                                                         voldemortConfig,
-                                                                                         networkClassLoader)
+        filter = (request.hasFilter()) ? AdminServiceRequestHandler.getUpdateFilterFromRequest(request.getFilter(),
+                                                                                               voldemortConfig,
+                                                                                               networkClassLoader)
                                       : new DefaultVoldemortFilter();
         startTime = System.currentTimeMillis();
         if(voldemortConfig.isJmxEnabled()) {
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.rebalance;
+
+import org.apache.log4j.Logger;
+
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.store.stats.StoreStats;
+import voldemort.store.stats.StreamingStats;
+import voldemort.store.stats.Tracked;
+import voldemort.utils.Time;
+
+/**
+ * Bounds the number of partition-stores a stealer node migrates at the same
+ * time, across all its donors, and adapts the bound to the load on the node.
+ * 
+ * <br>
+ * 
+ * Every sampling interval the limit is resized:
+ * <ul>
+ * <li>halved when the client p99 latency is above the target</li>
+ * <li>reduced by one when the previous increase lowered the streaming
+ * throughput</li>
+ * <li>increased by one when all the permits are in use</li>
+ * </ul>
+ * 
+ * Shrinking the limit does not stop running migrations, it only holds back
+ * new ones until enough of them have completed.
+ */
+@JmxManaged(description = "Adapts the number of partition-stores migrated in parallel")
+public class AdaptiveRebalanceLimiter {
+
+    private final static Logger logger = Logger.getLogger(AdaptiveRebalanceLimiter.class);
+
+    /*
+     * Drop in throughput, after an increase of the limit, which is still
+     * considered as noise
+     */
+    private final static double THROUGHPUT_TOLERANCE = 0.1;
+
+    private final int maxLimit;
+    private final long targetP99Ms;
+    private final long intervalMs;
+    private final StoreStats clientStats;
+    private final StreamingStats streamingStats;
+    private final Time time;
+
+    private int limit;
+    private int active;
+    private boolean grown;
+    private double lastThroughput;
+    private long lastAdjustMs;
+
+    /**
+     * @param maxLimit Maximum number of parallel migrations
+     * @param targetP99Ms Client p99 latency to stay under
+     * @param intervalMs Interval between two resizes of the limit
+     * @param clientStats Statistics of the client requests, may be null
+     * @param streamingStats Statistics of the streamed entries, may be null
+     * @param time Time source
+     */
+    public AdaptiveRebalanceLimiter(int maxLimit,
+                                    long targetP99Ms,
+                                    long intervalMs,
+                                    StoreStats clientStats,
+                                    StreamingStats streamingStats,
+                                    Time time) {
+        if(maxLimit < 1)
+            throw new IllegalArgumentException("Maximum parallel migrations must be at least 1");
+        this.maxLimit = maxLimit;
+        this.targetP99Ms = targetP99Ms;
+        this.intervalMs = intervalMs;
+        this.clientStats = clientStats;
+        this.streamingStats = streamingStats;
+        this.time = time;
+        this.limit = 1;
+        this.active = 0;
+        this.grown = false;
+        this.lastThroughput = 0;
+        this.lastAdjustMs = time.getMilliseconds();
+    }
+
+    /**
+     * Blocks until a partition-store migration may start
+     * 
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while(true) {
+            if(time.getMilliseconds() - lastAdjustMs >= intervalMs)
+                adjust(getClientP99Ms(), getStreamingThroughput());
+            if(active < limit) {
+                active++;
+                return;
+            }
+            wait(intervalMs);
+        }
+    }
+
+    /**
+     * Signals that a migration started with {@link #acquire()} is over
+     */
+    public synchronized void release() {
+        if(active <= 0)
+            throw new IllegalStateException("Released more migrations than acquired");
+        active--;
+        notifyAll();
+    }
+
+    /**
+     * Resizes the limit given a sample of the client p99 latency and the
+     * streaming throughput
+     * 
+     * @param clientP99Ms Client p99 latency in ms
+     * @param throughput Streamed entries per second
+     */
+    public synchronized void adjust(double clientP99Ms, double throughput) {
+        int previous = limit;
+        if(clientP99Ms > targetP99Ms) {
+            limit = Math.max(1, limit / 2);
+            grown = false;
+        } else if(grown && throughput < lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+            limit = Math.max(1, limit - 1);
+            grown = false;
+        } else if(active >= limit && limit < maxLimit) {
+            limit++;
+            grown = true;
+        } else {
+            grown = false;
+        }
+        lastThroughput = throughput;
+        lastAdjustMs = time.getMilliseconds();
+
+        if(limit != previous) {
+            logger.info("Parallel partition-store migrations changed from " + previous + " to "
+                        + limit + " (client p99 " + clientP99Ms + " ms, streaming " + throughput
+                        + " entries/sec)");
+            notifyAll();
+        }
+    }
+
+    private double getClientP99Ms() {
+        if(clientStats == null)
+            return 0;
+        return Math.max(Math.max(clientStats.getQ99LatencyInMs(Tracked.GET),
+                                 clientStats.getQ99LatencyInMs(Tracked.GET_ALL)),
+                        clientStats.getQ99LatencyInMs(Tracked.PUT));
+    }
+
+    private double getStreamingThroughput() {
+        if(streamingStats == null)
+            return 0;
+        return streamingStats.getUpdateEntriesPutRate();
+    }
+
+    @JmxGetter(name = "parallelMigrationLimit", description = "Number of partition-stores which may be migrated in parallel")
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    @JmxGetter(name = "numActiveMigrations", description = "Number of partition-stores being migrated")
+    public synchronized int getNumActive() {
+        return active;
+    }
+}
@@ -34,6 +34,8 @@ import voldemort.store.StoreDefinition;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
+import voldemort.utils.JmxUtils;
+import voldemort.utils.SystemTime;
 import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 
@@ -57,6 +59,7 @@ public class Rebalancer implements Runnable {
     private final VoldemortConfig voldemortConfig;
     private final StoreRepository storeRepository;
     private final Set<Integer> rebalancePermits = Collections.synchronizedSet(new HashSet<Integer>());
+    private volatile AdaptiveRebalanceLimiter rebalanceLimiter;
 
     public Rebalancer(StoreRepository storeRepository,
                       MetadataStore metadataStore,
@@ -72,10 +75,31 @@ public class Rebalancer implements Runnable {
         return asyncService;
     }
 
-    public void start() {}
+    public void start() {
+        if(voldemortConfig.isAdaptiveRebalancingEnabled()) {
+            rebalanceLimiter = new AdaptiveRebalanceLimiter(voldemortConfig.getMaxParallelStoresRebalancing(),
+                                                            voldemortConfig.getRebalancingTargetClientP99Ms(),
+                                                            voldemortConfig.getRebalancingAdaptiveIntervalMs(),
+                                                            storeRepository.getAggregatedStoreStats(),
+                                                            storeRepository.getAggregatedStreamingStats(),
+                                                            SystemTime.INSTANCE);
+            if(voldemortConfig.isJmxEnabled())
+                JmxUtils.registerMbean(rebalanceLimiter,
+                                       JmxUtils.createObjectName(JmxUtils.getPackageName(AdaptiveRebalanceLimiter.class),
+                                                                 "rebalance-limiter"));
+        }
+    }
 
     public void stop() {}
 
+    /**
+     * Returns the limiter of parallel partition-store migrations, or null if
+     * adaptive rebalancing is disabled
+     */
+    public AdaptiveRebalanceLimiter getRebalanceLimiter() {
+        return rebalanceLimiter;
+    }
+
     /**
      * This is called only once at startup
      */
@@ -426,8 +450,9 @@ public class Rebalancer implements Runnable {
         if(info == null) {
             throw new VoldemortException("Could not find plan " + stealInfo
                                          + " in the server state on " + metadataStore.getNodeId());
-        } else if(!info.equals(stealInfo)) {
-            // If we do have the plan, is it the same
+        } else if(!info.equals(stealInfo) && !info.isRemainderOf(stealInfo)) {
+            // If we do have the plan, is it the same, or what remains of it
+            // once the stores checkpointed by an interrupted run are done
             throw new VoldemortException("The plan in server state " + info
                                          + " is not the same as the process passed " + stealInfo);
         } else if(!acquireRebalancingPermit(stealInfo.getDonorId())) {
@@ -437,6 +462,10 @@ public class Rebalancer implements Runnable {
                                                   + info.getDonorId() + " with info " + info);
         }
 
+        if(!info.equals(stealInfo)) {
+            logger.info("Resuming rebalance of " + stealInfo + " with the stores left in " + info);
+        }
+
         // Acquired lock successfully, start rebalancing...
         int requestId = asyncService.getUniqueRequestId();
 
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.rebalance.RebalanceTaskInfo;
 import voldemort.server.VoldemortConfig;
+import voldemort.server.rebalance.AdaptiveRebalanceLimiter;
 import voldemort.server.rebalance.Rebalancer;
 import voldemort.server.rebalance.VoldemortRebalancingException;
 import voldemort.store.metadata.MetadataStore;
@@ -91,11 +92,22 @@ public class StealerBasedRebalanceAsyncOperation extends RebalanceAsyncOperation
                                          + totalStoresCount + " stores. Still rebalancing "
                                          + storesRebalancing);
 
-                            // Start the rebalance..
-                            rebalanceStore(storeName, adminClient, stealInfo, isReadOnlyStore);
-
-                            // We finished the store, delete it
+                            // Start the rebalance, once the node can take
+                            // one more migration
+                            AdaptiveRebalanceLimiter limiter = rebalancer.getRebalanceLimiter();
+                            if(limiter != null)
+                                limiter.acquire();
+                            try {
+                                rebalanceStore(storeName, adminClient, stealInfo, isReadOnlyStore);
+                            } finally {
+                                if(limiter != null)
+                                    limiter.release();
+                            }
+
+                            // We finished the store, delete it and checkpoint
+                            // so that a resumed rebalance skips it
                             stealInfo.removeStore(storeName);
+                            metadataStore.checkpointRebalancingState(stealInfo);
                             storesRebalancing.remove(storeName);
 
                             // Increment the store count
@@ -16,15 +16,20 @@
 
 package voldemort.server.scheduler;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
 import voldemort.annotations.jmx.JmxGetter;
+import voldemort.server.storage.PartitionScanner;
 import voldemort.server.storage.ScanPermitWrapper;
 import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.metadata.MetadataStore.VoldemortState;
+import voldemort.store.retention.ExpiryIndexed;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.Pair;
@@ -35,7 +40,12 @@ import voldemort.versioning.Versioned;
 
 /**
  * Expire old data
- * 
+ * <p>
+ * If the store keeps a complete expiry index, only the keys written before the
+ * retention cutoff are visited. Otherwise the whole store is scanned, and an
+ * incomplete index is backfilled with the surviving entries along the way, so
+ * the following runs can use it. The scan may be split across partitions,
+ * scanned concurrently under the same throttler.
  * 
  */
 public class DataCleanupJob<K, V, T> implements Runnable {
@@ -43,6 +53,8 @@ public class DataCleanupJob<K, V, T> implements Runnable {
     private static final Logger logger = Logger.getLogger(DataCleanupJob.class);
 
     private final StorageEngine<K, V, T> store;
+    private final ExpiryIndexed<K> expiryIndex;
+    private final int scanParallelism;
     private final ScanPermitWrapper cleanupPermits;
     private final long maxAgeMs;
     private final Time time;
@@ -59,7 +71,33 @@ public class DataCleanupJob<K, V, T> implements Runnable {
                           Time time,
                           EventThrottler throttler,
                           MetadataStore metadataStore) {
+        this(store,
+             cleanupPermits,
+             maxAgeMs,
+             time,
+             throttler,
+             metadataStore,
+             expiryIndexOf(store),
+             1);
+    }
+
+    /**
+     * @param expiryIndex The expiry index of the store's data, or null if
+     *        there is none. Deletes always go through the store.
+     * @param scanParallelism The number of partitions to scan at once, when
+     *        the store has to be scanned
+     */
+    public DataCleanupJob(StorageEngine<K, V, T> store,
+                          ScanPermitWrapper cleanupPermits,
+                          long maxAgeMs,
+                          Time time,
+                          EventThrottler throttler,
+                          MetadataStore metadataStore,
+                          ExpiryIndexed<K> expiryIndex,
+                          int scanParallelism) {
         this.store = Utils.notNull(store);
+        this.expiryIndex = expiryIndex;
+        this.scanParallelism = scanParallelism;
         this.cleanupPermits = Utils.notNull(cleanupPermits);
         this.maxAgeMs = maxAgeMs;
         this.time = time;
@@ -69,6 +107,12 @@ public class DataCleanupJob<K, V, T> implements Runnable {
         this.metadataStore = metadataStore;
     }
 
+    @SuppressWarnings("unchecked")
+    private static <K> ExpiryIndexed<K> expiryIndexOf(StorageEngine<K, ?, ?> store) {
+        return (ExpiryIndexed<K>) StoreUtils.getCapabilityOrNull(store,
+                                                                 StoreCapabilityType.EXPIRY_INDEX);
+    }
+
     @Override
     public void run() {
 
@@ -83,41 +127,25 @@ public class DataCleanupJob<K, V, T> implements Runnable {
         acquireCleanupPermit(scanProgressThisRun, deleteProgressThisRun);
         store.beginBatchModifications();
 
-        ClosableIterator<Pair<K, Versioned<V>>> iterator = null;
         try {
             logger.info("Starting data cleanup on store \"" + store.getName() + "\"...");
             long now = time.getMilliseconds();
-            iterator = store.entries();
-
-            while(iterator.hasNext()) {
-                // check if we have been interrupted
-                if(Thread.currentThread().isInterrupted()) {
-                    logger.info("Datacleanup job halted.");
-                    return;
-                }
-                scanProgressThisRun.incrementAndGet();
-                Pair<K, Versioned<V>> keyAndVal = iterator.next();
-                VectorClock clock = (VectorClock) keyAndVal.getSecond().getVersion();
-                if(now - clock.getTimestamp() > maxAgeMs) {
-                    store.delete(keyAndVal.getFirst(), clock);
-                    this.deleteProgressThisRun.incrementAndGet();
-                    if(this.deleteProgressThisRun.get() % 10000 == 0)
-                        logger.debug("Deleted item " + this.deleteProgressThisRun.get());
-                }
+            boolean completed;
+            if(expiryIndex != null && expiryIndex.isExpiryIndexComplete())
+                completed = cleanupIndexedKeys(now);
+            else
+                completed = cleanupAllEntries(now);
 
-                // throttle on number of entries.
-                throttler.maybeThrottle(1);
+            if(completed) {
+                // log the total items scanned, so we will get an idea of data
+                // growth in a cheap, periodic way
+                logger.info("Data cleanup on store \"" + store.getName() + "\" is complete; "
+                            + this.deleteProgressThisRun.get() + " items deleted. "
+                            + scanProgressThisRun.get() + " items scanned");
             }
-            // log the total items scanned, so we will get an idea of data
-            // growth in a cheap, periodic way
-            logger.info("Data cleanup on store \"" + store.getName() + "\" is complete; "
-                        + this.deleteProgressThisRun.get() + " items deleted. "
-                        + scanProgressThisRun.get() + " items scanned");
-
         } catch(Exception e) {
             logger.error("Error in data cleanup job for store " + store.getName() + ": ", e);
         } finally {
-            closeIterator(iterator);
             logger.info("Releasing lock  after data cleanup on \"" + store.getName() + "\".");
             this.cleanupPermits.release(this.getClass().getCanonicalName());
             synchronized(this) {
@@ -130,7 +158,86 @@ public class DataCleanupJob<K, V, T> implements Runnable {
         }
     }
 
-    private void closeIterator(ClosableIterator<Pair<K, Versioned<V>>> iterator) {
+    /**
+     * Scans every entry of the store, backfilling the expiry index if there
+     * is an incomplete one
+     * 
+     * @return false if the job was interrupted
+     */
+    private boolean cleanupAllEntries(final long now) throws Exception {
+        final boolean backfillIndex = expiryIndex != null;
+        int numPartitions = metadataStore == null ? 1 : metadataStore.getCluster()
+                                                                     .getNumberOfPartitions();
+        PartitionScanner<K, V, T> scanner = new PartitionScanner<K, V, T>(store,
+                                                                          numPartitions,
+                                                                          scanParallelism);
+        boolean completed = scanner.scanEntries(new PartitionScanner.Visitor<Pair<K, Versioned<V>>>() {
+
+            @Override
+            public void visit(Pair<K, Versioned<V>> keyAndVal) {
+                scanProgressThisRun.incrementAndGet();
+                VectorClock clock = (VectorClock) keyAndVal.getSecond().getVersion();
+                if(!deleteIfExpired(keyAndVal.getFirst(), clock, now) && backfillIndex)
+                    expiryIndex.indexForExpiry(keyAndVal.getFirst(), clock.getTimestamp());
+
+                // throttle on number of entries.
+                throttler.maybeThrottle(1);
+            }
+        });
+        if(!completed) {
+            logger.info("Datacleanup job halted.");
+            return false;
+        }
+        if(backfillIndex) {
+            logger.info("Expiry index of store \"" + store.getName() + "\" backfilled.");
+            expiryIndex.setExpiryIndexComplete();
+        }
+        return true;
+    }
+
+    /**
+     * Visits only the keys the expiry index has as written before the
+     * retention cutoff
+     * 
+     * @return false if the job was interrupted
+     */
+    private boolean cleanupIndexedKeys(long now) {
+        ClosableIterator<K> iterator = null;
+        try {
+            iterator = expiryIndex.keysWrittenBefore(now - maxAgeMs);
+            while(iterator.hasNext()) {
+                // check if we have been interrupted
+                if(Thread.currentThread().isInterrupted()) {
+                    logger.info("Datacleanup job halted.");
+                    return false;
+                }
+                K key = iterator.next();
+                List<Versioned<V>> versions = store.get(key, null);
+                for(Versioned<V> versioned: versions) {
+                    scanProgressThisRun.incrementAndGet();
+                    deleteIfExpired(key, (VectorClock) versioned.getVersion(), now);
+                }
+
+                // throttle on number of entries.
+                throttler.maybeThrottle(Math.max(1, versions.size()));
+            }
+        } finally {
+            closeIterator(iterator);
+        }
+        return true;
+    }
+
+    private boolean deleteIfExpired(K key, VectorClock clock, long now) {
+        if(now - clock.getTimestamp() <= maxAgeMs)
+            return false;
+        store.delete(key, clock);
+        this.deleteProgressThisRun.incrementAndGet();
+        if(this.deleteProgressThisRun.get() % 10000 == 0)
+            logger.debug("Deleted item " + this.deleteProgressThisRun.get());
+        return true;
+    }
+
+    private void closeIterator(ClosableIterator<?> iterator) {
         try {
             if(iterator != null)
                 iterator.close();
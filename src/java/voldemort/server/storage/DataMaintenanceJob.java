@@ -25,11 +25,11 @@ import org.apache.log4j.Logger;
 
 import voldemort.annotations.jmx.JmxGetter;
 import voldemort.server.StoreRepository;
+import voldemort.store.StorageEngine;
 import voldemort.store.StoreDefinition;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.utils.ByteArray;
-import voldemort.utils.ClosableIterator;
 import voldemort.utils.EventThrottler;
 import voldemort.utils.Utils;
 
@@ -46,18 +46,24 @@ public abstract class DataMaintenanceJob implements Runnable {
     protected final ScanPermitWrapper scanPermits;
     protected final StoreRepository storeRepo;
     protected final MetadataStore metadataStore;
-    protected ClosableIterator<ByteArray> iterator = null;
     protected AtomicLong numKeysScannedThisRun;
     protected AtomicLong numKeysUpdatedThisRun;
     protected long totalKeysScanned = 0;
     protected long totalKeysUpdated = 0;
     protected AtomicBoolean isRunning;
     protected final EventThrottler throttler;
+    protected final int scanParallelism;
 
+    /**
+     * @param maxRatePerSecond The maximum number of keys scanned per second,
+     *        across all the partitions scanned at once
+     * @param scanParallelism The number of partitions to scan at once
+     */
     public DataMaintenanceJob(StoreRepository storeRepo,
                               MetadataStore metadataStore,
                               ScanPermitWrapper scanPermits,
-                              int maxRatePerSecond) {
+                              int maxRatePerSecond,
+                              int scanParallelism) {
         this.storeRepo = storeRepo;
         this.metadataStore = metadataStore;
         this.scanPermits = Utils.notNull(scanPermits);
@@ -65,6 +71,14 @@ public abstract class DataMaintenanceJob implements Runnable {
         this.numKeysUpdatedThisRun = new AtomicLong(0);
         this.isRunning = new AtomicBoolean(false);
         this.throttler = new EventThrottler(maxRatePerSecond);
+        this.scanParallelism = scanParallelism;
+    }
+
+    public DataMaintenanceJob(StoreRepository storeRepo,
+                              MetadataStore metadataStore,
+                              ScanPermitWrapper scanPermits,
+                              int maxRatePerSecond) {
+        this(storeRepo, metadataStore, scanPermits, maxRatePerSecond, 1);
     }
 
     public DataMaintenanceJob(StoreRepository storeRepo,
@@ -97,7 +111,6 @@ public abstract class DataMaintenanceJob implements Runnable {
         } catch(Exception e) {
             getLogger().error("Error running " + getJobName(), e);
         } finally {
-            closeIterator(iterator);
             this.scanPermits.release(this.getClass().getCanonicalName());
             resetStats();
             getLogger().info("Completed " + getJobName() + " started at " + startTime);
@@ -138,15 +151,15 @@ public abstract class DataMaintenanceJob implements Runnable {
         }
     }
 
-    protected void closeIterator(ClosableIterator<ByteArray> iterator) {
-        try {
-            if(iterator != null) {
-                iterator.close();
-                iterator = null;
-            }
-        } catch(Exception e) {
-            getLogger().error("Error in closing iterator", e);
-        }
+    /**
+     * @return a scanner over the engine, splitting the scan by the partitions
+     *         of the current cluster if the engine supports it
+     */
+    protected PartitionScanner<ByteArray, byte[], byte[]> getScanner(StorageEngine<ByteArray, byte[], byte[]> engine) {
+        return new PartitionScanner<ByteArray, byte[], byte[]>(engine,
+                                                               metadataStore.getCluster()
+                                                                            .getNumberOfPartitions(),
+                                                               scanParallelism);
     }
 
     /**
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.log4j.Logger;
+
+import voldemort.store.StorageEngine;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.DaemonThreadFactory;
+import voldemort.utils.Pair;
+import voldemort.versioning.Versioned;
+
+/**
+ * Scans a storage engine on behalf of a maintenance job. If the engine can
+ * scan a single partition and more than one thread is allowed, the partitions
+ * are scanned concurrently, each on its own cursor. Otherwise the whole store
+ * is scanned on the calling thread.
+ * <p>
+ * The visitor is shared by all the scanning threads and must be thread safe.
+ * Anything bounding the I/O of the job, like its {@link voldemort.utils.EventThrottler},
+ * should be shared as well, so that the budget holds for the job as a whole.
+ * <p>
+ * The scanning threads are never interrupted: an interrupt landing in the
+ * middle of a BDB JE read closes its file channel and invalidates the whole
+ * environment. When one partition fails, the others are told to stop through
+ * a shared flag, which they check between items, and the scan waits for them
+ * to close their cursors before returning.
+ * 
+ */
+public class PartitionScanner<K, V, T> {
+
+    private static final Logger logger = Logger.getLogger(PartitionScanner.class);
+
+    /**
+     * Called for every item scanned
+     */
+    public interface Visitor<I> {
+
+        public void visit(I item) throws Exception;
+    }
+
+    private final StorageEngine<K, V, T> engine;
+    private final int numPartitions;
+    private final int parallelism;
+
+    /**
+     * @param engine The storage engine to scan
+     * @param numPartitions The number of partitions of the cluster
+     * @param parallelism The maximum number of partitions to scan at once
+     */
+    public PartitionScanner(StorageEngine<K, V, T> engine, int numPartitions, int parallelism) {
+        this.engine = engine;
+        this.numPartitions = numPartitions;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return true if the scan is split across partitions
+     */
+    public boolean isParallel() {
+        return parallelism > 1 && numPartitions > 1 && engine.isPartitionScanSupported();
+    }
+
+    /**
+     * Visits every key of the store
+     * 
+     * @return false if the scan was interrupted
+     */
+    public boolean scanKeys(Visitor<K> visitor) throws Exception {
+        List<ScanSource<K>> sources = new ArrayList<ScanSource<K>>();
+        if(isParallel()) {
+            for(int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                final int partition = partitionId;
+                sources.add(new ScanSource<K>() {
+
+                    @Override
+                    ClosableIterator<K> open() {
+                        return engine.keys(partition);
+                    }
+                });
+            }
+        } else {
+            sources.add(new ScanSource<K>() {
+
+                @Override
+                ClosableIterator<K> open() {
+                    return engine.keys();
+                }
+            });
+        }
+        return scan(sources, visitor);
+    }
+
+    /**
+     * Visits every entry of the store
+     * 
+     * @return false if the scan was interrupted
+     */
+    public boolean scanEntries(Visitor<Pair<K, Versioned<V>>> visitor) throws Exception {
+        List<ScanSource<Pair<K, Versioned<V>>>> sources = new ArrayList<ScanSource<Pair<K, Versioned<V>>>>();
+        if(isParallel()) {
+            for(int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                final int partition = partitionId;
+                sources.add(new ScanSource<Pair<K, Versioned<V>>>() {
+
+                    @Override
+                    ClosableIterator<Pair<K, Versioned<V>>> open() {
+                        return engine.entries(partition);
+                    }
+                });
+            }
+        } else {
+            sources.add(new ScanSource<Pair<K, Versioned<V>>>() {
+
+                @Override
+                ClosableIterator<Pair<K, Versioned<V>>> open() {
+                    return engine.entries();
+                }
+            });
+        }
+        return scan(sources, visitor);
+    }
+
+    private <I> boolean scan(List<ScanSource<I>> sources, final Visitor<I> visitor) throws Exception {
+        final AtomicBoolean stopped = new AtomicBoolean(false);
+        if(sources.size() == 1)
+            return sources.get(0).scan(visitor, stopped);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism,
+                                                                         sources.size()),
+                                                                new DaemonThreadFactory("voldemort-scan-"
+                                                                                        + engine.getName()
+                                                                                        + "-"));
+        try {
+            CompletionService<Boolean> completionService = new ExecutorCompletionService<Boolean>(executor);
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>(sources.size());
+            for(final ScanSource<I> source: sources) {
+                futures.add(completionService.submit(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() throws Exception {
+                        return source.scan(visitor, stopped);
+                    }
+                }));
+            }
+
+            boolean completed = true;
+            for(int i = 0; i < futures.size(); i++) {
+                try {
+                    completed &= completionService.take().get();
+                } catch(InterruptedException e) {
+                    logger.info("Scan of store " + engine.getName() + " interrupted.");
+                    Thread.currentThread().interrupt();
+                    return false;
+                } catch(ExecutionException e) {
+                    if(e.getCause() instanceof Exception)
+                        throw (Exception) e.getCause();
+                    throw e;
+                }
+            }
+            return completed;
+        } finally {
+            // stops the remaining partitions, if one of them failed, and waits
+            // for their cursors to close
+            stopped.set(true);
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while(true) {
+            try {
+                if(executor.awaitTermination(1, TimeUnit.MINUTES))
+                    break;
+                logger.info("Waiting for the partition scans of store " + engine.getName()
+                            + " to stop.");
+            } catch(InterruptedException e) {
+                // keep waiting, the scanning threads must not outlive the scan
+                interrupted = true;
+            }
+        }
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    private abstract static class ScanSource<I> {
+
+        abstract ClosableIterator<I> open();
+
+        boolean scan(Visitor<I> visitor, AtomicBoolean stopped) throws Exception {
+            if(stopped.get())
+                return false;
+            ClosableIterator<I> iterator = open();
+            try {
+                while(iterator.hasNext()) {
+                    if(stopped.get() || Thread.currentThread().isInterrupted())
+                        return false;
+                    visitor.visit(iterator.next());
+                }
+                return true;
+            } finally {
+                iterator.close();
+            }
+        }
+    }
+}
@@ -15,6 +15,8 @@
  */
 package voldemort.server.storage;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.management.MBeanOperationInfo;
 
 import org.apache.log4j.Logger;
@@ -28,8 +30,6 @@ import voldemort.store.StoreDefinition;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.utils.ByteArray;
 
-import com.google.common.primitives.Ints;
-
 /**
  * This is a background job that should be run after successful rebalancing. The
  * job deletes all data that does not belong to the server.
@@ -40,11 +40,23 @@ public class RepairJob extends DataMaintenanceJob {
 
     private final static Logger logger = Logger.getLogger(RepairJob.class.getName());
 
+    public RepairJob(StoreRepository storeRepo,
+                     MetadataStore metadataStore,
+                     ScanPermitWrapper repairPermits,
+                     int maxKeysScannedPerSecond,
+                     int scanParallelism) {
+        super(storeRepo,
+              metadataStore,
+              repairPermits,
+              maxKeysScannedPerSecond,
+              scanParallelism);
+    }
+
     public RepairJob(StoreRepository storeRepo,
                      MetadataStore metadataStore,
                      ScanPermitWrapper repairPermits,
                      int maxKeysScannedPerSecond) {
-        super(storeRepo, metadataStore, repairPermits, maxKeysScannedPerSecond);
+        this(storeRepo, metadataStore, repairPermits, maxKeysScannedPerSecond, 1);
     }
 
     @JmxOperation(description = "Start the Repair Job thread", impact = MBeanOperationInfo.ACTION)
@@ -57,34 +69,42 @@ public class RepairJob extends DataMaintenanceJob {
         for(StoreDefinition storeDef: metadataStore.getStoreDefList()) {
             if(isWritableStore(storeDef)) {
                 // Lets generate routing strategy for this storage engine
-                StoreRoutingPlan routingPlan = new StoreRoutingPlan(metadataStore.getCluster(),
-                                                                    storeDef);
+                final StoreRoutingPlan routingPlan = new StoreRoutingPlan(metadataStore.getCluster(),
+                                                                          storeDef);
                 logger.info("Repairing store " + storeDef.getName());
-                StorageEngine<ByteArray, byte[], byte[]> engine = storeRepo.getStorageEngine(storeDef.getName());
-                iterator = engine.keys();
+                final StorageEngine<ByteArray, byte[], byte[]> engine = storeRepo.getStorageEngine(storeDef.getName());
+                final int nodeId = metadataStore.getNodeId();
+                final AtomicLong storeKeysScanned = new AtomicLong(0);
+                final AtomicLong storeKeysDeleted = new AtomicLong(0);
 
-                long itemsScanned = 0;
-                long numDeletedKeys = 0;
-                while(iterator.hasNext()) {
-                    ByteArray key = iterator.next();
+                boolean completed = getScanner(engine).scanKeys(new PartitionScanner.Visitor<ByteArray>() {
 
-                    if(!routingPlan.checkKeyBelongsToNode(key.get(), metadataStore.getNodeId())) {
-                        /**
-                         * Blow away the entire key with all its versions..
-                         */
-                        engine.delete(key, null);
-                        numDeletedKeys = this.numKeysUpdatedThisRun.incrementAndGet();
-                    }
-                    itemsScanned = this.numKeysScannedThisRun.incrementAndGet();
-                    // Throttle the itemsScanned
-                    throttler.maybeThrottle(Ints.checkedCast(itemsScanned));
-                    if(itemsScanned % STAT_RECORDS_INTERVAL == 0) {
-                        logger.info("#Scanned:" + itemsScanned + " #Deleted:" + numDeletedKeys);
+                    @Override
+                    public void visit(ByteArray key) {
+                        if(!routingPlan.checkKeyBelongsToNode(key.get(), nodeId)) {
+                            /**
+                             * Blow away the entire key with all its versions..
+                             */
+                            engine.delete(key, null);
+                            numKeysUpdatedThisRun.incrementAndGet();
+                            storeKeysDeleted.incrementAndGet();
+                        }
+                        long itemsScanned = numKeysScannedThisRun.incrementAndGet();
+                        storeKeysScanned.incrementAndGet();
+                        // Throttle the itemsScanned
+                        throttler.maybeThrottle(1);
+                        if(itemsScanned % STAT_RECORDS_INTERVAL == 0) {
+                            logger.info("#Scanned:" + itemsScanned + " #Deleted:"
+                                        + numKeysUpdatedThisRun.get());
+                        }
                     }
+                });
+                if(!completed) {
+                    logger.info("Repair job halted at store " + storeDef.getName());
+                    return;
                 }
-                closeIterator(iterator);
-                logger.info("Completed store " + storeDef.getName() + " #Scanned:" + itemsScanned
-                            + " #Deleted:" + numDeletedKeys);
+                logger.info("Completed store " + storeDef.getName() + " #Scanned:"
+                            + storeKeysScanned.get() + " #Deleted:" + storeKeysDeleted.get());
             }
         }
     }
@@ -67,19 +67,30 @@ import voldemort.server.scheduler.slop.StreamingSlopPusherJob;
 import voldemort.store.StorageConfiguration;
 import voldemort.store.StorageEngine;
 import voldemort.store.Store;
+import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreDefinition;
+import voldemort.store.StoreUtils;
+import voldemort.store.cache.ReadCachingStorageEngine;
+import voldemort.store.cache.VersionedCache;
+import voldemort.store.coalescing.CoalescingStore;
+import voldemort.store.coalescing.GetCoalescer;
 import voldemort.store.configuration.FileBackedCachingStorageConfiguration;
 import voldemort.store.invalidmetadata.InvalidMetadataCheckingStore;
 import voldemort.store.logging.LoggingStore;
 import voldemort.store.memory.InMemoryStorageConfiguration;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.metadata.MetadataStoreListener;
+import voldemort.store.mysql.MysqlStorageConfiguration;
 import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.projection.AvroProjector;
+import voldemort.store.projection.ProjectingStore;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
 import voldemort.store.rebalancing.ProxyPutStats;
 import voldemort.store.rebalancing.RebootstrappingStore;
 import voldemort.store.rebalancing.RedirectingStore;
+import voldemort.store.retention.ExpiredVersionDeleter;
+import voldemort.store.retention.ExpiryIndexed;
 import voldemort.store.retention.RetentionEnforcingStore;
 import voldemort.store.routed.RoutedStore;
 import voldemort.store.routed.RoutedStoreConfig;
@@ -124,6 +135,10 @@ public class StorageService extends AbstractService {
     public static final String CLUSTER_VERSION_KEY = "cluster.xml";
     public static final String STORES_VERSION_KEY = "stores.xml";
 
+    private static final int READ_CACHE_NUM_SEGMENTS = 16;
+    // rough size of a cached entry, used to size the admission sketch
+    private static final int READ_CACHE_EXPECTED_ENTRY_BYTES = 512;
+
     private final VoldemortConfig voldemortConfig;
     private final StoreRepository storeRepository;
     private final SchedulerService scheduler;
@@ -143,6 +158,7 @@ public class StorageService extends AbstractService {
     private final RoutedStoreConfig routedStoreConfig;
     private final ExecutorService proxyPutWorkerPool;
     private final ProxyPutStats aggregatedProxyPutStats;
+    private final ExpiredVersionDeleter expiredVersionDeleter;
 
     public StorageService(StoreRepository storeRepository,
                           MetadataStore metadata,
@@ -170,7 +186,7 @@ public class StorageService extends AbstractService {
                                                                                                                                           metadata,
                                                                                                                                           config));
         this.failureDetector = create(failureDetectorConfig, config.isJmxEnabled());
-        this.storeStats = new StoreStats();
+        this.storeStats = storeRepository.getAggregatedStoreStats();
         this.routedStoreFactory = new RoutedStoreFactory();
         this.routedStoreFactory.setThreadPool(this.clientThreadPool);
         this.routedStoreConfig = new RoutedStoreConfig(voldemortConfig);
@@ -196,6 +212,17 @@ public class StorageService extends AbstractService {
                                                              "aggregate-proxy-puts"));
         }
 
+        // expired values found by reads are deleted in the background
+        if(config.isEnforceRetentionPolicyOnRead() && config.isDeleteExpiredValuesOnRead()) {
+            this.expiredVersionDeleter = new ExpiredVersionDeleter(config.getExpiredValuesDeleteQueueSize());
+            if(config.isJmxEnabled()) {
+                JmxUtils.registerMbean(this.expiredVersionDeleter,
+                                       JmxUtils.createObjectName(JmxUtils.getPackageName(ExpiredVersionDeleter.class),
+                                                                 "expired-version-deleter"));
+            }
+        } else {
+            this.expiredVersionDeleter = null;
+        }
     }
 
     private void initStorageConfig(String configClassName) {
@@ -348,7 +375,8 @@ public class StorageService extends AbstractService {
                 RepairJob job = new RepairJob(storeRepository,
                                               metadata,
                                               scanPermitWrapper,
-                                              voldemortConfig.getRepairJobMaxKeysScannedPerSec());
+                                              voldemortConfig.getRepairJobMaxKeysScannedPerSec(),
+                                              voldemortConfig.getScanPartitionParallelism());
                 JmxUtils.registerMbean(job, JmxUtils.createObjectName(job.getClass()));
                 storeRepository.registerRepairJob(job);
             }
@@ -359,7 +387,8 @@ public class StorageService extends AbstractService {
                 VersionedPutPruneJob job = new VersionedPutPruneJob(storeRepository,
                                                                     metadata,
                                                                     scanPermitWrapper,
-                                                                    voldemortConfig.getPruneJobMaxKeysScannedPerSec());
+                                                                    voldemortConfig.getPruneJobMaxKeysScannedPerSec(),
+                                                                    voldemortConfig.getScanPartitionParallelism());
                 JmxUtils.registerMbean(job, JmxUtils.createObjectName(job.getClass()));
                 storeRepository.registerPruneJob(job);
             }
@@ -624,20 +653,29 @@ public class StorageService extends AbstractService {
         final RoutingStrategy routingStrategy = new RoutingStrategyFactory().updateRoutingStrategy(storeDef,
                                                                                                    metadata.getCluster());
 
-        final StorageEngine<ByteArray, byte[], byte[]> engine = config.getStore(storeDef,
-                                                                                routingStrategy);
+        StorageEngine<ByteArray, byte[], byte[]> engine = config.getStore(storeDef,
+                                                                          routingStrategy);
         // Update the routing strategy + add listener to metadata
         if(storeDef.getType().compareTo(ReadOnlyStorageConfiguration.TYPE_NAME) == 0) {
+            final ReadOnlyStorageEngine readOnlyEngine = (ReadOnlyStorageEngine) engine;
             metadata.addMetadataStoreListener(storeDef.getName(), new MetadataStoreListener() {
 
                 public void updateRoutingStrategy(RoutingStrategy updatedRoutingStrategy) {
-                    ((ReadOnlyStorageEngine) engine).setRoutingStrategy(updatedRoutingStrategy);
+                    readOnlyEngine.setRoutingStrategy(updatedRoutingStrategy);
                 }
 
                 public void updateStoreDefinition(StoreDefinition storeDef) {
                     return;
                 }
             });
+        } else if(storeDef.getType().compareTo(ViewStorageConfiguration.TYPE_NAME) != 0
+                  && storeDef.getType().compareTo(MysqlStorageConfiguration.TYPE_NAME) != 0
+                  && voldemortConfig.isReadCacheEnabledFor(storeDef.getName())) {
+            // wrap the engine itself, so that writes from the admin service
+            // keep the cache coherent too. The admin service tells mysql
+            // engines apart by their type, as they cannot take multi version
+            // puts, so those are left unwrapped.
+            engine = createReadCachingEngine(engine);
         }
 
         // openStore() should have atomic semantics
@@ -655,6 +693,23 @@ public class StorageService extends AbstractService {
         }
     }
 
+    private StorageEngine<ByteArray, byte[], byte[]> createReadCachingEngine(StorageEngine<ByteArray, byte[], byte[]> engine) {
+        long maxSizeInBytes = voldemortConfig.getReadCacheMaxSizeInBytes();
+        VersionedCache cache = new VersionedCache(maxSizeInBytes,
+                                                  READ_CACHE_NUM_SEGMENTS,
+                                                  voldemortConfig.getReadCacheTtlMs(),
+                                                  false,
+                                                  SystemTime.INSTANCE);
+        int expectedKeys = (int) Math.min(Integer.MAX_VALUE, maxSizeInBytes
+                                                             / READ_CACHE_EXPECTED_ENTRY_BYTES);
+        logger.info("Caching the hot keys of store '" + engine.getName() + "' in up to "
+                    + maxSizeInBytes + " bytes.");
+        return new ReadCachingStorageEngine(engine,
+                                            cache,
+                                            voldemortConfig.getReadCacheAdmissionThreshold(),
+                                            expectedKeys);
+    }
+
     /**
      * Unregister and remove the engine from the storage repository. This is
      * called during deletion of stores and if there are exceptions
@@ -700,6 +755,15 @@ public class StorageService extends AbstractService {
 
                 }
 
+                if(voldemortConfig.isGetCoalescingEnabled() && !isSlop && !isMetadata) {
+                    ObjectName name = getCoalescerObjectName(store.getName());
+
+                    synchronized(mbeanServer) {
+                        if(mbeanServer.isRegistered(name))
+                            JmxUtils.unregisterMbean(mbeanServer, name);
+                    }
+                }
+
                 if(voldemortConfig.isStatTrackingEnabled()) {
                     ObjectName name = null;
                     if(this.voldemortConfig.isEnableJmxClusterName())
@@ -731,6 +795,14 @@ public class StorageService extends AbstractService {
         engine.close();
     }
 
+    private ObjectName getCoalescerObjectName(String storeName) {
+        if(this.voldemortConfig.isEnableJmxClusterName())
+            return JmxUtils.createObjectName(metadata.getCluster().getName() + "."
+                                             + JmxUtils.getPackageName(GetCoalescer.class),
+                                             storeName);
+        return JmxUtils.createObjectName(JmxUtils.getPackageName(GetCoalescer.class), storeName);
+    }
+
     /**
      * Register the given internal engine (slop and metadata) with the storage
      * repository
@@ -778,6 +850,7 @@ public class StorageService extends AbstractService {
                     RetentionEnforcingStore retentionEnforcingStore = new RetentionEnforcingStore(store,
                                                                                                   storeDef,
                                                                                                   voldemortConfig.isDeleteExpiredValuesOnRead(),
+                                                                                                  expiredVersionDeleter,
                                                                                                   SystemTime.INSTANCE);
                     metadata.addMetadataStoreListener(store.getName(), retentionEnforcingStore);
                     store = retentionEnforcingStore;
@@ -797,7 +870,11 @@ public class StorageService extends AbstractService {
                                                  failureDetector,
                                                  storeFactory,
                                                  proxyPutWorkerPool,
-                                                 proxyPutStats);
+                                                 proxyPutStats,
+                                                 voldemortConfig.getProxyPutQueueSize(),
+                                                 voldemortConfig.getProxyPutBatchSize(),
+                                                 voldemortConfig.getProxyPutQueueTimeoutMs(),
+                                                 voldemortConfig.getProxyGetBatchSize());
                     if(voldemortConfig.isJmxEnabled()) {
                         MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
                         ObjectName name = null;
@@ -823,13 +900,38 @@ public class StorageService extends AbstractService {
                 }
             }
 
+            if(voldemortConfig.isAvroProjectionEnabled() && !isMetadata && !isView
+               && storeDef != null && AvroProjector.isSupported(storeDef.getValueSerializer()))
+                store = new ProjectingStore(store,
+                                            new AvroProjector(storeDef.getValueSerializer()));
+
             if(voldemortConfig.isMetadataCheckingEnabled() && !isMetadata)
                 store = new InvalidMetadataCheckingStore(metadata.getNodeId(), store, metadata);
+
+            if(voldemortConfig.isGetCoalescingEnabled() && !isMetadata) {
+                GetCoalescer coalescer = new GetCoalescer();
+                store = new CoalescingStore(store, coalescer);
+                if(voldemortConfig.isJmxEnabled()) {
+                    MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+                    ObjectName name = getCoalescerObjectName(store.getName());
+
+                    synchronized(mbeanServer) {
+                        if(mbeanServer.isRegistered(name))
+                            JmxUtils.unregisterMbean(mbeanServer, name);
+
+                        JmxUtils.registerMbean(mbeanServer,
+                                               JmxUtils.createModelMBean(coalescer),
+                                               name);
+                    }
+                }
+            }
         }
 
         if(voldemortConfig.isStatTrackingEnabled()) {
             StatTrackingStore statStore = new StatTrackingStore(store, this.storeStats);
             store = statStore;
+            if(engine instanceof ReadCachingStorageEngine)
+                ((ReadCachingStorageEngine) engine).setStats(statStore.getStats());
             if(voldemortConfig.isJmxEnabled()) {
 
                 MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
@@ -928,6 +1030,15 @@ public class StorageService extends AbstractService {
                                    RequestRoutingType.NORMAL);
     }
 
+    /**
+     * @return the expiry index kept by the engine, or null if it keeps none
+     */
+    @SuppressWarnings("unchecked")
+    private ExpiryIndexed<ByteArray> getExpiryIndex(StorageEngine<ByteArray, byte[], byte[]> engine) {
+        return (ExpiryIndexed<ByteArray>) StoreUtils.getCapabilityOrNull(engine,
+                                                                         StoreCapabilityType.EXPIRY_INDEX);
+    }
+
     /**
      * Schedule a data retention cleanup job for the given store
      * 
@@ -959,7 +1070,9 @@ public class StorageService extends AbstractService {
                                                                                     * Time.MS_PER_DAY,
                                                                             SystemTime.INSTANCE,
                                                                             throttler,
-                                                                            metadata);
+                                                                            metadata,
+                                                                            getExpiryIndex(engine),
+                                                                            voldemortConfig.getScanPartitionParallelism());
         if(voldemortConfig.isJmxEnabled()) {
             JmxUtils.registerMbean("DataCleanupJob-" + engine.getName(), cleanupJob);
         }
@@ -982,6 +1095,13 @@ public class StorageService extends AbstractService {
          */
 
         Exception lastException = null;
+
+        // apply the queued deletes of expired values while the stores are open
+        if(this.expiredVersionDeleter != null) {
+            this.expiredVersionDeleter.close();
+            logger.info("Closed expired version deleter.");
+        }
+
         logger.info("Closing all stores.");
         /* This will also close the node stores including local stores */
         for(Store<ByteArray, byte[], byte[]> store: this.storeRepository.getAllRoutedStores()) {
@@ -1106,7 +1226,9 @@ public class StorageService extends AbstractService {
                                                                                                    * Time.MS_PER_DAY,
                                                                                            SystemTime.INSTANCE,
                                                                                            new EventThrottler(entryScanThrottleRate),
-                                                                                           metadata));
+                                                                                           metadata,
+                                                                                           getExpiryIndex(engine),
+                                                                                           voldemortConfig.getScanPartitionParallelism()));
                         } else {
                             logger.error("forceCleanupOldData() No permit available to run cleanJob already running multiple instance."
                                          + engine.getName());
@@ -35,8 +35,6 @@ import voldemort.versioning.VectorClock;
 import voldemort.versioning.VectorClockUtils;
 import voldemort.versioning.Versioned;
 
-import com.google.common.primitives.Ints;
-
 /**
  * Voldemort supports a "versioned" put interface, where the user can provide a
  * vector clock, generated outside of Voldemort. A common practice is to create
@@ -94,11 +92,23 @@ public class VersionedPutPruneJob extends DataMaintenanceJob {
 
     private String storeName;
 
+    public VersionedPutPruneJob(StoreRepository storeRepo,
+                                MetadataStore metadataStore,
+                                ScanPermitWrapper repairPermits,
+                                int maxKeysScannedPerSecond,
+                                int scanParallelism) {
+        super(storeRepo,
+              metadataStore,
+              repairPermits,
+              maxKeysScannedPerSecond,
+              scanParallelism);
+    }
+
     public VersionedPutPruneJob(StoreRepository storeRepo,
                                 MetadataStore metadataStore,
                                 ScanPermitWrapper repairPermits,
                                 int maxKeysScannedPerSecond) {
-        super(storeRepo, metadataStore, repairPermits, maxKeysScannedPerSecond);
+        this(storeRepo, metadataStore, repairPermits, maxKeysScannedPerSecond, 1);
     }
 
     public void setStoreName(String storeName) {
@@ -118,48 +128,59 @@ public class VersionedPutPruneJob extends DataMaintenanceJob {
 
         if(isWritableStore(storeDef)) {
             // Lets generate routing strategy for this storage engine
-            StoreRoutingPlan routingPlan = new StoreRoutingPlan(metadataStore.getCluster(),
-                                                                storeDef);
+            final StoreRoutingPlan routingPlan = new StoreRoutingPlan(metadataStore.getCluster(),
+                                                                      storeDef);
             logger.info("Pruning store " + storeDef.getName());
-            StorageEngine<ByteArray, byte[], byte[]> engine = storeRepo.getStorageEngine(storeDef.getName());
-            iterator = engine.keys();
-
-            long itemsScanned = 0;
-            long numPrunedKeys = 0;
-            while(iterator.hasNext()) {
-                ByteArray key = iterator.next();
-
-                KeyLockHandle<byte[]> lockHandle = null;
-                try {
-                    lockHandle = engine.getAndLock(key);
-                    List<Versioned<byte[]>> vals = lockHandle.getValues();
-                    List<Integer> keyReplicas = routingPlan.getReplicationNodeList(routingPlan.getMasterPartitionId(key.get()));
-                    MutableBoolean didPrune = new MutableBoolean(false);
-                    List<Versioned<byte[]>> prunedVals = pruneNonReplicaEntries(vals,
-                                                                                keyReplicas,
-                                                                                didPrune);
-                    // Only write something back if some pruning actually
-                    // happened. Optimization to reduce load on storage
-                    if(didPrune.booleanValue()) {
-                        List<Versioned<byte[]>> resolvedVals = VectorClockUtils.resolveVersions(prunedVals);
-                        // TODO this is only implemented for BDB for now
-                        lockHandle.setValues(resolvedVals);
-                        engine.putAndUnlock(key, lockHandle);
-                        numPrunedKeys = this.numKeysUpdatedThisRun.incrementAndGet();
-                    }
-                    itemsScanned = this.numKeysScannedThisRun.incrementAndGet();
-                    throttler.maybeThrottle(Ints.checkedCast(itemsScanned));
-                    if(itemsScanned % STAT_RECORDS_INTERVAL == 0)
-                        logger.info("#Scanned:" + itemsScanned + " #Pruned:" + numPrunedKeys);
-                } catch(Exception e) {
-                    if(lockHandle != null && !lockHandle.isClosed()) {
-                        engine.releaseLock(lockHandle);
-                    }
-                    throw e;
+            final StorageEngine<ByteArray, byte[], byte[]> engine = storeRepo.getStorageEngine(storeDef.getName());
+
+            boolean completed = getScanner(engine).scanKeys(new PartitionScanner.Visitor<ByteArray>() {
+
+                @Override
+                public void visit(ByteArray key) throws Exception {
+                    pruneKey(engine, routingPlan, key);
                 }
+            });
+            if(!completed) {
+                logger.info("Prune job halted at store " + storeDef.getName());
+                return;
+            }
+            logger.info("Completed store " + storeDef.getName() + " #Scanned:"
+                        + numKeysScannedThisRun.get() + " #Pruned:"
+                        + numKeysUpdatedThisRun.get());
+        }
+    }
+
+    private void pruneKey(StorageEngine<ByteArray, byte[], byte[]> engine,
+                          StoreRoutingPlan routingPlan,
+                          ByteArray key) throws Exception {
+        KeyLockHandle<byte[]> lockHandle = null;
+        try {
+            lockHandle = engine.getAndLock(key);
+            List<Versioned<byte[]>> vals = lockHandle.getValues();
+            List<Integer> keyReplicas = routingPlan.getReplicationNodeList(routingPlan.getMasterPartitionId(key.get()));
+            MutableBoolean didPrune = new MutableBoolean(false);
+            List<Versioned<byte[]>> prunedVals = pruneNonReplicaEntries(vals, keyReplicas, didPrune);
+            // Only write something back if some pruning actually
+            // happened. Optimization to reduce load on storage
+            if(didPrune.booleanValue()) {
+                List<Versioned<byte[]>> resolvedVals = VectorClockUtils.resolveVersions(prunedVals);
+                // TODO this is only implemented for BDB for now
+                lockHandle.setValues(resolvedVals);
+                engine.putAndUnlock(key, lockHandle);
+                this.numKeysUpdatedThisRun.incrementAndGet();
+            } else {
+                engine.releaseLock(lockHandle);
+            }
+            long itemsScanned = this.numKeysScannedThisRun.incrementAndGet();
+            throttler.maybeThrottle(1);
+            if(itemsScanned % STAT_RECORDS_INTERVAL == 0)
+                logger.info("#Scanned:" + itemsScanned + " #Pruned:"
+                            + this.numKeysUpdatedThisRun.get());
+        } catch(Exception e) {
+            if(lockHandle != null && !lockHandle.isClosed()) {
+                engine.releaseLock(lockHandle);
             }
-            logger.info("Completed store " + storeDef.getName() + " #Scanned:" + itemsScanned
-                        + " #Pruned:" + numPrunedKeys);
+            throw e;
         }
     }
 
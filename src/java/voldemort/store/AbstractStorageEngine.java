@@ -7,9 +7,13 @@ import java.util.List;
 import voldemort.server.storage.KeyLockHandle;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
+import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Occurred;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+
 public class AbstractStorageEngine<K, V, T> extends AbstractStore<K, V, T> implements
         StorageEngine<K, V, T> {
 
@@ -75,6 +79,32 @@ public class AbstractStorageEngine<K, V, T> extends AbstractStore<K, V, T> imple
         }
     }
 
+    @Override
+    public long bulkLoad(Iterator<Pair<K, Versioned<V>>> sortedEntries) {
+        PeekingIterator<Pair<K, Versioned<V>>> entries = Iterators.peekingIterator(sortedEntries);
+        long numKeysUpdated = 0;
+        while(entries.hasNext()) {
+            Pair<K, Versioned<V>> entry = entries.next();
+            K key = entry.getFirst();
+            boolean updated = putIfNotObsolete(key, entry.getSecond());
+            // versions of the same key are adjacent in the stream
+            while(entries.hasNext() && entries.peek().getFirst().equals(key))
+                updated |= putIfNotObsolete(key, entries.next().getSecond());
+            if(updated)
+                numKeysUpdated++;
+        }
+        return numKeysUpdated;
+    }
+
+    private boolean putIfNotObsolete(K key, Versioned<V> value) {
+        try {
+            put(key, value, null);
+            return true;
+        } catch(ObsoleteVersionException e) {
+            return false;
+        }
+    }
+
     @Override
     public boolean endBatchModifications() {
         return false;
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store;
+
+import java.util.Map;
+
+import voldemort.common.VoldemortOpCode;
+import voldemort.server.RequestRoutingType;
+import voldemort.versioning.Versioned;
+
+/**
+ * A class that defines a composite batched put request containing the
+ * versioned value of each key, the timeout, routing type and origin time. A
+ * value with an empty vector clock is written like a put without a version.
+ * 
+ */
+public class CompositePutAllVoldemortRequest<K, V> extends CompositeVoldemortRequest<K, V> {
+
+    private final Map<K, Versioned<V>> entries;
+
+    public CompositePutAllVoldemortRequest(Map<K, Versioned<V>> entries,
+                                           long timeoutInMs,
+                                           long originTimeInMs,
+                                           RequestRoutingType routingType) {
+        super(null,
+              null,
+              entries.keySet(),
+              null,
+              null,
+              timeoutInMs,
+              false,
+              VoldemortOpCode.PUT_ALL_OP_CODE,
+              originTimeInMs,
+              routingType);
+        this.entries = entries;
+    }
+
+    public Map<K, Versioned<V>> getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import voldemort.VoldemortException;
+import voldemort.serialization.Compression;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ByteUtils;
+import voldemort.utils.Pair;
+import voldemort.versioning.Versioned;
+
+/*-
+ *  Defines the block format used to ship sorted runs of a partition's entries
+ *  between servers during bulk partition migration. Blocks are compressed as
+ *  a whole and the compression type travels as the block name's extension
+ *  ("<partition>_<block>.<compression>")
+ * -----------------------------------------
+ *    NUM_ENTRIES                          : 4 bytes (int)
+ *    Entry (repeating) {
+ *        KEY_SIZE                         : 4 bytes (int)
+ *        KEY_BYTES                        : KEY_SIZE bytes
+ *        VALUE_SIZE                       : 4 bytes (int)
+ *        VALUE_BYTES                      : VALUE_SIZE bytes, a single
+ *                                           versioned value in
+ *                                           StoreBinaryFormat
+ *    }
+ * -----------------------------------------
+ */
+public class PartitionBlockFormat {
+
+    private static final String NO_COMPRESSION = "noop";
+
+    /**
+     * Partition id in the name of blocks holding the entries of several
+     * partitions, as streamed from stores that do not support partition scans
+     */
+    public static final int MIXED_PARTITIONS = -1;
+
+    public static byte[] toByteArray(List<Pair<ByteArray, Versioned<byte[]>>> entries) {
+        List<byte[]> values = new ArrayList<byte[]>(entries.size());
+        int size = ByteUtils.SIZE_OF_INT;
+        for(Pair<ByteArray, Versioned<byte[]>> entry: entries) {
+            byte[] value = StoreBinaryFormat.toByteArray(Collections.singletonList(entry.getSecond()));
+            values.add(value);
+            size += 2 * ByteUtils.SIZE_OF_INT + entry.getFirst().length() + value.length;
+        }
+        byte[] bytes = new byte[size];
+        ByteUtils.writeInt(bytes, entries.size(), 0);
+        int pos = ByteUtils.SIZE_OF_INT;
+        for(int i = 0; i < entries.size(); i++) {
+            pos = writeBytes(bytes, pos, entries.get(i).getFirst().get());
+            pos = writeBytes(bytes, pos, values.get(i));
+        }
+        return bytes;
+    }
+
+    public static List<Pair<ByteArray, Versioned<byte[]>>> fromByteArray(byte[] bytes) {
+        int numEntries = ByteUtils.readInt(bytes, 0);
+        List<Pair<ByteArray, Versioned<byte[]>>> entries = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>(numEntries);
+        int pos = ByteUtils.SIZE_OF_INT;
+        for(int i = 0; i < numEntries; i++) {
+            byte[] key = readBytes(bytes, pos);
+            pos += ByteUtils.SIZE_OF_INT + key.length;
+            byte[] value = readBytes(bytes, pos);
+            pos += ByteUtils.SIZE_OF_INT + value.length;
+            for(Versioned<byte[]> versioned: StoreBinaryFormat.fromByteArray(value))
+                entries.add(Pair.create(new ByteArray(key), versioned));
+        }
+        if(pos != bytes.length)
+            throw new VoldemortException((bytes.length - pos)
+                                         + " straggling bytes found in partition block (this should not be possible)!");
+        return entries;
+    }
+
+    public static String getBlockName(int partitionId, int blockId, String compressionType) {
+        return partitionId + "_" + blockId + "." + compressionType;
+    }
+
+    /**
+     * Returns the compression strategy a block was written with, based on the
+     * extension of its name
+     */
+    public static CompressionStrategy getCompressionStrategy(String blockName) {
+        int index = blockName.lastIndexOf('.');
+        if(index < 0)
+            throw new VoldemortException("Invalid partition block name " + blockName);
+        return getCompressionStrategyForType(blockName.substring(index + 1));
+    }
+
+    public static CompressionStrategy getCompressionStrategyForType(String compressionType) {
+        if(compressionType == null || NO_COMPRESSION.equals(compressionType))
+            return new CompressionStrategyFactory().get(null);
+        return new CompressionStrategyFactory().get(new Compression(compressionType, null));
+    }
+
+    private static int writeBytes(byte[] bytes, int pos, byte[] data) {
+        ByteUtils.writeInt(bytes, data.length, pos);
+        pos += ByteUtils.SIZE_OF_INT;
+        System.arraycopy(data, 0, bytes, pos, data.length);
+        return pos + data.length;
+    }
+
+    private static byte[] readBytes(byte[] bytes, int pos) {
+        int size = ByteUtils.readInt(bytes, pos);
+        byte[] data = new byte[size];
+        System.arraycopy(bytes, pos + ByteUtils.SIZE_OF_INT, data, 0, size);
+        return data;
+    }
+}
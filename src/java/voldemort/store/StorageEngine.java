@@ -16,6 +16,7 @@
 
 package voldemort.store;
 
+import java.util.Iterator;
 import java.util.List;
 
 import voldemort.server.storage.KeyLockHandle;
@@ -135,6 +136,23 @@ public interface StorageEngine<K, V, T> extends Store<K, V, T> {
      */
     public List<Versioned<V>> multiVersionPut(K key, List<Versioned<V>> values);
 
+    /**
+     * Loads a stream of entries into storage, merging each version with the
+     * versions already stored for its key just like a regular put would, with
+     * obsolete versions silently dropped. Versions of the same key are
+     * expected to be adjacent to each other.
+     * 
+     * Storage engines are free to take advantage of the stream being sorted
+     * in key order (e.g large batches, relaxed durability with a flush at the
+     * end) so this is the preferred path for restores, fork lifts and
+     * partition migration. An unsorted stream is still loaded correctly, just
+     * not as efficiently.
+     * 
+     * @param sortedEntries entries to load, sorted by key
+     * @return number of keys whose stored versions were updated
+     */
+    public long bulkLoad(Iterator<Pair<K, Versioned<V>>> sortedEntries);
+
     /**
      * Returns the list of versions stored for the key, at the same time locking
      * the key for any writes until
@@ -6,6 +6,7 @@ import java.util.List;
 import voldemort.VoldemortException;
 import voldemort.utils.ByteUtils;
 import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 /*-
@@ -60,6 +61,23 @@ public class StoreBinaryFormat {
     }
 
     public static List<Versioned<byte[]>> fromByteArray(byte[] bytes) {
+        return fromByteArray(bytes, Long.MIN_VALUE, null);
+    }
+
+    /**
+     * Reads the versions written at or after the given time, without copying
+     * out the values of the older ones.
+     * 
+     * @param bytes The stored bytes
+     * @param writtenSinceMs The time the oldest version returned may have been
+     *        written at
+     * @param skippedVersions Receives the clocks of the versions skipped, may
+     *        be null
+     * @return The versions written at or after the given time
+     */
+    public static List<Versioned<byte[]>> fromByteArray(byte[] bytes,
+                                                        long writtenSinceMs,
+                                                        List<Version> skippedVersions) {
         if(bytes.length < 1)
             throw new VoldemortException("Invalid value length: " + bytes.length);
         if(bytes[0] != VERSION)
@@ -71,10 +89,15 @@ public class StoreBinaryFormat {
             pos += clock.sizeInBytes();
             int valueSize = ByteUtils.readInt(bytes, pos);
             pos += ByteUtils.SIZE_OF_INT;
-            byte[] val = new byte[valueSize];
-            System.arraycopy(bytes, pos, val, 0, valueSize);
+            if(clock.getTimestamp() < writtenSinceMs) {
+                if(skippedVersions != null)
+                    skippedVersions.add(clock);
+            } else {
+                byte[] val = new byte[valueSize];
+                System.arraycopy(bytes, pos, val, 0, valueSize);
+                vals.add(Versioned.value(val, clock));
+            }
             pos += valueSize;
-            vals.add(Versioned.value(val, clock));
         }
         if(pos != bytes.length)
             throw new VoldemortException((bytes.length - pos)
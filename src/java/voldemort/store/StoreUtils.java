@@ -144,6 +144,21 @@ public class StoreUtils {
                                            + " not present at " + currentNode);
     }
 
+    /**
+     * Looks up a capability of the store. Stores wrapping another one delegate
+     * the lookup to it, so this finds capabilities of the storage engine below
+     * any caching, logging or stats tracking layers.
+     * 
+     * @return The capability, or null if the store does not have it
+     */
+    public static Object getCapabilityOrNull(Store<?, ?, ?> store, StoreCapabilityType capability) {
+        try {
+            return store.getCapability(capability);
+        } catch(NoSuchCapabilityException e) {
+            return null;
+        }
+    }
+
     public static <V> List<Version> getVersions(List<Versioned<V>> versioneds) {
         List<Version> versions = Lists.newArrayListWithCapacity(versioneds.size());
         for(Versioned<?> versioned: versioneds)
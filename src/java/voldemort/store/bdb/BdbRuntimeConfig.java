@@ -16,12 +16,14 @@ public class BdbRuntimeConfig {
     public static final boolean DEFAULT_EXPOSE_SPACE_UTIL = true;
     public static final boolean DEFAULT_MINIMIZE_SCAN_IMPACT = false;
     public static final boolean DEFAULT_TURNOFF_CHECKPOINTER_BATCH_WRITES = false;
+    public static final int DEFAULT_BULK_LOAD_BATCH_SIZE = 1000;
 
     private long statsCacheTtlMs = DEFAULT_STATS_CACHE_TTL_MS;
     private LockMode lockMode = DEFAULT_LOCK_MODE;
     private boolean exposeSpaceUtil = DEFAULT_EXPOSE_SPACE_UTIL;
     private boolean minimizeScanImpact = DEFAULT_MINIMIZE_SCAN_IMPACT;
     private boolean checkpointerOffForBatchWrites = DEFAULT_TURNOFF_CHECKPOINTER_BATCH_WRITES;
+    private int bulkLoadBatchSize = DEFAULT_BULK_LOAD_BATCH_SIZE;
 
     public BdbRuntimeConfig() {
 
@@ -35,6 +37,7 @@ public class BdbRuntimeConfig {
         setExposeSpaceUtil(config.getBdbExposeSpaceUtilization());
         setMinimizeScanImpact(config.getBdbMinimizeScanImpact());
         setCheckpointerOffForBatchWrites(config.getBdbCheckpointerOffForBatchWrites());
+        setBulkLoadBatchSize(config.getBdbBulkLoadBatchSize());
     }
 
     public long getStatsCacheTtlMs() {
@@ -79,4 +82,12 @@ public class BdbRuntimeConfig {
         this.checkpointerOffForBatchWrites = checkpointerOffForBulkWrites;
     }
 
+    public int getBulkLoadBatchSize() {
+        return bulkLoadBatchSize;
+    }
+
+    public void setBulkLoadBatchSize(int bulkLoadBatchSize) {
+        this.bulkLoadBatchSize = bulkLoadBatchSize;
+    }
+
 }
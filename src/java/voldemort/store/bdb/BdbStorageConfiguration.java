@@ -161,6 +161,8 @@ public class BdbStorageConfiguration implements StorageConfiguration {
                 } else {
                     engine = new BdbStorageEngine(storeName, environment, db, runtimeConfig);
                 }
+                if(voldemortConfig.isBdbExpiryIndexEnabled() && storeDef.hasRetentionPeriod())
+                    engine.openExpiryIndex();
                 if(voldemortConfig.isJmxEnabled()) {
                     // register the environment stats mbean
                     JmxUtils.registerMbean(storeName, engine.getBdbEnvironmentStats());
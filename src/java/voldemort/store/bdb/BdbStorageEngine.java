@@ -37,25 +37,34 @@ import voldemort.store.PersistenceFailureException;
 import voldemort.store.StorageInitializationException;
 import voldemort.store.Store;
 import voldemort.store.StoreBinaryFormat;
+import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreUtils;
 import voldemort.store.backup.NativeBackupable;
 import voldemort.store.bdb.stats.BdbEnvironmentStats;
+import voldemort.store.retention.ExpiryFiltered;
+import voldemort.store.retention.ExpiryIndexed;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
+import voldemort.utils.Time;
 import voldemort.utils.Utils;
 import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Occurred;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import com.sleepycat.je.CacheMode;
+import com.sleepycat.je.CheckpointConfig;
 import com.sleepycat.je.Cursor;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.DatabaseStats;
+import com.sleepycat.je.Durability;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.je.EnvironmentMutableConfig;
@@ -63,17 +72,23 @@ import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
 import com.sleepycat.je.StatsConfig;
 import com.sleepycat.je.Transaction;
+import com.sleepycat.je.TransactionConfig;
 
 /**
  * A store that uses BDB for persistence
  * 
  */
 public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], byte[]> implements
-        NativeBackupable {
+        NativeBackupable, ExpiryIndexed<ByteArray>, ExpiryFiltered<ByteArray, byte[], byte[]> {
 
     private static final Logger logger = Logger.getLogger(BdbStorageEngine.class);
     private static final Hex hexCodec = new Hex();
 
+    private static final String EXPIRY_INDEX_SUFFIX = ".expiry-index";
+    private static final int EXPIRY_BUCKET_BYTES = ByteUtils.SIZE_OF_INT;
+    // shorter than any bucket entry, and sorts after all of them
+    private static final byte[] EXPIRY_INDEX_COMPLETE_KEY = new byte[] { (byte) 0xff };
+
     private Database bdbDatabase;
     private final Environment environment;
     private final AtomicBoolean isOpen;
@@ -84,6 +99,11 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
     protected final boolean minimizeScanImpact;
     protected final boolean checkpointerOffForBatchWrites;
     private volatile int numOutstandingBatchWriteJobs = 0;
+    private boolean hasUnflushedBulkLoads = false;
+    private final int bulkLoadBatchSize;
+    private final TransactionConfig bulkLoadTxnConfig;
+    private volatile Database expiryIndexDatabase = null;
+    private volatile boolean expiryIndexComplete = false;
 
     public BdbStorageEngine(String name,
                             Environment environment,
@@ -100,6 +120,9 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
                                                            config.getExposeSpaceUtil());
         this.minimizeScanImpact = config.getMinimizeScanImpact();
         this.checkpointerOffForBatchWrites = config.isCheckpointerOffForBatchWrites();
+        this.bulkLoadBatchSize = config.getBulkLoadBatchSize();
+        this.bulkLoadTxnConfig = new TransactionConfig();
+        this.bulkLoadTxnConfig.setDurability(Durability.COMMIT_WRITE_NO_SYNC);
     }
 
     @Override
@@ -157,6 +180,10 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
 
                 // truncate the database
                 environment.truncateDatabase(transaction, this.getName(), false);
+                if(expiryIndexDatabase != null) {
+                    expiryIndexDatabase.close();
+                    environment.truncateDatabase(transaction, getExpiryIndexName(), false);
+                }
                 succeeded = true;
             } catch(DatabaseException e) {
                 this.bdbEnvironmentStats.reportException(e);
@@ -199,6 +226,8 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
             bdbDatabase = environment.openDatabase(null,
                                                    this.getName(),
                                                    this.bdbDatabase.getConfig());
+            if(expiryIndexDatabase != null)
+                openExpiryIndexDatabase();
             return true;
         } catch(DatabaseException e) {
             this.bdbEnvironmentStats.reportException(e);
@@ -233,6 +262,22 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
             throws PersistenceFailureException {
+        return get(key, Long.MIN_VALUE, null);
+    }
+
+    @Override
+    public List<Versioned<byte[]>> getWrittenSince(ByteArray key,
+                                                   byte[] transforms,
+                                                   long writtenSinceMs,
+                                                   List<Version> expiredVersions)
+            throws PersistenceFailureException {
+        return get(key, writtenSinceMs, expiredVersions);
+    }
+
+    private List<Versioned<byte[]>> get(ByteArray key,
+                                        long writtenSinceMs,
+                                        List<Version> expiredVersions)
+            throws PersistenceFailureException {
         StoreUtils.assertValidKey(key);
         DatabaseEntry keyEntry = new DatabaseEntry(key.get());
         DatabaseEntry valueEntry = new DatabaseEntry();
@@ -247,7 +292,9 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
             // je-delete() in put()
             OperationStatus status = getBdbDatabase().get(null, keyEntry, valueEntry, readLockMode);
             if(OperationStatus.SUCCESS == status) {
-                return StoreBinaryFormat.fromByteArray(valueEntry.getData());
+                return StoreBinaryFormat.fromByteArray(valueEntry.getData(),
+                                                       writtenSinceMs,
+                                                       expiredVersions);
             } else {
                 return Collections.emptyList();
             }
@@ -350,6 +397,7 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
 
             if(status != OperationStatus.SUCCESS)
                 throw new PersistenceFailureException("Put operation failed with status: " + status);
+            indexForExpiry(transaction, key.get(), Collections.singletonList(value));
             succeeded = true;
 
         } catch(DatabaseException e) {
@@ -370,6 +418,130 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
         }
     }
 
+    /**
+     * Loads the sorted stream in large batches, each committed as a single
+     * transaction without syncing the log. Since the keys are sorted, each
+     * batch walks the btree sequentially instead of paying a commit per key.
+     * The log is made durable with a forced checkpoint once the load is done,
+     * or once the enclosing batch modifications end, if there are any
+     * outstanding.
+     */
+    @Override
+    public long bulkLoad(Iterator<Pair<ByteArray, Versioned<byte[]>>> sortedEntries)
+            throws PersistenceFailureException {
+        PeekingIterator<Pair<ByteArray, Versioned<byte[]>>> entries = Iterators.peekingIterator(sortedEntries);
+        long numKeysUpdated = 0;
+        boolean committedAny = false;
+
+        try {
+            while(entries.hasNext()) {
+                boolean succeeded = false;
+                Transaction transaction = null;
+                long batchKeysUpdated = 0;
+                try {
+                    transaction = environment.beginTransaction(null, bulkLoadTxnConfig);
+                    for(int numKeys = 0; numKeys < bulkLoadBatchSize && entries.hasNext(); numKeys++) {
+                        Pair<ByteArray, Versioned<byte[]>> entry = entries.next();
+                        ByteArray key = entry.getFirst();
+                        List<Versioned<byte[]>> versions = new ArrayList<Versioned<byte[]>>(1);
+                        versions.add(entry.getSecond());
+                        while(entries.hasNext() && entries.peek().getFirst().equals(key))
+                            versions.add(entries.next().getSecond());
+
+                        if(mergeVersions(transaction, key, versions))
+                            batchKeysUpdated++;
+                    }
+                    succeeded = true;
+                } catch(DatabaseException e) {
+                    this.bdbEnvironmentStats.reportException(e);
+                    logger.error("Error in bulk load for store " + this.getName(), e);
+                    throw new PersistenceFailureException(e);
+                } finally {
+                    if(succeeded)
+                        attemptCommit(transaction);
+                    else
+                        attemptAbort(transaction);
+                }
+                committedAny = true;
+                numKeysUpdated += batchKeysUpdated;
+            }
+        } finally {
+            if(committedAny)
+                flushBulkLoad();
+        }
+        return numKeysUpdated;
+    }
+
+    /**
+     * Merges the given versions of a key into the stored ones, within the
+     * supplied transaction
+     * 
+     * @return true if the stored versions changed
+     */
+    private boolean mergeVersions(Transaction transaction,
+                                  ByteArray key,
+                                  List<Versioned<byte[]>> versions) throws DatabaseException {
+        StoreUtils.assertValidKey(key);
+        DatabaseEntry keyEntry = new DatabaseEntry(getStorageKey(key));
+        DatabaseEntry valueEntry = new DatabaseEntry();
+
+        List<Versioned<byte[]>> vals;
+        OperationStatus status = getBdbDatabase().get(transaction,
+                                                      keyEntry,
+                                                      valueEntry,
+                                                      LockMode.RMW);
+        if(OperationStatus.SUCCESS == status)
+            vals = StoreBinaryFormat.fromByteArray(valueEntry.getData());
+        else
+            vals = new ArrayList<Versioned<byte[]>>(versions.size());
+
+        List<Versioned<byte[]>> obsoleteVals = resolveAndConstructVersionsToPersist(vals, versions);
+        if(obsoleteVals.size() == versions.size())
+            return false;
+
+        valueEntry.setData(StoreBinaryFormat.toByteArray(vals));
+        status = getBdbDatabase().put(transaction, keyEntry, valueEntry);
+        if(status != OperationStatus.SUCCESS)
+            throw new PersistenceFailureException("Bulk load put failed with status: " + status);
+        indexForExpiry(transaction, keyEntry.getData(), versions);
+        return true;
+    }
+
+    /**
+     * Bulk loads commit without syncing, so force a checkpoint to make them
+     * durable. If batch modifications are in progress, the checkpoint is
+     * deferred until the last of them ends, so a stream loaded in several
+     * chunks is only synced once.
+     */
+    private void flushBulkLoad() {
+        synchronized(this) {
+            if(numOutstandingBatchWriteJobs > 0) {
+                hasUnflushedBulkLoads = true;
+                return;
+            }
+        }
+        checkpoint();
+    }
+
+    private void checkpoint() {
+        try {
+            CheckpointConfig checkpointConfig = new CheckpointConfig();
+            checkpointConfig.setForce(true);
+            environment.checkpoint(checkpointConfig);
+        } catch(DatabaseException e) {
+            this.bdbEnvironmentStats.reportException(e);
+            logger.error("Error checkpointing after bulk load for store " + this.getName(), e);
+            throw new PersistenceFailureException(e);
+        }
+    }
+
+    /**
+     * Maps a key to the key it is stored under in the bdb database
+     */
+    protected byte[] getStorageKey(ByteArray key) {
+        return key.get();
+    }
+
     @Override
     public boolean delete(ByteArray key, Version version) throws PersistenceFailureException {
 
@@ -448,6 +620,166 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
         }
     }
 
+    /**
+     * Opens the expiry index of this store, a secondary database holding one
+     * entry per key and hour the key was written in, creating it if needed.
+     * Once open, every write to the store is indexed in the same transaction.
+     * An index created next to a store that already holds data is incomplete
+     * until it has been backfilled, see {@link #setExpiryIndexComplete()}
+     */
+    public void openExpiryIndex() {
+        try {
+            openExpiryIndexDatabase();
+            logger.info("Opened expiry index for store " + getName() + ", complete: "
+                        + expiryIndexComplete);
+        } catch(DatabaseException e) {
+            this.bdbEnvironmentStats.reportException(e);
+            throw new StorageInitializationException("Failed to open the expiry index of store "
+                                                     + getName(), e);
+        }
+    }
+
+    private void openExpiryIndexDatabase() throws DatabaseException {
+        Database index = environment.openDatabase(null,
+                                                  getExpiryIndexName(),
+                                                  bdbDatabase.getConfig());
+        DatabaseEntry markerValue = new DatabaseEntry();
+        expiryIndexComplete = OperationStatus.SUCCESS == index.get(null,
+                                                                   new DatabaseEntry(EXPIRY_INDEX_COMPLETE_KEY),
+                                                                   markerValue,
+                                                                   LockMode.READ_UNCOMMITTED);
+        expiryIndexDatabase = index;
+        // an index over an empty store trivially covers it
+        if(!expiryIndexComplete && isEmpty())
+            setExpiryIndexComplete();
+    }
+
+    private String getExpiryIndexName() {
+        return getName() + EXPIRY_INDEX_SUFFIX;
+    }
+
+    private boolean isEmpty() throws DatabaseException {
+        Cursor cursor = bdbDatabase.openCursor(null, null);
+        try {
+            DatabaseEntry keyEntry = new DatabaseEntry();
+            DatabaseEntry valueEntry = new DatabaseEntry();
+            valueEntry.setPartial(true);
+            return OperationStatus.NOTFOUND == cursor.getFirst(keyEntry,
+                                                               valueEntry,
+                                                               LockMode.READ_UNCOMMITTED);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public boolean isExpiryIndexComplete() {
+        return expiryIndexDatabase != null && expiryIndexComplete;
+    }
+
+    @Override
+    public void setExpiryIndexComplete() {
+        Database index = expiryIndexDatabase;
+        if(index == null || expiryIndexComplete)
+            return;
+        try {
+            index.put(null,
+                      new DatabaseEntry(EXPIRY_INDEX_COMPLETE_KEY),
+                      new DatabaseEntry(new byte[0]));
+            expiryIndexComplete = true;
+        } catch(DatabaseException e) {
+            this.bdbEnvironmentStats.reportException(e);
+            logger.error("Error marking the expiry index of store " + getName() + " complete", e);
+            throw new PersistenceFailureException(e);
+        }
+    }
+
+    @Override
+    public void indexForExpiry(ByteArray key, long writtenMs) {
+        StoreUtils.assertValidKey(key);
+        Database index = expiryIndexDatabase;
+        if(index == null)
+            return;
+        try {
+            index.put(null,
+                      new DatabaseEntry(getExpiryIndexKey(getExpiryBucket(writtenMs),
+                                                          getStorageKey(key))),
+                      new DatabaseEntry(new byte[0]));
+        } catch(DatabaseException e) {
+            this.bdbEnvironmentStats.reportException(e);
+            logger.error("Error indexing key for expiry in store " + getName(), e);
+            throw new PersistenceFailureException(e);
+        }
+    }
+
+    /**
+     * Indexes the stored key under the hour each of the given versions was
+     * written in, within the transaction writing them
+     */
+    private void indexForExpiry(Transaction transaction,
+                                byte[] storageKey,
+                                List<Versioned<byte[]>> versions) throws DatabaseException {
+        Database index = expiryIndexDatabase;
+        if(index == null)
+            return;
+        int lastBucket = -1;
+        for(Versioned<byte[]> versioned: versions) {
+            if(!(versioned.getVersion() instanceof VectorClock))
+                continue;
+            int bucket = getExpiryBucket(((VectorClock) versioned.getVersion()).getTimestamp());
+            if(bucket == lastBucket)
+                continue;
+            index.put(transaction,
+                      new DatabaseEntry(getExpiryIndexKey(bucket, storageKey)),
+                      new DatabaseEntry(new byte[0]));
+            lastBucket = bucket;
+        }
+    }
+
+    @Override
+    public ClosableIterator<ByteArray> keysWrittenBefore(long writtenBeforeMs) {
+        Database index = expiryIndexDatabase;
+        if(index == null)
+            throw new UnsupportedOperationException("No expiry index is open for store "
+                                                    + getName());
+        try {
+            Cursor cursor = index.openCursor(null, null);
+            if(this.minimizeScanImpact)
+                cursor.setCacheMode(CacheMode.EVICT_BIN);
+            return new BdbExpiryIndexIterator(cursor,
+                                              this,
+                                              index,
+                                              getExpiryBucket(writtenBeforeMs));
+        } catch(DatabaseException e) {
+            this.bdbEnvironmentStats.reportException(e);
+            logger.error(e);
+            throw new PersistenceFailureException(e);
+        }
+    }
+
+    private static int getExpiryBucket(long writtenMs) {
+        return (int) Math.max(0, writtenMs / Time.MS_PER_HOUR);
+    }
+
+    private static byte[] getExpiryIndexKey(int bucket, byte[] storageKey) {
+        byte[] indexKey = new byte[EXPIRY_BUCKET_BYTES + storageKey.length];
+        ByteUtils.writeInt(indexKey, bucket, 0);
+        System.arraycopy(storageKey, 0, indexKey, EXPIRY_BUCKET_BYTES, storageKey.length);
+        return indexKey;
+    }
+
+    @Override
+    public Object getCapability(StoreCapabilityType capability) {
+        switch(capability) {
+            case NATIVE_BACKUP:
+            case EXPIRY_INDEX:
+            case EXPIRY_FILTER:
+                return this;
+            default:
+                return super.getCapability(capability);
+        }
+    }
+
     @Override
     public int hashCode() {
         return getName().hashCode();
@@ -464,8 +796,11 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
     @Override
     public void close() throws PersistenceFailureException {
         try {
-            if(this.isOpen.compareAndSet(true, false))
+            if(this.isOpen.compareAndSet(true, false)) {
                 this.getBdbDatabase().close();
+                if(expiryIndexDatabase != null)
+                    expiryIndexDatabase.close();
+            }
         } catch(DatabaseException e) {
             this.bdbEnvironmentStats.reportException(e);
             logger.error(e);
@@ -633,6 +968,87 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
         }
     }
 
+    /**
+     * Walks the expiry index in bucket order, up to and including the bucket
+     * of the cutoff. Entries of buckets entirely before the cutoff are
+     * consumed: each is deleted once the iteration moves past it. Entries of
+     * the cutoff bucket itself are kept, since its keys may be written later
+     * than the cutoff.
+     */
+    private static class BdbExpiryIndexIterator extends BdbIterator<ByteArray> {
+
+        private final Database index;
+        private final int lastBucket;
+        private ByteArray current = null;
+        private byte[] consumedIndexKey = null;
+
+        public BdbExpiryIndexIterator(Cursor cursor,
+                                      BdbStorageEngine bdbEngine,
+                                      Database index,
+                                      int lastBucket) {
+            super(cursor, bdbEngine);
+            this.index = index;
+            this.lastBucket = lastBucket;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null || fetchNextKey();
+        }
+
+        @Override
+        public ByteArray next() {
+            ByteArray result = null;
+            if(current == null) {
+                if(!fetchNextKey())
+                    throw new NoSuchElementException("Iterated to end.");
+            }
+            result = current;
+            current = null;
+            return result;
+        }
+
+        private boolean fetchNextKey() {
+            DatabaseEntry keyEntry = new DatabaseEntry();
+            DatabaseEntry valueEntry = new DatabaseEntry();
+            valueEntry.setPartial(true);
+            try {
+                // the cursor is not transactional, so delete through the
+                // database, which commits right away
+                if(consumedIndexKey != null) {
+                    index.delete(null, new DatabaseEntry(consumedIndexKey));
+                    consumedIndexKey = null;
+                }
+                OperationStatus status = cursor.getNext(keyEntry,
+                                                        valueEntry,
+                                                        LockMode.READ_UNCOMMITTED);
+                if(OperationStatus.NOTFOUND == status)
+                    return false;
+
+                byte[] indexKey = keyEntry.getData();
+                // past the last bucket entry, onto the completeness marker
+                if(indexKey.length < EXPIRY_BUCKET_BYTES)
+                    return false;
+                int bucket = ByteUtils.readInt(indexKey, 0);
+                if(bucket > lastBucket)
+                    return false;
+                if(bucket < lastBucket)
+                    consumedIndexKey = indexKey;
+
+                byte[] storageKey = ByteUtils.copy(indexKey, EXPIRY_BUCKET_BYTES, indexKey.length);
+                if(bdbEngine.isPartitionScanSupported())
+                    current = new ByteArray(StoreBinaryFormat.extractKey(storageKey));
+                else
+                    current = new ByteArray(storageKey);
+                return true;
+            } catch(DatabaseException e) {
+                bdbEngine.bdbEnvironmentStats.reportException(e);
+                logger.error(e);
+                throw new PersistenceFailureException(e);
+            }
+        }
+    }
+
     @Override
     public void nativeBackup(File toDir,
                              boolean verifyFiles,
@@ -643,18 +1059,16 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
 
     @Override
     public boolean beginBatchModifications() {
-        if(checkpointerOffForBatchWrites) {
-            synchronized(this) {
-                numOutstandingBatchWriteJobs++;
-                // turn the checkpointer off for the first job
-                if(numOutstandingBatchWriteJobs == 1) {
-                    logger.info("Turning checkpointer off for batch writes");
-                    EnvironmentMutableConfig mConfig = environment.getMutableConfig();
-                    mConfig.setConfigParam(EnvironmentConfig.ENV_RUN_CHECKPOINTER,
-                                           Boolean.toString(false));
-                    environment.setMutableConfig(mConfig);
-                    return true;
-                }
+        synchronized(this) {
+            numOutstandingBatchWriteJobs++;
+            // turn the checkpointer off for the first job
+            if(checkpointerOffForBatchWrites && numOutstandingBatchWriteJobs == 1) {
+                logger.info("Turning checkpointer off for batch writes");
+                EnvironmentMutableConfig mConfig = environment.getMutableConfig();
+                mConfig.setConfigParam(EnvironmentConfig.ENV_RUN_CHECKPOINTER,
+                                       Boolean.toString(false));
+                environment.setMutableConfig(mConfig);
+                return true;
             }
         }
         return false;
@@ -728,6 +1142,7 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
             if(status != OperationStatus.SUCCESS)
                 throw new PersistenceFailureException("putAndUnlock operation failed with status: "
                                                       + status);
+            indexForExpiry(transaction, key.get(), handle.getValues());
             succeeded = true;
         } catch(DatabaseException e) {
             this.bdbEnvironmentStats.reportException(e);
@@ -759,20 +1174,26 @@ public class BdbStorageEngine extends AbstractStorageEngine<ByteArray, byte[], b
 
     @Override
     public boolean endBatchModifications() {
-        if(checkpointerOffForBatchWrites) {
-            synchronized(this) {
-                numOutstandingBatchWriteJobs--;
+        boolean checkpointerTurnedOn = false;
+        boolean flushBulkLoads = false;
+        synchronized(this) {
+            numOutstandingBatchWriteJobs--;
+            if(numOutstandingBatchWriteJobs == 0) {
+                flushBulkLoads = hasUnflushedBulkLoads;
+                hasUnflushedBulkLoads = false;
                 // turn the checkpointer back on if the last job finishes
-                if(numOutstandingBatchWriteJobs == 0) {
+                if(checkpointerOffForBatchWrites) {
                     logger.info("Turning checkpointer on");
                     EnvironmentMutableConfig mConfig = environment.getMutableConfig();
                     mConfig.setConfigParam(EnvironmentConfig.ENV_RUN_CHECKPOINTER,
                                            Boolean.toString(true));
                     environment.setMutableConfig(mConfig);
-                    return true;
+                    checkpointerTurnedOn = true;
                 }
             }
         }
-        return false;
+        if(flushBulkLoads)
+            checkpoint();
+        return checkpointerTurnedOn;
     }
 }
@@ -99,12 +99,29 @@ public class PartitionPrefixedBdbStorageEngine extends BdbStorageEngine {
         return prefixedKey;
     }
 
+    @Override
+    protected byte[] getStorageKey(ByteArray key) {
+        return validateAndConstructKey(key).get();
+    }
+
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
             throws PersistenceFailureException {
         return super.get(validateAndConstructKey(key), transforms);
     }
 
+    @Override
+    public List<Versioned<byte[]>> getWrittenSince(ByteArray key,
+                                                   byte[] transforms,
+                                                   long writtenSinceMs,
+                                                   List<Version> expiredVersions)
+            throws PersistenceFailureException {
+        return super.getWrittenSince(validateAndConstructKey(key),
+                                     transforms,
+                                     writtenSinceMs,
+                                     expiredVersions);
+    }
+
     @Override
     public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
             throws PersistenceFailureException {
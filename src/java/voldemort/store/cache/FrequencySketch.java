@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.utils.ByteArray;
+
+/**
+ * A compact, approximate count of how often keys were seen recently. Each key
+ * maps to one counter in each of a few rows and its frequency is the smallest
+ * of these, so collisions can only over estimate. Once the sample size is
+ * reached all counters are halved, so that keys which stopped being popular
+ * fade away.
+ */
+@Threadsafe
+class FrequencySketch {
+
+    private static final int[] SEEDS = { 0x97cb3127, 0xb71c1c4b, 0x2f2d0a4d, 0x7ed55d16 };
+
+    private final AtomicIntegerArray counters;
+    private final int rowMask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger(0);
+
+    /**
+     * @param expectedKeys The # distinct keys expected to be tracked
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(64, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        this.counters = new AtomicIntegerArray(width * SEEDS.length);
+        this.rowMask = width - 1;
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Counts one more occurrence of the key
+     * 
+     * @param key The key seen
+     * @return The estimated # recent occurrences, including this one
+     */
+    int increment(ByteArray key) {
+        int hash = key.hashCode();
+        int frequency = Integer.MAX_VALUE;
+        for(int row = 0; row < SEEDS.length; row++) {
+            int index = indexOf(hash, row);
+            frequency = Math.min(frequency, counters.incrementAndGet(index));
+        }
+        if(additions.incrementAndGet() >= sampleSize)
+            age();
+        return frequency;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * (rowMask + 1) + (h & rowMask);
+    }
+
+    private void age() {
+        // only one of the racing threads resets the sample
+        int current = additions.get();
+        if(current < sampleSize || !additions.compareAndSet(current, 0))
+            return;
+        for(int i = 0; i < counters.length(); i++) {
+            int count;
+            do {
+                count = counters.get(i);
+            } while(!counters.compareAndSet(i, count, count >>> 1));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import voldemort.VoldemortException;
+import voldemort.store.CompositeVoldemortRequest;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.StoreUtils;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A client side store that serves reads from a {@link VersionedCache} before
+ * going over the network. Writes made through this store invalidate the cached
+ * values of the key. Writes made by other clients become visible once the
+ * entry expires or, if revalidation is enabled, on the next read, which then
+ * checks the cached versions against the ones of the inner store with a
+ * getVersions call.
+ * 
+ * Reads with transforms always go to the inner store.
+ */
+public class NearCacheStore extends DelegatingStore<ByteArray, byte[], byte[]> {
+
+    private final VersionedCache cache;
+    private final boolean revalidateReads;
+
+    public NearCacheStore(Store<ByteArray, byte[], byte[]> innerStore,
+                          VersionedCache cache,
+                          boolean revalidateReads) {
+        super(innerStore);
+        this.cache = cache;
+        this.revalidateReads = revalidateReads;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        if(transforms != null)
+            return getInnerStore().get(key, transforms);
+
+        List<Versioned<byte[]>> cached = cache.get(key);
+        if(cached != null && (!revalidateReads || isCurrent(cached, getInnerStore().getVersions(key))))
+            return cached;
+
+        List<Versioned<byte[]>> values = getInnerStore().get(key, null);
+        if(values.size() > 0)
+            cache.put(key, values);
+        return values;
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
+                                                          Map<ByteArray, byte[]> transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(keys);
+        if(transforms != null)
+            return getInnerStore().getAll(keys, transforms);
+
+        Map<ByteArray, List<Versioned<byte[]>>> result = new HashMap<ByteArray, List<Versioned<byte[]>>>();
+        List<ByteArray> missingKeys = new ArrayList<ByteArray>();
+        for(ByteArray key: keys) {
+            // Revalidating would take one round trip per key, more than
+            // fetching the values outright
+            List<Versioned<byte[]>> cached = revalidateReads ? null : cache.get(key);
+            if(cached != null)
+                result.put(key, cached);
+            else
+                missingKeys.add(key);
+        }
+
+        if(missingKeys.size() > 0) {
+            Map<ByteArray, List<Versioned<byte[]>>> fetched = getInnerStore().getAll(missingKeys,
+                                                                                      null);
+            for(Map.Entry<ByteArray, List<Versioned<byte[]>>> entry: fetched.entrySet()) {
+                if(entry.getValue().size() > 0)
+                    cache.put(entry.getKey(), entry.getValue());
+            }
+            result.putAll(fetched);
+        }
+        return result;
+    }
+
+    @Override
+    public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            getInnerStore().put(key, value, transforms);
+        } finally {
+            // The inner store stamps the written version onto the value
+            cache.invalidate(key, value.getVersion());
+        }
+    }
+
+    @Override
+    public boolean delete(ByteArray key, Version version) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            return getInnerStore().delete(key, version);
+        } finally {
+            cache.invalidate(key, version);
+        }
+    }
+
+    @Override
+    public void put(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        try {
+            getInnerStore().put(request);
+        } finally {
+            cache.invalidate(request.getKey(), request.getValue() == null ? null
+                                                                         : request.getValue()
+                                                                                  .getVersion());
+        }
+    }
+
+    @Override
+    public boolean delete(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        try {
+            return getInnerStore().delete(request);
+        } finally {
+            cache.invalidate(request.getKey(), request.getVersion());
+        }
+    }
+
+    public VersionedCache getCache() {
+        return cache;
+    }
+
+    private boolean isCurrent(List<Versioned<byte[]>> cached, List<Version> versions) {
+        if(cached.size() != versions.size())
+            return false;
+        HashSet<Version> current = new HashSet<Version>(versions);
+        for(Versioned<byte[]> value: cached) {
+            if(!current.contains(value.getVersion()))
+                return false;
+        }
+        return true;
+    }
+}
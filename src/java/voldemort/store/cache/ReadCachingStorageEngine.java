@@ -0,0 +1,462 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import voldemort.VoldemortException;
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.server.storage.KeyLockHandle;
+import voldemort.store.AbstractStorageEngine;
+import voldemort.store.CompositeVoldemortRequest;
+import voldemort.store.StorageEngine;
+import voldemort.store.StoreCapabilityType;
+import voldemort.store.StoreUtils;
+import voldemort.store.retention.ExpiryFiltered;
+import voldemort.store.stats.StoreStats;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Pair;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A storage engine wrapper that keeps the values of hot keys in a
+ * {@link VersionedCache}, sparing hits the cost of going to the storage engine
+ * and deserializing what it returns.
+ * 
+ * A key is only admitted into the cache once it has been read a few times
+ * recently, so scans and one-off reads do not flush the hot keys. Every write
+ * going through the engine, including multiVersionPut and bulk loads from the
+ * admin service, invalidates the cached values of the key it touches. A read
+ * only fills the cache if no write to its lock stripe completed while it was
+ * reading from the storage engine.
+ * 
+ * The engine filters expired versions itself, by the timestamps of their
+ * clocks, rather than handing out the {@link StoreCapabilityType#EXPIRY_FILTER}
+ * of the engine below, so that the reads of stores with a retention period are
+ * served from the cache too. Only the misses of keys not admitted into the
+ * cache go to the filter of the engine below.
+ */
+@Threadsafe
+public class ReadCachingStorageEngine extends AbstractStorageEngine<ByteArray, byte[], byte[]>
+        implements ExpiryFiltered<ByteArray, byte[], byte[]> {
+
+    private static final int NUM_STRIPES = 256;
+
+    private final StorageEngine<ByteArray, byte[], byte[]> innerEngine;
+    private final VersionedCache cache;
+    private final FrequencySketch sketch;
+    private final int admissionThreshold;
+
+    // write counts per stripe, each guarded by the lock of its stripe
+    private final Object[] stripeLocks = new Object[NUM_STRIPES];
+    private final long[] stripeWrites = new long[NUM_STRIPES];
+    private final AtomicInteger bulkLoadsInProgress = new AtomicInteger(0);
+
+    private volatile StoreStats stats;
+
+    /**
+     * @param innerEngine The storage engine to cache the values of
+     * @param cache The cache to keep the values in
+     * @param admissionThreshold The # recent reads of a key before it is cached
+     * @param expectedKeys The # distinct keys expected to compete for the cache
+     */
+    public ReadCachingStorageEngine(StorageEngine<ByteArray, byte[], byte[]> innerEngine,
+                                    VersionedCache cache,
+                                    int admissionThreshold,
+                                    int expectedKeys) {
+        super(innerEngine.getName());
+        this.innerEngine = innerEngine;
+        this.cache = cache;
+        this.admissionThreshold = admissionThreshold;
+        this.sketch = new FrequencySketch(expectedKeys);
+        for(int i = 0; i < NUM_STRIPES; i++)
+            stripeLocks[i] = new Object();
+    }
+
+    /**
+     * Sets the stats the cache hits, misses and evictions are reported to
+     */
+    public void setStats(StoreStats stats) {
+        this.stats = stats;
+    }
+
+    public VersionedCache getCache() {
+        return cache;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        if(transforms != null || bulkLoadsInProgress.get() > 0)
+            return innerEngine.get(key, transforms);
+
+        List<Versioned<byte[]>> values = cache.get(key);
+        if(values != null) {
+            recordLookups(1, 0);
+            return values;
+        }
+        recordLookups(0, 1);
+
+        int stripe = stripeOf(key);
+        long writes = getWrites(stripe);
+        values = innerEngine.get(key, null);
+        if(isAdmitted(key))
+            fill(stripe, writes, key, values);
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Versioned<byte[]>> getWrittenSince(ByteArray key,
+                                                   byte[] transforms,
+                                                   long writtenSinceMs,
+                                                   List<Version> expiredVersions) {
+        StoreUtils.assertValidKey(key);
+        ExpiryFiltered<ByteArray, byte[], byte[]> innerFilter = (ExpiryFiltered<ByteArray, byte[], byte[]>) StoreUtils.getCapabilityOrNull(innerEngine,
+                                                                                                                                            StoreCapabilityType.EXPIRY_FILTER);
+        if(transforms != null || bulkLoadsInProgress.get() > 0) {
+            if(innerFilter != null)
+                return innerFilter.getWrittenSince(key, transforms, writtenSinceMs, expiredVersions);
+            return filterWrittenSince(innerEngine.get(key, transforms),
+                                      writtenSinceMs,
+                                      expiredVersions);
+        }
+
+        List<Versioned<byte[]>> values = cache.get(key);
+        if(values != null) {
+            recordLookups(1, 0);
+            return filterWrittenSince(values, writtenSinceMs, expiredVersions);
+        }
+        recordLookups(0, 1);
+
+        // a key about to be cached is read whole, so that later reads with a
+        // later expiry time can be served from the cache as well
+        if(isAdmitted(key)) {
+            int stripe = stripeOf(key);
+            long writes = getWrites(stripe);
+            values = innerEngine.get(key, null);
+            fill(stripe, writes, key, values);
+            return filterWrittenSince(values, writtenSinceMs, expiredVersions);
+        }
+        if(innerFilter != null)
+            return innerFilter.getWrittenSince(key, null, writtenSinceMs, expiredVersions);
+        return filterWrittenSince(innerEngine.get(key, null), writtenSinceMs, expiredVersions);
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
+                                                          Map<ByteArray, byte[]> transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(keys);
+        if(hasTransforms(transforms) || bulkLoadsInProgress.get() > 0)
+            return innerEngine.getAll(keys, transforms);
+
+        Map<ByteArray, List<Versioned<byte[]>>> result = new HashMap<ByteArray, List<Versioned<byte[]>>>();
+        List<ByteArray> missingKeys = new LinkedList<ByteArray>();
+        int hits = 0;
+        for(ByteArray key: keys) {
+            List<Versioned<byte[]>> values = cache.get(key);
+            if(values == null) {
+                missingKeys.add(key);
+                continue;
+            }
+            hits++;
+            if(!values.isEmpty())
+                result.put(key, values);
+        }
+        recordLookups(hits, missingKeys.size());
+        if(missingKeys.isEmpty())
+            return result;
+
+        Map<ByteArray, Long> writes = new HashMap<ByteArray, Long>();
+        for(ByteArray key: missingKeys)
+            writes.put(key, getWrites(stripeOf(key)));
+        Map<ByteArray, List<Versioned<byte[]>>> fetched = innerEngine.getAll(missingKeys, null);
+        for(ByteArray key: missingKeys) {
+            List<Versioned<byte[]>> values = fetched.get(key);
+            if(values == null)
+                values = new ArrayList<Versioned<byte[]>>(0);
+            else if(!values.isEmpty())
+                result.put(key, values);
+            if(isAdmitted(key))
+                fill(stripeOf(key), writes.get(key), key, values);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Version> getVersions(ByteArray key) {
+        List<Versioned<byte[]>> values = bulkLoadsInProgress.get() > 0 ? null : cache.get(key);
+        if(values == null) {
+            recordLookups(0, 1);
+            return innerEngine.getVersions(key);
+        }
+        recordLookups(1, 0);
+        return StoreUtils.getVersions(values);
+    }
+
+    @Override
+    public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            innerEngine.put(key, value, transforms);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean delete(ByteArray key, Version version) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            return innerEngine.delete(key, version);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public List<Versioned<byte[]>> multiVersionPut(ByteArray key, List<Versioned<byte[]>> values) {
+        StoreUtils.assertValidKey(key);
+        try {
+            return innerEngine.multiVersionPut(key, values);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public long bulkLoad(Iterator<Pair<ByteArray, Versioned<byte[]>>> sortedEntries) {
+        // the keys are not known up front, so the cache stays out of the way
+        // until the load is done
+        bulkLoadsInProgress.incrementAndGet();
+        try {
+            return innerEngine.bulkLoad(sortedEntries);
+        } finally {
+            invalidateAll();
+            bulkLoadsInProgress.decrementAndGet();
+        }
+    }
+
+    @Override
+    public KeyLockHandle<byte[]> getAndLock(ByteArray key) {
+        return innerEngine.getAndLock(key);
+    }
+
+    @Override
+    public void putAndUnlock(ByteArray key, KeyLockHandle<byte[]> handle) {
+        StoreUtils.assertValidKey(key);
+        try {
+            innerEngine.putAndUnlock(key, handle);
+        } finally {
+            invalidate(key);
+        }
+    }
+
+    @Override
+    public void releaseLock(KeyLockHandle<byte[]> handle) {
+        innerEngine.releaseLock(handle);
+    }
+
+    @Override
+    public void truncate() {
+        try {
+            innerEngine.truncate();
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        return innerEngine.get(request);
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        return innerEngine.getAll(request);
+    }
+
+    @Override
+    public void put(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        try {
+            innerEngine.put(request);
+        } finally {
+            invalidate(request.getKey());
+        }
+    }
+
+    @Override
+    public boolean delete(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        try {
+            return innerEngine.delete(request);
+        } finally {
+            invalidate(request.getKey());
+        }
+    }
+
+    @Override
+    public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries() {
+        return innerEngine.entries();
+    }
+
+    @Override
+    public ClosableIterator<ByteArray> keys() {
+        return innerEngine.keys();
+    }
+
+    @Override
+    public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries(int partition) {
+        return innerEngine.entries(partition);
+    }
+
+    @Override
+    public ClosableIterator<ByteArray> keys(int partition) {
+        return innerEngine.keys(partition);
+    }
+
+    @Override
+    public boolean isPartitionAware() {
+        return innerEngine.isPartitionAware();
+    }
+
+    @Override
+    public boolean isPartitionScanSupported() {
+        return innerEngine.isPartitionScanSupported();
+    }
+
+    @Override
+    public boolean beginBatchModifications() {
+        return innerEngine.beginBatchModifications();
+    }
+
+    @Override
+    public boolean endBatchModifications() {
+        return innerEngine.endBatchModifications();
+    }
+
+    @Override
+    public Object getCapability(StoreCapabilityType capability) {
+        if(capability == StoreCapabilityType.EXPIRY_FILTER)
+            return this;
+        return innerEngine.getCapability(capability);
+    }
+
+    @Override
+    public void close() throws VoldemortException {
+        try {
+            innerEngine.close();
+        } finally {
+            cache.clear();
+        }
+    }
+
+    private static boolean hasTransforms(Map<ByteArray, byte[]> transforms) {
+        if(transforms != null) {
+            for(byte[] transform: transforms.values())
+                if(transform != null)
+                    return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the versions written before the given time from the given list,
+     * handing their clocks to expiredVersions if it is not null
+     */
+    private static List<Versioned<byte[]>> filterWrittenSince(List<Versioned<byte[]>> values,
+                                                              long writtenSinceMs,
+                                                              List<Version> expiredVersions) {
+        Iterator<Versioned<byte[]>> iterator = values.iterator();
+        while(iterator.hasNext()) {
+            Versioned<byte[]> value = iterator.next();
+            VectorClock clock = (VectorClock) value.getVersion();
+            if(clock.getTimestamp() < writtenSinceMs) {
+                iterator.remove();
+                if(expiredVersions != null)
+                    expiredVersions.add(clock);
+            }
+        }
+        return values;
+    }
+
+    private boolean isAdmitted(ByteArray key) {
+        return sketch.increment(key) >= admissionThreshold;
+    }
+
+    private void fill(int stripe, long writesBeforeRead, ByteArray key, List<Versioned<byte[]>> values) {
+        int evictions;
+        synchronized(stripeLocks[stripe]) {
+            // a write completed while reading, what was read may be stale
+            if(stripeWrites[stripe] != writesBeforeRead || bulkLoadsInProgress.get() > 0)
+                return;
+            evictions = cache.put(key, values);
+        }
+        StoreStats current = stats;
+        if(current != null && evictions > 0)
+            current.recordReadCacheEvictions(evictions);
+    }
+
+    private void invalidate(ByteArray key) {
+        int stripe = stripeOf(key);
+        synchronized(stripeLocks[stripe]) {
+            stripeWrites[stripe]++;
+            cache.invalidate(key, null);
+        }
+    }
+
+    private void invalidateAll() {
+        for(int stripe = 0; stripe < NUM_STRIPES; stripe++) {
+            synchronized(stripeLocks[stripe]) {
+                stripeWrites[stripe]++;
+            }
+        }
+        cache.clear();
+    }
+
+    private long getWrites(int stripe) {
+        synchronized(stripeLocks[stripe]) {
+            return stripeWrites[stripe];
+        }
+    }
+
+    private int stripeOf(ByteArray key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (NUM_STRIPES - 1);
+    }
+
+    private void recordLookups(long hits, long misses) {
+        StoreStats current = stats;
+        if(current != null)
+            current.recordReadCacheLookups(hits, misses);
+    }
+}
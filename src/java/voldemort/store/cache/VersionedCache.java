@@ -0,0 +1,375 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.annotations.jmx.JmxOperation;
+import voldemort.store.StoreBinaryFormat;
+import voldemort.utils.ByteArray;
+import voldemort.utils.Time;
+import voldemort.versioning.Occurred;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A size bounded cache of the versioned values of keys, evicting the least
+ * recently used entries first. Entries expire once they are older than the
+ * configured time to live.
+ * 
+ * On the heap the values are kept as they were read, so a hit only copies the
+ * value arrays and vector clocks rather than deserializing them again. Off the
+ * heap they are kept serialized in direct buffers. Either way every hit hands
+ * out fresh copies that the caller is free to modify. The cache is split into
+ * independently locked segments to keep contention down.
+ * 
+ * Writes leave a tombstone carrying the written version behind. A read that
+ * started before the write completed can thus not put an older value back
+ * into the cache.
+ */
+@Threadsafe
+@JmxManaged(description = "A size bounded cache of versioned values")
+public class VersionedCache {
+
+    // Rough per entry overhead of the map entry, key and bookkeeping
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    // Rough overhead of a Versioned and its vector clock beyond their bytes
+    private static final int VERSIONED_OVERHEAD_BYTES = 64;
+
+    private final Segment[] segments;
+    private final long ttlMs;
+    private final boolean offHeap;
+    private final Time time;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /**
+     * @param maxSizeInBytes The max # bytes taken up by the cached values
+     * @param numSegments The # independently locked segments
+     * @param ttlMs How long an entry may be served, 0 for no limit
+     * @param offHeap Whether values are kept in direct buffers
+     * @param time Time source used to expire entries
+     */
+    public VersionedCache(long maxSizeInBytes,
+                          int numSegments,
+                          long ttlMs,
+                          boolean offHeap,
+                          Time time) {
+        if(maxSizeInBytes <= 0)
+            throw new IllegalArgumentException("Cache size must be positive.");
+        if(numSegments <= 0)
+            throw new IllegalArgumentException("Number of segments must be positive.");
+        this.segments = new Segment[numSegments];
+        for(int i = 0; i < numSegments; i++)
+            this.segments[i] = new Segment(Math.max(1, maxSizeInBytes / numSegments));
+        this.ttlMs = ttlMs;
+        this.offHeap = offHeap;
+        this.time = time;
+    }
+
+    /**
+     * Returns a copy of the cached values of the given key.
+     * 
+     * @param key The key to look up
+     * @return The values or null if the key is not cached or has expired
+     */
+    public List<Versioned<byte[]>> get(ByteArray key) {
+        Segment segment = segmentFor(key);
+        CacheEntry entry;
+        synchronized(segment) {
+            entry = segment.entries.get(key);
+            if(entry != null && isExpired(entry)) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+        if(entry == null || entry.isTombstone()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.getValues();
+    }
+
+    /**
+     * Caches the values read for the given key, unless they are older than
+     * what the cache already knows about the key.
+     * 
+     * @param key The key read
+     * @param values The values read, not modified
+     * @return The # entries evicted to make room for the values
+     */
+    public int put(ByteArray key, List<Versioned<byte[]>> values) {
+        CacheEntry newEntry = toEntry(key, values);
+        Segment segment = segmentFor(key);
+        synchronized(segment) {
+            CacheEntry entry = segment.entries.get(key);
+            if(entry != null && !isExpired(entry)) {
+                List<Version> known = entry.isTombstone() ? null : entry.getVersions();
+                if(entry.isTombstone() ? isObsolete(values, entry.tombstone)
+                                      : isObsolete(values, known)) {
+                    return 0;
+                }
+            }
+            return segment.put(key, newEntry);
+        }
+    }
+
+    /**
+     * Drops the cached values of the given key after a write. The written
+     * version is remembered until the entry expires, so that reads which
+     * raced with the write cannot cache anything older.
+     * 
+     * @param key The key written
+     * @param writtenVersion The version written or null if not known
+     */
+    public void invalidate(ByteArray key, Version writtenVersion) {
+        Segment segment = segmentFor(key);
+        synchronized(segment) {
+            if(writtenVersion instanceof VectorClock) {
+                VectorClock clock = ((VectorClock) writtenVersion).clone();
+                segment.put(key, new CacheEntry(null,
+                                                key.length() + ENTRY_OVERHEAD_BYTES,
+                                                clock,
+                                                time.getMilliseconds()));
+            } else {
+                segment.remove(key);
+            }
+        }
+    }
+
+    @JmxOperation(description = "Drop all the cached values.")
+    public void clear() {
+        for(Segment segment: segments) {
+            synchronized(segment) {
+                segment.entries.clear();
+                segment.sizeInBytes = 0;
+            }
+        }
+    }
+
+    @JmxGetter(name = "numHits", description = "The # lookups served from the cache.")
+    public long getNumHits() {
+        return hits.get();
+    }
+
+    @JmxGetter(name = "numMisses", description = "The # lookups not served from the cache.")
+    public long getNumMisses() {
+        return misses.get();
+    }
+
+    @JmxGetter(name = "hitRatio", description = "The share of the lookups served from the cache.")
+    public double getHitRatio() {
+        long numHits = hits.get();
+        long total = numHits + misses.get();
+        return total == 0 ? 0.0d : numHits / (double) total;
+    }
+
+    @JmxGetter(name = "numEvictions", description = "The # entries evicted to make room.")
+    public long getNumEvictions() {
+        return evictions.get();
+    }
+
+    @JmxGetter(name = "numEntries", description = "The # entries currently cached.")
+    public long getNumEntries() {
+        long numEntries = 0;
+        for(Segment segment: segments) {
+            synchronized(segment) {
+                numEntries += segment.entries.size();
+            }
+        }
+        return numEntries;
+    }
+
+    @JmxGetter(name = "sizeInBytes", description = "The approximate # bytes currently cached.")
+    public long getSizeInBytes() {
+        long sizeInBytes = 0;
+        for(Segment segment: segments) {
+            synchronized(segment) {
+                sizeInBytes += segment.sizeInBytes;
+            }
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * The values are obsolete if each of them occurred strictly before one of
+     * the known versions
+     */
+    private static boolean isObsolete(List<Versioned<byte[]>> values, List<Version> known) {
+        for(Versioned<byte[]> value: values) {
+            boolean superseded = false;
+            for(Version version: known) {
+                if(isBefore(value.getVersion(), version)) {
+                    superseded = true;
+                    break;
+                }
+            }
+            if(!superseded)
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isObsolete(List<Versioned<byte[]>> values, VectorClock written) {
+        for(Versioned<byte[]> value: values) {
+            if(!isBefore(value.getVersion(), written))
+                return false;
+        }
+        return true;
+    }
+
+    // Equal clocks compare as BEFORE, which is not what we want here
+    private static boolean isBefore(Version version, Version other) {
+        return version.compare(other) == Occurred.BEFORE && !version.equals(other);
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        return ttlMs > 0 && time.getMilliseconds() - entry.createdMs >= ttlMs;
+    }
+
+    private CacheEntry toEntry(ByteArray key, List<Versioned<byte[]>> values) {
+        if(!offHeap) {
+            List<Versioned<byte[]>> copy = copyOf(values);
+            int sizeInBytes = key.length() + ENTRY_OVERHEAD_BYTES;
+            for(Versioned<byte[]> value: copy)
+                sizeInBytes += value.getValue().length
+                               + ((VectorClock) value.getVersion()).sizeInBytes()
+                               + VERSIONED_OVERHEAD_BYTES;
+            return new CacheEntry(copy, sizeInBytes, null, time.getMilliseconds());
+        }
+        byte[] bytes = StoreBinaryFormat.toByteArray(values);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return new CacheEntry(buffer,
+                              bytes.length + key.length() + ENTRY_OVERHEAD_BYTES,
+                              null,
+                              time.getMilliseconds());
+    }
+
+    private static List<Versioned<byte[]>> copyOf(List<Versioned<byte[]>> values) {
+        List<Versioned<byte[]>> copy = new ArrayList<Versioned<byte[]>>(values.size());
+        for(Versioned<byte[]> value: values) {
+            Versioned<byte[]> versioned = value.cloneVersioned();
+            versioned.setObject(value.getValue().clone());
+            copy.add(versioned);
+        }
+        return copy;
+    }
+
+    private Segment segmentFor(ByteArray key) {
+        int hash = key.hashCode();
+        // spread the bits, the low ones of an array hash are poorly mixed
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        hash ^= (hash >>> 7) ^ (hash >>> 4);
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static class CacheEntry {
+
+        // List of Versioned on heap, ByteBuffer off heap, null for a tombstone
+        private final Object storage;
+        private final int sizeInBytes;
+        private final VectorClock tombstone;
+        private final long createdMs;
+
+        CacheEntry(Object storage, int sizeInBytes, VectorClock tombstone, long createdMs) {
+            this.storage = storage;
+            this.sizeInBytes = sizeInBytes;
+            this.tombstone = tombstone;
+            this.createdMs = createdMs;
+        }
+
+        boolean isTombstone() {
+            return storage == null;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Versioned<byte[]>> getValues() {
+            if(storage instanceof List)
+                return copyOf((List<Versioned<byte[]>>) storage);
+            ByteBuffer buffer = ((ByteBuffer) storage).duplicate();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return StoreBinaryFormat.fromByteArray(bytes);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Version> getVersions() {
+            List<Versioned<byte[]>> values = (storage instanceof List) ? (List<Versioned<byte[]>>) storage
+                                                                       : getValues();
+            List<Version> versions = new ArrayList<Version>(values.size());
+            for(Versioned<byte[]> value: values)
+                versions.add(value.getVersion());
+            return versions;
+        }
+    }
+
+    /**
+     * An access ordered map bounded by the # bytes of its entries. Guarded by
+     * its own monitor.
+     */
+    private class Segment {
+
+        private final long maxSizeInBytes;
+        private final LinkedHashMap<ByteArray, CacheEntry> entries = new LinkedHashMap<ByteArray, CacheEntry>(16,
+                                                                                                               0.75f,
+                                                                                                               true);
+        private long sizeInBytes = 0;
+
+        Segment(long maxSizeInBytes) {
+            this.maxSizeInBytes = maxSizeInBytes;
+        }
+
+        int put(ByteArray key, CacheEntry entry) {
+            CacheEntry previous = entries.put(key, entry);
+            if(previous != null)
+                sizeInBytes -= previous.sizeInBytes;
+            sizeInBytes += entry.sizeInBytes;
+
+            int numEvicted = 0;
+            Iterator<Map.Entry<ByteArray, CacheEntry>> it = entries.entrySet().iterator();
+            while(sizeInBytes > maxSizeInBytes && it.hasNext()) {
+                Map.Entry<ByteArray, CacheEntry> eldest = it.next();
+                sizeInBytes -= eldest.getValue().sizeInBytes;
+                it.remove();
+                numEvicted++;
+            }
+            evictions.addAndGet(numEvicted);
+            return numEvicted;
+        }
+
+        void remove(ByteArray key) {
+            CacheEntry previous = entries.remove(key);
+            if(previous != null)
+                sizeInBytes -= previous.sizeInBytes;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.coalescing;
+
+import java.util.List;
+
+import voldemort.VoldemortException;
+import voldemort.store.CompositeVoldemortRequest;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.StoreUtils;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A store wrapper letting concurrent gets of the same key and transforms share
+ * a single lookup of the inner store, which keeps a burst of reads of a hot key
+ * from turning into as many identical requests.
+ * 
+ * The {@link GetCoalescer} may be shared by several stores wrapping the same
+ * underlying store.
+ */
+public class CoalescingStore extends DelegatingStore<ByteArray, byte[], byte[]> {
+
+    private final GetCoalescer coalescer;
+
+    public CoalescingStore(Store<ByteArray, byte[], byte[]> innerStore, GetCoalescer coalescer) {
+        super(innerStore);
+        this.coalescer = coalescer;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        return coalescer.get(getInnerStore(), key, transforms);
+    }
+
+    @Override
+    public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            super.put(key, value, transforms);
+        } finally {
+            coalescer.recordWrite(key);
+        }
+    }
+
+    @Override
+    public boolean delete(ByteArray key, Version version) throws VoldemortException {
+        StoreUtils.assertValidKey(key);
+        try {
+            return super.delete(key, version);
+        } finally {
+            coalescer.recordWrite(key);
+        }
+    }
+
+    @Override
+    public void put(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(request.getKey());
+        try {
+            super.put(request);
+        } finally {
+            coalescer.recordWrite(request.getKey());
+        }
+    }
+
+    @Override
+    public boolean delete(CompositeVoldemortRequest<ByteArray, byte[]> request)
+            throws VoldemortException {
+        StoreUtils.assertValidKey(request.getKey());
+        try {
+            return super.delete(request);
+        } finally {
+            coalescer.recordWrite(request.getKey());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.coalescing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import voldemort.VoldemortException;
+import voldemort.annotations.concurrency.Threadsafe;
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.store.Store;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ByteUtils;
+import voldemort.versioning.Versioned;
+
+/**
+ * Tracks the gets of a store that are in flight, so that a get for a key and
+ * transforms already being looked up waits for that lookup and shares its
+ * result instead of issuing another one.
+ * 
+ * A get never joins a lookup that started before a write of its key completed,
+ * so a client always sees its own writes.
+ */
+@Threadsafe
+@JmxManaged(description = "Coalesces concurrent identical gets of a store")
+public class GetCoalescer {
+
+    private static final int NUM_STRIPES = 256;
+
+    private final ConcurrentMap<FlightKey, Flight> flights = new ConcurrentHashMap<FlightKey, Flight>();
+    // # writes completed per stripe of keys
+    private final AtomicLongArray writes = new AtomicLongArray(NUM_STRIPES);
+
+    private final AtomicLong numGets = new AtomicLong(0);
+    private final AtomicLong numCoalescedGets = new AtomicLong(0);
+
+    /**
+     * Gets the values of the key from the given store, unless an identical get
+     * is already in flight
+     * 
+     * @param store The store to look the key up in
+     * @param key The key to get
+     * @param transforms The transforms to apply, may be null
+     * @return A copy of the values, which the caller is free to modify
+     */
+    public List<Versioned<byte[]>> get(Store<ByteArray, byte[], byte[]> store,
+                                       ByteArray key,
+                                       byte[] transforms) {
+        numGets.incrementAndGet();
+        FlightKey flightKey = new FlightKey(key, transforms);
+        long writesBefore = writes.get(stripeOf(key));
+        Flight flight = new Flight(writesBefore);
+        while(true) {
+            Flight current = flights.putIfAbsent(flightKey, flight);
+            if(current == null)
+                break;
+            if(current.writesBefore == writesBefore) {
+                numCoalescedGets.incrementAndGet();
+                return current.await();
+            }
+            // the lookup in flight may miss a completed write, start afresh
+            if(flights.replace(flightKey, current, flight))
+                break;
+        }
+
+        try {
+            flight.complete(store.get(key, transforms), null);
+            return flight.await();
+        } catch(RuntimeException e) {
+            flight.complete(null, e);
+            throw e;
+        } catch(Error e) {
+            // the waiters must not block forever, hand them the error wrapped
+            flight.complete(null, new VoldemortException("The get in flight failed.", e));
+            throw e;
+        } finally {
+            flights.remove(flightKey, flight);
+        }
+    }
+
+    /**
+     * Notes that a write of the key completed, so that later gets do not join
+     * lookups started before it
+     */
+    public void recordWrite(ByteArray key) {
+        writes.incrementAndGet(stripeOf(key));
+    }
+
+    @JmxGetter(name = "numGets", description = "The # gets made.")
+    public long getNumGets() {
+        return numGets.get();
+    }
+
+    @JmxGetter(name = "numCoalescedGets", description = "The # gets served by sharing the lookup of an identical get in flight.")
+    public long getNumCoalescedGets() {
+        return numCoalescedGets.get();
+    }
+
+    @JmxGetter(name = "coalescedRatio", description = "The share of gets served by sharing the lookup of an identical get in flight.")
+    public double getCoalescedRatio() {
+        long total = numGets.get();
+        return total == 0 ? 0.0d : numCoalescedGets.get() / (double) total;
+    }
+
+    @JmxGetter(name = "numGetsInFlight", description = "The # distinct lookups currently in flight.")
+    public int getNumGetsInFlight() {
+        return flights.size();
+    }
+
+    private static int stripeOf(ByteArray key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (NUM_STRIPES - 1);
+    }
+
+    private static final class FlightKey {
+
+        private final ByteArray key;
+        private final byte[] transforms;
+
+        FlightKey(ByteArray key, byte[] transforms) {
+            this.key = key;
+            this.transforms = transforms;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o)
+                return true;
+            if(!(o instanceof FlightKey))
+                return false;
+            FlightKey other = (FlightKey) o;
+            return key.equals(other.key) && Arrays.equals(transforms, other.transforms);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + Arrays.hashCode(transforms);
+        }
+    }
+
+    private static final class Flight {
+
+        private final long writesBefore;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile List<Versioned<byte[]>> values;
+        private volatile RuntimeException exception;
+
+        Flight(long writesBefore) {
+            this.writesBefore = writesBefore;
+        }
+
+        void complete(List<Versioned<byte[]>> values, RuntimeException exception) {
+            this.values = values;
+            this.exception = exception;
+            done.countDown();
+        }
+
+        List<Versioned<byte[]>> await() {
+            try {
+                done.await();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new VoldemortException("Interrupted while waiting for a get in flight.", e);
+            }
+            if(exception != null)
+                throw exception;
+            return copy(values);
+        }
+
+        // every caller gets its own copy, they may modify values and clocks
+        private static List<Versioned<byte[]>> copy(List<Versioned<byte[]>> values) {
+            List<Versioned<byte[]>> copies = new ArrayList<Versioned<byte[]>>(values.size());
+            for(Versioned<byte[]> value: values) {
+                Versioned<byte[]> copy = value.cloneVersioned();
+                if(copy.getValue() != null)
+                    copy.setObject(ByteUtils.copy(copy.getValue(), 0, copy.getValue().length));
+                copies.add(copy);
+            }
+            return copies;
+        }
+    }
+}
@@ -13,6 +13,8 @@ public class CompressionStrategyFactory {
             return new LzfCompressionStrategy();
         if(compression.getType().equals("snappy"))
             return new SnappyCompressionStrategy();
+        if(compression.getType().equals(DictionaryCompressionStrategy.TYPE))
+            return new DictionaryCompressionStrategy(compression.getOptions());
         throw new IllegalArgumentException("Unsupported compression algorithm: "
                                            + compression.getType());
     }
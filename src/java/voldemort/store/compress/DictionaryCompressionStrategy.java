@@ -0,0 +1,318 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.log4j.Logger;
+
+import voldemort.annotations.Experimental;
+import voldemort.serialization.Compression;
+import voldemort.utils.ByteUtils;
+
+/**
+ * Implementation of CompressionStrategy that deflates every value against a
+ * preset dictionary trained from sample values of the store. Small values
+ * (a few hundred bytes) barely compress on their own, but share most of their
+ * structure (field names, enum values, common strings) with each other, which
+ * a preset dictionary captures.
+ * 
+ * Dictionaries are versioned. They live in the compression options of the
+ * serializer definition (i.e. in the store metadata) as a comma separated list
+ * of <code>id:base64-dictionary</code> pairs; the dictionary with the highest
+ * id is used for writes. Each compressed value is prefixed with the 2 byte id
+ * of the dictionary it was written with, so values written with older
+ * dictionaries stay readable for as long as their dictionary is kept in the
+ * options. Id 0 is reserved for values deflated without a dictionary.
+ * 
+ * Dictionaries are trained with {@link #trainDictionary(Compression, Collection,
+ * DictionaryTrainer)}, usually through the admin client, which samples the
+ * values of the store and adds the dictionary to the store definition on
+ * every node. Empty dictionaries are never added; one found in the options
+ * anyway is ignored.
+ * 
+ * @see DictionaryTrainer
+ */
+@Experimental
+public class DictionaryCompressionStrategy implements CompressionStrategy {
+
+    private static final Logger logger = Logger.getLogger(DictionaryCompressionStrategy.class);
+
+    public static final String TYPE = "dictionary";
+
+    public static final int NO_DICTIONARY_ID = 0;
+
+    public static final int MAX_DICTIONARY_ID = 0xFFFF;
+
+    private static final int HEADER_SIZE = 2;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    /*
+     * Setting up a native zlib stream costs more than deflating a small value,
+     * so every thread keeps one deflater and one inflater, shared by all
+     * strategies, and resets them between values. zlib clears the window on
+     * reset, so the preset dictionary is set again for every value; that is a
+     * copy of the dictionary, not a new stream.
+     */
+    private static final ThreadLocal<Coders> CODERS = new ThreadLocal<Coders>() {
+
+        @Override
+        protected Coders initialValue() {
+            return new Coders();
+        }
+    };
+
+    private final SortedMap<Integer, byte[]> dictionaries;
+
+    private final int currentId;
+
+    private final byte[] currentDictionary;
+
+    private final int level;
+
+    public DictionaryCompressionStrategy(SortedMap<Integer, byte[]> dictionaries) {
+        this(dictionaries, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public DictionaryCompressionStrategy(SortedMap<Integer, byte[]> dictionaries, int level) {
+        SortedMap<Integer, byte[]> usableDictionaries = new TreeMap<Integer, byte[]>();
+        for(Map.Entry<Integer, byte[]> entry: dictionaries.entrySet()) {
+            int id = entry.getKey();
+            if(id <= NO_DICTIONARY_ID || id > MAX_DICTIONARY_ID)
+                throw new IllegalArgumentException("Dictionary id " + id
+                                                   + " is out of range, must be in (0, "
+                                                   + MAX_DICTIONARY_ID + "]");
+            // nothing can have been written with an empty dictionary, since
+            // addDictionary rejects them
+            if(entry.getValue() == null || entry.getValue().length == 0) {
+                logger.warn("Ignoring empty compression dictionary " + id);
+                continue;
+            }
+            usableDictionaries.put(id, entry.getValue());
+        }
+        this.dictionaries = Collections.unmodifiableSortedMap(usableDictionaries);
+        this.currentId = usableDictionaries.isEmpty() ? NO_DICTIONARY_ID
+                                                      : usableDictionaries.lastKey();
+        this.currentDictionary = usableDictionaries.isEmpty() ? null
+                                                              : usableDictionaries.get(currentId);
+        this.level = level;
+    }
+
+    public DictionaryCompressionStrategy(String options) {
+        this(parseOptions(options));
+    }
+
+    public String getType() {
+        return TYPE;
+    }
+
+    /**
+     * @return The id of the dictionary used for writes, or
+     *         {@link #NO_DICTIONARY_ID} if no dictionary has been trained yet
+     */
+    public int getCurrentDictionaryId() {
+        return currentId;
+    }
+
+    public SortedMap<Integer, byte[]> getDictionaries() {
+        return dictionaries;
+    }
+
+    public byte[] deflate(byte[] data) throws IOException {
+        Coders coders = CODERS.get();
+        Deflater deflater = coders.deflater;
+        deflater.reset();
+        deflater.setLevel(level);
+        if(currentDictionary != null)
+            deflater.setDictionary(currentDictionary);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(HEADER_SIZE + data.length / 2);
+        bos.write((currentId >> 8) & 0xFF);
+        bos.write(currentId & 0xFF);
+        while(!deflater.finished()) {
+            int count = deflater.deflate(coders.buffer);
+            bos.write(coders.buffer, 0, count);
+        }
+        return bos.toByteArray();
+    }
+
+    public byte[] inflate(byte[] data) throws IOException {
+        if(data.length < HEADER_SIZE)
+            throw new IOException("Compressed value is too short to hold a dictionary id");
+        int id = ByteUtils.readUnsignedShort(data, 0);
+        byte[] dictionary = null;
+        if(id != NO_DICTIONARY_ID) {
+            dictionary = dictionaries.get(id);
+            if(dictionary == null)
+                throw new IOException("Value was compressed with dictionary " + id
+                                      + " which is not present in the store definition");
+        }
+
+        Coders coders = CODERS.get();
+        Inflater inflater = coders.inflater;
+        inflater.reset();
+        try {
+            if(dictionary != null)
+                inflater.setDictionary(dictionary);
+            inflater.setInput(data, HEADER_SIZE, data.length - HEADER_SIZE);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 3);
+            boolean paddedInput = false;
+            while(!inflater.finished()) {
+                int count = inflater.inflate(coders.buffer);
+                if(count == 0 && inflater.needsInput()) {
+                    // a raw inflater may ask for one extra byte past the end
+                    // of the stream before it reports being finished
+                    if(paddedInput)
+                        throw new IOException("Truncated compressed value");
+                    inflater.setInput(new byte[1]);
+                    paddedInput = true;
+                }
+                bos.write(coders.buffer, 0, count);
+            }
+            return bos.toByteArray();
+        } catch(DataFormatException e) {
+            throw new IOException("Invalid compressed value: " + e.getMessage());
+        }
+    }
+
+    /**
+     * The deflater and inflater of a thread, along with their scratch buffer
+     */
+    private static final class Coders {
+
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Parse the compression options of a store into its versioned
+     * dictionaries.
+     * 
+     * @param options <code>id:base64-dictionary</code> pairs separated by
+     *        commas, may be null or empty
+     * @return The dictionaries keyed by id
+     */
+    public static SortedMap<Integer, byte[]> parseOptions(String options) {
+        SortedMap<Integer, byte[]> dictionaries = new TreeMap<Integer, byte[]>();
+        if(options == null || options.trim().length() == 0)
+            return dictionaries;
+        for(String pair: options.trim().split("\\s*,\\s*")) {
+            int separator = pair.indexOf(':');
+            if(separator <= 0)
+                throw new IllegalArgumentException("Invalid dictionary entry '" + pair
+                                                   + "', expected id:base64-dictionary");
+            int id = Integer.parseInt(pair.substring(0, separator).trim());
+            byte[] dictionary = Base64.decodeBase64(ByteUtils.getBytes(pair.substring(separator + 1)
+                                                                           .trim(),
+                                                                       "UTF-8"));
+            if(dictionaries.put(id, dictionary) != null)
+                throw new IllegalArgumentException("Duplicate dictionary id " + id);
+        }
+        return dictionaries;
+    }
+
+    /**
+     * Inverse of {@link #parseOptions(String)}
+     */
+    public static String toOptions(SortedMap<Integer, byte[]> dictionaries) {
+        StringBuilder builder = new StringBuilder();
+        for(Map.Entry<Integer, byte[]> entry: dictionaries.entrySet()) {
+            if(builder.length() > 0)
+                builder.append(',');
+            builder.append(entry.getKey())
+                   .append(':')
+                   .append(ByteUtils.getString(Base64.encodeBase64(entry.getValue()), "UTF-8"));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Add a new dictionary version to an existing compression definition. The
+     * new dictionary becomes the one used for writes, while all the previous
+     * ones are kept so that existing values stay readable.
+     * 
+     * @param compression The current compression definition, may be null
+     * @param dictionary The newly trained dictionary, must not be empty
+     * @return The compression definition to put in the store metadata
+     */
+    public static Compression addDictionary(Compression compression, byte[] dictionary) {
+        if(dictionary == null || dictionary.length == 0)
+            throw new IllegalArgumentException("Cannot add an empty dictionary");
+        SortedMap<Integer, byte[]> dictionaries = new TreeMap<Integer, byte[]>();
+        if(compression != null) {
+            if(!TYPE.equals(compression.getType()))
+                throw new IllegalArgumentException("Cannot add a dictionary to compression type "
+                                                   + compression.getType());
+            dictionaries.putAll(parseOptions(compression.getOptions()));
+        }
+        int nextId = dictionaries.isEmpty() ? NO_DICTIONARY_ID + 1 : dictionaries.lastKey() + 1;
+        if(nextId > MAX_DICTIONARY_ID)
+            throw new IllegalArgumentException("Out of dictionary ids, prune old dictionaries first");
+        dictionaries.put(nextId, dictionary);
+        return new Compression(TYPE, toOptions(dictionaries));
+    }
+
+    /**
+     * Train a new dictionary out of values sampled from a store and add it to
+     * the compression definition of the values.
+     * 
+     * @param compression The current compression definition of the values,
+     *        may be null
+     * @param samples Values sampled from the store, as stored, i.e. compressed
+     *        according to the current compression definition
+     * @param trainer The trainer to build the dictionary with
+     * @return The compression definition to put in the store metadata, or null
+     *         if the samples have nothing in common to build a dictionary from
+     * @throws IOException if a sample cannot be inflated
+     */
+    public static Compression trainDictionary(Compression compression,
+                                              Collection<byte[]> samples,
+                                              DictionaryTrainer trainer) throws IOException {
+        if(compression != null && !TYPE.equals(compression.getType()))
+            throw new IllegalArgumentException("Cannot add a dictionary to compression type "
+                                               + compression.getType());
+        CompressionStrategy strategy = new DictionaryCompressionStrategy(compression == null ? null
+                                                                                             : compression.getOptions());
+        List<byte[]> values = new ArrayList<byte[]>(samples.size());
+        for(byte[] sample: samples)
+            values.add(strategy.inflate(sample));
+
+        byte[] dictionary = trainer.train(values);
+        if(dictionary.length == 0) {
+            logger.info("No dictionary could be trained out of " + values.size() + " samples");
+            return null;
+        }
+        return addDictionary(compression, dictionary);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.compress;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import voldemort.annotations.Experimental;
+import voldemort.utils.Utils;
+
+/**
+ * Trains a preset dictionary for {@link DictionaryCompressionStrategy} out of
+ * sample values of a store.
+ * 
+ * The dictionary is assembled greedily out of segments of the samples: every
+ * 8 byte sequence is scored by the number of samples it occurs in, and the
+ * segment covering the most not yet covered frequent sequences is picked
+ * until the dictionary is full. Segments picked first are placed at the end of
+ * the dictionary, since deflate encodes closer back references with fewer
+ * bits.
+ */
+@Experimental
+public class DictionaryTrainer {
+
+    /**
+     * Deflate cannot reference anything more than 32KB back, so a larger
+     * dictionary is of no use.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    private static final int KMER_SIZE = 8;
+
+    private final int dictionarySize;
+
+    private final int segmentSize;
+
+    public DictionaryTrainer() {
+        this(MAX_DICTIONARY_SIZE, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public DictionaryTrainer(int dictionarySize, int segmentSize) {
+        if(dictionarySize <= 0 || dictionarySize > MAX_DICTIONARY_SIZE)
+            throw new IllegalArgumentException("Dictionary size must be in (0, "
+                                               + MAX_DICTIONARY_SIZE + "]");
+        if(segmentSize < KMER_SIZE)
+            throw new IllegalArgumentException("Segment size must be at least " + KMER_SIZE);
+        this.dictionarySize = dictionarySize;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Train a dictionary out of the given samples
+     * 
+     * @param samples Values sampled from the store
+     * @return The dictionary, empty if the samples do not have anything in
+     *         common
+     */
+    public byte[] train(Collection<byte[]> samples) {
+        Utils.notNull(samples);
+
+        // number of samples each k-mer occurs in
+        Map<Long, Integer> frequencies = new HashMap<Long, Integer>();
+        for(byte[] sample: samples) {
+            Set<Long> seen = new HashSet<Long>();
+            for(int i = 0; i + KMER_SIZE <= sample.length; i++) {
+                Long kmer = kmer(sample, i);
+                if(seen.add(kmer)) {
+                    Integer count = frequencies.get(kmer);
+                    frequencies.put(kmer, count == null ? 1 : count + 1);
+                }
+            }
+        }
+
+        PriorityQueue<Segment> candidates = new PriorityQueue<Segment>();
+        int step = Math.max(1, segmentSize / 2);
+        for(byte[] sample: samples) {
+            for(int start = 0; start + KMER_SIZE <= sample.length; start += step) {
+                Segment segment = new Segment(sample,
+                                              start,
+                                              Math.min(sample.length, start + segmentSize));
+                segment.score(frequencies);
+                if(segment.score > 0)
+                    candidates.add(segment);
+                if(segment.end == sample.length)
+                    break;
+            }
+        }
+
+        List<Segment> picked = new ArrayList<Segment>();
+        int size = 0;
+        while(size < dictionarySize && !candidates.isEmpty()) {
+            Segment best = candidates.poll();
+            // scores only go down as k-mers get covered, so rescore lazily
+            long previousScore = best.score;
+            best.score(frequencies);
+            if(best.score <= 0)
+                continue;
+            if(best.score < previousScore && !candidates.isEmpty()
+               && best.score < candidates.peek().score) {
+                candidates.add(best);
+                continue;
+            }
+            picked.add(best);
+            size += best.end - best.start;
+            for(int i = best.start; i + KMER_SIZE <= best.end; i++)
+                frequencies.remove(kmer(best.sample, i));
+        }
+
+        byte[] dictionary = new byte[Math.min(size, dictionarySize)];
+        int position = dictionary.length;
+        for(Segment segment: picked) {
+            int length = Math.min(segment.end - segment.start, position);
+            position -= length;
+            System.arraycopy(segment.sample, segment.end - length, dictionary, position, length);
+            if(position == 0)
+                break;
+        }
+        return dictionary;
+    }
+
+    private static long kmer(byte[] bytes, int offset) {
+        long kmer = 0;
+        for(int i = 0; i < KMER_SIZE; i++)
+            kmer = (kmer << 8) | (bytes[offset + i] & 0xFF);
+        return kmer;
+    }
+
+    private static class Segment implements Comparable<Segment> {
+
+        private final byte[] sample;
+        private final int start;
+        private final int end;
+        private long score;
+
+        private Segment(byte[] sample, int start, int end) {
+            this.sample = sample;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void score(Map<Long, Integer> frequencies) {
+            long total = 0;
+            Set<Long> counted = new HashSet<Long>();
+            for(int i = start; i + KMER_SIZE <= end; i++) {
+                Long kmer = kmer(sample, i);
+                Integer frequency = frequencies.get(kmer);
+                // a sequence found in a single sample is not worth a byte
+                if(frequency != null && frequency > 1 && counted.add(kmer))
+                    total += frequency;
+            }
+            this.score = total;
+        }
+
+        public int compareTo(Segment other) {
+            // highest score first
+            return score > other.score ? -1 : (score < other.score ? 1 : 0);
+        }
+    }
+}
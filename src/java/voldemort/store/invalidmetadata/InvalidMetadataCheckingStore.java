@@ -26,6 +26,7 @@ import voldemort.store.DelegatingStore;
 import voldemort.store.InvalidMetadataException;
 import voldemort.store.Store;
 import voldemort.store.StoreUtils;
+import voldemort.store.metadata.MetadataSnapshot;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.utils.ByteArray;
 import voldemort.versioning.Version;
@@ -43,6 +44,10 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
     private final int nodeId;
     private final MetadataStore metadata;
 
+    // Routing strategy and node resolved against the last snapshot seen, so
+    // that the common case is a reference comparison
+    private volatile ResolvedMetadata resolved;
+
     /**
      * Create a store which delegates its operations to its inner store and
      * throws {@link InvalidMetadataException} if the partition for key
@@ -64,9 +69,8 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
     @Override
     public boolean delete(ByteArray key, Version version) throws VoldemortException {
         StoreUtils.assertValidKey(key);
-        StoreUtils.assertValidMetadata(key,
-                                       metadata.getRoutingStrategy(getName()),
-                                       metadata.getCluster().getNodeById(nodeId));
+        ResolvedMetadata current = resolve();
+        StoreUtils.assertValidMetadata(key, current.routingStrategy, current.node);
 
         return getInnerStore().delete(key, version);
     }
@@ -76,10 +80,9 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
                                                           Map<ByteArray, byte[]> transforms)
             throws VoldemortException {
         StoreUtils.assertValidKeys(keys);
-        RoutingStrategy routingStrategy = metadata.getRoutingStrategy(getName());
-        Node node = metadata.getCluster().getNodeById(nodeId);
+        ResolvedMetadata current = resolve();
         for(ByteArray key: keys)
-            StoreUtils.assertValidMetadata(key, routingStrategy, node);
+            StoreUtils.assertValidMetadata(key, current.routingStrategy, current.node);
 
         return getInnerStore().getAll(keys, transforms);
     }
@@ -88,9 +91,8 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
     public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
             throws VoldemortException {
         StoreUtils.assertValidKey(key);
-        StoreUtils.assertValidMetadata(key,
-                                       metadata.getRoutingStrategy(getName()),
-                                       metadata.getCluster().getNodeById(nodeId));
+        ResolvedMetadata current = resolve();
+        StoreUtils.assertValidMetadata(key, current.routingStrategy, current.node);
 
         getInnerStore().put(key, value, transforms);
     }
@@ -98,10 +100,34 @@ public class InvalidMetadataCheckingStore extends DelegatingStore<ByteArray, byt
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms) throws VoldemortException {
         StoreUtils.assertValidKey(key);
-        StoreUtils.assertValidMetadata(key,
-                                       metadata.getRoutingStrategy(getName()),
-                                       metadata.getCluster().getNodeById(nodeId));
+        ResolvedMetadata current = resolve();
+        StoreUtils.assertValidMetadata(key, current.routingStrategy, current.node);
 
         return getInnerStore().get(key, transforms);
     }
+
+    private ResolvedMetadata resolve() {
+        MetadataSnapshot snapshot = metadata.getSnapshot();
+        ResolvedMetadata current = resolved;
+        if(current == null || current.snapshot != snapshot) {
+            current = new ResolvedMetadata(snapshot,
+                                           snapshot.getRoutingStrategy(getName()),
+                                           snapshot.getCluster().getNodeById(nodeId));
+            resolved = current;
+        }
+        return current;
+    }
+
+    private static class ResolvedMetadata {
+
+        final MetadataSnapshot snapshot;
+        final RoutingStrategy routingStrategy;
+        final Node node;
+
+        ResolvedMetadata(MetadataSnapshot snapshot, RoutingStrategy routingStrategy, Node node) {
+            this.snapshot = snapshot;
+            this.routingStrategy = routingStrategy;
+            this.node = node;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
 import voldemort.store.StoreCapabilityType;
 import voldemort.store.CompositeVoldemortRequest;
+import voldemort.store.retention.ExpiryFiltered;
 import voldemort.utils.SystemTime;
 import voldemort.utils.Time;
 import voldemort.versioning.Version;
@@ -33,9 +34,13 @@ import voldemort.versioning.Versioned;
 /**
  * A store wrapper that handles debug logging.
  * 
+ * If the store below offers the {@link StoreCapabilityType#EXPIRY_FILTER}
+ * capability, this store offers it too, so that the reads filtered on expiry
+ * are logged like any other.
  * 
  */
-public class LoggingStore<K, V, T> extends DelegatingStore<K, V, T> {
+public class LoggingStore<K, V, T> extends DelegatingStore<K, V, T> implements
+        ExpiryFiltered<K, V, T> {
 
     private final Logger logger;
     private final Time time;
@@ -111,6 +116,28 @@ public class LoggingStore<K, V, T> extends DelegatingStore<K, V, T> {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public List<Versioned<V>> getWrittenSince(K key,
+                                              T transforms,
+                                              long writtenSinceMs,
+                                              List<Version> expiredVersions) {
+        long startTimeNs = 0;
+        boolean succeeded = false;
+        if(logger.isDebugEnabled())
+            startTimeNs = time.getNanoseconds();
+        try {
+            ExpiryFiltered<K, V, T> innerFilter = (ExpiryFiltered<K, V, T>) getInnerStore().getCapability(StoreCapabilityType.EXPIRY_FILTER);
+            List<Versioned<V>> l = innerFilter.getWrittenSince(key,
+                                                               transforms,
+                                                               writtenSinceMs,
+                                                               expiredVersions);
+            succeeded = true;
+            return l;
+        } finally {
+            printTimedMessage("GET", succeeded, startTimeNs);
+        }
+    }
+
     @Override
     public void put(K key, Versioned<V> value, T transform) throws VoldemortException {
         long startTimeNs = 0;
@@ -138,8 +165,9 @@ public class LoggingStore<K, V, T> extends DelegatingStore<K, V, T> {
     public Object getCapability(StoreCapabilityType capability) {
         if(capability == StoreCapabilityType.LOGGER)
             return this.logger;
-        else
-            return getInnerStore().getCapability(capability);
+        Object innerCapability = getInnerStore().getCapability(capability);
+        // the reads filtered below are logged here as well
+        return capability == StoreCapabilityType.EXPIRY_FILTER ? this : innerCapability;
     }
 
     @Override
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.metadata;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import voldemort.VoldemortException;
+import voldemort.cluster.Cluster;
+import voldemort.routing.RoutingStrategy;
+import voldemort.store.StoreDefinition;
+import voldemort.store.metadata.MetadataStore.VoldemortState;
+
+/**
+ * An immutable, point in time view of the metadata needed on the request
+ * path. {@link MetadataStore} publishes a new instance through a volatile
+ * reference whenever a metadata update completes, so readers get a consistent
+ * set of cluster, store definitions, routing strategies and server state
+ * without taking any lock.
+ * 
+ * <p/>
+ * 
+ * Snapshots are totally ordered by {@link #getVersion()}; callers caching
+ * values derived from a snapshot can compare versions (or simply references)
+ * to detect that the metadata changed.
+ */
+public class MetadataSnapshot {
+
+    private final long version;
+    private final Cluster cluster;
+    private final List<StoreDefinition> storeDefList;
+    private final List<StoreDefinition> systemStoreDefList;
+    private final Map<String, StoreDefinition> storeDefMap;
+    private final Map<String, RoutingStrategy> routingStrategyMap;
+    private final Integer nodeId;
+    private final VoldemortState serverState;
+    private final Cluster rebalancingSourceCluster;
+    private final List<StoreDefinition> rebalancingSourceStores;
+
+    MetadataSnapshot(long version,
+                     Cluster cluster,
+                     List<StoreDefinition> storeDefList,
+                     List<StoreDefinition> systemStoreDefList,
+                     Map<String, RoutingStrategy> routingStrategyMap,
+                     Map<String, RoutingStrategy> systemRoutingStrategyMap,
+                     Integer nodeId,
+                     VoldemortState serverState,
+                     Cluster rebalancingSourceCluster,
+                     List<StoreDefinition> rebalancingSourceStores) {
+        this.version = version;
+        this.cluster = cluster;
+        this.storeDefList = storeDefList;
+        this.systemStoreDefList = systemStoreDefList;
+        this.nodeId = nodeId;
+        this.serverState = serverState;
+        this.rebalancingSourceCluster = rebalancingSourceCluster;
+        this.rebalancingSourceStores = rebalancingSourceStores;
+
+        Map<String, StoreDefinition> storeDefs = new HashMap<String, StoreDefinition>();
+        if(storeDefList != null) {
+            for(StoreDefinition storeDef: storeDefList)
+                storeDefs.put(storeDef.getName(), storeDef);
+        }
+        this.storeDefMap = Collections.unmodifiableMap(storeDefs);
+
+        // regular stores take precedence over system stores of the same name
+        Map<String, RoutingStrategy> routingStrategies = new HashMap<String, RoutingStrategy>();
+        if(systemRoutingStrategyMap != null)
+            routingStrategies.putAll(systemRoutingStrategyMap);
+        if(routingStrategyMap != null)
+            routingStrategies.putAll(routingStrategyMap);
+        this.routingStrategyMap = Collections.unmodifiableMap(routingStrategies);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    public List<StoreDefinition> getStoreDefList() {
+        return storeDefList;
+    }
+
+    public List<StoreDefinition> getSystemStoreDefList() {
+        return systemStoreDefList;
+    }
+
+    public StoreDefinition getStoreDef(String storeName) {
+        StoreDefinition storeDef = storeDefMap.get(storeName);
+        if(storeDef == null)
+            throw new VoldemortException("Store " + storeName + " not found in MetadataStore");
+        return storeDef;
+    }
+
+    /**
+     * @param storeName Name of a regular or system store
+     * @return The routing strategy of the store, or null if there is no such
+     *         store
+     */
+    public RoutingStrategy getRoutingStrategy(String storeName) {
+        return routingStrategyMap.get(storeName);
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public VoldemortState getServerState() {
+        return serverState;
+    }
+
+    public Cluster getRebalancingSourceCluster() {
+        return rebalancingSourceCluster;
+    }
+
+    public List<StoreDefinition> getRebalancingSourceStores() {
+        return rebalancingSourceStores;
+    }
+
+    @Override
+    public String toString() {
+        return "MetadataSnapshot(version = " + version + ", node = " + nodeId + ", state = "
+               + serverState + ")";
+    }
+}
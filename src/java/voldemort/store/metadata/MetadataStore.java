@@ -25,8 +25,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.management.MBeanOperationInfo;
@@ -114,9 +115,20 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
 
     // Guards mutations made to non-scalar objects e.g., lists stored in
     // innerStore
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     public final Lock readLock = lock.readLock();
-    public final Lock writeLock = lock.writeLock();
+    public final Lock writeLock = new SnapshotPublishingWriteLock();
+
+    // Published on release of the outermost write lock so that a multi-key
+    // update (e.g. cluster and stores during rebalance) becomes visible at
+    // once. The hot path reads it without locking.
+    private volatile MetadataSnapshot snapshot;
+
+    // What the thread holding the write lock sees; null when stale. Guarded
+    // by the write lock.
+    private MetadataSnapshot pendingSnapshot;
+
+    private long snapshotVersion = 0;
 
     private final ConcurrentHashMap<String, List<MetadataStoreListener>> storeNameTolisteners;
 
@@ -183,6 +195,7 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
 
                 // cache all keys if innerStore put succeeded
                 metadataCache.put(key, value);
+                invalidateSnapshot();
 
                 // do special stuff if needed
                 if(CLUSTER_KEY.equals(key)) {
@@ -352,72 +365,50 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
         }
     }
 
-    public Cluster getCluster() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (Cluster) metadataCache.get(CLUSTER_KEY).getValue();
-        } finally {
-            readLock.unlock();
+    /**
+     * Returns the current immutable view of the request path metadata. Callers
+     * needing several values that must agree with each other (e.g. a routing
+     * strategy and the cluster) should fetch the snapshot once and read
+     * everything from it.
+     * 
+     * @return The latest published snapshot, or the in-progress one if the
+     *         calling thread is updating the metadata
+     */
+    public MetadataSnapshot getSnapshot() {
+        if(lock.isWriteLockedByCurrentThread())
+            return getPendingSnapshot();
+        return snapshot;
+    }
 
-        }
+    public Cluster getCluster() {
+        return getSnapshot().getCluster();
     }
 
-    @SuppressWarnings("unchecked")
     public List<StoreDefinition> getStoreDefList() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (List<StoreDefinition>) metadataCache.get(STORES_KEY).getValue();
-        } finally {
-            readLock.unlock();
-
-        }
+        return getSnapshot().getStoreDefList();
     }
 
-    @SuppressWarnings("unchecked")
     public List<StoreDefinition> getSystemStoreDefList() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (List<StoreDefinition>) metadataCache.get(SYSTEM_STORES_KEY).getValue();
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getSystemStoreDefList();
     }
 
     public int getNodeId() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (Integer) (metadataCache.get(NODE_ID_KEY).getValue());
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getNodeId();
     }
 
     public StoreDefinition getStoreDef(String storeName) {
-        // acquire read lock
-        readLock.lock();
-        try {
-
-            List<StoreDefinition> storeDefs = getStoreDefList();
-            for(StoreDefinition storeDef: storeDefs) {
-                if(storeDef.getName().equals(storeName))
-                    return storeDef;
-            }
-
-            throw new VoldemortException("Store " + storeName + " not found in MetadataStore");
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getStoreDef(storeName);
     }
 
+    /**
+     * Unlike {@link #getServerStateUnlocked()}, waits for any metadata update
+     * in progress to complete before reading the state.
+     */
     public VoldemortState getServerStateLocked() {
         // acquire read lock
         readLock.lock();
         try {
-            return VoldemortState.valueOf(metadataCache.get(SERVER_STATE_KEY).getValue().toString());
+            return getSnapshot().getServerState();
         } finally {
             readLock.unlock();
 
@@ -425,9 +416,7 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
     }
 
     public VoldemortState getServerStateUnlocked() {
-
-        return VoldemortState.valueOf(metadataCache.get(SERVER_STATE_KEY).getValue().toString());
-
+        return getSnapshot().getServerState();
     }
 
     public RebalancerState getRebalancerState() {
@@ -441,48 +430,18 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
     }
 
     public Cluster getRebalancingSourceCluster() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (Cluster) metadataCache.get(REBALANCING_SOURCE_CLUSTER_XML).getValue();
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getRebalancingSourceCluster();
     }
 
-    @SuppressWarnings("unchecked")
     public List<StoreDefinition> getRebalancingSourceStores() {
-        // acquire read lock
-        readLock.lock();
-        try {
-            return (List<StoreDefinition>) metadataCache.get(REBALANCING_SOURCE_STORES_XML)
-                                                        .getValue();
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getRebalancingSourceStores();
     }
 
     /*
-     * First check in the map of regular stores. If not present, check in the
-     * system stores map.
+     * Regular stores take precedence over system stores of the same name.
      */
-    @SuppressWarnings("unchecked")
     public RoutingStrategy getRoutingStrategy(String storeName) {
-        // acquire read lock
-        readLock.lock();
-        try {
-            Map<String, RoutingStrategy> routingStrategyMap = (Map<String, RoutingStrategy>) metadataCache.get(ROUTING_STRATEGY_KEY)
-                                                                                                          .getValue();
-            RoutingStrategy strategy = routingStrategyMap.get(storeName);
-            if(strategy == null) {
-                Map<String, RoutingStrategy> systemRoutingStrategyMap = (Map<String, RoutingStrategy>) metadataCache.get(SYSTEM_ROUTING_STRATEGY_KEY)
-                                                                                                                    .getValue();
-                strategy = systemRoutingStrategyMap.get(storeName);
-            }
-            return strategy;
-        } finally {
-            readLock.unlock();
-        }
+        return getSnapshot().getRoutingStrategy(storeName);
     }
 
     /**
@@ -522,6 +481,7 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
                                    new Versioned<Object>(routingStrategyMap,
                                                          clock.incremented(getNodeId(),
                                                                            System.currentTimeMillis())));
+            invalidateSnapshot();
 
             for(String storeName: storeNameTolisteners.keySet()) {
                 RoutingStrategy updatedRoutingStrategy = routingStrategyMap.get(storeName);
@@ -552,6 +512,7 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
                                                                                        makeStoreDefinitionMap(getSystemStoreDefList()));
         this.metadataCache.put(SYSTEM_ROUTING_STRATEGY_KEY,
                                new Versioned<Object>(routingStrategyMap));
+        invalidateSnapshot();
     }
 
     /**
@@ -586,6 +547,30 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
         }
     }
 
+    /**
+     * Persist the stores left in the steal information, so that a rebalance
+     * interrupted before it completes does not move the completed stores again
+     * 
+     * @param stealInfo The steal information with the completed stores removed
+     */
+    public void checkpointRebalancingState(RebalanceTaskInfo stealInfo) {
+        // acquire write lock
+        writeLock.lock();
+        try {
+            RebalancerState rebalancerState = getRebalancerState();
+
+            if(!rebalancerState.remove(stealInfo))
+                throw new IllegalArgumentException("Couldn't find " + stealInfo + " in "
+                                                   + rebalancerState + " while checkpointing");
+
+            rebalancerState.update(stealInfo);
+            put(REBALANCING_STEAL_INFO, rebalancerState);
+            initCache(REBALANCING_STEAL_INFO);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
     /**
      * Delete the partition steal information from the rebalancer state
      * 
@@ -692,14 +677,86 @@ public class MetadataStore extends AbstractStorageEngine<ByteArray, byte[], byte
         writeLock.unlock();
     }
 
+    private void invalidateSnapshot() {
+        pendingSnapshot = null;
+    }
+
+    private MetadataSnapshot getPendingSnapshot() {
+        if(pendingSnapshot == null)
+            pendingSnapshot = createSnapshot();
+        return pendingSnapshot;
+    }
+
+    /**
+     * Builds a snapshot from the metadata cache. Tolerates missing keys since
+     * it may be called half way through {@link #init(int)}.
+     */
+    @SuppressWarnings("unchecked")
+    private MetadataSnapshot createSnapshot() {
+        Object serverState = getCachedValue(SERVER_STATE_KEY);
+        return new MetadataSnapshot(++snapshotVersion,
+                                    (Cluster) getCachedValue(CLUSTER_KEY),
+                                    (List<StoreDefinition>) getCachedValue(STORES_KEY),
+                                    (List<StoreDefinition>) getCachedValue(SYSTEM_STORES_KEY),
+                                    (Map<String, RoutingStrategy>) getCachedValue(ROUTING_STRATEGY_KEY),
+                                    (Map<String, RoutingStrategy>) getCachedValue(SYSTEM_ROUTING_STRATEGY_KEY),
+                                    (Integer) getCachedValue(NODE_ID_KEY),
+                                    serverState == null ? null
+                                                       : VoldemortState.valueOf(serverState.toString()),
+                                    (Cluster) getCachedValue(REBALANCING_SOURCE_CLUSTER_XML),
+                                    (List<StoreDefinition>) getCachedValue(REBALANCING_SOURCE_STORES_XML));
+    }
+
+    private Object getCachedValue(String key) {
+        Versioned<Object> value = metadataCache.get(key);
+        return value == null ? null : value.getValue();
+    }
+
+    /**
+     * The write lock handed out to callers. Releasing the outermost hold
+     * publishes the metadata changed under it as a new snapshot.
+     */
+    private class SnapshotPublishingWriteLock implements Lock {
+
+        private final Lock delegate = lock.writeLock();
+
+        public void lock() {
+            delegate.lock();
+        }
+
+        public void lockInterruptibly() throws InterruptedException {
+            delegate.lockInterruptibly();
+        }
+
+        public boolean tryLock() {
+            return delegate.tryLock();
+        }
+
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            return delegate.tryLock(time, unit);
+        }
+
+        public void unlock() {
+            if(lock.getWriteHoldCount() == 1)
+                snapshot = getPendingSnapshot();
+            delegate.unlock();
+        }
+
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+    }
+
     private synchronized void initCache(String key) {
         metadataCache.put(key, convertStringToObject(key, getInnerValue(key)));
+        invalidateSnapshot();
     }
 
     // Initialize the metadata cache with system store list
     private synchronized void initSystemCache() {
         List<StoreDefinition> value = storeMapper.readStoreList(new StringReader(SystemStoreConstants.SYSTEM_STORE_SCHEMA));
         metadataCache.put(SYSTEM_STORES_KEY, new Versioned<Object>(value));
+        invalidateSnapshot();
     }
 
     private void initCache(String key, Object defaultValue) {
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.projection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+import voldemort.VoldemortException;
+
+/**
+ * A built-in transform for stores with Avro generic values: a projection of
+ * top level record fields plus a conjunction of simple predicates.
+ * <p>
+ * The serialized form is passed as the opaque transforms of a get or getAll
+ * (or wrapped in an {@link voldemort.client.protocol.admin.filter.AvroProjectionFilter}
+ * for admin fetches) and is evaluated on the server. Versions failing a
+ * predicate are dropped, and fields not projected are replaced with the
+ * smallest value their schema allows, so the projected value is still valid
+ * under the store schema and is read by clients with their usual serializer.
+ * <p>
+ * Predicates may name fields of nested records with dotted paths. An empty
+ * field list keeps every field.
+ */
+public class AvroProjection {
+
+    private static final byte[] MAGIC = { (byte) 0xa7, (byte) 0x50 };
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+
+    /**
+     * Comparison operators supported by a {@link Predicate}
+     */
+    public enum Operator {
+        EQ,
+        NE,
+        LT,
+        LE,
+        GT,
+        GE
+    }
+
+    /**
+     * A comparison of a record field against a constant. The constant may be
+     * null, a string, a long, a double or a boolean.
+     */
+    public static class Predicate {
+
+        private final String field;
+        private final Operator operator;
+        private final Object operand;
+
+        public Predicate(String field, Operator operator, Object operand) {
+            if(field == null || operator == null)
+                throw new IllegalArgumentException("Predicate field and operator cannot be null.");
+            if(operand instanceof Integer || operand instanceof Short || operand instanceof Byte)
+                operand = ((Number) operand).longValue();
+            else if(operand instanceof Float)
+                operand = ((Float) operand).doubleValue();
+            else if(operand instanceof CharSequence)
+                operand = operand.toString();
+            if(operand != null && !(operand instanceof String) && !(operand instanceof Long)
+               && !(operand instanceof Double) && !(operand instanceof Boolean))
+                throw new IllegalArgumentException("Unsupported predicate operand " + operand);
+            this.field = field;
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public Object getOperand() {
+            return operand;
+        }
+
+        boolean matches(GenericRecord record) {
+            Object value = resolve(record, field);
+            if(operand == null || value == null) {
+                boolean bothNull = operand == null && value == null;
+                switch(operator) {
+                    case EQ:
+                        return bothNull;
+                    case NE:
+                        return !bothNull;
+                    default:
+                        return false;
+                }
+            }
+            int comparison = compare(value, operand);
+            switch(operator) {
+                case EQ:
+                    return comparison == 0;
+                case NE:
+                    return comparison != 0;
+                case LT:
+                    return comparison < 0;
+                case LE:
+                    return comparison <= 0;
+                case GT:
+                    return comparison > 0;
+                case GE:
+                    return comparison >= 0;
+                default:
+                    throw new IllegalStateException("Unknown operator " + operator);
+            }
+        }
+
+        private int compare(Object value, Object operand) {
+            if(value instanceof Number && operand instanceof Number) {
+                if(value instanceof Float || value instanceof Double || operand instanceof Double)
+                    return Double.compare(((Number) value).doubleValue(),
+                                          ((Number) operand).doubleValue());
+                long left = ((Number) value).longValue();
+                long right = ((Number) operand).longValue();
+                return left < right ? -1 : (left == right ? 0 : 1);
+            } else if(value instanceof Boolean && operand instanceof Boolean) {
+                if(operator != Operator.EQ && operator != Operator.NE)
+                    throw new VoldemortException("Cannot order boolean field " + field);
+                return value.equals(operand) ? 0 : 1;
+            } else if(operand instanceof String && !(value instanceof Number)
+                      && !(value instanceof Boolean)) {
+                // strings come back as Utf8 and enums as symbols
+                return value.toString().compareTo((String) operand);
+            }
+            throw new VoldemortException("Cannot compare field " + field + " value " + value
+                                         + " with " + operand);
+        }
+
+        @Override
+        public String toString() {
+            return field + " " + operator + " " + operand;
+        }
+    }
+
+    private final List<String> fields;
+    private final List<Predicate> predicates;
+
+    public AvroProjection(List<String> fields, List<Predicate> predicates) {
+        this.fields = fields == null ? Collections.<String> emptyList()
+                                    : Collections.unmodifiableList(new ArrayList<String>(new LinkedHashSet<String>(fields)));
+        this.predicates = predicates == null ? Collections.<Predicate> emptyList()
+                                            : Collections.unmodifiableList(new ArrayList<Predicate>(predicates));
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public List<Predicate> getPredicates() {
+        return predicates;
+    }
+
+    /**
+     * @param transforms The transforms of a request, may be null
+     * @return true if the transforms hold a serialized projection
+     */
+    public static boolean isProjection(byte[] transforms) {
+        return transforms != null && transforms.length > MAGIC.length
+               && transforms[0] == MAGIC[0] && transforms[1] == MAGIC[1];
+    }
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.write(MAGIC);
+            output.writeByte(FORMAT_VERSION);
+            output.writeInt(fields.size());
+            for(String field: fields)
+                output.writeUTF(field);
+            output.writeInt(predicates.size());
+            for(Predicate predicate: predicates) {
+                output.writeUTF(predicate.getField());
+                output.writeByte(predicate.getOperator().ordinal());
+                Object operand = predicate.getOperand();
+                if(operand == null) {
+                    output.writeByte(TYPE_NULL);
+                } else if(operand instanceof String) {
+                    output.writeByte(TYPE_STRING);
+                    output.writeUTF((String) operand);
+                } else if(operand instanceof Long) {
+                    output.writeByte(TYPE_LONG);
+                    output.writeLong((Long) operand);
+                } else if(operand instanceof Double) {
+                    output.writeByte(TYPE_DOUBLE);
+                    output.writeDouble((Double) operand);
+                } else {
+                    output.writeByte(TYPE_BOOLEAN);
+                    output.writeBoolean((Boolean) operand);
+                }
+            }
+            output.flush();
+            return bytes.toByteArray();
+        } catch(IOException e) {
+            throw new VoldemortException("Failed to serialize projection " + this, e);
+        }
+    }
+
+    public static AvroProjection fromBytes(byte[] bytes) {
+        if(!isProjection(bytes))
+            throw new VoldemortException("Transforms are not an Avro projection.");
+        try {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes,
+                                                                                 MAGIC.length,
+                                                                                 bytes.length
+                                                                                         - MAGIC.length));
+            byte version = input.readByte();
+            if(version != FORMAT_VERSION)
+                throw new VoldemortException("Unsupported Avro projection format " + version);
+            int numFields = input.readInt();
+            List<String> fields = new ArrayList<String>(numFields);
+            for(int i = 0; i < numFields; i++)
+                fields.add(input.readUTF());
+            int numPredicates = input.readInt();
+            List<Predicate> predicates = new ArrayList<Predicate>(numPredicates);
+            for(int i = 0; i < numPredicates; i++) {
+                String field = input.readUTF();
+                Operator operator = Operator.values()[input.readByte()];
+                Object operand;
+                byte type = input.readByte();
+                switch(type) {
+                    case TYPE_NULL:
+                        operand = null;
+                        break;
+                    case TYPE_STRING:
+                        operand = input.readUTF();
+                        break;
+                    case TYPE_LONG:
+                        operand = input.readLong();
+                        break;
+                    case TYPE_DOUBLE:
+                        operand = input.readDouble();
+                        break;
+                    case TYPE_BOOLEAN:
+                        operand = input.readBoolean();
+                        break;
+                    default:
+                        throw new VoldemortException("Unknown predicate operand type " + type);
+                }
+                predicates.add(new Predicate(field, operator, operand));
+            }
+            return new AvroProjection(fields, predicates);
+        } catch(IOException e) {
+            throw new VoldemortException("Failed to read Avro projection", e);
+        } catch(ArrayIndexOutOfBoundsException e) {
+            throw new VoldemortException("Failed to read Avro projection", e);
+        }
+    }
+
+    /**
+     * @param record A record read with the store schema
+     * @return true if the record satisfies every predicate
+     */
+    public boolean matches(GenericRecord record) {
+        for(Predicate predicate: predicates) {
+            if(!predicate.matches(record))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces every top level field not projected with the smallest value of
+     * its schema. The record is modified in place.
+     * 
+     * @param record A record read with the store schema
+     * @return The projected record
+     */
+    public GenericRecord project(GenericRecord record) {
+        if(fields.isEmpty())
+            return record;
+        Schema schema = record.getSchema();
+        Set<String> kept = new LinkedHashSet<String>(fields);
+        for(String field: fields) {
+            if(schema.getField(field) == null)
+                throw new VoldemortException("Unknown field " + field + " in projection of "
+                                             + schema.getName());
+        }
+        for(Schema.Field field: schema.getFields()) {
+            if(!kept.contains(field.name()))
+                record.put(field.name(), emptyValue(field.schema(), record.get(field.name())));
+        }
+        return record;
+    }
+
+    private static Object resolve(GenericRecord record, String path) {
+        Object current = record;
+        int start = 0;
+        while(true) {
+            int end = path.indexOf('.', start);
+            String name = end < 0 ? path.substring(start) : path.substring(start, end);
+            if(!(current instanceof GenericRecord))
+                return null;
+            GenericRecord currentRecord = (GenericRecord) current;
+            if(currentRecord.getSchema().getField(name) == null)
+                throw new VoldemortException("Unknown field " + path + " in predicate on "
+                                             + record.getSchema().getName());
+            current = currentRecord.get(name);
+            if(end < 0)
+                return current;
+            start = end + 1;
+        }
+    }
+
+    /*
+     * The smallest value valid under the schema. Enums and fixed values cost
+     * the same whatever they hold, so the current value is kept.
+     */
+    private static Object emptyValue(Schema schema, Object current) {
+        switch(schema.getType()) {
+            case NULL:
+                return null;
+            case BOOLEAN:
+                return Boolean.FALSE;
+            case INT:
+                return 0;
+            case LONG:
+                return 0L;
+            case FLOAT:
+                return 0f;
+            case DOUBLE:
+                return 0d;
+            case STRING:
+                return new Utf8();
+            case BYTES:
+                return ByteBuffer.allocate(0);
+            case ARRAY:
+                return new GenericData.Array<Object>(0, schema);
+            case MAP:
+                return new HashMap<Object, Object>();
+            case ENUM:
+                return current != null ? current : schema.getEnumSymbols().get(0);
+            case FIXED:
+                return current != null ? current
+                                      : new GenericData.Fixed(new byte[schema.getFixedSize()]);
+            case UNION:
+                for(Schema branch: schema.getTypes()) {
+                    if(branch.getType() == Schema.Type.NULL)
+                        return null;
+                }
+                return emptyValue(schema.getTypes().get(0), null);
+            case RECORD:
+                GenericRecord record = new GenericData.Record(schema);
+                for(Schema.Field field: schema.getFields())
+                    record.put(field.name(), emptyValue(field.schema(), null));
+                return record;
+            default:
+                throw new VoldemortException("Unsupported schema type " + schema.getType());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AvroProjection(fields = " + fields + ", predicates = " + predicates + ")";
+    }
+}
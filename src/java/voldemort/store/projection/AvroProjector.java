@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.projection;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.generic.GenericRecord;
+
+import voldemort.VoldemortException;
+import voldemort.serialization.DefaultSerializerFactory;
+import voldemort.serialization.Serializer;
+import voldemort.serialization.SerializerDefinition;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.versioning.Versioned;
+
+/**
+ * Applies {@link AvroProjection}s to the serialized values of a store, using
+ * the value serializer of its definition. Only record values of the
+ * avro-generic and avro-generic-versioned serializers can be projected.
+ */
+public class AvroProjector {
+
+    private static final String AVRO_GENERIC_TYPE_NAME = "avro-generic";
+    private static final String AVRO_GENERIC_VERSIONED_TYPE_NAME = "avro-generic-versioned";
+
+    private final Serializer<Object> serializer;
+    private final CompressionStrategy compressionStrategy;
+
+    @SuppressWarnings("unchecked")
+    public AvroProjector(SerializerDefinition valueSerializerDef) {
+        if(!isSupported(valueSerializerDef))
+            throw new VoldemortException("Projections are not supported for values serialized as "
+                                         + (valueSerializerDef == null ? null
+                                                                       : valueSerializerDef.getName()));
+        this.serializer = (Serializer<Object>) new DefaultSerializerFactory().getSerializer(valueSerializerDef);
+        this.compressionStrategy = valueSerializerDef.hasCompression() ? new CompressionStrategyFactory().get(valueSerializerDef.getCompression())
+                                                                       : null;
+    }
+
+    public static boolean isSupported(SerializerDefinition valueSerializerDef) {
+        return valueSerializerDef != null
+               && (AVRO_GENERIC_TYPE_NAME.equals(valueSerializerDef.getName()) || AVRO_GENERIC_VERSIONED_TYPE_NAME.equals(valueSerializerDef.getName()));
+    }
+
+    /**
+     * @param projection The projection to apply
+     * @param value A value as stored
+     * @return The projected value with the same version, or null if the value
+     *         does not satisfy the predicates of the projection
+     */
+    public Versioned<byte[]> project(AvroProjection projection, Versioned<byte[]> value) {
+        Object object = serializer.toObject(inflate(value.getValue()));
+        if(!(object instanceof GenericRecord))
+            throw new VoldemortException("Projections apply to record values only.");
+        GenericRecord record = (GenericRecord) object;
+        if(!projection.matches(record))
+            return null;
+        return new Versioned<byte[]>(deflate(serializer.toBytes(projection.project(record))),
+                                     value.getVersion());
+    }
+
+    public List<Versioned<byte[]>> project(AvroProjection projection, List<Versioned<byte[]>> values) {
+        List<Versioned<byte[]>> projected = new ArrayList<Versioned<byte[]>>(values.size());
+        for(Versioned<byte[]> value: values) {
+            Versioned<byte[]> result = project(projection, value);
+            if(result != null)
+                projected.add(result);
+        }
+        return projected;
+    }
+
+    private byte[] inflate(byte[] data) {
+        if(compressionStrategy == null)
+            return data;
+        try {
+            return compressionStrategy.inflate(data);
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
+    private byte[] deflate(byte[] data) {
+        if(compressionStrategy == null)
+            return data;
+        try {
+            return compressionStrategy.deflate(data);
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+}
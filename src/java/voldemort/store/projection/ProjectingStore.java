@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.projection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import voldemort.VoldemortException;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.StoreUtils;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+/**
+ * A store wrapper evaluating {@link AvroProjection} transforms of gets and
+ * getAlls on the server, so that only the projected fields of the versions
+ * satisfying the predicates are sent back. Other transforms are passed to the
+ * inner store unchanged.
+ */
+public class ProjectingStore extends DelegatingStore<ByteArray, byte[], byte[]> {
+
+    private final AvroProjector projector;
+
+    public ProjectingStore(Store<ByteArray, byte[], byte[]> innerStore, AvroProjector projector) {
+        super(innerStore);
+        this.projector = projector;
+    }
+
+    @Override
+    public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
+            throws VoldemortException {
+        if(!AvroProjection.isProjection(transforms))
+            return super.get(key, transforms);
+        StoreUtils.assertValidKey(key);
+        AvroProjection projection = AvroProjection.fromBytes(transforms);
+        return projector.project(projection, getInnerStore().get(key, null));
+    }
+
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
+                                                          Map<ByteArray, byte[]> transforms)
+            throws VoldemortException {
+        if(transforms == null)
+            return super.getAll(keys, transforms);
+        StoreUtils.assertValidKeys(keys);
+
+        Map<ByteArray, byte[]> innerTransforms = new HashMap<ByteArray, byte[]>(transforms);
+        Map<ByteArray, byte[]> projections = new HashMap<ByteArray, byte[]>();
+        for(Map.Entry<ByteArray, byte[]> entry: transforms.entrySet()) {
+            if(AvroProjection.isProjection(entry.getValue())) {
+                projections.put(entry.getKey(), entry.getValue());
+                innerTransforms.remove(entry.getKey());
+            }
+        }
+        if(projections.isEmpty())
+            return super.getAll(keys, transforms);
+
+        Map<ByteArray, List<Versioned<byte[]>>> result = getInnerStore().getAll(keys,
+                                                                                 innerTransforms.isEmpty() ? null
+                                                                                                          : innerTransforms);
+        // keys usually share one projection, parse each distinct one once
+        Map<ByteArray, AvroProjection> parsed = new HashMap<ByteArray, AvroProjection>();
+        for(Map.Entry<ByteArray, List<Versioned<byte[]>>> entry: result.entrySet()) {
+            byte[] projectionBytes = projections.get(entry.getKey());
+            if(projectionBytes == null)
+                continue;
+            ByteArray wrapped = new ByteArray(projectionBytes);
+            AvroProjection projection = parsed.get(wrapped);
+            if(projection == null) {
+                projection = AvroProjection.fromBytes(projectionBytes);
+                parsed.put(wrapped, projection);
+            }
+            entry.setValue(projector.project(projection, entry.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public void put(ByteArray key, Versioned<byte[]> value, byte[] transforms)
+            throws VoldemortException {
+        if(AvroProjection.isProjection(transforms))
+            throw new VoldemortException("Avro projections cannot be applied to puts.");
+        super.put(key, value, transforms);
+    }
+}
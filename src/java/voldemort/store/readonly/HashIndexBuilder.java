@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import voldemort.VoldemortException;
+import voldemort.utils.ByteUtils;
+
+/**
+ * Collects the index entries of one chunk of a
+ * {@link ReadOnlyStorageFormat#READONLY_V4} store and writes them out as the
+ * open-addressed table read by {@link HashSearchStrategy}.
+ * 
+ * Entries are kept in memory until the chunk is complete. If two keys with
+ * the same fingerprint end up in the same probe sequence the table is rebuilt
+ * with a different seed.
+ */
+public class HashIndexBuilder {
+
+    public static final double LOAD_FACTOR = 0.8;
+    private static final int MAX_SEEDS = 64;
+
+    private long[] keyHashes;
+    private int[] positions;
+    private int numEntries;
+
+    public HashIndexBuilder() {
+        this.keyHashes = new long[16];
+        this.positions = new int[16];
+        this.numEntries = 0;
+    }
+
+    /**
+     * @param key The first 8 bytes of the md5 of the keys in the tuple
+     * @param position The position of the tuple in the data file
+     */
+    public void add(byte[] key, int position) {
+        add(key, 0, position);
+    }
+
+    public void add(byte[] key, int offset, int position) {
+        if(numEntries == keyHashes.length) {
+            keyHashes = Arrays.copyOf(keyHashes, 2 * numEntries);
+            positions = Arrays.copyOf(positions, 2 * numEntries);
+        }
+        keyHashes[numEntries] = ByteUtils.readLong(key, offset);
+        positions[numEntries] = position;
+        numEntries++;
+    }
+
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Writes the table, or nothing at all if no entries were added
+     * 
+     * @param out The stream of the index file
+     * @throws IOException
+     */
+    public void write(DataOutputStream out) throws IOException {
+        if(numEntries == 0)
+            return;
+
+        int numSlots = (int) Math.ceil(numEntries / LOAD_FACTOR);
+        if((long) numSlots * HashSearchStrategy.SLOT_SIZE + HashSearchStrategy.HEADER_SIZE > Integer.MAX_VALUE)
+            throw new VoldemortException("Too many entries for a hash index: " + numEntries);
+        int[] slotFingerprints = new int[numSlots];
+        int[] slotPositions = new int[numSlots];
+        for(int seed = 0; seed < MAX_SEEDS; seed++) {
+            if(fill(seed, slotFingerprints, slotPositions)) {
+                out.writeInt(seed);
+                for(int slot = 0; slot < numSlots; slot++) {
+                    out.writeInt(slotFingerprints[slot]);
+                    out.writeInt(slotPositions[slot]);
+                }
+                return;
+            }
+        }
+        throw new VoldemortException("Could not build a hash index for " + numEntries
+                                     + " entries without fingerprint collisions after "
+                                     + MAX_SEEDS + " attempts.");
+    }
+
+    private boolean fill(int seed, int[] slotFingerprints, int[] slotPositions) {
+        int numSlots = slotPositions.length;
+        Arrays.fill(slotPositions, HashSearchStrategy.EMPTY);
+        for(int entry = 0; entry < numEntries; entry++) {
+            long hash = HashSearchStrategy.hash(keyHashes[entry], seed);
+            int fingerprint = HashSearchStrategy.fingerprint(hash);
+            int slot = HashSearchStrategy.homeSlot(hash, numSlots);
+            while(slotPositions[slot] != HashSearchStrategy.EMPTY) {
+                // a lookup would stop at this slot before reaching ours
+                if(slotFingerprints[slot] == fingerprint)
+                    return false;
+                if(++slot == numSlots)
+                    slot = 0;
+            }
+            slotFingerprints[slot] = fingerprint;
+            slotPositions[slot] = positions[entry];
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly;
+
+import java.nio.ByteBuffer;
+
+import voldemort.utils.ByteUtils;
+
+/**
+ * A search strategy for the open-addressed hash index of
+ * {@link ReadOnlyStorageFormat#READONLY_V4}, built by {@link HashIndexBuilder}.
+ * 
+ * The index starts with the seed the table was built with, followed by slots
+ * of a 4 byte fingerprint and a 4 byte data file position (-1 for an empty
+ * slot). A key is looked up by hashing it to its home slot and probing
+ * linearly until the fingerprint matches or an empty slot is found, so a get
+ * touches one or two cache lines of the index instead of a binary search over
+ * all of it.
+ * 
+ * The builder guarantees that no other key with the same fingerprint sits in
+ * the probe sequence of a stored key, so the first match is the right one. A
+ * key which is not in the store may still match a fingerprint, the tuple read
+ * from the data file then does not contain it.
+ */
+public class HashSearchStrategy implements SearchStrategy {
+
+    public static final int HEADER_SIZE = ByteUtils.SIZE_OF_INT;
+    public static final int SLOT_SIZE = 2 * ByteUtils.SIZE_OF_INT;
+    public static final int EMPTY = -1;
+
+    public int indexOf(ByteBuffer index, byte[] key, int indexFileSize) {
+        if(indexFileSize < HEADER_SIZE + SLOT_SIZE)
+            return -1;
+        int numSlots = (indexFileSize - HEADER_SIZE) / SLOT_SIZE;
+        long hash = hash(ByteUtils.readLong(key, 0), index.getInt(0));
+        int fingerprint = fingerprint(hash);
+        int slot = homeSlot(hash, numSlots);
+        for(int probe = 0; probe < numSlots; probe++) {
+            int offset = HEADER_SIZE + slot * SLOT_SIZE;
+            int position = index.getInt(offset + ByteUtils.SIZE_OF_INT);
+            if(position == EMPTY)
+                return -1;
+            if(index.getInt(offset) == fingerprint)
+                return position;
+            if(++slot == numSlots)
+                slot = 0;
+        }
+        return -1;
+    }
+
+    /**
+     * Mixes the first 8 bytes of the md5 of a key with the seed of the table
+     */
+    static long hash(long keyHash, int seed) {
+        return ByteUtils.mix64(keyHash + seed * 0x9E3779B97F4A7C15L);
+    }
+
+    static int homeSlot(long hash, int numSlots) {
+        return (int) ((hash >>> 32) % numSlots);
+    }
+
+    static int fingerprint(long hash) {
+        return (int) hash;
+    }
+}
@@ -27,6 +27,7 @@ import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -46,6 +47,7 @@ import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategy;
 import voldemort.routing.RoutingStrategyFactory;
+import voldemort.serialization.Compression;
 import voldemort.serialization.DefaultSerializerFactory;
 import voldemort.serialization.Serializer;
 import voldemort.serialization.SerializerDefinition;
@@ -55,6 +57,8 @@ import voldemort.serialization.json.JsonReader;
 import voldemort.store.StoreDefinition;
 import voldemort.store.compress.CompressionStrategy;
 import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.store.compress.DictionaryCompressionStrategy;
+import voldemort.store.readonly.chunk.BlockCompressedOutputStream;
 import voldemort.utils.ByteUtils;
 import voldemort.utils.CmdUtils;
 import voldemort.utils.Pair;
@@ -86,6 +90,7 @@ public class JsonStoreBuilder {
     private final int numChunks;
     private final int ioBufferSize;
     private final boolean gzipIntermediate;
+    private final Compression dataCompression;
 
     public JsonStoreBuilder(JsonReader reader,
                             Cluster cluster,
@@ -98,6 +103,36 @@ public class JsonStoreBuilder {
                             int numChunks,
                             int ioBufferSize,
                             boolean gzipIntermediate) {
+        this(reader,
+             cluster,
+             storeDefinition,
+             routingStrategy,
+             outputDir,
+             tempDir,
+             internalSortSize,
+             numThreads,
+             numChunks,
+             ioBufferSize,
+             gzipIntermediate,
+             null);
+    }
+
+    /**
+     * @param dataCompression Compression of the data blocks, only used by
+     *        {@link ReadOnlyStorageFormat#READONLY_V3}
+     */
+    public JsonStoreBuilder(JsonReader reader,
+                            Cluster cluster,
+                            StoreDefinition storeDefinition,
+                            RoutingStrategy routingStrategy,
+                            File outputDir,
+                            File tempDir,
+                            int internalSortSize,
+                            int numThreads,
+                            int numChunks,
+                            int ioBufferSize,
+                            boolean gzipIntermediate,
+                            Compression dataCompression) {
         if(cluster.getNumberOfNodes() < storeDefinition.getReplicationFactor())
             throw new IllegalStateException("Number of nodes is " + cluster.getNumberOfNodes()
                                             + " but the replication factor is "
@@ -116,6 +151,7 @@ public class JsonStoreBuilder {
         this.numChunks = numChunks;
         this.ioBufferSize = ioBufferSize;
         this.gzipIntermediate = gzipIntermediate;
+        this.dataCompression = dataCompression;
     }
 
     /**
@@ -158,7 +194,21 @@ public class JsonStoreBuilder {
         parser.accepts("format",
                        "read-only store format [" + ReadOnlyStorageFormat.READONLY_V0.getCode()
                                + "," + ReadOnlyStorageFormat.READONLY_V1.getCode() + ","
-                               + ReadOnlyStorageFormat.READONLY_V2.getCode() + "]")
+                               + ReadOnlyStorageFormat.READONLY_V2.getCode() + ","
+                               + ReadOnlyStorageFormat.READONLY_V3.getCode() + ","
+                               + ReadOnlyStorageFormat.READONLY_V4.getCode() + "]")
+              .withRequiredArg()
+              .ofType(String.class);
+        parser.accepts("compression",
+                       "compression of the data blocks for format "
+                               + ReadOnlyStorageFormat.READONLY_V3.getCode()
+                               + " [snappy, lzf, gzip, " + DictionaryCompressionStrategy.TYPE
+                               + "], defaults to snappy")
+              .withRequiredArg()
+              .ofType(String.class);
+        parser.accepts("compression-options",
+                       "options of the compression, i.e. the id:base64-dictionary pairs for "
+                               + DictionaryCompressionStrategy.TYPE)
               .withRequiredArg()
               .ofType(String.class);
         OptionSet options = parser.parse(args);
@@ -194,6 +244,10 @@ public class JsonStoreBuilder {
                                                                                               "format",
                                                                                               ReadOnlyStorageFormat.READONLY_V2.getCode()));
         boolean gzipIntermediate = options.has("gzip");
+        Compression dataCompression = new Compression(CmdUtils.valueOf(options,
+                                                                       "compression",
+                                                                       "snappy"),
+                                                      (String) options.valueOf("compression-options"));
         File tempDir = new File(CmdUtils.valueOf(options,
                                                  "temp-dir",
                                                  System.getProperty("java.io.tmpdir")));
@@ -228,7 +282,8 @@ public class JsonStoreBuilder {
                                  numThreads,
                                  chunks,
                                  ioBufferSize,
-                                 gzipIntermediate).build(storageFormat);
+                                 gzipIntermediate,
+                                 dataCompression).build(storageFormat);
         } catch(FileNotFoundException e) {
             Utils.croak(e.getMessage());
         }
@@ -248,6 +303,14 @@ public class JsonStoreBuilder {
                 buildVersion2();
                 break;
 
+            case READONLY_V3:
+                buildVersion3();
+                break;
+
+            case READONLY_V4:
+                buildVersion4();
+                break;
+
             default:
                 throw new VoldemortException("Invalid storage format " + type);
         }
@@ -417,16 +480,41 @@ public class JsonStoreBuilder {
     }
 
     public void buildVersion2() throws IOException {
+        buildReplicaChunksWithKeys(ReadOnlyStorageFormat.READONLY_V2);
+    }
+
+    /**
+     * Same layout as {@link #buildVersion2()}, with the data files compressed
+     * block by block
+     */
+    public void buildVersion3() throws IOException {
+        buildReplicaChunksWithKeys(ReadOnlyStorageFormat.READONLY_V3);
+    }
+
+    /**
+     * Same data files as {@link #buildVersion2()}, with each index file an
+     * open-addressed hash table instead of a sorted list of keys
+     */
+    public void buildVersion4() throws IOException {
+        buildReplicaChunksWithKeys(ReadOnlyStorageFormat.READONLY_V4);
+    }
+
+    private void buildReplicaChunksWithKeys(ReadOnlyStorageFormat format) throws IOException {
         logger.info("Building store " + storeDefinition.getName() + " for "
                     + cluster.getNumberOfPartitions() + " partitions, "
                     + storeDefinition.getReplicationFactor() + " replica types, " + numChunks
-                    + " chunks per partitions per replica type and type "
-                    + ReadOnlyStorageFormat.READONLY_V2);
+                    + " chunks per partitions per replica type and type " + format);
+        CompressionStrategy compressionStrategy = null;
+        if(format == ReadOnlyStorageFormat.READONLY_V3)
+            compressionStrategy = new CompressionStrategyFactory().get(dataCompression);
 
         // Initialize files
         DataOutputStream[][] indexes = new DataOutputStream[cluster.getNumberOfPartitions()][];
         DataOutputStream[][] datas = new DataOutputStream[cluster.getNumberOfPartitions()][];
         int[][] positions = new int[cluster.getNumberOfPartitions()][];
+        HashIndexBuilder[][] hashIndexes = null;
+        if(format == ReadOnlyStorageFormat.READONLY_V4)
+            hashIndexes = new HashIndexBuilder[cluster.getNumberOfPartitions()][];
 
         File tempDirectory = new File(Utils.notNull(System.getProperty("java.io.tmpdir")),
                                       "tempDir-" + Integer.toString(new Random().nextInt()));
@@ -438,6 +526,9 @@ public class JsonStoreBuilder {
             datas[partitionId] = new DataOutputStream[storeDefinition.getReplicationFactor()
                                                       * numChunks];
             positions[partitionId] = new int[storeDefinition.getReplicationFactor() * numChunks];
+            if(hashIndexes != null)
+                hashIndexes[partitionId] = new HashIndexBuilder[storeDefinition.getReplicationFactor()
+                                                                * numChunks];
 
             int globalChunkId = 0;
             for(int repType = 0; repType < storeDefinition.getReplicationFactor(); repType++) {
@@ -451,8 +542,14 @@ public class JsonStoreBuilder {
                     positions[partitionId][globalChunkId] = 0;
                     indexes[partitionId][globalChunkId] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile),
                                                                                                         ioBufferSize));
-                    datas[partitionId][globalChunkId] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(dataFile),
-                                                                                                      ioBufferSize));
+                    OutputStream dataStream = new BufferedOutputStream(new FileOutputStream(dataFile),
+                                                                       ioBufferSize);
+                    if(compressionStrategy != null)
+                        dataStream = new BlockCompressedOutputStream(dataStream,
+                                                                     compressionStrategy);
+                    datas[partitionId][globalChunkId] = new DataOutputStream(dataStream);
+                    if(hashIndexes != null)
+                        hashIndexes[partitionId][globalChunkId] = new HashIndexBuilder();
                     globalChunkId++;
                 }
             }
@@ -522,8 +619,13 @@ public class JsonStoreBuilder {
 
                         // ...else, flush the previous element to disk
 
-                        indexes[masterPartition][globalChunkId].write(previousElement.getFirst());
-                        indexes[masterPartition][globalChunkId].writeInt(positions[masterPartition][globalChunkId]);
+                        if(hashIndexes != null) {
+                            hashIndexes[masterPartition][globalChunkId].add(previousElement.getFirst(),
+                                                                            positions[masterPartition][globalChunkId]);
+                        } else {
+                            indexes[masterPartition][globalChunkId].write(previousElement.getFirst());
+                            indexes[masterPartition][globalChunkId].writeInt(positions[masterPartition][globalChunkId]);
+                        }
                         datas[masterPartition][globalChunkId].write(previousElement.getSecond());
                         positions[masterPartition][globalChunkId] += previousElement.getSecond().length;
 
@@ -549,8 +651,13 @@ public class JsonStoreBuilder {
             byte[] keyMd5 = entry.getValue().getFirst();
             byte[] value = entry.getValue().getSecond();
 
-            indexes[partitionId][globalChunkId].write(keyMd5);
-            indexes[partitionId][globalChunkId].writeInt(positions[partitionId][globalChunkId]);
+            if(hashIndexes != null) {
+                hashIndexes[partitionId][globalChunkId].add(keyMd5,
+                                                            positions[partitionId][globalChunkId]);
+            } else {
+                indexes[partitionId][globalChunkId].write(keyMd5);
+                indexes[partitionId][globalChunkId].writeInt(positions[partitionId][globalChunkId]);
+            }
             datas[partitionId][globalChunkId].write(value);
         }
 
@@ -569,8 +676,13 @@ public class JsonStoreBuilder {
             // Create metadata file
             BufferedWriter writer = new BufferedWriter(new FileWriter(new File(nodeDir, ".metadata")));
             ReadOnlyStorageMetadata metadata = new ReadOnlyStorageMetadata();
-            metadata.add(ReadOnlyStorageMetadata.FORMAT,
-                         ReadOnlyStorageFormat.READONLY_V2.getCode());
+            metadata.add(ReadOnlyStorageMetadata.FORMAT, format.getCode());
+            if(format == ReadOnlyStorageFormat.READONLY_V3 && dataCompression != null) {
+                metadata.add(ReadOnlyStorageMetadata.COMPRESSION, dataCompression.getType());
+                if(dataCompression.getOptions() != null)
+                    metadata.add(ReadOnlyStorageMetadata.COMPRESSION_OPTIONS,
+                                 dataCompression.getOptions());
+            }
             writer.write(metadata.toJsonString());
             writer.close();
 
@@ -580,6 +692,8 @@ public class JsonStoreBuilder {
         logger.info("Closing all store files.");
         for(int partitionId = 0; partitionId < cluster.getNumberOfPartitions(); partitionId++) {
             for(int chunk = 0; chunk < numChunks * storeDefinition.getReplicationFactor(); chunk++) {
+                if(hashIndexes != null)
+                    hashIndexes[partitionId][chunk].write(indexes[partitionId][chunk]);
                 indexes[partitionId][chunk].close();
                 datas[partitionId][chunk].close();
             }
@@ -47,6 +47,8 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
     private RoutingStrategy routingStrategy = null;
     private final int deleteBackupMs;
     private boolean enforceMlock = false;
+    private final boolean warmUpBeforeSwap;
+    private final int warmUpSampleSize;
 
     public ReadOnlyStorageConfiguration(VoldemortConfig config) {
         this.storageDir = new File(config.getReadOnlyDataStorageDirectory());
@@ -57,6 +59,8 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
         this.nodeId = config.getNodeId();
         this.deleteBackupMs = config.getReadOnlyDeleteBackupMs();
         this.enforceMlock = config.isUseMlock();
+        this.warmUpBeforeSwap = config.isReadOnlyWarmUpBeforeSwap();
+        this.warmUpSampleSize = config.getReadOnlyWarmUpSampleSize();
     }
 
     public void close() {
@@ -80,7 +84,9 @@ public class ReadOnlyStorageConfiguration implements StorageConfiguration {
                                                                          storeDef.getName()),
                                                                 numBackups,
                                                                 deleteBackupMs,
-                                                                enforceMlock);
+                                                                enforceMlock,
+                                                                warmUpBeforeSwap,
+                                                                warmUpSampleSize);
         ObjectName objName = JmxUtils.createObjectName(JmxUtils.getPackageName(store.getClass()),
                                                        storeDef.getName() + nodeId);
         JmxUtils.registerMbean(ManagementFactory.getPlatformMBeanServer(),
@@ -24,6 +24,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -67,6 +69,9 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
     private int deleteBackupMs = 0;
     private long lastSwapped;
     private boolean enforceMlock = false;
+    private boolean warmUpBeforeSwap = false;
+    private AtomicReferenceArray<ByteArray> recentKeys = null;
+    private final AtomicLong numKeysRead = new AtomicLong(0);
 
     /**
      * Create an instance of the store
@@ -140,6 +145,39 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
         open(null);
     }
 
+    /**
+     * Create an instance of the store, that warms up the page cache with a
+     * new version before swapping it in
+     * 
+     * @param warmUpBeforeSwap If true, the index files of a new version are
+     *        faulted in before it is swapped in
+     * @param warmUpSampleSize Number of most recently read keys that are
+     *        looked up in a new version before it is swapped in, so the data
+     *        pages they live in are cached as well
+     */
+    public ReadOnlyStorageEngine(String name,
+                                 SearchStrategy searchStrategy,
+                                 RoutingStrategy routingStrategy,
+                                 int nodeId,
+                                 File storeDir,
+                                 int numBackups,
+                                 int deleteBackupMs,
+                                 boolean enforceMlock,
+                                 boolean warmUpBeforeSwap,
+                                 int warmUpSampleSize) {
+        this(name,
+             searchStrategy,
+             routingStrategy,
+             nodeId,
+             storeDir,
+             numBackups,
+             deleteBackupMs,
+             enforceMlock);
+        this.warmUpBeforeSwap = warmUpBeforeSwap;
+        if(warmUpBeforeSwap && warmUpSampleSize > 0)
+            this.recentKeys = new AtomicReferenceArray<ByteArray>(warmUpSampleSize);
+    }
+
     /**
      * Returns the internal chunked file set
      * 
@@ -328,6 +366,10 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
             return;
         }
 
+        // warm up the new version while the current one keeps serving
+        if(warmUpBeforeSwap)
+            warmUp(newVersionDir);
+
         logger.info("Acquiring write lock on '" + getName() + "':");
         fileModificationLock.writeLock().lock();
         boolean success = false;
@@ -360,6 +402,59 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
         deleteBackups();
     }
 
+    /**
+     * Brings the pages of a new version into the page cache before it is
+     * swapped in, so that reads do not stall on disk right after the swap.
+     * All the index pages are faulted in, and the most recently read keys are
+     * looked up to bring in the data pages that are likely to be read next.
+     * 
+     * Failures are only logged, since a cold swap is still correct.
+     * 
+     * @param versionDir The version directory about to be swapped in
+     */
+    private void warmUp(File versionDir) {
+        long startMs = System.currentTimeMillis();
+        ChunkedFileSet newFileSet = null;
+        int numKeysWarmed = 0;
+        try {
+            newFileSet = new ChunkedFileSet(versionDir, routingStrategy, nodeId, false);
+            newFileSet.loadIndexFiles();
+
+            if(recentKeys != null) {
+                for(int i = 0; i < recentKeys.length(); i++) {
+                    ByteArray key = recentKeys.get(i);
+                    if(key == null)
+                        continue;
+                    int chunk = newFileSet.getChunkForKey(key.get());
+                    if(chunk < 0)
+                        continue;
+                    int location = newFileSet.getValueLocation(key.get(), chunk, searchStrategy);
+                    if(location >= 0) {
+                        newFileSet.readValue(key.get(), chunk, location);
+                        numKeysWarmed++;
+                    }
+                }
+            }
+            logger.info("Warmed up " + versionDir.getAbsolutePath() + " for store '" + getName()
+                        + "' with " + numKeysWarmed + " recently read keys in "
+                        + (System.currentTimeMillis() - startMs) + " ms");
+        } catch(Exception e) {
+            logger.warn("Failed to warm up " + versionDir.getAbsolutePath() + " for store '"
+                        + getName() + "', swapping it in cold", e);
+        } finally {
+            if(newFileSet != null)
+                newFileSet.close();
+        }
+    }
+
+    /**
+     * Remembers a key that was read, for the warm up of the next version
+     */
+    private void recordKeyRead(ByteArray key) {
+        if(recentKeys != null)
+            recentKeys.set((int) (numKeysRead.getAndIncrement() % recentKeys.length()), key);
+    }
+
     /**
      * Delete all backups asynchronously
      */
@@ -465,9 +560,19 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
         }
     }
 
+    /**
+     * Only the formats which keep the keys along with the values can be
+     * iterated over
+     */
+    private boolean isIterable(ReadOnlyStorageFormat format) {
+        return format == ReadOnlyStorageFormat.READONLY_V2
+               || format == ReadOnlyStorageFormat.READONLY_V3
+               || format == ReadOnlyStorageFormat.READONLY_V4;
+    }
+
     @Override
     public ClosableIterator<ByteArray> keys() {
-        if(!(fileSet.getReadOnlyStorageFormat().compareTo(ReadOnlyStorageFormat.READONLY_V2) == 0))
+        if(!isIterable(fileSet.getReadOnlyStorageFormat()))
             throw new UnsupportedOperationException("Iteration is not supported for "
                                                     + getClass().getName()
                                                     + " with storage format "
@@ -477,7 +582,7 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
 
     @Override
     public ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> entries() {
-        if(!(fileSet.getReadOnlyStorageFormat().compareTo(ReadOnlyStorageFormat.READONLY_V2) == 0))
+        if(!isIterable(fileSet.getReadOnlyStorageFormat()))
             throw new UnsupportedOperationException("Iteration is not supported for "
                                                     + getClass().getName()
                                                     + " with storage format "
@@ -506,6 +611,7 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms) throws VoldemortException {
         StoreUtils.assertValidKey(key);
+        recordKeyRead(key);
         try {
             fileModificationLock.readLock().lock();
             int chunk = fileSet.getChunkForKey(key.get());
@@ -513,9 +619,7 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
                 logger.warn("Invalid chunk id returned. Either routing strategy is inconsistent or storage format not understood");
                 return Collections.emptyList();
             }
-            int location = searchStrategy.indexOf(fileSet.indexFileFor(chunk),
-                                                  fileSet.keyToStorageFormat(key.get()),
-                                                  fileSet.getIndexFileSize(chunk));
+            int location = fileSet.getValueLocation(key.get(), chunk, searchStrategy);
             if(location >= 0) {
                 byte[] value = fileSet.readValue(key.get(), chunk, location);
                 if(value.length == 0) {
@@ -541,10 +645,9 @@ public class ReadOnlyStorageEngine extends AbstractStorageEngine<ByteArray, byte
             fileModificationLock.readLock().lock();
             List<KeyValueLocation> keysAndValueLocations = Lists.newArrayList();
             for(ByteArray key: keys) {
+                recordKeyRead(key);
                 int chunk = fileSet.getChunkForKey(key.get());
-                int valueLocation = searchStrategy.indexOf(fileSet.indexFileFor(chunk),
-                                                           fileSet.keyToStorageFormat(key.get()),
-                                                           fileSet.getIndexFileSize(chunk));
+                int valueLocation = fileSet.getValueLocation(key.get(), chunk, searchStrategy);
                 if(valueLocation >= 0)
                     keysAndValueLocations.add(new KeyValueLocation(chunk, key, valueLocation));
             }
@@ -19,6 +19,8 @@ public class ReadOnlyStorageMetadata {
     public final static String FORMAT = "format";
     public final static String CHECKSUM_TYPE = "checksum-type";
     public final static String CHECKSUM = "checksum";
+    public final static String COMPRESSION = "compression";
+    public final static String COMPRESSION_OPTIONS = "compression-options";
 
     private Map<String, Object> properties;
 
@@ -53,6 +53,8 @@ public class ReadOnlyUtils {
                 }
 
             case READONLY_V2:
+            case READONLY_V3:
+            case READONLY_V4:
                 if(fileName.matches("^[\\d]+_[\\d]+_[\\d]+\\.(data|index)")) {
                     return true;
                 } else {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly.chunk;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import voldemort.VoldemortException;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.utils.ByteUtils;
+
+/**
+ * A data file chunk written by {@link BlockCompressedOutputStream}, read
+ * through its uncompressed offsets. Only the blocks covering a read are
+ * decompressed; the last decompressed block is kept around since iterators
+ * and collided entries read it again right away.
+ */
+public class BlockCompressedDataFileChunk implements DataFileChunk {
+
+    private final DataFileChunk compressedChunk;
+    private final CompressionStrategy compressionStrategy;
+    private final int blockSize;
+    private final int[] blockOffsets;
+    private final int uncompressedLength;
+    private volatile DecompressedBlock lastBlock;
+
+    /**
+     * @param compressedChunk The data file as written
+     * @param compressedLength The length of the data file
+     * @param compressionStrategy The compression the blocks were written with
+     * @throws IOException if the block index cannot be read
+     */
+    public BlockCompressedDataFileChunk(DataFileChunk compressedChunk,
+                                        long compressedLength,
+                                        CompressionStrategy compressionStrategy)
+                                                                                throws IOException {
+        this.compressedChunk = compressedChunk;
+        this.compressionStrategy = compressionStrategy;
+        this.lastBlock = null;
+
+        if(compressedLength == 0) {
+            this.blockSize = 0;
+            this.blockOffsets = new int[] { 0 };
+            this.uncompressedLength = 0;
+            return;
+        }
+        if(compressedLength < BlockCompressedOutputStream.FOOTER_SIZE)
+            throw new VoldemortException("Invalid block compressed data file of "
+                                         + compressedLength + " bytes.");
+
+        ByteBuffer footer = ByteBuffer.allocate(BlockCompressedOutputStream.FOOTER_SIZE);
+        readFully(footer, compressedLength - BlockCompressedOutputStream.FOOTER_SIZE);
+        this.blockSize = footer.getInt(0);
+        int numBlocks = footer.getInt(ByteUtils.SIZE_OF_INT);
+        this.uncompressedLength = footer.getInt(2 * ByteUtils.SIZE_OF_INT);
+        if(footer.getInt(3 * ByteUtils.SIZE_OF_INT) != BlockCompressedOutputStream.MAGIC
+           || blockSize <= 0 || numBlocks <= 0
+           || (long) (numBlocks + 1) * ByteUtils.SIZE_OF_INT > compressedLength
+                                                               - BlockCompressedOutputStream.FOOTER_SIZE)
+            throw new VoldemortException("Invalid footer in block compressed data file.");
+
+        ByteBuffer index = ByteBuffer.allocate((numBlocks + 1) * ByteUtils.SIZE_OF_INT);
+        readFully(index, compressedLength - BlockCompressedOutputStream.FOOTER_SIZE
+                         - index.capacity());
+        this.blockOffsets = new int[numBlocks + 1];
+        for(int blockId = 0; blockId <= numBlocks; blockId++)
+            this.blockOffsets[blockId] = index.getInt(blockId * ByteUtils.SIZE_OF_INT);
+    }
+
+    /**
+     * @return The number of bytes in the chunk once uncompressed
+     */
+    public int getUncompressedLength() {
+        return uncompressedLength;
+    }
+
+    public int read(ByteBuffer buffer, long currentOffset) throws IOException {
+        if(currentOffset >= uncompressedLength)
+            return -1;
+
+        int read = 0;
+        long position = currentOffset;
+        while(buffer.hasRemaining() && position < uncompressedLength) {
+            int blockId = (int) (position / blockSize);
+            byte[] block = getBlock(blockId);
+            int offsetInBlock = (int) (position - (long) blockId * blockSize);
+            int length = Math.min(buffer.remaining(), block.length - offsetInBlock);
+            buffer.put(block, offsetInBlock, length);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    private byte[] getBlock(int blockId) throws IOException {
+        DecompressedBlock cached = lastBlock;
+        if(cached != null && cached.blockId == blockId)
+            return cached.bytes;
+
+        ByteBuffer compressed = ByteBuffer.allocate(blockOffsets[blockId + 1]
+                                                    - blockOffsets[blockId]);
+        readFully(compressed, blockOffsets[blockId]);
+        byte[] bytes = compressionStrategy.inflate(compressed.array());
+        lastBlock = new DecompressedBlock(blockId, bytes);
+        return bytes;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while(buffer.hasRemaining()) {
+            int read = compressedChunk.read(buffer, offset);
+            if(read <= 0)
+                throw new IOException("Unexpected end of block compressed data file");
+            offset += read;
+        }
+    }
+
+    private static class DecompressedBlock {
+
+        private final int blockId;
+        private final byte[] bytes;
+
+        private DecompressedBlock(int blockId, byte[] bytes) {
+            this.blockId = blockId;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly.chunk;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import voldemort.VoldemortException;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
+import voldemort.utils.ByteUtils;
+
+/**
+ * Writes a data file of {@link ReadOnlyStorageFormat#READONLY_V3}. The bytes
+ * written are cut into blocks of a fixed uncompressed size, each compressed on
+ * its own, followed by the block index and a footer:
+ * 
+ * <pre>
+ * | block 0 | ... | block n-1 |
+ * | offset of block 0 | ... | offset of block n-1 | end of block n-1 | (ints)
+ * | block size | n | uncompressed length | magic | (ints)
+ * </pre>
+ * 
+ * Positions in the index file are offsets into the uncompressed bytes, so the
+ * data written through this stream is laid out exactly like a
+ * {@link ReadOnlyStorageFormat#READONLY_V2} data file. Nothing at all is
+ * written for an empty data file.
+ * 
+ * @see BlockCompressedDataFileChunk
+ */
+public class BlockCompressedOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    static final int MAGIC = 0x524f3342;
+
+    static final int FOOTER_SIZE = 4 * ByteUtils.SIZE_OF_INT;
+
+    private final DataOutputStream out;
+    private final CompressionStrategy compressionStrategy;
+    private final byte[] block;
+    private int blockPosition;
+    private int[] blockOffsets;
+    private int numBlocks;
+    private int compressedLength;
+    private int uncompressedLength;
+    private boolean closed;
+
+    public BlockCompressedOutputStream(OutputStream out, CompressionStrategy compressionStrategy) {
+        this(out, compressionStrategy, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockCompressedOutputStream(OutputStream out,
+                                       CompressionStrategy compressionStrategy,
+                                       int blockSize) {
+        if(blockSize <= 0)
+            throw new IllegalArgumentException("Block size must be positive");
+        this.out = new DataOutputStream(out);
+        this.compressionStrategy = compressionStrategy;
+        this.block = new byte[blockSize];
+        this.blockPosition = 0;
+        this.blockOffsets = new int[16];
+        this.numBlocks = 0;
+        this.compressedLength = 0;
+        this.uncompressedLength = 0;
+        this.closed = false;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if(closed)
+            throw new IOException("Stream closed");
+        while(length > 0) {
+            int copied = Math.min(length, block.length - blockPosition);
+            System.arraycopy(bytes, offset, block, blockPosition, copied);
+            blockPosition += copied;
+            offset += copied;
+            length -= copied;
+            if(blockPosition == block.length)
+                writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        byte[] uncompressed = block;
+        if(blockPosition < block.length)
+            uncompressed = ByteUtils.copy(block, 0, blockPosition);
+        byte[] compressed = compressionStrategy.deflate(uncompressed);
+
+        if(numBlocks == blockOffsets.length) {
+            int[] offsets = new int[2 * blockOffsets.length];
+            System.arraycopy(blockOffsets, 0, offsets, 0, numBlocks);
+            blockOffsets = offsets;
+        }
+        blockOffsets[numBlocks++] = compressedLength;
+        out.write(compressed);
+
+        compressedLength += compressed.length;
+        uncompressedLength += blockPosition;
+        if(compressedLength < 0 || uncompressedLength < 0)
+            throw new VoldemortException("Chunk overflow: data file has exceeded "
+                                         + Integer.MAX_VALUE + " bytes.");
+        blockPosition = 0;
+    }
+
+    /**
+     * Flushes the blocks completed so far. The block being filled is only
+     * written out once full or on {@link #close()}, so that all blocks but the
+     * last have the same uncompressed size.
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Writes out the last block, the block index and the footer
+     */
+    @Override
+    public void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+        if(blockPosition > 0)
+            writeBlock();
+        if(numBlocks > 0) {
+            for(int blockId = 0; blockId < numBlocks; blockId++)
+                out.writeInt(blockOffsets[blockId]);
+            out.writeInt(compressedLength);
+            out.writeInt(block.length);
+            out.writeInt(numBlocks);
+            out.writeInt(uncompressedLength);
+            out.writeInt(MAGIC);
+        }
+        out.close();
+    }
+}
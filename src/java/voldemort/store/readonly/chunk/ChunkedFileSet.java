@@ -19,9 +19,14 @@ import org.apache.log4j.Logger;
 import voldemort.VoldemortException;
 import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategy;
+import voldemort.serialization.Compression;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.store.readonly.HashSearchStrategy;
 import voldemort.store.readonly.ReadOnlyStorageFormat;
 import voldemort.store.readonly.ReadOnlyStorageMetadata;
 import voldemort.store.readonly.ReadOnlyUtils;
+import voldemort.store.readonly.SearchStrategy;
 import voldemort.store.readonly.io.MappedFileReader;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
@@ -40,6 +45,8 @@ public class ChunkedFileSet {
 
     private static Logger logger = Logger.getLogger(ChunkedFileSet.class);
 
+    private static final SearchStrategy HASH_SEARCH_STRATEGY = new HashSearchStrategy();
+
     private final int numChunks;
     private final int nodeId;
     private final File baseDir;
@@ -49,11 +56,13 @@ public class ChunkedFileSet {
 
     private List<MappedFileReader> mappedIndexFileReader;
     private final List<FileChannel> dataFiles;
+    private final List<DataFileChunk> dataChunks;
     private final HashMap<Object, Integer> chunkIdToChunkStart;
     private final HashMap<Object, Integer> chunkIdToNumChunks;
     private ArrayList<Integer> nodePartitionIds;
     private RoutingStrategy routingStrategy;
     private ReadOnlyStorageFormat storageFormat;
+    private CompressionStrategy compressionStrategy;
 
     private boolean enforceMlock = false;
 
@@ -89,6 +98,7 @@ public class ChunkedFileSet {
         this.mappedIndexFileReader = new ArrayList<MappedFileReader>();
 
         this.dataFiles = new ArrayList<FileChannel>();
+        this.dataChunks = new ArrayList<DataFileChunk>();
         this.chunkIdToChunkStart = new HashMap<Object, Integer>();
         this.chunkIdToNumChunks = new HashMap<Object, Integer>();
         this.nodeId = nodeId;
@@ -104,6 +114,18 @@ public class ChunkedFileSet {
             case READONLY_V2:
                 initVersion2();
                 break;
+            case READONLY_V3:
+                String compressionType = (String) metadata.get(ReadOnlyStorageMetadata.COMPRESSION);
+                Compression compression = null;
+                if(compressionType != null)
+                    compression = new Compression(compressionType,
+                                                  (String) metadata.get(ReadOnlyStorageMetadata.COMPRESSION_OPTIONS));
+                this.compressionStrategy = new CompressionStrategyFactory().get(compression);
+                initVersion2();
+                break;
+            case READONLY_V4:
+                initVersion2();
+                break;
             default:
                 throw new VoldemortException("Invalid chunked storage format type " + storageFormat);
         }
@@ -121,11 +143,7 @@ public class ChunkedFileSet {
     public DataFileChunkSet toDataFileChunkSet() {
 
         // Convert the index file into chunk set
-        List<DataFileChunk> dataFileChunks = Lists.newArrayList();
-        for(FileChannel dataFile: dataFiles) {
-            dataFileChunks.add(new LocalDataFileChunk(dataFile));
-        }
-
+        List<DataFileChunk> dataFileChunks = Lists.newArrayList(dataChunks);
         return new DataFileChunkSet(dataFileChunks, this.dataFileSizes);
     }
 
@@ -165,6 +183,7 @@ public class ChunkedFileSet {
 
             /* Add the file channel for data */
             dataFiles.add(openChannel(data));
+            dataChunks.add(new LocalDataFileChunk(dataFiles.get(dataFiles.size() - 1)));
 
             MappedFileReader idxFileReader = null;
             try {
@@ -228,6 +247,7 @@ public class ChunkedFileSet {
 
                     /* Add the file channel for data */
                     dataFiles.add(openChannel(data));
+                    dataChunks.add(new LocalDataFileChunk(dataFiles.get(dataFiles.size() - 1)));
 
                     MappedFileReader idxFileReader = null;
                     try {
@@ -313,16 +333,22 @@ public class ChunkedFileSet {
                                         chunkIdToChunkStart.put(bucket, globalChunkId);
                                     }
 
+                                    /* Add the file channel for data */
+                                    FileChannel dataFile = openChannel(data);
+                                    dataFiles.add(dataFile);
+                                    DataFileChunk dataChunk = openDataChunk(dataFile,
+                                                                            data.length());
+                                    dataChunks.add(dataChunk);
+
                                     /* Deal with file sizes */
                                     long indexLength = index.length();
                                     long dataLength = data.length();
+                                    if(dataChunk instanceof BlockCompressedDataFileChunk)
+                                        dataLength = ((BlockCompressedDataFileChunk) dataChunk).getUncompressedLength();
                                     validateFileSizes(indexLength, dataLength);
                                     indexFileSizes.add((int) indexLength);
                                     dataFileSizes.add((int) dataLength);
 
-                                    /* Add the file channel for data */
-                                    dataFiles.add(openChannel(data));
-
                                     MappedFileReader idxFileReader = null;
                                     try {
                                         idxFileReader = new MappedFileReader(index);
@@ -380,6 +406,18 @@ public class ChunkedFileSet {
         if(indexLength > Integer.MAX_VALUE || dataLength > Integer.MAX_VALUE)
             throw new VoldemortException("Index or data file exceeds " + Integer.MAX_VALUE
                                          + " bytes.");
+        if(storageFormat == ReadOnlyStorageFormat.READONLY_V4) {
+            // seed followed by the slots, or nothing for an empty chunk
+            long slotsLength = indexLength - HashSearchStrategy.HEADER_SIZE;
+            if(indexLength != 0
+               && (slotsLength <= 0 || slotsLength % HashSearchStrategy.SLOT_SIZE != 0L))
+                throw new VoldemortException("Invalid hash index file of " + indexLength
+                                             + " bytes.");
+            if(indexLength == 0 && dataLength != 0)
+                throw new VoldemortException("Invalid data file, empty hash index but data file is "
+                                             + dataLength + " bytes.");
+            return;
+        }
         if(indexLength % (getKeyHashSize() + ReadOnlyUtils.POSITION_SIZE) != 0L)
             throw new VoldemortException("Invalid index file, file length must be a multiple of "
                                          + (getKeyHashSize() + ReadOnlyUtils.POSITION_SIZE)
@@ -409,6 +447,21 @@ public class ChunkedFileSet {
         }
     }
 
+    /**
+     * Data files of {@link ReadOnlyStorageFormat#READONLY_V3} are read through
+     * their uncompressed offsets, all others as they are
+     */
+    private DataFileChunk openDataChunk(FileChannel dataFile, long length) {
+        DataFileChunk dataChunk = new LocalDataFileChunk(dataFile);
+        if(compressionStrategy == null)
+            return dataChunk;
+        try {
+            return new BlockCompressedDataFileChunk(dataChunk, length, compressionStrategy);
+        } catch(IOException e) {
+            throw new VoldemortException(e);
+        }
+    }
+
     private FileChannel openChannel(File file) {
         try {
             return new FileInputStream(file).getChannel();
@@ -445,6 +498,8 @@ public class ChunkedFileSet {
             case READONLY_V1:
                 return ByteUtils.md5(key);
             case READONLY_V2:
+            case READONLY_V3:
+            case READONLY_V4:
                 return ByteUtils.copy(ByteUtils.md5(key), 0, 2 * ByteUtils.SIZE_OF_INT);
             default:
                 throw new VoldemortException("Unknown read-only storage format");
@@ -463,6 +518,8 @@ public class ChunkedFileSet {
             case READONLY_V1:
                 return 16;
             case READONLY_V2:
+            case READONLY_V3:
+            case READONLY_V4:
                 return 2 * ByteUtils.SIZE_OF_INT;
             default:
                 throw new VoldemortException("Unknown read-only storage format");
@@ -493,7 +550,9 @@ public class ChunkedFileSet {
                        + ReadOnlyUtils.chunk(ByteUtils.md5(key),
                                              chunkIdToNumChunks.get(routingPartitionList.get(0)));
             }
-            case READONLY_V2: {
+            case READONLY_V2:
+            case READONLY_V3:
+            case READONLY_V4: {
                 List<Integer> routingPartitionList = routingStrategy.getPartitionList(key);
 
                 Pair<Integer, Integer> bucket = null;
@@ -537,12 +596,15 @@ public class ChunkedFileSet {
                     dataFile.read(valueBuffer, valueLocation + ByteUtils.SIZE_OF_INT);
                     return valueBuffer.array();
                 }
-                case READONLY_V2: {
+                case READONLY_V2:
+                case READONLY_V3:
+                case READONLY_V4: {
+                    DataFileChunk dataChunk = dataChunks.get(chunk);
 
                     // Buffer for 'numKeyValues', 'keySize' and 'valueSize'
                     int headerSize = ByteUtils.SIZE_OF_SHORT + (2 * ByteUtils.SIZE_OF_INT);
                     ByteBuffer sizeBuffer = ByteBuffer.allocate(headerSize);
-                    dataFile.read(sizeBuffer, valueLocation);
+                    dataChunk.read(sizeBuffer, valueLocation);
                     valueLocation += headerSize;
 
                     // Read the number of key-values
@@ -562,7 +624,7 @@ public class ChunkedFileSet {
                             // Reads an extra short, but that is fine since
                             // collisions are rare. Also we save the unnecessary
                             // overhead of allocating a new byte-buffer
-                            dataFile.read(sizeBuffer, valueLocation);
+                            dataChunk.read(sizeBuffer, valueLocation);
                             keySize = sizeBuffer.getInt(0);
                             valueSize = sizeBuffer.getInt(ByteUtils.SIZE_OF_INT);
                             valueLocation += (2 * ByteUtils.SIZE_OF_INT);
@@ -570,7 +632,7 @@ public class ChunkedFileSet {
 
                         // Read key + value
                         ByteBuffer buffer = ByteBuffer.allocate(keySize + valueSize);
-                        dataFile.read(buffer, valueLocation);
+                        dataChunk.read(buffer, valueLocation);
 
                         // Compare key
                         if(ByteUtils.compare(key, buffer.array(), 0, keySize) == 0) {
@@ -594,7 +656,8 @@ public class ChunkedFileSet {
     }
 
     /**
-     * Iterator for RO keys - Works only for ReadOnlyStorageFormat.READONLY_V2
+     * Iterator for RO keys - Works only for ReadOnlyStorageFormat.READONLY_V2,
+     * READONLY_V3 and READONLY_V4
      */
     public static class ROKeyIterator extends DataFileChunkSetIterator<ByteArray> {
 
@@ -635,7 +698,7 @@ public class ChunkedFileSet {
 
     /**
      * Iterator for RO entries - Works only for
-     * ReadOnlyStorageFormat.READONLY_V2
+     * ReadOnlyStorageFormat.READONLY_V2, READONLY_V3 and READONLY_V4
      */
     public static class ROEntriesIterator extends
             DataFileChunkSetIterator<Pair<ByteArray, Versioned<byte[]>>> {
@@ -682,7 +745,8 @@ public class ChunkedFileSet {
      * Iterator over top 8 bytes of md5(key) and all collided entries (
      * including the number of entries )
      * 
-     * Works only for ReadOnlyStorageFormat.READONLY_V2
+     * Works only for ReadOnlyStorageFormat.READONLY_V2, READONLY_V3 and
+     * READONLY_V4
      */
     public static class ROCollidedEntriesIterator extends
             DataFileChunkSetIterator<Pair<ByteBuffer, ByteBuffer>> {
@@ -749,6 +813,33 @@ public class ChunkedFileSet {
         }
     }
 
+    /**
+     * Faults in every page of the index files, so the first lookups served
+     * out of this file set do not have to go to disk
+     */
+    public void loadIndexFiles() {
+        for(MappedByteBuffer indexFile: indexFiles)
+            indexFile.load();
+    }
+
+    /**
+     * Finds the position of the tuple holding the key in the data file of the
+     * chunk. Stores with a hash index are searched through it, all others
+     * with the given search strategy.
+     * 
+     * @param key The key
+     * @param chunk The chunk of the key, see {@link #getChunkForKey(byte[])}
+     * @param searchStrategy The strategy used for sorted indexes
+     * @return The position, or -1 if the key is not found
+     */
+    public int getValueLocation(byte[] key, int chunk, SearchStrategy searchStrategy) {
+        if(storageFormat == ReadOnlyStorageFormat.READONLY_V4)
+            searchStrategy = HASH_SEARCH_STRATEGY;
+        return searchStrategy.indexOf(indexFileFor(chunk),
+                                      keyToStorageFormat(key),
+                                      getIndexFileSize(chunk));
+    }
+
     public ByteBuffer indexFileFor(int chunk) {
         return indexFiles.get(chunk).duplicate();
     }
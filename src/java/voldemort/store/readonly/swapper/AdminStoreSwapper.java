@@ -29,6 +29,7 @@ public class AdminStoreSwapper extends StoreSwapper {
     private long timeoutMs;
     private boolean deleteFailedFetch = false;
     private boolean rollbackFailedSwap = false;
+    private StaggeredSwapCoordinator swapCoordinator = null;
 
     /**
      * 
@@ -54,6 +55,30 @@ public class AdminStoreSwapper extends StoreSwapper {
         this.rollbackFailedSwap = rollbackFailedSwap;
     }
 
+    /**
+     * 
+     * @param cluster The cluster metadata
+     * @param executor Executor to use for running parallel fetch / swaps
+     * @param adminClient The admin client to use for querying
+     * @param timeoutMs Time out in ms
+     * @param deleteFailedFetch Boolean to indicate we want to delete data on
+     *        successful nodes after a fetch fails somewhere
+     * @param rollbackFailedSwap Boolean to indicate we want to rollback the
+     *        data on successful nodes after a swap fails somewhere
+     * @param swapCoordinator Plans which nodes swap in parallel, instead of
+     *        swapping one node at a time
+     */
+    public AdminStoreSwapper(Cluster cluster,
+                             ExecutorService executor,
+                             AdminClient adminClient,
+                             long timeoutMs,
+                             boolean deleteFailedFetch,
+                             boolean rollbackFailedSwap,
+                             StaggeredSwapCoordinator swapCoordinator) {
+        this(cluster, executor, adminClient, timeoutMs, deleteFailedFetch, rollbackFailedSwap);
+        this.swapCoordinator = swapCoordinator;
+    }
+
     /**
      * 
      * @param cluster The cluster metadata
@@ -164,18 +189,60 @@ public class AdminStoreSwapper extends StoreSwapper {
 
     @Override
     public void invokeSwap(final String storeName, final List<String> fetchFiles) {
+        // without a coordinator, nodes swap one at a time
+        List<List<Integer>> swapWaves = Lists.newArrayList();
+        long staggerMs = 0;
+        if(swapCoordinator != null) {
+            swapWaves = swapCoordinator.getSwapWaves();
+            staggerMs = swapCoordinator.getStaggerMs();
+        } else {
+            for(int nodeId = 0; nodeId < cluster.getNumberOfNodes(); nodeId++)
+                swapWaves.add(Lists.newArrayList(nodeId));
+        }
+
         // do swap
         Map<Integer, String> previousDirs = new HashMap<Integer, String>();
         HashMap<Integer, Exception> exceptions = Maps.newHashMap();
 
-        for(int nodeId = 0; nodeId < cluster.getNumberOfNodes(); nodeId++) {
-            try {
-                String dir = fetchFiles.get(nodeId);
-                logger.info("Attempting swap for node " + nodeId + " dir = " + dir);
-                previousDirs.put(nodeId, adminClient.readonlyOps.swapStore(nodeId, storeName, dir));
-                logger.info("Swap succeeded for node " + nodeId);
-            } catch(Exception e) {
-                exceptions.put(nodeId, e);
+        for(int waveId = 0; waveId < swapWaves.size(); waveId++) {
+            List<Integer> wave = swapWaves.get(waveId);
+            if(waveId > 0 && staggerMs > 0) {
+                try {
+                    logger.info("Waiting " + staggerMs + " ms before swapping nodes " + wave);
+                    Thread.sleep(staggerMs);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    for(int remainingWaveId = waveId; remainingWaveId < swapWaves.size(); remainingWaveId++) {
+                        for(int nodeId: swapWaves.get(remainingWaveId))
+                            exceptions.put(nodeId, e);
+                    }
+                    break;
+                }
+            }
+
+            Map<Integer, Future<String>> swaps = new HashMap<Integer, Future<String>>();
+            for(final int nodeId: wave) {
+                swaps.put(nodeId, executor.submit(new Callable<String>() {
+
+                    public String call() throws Exception {
+                        String dir = fetchFiles.get(nodeId);
+                        logger.info("Attempting swap for node " + nodeId + " dir = " + dir);
+                        String previousDir = adminClient.readonlyOps.swapStore(nodeId,
+                                                                               storeName,
+                                                                               dir);
+                        logger.info("Swap succeeded for node " + nodeId);
+                        return previousDir;
+                    }
+                }));
+            }
+
+            // wait for the whole wave before moving on to the next one
+            for(int nodeId: wave) {
+                try {
+                    previousDirs.put(nodeId, swaps.get(nodeId).get());
+                } catch(Exception e) {
+                    exceptions.put(nodeId, e);
+                }
             }
         }
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly.swapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import voldemort.cluster.Cluster;
+import voldemort.cluster.Node;
+import voldemort.routing.RoutingStrategy;
+import voldemort.routing.RoutingStrategyFactory;
+import voldemort.store.StoreDefinition;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Plans the order in which the nodes of a cluster swap in a new version of a
+ * read-only store. Nodes are split into waves, such that no two nodes in the
+ * same wave host a replica of the same partition. The nodes of a wave swap in
+ * parallel and the next wave only starts once they are done, and an optional
+ * stagger time has passed, so a key range is never swapped (and cold) on
+ * every one of its replicas at once.
+ */
+public class StaggeredSwapCoordinator {
+
+    private final List<List<Integer>> swapWaves;
+    private final long staggerMs;
+
+    /**
+     * @param cluster The cluster metadata
+     * @param storeDef The definition of the store being swapped
+     * @param staggerMs Time to wait between two waves of swaps
+     */
+    public StaggeredSwapCoordinator(Cluster cluster, StoreDefinition storeDef, long staggerMs) {
+        this.swapWaves = computeSwapWaves(cluster, storeDef);
+        this.staggerMs = staggerMs;
+    }
+
+    public List<List<Integer>> getSwapWaves() {
+        return swapWaves;
+    }
+
+    public long getStaggerMs() {
+        return staggerMs;
+    }
+
+    /**
+     * Greedily assigns every node, in node id order, to the first wave that
+     * contains none of the nodes it shares a partition replica with
+     * 
+     * @param cluster The cluster metadata
+     * @param storeDef The definition of the store being swapped
+     * @return The list of waves, each a list of node ids
+     */
+    public static List<List<Integer>> computeSwapWaves(Cluster cluster, StoreDefinition storeDef) {
+        RoutingStrategy routingStrategy = new RoutingStrategyFactory().updateRoutingStrategy(storeDef,
+                                                                                             cluster);
+        // nodes sharing a replica of some partition must not swap together
+        Map<Integer, Set<Integer>> nodeToConflictingNodes = Maps.newHashMap();
+        for(Integer nodeId: cluster.getNodeIds())
+            nodeToConflictingNodes.put(nodeId, Sets.<Integer> newHashSet());
+
+        for(int partitionId = 0; partitionId < cluster.getNumberOfPartitions(); partitionId++) {
+            Set<Integer> replicaNodeIds = Sets.newHashSet();
+            for(int replicaPartitionId: routingStrategy.getReplicatingPartitionList(partitionId)) {
+                Node node = cluster.getNodeForPartitionId(replicaPartitionId);
+                replicaNodeIds.add(node.getId());
+            }
+            for(int nodeId: replicaNodeIds)
+                nodeToConflictingNodes.get(nodeId).addAll(replicaNodeIds);
+        }
+
+        List<List<Integer>> swapWaves = Lists.newArrayList();
+        for(Integer nodeId: Sets.newTreeSet(cluster.getNodeIds())) {
+            Set<Integer> conflictingNodes = nodeToConflictingNodes.get(nodeId);
+            List<Integer> assignedWave = null;
+            for(List<Integer> wave: swapWaves) {
+                if(Sets.intersection(conflictingNodes, Sets.newHashSet(wave)).isEmpty()) {
+                    assignedWave = wave;
+                    break;
+                }
+            }
+            if(assignedWave == null) {
+                assignedWave = Lists.newArrayList();
+                swapWaves.add(assignedWave);
+            }
+            assignedWave.add(nodeId);
+        }
+        return swapWaves;
+    }
+}
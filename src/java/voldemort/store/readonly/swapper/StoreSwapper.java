@@ -37,7 +37,9 @@ import voldemort.client.ClientConfig;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.protocol.admin.AdminClientConfig;
 import voldemort.cluster.Cluster;
+import voldemort.store.StoreDefinition;
 import voldemort.utils.CmdUtils;
+import voldemort.utils.StoreDefinitionUtils;
 import voldemort.utils.Time;
 import voldemort.utils.VoldemortIOUtils;
 import voldemort.xml.ClusterMapper;
@@ -96,6 +98,11 @@ public abstract class StoreSwapper {
               .ofType(Integer.class);
         parser.accepts("rollback", "Rollback store to older version");
         parser.accepts("admin", "Use admin services. Default = false");
+        parser.accepts("stagger-swaps",
+                       "Swap nodes that share no replicas in parallel, waiting the given time between waves of swaps. Requires --admin")
+              .withRequiredArg()
+              .describedAs("stagger ms")
+              .ofType(Long.class);
         parser.accepts("push-version", "[REQUIRED] Version of push to fetch / rollback-to")
               .withRequiredArg()
               .ofType(Long.class);
@@ -135,7 +142,27 @@ public abstract class StoreSwapper {
         DefaultHttpClient httpClient = null;
         if(useAdminServices) {
             adminClient = new AdminClient(cluster, new AdminClientConfig(), new ClientConfig());
-            swapper = new AdminStoreSwapper(cluster, executor, adminClient, timeoutMs);
+            if(options.has("stagger-swaps")) {
+                List<StoreDefinition> storeDefs = adminClient.metadataMgmtOps.getRemoteStoreDefList(cluster.getNodes()
+                                                                                                           .iterator()
+                                                                                                           .next()
+                                                                                                           .getId())
+                                                                             .getValue();
+                StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(storeDefs,
+                                                                                           storeName);
+                StaggeredSwapCoordinator swapCoordinator = new StaggeredSwapCoordinator(cluster,
+                                                                                        storeDef,
+                                                                                        (Long) options.valueOf("stagger-swaps"));
+                swapper = new AdminStoreSwapper(cluster,
+                                                executor,
+                                                adminClient,
+                                                timeoutMs,
+                                                false,
+                                                false,
+                                                swapCoordinator);
+            } else {
+                swapper = new AdminStoreSwapper(cluster, executor, adminClient, timeoutMs);
+            }
         } else {
             int numConnections = cluster.getNumberOfNodes() + 3;
             ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
@@ -16,6 +16,15 @@
 
 package voldemort.store.rebalancing;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.apache.log4j.Logger;
 
 import voldemort.cluster.Node;
@@ -28,14 +37,20 @@ import voldemort.versioning.ObsoleteVersionException;
 import voldemort.versioning.Versioned;
 
 /**
- * Task that issues the proxy put against the old replica, based on the old
+ * Task that issues the proxy puts against the old replica, based on the old
  * cluster metadata. This is best effort async replication. Failures will be
  * logged and the server log will be post processed in case the rebalancing
  * fails and we move back to old topology
  * 
+ * There is one task per proxy node of a store. Proxy puts are queued on it,
+ * in a bounded queue, and each run of the task issues one batch of them over
+ * the same socket store. At most one run of a task is submitted to the worker
+ * pool at a time, so a slow proxy node holds a single worker thread, and once
+ * its queue is full the writes redirected to it wait for room, which slows
+ * down the client writes instead of letting the backlog grow without bound.
+ * 
  * NOTE : There is no need for any special ordering of the proxy puts in the
- * async thread pool (although the threadpool will have a queue of pending proxy
- * puts internally), since a later version being proxy put before an earlier
+ * async thread pool, since a later version being proxy put before an earlier
  * version would simply result in an OVE for the earlier proxy put. Online
  * traffic will not be affected since the proxy node is not a replica and hence
  * no client will be reading from it (if we are at all wondering about read
@@ -47,71 +62,144 @@ public class AsyncProxyPutTask implements Runnable {
     private final static Logger logger = Logger.getLogger(AsyncProxyPutTask.class);
 
     private final RedirectingStore redirectingStore;
-    private final ByteArray key;
-    private final Versioned<byte[]> value;
-    private final byte[] transforms;
     private final int destinationNode;
     private final MetadataStore metadata;
+    private final ExecutorService workerPool;
+    private final BlockingQueue<ProxyPut> queue;
+    private final int maxBatchSize;
+    private final AtomicBoolean submitted;
 
     AsyncProxyPutTask(RedirectingStore redirectingStore,
-                      ByteArray key,
-                      Versioned<byte[]> value,
-                      byte[] transforms,
-                      int destinationNode) {
-        this.key = key;
-        this.value = value;
-        this.transforms = transforms;
+                      int destinationNode,
+                      ExecutorService workerPool,
+                      int queueSize,
+                      int maxBatchSize) {
         this.redirectingStore = redirectingStore;
         this.destinationNode = destinationNode;
         this.metadata = redirectingStore.getMetadataStore();
+        this.workerPool = workerPool;
+        this.queue = new LinkedBlockingQueue<ProxyPut>(queueSize);
+        this.maxBatchSize = maxBatchSize;
+        this.submitted = new AtomicBoolean(false);
+    }
+
+    /**
+     * Queues a proxy put, waiting for room in the queue if it is full
+     * 
+     * @param key The key written
+     * @param value The value written
+     * @param transforms The transforms of the write
+     * @param timeoutMs How long to wait for room in the queue
+     * @return false if the queue stayed full and the proxy put was dropped
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    boolean enqueue(ByteArray key, Versioned<byte[]> value, byte[] transforms, long timeoutMs)
+            throws InterruptedException {
+        if(!queue.offer(new ProxyPut(key, value, transforms), timeoutMs, TimeUnit.MILLISECONDS))
+            return false;
+        redirectingStore.getProxyPutStats().reportProxyPutQueued(queue.size());
+        maybeSubmit();
+        return true;
+    }
+
+    private void maybeSubmit() {
+        if(submitted.compareAndSet(false, true)) {
+            try {
+                workerPool.submit(this);
+            } catch(RejectedExecutionException e) {
+                submitted.set(false);
+                throw e;
+            }
+        }
     }
 
     @Override
     public void run() {
-        Node proxyNode = metadata.getCluster().getNodeById(destinationNode);
-        long startNs = System.nanoTime();
         try {
-            // TODO there are no retries now if the node we want to write to is
-            // unavailable
-            redirectingStore.checkNodeAvailable(proxyNode);
-            Store<ByteArray, byte[], byte[]> socketStore = redirectingStore.getRedirectingSocketStore(redirectingStore.getName(),
-                                                                                                      destinationNode);
-
-            socketStore.put(key, value, transforms);
-            redirectingStore.recordSuccess(proxyNode, startNs);
-            redirectingStore.reportProxyPutSuccess();
-            if(logger.isTraceEnabled()) {
-                logger.trace("Proxy write for store " + redirectingStore.getName() + " key "
-                             + ByteUtils.toHexString(key.get()) + " to destinationNode:"
-                             + destinationNode);
+            List<ProxyPut> batch = new ArrayList<ProxyPut>(Math.min(maxBatchSize, queue.size()));
+            queue.drainTo(batch, maxBatchSize);
+            if(!batch.isEmpty()) {
+                redirectingStore.getProxyPutStats().reportProxyPutBatch(batch.size());
+                issue(batch);
+            }
+        } finally {
+            submitted.set(false);
+            // yield the worker between batches, so other proxy nodes get
+            // their turn
+            if(!queue.isEmpty()) {
+                try {
+                    maybeSubmit();
+                } catch(RejectedExecutionException e) {
+                    logger.warn("Proxy put worker pool rejected the puts queued for node "
+                                + destinationNode);
+                }
             }
-        } catch(UnreachableStoreException e) {
-            redirectingStore.recordException(proxyNode, startNs, e);
-            logFailedProxyPutIfNeeded(e);
-        } catch(ObsoleteVersionException ove) {
-            /*
-             * Proxy puts can get an OVE if somehow there are two stealers for
-             * the same proxy node and the other stealer's proxy put already got
-             * tothe proxy node.. This will not result from online put winning,
-             * since we don't issue proxy puts if the proxy node is still a
-             * replica
-             */
-            logFailedProxyPutIfNeeded(ove);
-        } catch(Exception e) {
-            // Just log the key.. Not sure having values in the log is a good
-            // idea.
-            logFailedProxyPutIfNeeded(e);
         }
     }
 
-    private void logFailedProxyPutIfNeeded(Exception e) {
+    private void issue(List<ProxyPut> batch) {
+        Node proxyNode = metadata.getCluster().getNodeById(destinationNode);
+        Store<ByteArray, byte[], byte[]> socketStore = null;
+        for(ProxyPut proxyPut: batch) {
+            long startNs = System.nanoTime();
+            try {
+                // TODO there are no retries now if the node we want to write
+                // to is unavailable
+                redirectingStore.checkNodeAvailable(proxyNode);
+                if(socketStore == null)
+                    socketStore = redirectingStore.getRedirectingSocketStore(redirectingStore.getName(),
+                                                                             destinationNode);
+
+                socketStore.put(proxyPut.key, proxyPut.value, proxyPut.transforms);
+                redirectingStore.recordSuccess(proxyNode, startNs);
+                redirectingStore.reportProxyPutSuccess();
+                if(logger.isTraceEnabled()) {
+                    logger.trace("Proxy write for store " + redirectingStore.getName() + " key "
+                                 + ByteUtils.toHexString(proxyPut.key.get())
+                                 + " to destinationNode:" + destinationNode);
+                }
+            } catch(UnreachableStoreException e) {
+                redirectingStore.recordException(proxyNode, startNs, e);
+                logFailedProxyPutIfNeeded(proxyPut, e);
+            } catch(ObsoleteVersionException ove) {
+                /*
+                 * Proxy puts can get an OVE if somehow there are two stealers
+                 * for the same proxy node and the other stealer's proxy put
+                 * already got tothe proxy node.. This will not result from
+                 * online put winning, since we don't issue proxy puts if the
+                 * proxy node is still a replica
+                 */
+                logFailedProxyPutIfNeeded(proxyPut, ove);
+            } catch(Exception e) {
+                // Just log the key.. Not sure having values in the log is a
+                // good idea.
+                logFailedProxyPutIfNeeded(proxyPut, e);
+            }
+        }
+    }
+
+    private void logFailedProxyPutIfNeeded(ProxyPut proxyPut, Exception e) {
         redirectingStore.reportProxyPutFailure();
         // only log OVE if trace debugging is on.
         if(e instanceof ObsoleteVersionException && !logger.isTraceEnabled()) {
             return;
         }
         logger.error("Exception in proxy put for proxyNode: " + destinationNode + " from node:"
-                     + metadata.getNodeId() + " on key " + ByteUtils.toHexString(key.get())
-                     + " Version:" + value.getVersion(), e);
+                     + metadata.getNodeId() + " on key "
+                     + ByteUtils.toHexString(proxyPut.key.get()) + " Version:"
+                     + proxyPut.value.getVersion(), e);
+    }
+
+    private static class ProxyPut {
+
+        private final ByteArray key;
+        private final Versioned<byte[]> value;
+        private final byte[] transforms;
+
+        private ProxyPut(ByteArray key, Versioned<byte[]> value, byte[] transforms) {
+            this.key = key;
+            this.value = value;
+            this.transforms = transforms;
+        }
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.rebalancing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import voldemort.VoldemortException;
+import voldemort.utils.ByteArray;
+
+/**
+ * Groups the proxy gets of concurrent local misses into getAll batches, one
+ * batch in flight per proxy node at a time.
+ * 
+ * A get arriving while no batch is in flight for its proxy node is sent right
+ * away, in a batch of its own. Gets arriving meanwhile wait, and once the
+ * batch in flight completes one of them sends all the waiting gets, up to the
+ * maximum batch size, as the next batch. Waiting gets of the same key and
+ * transforms share one lookup.
+ */
+public class ProxyGetBatcher {
+
+    /**
+     * Fetches a batch of keys from a proxy node, and writes what it finds to
+     * the local store
+     */
+    public interface BatchFetcher {
+
+        void fetch(int proxyNodeId, Map<ByteArray, byte[]> keysToTransforms)
+                throws VoldemortException;
+    }
+
+    private final int maxBatchSize;
+    private final ConcurrentMap<Integer, ProxyNodeQueue> queues;
+
+    public ProxyGetBatcher(int maxBatchSize) {
+        if(maxBatchSize < 1)
+            throw new IllegalArgumentException("Batch size must be positive.");
+        this.maxBatchSize = maxBatchSize;
+        this.queues = new ConcurrentHashMap<Integer, ProxyNodeQueue>();
+    }
+
+    /**
+     * Fetches the key from the proxy node, as part of a batch, returning once
+     * the batch holding it has been fetched
+     * 
+     * @param proxyNodeId The proxy node to fetch from
+     * @param key The key to fetch
+     * @param transforms The transforms of the get, may be null
+     * @param fetcher Fetches a batch from the proxy node
+     * @return The size of the batch the key was fetched in
+     * @throws VoldemortException if fetching the batch failed
+     */
+    public int fetch(int proxyNodeId, ByteArray key, byte[] transforms, BatchFetcher fetcher)
+            throws VoldemortException {
+        ProxyNodeQueue queue = queues.get(proxyNodeId);
+        if(queue == null) {
+            queues.putIfAbsent(proxyNodeId, new ProxyNodeQueue());
+            queue = queues.get(proxyNodeId);
+        }
+
+        PendingGet pending = new PendingGet(key, transforms);
+        List<PendingGet> batch;
+        while(true) {
+            synchronized(queue) {
+                if(!pending.isQueued()) {
+                    queue.waiting.add(pending);
+                    pending.setQueued();
+                }
+                while(!pending.isDone() && queue.inFlight)
+                    await(queue);
+                if(pending.isDone())
+                    return pending.getResult();
+                queue.inFlight = true;
+                batch = takeBatch(queue.waiting);
+            }
+
+            VoldemortException failure = null;
+            boolean fetched = false;
+            try {
+                fetcher.fetch(proxyNodeId, toKeysToTransforms(batch));
+                fetched = true;
+            } catch(VoldemortException e) {
+                failure = e;
+            } catch(RuntimeException e) {
+                failure = new VoldemortException(e);
+            } finally {
+                if(!fetched && failure == null)
+                    failure = new VoldemortException("Proxy get batch to node " + proxyNodeId
+                                                     + " failed");
+                synchronized(queue) {
+                    for(PendingGet completed: batch)
+                        completed.complete(batch.size(), failure);
+                    queue.inFlight = false;
+                    queue.notifyAll();
+                }
+            }
+            // the batch sent may not have held this get, if many were waiting
+        }
+    }
+
+    /*
+     * Takes the oldest waiting gets, keeping only one get per key in the batch
+     * unless the transforms are the same
+     */
+    private List<PendingGet> takeBatch(LinkedList<PendingGet> waiting) {
+        List<PendingGet> batch = new ArrayList<PendingGet>();
+        Map<ByteArray, byte[]> keysInBatch = new HashMap<ByteArray, byte[]>();
+        Iterator<PendingGet> iterator = waiting.iterator();
+        while(iterator.hasNext()) {
+            PendingGet pending = iterator.next();
+            if(keysInBatch.containsKey(pending.key)) {
+                if(!Arrays.equals(keysInBatch.get(pending.key), pending.transforms))
+                    continue;
+            } else if(keysInBatch.size() >= maxBatchSize) {
+                continue;
+            } else {
+                keysInBatch.put(pending.key, pending.transforms);
+            }
+            batch.add(pending);
+            iterator.remove();
+        }
+        return batch;
+    }
+
+    private Map<ByteArray, byte[]> toKeysToTransforms(List<PendingGet> batch) {
+        Map<ByteArray, byte[]> keysToTransforms = new HashMap<ByteArray, byte[]>();
+        for(PendingGet pending: batch)
+            keysToTransforms.put(pending.key, pending.transforms);
+        return keysToTransforms;
+    }
+
+    private static void await(Object monitor) {
+        try {
+            monitor.wait();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VoldemortException("Interrupted waiting for a proxy get", e);
+        }
+    }
+
+    private static class ProxyNodeQueue {
+
+        private final LinkedList<PendingGet> waiting = new LinkedList<PendingGet>();
+        private boolean inFlight = false;
+    }
+
+    private static class PendingGet {
+
+        private final ByteArray key;
+        private final byte[] transforms;
+        private boolean queued;
+        private boolean done;
+        private int batchSize;
+        private VoldemortException failure;
+
+        private PendingGet(ByteArray key, byte[] transforms) {
+            this.key = key;
+            this.transforms = transforms;
+        }
+
+        private boolean isQueued() {
+            return queued;
+        }
+
+        private void setQueued() {
+            queued = true;
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+
+        private void complete(int batchSize, VoldemortException failure) {
+            this.done = true;
+            this.batchSize = batchSize;
+            this.failure = failure;
+        }
+
+        private int getResult() {
+            if(failure != null)
+                throw failure;
+            return batchSize;
+        }
+    }
+}
@@ -19,22 +19,41 @@ package voldemort.store.rebalancing;
 import java.util.concurrent.atomic.AtomicLong;
 
 import voldemort.annotations.jmx.JmxGetter;
+import voldemort.store.stats.Histogram;
 
 /**
- * Statistics on Proxy puts issued from the redirecting store
+ * Statistics on Proxy puts issued from the redirecting store, and on the
+ * batches proxy gets and puts are grouped in
  * 
  */
 public class ProxyPutStats {
 
+    private static final long HISTOGRAM_RESET_INTERVAL_MS = 60 * 1000;
+
     private AtomicLong numProxyPutFailures;
 
     private AtomicLong numPendingProxyPuts;
 
+    private AtomicLong numQueuedProxyPuts;
+
+    private AtomicLong numRejectedProxyPuts;
+
+    private final Histogram proxyPutQueueDepth;
+
+    private final Histogram proxyPutBatchSize;
+
+    private final Histogram proxyGetBatchSize;
+
     private ProxyPutStats parent;
 
     public ProxyPutStats(ProxyPutStats parent) {
         this.numPendingProxyPuts = new AtomicLong();
         this.numProxyPutFailures = new AtomicLong();
+        this.numQueuedProxyPuts = new AtomicLong();
+        this.numRejectedProxyPuts = new AtomicLong();
+        this.proxyPutQueueDepth = new Histogram(1000, 100, HISTOGRAM_RESET_INTERVAL_MS);
+        this.proxyPutBatchSize = new Histogram(1000, 1, HISTOGRAM_RESET_INTERVAL_MS);
+        this.proxyGetBatchSize = new Histogram(1000, 1, HISTOGRAM_RESET_INTERVAL_MS);
         this.parent = parent;
     }
 
@@ -53,13 +72,63 @@ public class ProxyPutStats {
     }
 
     public void reportProxyPutFailure() {
-        this.reportProxyPutCompletion();
+        this.numPendingProxyPuts.decrementAndGet();
         this.numProxyPutFailures.incrementAndGet();
         if(this.parent != null) {
             this.parent.reportProxyPutFailure();
         }
     }
 
+    /**
+     * A proxy put was queued for its proxy node
+     * 
+     * @param queueDepth The number of proxy puts queued for the node, including
+     *        this one
+     */
+    public void reportProxyPutQueued(int queueDepth) {
+        this.numQueuedProxyPuts.incrementAndGet();
+        this.proxyPutQueueDepth.insert(queueDepth);
+        if(this.parent != null) {
+            this.parent.reportProxyPutQueued(queueDepth);
+        }
+    }
+
+    /**
+     * A proxy put could not be queued within the allowed time, as the queue of
+     * its proxy node stayed full
+     */
+    public void reportProxyPutRejected() {
+        this.numRejectedProxyPuts.incrementAndGet();
+        if(this.parent != null) {
+            this.parent.reportProxyPutRejected();
+        }
+    }
+
+    /**
+     * A batch of queued proxy puts was taken off the queue to be issued
+     * 
+     * @param batchSize The number of proxy puts in the batch
+     */
+    public void reportProxyPutBatch(int batchSize) {
+        this.numQueuedProxyPuts.addAndGet(-batchSize);
+        this.proxyPutBatchSize.insert(batchSize);
+        if(this.parent != null) {
+            this.parent.reportProxyPutBatch(batchSize);
+        }
+    }
+
+    /**
+     * A batch of proxy gets was issued to a proxy node as one getAll
+     * 
+     * @param batchSize The number of keys in the batch
+     */
+    public void reportProxyGetBatch(int batchSize) {
+        this.proxyGetBatchSize.insert(batchSize);
+        if(this.parent != null) {
+            this.parent.reportProxyGetBatch(batchSize);
+        }
+    }
+
     @JmxGetter(name = "numProxyPutFailures")
     public long getNumProxyPutFailures() {
         return numProxyPutFailures.get();
@@ -69,4 +138,44 @@ public class ProxyPutStats {
     public long getNumPendingProxyPuts() {
         return numPendingProxyPuts.get();
     }
+
+    @JmxGetter(name = "numQueuedProxyPuts")
+    public long getNumQueuedProxyPuts() {
+        return numQueuedProxyPuts.get();
+    }
+
+    @JmxGetter(name = "numRejectedProxyPuts")
+    public long getNumRejectedProxyPuts() {
+        return numRejectedProxyPuts.get();
+    }
+
+    @JmxGetter(name = "avgProxyPutQueueDepth")
+    public double getAvgProxyPutQueueDepth() {
+        return proxyPutQueueDepth.getAverage();
+    }
+
+    @JmxGetter(name = "q99ProxyPutQueueDepth")
+    public long getQ99ProxyPutQueueDepth() {
+        return proxyPutQueueDepth.getQuantile(0.99);
+    }
+
+    @JmxGetter(name = "avgProxyPutBatchSize")
+    public double getAvgProxyPutBatchSize() {
+        return proxyPutBatchSize.getAverage();
+    }
+
+    @JmxGetter(name = "q99ProxyPutBatchSize")
+    public long getQ99ProxyPutBatchSize() {
+        return proxyPutBatchSize.getQuantile(0.99);
+    }
+
+    @JmxGetter(name = "avgProxyGetBatchSize")
+    public double getAvgProxyGetBatchSize() {
+        return proxyGetBatchSize.getAverage();
+    }
+
+    @JmxGetter(name = "q99ProxyGetBatchSize")
+    public long getQ99ProxyGetBatchSize() {
+        return proxyGetBatchSize.getQuantile(0.99);
+    }
 }
@@ -18,6 +18,8 @@ package voldemort.store.rebalancing;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -38,6 +40,7 @@ import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreUtils;
 import voldemort.store.UnreachableStoreException;
+import voldemort.store.metadata.MetadataSnapshot;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.metadata.MetadataStore.VoldemortState;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
@@ -88,6 +91,12 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
 
 
     private final static Logger logger = Logger.getLogger(RedirectingStore.class);
+
+    public static final int DEFAULT_PROXY_PUT_QUEUE_SIZE = 10000;
+    public static final int DEFAULT_PROXY_PUT_BATCH_SIZE = 100;
+    public static final long DEFAULT_PROXY_PUT_QUEUE_TIMEOUT_MS = 1000;
+    public static final int DEFAULT_PROXY_GET_BATCH_SIZE = 100;
+
     private final MetadataStore metadata;
     private final StoreRepository storeRepository;
     private final SocketStoreFactory storeFactory;
@@ -98,6 +107,14 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
     // statistics on proxy put tasks
     private final ProxyPutStats proxyPutStats;
 
+    // proxy puts are queued per proxy node
+    private final ConcurrentMap<Integer, AsyncProxyPutTask> proxyPutTasks;
+    private final int proxyPutQueueSize;
+    private final int proxyPutBatchSize;
+    private final long proxyPutQueueTimeoutMs;
+
+    private final ProxyGetBatcher proxyGetBatcher;
+
     public RedirectingStore(Store<ByteArray, byte[], byte[]> innerStore,
                             MetadataStore metadata,
                             StoreRepository storeRepository,
@@ -105,6 +122,30 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
                             SocketStoreFactory storeFactory,
                             ExecutorService proxyPutWorkerPool,
                             ProxyPutStats proxyPutStats) {
+        this(innerStore,
+             metadata,
+             storeRepository,
+             detector,
+             storeFactory,
+             proxyPutWorkerPool,
+             proxyPutStats,
+             DEFAULT_PROXY_PUT_QUEUE_SIZE,
+             DEFAULT_PROXY_PUT_BATCH_SIZE,
+             DEFAULT_PROXY_PUT_QUEUE_TIMEOUT_MS,
+             DEFAULT_PROXY_GET_BATCH_SIZE);
+    }
+
+    public RedirectingStore(Store<ByteArray, byte[], byte[]> innerStore,
+                            MetadataStore metadata,
+                            StoreRepository storeRepository,
+                            FailureDetector detector,
+                            SocketStoreFactory storeFactory,
+                            ExecutorService proxyPutWorkerPool,
+                            ProxyPutStats proxyPutStats,
+                            int proxyPutQueueSize,
+                            int proxyPutBatchSize,
+                            long proxyPutQueueTimeoutMs,
+                            int proxyGetBatchSize) {
         super(innerStore);
         this.metadata = metadata;
         this.storeRepository = storeRepository;
@@ -113,6 +154,11 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
         this.isRedirectingStoreEnabled = new AtomicBoolean(true);
         this.proxyPutWorkerPool = proxyPutWorkerPool;
         this.proxyPutStats = proxyPutStats;
+        this.proxyPutTasks = new ConcurrentHashMap<Integer, AsyncProxyPutTask>();
+        this.proxyPutQueueSize = proxyPutQueueSize;
+        this.proxyPutBatchSize = proxyPutBatchSize;
+        this.proxyPutQueueTimeoutMs = proxyPutQueueTimeoutMs;
+        this.proxyGetBatcher = new ProxyGetBatcher(proxyGetBatchSize);
     }
 
     @JmxSetter(name = "setRedirectingStoreEnabled", description = "Enable the redirecting store for this store")
@@ -283,10 +329,10 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
      */
     private void redirectingPut(ByteArray key, Versioned<byte[]> value, byte[] transforms)
             throws VoldemortException {
-        Cluster currentCluster = metadata.getCluster();
-        // TODO:refactor O(n) linear lookup of storedef here. Ideally should be
-        // a hash lookup.
-        StoreDefinition storeDef = metadata.getStoreDef(getName());
+        // read both from the same snapshot so they always agree
+        MetadataSnapshot snapshot = metadata.getSnapshot();
+        Cluster currentCluster = snapshot.getCluster();
+        StoreDefinition storeDef = snapshot.getStoreDef(getName());
         /*
          * defensively, error out if this is a read-only store and someone is
          * doing puts against it. We don't to do extra work and fill the log
@@ -332,13 +378,46 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
         // OVE). So do not send proxy puts in those cases.
         if(redirectNode != null
            && !currentRoutingPlan.getReplicationNodeList(key.get()).contains(redirectNode)) {
-            AsyncProxyPutTask asyncProxyPutTask = new AsyncProxyPutTask(this,
-                                                                        key,
-                                                                        value,
-                                                                        transforms,
-                                                                        redirectNode);
-            proxyPutStats.reportProxyPutSubmission();
-            proxyPutWorkerPool.submit(asyncProxyPutTask);
+            submitProxyPut(key, value, transforms, redirectNode);
+        }
+    }
+
+    /**
+     * Queues a proxy put on the task of the proxy node. If the queue is full,
+     * waits for room, up to the queue timeout, so that a lagging proxy node
+     * slows down the writes redirected to it. The proxy put is dropped if
+     * there is still no room then.
+     */
+    private void submitProxyPut(ByteArray key,
+                                Versioned<byte[]> value,
+                                byte[] transforms,
+                                int redirectNode) {
+        AsyncProxyPutTask asyncProxyPutTask = proxyPutTasks.get(redirectNode);
+        if(asyncProxyPutTask == null) {
+            proxyPutTasks.putIfAbsent(redirectNode, new AsyncProxyPutTask(this,
+                                                                          redirectNode,
+                                                                          proxyPutWorkerPool,
+                                                                          proxyPutQueueSize,
+                                                                          proxyPutBatchSize));
+            asyncProxyPutTask = proxyPutTasks.get(redirectNode);
+        }
+
+        proxyPutStats.reportProxyPutSubmission();
+        boolean queued = false;
+        try {
+            queued = asyncProxyPutTask.enqueue(key, value, transforms, proxyPutQueueTimeoutMs);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if(!queued) {
+                proxyPutStats.reportProxyPutRejected();
+                proxyPutStats.reportProxyPutFailure();
+            }
+        }
+        if(!queued) {
+            logger.error("Dropped proxy put for proxyNode: " + redirectNode + " from node:"
+                         + metadata.getNodeId() + " on key " + ByteUtils.toHexString(key.get())
+                         + " Version:" + value.getVersion() + " since its queue is full");
         }
     }
 
@@ -520,37 +599,15 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
      * @return
      */
     private Integer getProxyNode(byte[] key) {
-        Cluster currentCluster = metadata.getCluster();
-        StoreDefinition storeDef = metadata.getStoreDef(getName());
+        MetadataSnapshot snapshot = metadata.getSnapshot();
+        Cluster currentCluster = snapshot.getCluster();
+        StoreDefinition storeDef = snapshot.getStoreDef(getName());
         // TODO Ideally, this object construction should be done only when
         // metadata changes using a listener mechanism
         BaseStoreRoutingPlan currentRoutingPlan = new BaseStoreRoutingPlan(currentCluster, storeDef);
         return getProxyNode(currentRoutingPlan, storeDef, key);
     }
 
-    /**
-     * Performs a back-door proxy get to proxy node
-     * 
-     * @param key Key
-     * @param proxyNodeId proxy node id
-     * @throws ProxyUnreachableException if proxy node can't be reached
-     */
-    private List<Versioned<byte[]>> proxyGet(ByteArray key, int proxyNodeId, byte[] transform) {
-        Node proxyNode = metadata.getCluster().getNodeById(proxyNodeId);
-        checkNodeAvailable(proxyNode);
-        long startNs = System.nanoTime();
-        try {
-            Store<ByteArray, byte[], byte[]> redirectingStore = getRedirectingSocketStore(getName(),
-                                                                                          proxyNodeId);
-            List<Versioned<byte[]>> values = redirectingStore.get(key, transform);
-            recordSuccess(proxyNode, startNs);
-            return values;
-        } catch(UnreachableStoreException e) {
-            recordException(proxyNode, startNs, e);
-            throw new ProxyUnreachableException("Failed to reach proxy node " + proxyNode, e);
-        }
-    }
-
     protected void checkNodeAvailable(Node proxyNode) {
         if(!failureDetector.isAvailable(proxyNode))
             throw new ProxyUnreachableException("Failed to reach proxy node " + proxyNode
@@ -610,36 +667,39 @@ public class RedirectingStore extends DelegatingStore<ByteArray, byte[], byte[]>
      * <p>
      * Stealer node should ignore {@link ObsoleteVersionException} while
      * commiting proxyValue to local storage.
+     * <p>
+     * Concurrent misses proxied to the same node are fetched together, as one
+     * getAll, by the {@link ProxyGetBatcher}.
      * 
      * @param key Key
      * @param proxyId proxy node id
-     * @return Returns the proxy value
-     * @throws VoldemortException if {@link #proxyGet(ByteArray, int)} fails
+     * @throws VoldemortException if the proxy getAll fails
      */
-    private List<Versioned<byte[]>> proxyGetAndLocalPut(ByteArray key,
-                                                        int proxyId,
-                                                        byte[] transforms)
+    private void proxyGetAndLocalPut(ByteArray key, int proxyId, byte[] transforms)
             throws VoldemortException {
-        List<Versioned<byte[]>> proxyValues = proxyGet(key, proxyId, transforms);
-        for(Versioned<byte[]> proxyValue: proxyValues) {
-            try {
-                getInnerStore().put(key, proxyValue, null);
-            } catch(ObsoleteVersionException e) {
-                // TODO this is in TRACE because OVE is expected here, for keys
-                // that are already moved over or proxy got. This will become
-                // ERROR later post redesign
-                if(logger.isTraceEnabled())
-                    logger.trace("OVE in proxy get local put for key "
-                                         + ByteUtils.toHexString(key.get()) + " Stealer:"
-                                         + metadata.getNodeId() + " ProxyNode:" + proxyId,
-                                 e);
+        proxyGetBatcher.fetch(proxyId, key, transforms, new ProxyGetBatcher.BatchFetcher() {
+
+            @Override
+            public void fetch(int proxyNodeId, Map<ByteArray, byte[]> keysToTransforms) {
+                Map<ByteArray, Integer> keyToProxyNodeMap = Maps.newHashMapWithExpectedSize(keysToTransforms.size());
+                Map<ByteArray, byte[]> transforms = null;
+                for(Map.Entry<ByteArray, byte[]> entry: keysToTransforms.entrySet()) {
+                    keyToProxyNodeMap.put(entry.getKey(), proxyNodeId);
+                    // the wire protocol has no room for null transforms
+                    if(entry.getValue() != null) {
+                        if(transforms == null)
+                            transforms = Maps.newHashMap();
+                        transforms.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                proxyPutStats.reportProxyGetBatch(keysToTransforms.size());
+                proxyGetAllAndLocalPut(keyToProxyNodeMap, transforms);
             }
-        }
-        return proxyValues;
+        });
     }
 
     /**
-     * Similar to {@link #proxyGetAndLocalPut(ByteArray, int)} but meant for
+     * Similar to {@link #proxyGetAndLocalPut(ByteArray, int, byte[])} but meant for
      * {@link #getAll(Iterable)}
      * 
      * @param keyToProxyNodeMap Map of keys which are being routed to their
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.retention;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+import voldemort.annotations.jmx.JmxGetter;
+import voldemort.annotations.jmx.JmxManaged;
+import voldemort.store.Store;
+import voldemort.utils.ByteArray;
+import voldemort.utils.DaemonThreadFactory;
+import voldemort.versioning.Version;
+
+/**
+ * Deletes the expired versions found by the reads of
+ * {@link RetentionEnforcingStore}s off the read path. Deletes are queued and
+ * applied in batches by a single background thread; when the queue is full
+ * further deletes are dropped and left for the retention cleanup job.
+ */
+@JmxManaged(description = "Deletes expired versions found by reads")
+public class ExpiredVersionDeleter {
+
+    private static final Logger logger = Logger.getLogger(ExpiredVersionDeleter.class);
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final BlockingQueue<ExpiredVersion> queue;
+    private final ExecutorService executor;
+    private final AtomicBoolean draining;
+    private final AtomicLong numDeleted;
+    private final AtomicLong numDropped;
+
+    private final Runnable drainTask = new Runnable() {
+
+        public void run() {
+            try {
+                drain();
+            } finally {
+                draining.set(false);
+                // deletes queued after the last drain would otherwise wait
+                // for the next read
+                if(!queue.isEmpty())
+                    maybeStartDrain();
+            }
+        }
+    };
+
+    public ExpiredVersionDeleter(int queueSize) {
+        this.queue = new ArrayBlockingQueue<ExpiredVersion>(queueSize);
+        this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory("voldemort-expired-delete-"));
+        this.draining = new AtomicBoolean(false);
+        this.numDeleted = new AtomicLong(0);
+        this.numDropped = new AtomicLong(0);
+    }
+
+    /**
+     * Queues the delete of an expired version
+     * 
+     * @param store The store to delete from
+     * @param key The key of the version
+     * @param version The expired version
+     * @return false if the queue is full and the delete was dropped
+     */
+    public boolean schedule(Store<ByteArray, byte[], byte[]> store, ByteArray key, Version version) {
+        if(!queue.offer(new ExpiredVersion(store, key, version))) {
+            numDropped.incrementAndGet();
+            return false;
+        }
+        maybeStartDrain();
+        return true;
+    }
+
+    private void maybeStartDrain() {
+        if(draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(drainTask);
+            } catch(RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        List<ExpiredVersion> batch = new ArrayList<ExpiredVersion>(MAX_BATCH_SIZE);
+        while(queue.drainTo(batch, MAX_BATCH_SIZE) > 0) {
+            for(ExpiredVersion expired: batch) {
+                try {
+                    expired.store.delete(expired.key, expired.version);
+                    numDeleted.incrementAndGet();
+                } catch(Exception e) {
+                    logger.warn("Failed to delete expired version " + expired.version + " of key "
+                                + expired.key + " from store " + expired.store.getName(), e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    @JmxGetter(name = "numExpiredVersionsDeleted", description = "The number of expired versions deleted after reads")
+    public long getNumDeleted() {
+        return numDeleted.get();
+    }
+
+    @JmxGetter(name = "numExpiredVersionDeletesDropped", description = "The number of deletes of expired versions dropped as the queue was full")
+    public long getNumDropped() {
+        return numDropped.get();
+    }
+
+    @JmxGetter(name = "expiredVersionDeleteQueueSize", description = "The number of deletes of expired versions waiting")
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the background thread, letting a drain in progress finish
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if(!executor.awaitTermination(10, TimeUnit.SECONDS))
+                executor.shutdownNow();
+        } catch(InterruptedException e) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class ExpiredVersion {
+
+        private final Store<ByteArray, byte[], byte[]> store;
+        private final ByteArray key;
+        private final Version version;
+
+        private ExpiredVersion(Store<ByteArray, byte[], byte[]> store,
+                               ByteArray key,
+                               Version version) {
+            this.store = store;
+            this.key = key;
+            this.version = version;
+        }
+    }
+}
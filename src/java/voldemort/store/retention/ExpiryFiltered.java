@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.retention;
+
+import java.util.List;
+
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A storage engine which can tell the time a version was written from its
+ * clock before reading its value, so that the retention checks on the read
+ * path never materialize the values of expired versions.
+ * 
+ * @param <K> The type of the key being stored
+ * @param <V> The type of the value being stored
+ * @param <T> The type of the transforms
+ */
+public interface ExpiryFiltered<K, V, T> {
+
+    /**
+     * Get the versions of the key written at or after the given time. The
+     * values of the older versions are skipped and only their clocks are
+     * handed back.
+     * 
+     * @param key The key to get
+     * @param transforms The transforms to apply, may be null
+     * @param writtenSinceMs The time the oldest version returned may have been
+     *        written at
+     * @param expiredVersions Receives the versions written before that time
+     * @return The versions written at or after the given time
+     */
+    public List<Versioned<V>> getWrittenSince(K key,
+                                              T transforms,
+                                              long writtenSinceMs,
+                                              List<Version> expiredVersions);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.retention;
+
+import voldemort.utils.ClosableIterator;
+
+/**
+ * A storage engine which can keep an index of its keys by the time their
+ * versions were written, so that the retention cleanup only has to visit the
+ * keys which may have expired instead of scanning the whole store.
+ * 
+ * The index only ever over approximates: a key it lists may have been
+ * rewritten or deleted since, so the versions found must still be checked.
+ * 
+ * @param <K> The type of the key being stored
+ */
+public interface ExpiryIndexed<K> {
+
+    /**
+     * Is every key of the store covered by the index? Keys written before the
+     * index was created are not, until {@link #indexForExpiry(Object, long)}
+     * has been called for all of them.
+     * 
+     * @return true if the expired keys can be found from the index alone
+     */
+    public boolean isExpiryIndexComplete();
+
+    /**
+     * Marks the index as covering every key of the store
+     */
+    public void setExpiryIndexComplete();
+
+    /**
+     * Adds a version of the key written at the given time to the index, to
+     * cover keys written before the index existed.
+     * 
+     * @param key The key written
+     * @param writtenMs The time the version was written at
+     */
+    public void indexForExpiry(K key, long writtenMs);
+
+    /**
+     * Get an iterator over the keys with versions written up to the given
+     * time, oldest first. The index entries of the keys handed out are
+     * dropped as the iteration moves past them, so a key is only returned
+     * again if it is written with an old timestamp again.
+     * 
+     * The index is coarse, so keys written slightly after the given time may
+     * be included as well.
+     * 
+     * Note that the iterator need not be threadsafe, and that it must be
+     * manually closed after use.
+     * 
+     * @param writtenBeforeMs The time up to which keys are returned
+     * @return An iterator over the keys that may hold expired versions
+     */
+    public ClosableIterator<K> keysWrittenBefore(long writtenBeforeMs);
+}
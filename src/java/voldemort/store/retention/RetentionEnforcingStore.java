@@ -1,5 +1,6 @@
 package voldemort.store.retention;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -8,18 +9,25 @@ import voldemort.VoldemortException;
 import voldemort.routing.RoutingStrategy;
 import voldemort.store.DelegatingStore;
 import voldemort.store.Store;
+import voldemort.store.StoreCapabilityType;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreUtils;
 import voldemort.store.metadata.MetadataStoreListener;
 import voldemort.utils.ByteArray;
 import voldemort.utils.Time;
 import voldemort.versioning.VectorClock;
+import voldemort.versioning.Version;
 import voldemort.versioning.Versioned;
 
 /**
  * Wraps the storage layer and ensures we don't return any values that are
  * stale. Optionally, deletes the expired versions.
  * 
+ * If the storage engine below offers the
+ * {@link StoreCapabilityType#EXPIRY_FILTER} capability, expired versions are
+ * dropped before their values are read. Deletes go through an
+ * {@link ExpiredVersionDeleter} when one is given, off the read path.
+ * 
  */
 public class RetentionEnforcingStore extends DelegatingStore<ByteArray, byte[], byte[]> implements
         MetadataStoreListener {
@@ -28,15 +36,30 @@ public class RetentionEnforcingStore extends DelegatingStore<ByteArray, byte[],
     private boolean deleteExpiredEntries;
     private volatile long retentionTimeMs;
     private Time time;
+    private final ExpiryFiltered<ByteArray, byte[], byte[]> expiryFilter;
+    private final ExpiredVersionDeleter deleter;
+
+    public RetentionEnforcingStore(Store<ByteArray, byte[], byte[]> innerStore,
+                                   StoreDefinition storeDef,
+                                   boolean deleteExpiredEntries,
+                                   Time time) {
+        this(innerStore, storeDef, deleteExpiredEntries, null, time);
+    }
 
+    @SuppressWarnings("unchecked")
     public RetentionEnforcingStore(Store<ByteArray, byte[], byte[]> innerStore,
                                    StoreDefinition storeDef,
                                    boolean deleteExpiredEntries,
+                                   ExpiredVersionDeleter deleter,
                                    Time time) {
         super(innerStore);
         updateStoreDefinition(storeDef);
         this.deleteExpiredEntries = deleteExpiredEntries;
+        this.deleter = deleter;
         this.time = time;
+        // the caching and logging layers in between filter reads themselves
+        this.expiryFilter = (ExpiryFiltered<ByteArray, byte[], byte[]>) StoreUtils.getCapabilityOrNull(innerStore,
+                                                                                                      StoreCapabilityType.EXPIRY_FILTER);
     }
 
     @Override
@@ -61,42 +84,83 @@ public class RetentionEnforcingStore extends DelegatingStore<ByteArray, byte[],
      * 
      * @param key the key whose value is to be deleted if needed
      * @param vals set of values to be filtered out
+     * @param writtenSinceMs the time the oldest valid version may have been
+     *        written at
      * @return filtered list of values which are currently valid
      */
-    private List<Versioned<byte[]>> filterExpiredEntries(ByteArray key, List<Versioned<byte[]>> vals) {
+    private List<Versioned<byte[]>> filterExpiredEntries(ByteArray key,
+                                                         List<Versioned<byte[]>> vals,
+                                                         long writtenSinceMs) {
         Iterator<Versioned<byte[]>> valsIterator = vals.iterator();
         while(valsIterator.hasNext()) {
             Versioned<byte[]> val = valsIterator.next();
             VectorClock clock = (VectorClock) val.getVersion();
             // omit if expired
-            if(clock.getTimestamp() < (time.getMilliseconds() - this.retentionTimeMs)) {
+            if(clock.getTimestamp() < writtenSinceMs) {
                 valsIterator.remove();
                 // delete stale value if configured
-                if(deleteExpiredEntries) {
-                    getInnerStore().delete(key, clock);
-                }
+                if(deleteExpiredEntries)
+                    deleteExpiredVersion(key, clock);
             }
         }
         return vals;
     }
 
+    private List<Versioned<byte[]>> getUnexpired(ByteArray key,
+                                                 byte[] transforms,
+                                                 long writtenSinceMs) {
+        if(expiryFilter == null)
+            return filterExpiredEntries(key, getInnerStore().get(key, transforms), writtenSinceMs);
+
+        List<Version> expiredVersions = deleteExpiredEntries ? new ArrayList<Version>(1) : null;
+        List<Versioned<byte[]>> vals = expiryFilter.getWrittenSince(key,
+                                                                    transforms,
+                                                                    writtenSinceMs,
+                                                                    expiredVersions);
+        if(expiredVersions != null) {
+            for(Version version: expiredVersions)
+                deleteExpiredVersion(key, version);
+        }
+        return vals;
+    }
+
+    private void deleteExpiredVersion(ByteArray key, Version version) {
+        if(deleter != null)
+            deleter.schedule(getInnerStore(), key, version);
+        else
+            getInnerStore().delete(key, version);
+    }
+
     @Override
     public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
                                                           Map<ByteArray, byte[]> transforms)
             throws VoldemortException {
         StoreUtils.assertValidKeys(keys);
-        Map<ByteArray, List<Versioned<byte[]>>> results = getInnerStore().getAll(keys, transforms);
         if(!storeDef.hasRetentionPeriod())
+            return getInnerStore().getAll(keys, transforms);
+
+        long writtenSinceMs = time.getMilliseconds() - this.retentionTimeMs;
+        if(expiryFilter != null) {
+            Map<ByteArray, List<Versioned<byte[]>>> results = StoreUtils.newEmptyHashMap(keys);
+            for(ByteArray key: keys) {
+                List<Versioned<byte[]>> vals = getUnexpired(key,
+                                                            transforms == null ? null
+                                                                              : transforms.get(key),
+                                                            writtenSinceMs);
+                if(!vals.isEmpty())
+                    results.put(key, vals);
+            }
             return results;
+        }
 
-        for(ByteArray key: results.keySet()) {
-            List<Versioned<byte[]>> filteredVals = filterExpiredEntries(key, results.get(key));
-            // remove/update the entry for the key, depending on how much is
-            // filtered
-            if(!filteredVals.isEmpty())
-                results.put(key, filteredVals);
-            else
-                results.remove(key);
+        Map<ByteArray, List<Versioned<byte[]>>> results = getInnerStore().getAll(keys, transforms);
+        Iterator<Map.Entry<ByteArray, List<Versioned<byte[]>>>> resultsIterator = results.entrySet()
+                                                                                         .iterator();
+        while(resultsIterator.hasNext()) {
+            Map.Entry<ByteArray, List<Versioned<byte[]>>> entry = resultsIterator.next();
+            // remove the entry for the key if everything is filtered
+            if(filterExpiredEntries(entry.getKey(), entry.getValue(), writtenSinceMs).isEmpty())
+                resultsIterator.remove();
         }
         return results;
     }
@@ -104,9 +168,8 @@ public class RetentionEnforcingStore extends DelegatingStore<ByteArray, byte[],
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms) throws VoldemortException {
         StoreUtils.assertValidKey(key);
-        List<Versioned<byte[]>> vals = getInnerStore().get(key, transforms);
         if(!storeDef.hasRetentionPeriod())
-            return vals;
-        return filterExpiredEntries(key, vals);
+            return getInnerStore().get(key, transforms);
+        return getUnexpired(key, transforms, time.getMilliseconds() - this.retentionTimeMs);
     }
 }
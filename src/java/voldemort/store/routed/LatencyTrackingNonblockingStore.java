@@ -0,0 +1,101 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import java.util.Map;
+
+import voldemort.VoldemortException;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Version;
+import voldemort.versioning.Versioned;
+
+/**
+ * A {@link NonblockingStore} decorator that feeds the request times and the
+ * number of requests in flight to a node into a {@link ReplicaLatencyTracker}
+ */
+public class LatencyTrackingNonblockingStore implements NonblockingStore {
+
+    private final NonblockingStore innerStore;
+
+    private final int nodeId;
+
+    private final ReplicaLatencyTracker tracker;
+
+    public LatencyTrackingNonblockingStore(NonblockingStore innerStore,
+                                           int nodeId,
+                                           ReplicaLatencyTracker tracker) {
+        this.innerStore = innerStore;
+        this.nodeId = nodeId;
+        this.tracker = tracker;
+    }
+
+    private NonblockingStoreCallback track(final NonblockingStoreCallback callback) {
+        tracker.recordRequestStart(nodeId);
+        return new NonblockingStoreCallback() {
+
+            public void requestComplete(Object result, long requestTime) {
+                tracker.recordRequestComplete(nodeId, requestTime);
+                callback.requestComplete(result, requestTime);
+            }
+        };
+    }
+
+    public void submitGetRequest(ByteArray key,
+                                 byte[] transforms,
+                                 NonblockingStoreCallback callback,
+                                 long timeoutMs) {
+        innerStore.submitGetRequest(key, transforms, track(callback), timeoutMs);
+    }
+
+    public void submitGetAllRequest(Iterable<ByteArray> keys,
+                                    Map<ByteArray, byte[]> transforms,
+                                    NonblockingStoreCallback callback,
+                                    long timeoutMs) {
+        innerStore.submitGetAllRequest(keys, transforms, track(callback), timeoutMs);
+    }
+
+    public void submitGetVersionsRequest(ByteArray key,
+                                         NonblockingStoreCallback callback,
+                                         long timeoutMs) {
+        innerStore.submitGetVersionsRequest(key, track(callback), timeoutMs);
+    }
+
+    public void submitPutRequest(ByteArray key,
+                                 Versioned<byte[]> value,
+                                 byte[] transforms,
+                                 NonblockingStoreCallback callback,
+                                 long timeoutMs) {
+        innerStore.submitPutRequest(key, value, transforms, track(callback), timeoutMs);
+    }
+
+    public void submitDeleteRequest(ByteArray key,
+                                    Version version,
+                                    NonblockingStoreCallback callback,
+                                    long timeoutMs) {
+        innerStore.submitDeleteRequest(key, version, track(callback), timeoutMs);
+    }
+
+    public void close() throws VoldemortException {
+        innerStore.close();
+    }
+
+    public NonblockingStore getInnerStore() {
+        return innerStore;
+    }
+}
@@ -49,6 +49,7 @@ public class Pipeline {
     public enum Event {
 
         STARTED,
+        REPLICAS_SELECTED,
         CONFIGURED,
         COMPLETED,
         INSUFFICIENT_SUCCESSES,
@@ -11,6 +11,7 @@ import voldemort.store.InsufficientZoneResponsesException;
 import voldemort.store.InvalidMetadataException;
 import voldemort.store.StoreTimeoutException;
 import voldemort.store.UnreachableStoreException;
+import voldemort.store.stats.Histogram;
 import voldemort.versioning.ObsoleteVersionException;
 
 /**
@@ -21,9 +22,15 @@ import voldemort.versioning.ObsoleteVersionException;
  */
 public class PipelineRoutedStats {
 
+    private static final int LATENCY_HISTOGRAM_BUCKETS = 1000;
+    private static final long LATENCY_HISTOGRAM_RESET_INTERVAL_MS = 60 * 1000;
+
     protected ConcurrentHashMap<Class<? extends Exception>, AtomicLong> errCountMap;
     protected AtomicLong severeExceptionCount;
     protected AtomicLong benignExceptionCount;
+    protected Histogram getLatencyMsHistogram;
+    protected Histogram getAllLatencyMsHistogram;
+    protected AtomicLong hedgedRequestCount;
 
     protected PipelineRoutedStats() {
         errCountMap = new ConcurrentHashMap<Class<? extends Exception>, AtomicLong>();
@@ -36,6 +43,14 @@ public class PipelineRoutedStats {
 
         severeExceptionCount = new AtomicLong(0);
         benignExceptionCount = new AtomicLong(0);
+
+        getLatencyMsHistogram = new Histogram(LATENCY_HISTOGRAM_BUCKETS,
+                                              1,
+                                              LATENCY_HISTOGRAM_RESET_INTERVAL_MS);
+        getAllLatencyMsHistogram = new Histogram(LATENCY_HISTOGRAM_BUCKETS,
+                                                 1,
+                                                 LATENCY_HISTOGRAM_RESET_INTERVAL_MS);
+        hedgedRequestCount = new AtomicLong(0);
     }
 
     @JmxGetter(name = "numSevereExceptions", description = "Number of exceptions considered serious errors")
@@ -90,6 +105,41 @@ public class PipelineRoutedStats {
         return result.toString();
     }
 
+    @JmxGetter(name = "numHedgedRequests", description = "Number of duplicate read requests sent to another replica because the first ones were slow")
+    public long getNumHedgedRequests() {
+        return hedgedRequestCount.get();
+    }
+
+    @JmxGetter(name = "getLatency95thPercentileMs", description = "95th percentile of get response times from a single replica, over the last minute")
+    public long getGetLatency95thPercentileMs() {
+        return getLatencyMsHistogram.getQuantile(0.95);
+    }
+
+    @JmxGetter(name = "getAllLatency95thPercentileMs", description = "95th percentile of getAll response times from a single replica, over the last minute")
+    public long getGetAllLatency95thPercentileMs() {
+        return getAllLatencyMsHistogram.getQuantile(0.95);
+    }
+
+    /**
+     * Response times of single replicas for gets (and getVersions). Only
+     * recorded when read hedging is enabled.
+     */
+    public Histogram getGetLatencyMsHistogram() {
+        return getLatencyMsHistogram;
+    }
+
+    /**
+     * Response times of single replicas for getAlls. Only recorded when read
+     * hedging is enabled.
+     */
+    public Histogram getGetAllLatencyMsHistogram() {
+        return getAllLatencyMsHistogram;
+    }
+
+    public void reportHedgedRequest() {
+        hedgedRequestCount.incrementAndGet();
+    }
+
     public void reportException(Exception e) {
         if(isSevere(e))
             severeExceptionCount.incrementAndGet();
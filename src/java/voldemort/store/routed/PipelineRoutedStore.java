@@ -61,6 +61,7 @@ import voldemort.store.routed.action.PerformSerialPutRequests;
 import voldemort.store.routed.action.PerformSerialRequests;
 import voldemort.store.routed.action.PerformZoneSerialRequests;
 import voldemort.store.routed.action.ReadRepair;
+import voldemort.store.routed.action.ReorderNodesByLatency;
 import voldemort.store.slop.HintedHandoff;
 import voldemort.store.slop.Slop;
 import voldemort.store.slop.strategy.HintedHandoffStrategy;
@@ -89,6 +90,9 @@ public class PipelineRoutedStore extends RoutedStore {
     private boolean jmxEnabled;
     private int jmxId;
     private ZoneAffinity zoneAffinity;
+    private ReplicaLatencyTracker replicaLatencyTracker;
+    private ReadHedgingPolicy getHedgingPolicy;
+    private ReadHedgingPolicy getAllHedgingPolicy;
 
     private enum ConfigureNodesType {
         DEFAULT,
@@ -107,7 +111,12 @@ public class PipelineRoutedStore extends RoutedStore {
      * @param nonblockingSlopStores
      * @param cluster Cluster definition
      * @param storeDef Store definition
+     * @deprecated Use
+     *             {@link #PipelineRoutedStore(Map, Map, Map, Map, Cluster, StoreDefinition, FailureDetector, RoutedStoreConfig)}
+     *             instead, which takes the routing options that came after
+     *             these, such as adaptive replica selection and hedged reads
      */
+    @Deprecated
     public PipelineRoutedStore(Map<Integer, Store<ByteArray, byte[], byte[]>> innerStores,
                                Map<Integer, NonblockingStore> nonblockingStores,
                                Map<Integer, Store<ByteArray, Slop, byte[]>> slopStores,
@@ -121,14 +130,51 @@ public class PipelineRoutedStore extends RoutedStore {
                                boolean isJmxEnabled,
                                int jmxId,
                                ZoneAffinity zoneAffinity) {
+        this(innerStores,
+             nonblockingStores,
+             slopStores,
+             nonblockingSlopStores,
+             cluster,
+             storeDef,
+             failureDetector,
+             new RoutedStoreConfig().setRepairReads(repairReads)
+                                    .setTimeoutConfig(timeoutConfig)
+                                    .setClientZoneId(clientZoneId)
+                                    .setJmxEnabled(isJmxEnabled)
+                                    .setJmxId(jmxId)
+                                    .setZoneAffinity(zoneAffinity));
+    }
+
+    /**
+     * Create a PipelineRoutedStore
+     * 
+     * @param innerStores The mapping of node to client
+     * @param nonblockingStores
+     * @param slopStores The stores for hints
+     * @param nonblockingSlopStores
+     * @param cluster Cluster definition
+     * @param storeDef Store definition
+     * @param failureDetector
+     * @param routedStoreConfig Routing options, such as timeouts, zone affinity
+     *        and replica selection
+     */
+    public PipelineRoutedStore(Map<Integer, Store<ByteArray, byte[], byte[]>> innerStores,
+                               Map<Integer, NonblockingStore> nonblockingStores,
+                               Map<Integer, Store<ByteArray, Slop, byte[]>> slopStores,
+                               Map<Integer, NonblockingStore> nonblockingSlopStores,
+                               Cluster cluster,
+                               StoreDefinition storeDef,
+                               FailureDetector failureDetector,
+                               RoutedStoreConfig routedStoreConfig) {
         super(storeDef.getName(),
               innerStores,
               cluster,
               storeDef,
-              repairReads,
-              timeoutConfig,
+              routedStoreConfig.getRepairReads(),
+              routedStoreConfig.getTimeoutConfig(),
               failureDetector,
               SystemTime.INSTANCE);
+        ZoneAffinity zoneAffinity = routedStoreConfig.getZoneAffinity();
         if(zoneAffinity != null && storeDef.getZoneCountReads() != null
            && storeDef.getZoneCountReads() > 0) {
             if(zoneAffinity.isGetOpZoneAffinityEnabled()) {
@@ -139,8 +185,18 @@ public class PipelineRoutedStore extends RoutedStore {
             }
         }
         this.nonblockingSlopStores = nonblockingSlopStores;
-        this.clientZone = cluster.getZoneById(clientZoneId);
+        this.clientZone = cluster.getZoneById(routedStoreConfig.getClientZoneId());
         this.nonblockingStores = new ConcurrentHashMap<Integer, NonblockingStore>(nonblockingStores);
+        if(routedStoreConfig.isAdaptiveReplicaSelection()) {
+            this.replicaLatencyTracker = new ReplicaLatencyTracker();
+            for(Map.Entry<Integer, NonblockingStore> entry: nonblockingStores.entrySet())
+                this.nonblockingStores.put(entry.getKey(),
+                                           new LatencyTrackingNonblockingStore(entry.getValue(),
+                                                                               entry.getKey(),
+                                                                               replicaLatencyTracker));
+        } else {
+            this.replicaLatencyTracker = null;
+        }
         this.slopStores = slopStores;
         if(storeDef.getRoutingStrategyType().compareTo(RoutingStrategyType.ZONE_STRATEGY) == 0) {
             zoneRoutingEnabled = true;
@@ -155,10 +211,18 @@ public class PipelineRoutedStore extends RoutedStore {
             this.handoffStrategy = null;
         }
 
-        this.jmxEnabled = isJmxEnabled;
-        this.jmxId = jmxId;
+        this.jmxEnabled = routedStoreConfig.isJmxEnabled();
+        this.jmxId = routedStoreConfig.getJmxId();
+        this.stats = new PipelineRoutedStats();
+        if(routedStoreConfig.isHedgedReads()) {
+            this.getHedgingPolicy = new ReadHedgingPolicy(stats.getGetLatencyMsHistogram(),
+                                                          routedStoreConfig.getHedgedReadsPercentile(),
+                                                          routedStoreConfig.getHedgedReadsMaxRatio());
+            this.getAllHedgingPolicy = new ReadHedgingPolicy(stats.getGetAllLatencyMsHistogram(),
+                                                             routedStoreConfig.getHedgedReadsPercentile(),
+                                                             routedStoreConfig.getHedgedReadsMaxRatio());
+        }
         if(this.jmxEnabled) {
-            stats = new PipelineRoutedStats();
             JmxUtils.registerMbean(stats,
                                    JmxUtils.createObjectName(JmxUtils.getPackageName(stats.getClass()),
                                                              getName()
@@ -195,17 +259,21 @@ public class PipelineRoutedStore extends RoutedStore {
 
     private AbstractConfigureNodes<ByteArray, List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>> makeNodeConfigurationForGet(BasicPipelineData<List<Versioned<byte[]>>> pipelineData,
                                                                                                                                                ByteArray key) {
+        // replicas are ordered by latency once selected, unless the routing
+        // strategy prefers the local host
+        Event selectedEvent = replicaLatencyTracker != null ? Event.REPLICAS_SELECTED
+                                                            : Event.CONFIGURED;
         switch(obtainNodeConfigurationType(pipelineData.getZonesRequired(), Operation.GET)) {
             case DEFAULT:
                 return new ConfigureNodesDefault<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
-                                                                                                                      Event.CONFIGURED,
+                                                                                                                      selectedEvent,
                                                                                                                       failureDetector,
                                                                                                                       storeDef.getRequiredReads(),
                                                                                                                       routingStrategy,
                                                                                                                       key);
             case BYZONE:
                 return new ConfigureNodesByZone<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
-                                                                                                                     Event.CONFIGURED,
+                                                                                                                     selectedEvent,
                                                                                                                      failureDetector,
                                                                                                                      storeDef.getRequiredReads(),
                                                                                                                      routingStrategy,
@@ -228,7 +296,7 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                               clientZone);
             case LOCAL_ZONE_ONLY:
                 return new ConfigureNodesLocalZoneOnly<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
-                                                                                                                            Event.CONFIGURED,
+                                                                                                                            selectedEvent,
                                                                                                                             failureDetector,
                                                                                                                             storeDef.getRequiredReads(),
                                                                                                                             routingStrategy,
@@ -284,6 +352,11 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                                                             key);
 
         pipeline.addEventAction(Event.STARTED, configureNodes);
+        if(replicaLatencyTracker != null)
+            pipeline.addEventAction(Event.REPLICAS_SELECTED,
+                                    new ReorderNodesByLatency<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
+                                                                                                                                   Event.CONFIGURED,
+                                                                                                                                   replicaLatencyTracker));
 
         pipeline.addEventAction(Event.CONFIGURED,
                                 new PerformParallelRequests<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
@@ -297,7 +370,8 @@ public class PipelineRoutedStore extends RoutedStore {
                                                                                                                                  getOpTimeout,
                                                                                                                                  nonblockingStores,
                                                                                                                                  Event.INSUFFICIENT_SUCCESSES,
-                                                                                                                                 Event.INSUFFICIENT_ZONES));
+                                                                                                                                 Event.INSUFFICIENT_ZONES,
+                                                                                                                                 getHedgingPolicy));
         pipeline.addEventAction(Event.INSUFFICIENT_SUCCESSES,
                                 new PerformSerialRequests<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
                                                                                                                                allowReadRepair ? Event.RESPONSES_RECEIVED
@@ -424,13 +498,15 @@ public class PipelineRoutedStore extends RoutedStore {
                                                          keys,
                                                          transforms,
                                                          clientZone,
-                                                         zoneAffinity));
+                                                         zoneAffinity,
+                                                         replicaLatencyTracker));
         pipeline.addEventAction(Event.CONFIGURED,
                                 new PerformParallelGetAllRequests(pipelineData,
                                                                   Event.INSUFFICIENT_SUCCESSES,
                                                                   failureDetector,
                                                                   getAllOpTimeoutInMs,
-                                                                  nonblockingStores));
+                                                                  nonblockingStores,
+                                                                  getAllHedgingPolicy));
         pipeline.addEventAction(Event.INSUFFICIENT_SUCCESSES,
                                 new PerformSerialGetAllRequests(pipelineData,
                                                                 allowReadRepair ? Event.RESPONSES_RECEIVED
@@ -528,10 +604,12 @@ public class PipelineRoutedStore extends RoutedStore {
 
         };
 
+        Event selectedEvent = replicaLatencyTracker != null ? Event.REPLICAS_SELECTED
+                                                            : Event.CONFIGURED;
         if(zoneAffinity.isGetVersionsOpZoneAffinityEnabled()) {
             pipeline.addEventAction(Event.STARTED,
                                     new ConfigureNodesLocalZoneOnly<List<Version>, BasicPipelineData<List<Version>>>(pipelineData,
-                                                                                                                     Event.CONFIGURED,
+                                                                                                                     selectedEvent,
                                                                                                                      failureDetector,
                                                                                                                      storeDef.getRequiredReads(),
                                                                                                                      routingStrategy,
@@ -540,13 +618,18 @@ public class PipelineRoutedStore extends RoutedStore {
         } else {
             pipeline.addEventAction(Event.STARTED,
                                     new ConfigureNodes<List<Version>, BasicPipelineData<List<Version>>>(pipelineData,
-                                                                                                        Event.CONFIGURED,
+                                                                                                        selectedEvent,
                                                                                                         failureDetector,
                                                                                                         storeDef.getRequiredReads(),
                                                                                                         routingStrategy,
                                                                                                         key,
                                                                                                         clientZone));
         }
+        if(replicaLatencyTracker != null)
+            pipeline.addEventAction(Event.REPLICAS_SELECTED,
+                                    new ReorderNodesByLatency<List<Version>, BasicPipelineData<List<Version>>>(pipelineData,
+                                                                                                               Event.CONFIGURED,
+                                                                                                               replicaLatencyTracker));
         pipeline.addEventAction(Event.CONFIGURED,
                                 new PerformParallelRequests<List<Version>, BasicPipelineData<List<Version>>>(pipelineData,
                                                                                                              Event.COMPLETED,
@@ -945,6 +1028,14 @@ public class PipelineRoutedStore extends RoutedStore {
         return delete(request.getKey(), request.getVersion(), request.getRoutingTimeoutInMs());
     }
 
+    /**
+     * @return The latency tracker used to order replicas, or null if adaptive
+     *         replica selection is disabled
+     */
+    public ReplicaLatencyTracker getReplicaLatencyTracker() {
+        return replicaLatencyTracker;
+    }
+
     public static boolean isSlopableFailure(Object response) {
         return response instanceof UnreachableStoreException
                || response instanceof PersistenceFailureException;
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import voldemort.store.stats.Histogram;
+import voldemort.utils.SystemTime;
+import voldemort.utils.Time;
+
+/**
+ * Decides when a read that is waiting on a slow replica should be hedged, i.e.
+ * duplicated to the next replica in the preference list.
+ * 
+ * A read is hedged once it has waited longer than a percentile (by default
+ * the 95th) of the recent response times of the store. Hedges are paid for
+ * out of a budget that grows by the configured ratio with every read, so the
+ * duplicate traffic never exceeds that share of the reads, no matter how slow
+ * the cluster gets.
+ */
+public class ReadHedgingPolicy {
+
+    public static final double DEFAULT_PERCENTILE = 0.95;
+
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.05;
+
+    /**
+     * Do not hedge until the percentile is backed by this many samples
+     */
+    private static final int MIN_SAMPLES = 100;
+
+    private static final long REFRESH_INTERVAL_MS = 1000;
+
+    /**
+     * Upper bound of the budget, which limits the burst of hedges after a
+     * quiet period
+     */
+    private static final double MAX_BUDGET = 10;
+
+    private final Histogram latencyMsHistogram;
+
+    private final double percentile;
+
+    private final double maxHedgeRatio;
+
+    private final Time time;
+
+    private volatile long hedgeDelayMs = -1;
+
+    private volatile long lastRefreshMs = 0;
+
+    private double budget = 0;
+
+    public ReadHedgingPolicy(Histogram latencyMsHistogram, double percentile, double maxHedgeRatio) {
+        this(latencyMsHistogram, percentile, maxHedgeRatio, SystemTime.INSTANCE);
+    }
+
+    public ReadHedgingPolicy(Histogram latencyMsHistogram,
+                             double percentile,
+                             double maxHedgeRatio,
+                             Time time) {
+        if(percentile <= 0 || percentile > 1)
+            throw new IllegalArgumentException("Hedging percentile must be in (0, 1]");
+        if(maxHedgeRatio < 0 || maxHedgeRatio > 1)
+            throw new IllegalArgumentException("Maximum hedge ratio must be in [0, 1]");
+        this.latencyMsHistogram = latencyMsHistogram;
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.time = time;
+    }
+
+    /**
+     * Records the response time of a single replica
+     */
+    public void recordLatency(long latencyMs) {
+        latencyMsHistogram.insert(latencyMs);
+    }
+
+    /**
+     * Records a read that may be hedged, adding to the hedging budget
+     */
+    public synchronized void recordRequest() {
+        budget = Math.min(MAX_BUDGET, budget + maxHedgeRatio);
+    }
+
+    /**
+     * Takes one hedge out of the budget
+     * 
+     * @return true if the budget allows for one more hedge
+     */
+    public synchronized boolean tryAcquireHedge() {
+        if(budget < 1)
+            return false;
+        budget -= 1;
+        return true;
+    }
+
+    /**
+     * @return How long to wait for the replicas before hedging, or -1 if there
+     *         are not enough samples yet to tell a slow response apart
+     */
+    public long getHedgeDelayMs() {
+        long now = time.getMilliseconds();
+        if(now - lastRefreshMs >= REFRESH_INTERVAL_MS) {
+            lastRefreshMs = now;
+            // keep the last known delay across histogram resets
+            if(latencyMsHistogram.getCount() >= MIN_SAMPLES)
+                hedgeDelayMs = Math.max(1, latencyMsHistogram.getQuantile(percentile));
+        }
+        return hedgeDelayMs;
+    }
+}
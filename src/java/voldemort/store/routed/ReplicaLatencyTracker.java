@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import voldemort.cluster.Node;
+import voldemort.utils.SystemTime;
+import voldemort.utils.Time;
+
+/**
+ * Keeps an exponentially weighted moving average of the response time and the
+ * number of outstanding requests for every node a routed store talks to, and
+ * uses them to order a preference list so that the fastest healthy replicas
+ * are contacted first.
+ * 
+ * The score of a node is its latency average multiplied by one more than its
+ * outstanding requests, so a fast node that starts queueing requests gives way
+ * to its peers before it gets overloaded. The average decays towards zero
+ * while a node is not being sampled, so a node that was slow at some point
+ * gets probed again instead of being starved forever.
+ */
+public class ReplicaLatencyTracker {
+
+    public static final double DEFAULT_SMOOTHING_FACTOR = 0.2;
+
+    public static final long DEFAULT_DECAY_HALF_LIFE_MS = 10 * 1000;
+
+    /**
+     * The static preference order is only overridden when the first replica
+     * scores this much worse than the best one, so that nodes with similar
+     * latencies keep their share of the traffic
+     */
+    public static final double DEFAULT_REORDER_THRESHOLD = 0.5;
+
+    private final ConcurrentMap<Integer, NodeLatency> nodeLatencies;
+
+    private final double smoothingFactor;
+
+    private final long decayHalfLifeMs;
+
+    private final double reorderThreshold;
+
+    private final Time time;
+
+    public ReplicaLatencyTracker() {
+        this(DEFAULT_SMOOTHING_FACTOR,
+             DEFAULT_DECAY_HALF_LIFE_MS,
+             DEFAULT_REORDER_THRESHOLD,
+             SystemTime.INSTANCE);
+    }
+
+    public ReplicaLatencyTracker(double smoothingFactor,
+                                 long decayHalfLifeMs,
+                                 double reorderThreshold,
+                                 Time time) {
+        if(smoothingFactor <= 0 || smoothingFactor > 1)
+            throw new IllegalArgumentException("Smoothing factor must be in (0, 1]");
+        this.nodeLatencies = new ConcurrentHashMap<Integer, NodeLatency>();
+        this.smoothingFactor = smoothingFactor;
+        this.decayHalfLifeMs = decayHalfLifeMs;
+        this.reorderThreshold = reorderThreshold;
+        this.time = time;
+    }
+
+    private NodeLatency getNodeLatency(int nodeId) {
+        NodeLatency latency = nodeLatencies.get(nodeId);
+        if(latency == null) {
+            nodeLatencies.putIfAbsent(nodeId, new NodeLatency());
+            latency = nodeLatencies.get(nodeId);
+        }
+        return latency;
+    }
+
+    public void recordRequestStart(int nodeId) {
+        getNodeLatency(nodeId).outstanding.incrementAndGet();
+    }
+
+    public void recordRequestComplete(int nodeId, long requestTimeMs) {
+        NodeLatency latency = getNodeLatency(nodeId);
+        latency.outstanding.decrementAndGet();
+        latency.sample(requestTimeMs, time.getMilliseconds());
+    }
+
+    /**
+     * @return The current score of the node, lower is better. Nodes that have
+     *         never been sampled score 0.
+     */
+    public double getScore(int nodeId) {
+        NodeLatency latency = nodeLatencies.get(nodeId);
+        if(latency == null)
+            return 0;
+        return latency.getDecayedAverageMs(time.getMilliseconds())
+               * (1 + Math.max(0, latency.outstanding.get()));
+    }
+
+    public int getOutstandingRequests(int nodeId) {
+        NodeLatency latency = nodeLatencies.get(nodeId);
+        return latency == null ? 0 : Math.max(0, latency.outstanding.get());
+    }
+
+    /**
+     * Order the given preference list by latency score. Only nodes of the
+     * same zone swap places with each other, so the zone of every position in
+     * the list (and thereby any zone count requirement the list was built for)
+     * is preserved.
+     * 
+     * @param nodes Preference list, as configured by the routing strategy
+     * @return A new list with the same nodes, fastest first within each zone
+     */
+    public List<Node> orderByLatency(List<Node> nodes) {
+        if(nodes.size() < 2)
+            return nodes;
+
+        final Map<Integer, Double> scores = new HashMap<Integer, Double>();
+        Map<Integer, List<Node>> zoneIdToNodes = new LinkedHashMap<Integer, List<Node>>();
+        for(Node node: nodes) {
+            scores.put(node.getId(), getScore(node.getId()));
+            List<Node> zoneNodes = zoneIdToNodes.get(node.getZoneId());
+            if(zoneNodes == null) {
+                zoneNodes = new ArrayList<Node>();
+                zoneIdToNodes.put(node.getZoneId(), zoneNodes);
+            }
+            zoneNodes.add(node);
+        }
+
+        Comparator<Node> byScore = new Comparator<Node>() {
+
+            public int compare(Node n1, Node n2) {
+                return Double.compare(scores.get(n1.getId()), scores.get(n2.getId()));
+            }
+        };
+        for(List<Node> zoneNodes: zoneIdToNodes.values()) {
+            if(zoneNodes.size() < 2)
+                continue;
+            double first = scores.get(zoneNodes.get(0).getId());
+            double best = scores.get(Collections.min(zoneNodes, byScore).getId());
+            if(first > best * (1 + reorderThreshold))
+                Collections.sort(zoneNodes, byScore);
+        }
+
+        List<Node> ordered = new ArrayList<Node>(nodes.size());
+        Map<Integer, Integer> zoneIdToIndex = new HashMap<Integer, Integer>();
+        for(Node node: nodes) {
+            Integer index = zoneIdToIndex.get(node.getZoneId());
+            if(index == null)
+                index = 0;
+            ordered.add(zoneIdToNodes.get(node.getZoneId()).get(index));
+            zoneIdToIndex.put(node.getZoneId(), index + 1);
+        }
+        return ordered;
+    }
+
+    public String getScoresAsString() {
+        StringBuilder builder = new StringBuilder();
+        for(Map.Entry<Integer, NodeLatency> entry: nodeLatencies.entrySet()) {
+            builder.append(entry.getKey())
+                   .append(":")
+                   .append(String.format("%.2f", getScore(entry.getKey())))
+                   .append(" (outstanding=")
+                   .append(Math.max(0, entry.getValue().outstanding.get()))
+                   .append(")\n");
+        }
+        return builder.toString();
+    }
+
+    private class NodeLatency {
+
+        private final AtomicInteger outstanding = new AtomicInteger(0);
+
+        private double averageMs = -1;
+
+        private long lastSampleMs;
+
+        private synchronized void sample(long requestTimeMs, long nowMs) {
+            if(averageMs < 0)
+                averageMs = requestTimeMs;
+            else
+                averageMs = smoothingFactor * requestTimeMs + (1 - smoothingFactor)
+                            * getDecayedAverageMs(nowMs);
+            lastSampleMs = nowMs;
+        }
+
+        private synchronized double getDecayedAverageMs(long nowMs) {
+            if(averageMs < 0)
+                return 0;
+            long elapsedMs = nowMs - lastSampleMs;
+            if(elapsedMs <= 0 || decayHalfLifeMs <= 0)
+                return averageMs;
+            return averageMs * Math.pow(0.5, (double) elapsedMs / decayHalfLifeMs);
+        }
+    }
+}
@@ -29,6 +29,10 @@ public class RoutedStoreConfig {
     private int jmxId = 0;
     private int clientZoneId = Zone.DEFAULT_ZONE_ID;
     private ZoneAffinity zoneAffinity = new ZoneAffinity();
+    private boolean adaptiveReplicaSelection = false;
+    private boolean hedgedReads = false;
+    private double hedgedReadsPercentile = ReadHedgingPolicy.DEFAULT_PERCENTILE;
+    private double hedgedReadsMaxRatio = ReadHedgingPolicy.DEFAULT_MAX_HEDGE_RATIO;
 
     public RoutedStoreConfig() {}
 
@@ -37,6 +41,10 @@ public class RoutedStoreConfig {
         this.clientZoneId = clientConfig.getClientZoneId();
         this.timeoutConfig = clientConfig.getTimeoutConfig();
         this.zoneAffinity = clientConfig.getZoneAffinity();
+        this.adaptiveReplicaSelection = clientConfig.isEnableAdaptiveReplicaSelection();
+        this.hedgedReads = clientConfig.isEnableHedgedReads();
+        this.hedgedReadsPercentile = clientConfig.getHedgedReadsPercentile();
+        this.hedgedReadsMaxRatio = clientConfig.getHedgedReadsMaxRatio();
     }
 
     public RoutedStoreConfig(VoldemortConfig voldemortConfig) {
@@ -97,4 +105,40 @@ public class RoutedStoreConfig {
         this.zoneAffinity = zoneAffinity;
         return this;
     }
+
+    public boolean isAdaptiveReplicaSelection() {
+        return adaptiveReplicaSelection;
+    }
+
+    public RoutedStoreConfig setAdaptiveReplicaSelection(boolean adaptiveReplicaSelection) {
+        this.adaptiveReplicaSelection = adaptiveReplicaSelection;
+        return this;
+    }
+
+    public boolean isHedgedReads() {
+        return hedgedReads;
+    }
+
+    public RoutedStoreConfig setHedgedReads(boolean hedgedReads) {
+        this.hedgedReads = hedgedReads;
+        return this;
+    }
+
+    public double getHedgedReadsPercentile() {
+        return hedgedReadsPercentile;
+    }
+
+    public RoutedStoreConfig setHedgedReadsPercentile(double hedgedReadsPercentile) {
+        this.hedgedReadsPercentile = hedgedReadsPercentile;
+        return this;
+    }
+
+    public double getHedgedReadsMaxRatio() {
+        return hedgedReadsMaxRatio;
+    }
+
+    public RoutedStoreConfig setHedgedReadsMaxRatio(double hedgedReadsMaxRatio) {
+        this.hedgedReadsMaxRatio = hedgedReadsMaxRatio;
+        return this;
+    }
 }
@@ -90,11 +90,6 @@ public class RoutedStoreFactory {
                                        cluster,
                                        storeDefinition,
                                        failureDetector,
-                                       routedStoreConfig.getRepairReads(),
-                                       routedStoreConfig.getTimeoutConfig(),
-                                       routedStoreConfig.getClientZoneId(),
-                                       routedStoreConfig.isJmxEnabled(),
-                                       routedStoreConfig.getJmxId(),
-                                       routedStoreConfig.getZoneAffinity());
+                                       routedStoreConfig);
     }
 }
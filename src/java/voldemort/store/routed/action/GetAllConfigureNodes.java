@@ -31,6 +31,7 @@ import voldemort.routing.RoutingStrategy;
 import voldemort.store.routed.GetAllPipelineData;
 import voldemort.store.routed.Pipeline;
 import voldemort.store.routed.Pipeline.Event;
+import voldemort.store.routed.ReplicaLatencyTracker;
 import voldemort.utils.ByteArray;
 import voldemort.versioning.Versioned;
 
@@ -51,6 +52,8 @@ public class GetAllConfigureNodes
 
     private final ZoneAffinity zoneAffinity;
 
+    private final ReplicaLatencyTracker replicaLatencyTracker;
+
     public GetAllConfigureNodes(GetAllPipelineData pipelineData,
                                 Event completeEvent,
                                 FailureDetector failureDetector,
@@ -61,12 +64,41 @@ public class GetAllConfigureNodes
                                 Map<ByteArray, byte[]> transforms,
                                 Zone clientZone,
                                 ZoneAffinity zoneAffinity) {
+        this(pipelineData,
+             completeEvent,
+             failureDetector,
+             preferred,
+             required,
+             routingStrategy,
+             keys,
+             transforms,
+             clientZone,
+             zoneAffinity,
+             null);
+    }
+
+    /**
+     * @param replicaLatencyTracker If not null, the replicas of every key are
+     *        ordered by latency before picking the preferred ones
+     */
+    public GetAllConfigureNodes(GetAllPipelineData pipelineData,
+                                Event completeEvent,
+                                FailureDetector failureDetector,
+                                int preferred,
+                                int required,
+                                RoutingStrategy routingStrategy,
+                                Iterable<ByteArray> keys,
+                                Map<ByteArray, byte[]> transforms,
+                                Zone clientZone,
+                                ZoneAffinity zoneAffinity,
+                                ReplicaLatencyTracker replicaLatencyTracker) {
         super(pipelineData, completeEvent, failureDetector, required, routingStrategy);
         this.preferred = preferred;
         this.keys = keys;
         this.transforms = transforms;
         this.clientZone = clientZone;
         this.zoneAffinity = zoneAffinity;
+        this.replicaLatencyTracker = replicaLatencyTracker;
     }
 
     public void execute(Pipeline pipeline) {
@@ -147,6 +179,9 @@ public class GetAllConfigureNodes
 
             }
 
+            if(replicaLatencyTracker != null)
+                nodes = replicaLatencyTracker.orderByLatency(nodes);
+
             for(Node node: nodes) {
                 if(preferredNodes.size() < preferred)
                     preferredNodes.add(node);
@@ -17,12 +17,17 @@
 package voldemort.store.routed.action;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.log4j.Level;
@@ -35,11 +40,13 @@ import voldemort.store.nonblockingstore.NonblockingStoreCallback;
 import voldemort.store.routed.GetAllPipelineData;
 import voldemort.store.routed.Pipeline;
 import voldemort.store.routed.Pipeline.Event;
+import voldemort.store.routed.ReadHedgingPolicy;
 import voldemort.store.routed.Response;
 import voldemort.utils.ByteArray;
 import voldemort.versioning.Versioned;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class PerformParallelGetAllRequests
         extends
@@ -51,81 +58,89 @@ public class PerformParallelGetAllRequests
 
     private final FailureDetector failureDetector;
 
+    private final ReadHedgingPolicy hedgingPolicy;
+
     public PerformParallelGetAllRequests(GetAllPipelineData pipelineData,
                                          Event completeEvent,
                                          FailureDetector failureDetector,
                                          long timeoutMs,
                                          Map<Integer, NonblockingStore> nonblockingStores) {
+        this(pipelineData, completeEvent, failureDetector, timeoutMs, nonblockingStores, null);
+    }
+
+    /**
+     * @param hedgingPolicy If not null, the keys of the nodes that are slower
+     *        than the policy allows are also requested from the next node in
+     *        their preference lists, and the first responses to arrive are
+     *        used
+     */
+    public PerformParallelGetAllRequests(GetAllPipelineData pipelineData,
+                                         Event completeEvent,
+                                         FailureDetector failureDetector,
+                                         long timeoutMs,
+                                         Map<Integer, NonblockingStore> nonblockingStores,
+                                         ReadHedgingPolicy hedgingPolicy) {
         super(pipelineData, completeEvent);
         this.failureDetector = failureDetector;
         this.timeoutMs = timeoutMs;
         this.nonblockingStores = nonblockingStores;
+        this.hedgingPolicy = hedgingPolicy;
     }
 
     @SuppressWarnings("unchecked")
     public void execute(final Pipeline pipeline) {
         int attempts = pipelineData.getNodeToKeysMap().size();
         final Map<Integer, Response<Iterable<ByteArray>, Object>> responses = new ConcurrentHashMap<Integer, Response<Iterable<ByteArray>, Object>>();
+        final Queue<Response<Iterable<ByteArray>, Object>> hedgedResponses = new ConcurrentLinkedQueue<Response<Iterable<ByteArray>, Object>>();
         final CountDownLatch latch = new CountDownLatch(attempts);
 
         if(logger.isTraceEnabled())
             logger.trace("Attempting " + attempts + " " + pipeline.getOperation().getSimpleName()
                          + " operations in parallel");
 
-        Map<ByteArray, byte[]> transforms = pipelineData.getTransforms();
-
+        // every node of the initial requests counts down the latch once,
+        // either when it responds or when all the hedges of its keys do
+        final Map<Integer, AtomicBoolean> nodeCountedDown = new HashMap<Integer, AtomicBoolean>();
+        long startNs = System.nanoTime();
         for(Map.Entry<Node, List<ByteArray>> entry: pipelineData.getNodeToKeysMap().entrySet()) {
             final Node node = entry.getKey();
-            final Collection<ByteArray> keys = entry.getValue();
-
-            NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+            final AtomicBoolean countedDown = new AtomicBoolean(false);
+            nodeCountedDown.put(node.getId(), countedDown);
 
-                public void requestComplete(Object result, long requestTime) {
-                    if(logger.isTraceEnabled())
-                        logger.trace(pipeline.getOperation().getSimpleName()
-                                     + " response received (" + requestTime + " ms.) from node "
-                                     + node.getId());
+            submitRequest(pipeline, node, entry.getValue(), new ResponseHandler() {
 
-                    Response<Iterable<ByteArray>, Object> response = new Response<Iterable<ByteArray>, Object>(node,
-                                                                                                               keys,
-                                                                                                               result,
-                                                                                                               requestTime);
+                public void handle(Response<Iterable<ByteArray>, Object> response) {
                     responses.put(node.getId(), response);
-                    latch.countDown();
-
-                    // Note errors that come in after the pipeline has finished.
-                    // These will *not* get a chance to be called in the loop of
-                    // responses below.
-                    if(pipeline.isFinished() && response.getValue() instanceof Exception)
-                        if(response.getValue() instanceof InvalidMetadataException) {
-                            pipelineData.reportException((InvalidMetadataException) response.getValue());
-                            logger.warn("Received invalid metadata problem after a successful "
-                                        + pipeline.getOperation().getSimpleName()
-                                        + " call on node " + node.getId() + ", store '"
-                                        + pipelineData.getStoreName() + "'");
-                        } else {
-                            handleResponseError(response, pipeline, failureDetector);
-                        }
+                    if(countedDown.compareAndSet(false, true))
+                        latch.countDown();
                 }
-
-            };
-
-            if(logger.isTraceEnabled())
-                logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
-                             + " request on node " + node.getId());
-
-            NonblockingStore store = nonblockingStores.get(node.getId());
-            store.submitGetAllRequest(keys, transforms, callback, timeoutMs);
+            });
         }
 
+        long remainingMs = timeoutMs;
         try {
-            latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            if(hedgingPolicy != null && !pipelineData.getKeyToExtraNodesMap().isEmpty()) {
+                hedgingPolicy.recordRequest();
+                long hedgeDelayMs = hedgingPolicy.getHedgeDelayMs();
+                if(hedgeDelayMs >= 0 && hedgeDelayMs < timeoutMs
+                   && !latch.await(hedgeDelayMs, TimeUnit.MILLISECONDS)
+                   && hedgingPolicy.tryAcquireHedge()) {
+                    hedgeSlowNodes(pipeline, responses, hedgedResponses, nodeCountedDown, latch);
+                }
+                remainingMs = timeoutMs
+                              - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+            }
+
+            if(remainingMs > 0)
+                latch.await(remainingMs, TimeUnit.MILLISECONDS);
         } catch(InterruptedException e) {
             if(logger.isEnabledFor(Level.WARN))
                 logger.warn(e, e);
         }
 
-        for(Response<Iterable<ByteArray>, Object> response: responses.values()) {
+        List<Response<Iterable<ByteArray>, Object>> allResponses = Lists.newArrayList(responses.values());
+        allResponses.addAll(hedgedResponses);
+        for(Response<Iterable<ByteArray>, Object> response: allResponses) {
             if(response.getValue() instanceof Exception) {
                 if(handleResponseError(response, pipeline, failureDetector))
                     return;
@@ -171,4 +186,108 @@ public class PerformParallelGetAllRequests
 
         pipeline.addEvent(completeEvent);
     }
-}
\ No newline at end of file
+
+    /**
+     * Sends the keys of every node that has not responded yet to the first
+     * extra node of each key, removing that node from the extra nodes so the
+     * serial phase does not ask it again.
+     */
+    private void hedgeSlowNodes(Pipeline pipeline,
+                                Map<Integer, Response<Iterable<ByteArray>, Object>> responses,
+                                final Queue<Response<Iterable<ByteArray>, Object>> hedgedResponses,
+                                Map<Integer, AtomicBoolean> nodeCountedDown,
+                                final CountDownLatch latch) {
+        for(Map.Entry<Node, List<ByteArray>> entry: pipelineData.getNodeToKeysMap().entrySet()) {
+            Node slowNode = entry.getKey();
+            if(responses.containsKey(slowNode.getId()))
+                continue;
+
+            Map<Node, List<ByteArray>> hedgeNodeToKeys = Maps.newHashMap();
+            for(ByteArray key: entry.getValue()) {
+                List<Node> extraNodes = pipelineData.getKeyToExtraNodesMap().get(key);
+                if(extraNodes == null || extraNodes.isEmpty())
+                    continue;
+                Node hedgeNode = extraNodes.remove(0);
+                List<ByteArray> hedgeKeys = hedgeNodeToKeys.get(hedgeNode);
+                if(hedgeKeys == null) {
+                    hedgeKeys = Lists.newArrayList();
+                    hedgeNodeToKeys.put(hedgeNode, hedgeKeys);
+                }
+                hedgeKeys.add(key);
+            }
+            if(hedgeNodeToKeys.isEmpty())
+                continue;
+
+            if(logger.isDebugEnabled())
+                logger.debug("Hedging " + pipeline.getOperation().getSimpleName()
+                             + " keys of node " + slowNode.getId() + " to nodes "
+                             + hedgeNodeToKeys.keySet());
+
+            final AtomicBoolean countedDown = nodeCountedDown.get(slowNode.getId());
+            final AtomicInteger pendingHedges = new AtomicInteger(hedgeNodeToKeys.size());
+            for(Map.Entry<Node, List<ByteArray>> hedge: hedgeNodeToKeys.entrySet()) {
+                if(pipelineData.getStats() != null)
+                    pipelineData.getStats().reportHedgedRequest();
+                submitRequest(pipeline, hedge.getKey(), hedge.getValue(), new ResponseHandler() {
+
+                    public void handle(Response<Iterable<ByteArray>, Object> response) {
+                        hedgedResponses.add(response);
+                        if(pendingHedges.decrementAndGet() == 0
+                           && countedDown.compareAndSet(false, true))
+                            latch.countDown();
+                    }
+                });
+            }
+        }
+    }
+
+    private void submitRequest(final Pipeline pipeline,
+                               final Node node,
+                               final Collection<ByteArray> keys,
+                               final ResponseHandler responseHandler) {
+        NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+            public void requestComplete(Object result, long requestTime) {
+                if(logger.isTraceEnabled())
+                    logger.trace(pipeline.getOperation().getSimpleName() + " response received ("
+                                 + requestTime + " ms.) from node " + node.getId());
+
+                if(hedgingPolicy != null && !(result instanceof Exception))
+                    hedgingPolicy.recordLatency(requestTime);
+
+                Response<Iterable<ByteArray>, Object> response = new Response<Iterable<ByteArray>, Object>(node,
+                                                                                                           keys,
+                                                                                                           result,
+                                                                                                           requestTime);
+                responseHandler.handle(response);
+
+                // Note errors that come in after the pipeline has finished.
+                // These will *not* get a chance to be called in the loop of
+                // responses below.
+                if(pipeline.isFinished() && response.getValue() instanceof Exception)
+                    if(response.getValue() instanceof InvalidMetadataException) {
+                        pipelineData.reportException((InvalidMetadataException) response.getValue());
+                        logger.warn("Received invalid metadata problem after a successful "
+                                    + pipeline.getOperation().getSimpleName() + " call on node "
+                                    + node.getId() + ", store '" + pipelineData.getStoreName()
+                                    + "'");
+                    } else {
+                        handleResponseError(response, pipeline, failureDetector);
+                    }
+            }
+
+        };
+
+        if(logger.isTraceEnabled())
+            logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
+                         + " request on node " + node.getId());
+
+        NonblockingStore store = nonblockingStores.get(node.getId());
+        store.submitGetAllRequest(keys, pipelineData.getTransforms(), callback, timeoutMs);
+    }
+
+    private interface ResponseHandler {
+
+        void handle(Response<Iterable<ByteArray>, Object> response);
+    }
+}
@@ -36,6 +36,7 @@ import voldemort.store.routed.BasicPipelineData;
 import voldemort.store.routed.Pipeline;
 import voldemort.store.routed.Pipeline.Event;
 import voldemort.store.routed.Pipeline.Operation;
+import voldemort.store.routed.ReadHedgingPolicy;
 import voldemort.store.routed.Response;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
@@ -60,6 +61,8 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
 
     private byte[] transforms;
 
+    private final ReadHedgingPolicy hedgingPolicy;
+
     public PerformParallelRequests(PD pipelineData,
                                    Event completeEvent,
                                    ByteArray key,
@@ -71,6 +74,37 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
                                    Map<Integer, NonblockingStore> nonblockingStores,
                                    Event insufficientSuccessesEvent,
                                    Event insufficientZonesEvent) {
+        this(pipelineData,
+             completeEvent,
+             key,
+             transforms,
+             failureDetector,
+             preferred,
+             required,
+             timeoutMs,
+             nonblockingStores,
+             insufficientSuccessesEvent,
+             insufficientZonesEvent,
+             null);
+    }
+
+    /**
+     * @param hedgingPolicy If not null, a duplicate request is sent to the next
+     *        node in the preference list when the first ones are slower than
+     *        the policy allows, and the first responses to arrive are used
+     */
+    public PerformParallelRequests(PD pipelineData,
+                                   Event completeEvent,
+                                   ByteArray key,
+                                   byte[] transforms,
+                                   FailureDetector failureDetector,
+                                   int preferred,
+                                   int required,
+                                   long timeoutMs,
+                                   Map<Integer, NonblockingStore> nonblockingStores,
+                                   Event insufficientSuccessesEvent,
+                                   Event insufficientZonesEvent,
+                                   ReadHedgingPolicy hedgingPolicy) {
         super(pipelineData, completeEvent, key);
         this.failureDetector = failureDetector;
         this.preferred = preferred;
@@ -80,6 +114,7 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
         this.nonblockingStores = nonblockingStores;
         this.insufficientSuccessesEvent = insufficientSuccessesEvent;
         this.insufficientZonesEvent = insufficientZonesEvent;
+        this.hedgingPolicy = hedgingPolicy;
     }
 
     public void execute(final Pipeline pipeline) {
@@ -92,70 +127,40 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
             logger.trace("Attempting " + attempts + " " + pipeline.getOperation().getSimpleName()
                          + " operations in parallel for key " + key);
 
+        long startNs = System.nanoTime();
         for(int i = 0; i < attempts; i++) {
-            final Node node = nodes.get(i);
+            Node node = nodes.get(i);
             pipelineData.incrementNodeIndex();
+            submitRequest(pipeline, node, responses, latch);
+        }
 
-            final long startMs = logger.isDebugEnabled() ? System.currentTimeMillis() : -1;
-
-            NonblockingStoreCallback callback = new NonblockingStoreCallback() {
-
-                public void requestComplete(Object result, long requestTime) {
-                    if(logger.isTraceEnabled())
-                        logger.trace(pipeline.getOperation().getSimpleName()
-                                     + " response received (" + requestTime + " ms.) from node "
-                                     + node.getId() + "for key " + key);
-
-                    Response<ByteArray, Object> response = new Response<ByteArray, Object>(node,
-                                                                                           key,
-                                                                                           result,
-                                                                                           requestTime);
+        long remainingMs = timeoutMs;
+        try {
+            if(isHedgeable(pipeline, attempts, nodes.size())) {
+                hedgingPolicy.recordRequest();
+                long hedgeDelayMs = hedgingPolicy.getHedgeDelayMs();
+                if(hedgeDelayMs >= 0 && hedgeDelayMs < timeoutMs
+                   && !latch.await(hedgeDelayMs, TimeUnit.MILLISECONDS)
+                   && hedgingPolicy.tryAcquireHedge()) {
+                    // the hedge counts down the same latch, so we continue
+                    // with whichever responses arrive first
+                    Node node = nodes.get(attempts);
+                    pipelineData.incrementNodeIndex();
+                    if(pipelineData.getStats() != null)
+                        pipelineData.getStats().reportHedgedRequest();
                     if(logger.isDebugEnabled())
-                        logger.debug("Finished " + pipeline.getOperation().getSimpleName()
+                        logger.debug("Hedging " + pipeline.getOperation().getSimpleName()
                                      + " for key " + ByteUtils.toHexString(key.get())
-                                     + " (keyRef: " + System.identityHashCode(key)
-                                     + "); started at " + startMs + " took " + requestTime
-                                     + " ms on node " + node.getId() + "(" + node.getHost() + ")");
-
-                    responses.put(node.getId(), response);
-                    latch.countDown();
-
-                    // Note errors that come in after the pipeline has finished.
-                    // These will *not* get a chance to be called in the loop of
-                    // responses below.
-                    if(pipeline.isFinished() && response.getValue() instanceof Exception) {
-                        if(response.getValue() instanceof InvalidMetadataException) {
-                            pipelineData.reportException((InvalidMetadataException) response.getValue());
-                            logger.warn("Received invalid metadata problem after a successful "
-                                        + pipeline.getOperation().getSimpleName()
-                                        + " call on node " + node.getId() + ", store '"
-                                        + pipelineData.getStoreName() + "' for key " + key);
-                        } else {
-                            handleResponseError(response, pipeline, failureDetector);
-                        }
-                    }
+                                     + " to node " + node.getId() + " after " + hedgeDelayMs
+                                     + " ms");
+                    submitRequest(pipeline, node, responses, latch);
                 }
+                remainingMs = timeoutMs
+                              - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+            }
 
-            };
-
-            if(logger.isTraceEnabled())
-                logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
-                             + " request on node " + node.getId() + " for key " + key);
-
-            NonblockingStore store = nonblockingStores.get(node.getId());
-
-            if(pipeline.getOperation() == Operation.GET)
-                store.submitGetRequest(key, transforms, callback, timeoutMs);
-            else if(pipeline.getOperation() == Operation.GET_VERSIONS)
-                store.submitGetVersionsRequest(key, callback, timeoutMs);
-            else
-                throw new IllegalStateException(getClass().getName()
-                                                + " does not support pipeline operation "
-                                                + pipeline.getOperation());
-        }
-
-        try {
-            latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            if(remainingMs > 0)
+                latch.await(remainingMs, TimeUnit.MILLISECONDS);
         } catch(InterruptedException e) {
             if(logger.isEnabledFor(Level.WARN))
                 logger.warn(e, e);
@@ -234,4 +239,76 @@ public class PerformParallelRequests<V, PD extends BasicPipelineData<V>> extends
             }
         }
     }
+
+    private boolean isHedgeable(Pipeline pipeline, int attempts, int nodeCount) {
+        return hedgingPolicy != null
+               && attempts < nodeCount
+               && (pipeline.getOperation() == Operation.GET
+                   || pipeline.getOperation() == Operation.GET_VERSIONS);
+    }
+
+    private void submitRequest(final Pipeline pipeline,
+                               final Node node,
+                               final Map<Integer, Response<ByteArray, Object>> responses,
+                               final CountDownLatch latch) {
+        final long startMs = logger.isDebugEnabled() ? System.currentTimeMillis() : -1;
+
+        NonblockingStoreCallback callback = new NonblockingStoreCallback() {
+
+            public void requestComplete(Object result, long requestTime) {
+                if(logger.isTraceEnabled())
+                    logger.trace(pipeline.getOperation().getSimpleName()
+                                 + " response received (" + requestTime + " ms.) from node "
+                                 + node.getId() + "for key " + key);
+
+                Response<ByteArray, Object> response = new Response<ByteArray, Object>(node,
+                                                                                       key,
+                                                                                       result,
+                                                                                       requestTime);
+                if(logger.isDebugEnabled())
+                    logger.debug("Finished " + pipeline.getOperation().getSimpleName()
+                                 + " for key " + ByteUtils.toHexString(key.get())
+                                 + " (keyRef: " + System.identityHashCode(key)
+                                 + "); started at " + startMs + " took " + requestTime
+                                 + " ms on node " + node.getId() + "(" + node.getHost() + ")");
+
+                if(hedgingPolicy != null && !(result instanceof Exception))
+                    hedgingPolicy.recordLatency(requestTime);
+
+                responses.put(node.getId(), response);
+                latch.countDown();
+
+                // Note errors that come in after the pipeline has finished.
+                // These will *not* get a chance to be called in the loop of
+                // responses below.
+                if(pipeline.isFinished() && response.getValue() instanceof Exception) {
+                    if(response.getValue() instanceof InvalidMetadataException) {
+                        pipelineData.reportException((InvalidMetadataException) response.getValue());
+                        logger.warn("Received invalid metadata problem after a successful "
+                                    + pipeline.getOperation().getSimpleName()
+                                    + " call on node " + node.getId() + ", store '"
+                                    + pipelineData.getStoreName() + "' for key " + key);
+                    } else {
+                        handleResponseError(response, pipeline, failureDetector);
+                    }
+                }
+            }
+
+        };
+
+        if(logger.isTraceEnabled())
+            logger.trace("Submitting " + pipeline.getOperation().getSimpleName()
+                         + " request on node " + node.getId() + " for key " + key);
+
+        NonblockingStore store = nonblockingStores.get(node.getId());
+
+        if(pipeline.getOperation() == Operation.GET)
+            store.submitGetRequest(key, transforms, callback, timeoutMs);
+        else if(pipeline.getOperation() == Operation.GET_VERSIONS)
+            store.submitGetVersionsRequest(key, callback, timeoutMs);
+        else
+            throw new IllegalStateException(getClass().getName()
+                                            + " does not support pipeline operation "
+                                            + pipeline.getOperation());
+    }
 }
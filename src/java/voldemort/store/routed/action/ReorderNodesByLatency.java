@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import java.util.List;
+
+import voldemort.cluster.Node;
+import voldemort.store.routed.BasicPipelineData;
+import voldemort.store.routed.Pipeline;
+import voldemort.store.routed.Pipeline.Event;
+import voldemort.store.routed.ReplicaLatencyTracker;
+import voldemort.utils.ByteArray;
+
+/**
+ * Reorders the preference list configured by the previous action so that the
+ * replicas with the lowest latency score are contacted first. Replicas only
+ * trade places with replicas from the same zone, so the zone requirements the
+ * list was configured for still hold.
+ */
+public class ReorderNodesByLatency<V, PD extends BasicPipelineData<V>> extends
+        AbstractAction<ByteArray, V, PD> {
+
+    private final ReplicaLatencyTracker latencyTracker;
+
+    public ReorderNodesByLatency(PD pipelineData,
+                                 Event completeEvent,
+                                 ReplicaLatencyTracker latencyTracker) {
+        super(pipelineData, completeEvent);
+        this.latencyTracker = latencyTracker;
+    }
+
+    public void execute(Pipeline pipeline) {
+        List<Node> nodes = latencyTracker.orderByLatency(pipelineData.getNodes());
+
+        if(logger.isDebugEnabled()) {
+            StringBuilder nodeStr = new StringBuilder();
+            for(Node node: nodes) {
+                nodeStr.append(node.getId() + "(" + latencyTracker.getScore(node.getId()) + "),");
+            }
+            logger.debug("Preference list ordered by latency " + nodeStr);
+        }
+        pipelineData.setNodes(nodes);
+        pipeline.addEvent(completeEvent);
+    }
+}
@@ -16,6 +16,7 @@
 
 package voldemort.store.serialized;
 
+import java.util.Iterator;
 import java.util.List;
 
 import voldemort.serialization.Serializer;
@@ -27,6 +28,9 @@ import voldemort.utils.Pair;
 import voldemort.utils.Utils;
 import voldemort.versioning.Versioned;
 
+import com.google.common.base.Function;
+import com.google.common.collect.Iterators;
+
 /**
  * A StorageEngine that handles serialization to bytes, transforming each
  * request to a request to StorageEngine<byte[],byte[], byte[]>
@@ -177,6 +181,21 @@ public class SerializingStorageEngine<K, V, T> extends SerializingStore<K, V, T>
                                                 + this.getClass().getName());
     }
 
+    @Override
+    public long bulkLoad(Iterator<Pair<K, Versioned<V>>> sortedEntries) {
+        Function<Pair<K, Versioned<V>>, Pair<ByteArray, Versioned<byte[]>>> serializer = new Function<Pair<K, Versioned<V>>, Pair<ByteArray, Versioned<byte[]>>>() {
+
+            @Override
+            public Pair<ByteArray, Versioned<byte[]>> apply(Pair<K, Versioned<V>> entry) {
+                Versioned<V> versioned = entry.getSecond();
+                return Pair.create(new ByteArray(getKeySerializer().toBytes(entry.getFirst())),
+                                   new Versioned<byte[]>(getValueSerializer().toBytes(versioned.getValue()),
+                                                         versioned.getVersion()));
+            }
+        };
+        return storageEngine.bulkLoad(Iterators.transform(sortedEntries, serializer));
+    }
+
     @Override
     public KeyLockHandle<V> getAndLock(K key) {
         throw new UnsupportedOperationException("getAndLock is not supported for "
@@ -153,6 +153,14 @@ public class Histogram {
         return (sum * 1.0) / size;
     }
 
+    /**
+     * @return the number of samples inserted since the last reset
+     */
+    public synchronized int getCount() {
+        resetIfNeeded();
+        return size;
+    }
+
     private void resetIfNeeded() {
         if(resetIntervalMs > -1) {
             if((System.currentTimeMillis() - lastResetTimeMs) >= this.resetIntervalMs) {
@@ -19,6 +19,7 @@ package voldemort.store.stats;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
@@ -31,6 +32,9 @@ public class StoreStats {
 
     private final StoreStats parent;
     private final Map<Tracked, RequestCounter> counters;
+    private final AtomicLong readCacheHits = new AtomicLong(0);
+    private final AtomicLong readCacheMisses = new AtomicLong(0);
+    private final AtomicLong readCacheEvictions = new AtomicLong(0);
 
     private static final Logger logger = Logger.getLogger(StoreStats.class.getName());
 
@@ -147,6 +151,43 @@ public class StoreStats {
                               getAllAggregateRequests);
     }
 
+    /**
+     * Record the outcome of lookups in the server side read cache
+     */
+    public void recordReadCacheLookups(long hits, long misses) {
+        readCacheHits.addAndGet(hits);
+        readCacheMisses.addAndGet(misses);
+        if(parent != null)
+            parent.recordReadCacheLookups(hits, misses);
+    }
+
+    /**
+     * Record the # entries the server side read cache evicted to make room
+     */
+    public void recordReadCacheEvictions(long evictions) {
+        readCacheEvictions.addAndGet(evictions);
+        if(parent != null)
+            parent.recordReadCacheEvictions(evictions);
+    }
+
+    public long getReadCacheHits() {
+        return readCacheHits.get();
+    }
+
+    public long getReadCacheMisses() {
+        return readCacheMisses.get();
+    }
+
+    public long getReadCacheEvictions() {
+        return readCacheEvictions.get();
+    }
+
+    public double getReadCacheHitRatio() {
+        long hits = readCacheHits.get();
+        long total = hits + readCacheMisses.get();
+        return total == 0 ? 0.0d : hits / (double) total;
+    }
+
     public long getCount(Tracked op) {
         return counters.get(op).getCount();
     }
@@ -328,4 +328,24 @@ public class StoreStatsJmx {
         return stats.getAvgKeySizeinBytes(Tracked.DELETE);
     }
 
+    @JmxGetter(name = "readCacheHits", description = "The # lookups served from the server side read cache.")
+    public long getReadCacheHits() {
+        return stats.getReadCacheHits();
+    }
+
+    @JmxGetter(name = "readCacheMisses", description = "The # lookups that missed the server side read cache.")
+    public long getReadCacheMisses() {
+        return stats.getReadCacheMisses();
+    }
+
+    @JmxGetter(name = "readCacheHitRatio", description = "The share of lookups served from the server side read cache.")
+    public double getReadCacheHitRatio() {
+        return stats.getReadCacheHitRatio();
+    }
+
+    @JmxGetter(name = "readCacheEvictions", description = "The # entries evicted from the server side read cache.")
+    public long getReadCacheEvictions() {
+        return stats.getReadCacheEvictions();
+    }
+
 }
@@ -2,6 +2,7 @@ package voldemort.store.views;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -66,22 +67,6 @@ public class ViewStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
             throw new IllegalArgumentException("View without either a key transformation or a value transformation.");
     }
 
-    private List<Versioned<byte[]>> inflateValues(List<Versioned<byte[]>> result) {
-        List<Versioned<byte[]>> inflated = new ArrayList<Versioned<byte[]>>(result.size());
-        for(Versioned<byte[]> item: result) {
-            inflated.add(inflateValue(item));
-        }
-        return inflated;
-    }
-
-    private List<Versioned<byte[]>> deflateValues(List<Versioned<byte[]>> values) {
-        List<Versioned<byte[]>> deflated = new ArrayList<Versioned<byte[]>>(values.size());
-        for(Versioned<byte[]> item: values) {
-            deflated.add(deflateValue(item));
-        }
-        return deflated;
-    }
-
     private Versioned<byte[]> deflateValue(Versioned<byte[]> versioned) throws VoldemortException {
         byte[] deflatedData = null;
         try {
@@ -111,28 +96,67 @@ public class ViewStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
     @Override
     public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms) throws VoldemortException {
         List<Versioned<byte[]>> values = target.get(key, null);
+        return toViewValues(key, values, toTransformObject(transforms));
+    }
 
-        List<Versioned<byte[]>> results = new ArrayList<Versioned<byte[]>>();
-
-        if(valueCompressionStrategy != null)
-            values = inflateValues(values);
+    /**
+     * Fetches all the keys from the target in a single call, and transforms
+     * the batch. Keys asking for the same transforms, the common case, share
+     * a single deserialized transform object.
+     */
+    @Override
+    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
+                                                          Map<ByteArray, byte[]> transforms)
+            throws VoldemortException {
+        StoreUtils.assertValidKeys(keys);
+        Map<ByteArray, List<Versioned<byte[]>>> values = target.getAll(keys, null);
+        Map<ByteArray, List<Versioned<byte[]>>> results = StoreUtils.newEmptyHashMap(values.keySet());
+
+        byte[] lastTransforms = null;
+        Object lastTransformObject = null;
+        for(Map.Entry<ByteArray, List<Versioned<byte[]>>> entry: values.entrySet()) {
+            if(entry.getValue().isEmpty())
+                continue;
+            byte[] keyTransforms = transforms == null ? null : transforms.get(entry.getKey());
+            if(keyTransforms == null || !Arrays.equals(keyTransforms, lastTransforms)) {
+                lastTransforms = keyTransforms;
+                lastTransformObject = toTransformObject(keyTransforms);
+            }
+            results.put(entry.getKey(),
+                        toViewValues(entry.getKey(), entry.getValue(), lastTransformObject));
+        }
+        return results;
+    }
 
+    /**
+     * Transforms the versions of a key from the target, inflating and
+     * deflating each version in the same pass as its transformation
+     */
+    private List<Versioned<byte[]>> toViewValues(ByteArray key,
+                                                 List<Versioned<byte[]>> values,
+                                                 Object transformObject) {
+        List<Versioned<byte[]>> results = new ArrayList<Versioned<byte[]>>(values.size());
+        if(values.isEmpty())
+            return results;
+
+        Object targetKey = this.targetKeySerializer.toObject(key.get());
         for(Versioned<byte[]> v: values) {
-            results.add(new Versioned<byte[]>(valueToViewSchema(key, v.getValue(), transforms),
-                                              v.getVersion()));
+            if(valueCompressionStrategy != null)
+                v = inflateValue(v);
+            Versioned<byte[]> result = new Versioned<byte[]>(valueToViewSchema(targetKey,
+                                                                               v.getValue(),
+                                                                               transformObject),
+                                                             v.getVersion());
+            if(valueCompressionStrategy != null)
+                result = deflateValue(result);
+            results.add(result);
         }
-
-        if(valueCompressionStrategy != null)
-            results = deflateValues(results);
-
         return results;
     }
 
-    @Override
-    public Map<ByteArray, List<Versioned<byte[]>>> getAll(Iterable<ByteArray> keys,
-                                                          Map<ByteArray, byte[]> transforms)
-            throws VoldemortException {
-        return StoreUtils.getAll(this, keys, transforms);
+    private Object toTransformObject(byte[] transforms) {
+        return (transformSerializer != null && transforms != null) ? this.transformSerializer.toObject(transforms)
+                                                                  : null;
     }
 
     @Override
@@ -197,16 +221,14 @@ public class ViewStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
         return this.targetValSerializer.toBytes(this.view.viewToStore(this.serializingStore,
                                                                       this.targetKeySerializer.toObject(key.get()),
                                                                       this.valSerializer.toObject(value),
-                                                                      (transformSerializer != null && transforms != null) ? this.transformSerializer.toObject(transforms)
-                                                                                                                         : null));
+                                                                      toTransformObject(transforms)));
     }
 
-    private byte[] valueToViewSchema(ByteArray key, byte[] value, byte[] transforms) {
+    private byte[] valueToViewSchema(Object targetKey, byte[] value, Object transformObject) {
         return this.valSerializer.toBytes(this.view.storeToView(this.serializingStore,
-                                                                this.targetKeySerializer.toObject(key.get()),
+                                                                targetKey,
                                                                 this.targetValSerializer.toObject(value),
-                                                                (transformSerializer != null && transforms != null) ? this.transformSerializer.toObject(transforms)
-                                                                                                                   : null));
+                                                                transformObject));
     }
 
     private class ViewIterator extends AbstractIterator<Pair<ByteArray, Versioned<byte[]>>>
@@ -226,7 +248,8 @@ public class ViewStorageEngine extends AbstractStorageEngine<ByteArray, byte[],
         @Override
         protected Pair<ByteArray, Versioned<byte[]>> computeNext() {
             Pair<ByteArray, Versioned<byte[]>> p = inner.next();
-            Versioned<byte[]> newVal = Versioned.value(valueToViewSchema(p.getFirst(),
+            Versioned<byte[]> newVal = Versioned.value(valueToViewSchema(targetKeySerializer.toObject(p.getFirst()
+                                                                                                     .get()),
                                                                          p.getSecond().getValue(),
                                                                          null),
                                                        p.getSecond().getVersion());
@@ -0,0 +1,395 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import voldemort.cluster.Cluster;
+import voldemort.cluster.Node;
+import voldemort.routing.RoutingStrategy;
+import voldemort.routing.RoutingStrategyFactory;
+import voldemort.routing.RoutingStrategyType;
+import voldemort.store.StoreDefinition;
+import voldemort.utils.StoreDefinitionUtils;
+
+/**
+ * Computes the same utility value as {@link PartitionBalance#getUtility()},
+ * but keeps enough state around to score a candidate partition swap without
+ * recomputing the balance of the whole cluster.
+ * 
+ * For ring based routing strategies, the replicating partition list of a
+ * master partition is found by walking the ring from the master partition to
+ * its last replica. A swap of two partition IDs can therefore only change the
+ * replicating partition lists whose walk passes over one of the two swapped
+ * partition IDs. Only those lists are recomputed, only the counts of the nodes
+ * they touch are updated, and only the zones of those nodes have their
+ * balance recomputed.
+ * 
+ * The swapped replicating partition lists are found by walking the ring over
+ * the swapped partition to node mapping, the same way the ring based routing
+ * strategies do, so scoring a swap neither copies the cluster nor builds new
+ * routing strategies. The replicating partition lists of the other routing
+ * strategies do not depend on which node hosts which partition, so for those
+ * only the counts are moved to the swapped nodes.
+ * 
+ * {@link #scoreSwap(int, int, int, int)} does not modify any state and may be
+ * called concurrently from multiple threads, as long as no thread is calling
+ * {@link #applySwap(int, int, int, int)} at the same time.
+ */
+public class IncrementalPartitionBalance {
+
+    private final List<StoreDefinition> storeDefs;
+    private final int[] storeDefCounts;
+    private final boolean[] ringWalkRouting;
+    // Per store definition, per zone offset. Null for stores that are not zone
+    // routed.
+    private final int[][] zoneReplicationFactors;
+    private final int numPartitions;
+
+    private final List<Integer> zoneIds;
+    private final List<List<Integer>> nodeIdsPerZone;
+    private final int[] nodeIdToZoneOffset;
+
+    private final int[] zonePrimaryCounts;
+    private final int[] naryCounts;
+    private final double[] zonePrimaryUtilityPerZone;
+    private final double[] naryUtilityPerZone;
+
+    // Per store definition, per master partition ID
+    private final List<List<List<Integer>>> replicatingPartitionLists;
+    private final int[][] ringWalkLengths;
+
+    private Cluster cluster;
+    private int[] partitionIdToNodeId;
+
+    public IncrementalPartitionBalance(Cluster cluster, List<StoreDefinition> storeDefs) {
+        this.cluster = cluster;
+        this.numPartitions = cluster.getNumberOfPartitions();
+        this.partitionIdToNodeId = getPartitionIdToNodeId(cluster);
+
+        HashMap<StoreDefinition, Integer> uniqueStores = StoreDefinitionUtils.getUniqueStoreDefinitionsWithCounts(storeDefs);
+        this.storeDefs = new ArrayList<StoreDefinition>(uniqueStores.size());
+        this.storeDefCounts = new int[uniqueStores.size()];
+        this.ringWalkRouting = new boolean[uniqueStores.size()];
+        this.zoneReplicationFactors = new int[uniqueStores.size()][];
+        this.zoneIds = new ArrayList<Integer>(cluster.getZoneIds());
+        for(Map.Entry<StoreDefinition, Integer> entry: uniqueStores.entrySet()) {
+            StoreDefinition storeDef = entry.getKey();
+            String routingType = storeDef.getRoutingStrategyType();
+            int storeOffset = this.storeDefs.size();
+            storeDefCounts[storeOffset] = entry.getValue();
+            ringWalkRouting[storeOffset] = RoutingStrategyType.CONSISTENT_STRATEGY.equals(routingType)
+                                           || RoutingStrategyType.ZONE_STRATEGY.equals(routingType);
+            if(RoutingStrategyType.ZONE_STRATEGY.equals(routingType)) {
+                zoneReplicationFactors[storeOffset] = new int[zoneIds.size()];
+                for(int zoneOffset = 0; zoneOffset < zoneIds.size(); zoneOffset++) {
+                    Integer zoneReplicationFactor = storeDef.getZoneReplicationFactor()
+                                                            .get(zoneIds.get(zoneOffset));
+                    if(zoneReplicationFactor != null) {
+                        zoneReplicationFactors[storeOffset][zoneOffset] = zoneReplicationFactor;
+                    }
+                }
+            }
+            this.storeDefs.add(storeDef);
+        }
+
+        this.nodeIdsPerZone = new ArrayList<List<Integer>>(zoneIds.size());
+        int maxNodeId = -1;
+        for(Node node: cluster.getNodes()) {
+            maxNodeId = Math.max(maxNodeId, node.getId());
+        }
+        this.nodeIdToZoneOffset = new int[maxNodeId + 1];
+        for(int zoneOffset = 0; zoneOffset < zoneIds.size(); zoneOffset++) {
+            List<Integer> nodeIds = new ArrayList<Integer>(cluster.getNodeIdsInZone(zoneIds.get(zoneOffset)));
+            for(int nodeId: nodeIds) {
+                nodeIdToZoneOffset[nodeId] = zoneOffset;
+            }
+            nodeIdsPerZone.add(nodeIds);
+        }
+
+        this.zonePrimaryCounts = new int[maxNodeId + 1];
+        this.naryCounts = new int[maxNodeId + 1];
+        this.replicatingPartitionLists = new ArrayList<List<List<Integer>>>(this.storeDefs.size());
+        this.ringWalkLengths = new int[this.storeDefs.size()][numPartitions];
+        for(int storeOffset = 0; storeOffset < this.storeDefs.size(); storeOffset++) {
+            RoutingStrategy routingStrategy = new RoutingStrategyFactory().updateRoutingStrategy(this.storeDefs.get(storeOffset),
+                                                                                                 cluster);
+            List<List<Integer>> replicatingLists = new ArrayList<List<Integer>>(numPartitions);
+            for(int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                List<Integer> replicatingList = routingStrategy.getReplicatingPartitionList(partitionId);
+                replicatingLists.add(replicatingList);
+                ringWalkLengths[storeOffset][partitionId] = getRingWalkLength(storeOffset,
+                                                                              partitionId,
+                                                                              replicatingList);
+                addContribution(replicatingList,
+                                partitionIdToNodeId,
+                                storeDefCounts[storeOffset],
+                                zonePrimaryCounts,
+                                naryCounts,
+                                null);
+            }
+            replicatingPartitionLists.add(replicatingLists);
+        }
+
+        this.zonePrimaryUtilityPerZone = new double[zoneIds.size()];
+        this.naryUtilityPerZone = new double[zoneIds.size()];
+        for(int zoneOffset = 0; zoneOffset < zoneIds.size(); zoneOffset++) {
+            zonePrimaryUtilityPerZone[zoneOffset] = getZoneMaxMinRatio(zonePrimaryCounts,
+                                                                       zoneOffset);
+            naryUtilityPerZone[zoneOffset] = getZoneMaxMinRatio(naryCounts, zoneOffset);
+        }
+    }
+
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * @return utility of the current cluster, identical to
+     *         {@link PartitionBalance#getUtility()}.
+     */
+    public double getUtility() {
+        return combineUtility(null);
+    }
+
+    /**
+     * Determines the utility the cluster would have if partitionIdA on nodeIdA
+     * were swapped with partitionIdB on nodeIdB. The state of this object is
+     * not changed.
+     * 
+     * @return utility of the swapped cluster
+     */
+    public double scoreSwap(int nodeIdA, int partitionIdA, int nodeIdB, int partitionIdB) {
+        return evaluateSwap(nodeIdA, partitionIdA, nodeIdB, partitionIdB, false);
+    }
+
+    /**
+     * Swaps partitionIdA on nodeIdA with partitionIdB on nodeIdB and updates
+     * the balance accordingly.
+     * 
+     * @return utility of the swapped cluster
+     */
+    public double applySwap(int nodeIdA, int partitionIdA, int nodeIdB, int partitionIdB) {
+        return evaluateSwap(nodeIdA, partitionIdA, nodeIdB, partitionIdB, true);
+    }
+
+    private double evaluateSwap(int nodeIdA,
+                                int partitionIdA,
+                                int nodeIdB,
+                                int partitionIdB,
+                                boolean commit) {
+        int[] swappedPartitionIdToNodeId = partitionIdToNodeId.clone();
+        swappedPartitionIdToNodeId[partitionIdA] = nodeIdB;
+        swappedPartitionIdToNodeId[partitionIdB] = nodeIdA;
+
+        int[] swappedZonePrimaryCounts = commit ? zonePrimaryCounts : zonePrimaryCounts.clone();
+        int[] swappedNaryCounts = commit ? naryCounts : naryCounts.clone();
+        boolean[] changedZones = new boolean[zoneIds.size()];
+
+        for(int storeOffset = 0; storeOffset < storeDefs.size(); storeOffset++) {
+            List<List<Integer>> replicatingLists = replicatingPartitionLists.get(storeOffset);
+            for(int partitionId = 0; partitionId < numPartitions; partitionId++) {
+                int walkLength = ringWalkLengths[storeOffset][partitionId];
+                if(getRingDistance(partitionId, partitionIdA) > walkLength
+                   && getRingDistance(partitionId, partitionIdB) > walkLength) {
+                    continue;
+                }
+                List<Integer> replicatingList = replicatingLists.get(partitionId);
+                addContribution(replicatingList,
+                                partitionIdToNodeId,
+                                -storeDefCounts[storeOffset],
+                                swappedZonePrimaryCounts,
+                                swappedNaryCounts,
+                                changedZones);
+                List<Integer> swappedReplicatingList = replicatingList;
+                if(ringWalkRouting[storeOffset]) {
+                    swappedReplicatingList = walkRing(storeOffset,
+                                                      partitionId,
+                                                      swappedPartitionIdToNodeId);
+                }
+                addContribution(swappedReplicatingList,
+                                swappedPartitionIdToNodeId,
+                                storeDefCounts[storeOffset],
+                                swappedZonePrimaryCounts,
+                                swappedNaryCounts,
+                                changedZones);
+                if(commit) {
+                    replicatingLists.set(partitionId, swappedReplicatingList);
+                    ringWalkLengths[storeOffset][partitionId] = getRingWalkLength(storeOffset,
+                                                                                  partitionId,
+                                                                                  swappedReplicatingList);
+                }
+            }
+        }
+
+        if(!commit) {
+            return combineUtility(changedZones, swappedZonePrimaryCounts, swappedNaryCounts);
+        }
+
+        this.cluster = Repartitioner.swapPartitions(cluster,
+                                                    nodeIdA,
+                                                    partitionIdA,
+                                                    nodeIdB,
+                                                    partitionIdB);
+        this.partitionIdToNodeId = swappedPartitionIdToNodeId;
+        for(int zoneOffset = 0; zoneOffset < zoneIds.size(); zoneOffset++) {
+            if(changedZones[zoneOffset]) {
+                zonePrimaryUtilityPerZone[zoneOffset] = getZoneMaxMinRatio(zonePrimaryCounts,
+                                                                           zoneOffset);
+                naryUtilityPerZone[zoneOffset] = getZoneMaxMinRatio(naryCounts, zoneOffset);
+            }
+        }
+        return getUtility();
+    }
+
+    /**
+     * Builds the replicating partition list of a master partition the same
+     * way ConsistentRoutingStrategy and ZoneRoutingStrategy do, but over the
+     * given partition to node mapping instead of a cluster.
+     */
+    private List<Integer> walkRing(int storeOffset,
+                                   int masterPartitionId,
+                                   int[] partitionIdToNodeId) {
+        int numReplicas = storeDefs.get(storeOffset).getReplicationFactor();
+        int[] requiredZoneReplicas = zoneReplicationFactors[storeOffset] == null ? null
+                                                                                 : zoneReplicationFactors[storeOffset].clone();
+        boolean[] seenNodeIds = new boolean[nodeIdToZoneOffset.length];
+        List<Integer> replicatingList = new ArrayList<Integer>(numReplicas);
+
+        int partitionId = masterPartitionId;
+        for(int i = 0; i < numPartitions; i++) {
+            int nodeId = partitionIdToNodeId[partitionId];
+            if(!seenNodeIds[nodeId]) {
+                seenNodeIds[nodeId] = true;
+                if(requiredZoneReplicas == null) {
+                    replicatingList.add(partitionId);
+                } else if(requiredZoneReplicas[nodeIdToZoneOffset[nodeId]] > 0) {
+                    requiredZoneReplicas[nodeIdToZoneOffset[nodeId]]--;
+                    replicatingList.add(partitionId);
+                }
+            }
+            if(replicatingList.size() >= numReplicas) {
+                break;
+            }
+            partitionId = (partitionId + 1) % numPartitions;
+        }
+        return replicatingList;
+    }
+
+    /**
+     * Adds (or, for a negative weight, removes) the zone-primary and n-ary
+     * counts that a single replicating partition list contributes to its
+     * nodes. Mirrors the accounting done by StoreRoutingPlan.
+     */
+    private void addContribution(List<Integer> replicatingList,
+                                 int[] partitionIdToNodeId,
+                                 int weight,
+                                 int[] zonePrimaryCounts,
+                                 int[] naryCounts,
+                                 boolean[] changedZones) {
+        int[] zoneOffsetToFirstNodeId = new int[zoneIds.size()];
+        for(int zoneOffset = 0; zoneOffset < zoneOffsetToFirstNodeId.length; zoneOffset++) {
+            zoneOffsetToFirstNodeId[zoneOffset] = -1;
+        }
+        for(int partitionId: replicatingList) {
+            int nodeId = partitionIdToNodeId[partitionId];
+            int zoneOffset = nodeIdToZoneOffset[nodeId];
+            if(zoneOffsetToFirstNodeId[zoneOffset] == -1) {
+                zoneOffsetToFirstNodeId[zoneOffset] = nodeId;
+            }
+        }
+        for(int partitionId: replicatingList) {
+            int nodeId = partitionIdToNodeId[partitionId];
+            int zoneOffset = nodeIdToZoneOffset[nodeId];
+            naryCounts[nodeId] += weight;
+            if(zoneOffsetToFirstNodeId[zoneOffset] == nodeId) {
+                zonePrimaryCounts[nodeId] += weight;
+            }
+            if(changedZones != null) {
+                changedZones[zoneOffset] = true;
+            }
+        }
+    }
+
+    /**
+     * Determines how far around the ring the routing strategy walked to build
+     * the replicating partition list. Any swap beyond that distance cannot
+     * change the list. Strategies that do not walk the ring, and walks that
+     * did not find enough replicas, are treated as covering the whole ring.
+     */
+    private int getRingWalkLength(int storeOffset, int partitionId, List<Integer> replicatingList) {
+        if(!ringWalkRouting[storeOffset] || replicatingList.isEmpty()
+           || replicatingList.size() < storeDefs.get(storeOffset).getReplicationFactor()) {
+            return numPartitions;
+        }
+        return getRingDistance(partitionId, replicatingList.get(replicatingList.size() - 1));
+    }
+
+    private int getRingDistance(int fromPartitionId, int toPartitionId) {
+        return (toPartitionId - fromPartitionId + numPartitions) % numPartitions;
+    }
+
+    private double combineUtility(boolean[] changedZones) {
+        return combineUtility(changedZones, zonePrimaryCounts, naryCounts);
+    }
+
+    private double combineUtility(boolean[] changedZones,
+                                  int[] zonePrimaryCounts,
+                                  int[] naryCounts) {
+        double zonePrimaryMaxMin = 0;
+        double naryMaxMin = 0;
+        for(int zoneOffset = 0; zoneOffset < zoneIds.size(); zoneOffset++) {
+            if(changedZones != null && changedZones[zoneOffset]) {
+                zonePrimaryMaxMin += getZoneMaxMinRatio(zonePrimaryCounts, zoneOffset);
+                naryMaxMin += getZoneMaxMinRatio(naryCounts, zoneOffset);
+            } else {
+                zonePrimaryMaxMin += zonePrimaryUtilityPerZone[zoneOffset];
+                naryMaxMin += naryUtilityPerZone[zoneOffset];
+            }
+        }
+        return (PartitionBalance.UTILITY_MULTIPLIER_IOPS * zonePrimaryMaxMin)
+               + (PartitionBalance.UTILITY_MULTIPLIER_CAPACITY * naryMaxMin);
+    }
+
+    /**
+     * Same max/min ratio as PartitionBalance computes per zone.
+     */
+    private double getZoneMaxMinRatio(int[] counts, int zoneOffset) {
+        int minVal = Integer.MAX_VALUE;
+        int maxVal = Integer.MIN_VALUE;
+        for(int nodeId: nodeIdsPerZone.get(zoneOffset)) {
+            minVal = Math.min(minVal, counts[nodeId]);
+            maxVal = Math.max(maxVal, counts[nodeId]);
+        }
+        if(minVal == 0) {
+            return maxVal;
+        }
+        return maxVal * 1.0 / minVal;
+    }
+
+    private static int[] getPartitionIdToNodeId(Cluster cluster) {
+        Node[] partitionIdToNode = cluster.getPartitionIdToNodeArray();
+        int[] partitionIdToNodeId = new int[partitionIdToNode.length];
+        for(int partitionId = 0; partitionId < partitionIdToNode.length; partitionId++) {
+            partitionIdToNodeId[partitionId] = partitionIdToNode[partitionId].getId();
+        }
+        return partitionIdToNodeId;
+    }
+}
@@ -16,6 +16,8 @@
 
 package voldemort.tools;
 
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -23,12 +25,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 
+import voldemort.VoldemortException;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.store.StoreDefinition;
+import voldemort.utils.DaemonThreadFactory;
 import voldemort.utils.Pair;
 import voldemort.utils.PartitionBalanceUtils;
 import voldemort.utils.RebalanceUtils;
@@ -96,6 +105,18 @@ public class Repartitioner {
      * implies no limit on such runs.
      */
     public final static int DEFAULT_MAX_CONTIGUOUS_PARTITIONS = 0;
+    /**
+     * Default number of threads among which the attempts and the scoring of
+     * greedy swap candidates are spread.
+     */
+    public final static int DEFAULT_NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Where the progress of the repartitioning attempt running on the current
+     * thread is reported. Attempts run concurrently, so each one reports into
+     * its own buffer, which is printed once the attempt is done.
+     */
+    private static final ThreadLocal<PrintStream> attemptOutput = new ThreadLocal<PrintStream>();
 
     /**
      * Runs a number of distinct algorithms over the specified clusters/store
@@ -121,6 +142,9 @@ public class Repartitioner {
      * <li>Zone expansion : Distribute partition IDs into a new zone.
      * </ul>
      * 
+     * The search runs on the calling thread. Use the seeded overload to spread
+     * it over several threads.
+     * 
      * @param currentCluster current cluster
      * @param currentStoreDefs current store defs
      * @param interimCluster interim cluster; needed for cluster or zone
@@ -168,78 +192,207 @@ public class Repartitioner {
                                       final int greedySwapMaxPartitionsPerZone,
                                       final List<Integer> greedySwapZoneIds,
                                       final int maxContiguousPartitionsPerZone) {
+        return repartition(currentCluster,
+                           currentStoreDefs,
+                           interimCluster,
+                           finalStoreDefs,
+                           outputDir,
+                           attempts,
+                           disableNodeBalancing,
+                           disableZoneBalancing,
+                           enableRandomSwaps,
+                           randomSwapAttempts,
+                           randomSwapSuccesses,
+                           randomSwapZoneIds,
+                           enableGreedySwaps,
+                           greedySwapAttempts,
+                           greedySwapMaxPartitionsPerNode,
+                           greedySwapMaxPartitionsPerZone,
+                           greedySwapZoneIds,
+                           maxContiguousPartitionsPerZone,
+                           System.currentTimeMillis(),
+                           1);
+    }
+
+    /**
+     * Same as the other repartition method, except that the search is seeded
+     * and runs on multiple threads. Each attempt is an independent search
+     * seeded from the given seed, attempts run concurrently, and the candidate
+     * swaps of each greedy swap are scored concurrently. The result for a
+     * given seed does not depend on the number of threads.
+     * 
+     * @param seed Seed from which the seed of each attempt is derived.
+     * @param numThreads Number of threads to use for the search.
+     * @return "final cluster" that has had all specified balancing algorithms
+     *         run against it.
+     */
+    public static Cluster repartition(final Cluster currentCluster,
+                                      final List<StoreDefinition> currentStoreDefs,
+                                      final Cluster interimCluster,
+                                      final List<StoreDefinition> finalStoreDefs,
+                                      final String outputDir,
+                                      final int attempts,
+                                      final boolean disableNodeBalancing,
+                                      final boolean disableZoneBalancing,
+                                      final boolean enableRandomSwaps,
+                                      final int randomSwapAttempts,
+                                      final int randomSwapSuccesses,
+                                      final List<Integer> randomSwapZoneIds,
+                                      final boolean enableGreedySwaps,
+                                      final int greedySwapAttempts,
+                                      final int greedySwapMaxPartitionsPerNode,
+                                      final int greedySwapMaxPartitionsPerZone,
+                                      final List<Integer> greedySwapZoneIds,
+                                      final int maxContiguousPartitionsPerZone,
+                                      final long seed,
+                                      final int numThreads) {
         PartitionBalance partitionBalance = new PartitionBalance(currentCluster, currentStoreDefs);
         RebalanceUtils.dumpAnalysisToFile(outputDir,
                                           RebalanceUtils.currentClusterFileName,
                                           partitionBalance);
 
-        Cluster minCluster = interimCluster;
-
-        double minUtility = Double.MAX_VALUE;
-
-        for(int attempt = 0; attempt < attempts; attempt++) {
-            Cluster nextCandidateCluster = interimCluster;
+        Random seeds = new Random(seed);
+        ExecutorService attemptService = Executors.newFixedThreadPool(Math.max(1,
+                                                                               Math.min(attempts,
+                                                                                        numThreads)),
+                                                                      new DaemonThreadFactory("repartition-attempt-"));
+        final ExecutorService swapService = Executors.newFixedThreadPool(Math.max(1, numThreads),
+                                                                         new DaemonThreadFactory("repartition-swap-"));
+        List<Future<Pair<Cluster, String>>> candidateClusters = new ArrayList<Future<Pair<Cluster, String>>>(attempts);
+        try {
+            for(int attempt = 0; attempt < attempts; attempt++) {
+                final Random random = new Random(seeds.nextLong());
+                candidateClusters.add(attemptService.submit(new Callable<Pair<Cluster, String>>() {
+
+                    public Pair<Cluster, String> call() {
+                        ByteArrayOutputStream report = new ByteArrayOutputStream();
+                        attemptOutput.set(new PrintStream(report, true));
+                        try {
+                            Cluster candidateCluster = runAttempt();
+                            return new Pair<Cluster, String>(candidateCluster, report.toString());
+                        } finally {
+                            attemptOutput.remove();
+                        }
+                    }
 
-            if(maxContiguousPartitionsPerZone > 0) {
-                nextCandidateCluster = repeatedlyBalanceContiguousPartitionsPerZone(nextCandidateCluster,
-                                                                                    maxContiguousPartitionsPerZone);
+                    private Cluster runAttempt() {
+                        Cluster nextCandidateCluster = interimCluster;
+
+                        if(maxContiguousPartitionsPerZone > 0) {
+                            nextCandidateCluster = repeatedlyBalanceContiguousPartitionsPerZone(nextCandidateCluster,
+                                                                                                maxContiguousPartitionsPerZone,
+                                                                                                random);
+                        }
+
+                        if(!disableNodeBalancing) {
+                            nextCandidateCluster = balancePrimaryPartitions(nextCandidateCluster,
+                                                                            !disableZoneBalancing,
+                                                                            random);
+                        }
+
+                        if(enableRandomSwaps) {
+                            nextCandidateCluster = randomShufflePartitions(nextCandidateCluster,
+                                                                           randomSwapAttempts,
+                                                                           randomSwapSuccesses,
+                                                                           randomSwapZoneIds,
+                                                                           finalStoreDefs,
+                                                                           random);
+                        }
+                        if(enableGreedySwaps) {
+                            nextCandidateCluster = greedyShufflePartitions(nextCandidateCluster,
+                                                                           greedySwapAttempts,
+                                                                           greedySwapMaxPartitionsPerNode,
+                                                                           greedySwapMaxPartitionsPerZone,
+                                                                           greedySwapZoneIds,
+                                                                           finalStoreDefs,
+                                                                           random,
+                                                                           swapService,
+                                                                           numThreads);
+                        }
+                        return nextCandidateCluster;
+                    }
+                }));
             }
 
-            if(!disableNodeBalancing) {
-                nextCandidateCluster = balancePrimaryPartitions(nextCandidateCluster,
-                                                                !disableZoneBalancing);
+            Cluster minCluster = interimCluster;
+
+            double minUtility = Double.MAX_VALUE;
+
+            for(int attempt = 0; attempt < attempts; attempt++) {
+                Pair<Cluster, String> candidate = getResult(candidateClusters.get(attempt),
+                                                            "Repartitioning attempt " + attempt);
+                Cluster nextCandidateCluster = candidate.getFirst();
+                System.out.print(candidate.getSecond());
+                RebalanceUtils.validateCurrentFinalCluster(currentCluster, nextCandidateCluster);
+
+                System.out.println("-------------------------\n");
+                partitionBalance = new PartitionBalance(nextCandidateCluster, finalStoreDefs);
+                double currentUtility = partitionBalance.getUtility();
+                System.out.println("Optimization number " + attempt + ": " + currentUtility
+                                   + " max/min ratio");
+                System.out.println("-------------------------\n");
+                System.out.println(PartitionBalanceUtils.analyzeInvalidMetadataRate(interimCluster,
+                                                                                    finalStoreDefs,
+                                                                                    nextCandidateCluster,
+                                                                                    finalStoreDefs));
+
+                if(currentUtility <= minUtility) {
+                    minUtility = currentUtility;
+                    minCluster = nextCandidateCluster;
+
+                    RebalanceUtils.dumpClusterToFile(outputDir,
+                                                     RebalanceUtils.finalClusterFileName + attempt,
+                                                     minCluster);
+                    RebalanceUtils.dumpAnalysisToFile(outputDir,
+                                                      RebalanceUtils.finalClusterFileName + attempt,
+                                                      partitionBalance);
+                }
+                System.out.println("-------------------------\n");
             }
 
-            if(enableRandomSwaps) {
-                nextCandidateCluster = randomShufflePartitions(nextCandidateCluster,
-                                                               randomSwapAttempts,
-                                                               randomSwapSuccesses,
-                                                               randomSwapZoneIds,
-                                                               finalStoreDefs);
-            }
-            if(enableGreedySwaps) {
-                nextCandidateCluster = greedyShufflePartitions(nextCandidateCluster,
-                                                               greedySwapAttempts,
-                                                               greedySwapMaxPartitionsPerNode,
-                                                               greedySwapMaxPartitionsPerZone,
-                                                               greedySwapZoneIds,
-                                                               finalStoreDefs);
-            }
-            RebalanceUtils.validateCurrentFinalCluster(currentCluster, nextCandidateCluster);
-
-            System.out.println("-------------------------\n");
-            partitionBalance = new PartitionBalance(nextCandidateCluster, finalStoreDefs);
-            double currentUtility = partitionBalance.getUtility();
-            System.out.println("Optimization number " + attempt + ": " + currentUtility
-                               + " max/min ratio");
-            System.out.println("-------------------------\n");
-            System.out.println(PartitionBalanceUtils.analyzeInvalidMetadataRate(interimCluster,
-                                                                                finalStoreDefs,
-                                                                                nextCandidateCluster,
-                                                                                finalStoreDefs));
-
-            if(currentUtility <= minUtility) {
-                minUtility = currentUtility;
-                minCluster = nextCandidateCluster;
-
-                RebalanceUtils.dumpClusterToFile(outputDir, RebalanceUtils.finalClusterFileName
-                                                            + attempt, minCluster);
-                RebalanceUtils.dumpAnalysisToFile(outputDir, RebalanceUtils.finalClusterFileName
-                                                             + attempt, partitionBalance);
-            }
-            System.out.println("-------------------------\n");
+            System.out.println("\n==========================");
+            System.out.println("Final distribution");
+            partitionBalance = new PartitionBalance(minCluster, finalStoreDefs);
+            System.out.println(partitionBalance);
+
+            RebalanceUtils.dumpClusterToFile(outputDir,
+                                             RebalanceUtils.finalClusterFileName,
+                                             minCluster);
+            RebalanceUtils.dumpAnalysisToFile(outputDir,
+                                              RebalanceUtils.finalClusterFileName,
+                                              partitionBalance);
+            return minCluster;
+        } finally {
+            attemptService.shutdownNow();
+            swapService.shutdownNow();
         }
+    }
 
-        System.out.println("\n==========================");
-        System.out.println("Final distribution");
-        partitionBalance = new PartitionBalance(minCluster, finalStoreDefs);
-        System.out.println(partitionBalance);
+    /**
+     * @return the stream to which the repartitioning attempt running on the
+     *         current thread reports its progress.
+     */
+    private static PrintStream out() {
+        PrintStream out = attemptOutput.get();
+        return out == null ? System.out : out;
+    }
 
-        RebalanceUtils.dumpClusterToFile(outputDir, RebalanceUtils.finalClusterFileName, minCluster);
-        RebalanceUtils.dumpAnalysisToFile(outputDir,
-                                          RebalanceUtils.finalClusterFileName,
-                                          partitionBalance);
-        return minCluster;
+    /**
+     * Waits for a task submitted during repartitioning and unwraps its
+     * failure, if any.
+     */
+    private static <T> T getResult(Future<T> future, String description) {
+        try {
+            return future.get();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VoldemortException(description + " was interrupted", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new VoldemortException(description + " failed", e.getCause());
+        }
     }
 
     /**
@@ -303,19 +456,28 @@ public class Repartitioner {
 
         // Print out donor/stealer information
         for(Node node: donorNodes.keySet()) {
-            System.out.println("Donor Node: " + node.getId() + ", zoneId " + node.getZoneId()
-                               + ", numPartitions " + node.getNumberOfPartitions()
-                               + ", target number of partitions " + donorNodes.get(node));
+            out().println("Donor Node: " + node.getId() + ", zoneId " + node.getZoneId()
+                          + ", numPartitions " + node.getNumberOfPartitions()
+                          + ", target number of partitions " + donorNodes.get(node));
         }
         for(Node node: stealerNodes.keySet()) {
-            System.out.println("Stealer Node: " + node.getId() + ", zoneId " + node.getZoneId()
-                               + ", numPartitions " + node.getNumberOfPartitions()
-                               + ", target number of partitions " + stealerNodes.get(node));
+            out().println("Stealer Node: " + node.getId() + ", zoneId " + node.getZoneId()
+                          + ", numPartitions " + node.getNumberOfPartitions()
+                          + ", target number of partitions " + stealerNodes.get(node));
         }
 
         return new Pair<HashMap<Node, Integer>, HashMap<Node, Integer>>(donorNodes, stealerNodes);
     }
 
+    /**
+     * Same as the other balancePrimaryPartitions method, with a fresh source of
+     * randomness.
+     */
+    public static Cluster balancePrimaryPartitions(final Cluster nextCandidateCluster,
+                                                   boolean balanceZones) {
+        return balancePrimaryPartitions(nextCandidateCluster, balanceZones, new Random());
+    }
+
     /**
      * This method balances primary partitions among nodes within a zone, and
      * optionally primary partitions among zones. The balancing is done at the
@@ -327,27 +489,28 @@ public class Repartitioner {
      * @param nextCandidateCluster
      * @param balanceZones indicates whether or not number of primary partitions
      *        per zone should be balanced.
+     * @param random source of randomness for the partition moves
      * @return updated cluster
      */
     public static Cluster balancePrimaryPartitions(final Cluster nextCandidateCluster,
-                                                   boolean balanceZones) {
-        System.out.println("Balance number of partitions across all nodes and zones.");
+                                                   boolean balanceZones,
+                                                   Random random) {
+        out().println("Balance number of partitions across all nodes and zones.");
 
         Map<Integer, Integer> targetPartitionsPerZone;
         if(balanceZones) {
             targetPartitionsPerZone = Utils.distributeEvenlyIntoMap(nextCandidateCluster.getZoneIds(),
                                                                     nextCandidateCluster.getNumberOfPartitions());
 
-            System.out.println("numPartitionsPerZone");
+            out().println("numPartitionsPerZone");
             for(int zoneId: nextCandidateCluster.getZoneIds()) {
-                System.out.println(zoneId + " : "
-                                   + nextCandidateCluster.getNumberOfPartitionsInZone(zoneId)
-                                   + " -> " + targetPartitionsPerZone.get(zoneId));
+                out().println(zoneId + " : "
+                              + nextCandidateCluster.getNumberOfPartitionsInZone(zoneId) + " -> "
+                              + targetPartitionsPerZone.get(zoneId));
             }
-            System.out.println("numNodesPerZone");
+            out().println("numNodesPerZone");
             for(int zoneId: nextCandidateCluster.getZoneIds()) {
-                System.out.println(zoneId + " : "
-                                   + nextCandidateCluster.getNumberOfNodesInZone(zoneId));
+                out().println(zoneId + " : " + nextCandidateCluster.getNumberOfNodesInZone(zoneId));
             }
         } else {
             // Keep number of partitions per zone the same.
@@ -389,17 +552,16 @@ public class Repartitioner {
         // Go over every stealerNode and steal partition Ids from donor nodes
         Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
 
-        Collections.shuffle(stealerNodeKeys, new Random(System.currentTimeMillis()));
+        Collections.shuffle(stealerNodeKeys, random);
         for(Node stealerNode: stealerNodeKeys) {
             int partitionsToSteal = stealerNodes.get(stealerNode)
                                     - stealerNode.getNumberOfPartitions();
 
-            System.out.println("Node (" + stealerNode.getId() + ") in zone ("
-                               + stealerNode.getZoneId() + ") has partitionsToSteal of "
-                               + partitionsToSteal);
+            out().println("Node (" + stealerNode.getId() + ") in zone (" + stealerNode.getZoneId()
+                          + ") has partitionsToSteal of " + partitionsToSteal);
 
             while(partitionsToSteal > 0) {
-                Collections.shuffle(donorNodeKeys, new Random(System.currentTimeMillis()));
+                Collections.shuffle(donorNodeKeys, random);
 
                 // Repeatedly loop over donor nodes to distribute stealing
                 for(Node donorNode: donorNodeKeys) {
@@ -414,7 +576,7 @@ public class Repartitioner {
 
                     List<Integer> donorPartitions = Lists.newArrayList(currentDonorNode.getPartitionIds());
 
-                    Collections.shuffle(donorPartitions, new Random(System.currentTimeMillis()));
+                    Collections.shuffle(donorPartitions, random);
                     for(int donorPartition: donorPartitions) {
                         Cluster intermediateCluster = UpdateClusterUtils.createUpdatedCluster(returnCluster,
                                                                                               stealerNode.getId(),
@@ -423,9 +585,9 @@ public class Repartitioner {
                         returnCluster = intermediateCluster;
                         partitionsToSteal--;
                         partitionsToDonate--;
-                        System.out.println("Stealer node " + stealerNode.getId() + ", donor node "
-                                           + currentDonorNode.getId() + ", partition stolen "
-                                           + donorPartition);
+                        out().println("Stealer node " + stealerNode.getId() + ", donor node "
+                                      + currentDonorNode.getId() + ", partition stolen "
+                                      + donorPartition);
 
                         if(partitionsToSteal == 0 || partitionsToDonate == 0)
                             break;
@@ -439,6 +601,18 @@ public class Repartitioner {
         return returnCluster;
     }
 
+    /**
+     * Same as the other repeatedlyBalanceContiguousPartitionsPerZone method,
+     * with a fresh source of randomness.
+     */
+    public static Cluster
+            repeatedlyBalanceContiguousPartitionsPerZone(final Cluster nextCandidateCluster,
+                                                         final int maxContiguousPartitionsPerZone) {
+        return repeatedlyBalanceContiguousPartitionsPerZone(nextCandidateCluster,
+                                                            maxContiguousPartitionsPerZone,
+                                                            new Random());
+    }
+
     /**
      * Loops over cluster and repeatedly tries to break up contiguous runs of
      * partitions. After each phase of breaking up contiguous partitions, random
@@ -449,12 +623,14 @@ public class Repartitioner {
      * 
      * @param nextCandidateCluster
      * @param maxContiguousPartitionsPerZone See RebalanceCLI.
+     * @param random source of randomness for the partition moves
      * @return updated cluster
      */
     public static Cluster
             repeatedlyBalanceContiguousPartitionsPerZone(final Cluster nextCandidateCluster,
-                                                         final int maxContiguousPartitionsPerZone) {
-        System.out.println("Looping to evenly balance partitions across zones while limiting contiguous partitions");
+                                                         final int maxContiguousPartitionsPerZone,
+                                                         Random random) {
+        out().println("Looping to evenly balance partitions across zones while limiting contiguous partitions");
         // This loop is hard to make definitive. I.e., there are corner cases
         // for small clusters and/or clusters with few partitions for which it
         // may be impossible to achieve tight limits on contiguous run lenghts.
@@ -464,16 +640,29 @@ public class Repartitioner {
         Cluster returnCluster = nextCandidateCluster;
         for(int i = 0; i < repeatContigBalance; i++) {
             returnCluster = balanceContiguousPartitionsPerZone(returnCluster,
-                                                               maxContiguousPartitionsPerZone);
+                                                               maxContiguousPartitionsPerZone,
+                                                               random);
 
-            returnCluster = balancePrimaryPartitions(returnCluster, false);
-            System.out.println("Completed round of balancing contiguous partitions: round "
-                               + (i + 1) + " of " + repeatContigBalance);
+            returnCluster = balancePrimaryPartitions(returnCluster, false, random);
+            out().println("Completed round of balancing contiguous partitions: round " + (i + 1)
+                          + " of " + repeatContigBalance);
         }
 
         return returnCluster;
     }
 
+    /**
+     * Same as the other balanceContiguousPartitionsPerZone method, with a fresh
+     * source of randomness.
+     */
+    public static Cluster
+            balanceContiguousPartitionsPerZone(final Cluster nextCandidateCluster,
+                                               final int maxContiguousPartitionsPerZone) {
+        return balanceContiguousPartitionsPerZone(nextCandidateCluster,
+                                                  maxContiguousPartitionsPerZone,
+                                                  new Random());
+    }
+
     /**
      * Ensures that no more than maxContiguousPartitionsPerZone partitions are
      * contiguous within a single zone.
@@ -484,27 +673,29 @@ public class Repartitioner {
      * 
      * @param nextCandidateCluster cluster metadata
      * @param maxContiguousPartitionsPerZone See RebalanceCLI.
+     * @param random source of randomness for the partition moves
      * @return Return updated cluster metadata.
      */
     public static Cluster
             balanceContiguousPartitionsPerZone(final Cluster nextCandidateCluster,
-                                               final int maxContiguousPartitionsPerZone) {
-        System.out.println("Balance number of contiguous partitions within a zone.");
-        System.out.println("numPartitionsPerZone");
+                                               final int maxContiguousPartitionsPerZone,
+                                               Random random) {
+        out().println("Balance number of contiguous partitions within a zone.");
+        out().println("numPartitionsPerZone");
         for(int zoneId: nextCandidateCluster.getZoneIds()) {
-            System.out.println(zoneId + " : "
-                               + nextCandidateCluster.getNumberOfPartitionsInZone(zoneId));
+            out().println(zoneId + " : "
+                          + nextCandidateCluster.getNumberOfPartitionsInZone(zoneId));
         }
-        System.out.println("numNodesPerZone");
+        out().println("numNodesPerZone");
         for(int zoneId: nextCandidateCluster.getZoneIds()) {
-            System.out.println(zoneId + " : " + nextCandidateCluster.getNumberOfNodesInZone(zoneId));
+            out().println(zoneId + " : " + nextCandidateCluster.getNumberOfNodesInZone(zoneId));
         }
 
         // Break up contiguous partitions within each zone
         HashMap<Integer, List<Integer>> partitionsToRemoveFromZone = Maps.newHashMap();
-        System.out.println("Contiguous partitions");
+        out().println("Contiguous partitions");
         for(Integer zoneId: nextCandidateCluster.getZoneIds()) {
-            System.out.println("\tZone: " + zoneId);
+            out().println("\tZone: " + zoneId);
             Map<Integer, Integer> partitionToRunLength = PartitionBalanceUtils.getMapOfContiguousPartitions(nextCandidateCluster,
                                                                                                             zoneId);
 
@@ -517,19 +708,18 @@ public class Repartitioner {
                         contiguousPartitions.add(partitionId
                                                  % nextCandidateCluster.getNumberOfPartitions());
                     }
-                    System.out.println("Contiguous partitions: " + contiguousPartitions);
+                    out().println("Contiguous partitions: " + contiguousPartitions);
                     partitionsToRemoveFromThisZone.addAll(Utils.removeItemsToSplitListEvenly(contiguousPartitions,
                                                                                              maxContiguousPartitionsPerZone));
                 }
             }
 
             partitionsToRemoveFromZone.put(zoneId, partitionsToRemoveFromThisZone);
-            System.out.println("\t\tPartitions to remove: " + partitionsToRemoveFromThisZone);
+            out().println("\t\tPartitions to remove: " + partitionsToRemoveFromThisZone);
         }
 
         Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
 
-        Random r = new Random();
         for(int zoneId: returnCluster.getZoneIds()) {
             for(int partitionId: partitionsToRemoveFromZone.get(zoneId)) {
                 // Pick a random other zone Id
@@ -539,10 +729,10 @@ public class Repartitioner {
                         otherZoneIds.add(otherZoneId);
                     }
                 }
-                int whichOtherZoneId = otherZoneIds.get(r.nextInt(otherZoneIds.size()));
+                int whichOtherZoneId = otherZoneIds.get(random.nextInt(otherZoneIds.size()));
 
                 // Pick a random node from other zone ID
-                int whichNodeOffset = r.nextInt(returnCluster.getNumberOfNodesInZone(whichOtherZoneId));
+                int whichNodeOffset = random.nextInt(returnCluster.getNumberOfNodesInZone(whichOtherZoneId));
                 int whichNodeId = new ArrayList<Integer>(returnCluster.getNodeIdsInZone(whichOtherZoneId)).get(whichNodeOffset);
 
                 // Steal partition from one zone to another!
@@ -584,59 +774,38 @@ public class Repartitioner {
         return returnCluster;
     }
 
+    /**
+     * Same as the other swapRandomPartitionsWithinZone method, with a fresh
+     * source of randomness.
+     */
+    public static Cluster swapRandomPartitionsWithinZone(final Cluster nextCandidateCluster,
+                                                         final int zoneId) {
+        return swapRandomPartitionsWithinZone(nextCandidateCluster, zoneId, new Random());
+    }
+
     /**
      * Within a single zone, swaps one random partition on one random node with
      * another random partition on different random node.
      * 
      * @param nextCandidateCluster
      * @param zoneId Zone ID within which to shuffle partitions
+     * @param random source of randomness for the swap
      * @return updated cluster
      */
     public static Cluster swapRandomPartitionsWithinZone(final Cluster nextCandidateCluster,
-                                                         final int zoneId) {
-        Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
-        Random r = new Random();
-
+                                                         final int zoneId,
+                                                         Random random) {
         List<Integer> nodeIdsInZone = new ArrayList<Integer>(nextCandidateCluster.getNodeIdsInZone(zoneId));
+        return swapRandomPartitionsAmongNodes(nextCandidateCluster, nodeIdsInZone, random);
+    }
 
-        if(nodeIdsInZone.size() == 0) {
-            return returnCluster;
-        }
-
-        // Select random stealer node
-        int stealerNodeOffset = r.nextInt(nodeIdsInZone.size());
-        Integer stealerNodeId = nodeIdsInZone.get(stealerNodeOffset);
-
-        // Select random stealer partition
-        List<Integer> stealerPartitions = returnCluster.getNodeById(stealerNodeId)
-                                                       .getPartitionIds();
-        if(stealerPartitions.size() == 0) {
-            return nextCandidateCluster;
-        }
-        int stealerPartitionOffset = r.nextInt(stealerPartitions.size());
-        int stealerPartitionId = stealerPartitions.get(stealerPartitionOffset);
-
-        // Select random donor node
-        List<Integer> donorNodeIds = new ArrayList<Integer>();
-        donorNodeIds.addAll(nodeIdsInZone);
-        donorNodeIds.remove(stealerNodeId);
-
-        if(donorNodeIds.isEmpty()) { // No donor nodes!
-            return returnCluster;
-        }
-        int donorIdOffset = r.nextInt(donorNodeIds.size());
-        Integer donorNodeId = donorNodeIds.get(donorIdOffset);
-
-        // Select random donor partition
-        List<Integer> donorPartitions = returnCluster.getNodeById(donorNodeId).getPartitionIds();
-        int donorPartitionOffset = r.nextInt(donorPartitions.size());
-        int donorPartitionId = donorPartitions.get(donorPartitionOffset);
-
-        return swapPartitions(returnCluster,
-                              stealerNodeId,
-                              stealerPartitionId,
-                              donorNodeId,
-                              donorPartitionId);
+    /**
+     * Same as the other swapRandomPartitionsAmongNodes method, with a fresh
+     * source of randomness.
+     */
+    public static Cluster swapRandomPartitionsAmongNodes(final Cluster nextCandidateCluster,
+                                                         List<Integer> nodeIds) {
+        return swapRandomPartitionsAmongNodes(nextCandidateCluster, nodeIds, new Random());
     }
 
     /**
@@ -644,28 +813,44 @@ public class Repartitioner {
      * 
      * @param nextCandidateCluster
      * @param nodeIds
+     * @param random source of randomness for the swap
      * @return shuffled cluster
      */
     public static Cluster swapRandomPartitionsAmongNodes(final Cluster nextCandidateCluster,
-                                                         List<Integer> nodeIds) {
-        Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
-        Random r = new Random();
+                                                         List<Integer> nodeIds,
+                                                         Random random) {
+        int[] swap = pickRandomSwap(nextCandidateCluster, nodeIds, random);
+        if(swap == null) {
+            return Cluster.cloneCluster(nextCandidateCluster);
+        }
+        return swapPartitions(nextCandidateCluster, swap[0], swap[1], swap[2], swap[3]);
+    }
 
+    /**
+     * Selects one random partition on one random node and another random
+     * partition on a different random node among the nodes specified.
+     * 
+     * @return array of stealer node ID, stealer partition ID, donor node ID and
+     *         donor partition ID, or null if there is nothing to swap.
+     */
+    private static int[] pickRandomSwap(final Cluster nextCandidateCluster,
+                                        List<Integer> nodeIds,
+                                        Random random) {
         if(nodeIds.isEmpty()) {
-            return returnCluster;
+            return null;
         }
 
         // Select random stealer node
-        int stealerNodeOffset = r.nextInt(nodeIds.size());
+        int stealerNodeOffset = random.nextInt(nodeIds.size());
         Integer stealerNodeId = nodeIds.get(stealerNodeOffset);
 
         // Select random stealer partition
-        List<Integer> stealerPartitions = returnCluster.getNodeById(stealerNodeId)
-                                                       .getPartitionIds();
+        List<Integer> stealerPartitions = nextCandidateCluster.getNodeById(stealerNodeId)
+                                                              .getPartitionIds();
         if(stealerPartitions.size() == 0) {
-            return nextCandidateCluster;
+            return null;
         }
-        int stealerPartitionOffset = r.nextInt(stealerPartitions.size());
+        int stealerPartitionOffset = random.nextInt(stealerPartitions.size());
         int stealerPartitionId = stealerPartitions.get(stealerPartitionOffset);
 
         // Select random donor node
@@ -674,39 +859,63 @@ public class Repartitioner {
         donorNodeIds.remove(stealerNodeId);
 
         if(donorNodeIds.isEmpty()) { // No donor nodes!
-            return returnCluster;
+            return null;
         }
-        int donorIdOffset = r.nextInt(donorNodeIds.size());
+        int donorIdOffset = random.nextInt(donorNodeIds.size());
         Integer donorNodeId = donorNodeIds.get(donorIdOffset);
 
         // Select random donor partition
-        List<Integer> donorPartitions = returnCluster.getNodeById(donorNodeId).getPartitionIds();
-        int donorPartitionOffset = r.nextInt(donorPartitions.size());
+        List<Integer> donorPartitions = nextCandidateCluster.getNodeById(donorNodeId)
+                                                            .getPartitionIds();
+        if(donorPartitions.size() == 0) {
+            return null;
+        }
+        int donorPartitionOffset = random.nextInt(donorPartitions.size());
         int donorPartitionId = donorPartitions.get(donorPartitionOffset);
 
-        return swapPartitions(returnCluster,
-                              stealerNodeId,
-                              stealerPartitionId,
-                              donorNodeId,
-                              donorPartitionId);
+        return new int[] { stealerNodeId, stealerPartitionId, donorNodeId, donorPartitionId };
+    }
+
+    /**
+     * Same as the other randomShufflePartitions method, with a fresh source of
+     * randomness.
+     */
+    public static Cluster randomShufflePartitions(final Cluster nextCandidateCluster,
+                                                  final int randomSwapAttempts,
+                                                  final int randomSwapSuccesses,
+                                                  final List<Integer> randomSwapZoneIds,
+                                                  List<StoreDefinition> storeDefs) {
+        return randomShufflePartitions(nextCandidateCluster,
+                                       randomSwapAttempts,
+                                       randomSwapSuccesses,
+                                       randomSwapZoneIds,
+                                       storeDefs,
+                                       new Random());
     }
 
     /**
      * Randomly shuffle partitions between nodes within every zone.
      * 
+     * Each random swap depends on whether the previous one was accepted, so
+     * swaps are tried one after another. Each swap is scored incrementally
+     * though, so only the part of the balance affected by the swap is
+     * recomputed.
+     * 
      * @param nextCandidateCluster cluster object.
      * @param randomSwapAttempts See RebalanceCLI.
      * @param randomSwapSuccesses See RebalanceCLI.
      * @param randomSwapZoneIds The set of zoneIds to consider. Each zone is done
      *        independently.
      * @param storeDefs List of store definitions
+     * @param random source of randomness for the swaps
      * @return updated cluster
      */
     public static Cluster randomShufflePartitions(final Cluster nextCandidateCluster,
                                                   final int randomSwapAttempts,
                                                   final int randomSwapSuccesses,
                                                   final List<Integer> randomSwapZoneIds,
-                                                  List<StoreDefinition> storeDefs) {
+                                                  List<StoreDefinition> storeDefs,
+                                                  Random random) {
         List<Integer> zoneIds = null;
         if(randomSwapZoneIds.isEmpty()) {
             zoneIds = new ArrayList<Integer>(nextCandidateCluster.getZoneIds());
@@ -715,8 +924,9 @@ public class Repartitioner {
         }
 
         List<Integer> nodeIds = new ArrayList<Integer>();
-        Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
-        double currentUtility = new PartitionBalance(returnCluster, storeDefs).getUtility();
+        IncrementalPartitionBalance balance = new IncrementalPartitionBalance(Cluster.cloneCluster(nextCandidateCluster),
+                                                                              storeDefs);
+        double currentUtility = balance.getUtility();
 
         int successes = 0;
         for(int i = 0; i < randomSwapAttempts; i++) {
@@ -733,24 +943,45 @@ public class Repartitioner {
             Set<Integer> nodeIdSet = nextCandidateCluster.getNodeIdsInZone(zoneIds.get(zoneIdOffset));
             nodeIds = new ArrayList<Integer>(nodeIdSet);
 
-            Collections.shuffle(zoneIds, new Random(System.currentTimeMillis()));
-            Cluster shuffleResults = swapRandomPartitionsAmongNodes(returnCluster, nodeIds);
+            Collections.shuffle(zoneIds, random);
+            int[] swap = pickRandomSwap(balance.getCluster(), nodeIds, random);
+            if(swap == null) {
+                continue;
+            }
 
-            double nextUtility = new PartitionBalance(shuffleResults, storeDefs).getUtility();
+            double nextUtility = balance.scoreSwap(swap[0], swap[1], swap[2], swap[3]);
             if(nextUtility < currentUtility) {
-                System.out.println("Swap improved max-min ratio: " + currentUtility + " -> "
-                                   + nextUtility + " (improvement " + successes
-                                   + " on swap attempt " + i + ")");
+                out().println("Swap improved max-min ratio: " + currentUtility + " -> "
+                              + nextUtility + " (improvement " + successes + " on swap attempt " + i
+                              + ")");
                 successes++;
-                returnCluster = shuffleResults;
-                currentUtility = nextUtility;
+                currentUtility = balance.applySwap(swap[0], swap[1], swap[2], swap[3]);
             }
             if(successes >= randomSwapSuccesses) {
                 // Enough successes, move on.
                 break;
             }
         }
-        return returnCluster;
+        return balance.getCluster();
+    }
+
+    /**
+     * Same as the other swapGreedyRandomPartitions method, with a fresh source
+     * of randomness and the candidate swaps scored on the calling thread.
+     */
+    public static Cluster swapGreedyRandomPartitions(final Cluster nextCandidateCluster,
+                                                     final List<Integer> nodeIds,
+                                                     final int greedySwapMaxPartitionsPerNode,
+                                                     final int greedySwapMaxPartitionsPerZone,
+                                                     List<StoreDefinition> storeDefs) {
+        return swapGreedyRandomPartitions(nextCandidateCluster,
+                                          nodeIds,
+                                          greedySwapMaxPartitionsPerNode,
+                                          greedySwapMaxPartitionsPerZone,
+                                          storeDefs,
+                                          new Random(),
+                                          null,
+                                          1);
     }
 
     /**
@@ -766,32 +997,41 @@ public class Repartitioner {
      * Q1}, {P2, Q2}...{P2,Q1}, {P2,Q2}, in total 20 such swap pairs will be
      * generated. The best among these swap pairs will be chosen.
      * 
+     * The candidate swaps are all drawn up front and then scored concurrently
+     * on the given executor. Ties are broken in favor of the candidate drawn
+     * first, so the chosen swap does not depend on the number of threads.
+     * 
      * @param nextCandidateCluster
      * @param nodeIds Node IDs within which to shuffle partitions
      * @param greedySwapMaxPartitionsPerNode See RebalanceCLI.
      * @param greedySwapMaxPartitionsPerZone See RebalanceCLI.
      * @param storeDefs
+     * @param random source of randomness for selecting candidate swaps
+     * @param swapService executor on which candidate swaps are scored. If null,
+     *        candidates are scored on the calling thread.
+     * @param numThreads number of threads of swapService
      * @return updated cluster
      */
     public static Cluster swapGreedyRandomPartitions(final Cluster nextCandidateCluster,
                                                      final List<Integer> nodeIds,
                                                      final int greedySwapMaxPartitionsPerNode,
                                                      final int greedySwapMaxPartitionsPerZone,
-                                                     List<StoreDefinition> storeDefs) {
+                                                     List<StoreDefinition> storeDefs,
+                                                     Random random,
+                                                     ExecutorService swapService,
+                                                     int numThreads) {
 
-        System.out.println("GreedyRandom : nodeIds:" + nodeIds);
-        Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
-        double currentUtility = new PartitionBalance(returnCluster, storeDefs).getUtility();
-        int nodeIdA = -1;
-        int nodeIdB = -1;
-        int partitionIdA = -1;
-        int partitionIdB = -1;
+        out().println("GreedyRandom : nodeIds:" + nodeIds);
+        final IncrementalPartitionBalance balance = new IncrementalPartitionBalance(Cluster.cloneCluster(nextCandidateCluster),
+                                                                                    storeDefs);
+        Cluster returnCluster = balance.getCluster();
 
+        final List<int[]> candidateSwaps = new ArrayList<int[]>();
         for(int nodeIdAPrime: nodeIds) {
-            System.out.println("GreedyRandom : processing nodeId:" + nodeIdAPrime);
+            out().println("GreedyRandom : processing nodeId:" + nodeIdAPrime);
             List<Integer> partitionIdsAPrime = new ArrayList<Integer>();
             partitionIdsAPrime.addAll(returnCluster.getNodeById(nodeIdAPrime).getPartitionIds());
-            Collections.shuffle(partitionIdsAPrime);
+            Collections.shuffle(partitionIdsAPrime, random);
 
             int maxPartitionsInAPrime = Math.min(greedySwapMaxPartitionsPerNode,
                                                  partitionIdsAPrime.size());
@@ -809,34 +1049,88 @@ public class Repartitioner {
                     }
                 }
 
-                Collections.shuffle(partitionIdsZone);
+                Collections.shuffle(partitionIdsZone, random);
                 int maxPartitionsInZone = Math.min(greedySwapMaxPartitionsPerZone,
                                                    partitionIdsZone.size());
                 for(int offsetZone = 0; offsetZone < maxPartitionsInZone; offsetZone++) {
-                    Integer nodeIdBPrime = partitionIdsZone.get(offsetZone).getFirst();
-                    Integer partitionIdBPrime = partitionIdsZone.get(offsetZone).getSecond();
-                    Cluster swapResult = swapPartitions(returnCluster,
-                                                        nodeIdAPrime,
-                                                        partitionIdAPrime,
-                                                        nodeIdBPrime,
-                                                        partitionIdBPrime);
-                    double swapUtility = new PartitionBalance(swapResult, storeDefs).getUtility();
-                    if(swapUtility < currentUtility) {
-                        currentUtility = swapUtility;
-                        System.out.println(" -> " + currentUtility);
-                        nodeIdA = nodeIdAPrime;
-                        partitionIdA = partitionIdAPrime;
-                        nodeIdB = nodeIdBPrime;
-                        partitionIdB = partitionIdBPrime;
-                    }
+                    candidateSwaps.add(new int[] { nodeIdAPrime, partitionIdAPrime,
+                            partitionIdsZone.get(offsetZone).getFirst(),
+                            partitionIdsZone.get(offsetZone).getSecond() });
                 }
             }
         }
 
-        if(nodeIdA == -1) {
+        final double[] swapUtilities = new double[candidateSwaps.size()];
+        if(swapService == null) {
+            scoreSwaps(balance, candidateSwaps, swapUtilities, 0, candidateSwaps.size());
+        } else {
+            // Split the candidates into a few chunks per thread so that a
+            // chunk of expensive swaps does not hold up the rest.
+            int numChunks = Math.max(1, Math.min(candidateSwaps.size(), 4 * Math.max(1, numThreads)));
+            List<Future<Void>> scoredChunks = new ArrayList<Future<Void>>(numChunks);
+            for(int chunk = 0; chunk < numChunks; chunk++) {
+                final int from = (int) ((long) candidateSwaps.size() * chunk / numChunks);
+                final int to = (int) ((long) candidateSwaps.size() * (chunk + 1) / numChunks);
+                scoredChunks.add(swapService.submit(new Callable<Void>() {
+
+                    public Void call() {
+                        scoreSwaps(balance, candidateSwaps, swapUtilities, from, to);
+                        return null;
+                    }
+                }));
+            }
+            for(Future<Void> scoredChunk: scoredChunks) {
+                getResult(scoredChunk, "Scoring greedy swaps");
+            }
+        }
+
+        double currentUtility = balance.getUtility();
+        int bestSwap = -1;
+        for(int i = 0; i < swapUtilities.length; i++) {
+            if(swapUtilities[i] < currentUtility) {
+                currentUtility = swapUtilities[i];
+                bestSwap = i;
+            }
+        }
+
+        if(bestSwap == -1) {
             return returnCluster;
         }
-        return swapPartitions(returnCluster, nodeIdA, partitionIdA, nodeIdB, partitionIdB);
+        int[] swap = candidateSwaps.get(bestSwap);
+        out().println(" -> " + currentUtility);
+        return swapPartitions(returnCluster, swap[0], swap[1], swap[2], swap[3]);
+    }
+
+    private static void scoreSwaps(IncrementalPartitionBalance balance,
+                                   List<int[]> candidateSwaps,
+                                   double[] swapUtilities,
+                                   int from,
+                                   int to) {
+        for(int i = from; i < to; i++) {
+            int[] swap = candidateSwaps.get(i);
+            swapUtilities[i] = balance.scoreSwap(swap[0], swap[1], swap[2], swap[3]);
+        }
+    }
+
+    /**
+     * Same as the other greedyShufflePartitions method, with a fresh source of
+     * randomness and the candidate swaps scored on the calling thread.
+     */
+    public static Cluster greedyShufflePartitions(final Cluster nextCandidateCluster,
+                                                  final int greedyAttempts,
+                                                  final int greedySwapMaxPartitionsPerNode,
+                                                  final int greedySwapMaxPartitionsPerZone,
+                                                  List<Integer> greedySwapZoneIds,
+                                                  List<StoreDefinition> storeDefs) {
+        return greedyShufflePartitions(nextCandidateCluster,
+                                       greedyAttempts,
+                                       greedySwapMaxPartitionsPerNode,
+                                       greedySwapMaxPartitionsPerZone,
+                                       greedySwapZoneIds,
+                                       storeDefs,
+                                       new Random(),
+                                       null,
+                                       1);
     }
 
     /**
@@ -857,6 +1151,10 @@ public class Repartitioner {
      * @param greedySwapZoneIds The set of zoneIds to consider. Each zone is done
      *        independently.
      * @param storeDefs
+     * @param random source of randomness for selecting candidate swaps
+     * @param swapService executor on which candidate swaps are scored. If null,
+     *        candidates are scored on the calling thread.
+     * @param numThreads number of threads of swapService
      * @return updated cluster
      */
     public static Cluster greedyShufflePartitions(final Cluster nextCandidateCluster,
@@ -864,7 +1162,10 @@ public class Repartitioner {
                                                   final int greedySwapMaxPartitionsPerNode,
                                                   final int greedySwapMaxPartitionsPerZone,
                                                   List<Integer> greedySwapZoneIds,
-                                                  List<StoreDefinition> storeDefs) {
+                                                  List<StoreDefinition> storeDefs,
+                                                  Random random,
+                                                  ExecutorService swapService,
+                                                  int numThreads) {
         List<Integer> zoneIds = null;
         if(greedySwapZoneIds.isEmpty()) {
             zoneIds = new ArrayList<Integer>(nextCandidateCluster.getZoneIds());
@@ -874,7 +1175,7 @@ public class Repartitioner {
 
         List<Integer> nodeIds = new ArrayList<Integer>();
         Cluster returnCluster = Cluster.cloneCluster(nextCandidateCluster);
-        double currentUtility = new PartitionBalance(returnCluster, storeDefs).getUtility();
+        double currentUtility = new IncrementalPartitionBalance(returnCluster, storeDefs).getUtility();
 
         for(int i = 0; i < greedyAttempts; i++) {
 
@@ -889,17 +1190,19 @@ public class Repartitioner {
             Set<Integer> nodeIdSet = nextCandidateCluster.getNodeIdsInZone(zoneIds.get(zoneIdOffset));
             nodeIds = new ArrayList<Integer>(nodeIdSet);
 
-            Collections.shuffle(zoneIds, new Random(System.currentTimeMillis()));
+            Collections.shuffle(zoneIds, random);
             Cluster shuffleResults = swapGreedyRandomPartitions(returnCluster,
                                                                 nodeIds,
                                                                 greedySwapMaxPartitionsPerNode,
                                                                 greedySwapMaxPartitionsPerZone,
-                                                                storeDefs);
-
-            double nextUtility = new PartitionBalance(shuffleResults, storeDefs).getUtility();
-            System.out.println("Swap improved max-min ratio: " + currentUtility + " -> "
-                               + nextUtility + " (swap attempt " + i + " in zone "
-                               + zoneIds.get(zoneIdOffset) + ")");
+                                                                storeDefs,
+                                                                random,
+                                                                swapService,
+                                                                numThreads);
+
+            double nextUtility = new IncrementalPartitionBalance(shuffleResults, storeDefs).getUtility();
+            out().println("Swap improved max-min ratio: " + currentUtility + " -> " + nextUtility
+                          + " (swap attempt " + i + " in zone " + zoneIds.get(zoneIdOffset) + ")");
             returnCluster = shuffleResults;
             currentUtility = nextUtility;
         }
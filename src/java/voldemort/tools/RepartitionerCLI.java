@@ -137,6 +137,17 @@ public class RepartitionerCLI {
               .withRequiredArg()
               .ofType(Integer.class)
               .describedAs("num-contiguous");
+        parser.accepts("seed",
+                       "Seed for the random choices made while repartitioning. Repartitioning with the same seed produces the same cluster. [Default: current time]")
+              .withRequiredArg()
+              .ofType(Long.class)
+              .describedAs("seed");
+        parser.accepts("num-threads",
+                       "Number of threads used to run attempts and score greedy swaps concurrently. [Default:"
+                               + Repartitioner.DEFAULT_NUM_THREADS + " ]")
+              .withRequiredArg()
+              .ofType(Integer.class)
+              .describedAs("num-threads");
     }
 
     private static void printUsage() {
@@ -165,6 +176,8 @@ public class RepartitionerCLI {
         help.append("    --greedy-max-partitions-per-zone num-partitions [ num-partitions per zone to consider in each greedy pass. Partitions selected randomly from all partitions in zone not on node being considered. ] \n");
         help.append("    --greedy-swap-zoneids zoneId(s) [Only swaps partitions within the specified zone(s)] \n");
         help.append("    --max-contiguous-partitions num-contiguous [ Max allowed contiguous partition IDs within a zone ] \n");
+        help.append("    --seed seed [ Seed for the random choices made; the same seed produces the same cluster ] \n");
+        help.append("    --num-threads num-threads [ Number of threads used to search for a better partitioning ] \n");
 
         try {
             parser.printHelpOn(System.out);
@@ -267,6 +280,8 @@ public class RepartitionerCLI {
         int maxContiguousPartitionsPerZone = CmdUtils.valueOf(options,
                                                               "max-contiguous-partitions",
                                                               Repartitioner.DEFAULT_MAX_CONTIGUOUS_PARTITIONS);
+        long seed = CmdUtils.valueOf(options, "seed", System.currentTimeMillis());
+        int numThreads = CmdUtils.valueOf(options, "num-threads", Repartitioner.DEFAULT_NUM_THREADS);
 
         // Sanity check optional repartitioning args
         if(disableNodeBalancing && !enableRandomSwaps && !enableGreedySwaps
@@ -299,7 +314,9 @@ public class RepartitionerCLI {
                                   greedyMaxPartitionsPerNode,
                                   greedyMaxPartitionsPerZone,
                                   greedySwapZoneIds,
-                                  maxContiguousPartitionsPerZone);
+                                  maxContiguousPartitionsPerZone,
+                                  seed,
+                                  numThreads);
 
     }
 }
@@ -423,6 +423,22 @@ public class ByteUtils {
         return getDigest("SHA-1").digest(input);
     }
 
+    /**
+     * Spread the bits of a 64-bit hash, using the 64-bit finalizer of
+     * MurmurHash3, so that every input bit affects every output bit
+     * 
+     * @param h The hash to mix
+     * @return The mixed hash
+     */
+    public static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
     /**
      * Compare two byte arrays. Two arrays are equal if they are the same size
      * and have the same contents. Otherwise b1 is smaller iff it is a prefix of
@@ -27,6 +27,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import joptsimple.OptionParser;
@@ -36,8 +41,11 @@ import org.apache.log4j.Logger;
 
 import voldemort.VoldemortException;
 import voldemort.client.ClientConfig;
+import voldemort.client.protocol.VoldemortFilter;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.protocol.admin.AdminClientConfig;
+import voldemort.client.protocol.admin.KeyRangeDigest;
+import voldemort.client.protocol.admin.filter.KeyRangeFilter;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategyFactory;
@@ -65,6 +73,24 @@ public class ConsistencyCheck {
     private RetentionChecker retentionChecker;
     private KeyFetchTracker keyFetchTracker;
 
+    private NodeThrottler nodeThrottler = new NodeThrottler(0);
+    private int digestRanges = 0;
+    private long maxPendingKeys = DEFAULT_MAX_PENDING_KEYS;
+
+    // Per key range counts of the pass in progress, reported once the pass
+    // knows which ranges it compared
+    private KeyRangeFilter passFilter;
+    private long[] passGoodKeys;
+    private long[] passExpired;
+
+    public static final long DEFAULT_MAX_PENDING_KEYS = 1000000;
+
+    /**
+     * Number of ranges the partition is split into when keys are compared
+     * without digests and more than maxPendingKeys keys are pending
+     */
+    private static final int PENDING_KEY_RANGES = 1024;
+
     public ConsistencyCheck(List<String> urls,
                             String storeName,
                             int partitionId,
@@ -75,6 +101,39 @@ public class ConsistencyCheck {
         this.reporter = new Reporter(badKeyWriter);
     }
 
+    /**
+     * Share a throttler between checkers so that the fetch rate against each
+     * source node is bounded no matter how many partitions are checked
+     * concurrently
+     * 
+     * @param nodeThrottler throttler applied to every fetched record
+     */
+    public void setNodeThrottler(NodeThrottler nodeThrottler) {
+        this.nodeThrottler = nodeThrottler;
+    }
+
+    /**
+     * Enable digest mode. Each replica first summarizes the partition, on the
+     * server, into the given number of key ranges and only ranges whose
+     * digests disagree are compared key by key.
+     * 
+     * @param digestRanges number of ranges per partition; 0 disables digest
+     *        mode
+     */
+    public void setDigestRanges(int digestRanges) {
+        this.digestRanges = digestRanges;
+    }
+
+    /**
+     * Limits how many keys are held in memory at once by comparing the keys
+     * (or, in digest mode, the divergent ranges) in several passes
+     * 
+     * @param maxPendingKeys approximate upper bound of keys kept per pass
+     */
+    public void setMaxPendingKeys(long maxPendingKeys) {
+        this.maxPendingKeys = maxPendingKeys;
+    }
+
     /**
      * Connect to the clusters using given urls and start fetching process on
      * correct nodes
@@ -193,28 +252,165 @@ public class ConsistencyCheck {
      * @return Results in form of ConsistencyCheckStats
      */
     public Reporter execute() throws IOException {
-        Map<ClusterNode, Iterator<Pair<ByteArray, Versioned<byte[]>>>> nodeFetchIteratorMap;
-        nodeFetchIteratorMap = new HashMap<ClusterNode, Iterator<Pair<ByteArray, Versioned<byte[]>>>>();
-        /* start fetch from each node */
+        try {
+            if(digestRanges > 0) {
+                executeDigest();
+            } else {
+                Set<Integer> ranges = new HashSet<Integer>();
+                for(int range = 0; range < PENDING_KEY_RANGES; range++) {
+                    ranges.add(range);
+                }
+                compareRanges(PENDING_KEY_RANGES, ranges, true);
+            }
+        } finally {
+            /* adminClient shutdown */
+            for(AdminClient adminClient: adminClients) {
+                if(adminClient != null) {
+                    adminClient.close();
+                }
+            }
+        }
+
+        return reporter;
+    }
+
+    /**
+     * Have every replica summarize the partition into per-range digests,
+     * count the keys of ranges that agree as consistent, and compare the
+     * remaining ranges key by key in batches of at most maxPendingKeys keys.
+     * The digests are computed on the servers, so only the divergent ranges
+     * are ever streamed.
+     */
+    private void executeDigest() throws IOException {
+        boolean hashValues = urls.size() > 1;
+        Long expiredBeforeMs = null;
+        if(!hashValues && retentionChecker.getExpiredTimeMs() > 0) {
+            expiredBeforeMs = retentionChecker.getExpiredTimeMs();
+        }
+
+        List<KeyRangeDigest> digests = new ArrayList<KeyRangeDigest>(clusterNodeList.size());
         for(ClusterNode clusterNode: clusterNodeList) {
             AdminClient adminClient = adminClients.get(clusterNode.getPrefixId());
-            List<Integer> singlePartition = new ArrayList<Integer>();
-            singlePartition.add(partitionId);
             if(logger.isDebugEnabled()) {
-                logger.debug("Start fetch request to Node[" + clusterNode.toString()
-                             + "] for partition[" + partitionId + "] of store[" + storeName + "]");
+                logger.debug("Start digest request to Node[" + clusterNode.toString()
+                             + "] for partition[" + partitionId + "] of store[" + storeName
+                             + "]");
             }
+            KeyRangeDigest digest = adminClient.bulkFetchOps.digestKeyRanges(clusterNode.getNode()
+                                                                                        .getId(),
+                                                                             storeName,
+                                                                             partitionId,
+                                                                             digestRanges,
+                                                                             hashValues,
+                                                                             expiredBeforeMs);
+            reporter.recordScans(digest.getScanned());
+            reporter.recordExpired(digest.getExpired());
+            tryProgressReport();
+            digests.add(digest);
+        }
+
+        List<Set<Integer>> batches = new ArrayList<Set<Integer>>();
+        Set<Integer> batch = new HashSet<Integer>();
+        long batchKeys = 0;
+        int divergentRanges = 0;
+        for(int range = 0; range < digestRanges; range++) {
+            long rangeKeys = 0;
+            boolean divergent = false;
+            for(KeyRangeDigest digest: digests) {
+                rangeKeys = Math.max(rangeKeys, digest.getKeyCount(range));
+                divergent = divergent || !digest.matches(digests.get(0), range);
+            }
+
+            if(!divergent) {
+                reporter.recordGoodKey(rangeKeys);
+                continue;
+            }
+
+            divergentRanges++;
+            if(!batch.isEmpty() && batchKeys + rangeKeys > maxPendingKeys) {
+                batches.add(batch);
+                batch = new HashSet<Integer>();
+                batchKeys = 0;
+            }
+            batch.add(range);
+            batchKeys += rangeKeys;
+        }
+        if(!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        if(logger.isInfoEnabled()) {
+            logger.info("Partition " + partitionId + " of store " + storeName + ": "
+                        + divergentRanges + " of " + digestRanges
+                        + " ranges diverge, comparing them in " + batches.size() + " pass(es)");
+        }
+
+        for(Set<Integer> ranges: batches) {
+            compareRanges(digestRanges, ranges, false);
+        }
+    }
+
+    /**
+     * Compare the keys of the given ranges one by one, in as many passes as
+     * needed to keep at most maxPendingKeys keys pending
+     * 
+     * @param numRanges number of ranges the partition is split into
+     * @param ranges ranges to compare
+     * @param wholePartition true if the ranges cover the whole partition, in
+     *        which case the first pass streams it without a filter
+     */
+    private void compareRanges(int numRanges, Set<Integer> ranges, boolean wholePartition)
+            throws IOException {
+        int passes = 0;
+        while(!ranges.isEmpty()) {
+            ranges = compareEntries(new KeyRangeFilter(numRanges, ranges), wholePartition);
+            wholePartition = false;
+            passes++;
+        }
+        if(passes > 1 && logger.isInfoEnabled()) {
+            logger.info("Partition " + partitionId + " of store " + storeName + ": compared in "
+                        + passes + " passes to keep at most " + maxPendingKeys
+                        + " keys pending");
+        }
+    }
 
-            Iterator<Pair<ByteArray, Versioned<byte[]>>> fetchIterator;
-            fetchIterator = adminClient.bulkFetchOps.fetchEntries(clusterNode.getNode().getId(),
-                                                                  storeName,
-                                                                  singlePartition,
-                                                                  null,
-                                                                  false);
-            nodeFetchIteratorMap.put(clusterNode, fetchIterator);
+    /**
+     * Stream the keys of the given ranges from every replica and compare them
+     * one by one. Only those keys are streamed by the servers. Whenever more
+     * than maxPendingKeys keys are pending, half of the ranges still compared
+     * are dropped from this pass and left for a later one.
+     * 
+     * @param filter ranges to compare
+     * @param wholePartition true to stream the whole partition unfiltered,
+     *        because the filter accepts every key
+     * @return ranges left for a later pass
+     */
+    private Set<Integer> compareEntries(KeyRangeFilter filter, boolean wholePartition)
+            throws IOException {
+        Map<ClusterNode, Iterator<Pair<ByteArray, Versioned<byte[]>>>> nodeFetchIteratorMap;
+        nodeFetchIteratorMap = new HashMap<ClusterNode, Iterator<Pair<ByteArray, Versioned<byte[]>>>>();
+        /* start fetch from each node */
+        for(ClusterNode clusterNode: clusterNodeList) {
+            nodeFetchIteratorMap.put(clusterNode, fetchEntries(clusterNode, wholePartition ? null
+                                                                                           : filter));
         }
+        keyVersionNodeSetMap.clear();
         keyFetchTracker = new KeyFetchTracker(clusterNodeList.size());
 
+        int numRanges = filter.getNumRanges();
+        boolean[] compared = new boolean[numRanges];
+        List<Integer> comparedRanges = new ArrayList<Integer>();
+        for(int range = 0; range < numRanges; range++) {
+            if(filter.contains(range)) {
+                compared[range] = true;
+                comparedRanges.add(range);
+            }
+        }
+        Set<Integer> deferredRanges = new HashSet<Integer>();
+        passFilter = filter;
+        passGoodKeys = new long[numRanges];
+        passExpired = new long[numRanges];
+
         /* start to fetch */
         boolean fetchFinished;
         do {
@@ -225,11 +421,17 @@ public class ConsistencyCheck {
                 if(fetchIterator.hasNext()) {
                     fetchFinished = false;
                     reporter.recordScans(1);
+                    nodeThrottler.maybeThrottle(clusterNode);
 
                     Pair<ByteArray, Versioned<byte[]>> fetchedEntry = fetchIterator.next();
                     ByteArray key = fetchedEntry.getFirst();
                     Versioned<byte[]> versioned = fetchedEntry.getSecond();
 
+                    // skip keys left for a later pass
+                    if(!compared[filter.getRange(key.get())]) {
+                        continue;
+                    }
+
                     // record fetch
                     recordFetch(clusterNode, key, versioned);
 
@@ -243,26 +445,15 @@ public class ConsistencyCheck {
                     if(logger.isTraceEnabled()) {
                         logger.trace("sweeped; keys left: " + keyVersionNodeSetMap.size());
                     }
-                }
-            }
 
-            // stats reporting
-            if(logger.isInfoEnabled()) {
-                String report = reporter.tryProgressReport();
-                if(report != null) {
-                    for(String line: report.split("\n")) {
-                        logger.info(line);
+                    if(keyVersionNodeSetMap.size() > maxPendingKeys && comparedRanges.size() > 1) {
+                        deferRanges(comparedRanges, compared, deferredRanges);
                     }
                 }
             }
-        } while(!fetchFinished);
 
-        /* adminClient shutdown */
-        for(AdminClient adminClient: adminClients) {
-            if(adminClient != null) {
-                adminClient.close();
-            }
-        }
+            tryProgressReport();
+        } while(!fetchFinished);
 
         // clean keys not sufficient for write
         cleanIneligibleKeys(keyVersionNodeSetMap, requiredWrites);
@@ -270,9 +461,90 @@ public class ConsistencyCheck {
         keyFetchTracker.finishAll();
         trySweepAll();
 
+        for(int range: comparedRanges) {
+            reporter.recordGoodKey(passGoodKeys[range]);
+            // digest mode counted the expired versions while digesting
+            if(digestRanges == 0) {
+                reporter.recordExpired(passExpired[range]);
+            }
+        }
+        passFilter = null;
+        passGoodKeys = null;
+        passExpired = null;
+
         reporter.processInconsistentKeys(storeName, partitionId, keyVersionNodeSetMap);
+        return deferredRanges;
+    }
 
-        return reporter;
+    /**
+     * Leave the upper half of the ranges still compared for a later pass and
+     * forget the keys of those ranges
+     */
+    private void deferRanges(List<Integer> comparedRanges,
+                             boolean[] compared,
+                             Set<Integer> deferredRanges) {
+        List<Integer> deferred = comparedRanges.subList(comparedRanges.size() / 2,
+                                                        comparedRanges.size());
+        for(int range: deferred) {
+            compared[range] = false;
+            deferredRanges.add(range);
+        }
+        deferred.clear();
+
+        Set<ByteArray> deferredKeys = new HashSet<ByteArray>();
+        for(ByteArray key: keyVersionNodeSetMap.keySet()) {
+            if(!compared[passFilter.getRange(key.get())]) {
+                deferredKeys.add(key);
+            }
+        }
+        for(ByteArray key: keyFetchTracker.fullyFetchedKeyMap.keySet()) {
+            if(!compared[passFilter.getRange(key.get())]) {
+                deferredKeys.add(key);
+            }
+        }
+        keyVersionNodeSetMap.keySet().removeAll(deferredKeys);
+        keyFetchTracker.forget(deferredKeys);
+        if(logger.isDebugEnabled()) {
+            logger.debug("Partition " + partitionId + " of store " + storeName + ": "
+                         + deferredKeys.size() + " pending keys left for a later pass");
+        }
+    }
+
+    private Iterator<Pair<ByteArray, Versioned<byte[]>>> fetchEntries(ClusterNode clusterNode,
+                                                                      VoldemortFilter filter) {
+        AdminClient adminClient = adminClients.get(clusterNode.getPrefixId());
+        List<Integer> singlePartition = new ArrayList<Integer>();
+        singlePartition.add(partitionId);
+        if(logger.isDebugEnabled()) {
+            logger.debug("Start fetch request to Node[" + clusterNode.toString()
+                         + "] for partition[" + partitionId + "] of store[" + storeName + "]");
+        }
+
+        return adminClient.bulkFetchOps.fetchEntries(clusterNode.getNode().getId(),
+                                                     storeName,
+                                                     singlePartition,
+                                                     filter,
+                                                     false);
+    }
+
+    private void tryProgressReport() {
+        // stats reporting
+        if(logger.isInfoEnabled()) {
+            String report = reporter.tryProgressReport();
+            if(report != null) {
+                for(String line: report.split("\n")) {
+                    logger.info(line);
+                }
+            }
+        }
+    }
+
+    private Version getVersion(Versioned<byte[]> versioned) {
+        if(urls.size() == 1) {
+            return versioned.getVersion();
+        } else {
+            return new HashedValue(versioned);
+        }
     }
 
     public void trySweepAll() {
@@ -282,23 +554,34 @@ public class ConsistencyCheck {
                                                               replicationFactor);
                 if(level == ConsistencyLevel.FULL || level == ConsistencyLevel.LATEST_CONSISTENT) {
                     keyVersionNodeSetMap.remove(finishedKey);
-                    reporter.recordGoodKey(1);
+                    recordGoodKey(finishedKey);
                 }
             }
         }
     }
 
-    public void recordFetch(ClusterNode clusterNode, ByteArray key, Versioned<byte[]> versioned) {
-        Version version;
-        if(urls.size() == 1) {
-            version = versioned.getVersion();
+    private void recordGoodKey(ByteArray key) {
+        if(passFilter == null) {
+            reporter.recordGoodKey(1);
+        } else {
+            passGoodKeys[passFilter.getRange(key.get())]++;
+        }
+    }
+
+    private void recordExpired(ByteArray key) {
+        if(passFilter == null) {
+            reporter.recordExpired(1);
         } else {
-            version = new HashedValue(versioned);
+            passExpired[passFilter.getRange(key.get())]++;
         }
+    }
+
+    public void recordFetch(ClusterNode clusterNode, ByteArray key, Versioned<byte[]> versioned) {
+        Version version = getVersion(versioned);
 
         // skip version if expired
         if(retentionChecker.isExpired(version)) {
-            reporter.recordExpired(1);
+            recordExpired(key);
             return;
         }
 
@@ -385,6 +668,16 @@ public class ConsistencyCheck {
             fullyFetchedKeyMap.clear();
         }
 
+        /**
+         * Forget keys that will not be compared any more
+         * 
+         * @param keys The keys to forget
+         */
+        public void forget(Set<ByteArray> keys) {
+            fullyFetchedKeyMap.keySet().removeAll(keys);
+            fullyFetchedKeys.removeAll(keys);
+        }
+
         /**
          * Get a key that are completed in fetching
          * 
@@ -399,6 +692,40 @@ public class ConsistencyCheck {
         }
     }
 
+    /**
+     * Throttles fetches per source node. A single instance is shared by all
+     * checkers running concurrently so that the rate applies to the node, not
+     * to each partition.
+     */
+    protected static class NodeThrottler {
+
+        private final long recordsPerSecond;
+        private final Map<String, EventThrottler> throttlers = new HashMap<String, EventThrottler>();
+
+        /**
+         * @param recordsPerSecond maximum fetch rate per node; 0 or less to
+         *        disable throttling
+         */
+        public NodeThrottler(long recordsPerSecond) {
+            this.recordsPerSecond = recordsPerSecond;
+        }
+
+        public void maybeThrottle(ClusterNode clusterNode) {
+            if(recordsPerSecond <= 0) {
+                return;
+            }
+            EventThrottler throttler;
+            synchronized(throttlers) {
+                throttler = throttlers.get(clusterNode.toString());
+                if(throttler == null) {
+                    throttler = new EventThrottler(recordsPerSecond);
+                    throttlers.put(clusterNode.toString(), throttler);
+                }
+            }
+            throttler.maybeThrottle(1);
+        }
+    }
+
     protected enum ConsistencyLevel {
         FULL,
         LATEST_CONSISTENT,
@@ -525,6 +852,14 @@ public class ConsistencyCheck {
             }
         }
 
+        /**
+         * @return versions written before this time are expired; 0 if none
+         *         ever expire
+         */
+        public long getExpiredTimeMs() {
+            return expiredTimeMs;
+        }
+
         /**
          * Determine if a version is expired
          * 
@@ -614,7 +949,10 @@ public class ConsistencyCheck {
             for(Map.Entry<ByteArray, Map<Version, Set<ClusterNode>>> entry: keyVersionNodeSetMap.entrySet()) {
                 ByteArray key = entry.getKey();
                 if(badKeyWriter != null) {
-                    badKeyWriter.write(ByteUtils.toHexString(key.get()) + "\n");
+                    // the writer is shared by checkers running in parallel
+                    synchronized(badKeyWriter) {
+                        badKeyWriter.write(ByteUtils.toHexString(key.get()) + "\n");
+                    }
                 }
                 if(logger.isDebugEnabled()) {
                     Map<Version, Set<ClusterNode>> versionMap = entry.getValue();
@@ -662,6 +1000,24 @@ public class ConsistencyCheck {
               .withRequiredArg()
               .describedAs("badKeyFileOut")
               .ofType(String.class);
+        parser.accepts("parallelism", "Number of partitions checked concurrently")
+              .withRequiredArg()
+              .describedAs("parallelism")
+              .ofType(Integer.class);
+        parser.accepts("fetch-rate-per-node", "Maximum records fetched per second from each node")
+              .withRequiredArg()
+              .describedAs("records-per-sec")
+              .ofType(Long.class);
+        parser.accepts("digest-ranges",
+                       "Compare per-range digests first and only stream divergent ranges key by key")
+              .withRequiredArg()
+              .describedAs("ranges-per-partition")
+              .ofType(Integer.class);
+        parser.accepts("max-pending-keys",
+                       "Approximate maximum number of keys held per partition")
+              .withRequiredArg()
+              .describedAs("max-pending-keys")
+              .ofType(Long.class);
         return parser;
     }
 
@@ -680,6 +1036,10 @@ public class ConsistencyCheck {
         help.append("    --store <storeName>\n");
         help.append("    --bad-key-file <badKeyFileOut>\n");
         help.append("  Optional:\n");
+        help.append("    --parallelism <partitionsCheckedConcurrently>\n");
+        help.append("    --fetch-rate-per-node <recordsPerSecond>\n");
+        help.append("    --digest-ranges <rangesPerPartition>\n");
+        help.append("    --max-pending-keys <keys>\n");
         help.append("    --help\n");
         help.append("  Note:\n");
         help.append("    If you have two or more clusters to scan for consistency across them,\n");
@@ -689,6 +1049,11 @@ public class ConsistencyCheck {
         help.append("    instead of VectorClocks\n");
         help.append("    If specified clusters do not have the same number of partitions, \n");
         help.append("    checking will fail.\n");
+        help.append("    With --digest-ranges, each server first summarizes its replica into per-range\n");
+        help.append("    digests and only ranges whose digests differ are compared key by key,\n");
+        help.append("    at most --max-pending-keys keys at a time.\n");
+        help.append("    Without it, partitions holding more than --max-pending-keys pending keys\n");
+        help.append("    are compared in several passes over parts of their key space.\n");
         System.out.print(help.toString());
     }
 
@@ -794,21 +1159,52 @@ public class ConsistencyCheck {
             Utils.croak("Failure to open output file : " + e.getMessage());
         }
 
-        Map<Integer, Reporter> partitionStatsMap = new HashMap<Integer, Reporter>();
+        int parallelism = 1;
+        if(options.has("parallelism")) {
+            parallelism = (Integer) options.valueOf("parallelism");
+        }
+        long fetchRatePerNode = 0;
+        if(options.has("fetch-rate-per-node")) {
+            fetchRatePerNode = (Long) options.valueOf("fetch-rate-per-node");
+        }
+        int digestRanges = 0;
+        if(options.has("digest-ranges")) {
+            digestRanges = (Integer) options.valueOf("digest-ranges");
+        }
+        long maxPendingKeys = DEFAULT_MAX_PENDING_KEYS;
+        if(options.has("max-pending-keys")) {
+            maxPendingKeys = (Long) options.valueOf("max-pending-keys");
+        }
+
+        NodeThrottler nodeThrottler = new NodeThrottler(fetchRatePerNode);
+        Map<Integer, Future<Reporter>> partitionFutureMap = new TreeMap<Integer, Future<Reporter>>();
+        Map<Integer, Reporter> partitionStatsMap = new TreeMap<Integer, Reporter>();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
         /* scan each partitions */
         try {
             for(Integer partitionId: partitionIds) {
-                ConsistencyCheck checker = new ConsistencyCheck(urls,
-                                                                storeName,
-                                                                partitionId,
-                                                                badKeyWriter);
-                checker.connect();
-                Reporter reporter = checker.execute();
-                partitionStatsMap.put(partitionId, reporter);
+                final ConsistencyCheck checker = new ConsistencyCheck(urls,
+                                                                      storeName,
+                                                                      partitionId,
+                                                                      badKeyWriter);
+                checker.setNodeThrottler(nodeThrottler);
+                checker.setDigestRanges(digestRanges);
+                checker.setMaxPendingKeys(maxPendingKeys);
+                partitionFutureMap.put(partitionId, executor.submit(new Callable<Reporter>() {
+
+                    public Reporter call() throws Exception {
+                        checker.connect();
+                        return checker.execute();
+                    }
+                }));
+            }
+            for(Map.Entry<Integer, Future<Reporter>> entry: partitionFutureMap.entrySet()) {
+                partitionStatsMap.put(entry.getKey(), entry.getValue().get());
             }
         } catch(Exception e) {
             Utils.croak("Exception during consistency checking : " + e.getMessage());
         } finally {
+            executor.shutdownNow();
             badKeyWriter.close();
         }
 
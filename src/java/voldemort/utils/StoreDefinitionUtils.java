@@ -22,6 +22,7 @@ import java.util.List;
 
 import voldemort.VoldemortException;
 import voldemort.routing.RoutingStrategyType;
+import voldemort.serialization.SerializerDefinition;
 import voldemort.store.StoreDefinition;
 import voldemort.store.readonly.ReadOnlyStorageConfiguration;
 
@@ -148,4 +149,41 @@ public class StoreDefinitionUtils {
         return uniqueStoreDefs;
     }
 
+    /**
+     * Copies a store definition, replacing its value serializer
+     * 
+     * @param storeDef The store definition to copy
+     * @param valueSerializer The new value serializer
+     * @return The copied store definition
+     */
+    public static StoreDefinition withValueSerializer(StoreDefinition storeDef,
+                                                      SerializerDefinition valueSerializer) {
+        return new StoreDefinition(storeDef.getName(),
+                                   storeDef.getType(),
+                                   storeDef.getDescription(),
+                                   storeDef.getKeySerializer(),
+                                   valueSerializer,
+                                   storeDef.getTransformsSerializer(),
+                                   storeDef.getRoutingPolicy(),
+                                   storeDef.getRoutingStrategyType(),
+                                   storeDef.getReplicationFactor(),
+                                   storeDef.hasPreferredReads() ? storeDef.getPreferredReads() : null,
+                                   storeDef.getRequiredReads(),
+                                   storeDef.hasPreferredWrites() ? storeDef.getPreferredWrites()
+                                                                : null,
+                                   storeDef.getRequiredWrites(),
+                                   storeDef.getViewTargetStoreName(),
+                                   storeDef.getValueTransformation(),
+                                   storeDef.getZoneReplicationFactor(),
+                                   storeDef.getZoneCountReads(),
+                                   storeDef.getZoneCountWrites(),
+                                   storeDef.getRetentionDays(),
+                                   storeDef.getRetentionScanThrottleRate(),
+                                   storeDef.getRetentionFrequencyDays(),
+                                   storeDef.getSerializerFactory(),
+                                   storeDef.getHintedHandoffStrategyType(),
+                                   storeDef.getHintPrefListSize(),
+                                   storeDef.getOwners(),
+                                   storeDef.getMemoryFootprintMB());
+    }
 }
@@ -1,5 +1,6 @@
 package voldemort.store;
 
+import java.util.Iterator;
 import java.util.List;
 
 import voldemort.VoldemortException;
@@ -169,6 +170,11 @@ public class RandomlyFailingDelegatingStore<K, V, T> extends DelegatingStore<K,
         return innerStorageEngine.multiVersionPut(key, values);
     }
 
+    @Override
+    public long bulkLoad(Iterator<Pair<K, Versioned<V>>> sortedEntries) {
+        return innerStorageEngine.bulkLoad(sortedEntries);
+    }
+
     @Override
     public KeyLockHandle<V> getAndLock(K key) {
         return innerStorageEngine.getAndLock(key);
@@ -33,6 +33,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -40,7 +41,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -57,6 +60,7 @@ import voldemort.TestUtils;
 import voldemort.VoldemortException;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.protocol.admin.AdminClientConfig;
+import voldemort.client.protocol.admin.KeyRangeDigest;
 import voldemort.client.protocol.admin.QueryKeyResult;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
@@ -64,12 +68,15 @@ import voldemort.cluster.Zone;
 import voldemort.routing.RoutingStrategy;
 import voldemort.routing.RoutingStrategyFactory;
 import voldemort.routing.RoutingStrategyType;
+import voldemort.serialization.Compression;
 import voldemort.serialization.SerializerDefinition;
 import voldemort.server.VoldemortServer;
 import voldemort.store.InvalidMetadataException;
 import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
 import voldemort.store.StoreDefinitionBuilder;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.DictionaryCompressionStrategy;
 import voldemort.store.memory.InMemoryStorageConfiguration;
 import voldemort.store.metadata.MetadataStore;
 import voldemort.store.readonly.ReadOnlyStorageEngine;
@@ -1236,6 +1243,63 @@ public class AdminServiceBasicTest {
 
     }
 
+    @Test
+    public void testDigestKeyRanges() {
+        HashMap<ByteArray, byte[]> entrySet = ServerTestUtils.createRandomKeyValuePairs(TEST_STREAM_KEYS_SIZE);
+        int numRanges = 8;
+
+        // insert it into server-0 store
+        Store<ByteArray, byte[], byte[]> store = getStore(0, testStoreName);
+        for(Entry<ByteArray, byte[]> entry: entrySet.entrySet()) {
+            store.put(entry.getKey(), new Versioned<byte[]>(entry.getValue()), null);
+        }
+
+        for(boolean hashValues: new boolean[] { false, true }) {
+            // digest the fetched entries on the client
+            KeyRangeDigest expected = new KeyRangeDigest(numRanges);
+            Iterator<Pair<ByteArray, Versioned<byte[]>>> fetchIt = getAdminClient().bulkFetchOps.fetchEntries(0,
+                                                                                                              testStoreName,
+                                                                                                              Arrays.asList(0),
+                                                                                                              null,
+                                                                                                              false);
+            while(fetchIt.hasNext()) {
+                Pair<ByteArray, Versioned<byte[]>> entry = fetchIt.next();
+                expected.record(entry.getFirst(),
+                                KeyRangeDigest.hashVersion(entry.getSecond(), hashValues));
+            }
+
+            KeyRangeDigest digest = getAdminClient().bulkFetchOps.digestKeyRanges(0,
+                                                                                  testStoreName,
+                                                                                  0,
+                                                                                  numRanges,
+                                                                                  hashValues,
+                                                                                  null);
+            assertEquals("Every version of the partition should be scanned",
+                         expected.getScanned(),
+                         digest.getScanned());
+            assertEquals("No version should expire", 0, digest.getExpired());
+            for(int range = 0; range < numRanges; range++) {
+                assertEquals("Key count of range " + range + " should match",
+                             expected.getKeyCount(range),
+                             digest.getKeyCount(range));
+                assertTrue("Digest of range " + range + " should match",
+                           expected.matches(digest, range));
+            }
+        }
+
+        // every version is older than the cutoff
+        KeyRangeDigest digest = getAdminClient().bulkFetchOps.digestKeyRanges(0,
+                                                                              testStoreName,
+                                                                              0,
+                                                                              numRanges,
+                                                                              false,
+                                                                              Long.MAX_VALUE);
+        assertEquals("Every version should expire", digest.getScanned(), digest.getExpired());
+        for(int range = 0; range < numRanges; range++) {
+            assertEquals("Expired versions should not be counted", 0, digest.getKeyCount(range));
+        }
+    }
+
     @Test
     public void testQuery() {
         HashMap<ByteArray, byte[]> belongToAndInsideServer0 = new HashMap<ByteArray, byte[]>();
@@ -1512,6 +1576,50 @@ public class AdminServiceBasicTest {
         }
     }
 
+    @Test
+    public void testUpdateSorted() {
+        String storeName = "test-replication-persistent";
+        HashMap<ByteArray, byte[]> entrySet = ServerTestUtils.createRandomKeyValuePairs(TEST_STREAM_KEYS_SIZE);
+        final TreeMap<ByteArray, byte[]> sortedEntries = new TreeMap<ByteArray, byte[]>(new Comparator<ByteArray>() {
+
+            @Override
+            public int compare(ByteArray key1, ByteArray key2) {
+                return ByteUtils.compare(key1.get(), key2.get());
+            }
+        });
+        sortedEntries.putAll(entrySet);
+
+        Iterator<Pair<ByteArray, Versioned<byte[]>>> iterator = new AbstractIterator<Pair<ByteArray, Versioned<byte[]>>>() {
+
+            final Iterator<Entry<ByteArray, byte[]>> entrySetItr = sortedEntries.entrySet()
+                                                                                .iterator();
+
+            @Override
+            protected Pair<ByteArray, Versioned<byte[]>> computeNext() {
+                if(entrySetItr.hasNext()) {
+                    Entry<ByteArray, byte[]> entry = entrySetItr.next();
+                    return new Pair<ByteArray, Versioned<byte[]>>(entry.getKey(),
+                                                                  new Versioned<byte[]>(entry.getValue()));
+                }
+                return endOfData();
+            }
+        };
+
+        // bulk load in several chunks
+        getServer(0).getVoldemortConfig().setSortedStreamingPutsBufferSize(TEST_STREAM_KEYS_SIZE / 7);
+        getAdminClient().streamingOps.updateEntriesSorted(0, storeName, iterator, null);
+
+        // check updated values
+        Store<ByteArray, byte[], byte[]> store = getStore(0, storeName);
+        for(Entry<ByteArray, byte[]> entry: sortedEntries.entrySet()) {
+            List<Versioned<byte[]>> values = store.get(entry.getKey(), null);
+            assertEquals("entry should be present at store", 1, values.size());
+            assertEquals("entry value should match",
+                         new String(entry.getValue()),
+                         new String(values.get(0).getValue()));
+        }
+    }
+
     @Test
     public void testUpdateTimeBased() {
 
@@ -1747,4 +1855,168 @@ public class AdminServiceBasicTest {
 
     }
 
+    @Test
+    public void testFetchPartitionBlocksWithoutPartitionScans() {
+        String memoryStoreName = "test-replication-memory";
+        HashMap<ByteArray, byte[]> entrySet = ServerTestUtils.createRandomKeyValuePairs(TEST_STREAM_KEYS_SIZE);
+        List<Integer> fetchedPartitions = Arrays.asList(0, 2);
+
+        HashMap<ByteArray, byte[]> fetchedEntries = Maps.newHashMap();
+        Store<ByteArray, byte[], byte[]> store0 = getStore(0, memoryStoreName);
+        for(Entry<ByteArray, byte[]> entry: entrySet.entrySet()) {
+            store0.put(entry.getKey(), new Versioned<byte[]>(entry.getValue()), null);
+            if(isKeyPartition(entry.getKey(), 0, memoryStoreName, fetchedPartitions))
+                fetchedEntries.put(entry.getKey(), entry.getValue());
+        }
+        assertFalse(getServer(0).getStoreRepository()
+                                .getStorageEngine(memoryStoreName)
+                                .isPartitionScanSupported());
+
+        // the store is scanned in full, but only the asked partitions ship
+        Iterator<Pair<ByteArray, Versioned<byte[]>>> blockIt = getAdminClient().bulkFetchOps.fetchPartitionBlocks(0,
+                                                                                                                memoryStoreName,
+                                                                                                                fetchedPartitions);
+        int count = 0;
+        while(blockIt.hasNext()) {
+            Pair<ByteArray, Versioned<byte[]>> entry = blockIt.next();
+            assertEquals("entry value should match",
+                         new String(fetchedEntries.get(entry.getFirst())),
+                         new String(entry.getSecond().getValue()));
+            count++;
+        }
+        assertEquals("All entries for asked partitions should be received",
+                     fetchedEntries.size(),
+                     count);
+    }
+
+    @Test
+    public void testTrainCompressionDictionary() throws IOException {
+        String storeName = "dictionaryTest";
+        StoreDefinition definition = new StoreDefinitionBuilder().setName(storeName)
+                                                                 .setType(InMemoryStorageConfiguration.TYPE_NAME)
+                                                                 .setKeySerializer(new SerializerDefinition("string"))
+                                                                 .setValueSerializer(new SerializerDefinition("string",
+                                                                                                              new HashMap<Integer, String>(),
+                                                                                                              true,
+                                                                                                              new Compression(DictionaryCompressionStrategy.TYPE,
+                                                                                                                              null)))
+                                                                 .setRoutingPolicy(RoutingTier.CLIENT)
+                                                                 .setRoutingStrategyType(RoutingStrategyType.CONSISTENT_STRATEGY)
+                                                                 .setReplicationFactor(1)
+                                                                 .setRequiredReads(1)
+                                                                 .setRequiredWrites(1)
+                                                                 .build();
+        AdminClient client = getAdminClient();
+        client.storeMgmtOps.addStore(definition);
+        CompressionStrategy undictionaried = new DictionaryCompressionStrategy((String) null);
+
+        // values with nothing in common leave the store definition alone
+        Random random = new Random(42);
+        for(int i = 0; i < 50; i++) {
+            byte[] value = new byte[64];
+            random.nextBytes(value);
+            putOnAllNodes(storeName,
+                          new ByteArray(ByteUtils.getBytes("random" + i, "UTF-8")),
+                          undictionaried.deflate(value));
+        }
+        assertNull(client.storeMgmtOps.trainCompressionDictionary(storeName, 50));
+        for(Node node: cluster.getNodes()) {
+            StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(client.metadataMgmtOps.getRemoteStoreDefList(node.getId())
+                                                                                                             .getValue(),
+                                                                                       storeName);
+            assertNull(storeDef.getValueSerializer().getCompression().getOptions());
+        }
+
+        List<byte[]> values = new ArrayList<byte[]>();
+        for(int i = 0; i < 200; i++) {
+            byte[] value = ByteUtils.getBytes("{\"memberId\":" + i + ",\"locale\":\"en_US\","
+                                              + "\"emailNotifications\":true}", "UTF-8");
+            values.add(value);
+            putOnAllNodes(storeName,
+                          new ByteArray(ByteUtils.getBytes("record" + i, "UTF-8")),
+                          undictionaried.deflate(value));
+        }
+        Compression compression = client.storeMgmtOps.trainCompressionDictionary(storeName, 200);
+        assertNotNull(compression);
+        for(Node node: cluster.getNodes()) {
+            StoreDefinition storeDef = StoreDefinitionUtils.getStoreDefinitionWithName(client.metadataMgmtOps.getRemoteStoreDefList(node.getId())
+                                                                                                             .getValue(),
+                                                                                       storeName);
+            assertEquals(compression, storeDef.getValueSerializer().getCompression());
+        }
+
+        // new values use the dictionary, old ones stay readable
+        DictionaryCompressionStrategy trained = new DictionaryCompressionStrategy(compression.getOptions());
+        assertEquals(1, trained.getCurrentDictionaryId());
+        for(byte[] value: values) {
+            assertTrue(Arrays.equals(value, trained.inflate(undictionaried.deflate(value))));
+            assertTrue(Arrays.equals(value, trained.inflate(trained.deflate(value))));
+        }
+    }
+
+    private void putOnAllNodes(String storeName, ByteArray key, byte[] value) {
+        for(Node node: cluster.getNodes()) {
+            getStore(node.getId(), storeName).put(key, new Versioned<byte[]>(value), null);
+        }
+    }
+
+    @Test
+    public void testFetchAndUpdateRWBulk() {
+        String bdbStoreName = "test-replication-persistent";
+        HashMap<ByteArray, byte[]> entrySet = ServerTestUtils.createRandomKeyValuePairs(TEST_STREAM_KEYS_SIZE);
+        List<Integer> movedPartitions = Arrays.asList(0, 2);
+
+        HashMap<ByteArray, byte[]> movedEntries = Maps.newHashMap();
+        Store<ByteArray, byte[], byte[]> store0 = getStore(0, bdbStoreName);
+        Store<ByteArray, byte[], byte[]> store1 = getStore(1, bdbStoreName);
+        for(Entry<ByteArray, byte[]> entry: entrySet.entrySet()) {
+            store0.put(entry.getKey(), new Versioned<byte[]>(entry.getValue()), null);
+            if(isKeyPartition(entry.getKey(), 0, bdbStoreName, movedPartitions))
+                movedEntries.put(entry.getKey(), entry.getValue());
+        }
+
+        // the blocks hold exactly the entries of the asked partitions
+        AdminClient client = getAdminClient();
+        Iterator<Pair<ByteArray, Versioned<byte[]>>> blockIt = client.bulkFetchOps.fetchPartitionBlocks(0,
+                                                                                                      bdbStoreName,
+                                                                                                      movedPartitions);
+        int count = 0;
+        while(blockIt.hasNext()) {
+            Pair<ByteArray, Versioned<byte[]>> entry = blockIt.next();
+            assertEquals("entry value should match",
+                         new String(movedEntries.get(entry.getFirst())),
+                         new String(entry.getSecond().getValue()));
+            count++;
+        }
+        assertEquals("All entries for asked partitions should be received",
+                     movedEntries.size(),
+                     count);
+
+        // migrate the partitions, bulk loading them on the stealer
+        getServer(1).getVoldemortConfig().setUseBulkPartitionMigrationForRebalance(true);
+        int id = client.storeMntOps.migratePartitions(0,
+                                                      1,
+                                                      bdbStoreName,
+                                                      movedPartitions,
+                                                      null,
+                                                      cluster);
+        client.rpcOps.waitForCompletion(1, id, 120, TimeUnit.SECONDS);
+
+        for(Entry<ByteArray, byte[]> entry: entrySet.entrySet()) {
+            List<Versioned<byte[]>> values = store1.get(entry.getKey(), null);
+            if(movedEntries.containsKey(entry.getKey())) {
+                assertEquals("server1 store should contain bulk loaded partitions.",
+                             1,
+                             values.size());
+                assertEquals("entry value should match",
+                             new String(entry.getValue()),
+                             new String(values.get(0).getValue()));
+            } else {
+                assertEquals("server1 store should not contain other partitions.",
+                             0,
+                             values.size());
+            }
+        }
+    }
+
 }
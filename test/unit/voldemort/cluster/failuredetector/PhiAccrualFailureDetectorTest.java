@@ -0,0 +1,250 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.cluster.failuredetector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static voldemort.FailureDetectorTestUtils.recordException;
+import static voldemort.FailureDetectorTestUtils.recordSuccess;
+import static voldemort.cluster.failuredetector.FailureDetectorUtils.create;
+import static voldemort.cluster.failuredetector.MutableStoreVerifier.create;
+
+import java.net.ConnectException;
+
+import org.junit.Test;
+
+import voldemort.MockTime;
+import voldemort.cluster.Node;
+import voldemort.store.UnreachableStoreException;
+import voldemort.utils.Time;
+
+import com.google.common.collect.Iterables;
+
+public class PhiAccrualFailureDetectorTest extends AbstractFailureDetectorTest {
+
+    private MockTime mockTime;
+
+    @Override
+    public FailureDetector createFailureDetector() throws Exception {
+        MutableStoreVerifier storeVerifier = create(cluster.getNodes());
+        FailureDetectorConfig failureDetectorConfig = new FailureDetectorConfig().setImplementationClassName(PhiAccrualFailureDetector.class.getName())
+                                                                                 .setAsyncRecoveryInterval(100)
+                                                                                 .setRequestLengthThreshold(1000)
+                                                                                 .setPhiThreshold(8)
+                                                                                 .setPhiWindowSize(20)
+                                                                                 .setCluster(cluster)
+                                                                                 .setStoreVerifier(storeVerifier)
+                                                                                 .setTime(time);
+        return create(failureDetectorConfig, true);
+    }
+
+    @Override
+    protected Time createTime() throws Exception {
+        // The recovery thread needs a real sleep, but phi is driven entirely
+        // by the mock clock.
+        mockTime = new MockTime() {
+
+            @Override
+            public void sleep(long ms) {
+                try {
+                    Thread.sleep(ms);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        return mockTime;
+    }
+
+    private PhiAccrualFailureDetector getDetector() {
+        return (PhiAccrualFailureDetector) failureDetector;
+    }
+
+    private void respondEvery(Node node, long intervalMs, int count) {
+        for(int i = 0; i < count; i++) {
+            mockTime.addMilliseconds(intervalMs);
+            failureDetector.recordSuccess(node, 0);
+        }
+    }
+
+    @Test
+    public void testPhiGrowsWithElapsedTime() {
+        double previous = PhiAccrualFailureDetector.phi(0, 1000, 500);
+
+        for(long elapsed = 250; elapsed <= 10000; elapsed += 250) {
+            double phi = PhiAccrualFailureDetector.phi(elapsed, 1000, 500);
+            assertTrue(phi >= previous);
+            previous = phi;
+        }
+
+        assertTrue(PhiAccrualFailureDetector.phi(0, 1000, 500) < 0.1);
+        assertTrue(PhiAccrualFailureDetector.phi(10000, 1000, 500) > 8);
+    }
+
+    @Test
+    public void testNoSuspicionWithoutFailures() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        mockTime.addMilliseconds(60000);
+
+        assertEquals(0.0, getDetector().getSuspicionLevel(node), 0.0);
+        assertAvailable(node);
+    }
+
+    @Test
+    public void testSuspicionAccrues() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        recordException(failureDetector, node);
+        double initial = getDetector().getSuspicionLevel(node);
+        assertAvailable(node);
+
+        // A short pause is suspicious but not fatal...
+        mockTime.addMilliseconds(1000);
+        recordException(failureDetector, node);
+        double paused = getDetector().getSuspicionLevel(node);
+        assertTrue(paused > initial);
+        assertTrue(paused < failureDetector.getConfig().getPhiThreshold());
+        assertAvailable(node);
+
+        // ...whereas a long silence is.
+        mockTime.addMilliseconds(5000);
+        recordException(failureDetector, node);
+        assertTrue(getDetector().getSuspicionLevel(node) >= failureDetector.getConfig()
+                                                                           .getPhiThreshold());
+        assertUnavailable(node);
+        assertJmxEquals("unavailableNodes", "8");
+
+        recordSuccess(failureDetector, node);
+        assertAvailable(node);
+        assertEquals(0.0, getDetector().getSuspicionLevel(node), 0.0);
+    }
+
+    @Test
+    public void testSingleFailureAfterIdlePeriod() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        mockTime.addMilliseconds(60000);
+
+        // The node was not asked anything while idle, so its silence only
+        // starts with the failed request...
+        recordException(failureDetector, node);
+        assertTrue(getDetector().getSuspicionLevel(node) < failureDetector.getConfig()
+                                                                          .getPhiThreshold());
+        assertAvailable(node);
+
+        // ...and accrues from there on.
+        mockTime.addMilliseconds(1000);
+        recordException(failureDetector, node);
+        assertAvailable(node);
+
+        mockTime.addMilliseconds(5000);
+        recordException(failureDetector, node);
+        assertUnavailable(node);
+
+        recordSuccess(failureDetector, node);
+        assertAvailable(node);
+    }
+
+    @Test
+    public void testSlowFailureAfterIdlePeriod() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        mockTime.addMilliseconds(60000);
+
+        // A request that hung for a long time counts as silence already
+        recordException(failureDetector, node, 10000, new UnreachableStoreException("timed out"));
+        assertUnavailable(node);
+
+        recordSuccess(failureDetector, node);
+        assertAvailable(node);
+    }
+
+    @Test
+    public void testSuccessClearsSuspicion() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        mockTime.addMilliseconds(1000);
+        recordException(failureDetector, node);
+        assertTrue(getDetector().getSuspicionLevel(node) > 0);
+
+        failureDetector.recordSuccess(node, 0);
+        assertEquals(0.0, getDetector().getSuspicionLevel(node), 0.0);
+    }
+
+    @Test
+    public void testSlowSuccessIsSuspicious() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(node, 100, 20);
+        mockTime.addMilliseconds(1000);
+        failureDetector.recordSuccess(node, failureDetector.getConfig()
+                                                           .getRequestLengthThreshold() + 1);
+        assertTrue(getDetector().getSuspicionLevel(node) > 0);
+
+        mockTime.addMilliseconds(5000);
+        failureDetector.recordSuccess(node, failureDetector.getConfig()
+                                                           .getRequestLengthThreshold() + 1);
+        assertUnavailable(node);
+        recordSuccess(failureDetector, node);
+    }
+
+    @Test
+    public void testSparseTrafficGetsMoreSlack() throws Exception {
+        Node busy = Iterables.get(cluster.getNodes(), 7);
+        Node idle = Iterables.get(cluster.getNodes(), 8);
+
+        respondEvery(busy, 100, 20);
+
+        for(int i = 0; i < 20; i++) {
+            mockTime.addMilliseconds(i % 2 == 0 ? 5000 : 15000);
+            failureDetector.recordSuccess(idle, 0);
+            failureDetector.recordSuccess(busy, 0);
+        }
+
+        respondEvery(busy, 100, 20);
+        respondEvery(idle, 10000, 1);
+
+        mockTime.addMilliseconds(3000);
+        recordException(failureDetector, busy);
+        recordException(failureDetector, idle);
+
+        assertTrue(getDetector().getSuspicionLevel(busy) > getDetector().getSuspicionLevel(idle));
+        assertTrue(failureDetector.isAvailable(idle));
+    }
+
+    @Test
+    public void testCatastrophicErrors() throws Exception {
+        Node node = Iterables.get(cluster.getNodes(), 8);
+
+        recordException(failureDetector,
+                        node,
+                        0,
+                        new UnreachableStoreException("intentionalerror",
+                                                      new ConnectException("intentionalerror")));
+        assertUnavailable(node);
+
+        recordSuccess(failureDetector, node);
+        assertAvailable(node);
+    }
+
+}
@@ -17,8 +17,10 @@
 package voldemort.coordinator;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -33,6 +35,7 @@ import javax.mail.internet.MimeMultipart;
 import javax.mail.util.ByteArrayDataSource;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -449,4 +452,133 @@ public class CoordinatorRestAPITest {
             fail("key does not exist after a put. ");
         }
     }
+
+    @Test
+    public void testRejectWhenTooManyRequestsInFlight() throws Exception {
+        // Restart the coordinator such that no request can be admitted
+        this.coordinator.stop();
+        CoordinatorConfig config = new CoordinatorConfig();
+        List<String> bootstrapUrls = new ArrayList<String>();
+        bootstrapUrls.add(socketUrl);
+        config.setBootstrapURLs(bootstrapUrls);
+        config.setFatClientConfigPath(FAT_CLIENT_CONFIG_FILE_PATH);
+        config.setMaxInflightRequestsPerStore(0);
+        config.setBackpressureRetryAfterSeconds(3);
+        this.coordinator = new CoordinatorService(config);
+        this.coordinator.start();
+
+        String base64Key = new String(Base64.encodeBase64("key".getBytes()));
+        URL url = new URL(this.coordinatorURL + "/" + STORE_NAME + "/" + base64Key);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setRequestMethod("GET");
+            conn.setDoInput(true);
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_TIMEOUT_MS, "1000");
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_ORIGIN_TIME_MS,
+                                    Long.toString(System.currentTimeMillis()));
+
+            assertEquals(503, conn.getResponseCode());
+            assertEquals("3", conn.getHeaderField("Retry-After"));
+            assertEquals(1, this.coordinator.getNumberOfRejectedRequests());
+            assertEquals(0, this.coordinator.getNumberOfInflightRequests());
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    @Test
+    public void testPutAllAndStreamingGetAll() throws Exception {
+        // Restart the coordinator such that get all responses span several
+        // chunks
+        this.coordinator.stop();
+        CoordinatorConfig config = new CoordinatorConfig();
+        List<String> bootstrapUrls = new ArrayList<String>();
+        bootstrapUrls.add(socketUrl);
+        config.setBootstrapURLs(bootstrapUrls);
+        config.setFatClientConfigPath(FAT_CLIENT_CONFIG_FILE_PATH);
+        config.setGetAllChunkSize(2);
+        this.coordinator = new CoordinatorService(config);
+        this.coordinator.start();
+
+        Map<String, String> entries = new HashMap<String, String>();
+        for(int i = 0; i < 5; i++) {
+            entries.put("batched_key_" + i, "batched_value_" + i);
+        }
+
+        // 1. Do a batched put
+        MimeMultipart putBody = new MimeMultipart();
+        for(Map.Entry<String, String> entry: entries.entrySet()) {
+            MimeBodyPart part = new MimeBodyPart();
+            part.addHeader(RestMessageHeaders.CONTENT_LOCATION, "/" + STORE_NAME + "/"
+                                                                + new String(Base64.encodeBase64(entry.getKey()
+                                                                                                      .getBytes())));
+            part.setContent(entry.getValue().getBytes(), "application/octet-stream");
+            putBody.addBodyPart(part);
+        }
+        ByteArrayOutputStream putPayload = new ByteArrayOutputStream();
+        putBody.writeTo(putPayload);
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(this.coordinatorURL + "/"
+                                                             + STORE_NAME).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setDoOutput(true);
+            conn.setDoInput(true);
+            conn.setRequestProperty("Content-Type", "multipart/binary");
+            conn.setRequestProperty("Content-Length", "" + putPayload.size());
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_TIMEOUT_MS, "1000");
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_ORIGIN_TIME_MS,
+                                    Long.toString(System.currentTimeMillis()));
+            OutputStream out = conn.getOutputStream();
+            putPayload.writeTo(out);
+            out.close();
+
+            assertEquals(200, conn.getResponseCode());
+            MimeMultipart putResponse = new MimeMultipart(new ByteArrayDataSource(conn.getInputStream(),
+                                                                                  "multipart/mixed"));
+            assertEquals(entries.size(), putResponse.getCount());
+            for(int i = 0; i < putResponse.getCount(); i++) {
+                MimeBodyPart part = (MimeBodyPart) putResponse.getBodyPart(i);
+                assertEquals("201", part.getHeader(RestMessageHeaders.X_VOLD_RESPONSE_STATUS)[0]);
+                assertNotNull(RestUtils.deserializeVectorClock(part.getHeader(RestMessageHeaders.X_VOLD_VECTOR_CLOCK)[0]));
+            }
+        } finally {
+            conn.disconnect();
+        }
+
+        // 2. Do a get all on the same keys plus a missing one
+        StringBuilder keyList = new StringBuilder(new String(Base64.encodeBase64("missing_key".getBytes())));
+        for(String key: entries.keySet()) {
+            keyList.append(",").append(new String(Base64.encodeBase64(key.getBytes())));
+        }
+        conn = (HttpURLConnection) new URL(this.coordinatorURL + "/" + STORE_NAME + "/" + keyList).openConnection();
+        try {
+            conn.setRequestMethod("GET");
+            conn.setDoInput(true);
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_TIMEOUT_MS, "1000");
+            conn.setRequestProperty(RestMessageHeaders.X_VOLD_REQUEST_ORIGIN_TIME_MS,
+                                    Long.toString(System.currentTimeMillis()));
+
+            assertEquals(200, conn.getResponseCode());
+            assertEquals("chunked", conn.getHeaderField("Transfer-Encoding"));
+
+            MimeMultipart getAllResponse = new MimeMultipart(new ByteArrayDataSource(conn.getInputStream(),
+                                                                                     "multipart/mixed"));
+            assertEquals(entries.size(), getAllResponse.getCount());
+            for(int i = 0; i < getAllResponse.getCount(); i++) {
+                MimeBodyPart keyPart = (MimeBodyPart) getAllResponse.getBodyPart(i);
+                String location = keyPart.getHeader(RestMessageHeaders.CONTENT_LOCATION)[0];
+                String key = new String(Base64.decodeBase64(location.substring(STORE_NAME.length() + 2)
+                                                                    .getBytes()));
+                MimeMultipart values = new MimeMultipart(new ByteArrayDataSource(keyPart.getInputStream(),
+                                                                                 "multipart/mixed"));
+                assertEquals(1, values.getCount());
+                MimeBodyPart valuePart = (MimeBodyPart) values.getBodyPart(0);
+                assertEquals(entries.get(key),
+                             new String(IOUtils.toByteArray(valuePart.getInputStream())));
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
 }
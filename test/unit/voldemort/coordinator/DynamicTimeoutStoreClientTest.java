@@ -16,12 +16,17 @@
 
 package voldemort.coordinator;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
@@ -37,9 +42,11 @@ import voldemort.server.VoldemortServer;
 import voldemort.store.CompositeGetVoldemortRequest;
 import voldemort.store.CompositePutVoldemortRequest;
 import voldemort.store.InsufficientOperationalNodesException;
+import voldemort.store.nonblockingstore.NonblockingStoreCallback;
 import voldemort.store.socket.SocketStoreFactory;
 import voldemort.store.socket.clientrequest.ClientRequestExecutorPool;
 import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 import voldemort.xml.ClusterMapper;
 
@@ -167,4 +174,71 @@ public class DynamicTimeoutStoreClientTest {
             fail("The dynamic per call timeout did not work !");
         }
     }
+
+    /**
+     * Test the submitted operations. The caller gets control back before the
+     * slow store answers and the outcome of each operation, including a timed
+     * out one, is handed to the callback.
+     */
+    @Test
+    public void testSubmittedOperations() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            String key = "b";
+            String value = "Submitted";
+
+            ResultCallback putCallback = new ResultCallback();
+            long startTime = System.currentTimeMillis();
+            this.dynamicTimeoutClient.submitPutRequest(new CompositePutVoldemortRequest<ByteArray, byte[]>(new ByteArray(key.getBytes()),
+                                                                                                           value.getBytes(),
+                                                                                                           3000),
+                                                       executor,
+                                                       putCallback);
+            assertTrue(System.currentTimeMillis() - startTime < Long.parseLong(SLOW_STORE_DELAY));
+            assertTrue(putCallback.getResult() instanceof VectorClock);
+
+            ResultCallback getCallback = new ResultCallback();
+            this.dynamicTimeoutClient.submitGetRequest(new CompositeGetVoldemortRequest<ByteArray, byte[]>(new ByteArray(key.getBytes()),
+                                                                                                           1500,
+                                                                                                           true),
+                                                       executor,
+                                                       getCallback);
+            @SuppressWarnings("unchecked")
+            List<Versioned<byte[]>> versionedValues = (List<Versioned<byte[]>>) getCallback.getResult();
+            assertEquals(1, versionedValues.size());
+            assertEquals(value, new String(versionedValues.get(0).getValue()));
+
+            ResultCallback timedOutCallback = new ResultCallback();
+            this.dynamicTimeoutClient.submitGetRequest(new CompositeGetVoldemortRequest<ByteArray, byte[]>(new ByteArray(key.getBytes()),
+                                                                                                           200,
+                                                                                                           true),
+                                                       executor,
+                                                       timedOutCallback);
+            assertTrue(timedOutCallback.getResult() instanceof InsufficientOperationalNodesException);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class ResultCallback implements NonblockingStoreCallback {
+
+        private final SynchronousQueue<Object> results = new SynchronousQueue<Object>();
+
+        @Override
+        public void requestComplete(Object result, long requestTime) {
+            try {
+                results.put(result);
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public Object getResult() throws InterruptedException {
+            Object result = results.poll(10, TimeUnit.SECONDS);
+            if(result == null) {
+                fail("The callback was not invoked");
+            }
+            return result;
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package voldemort.scheduled;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 
@@ -40,6 +41,7 @@ import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
 import voldemort.MockTime;
+import voldemort.ServerTestUtils;
 import voldemort.TestUtils;
 import voldemort.VoldemortTestConstants;
 import voldemort.common.service.SchedulerService;
@@ -47,8 +49,13 @@ import voldemort.server.VoldemortConfig;
 import voldemort.server.scheduler.DataCleanupJob;
 import voldemort.server.storage.ScanPermitWrapper;
 import voldemort.store.StorageEngine;
+import voldemort.store.Store;
 import voldemort.store.StoreDefinition;
 import voldemort.store.bdb.BdbStorageConfiguration;
+import voldemort.store.logging.LoggingStore;
+import voldemort.store.metadata.MetadataStore;
+import voldemort.store.retention.ExpiredVersionDeleter;
+import voldemort.store.retention.ExpiryIndexed;
 import voldemort.store.retention.RetentionEnforcingStore;
 import voldemort.utils.ByteArray;
 import voldemort.utils.EventThrottler;
@@ -66,6 +73,7 @@ public class DataCleanupJobTest {
     private MockTime time;
     private StorageEngine<ByteArray, byte[], byte[]> engine;
     private File storeDir;
+    private VoldemortConfig voldemortConfig;
     private BdbStorageConfiguration bdbStorage;
     private boolean prefixPartitionId;
 
@@ -89,7 +97,7 @@ public class DataCleanupJobTest {
         Props props = new Props();
         props.put("node.id", 1);
         props.put("voldemort.home", "test/common/voldemort/config");
-        VoldemortConfig voldemortConfig = new VoldemortConfig(props);
+        voldemortConfig = new VoldemortConfig(props);
         voldemortConfig.setBdbCacheSize(1024 * 1024);
         voldemortConfig.setBdbOneEnvPerStore(true);
         voldemortConfig.setBdbDataDirectory(storeDir.toURI().getPath());
@@ -202,6 +210,98 @@ public class DataCleanupJobTest {
         assertContains("a", "d", "e", "f");
     }
 
+    @Test
+    public void testCleanupWithExpiryIndex() {
+        StoreDefinition retentionStoreDef = new StoreDefinitionsMapper().readStoreList(new StringReader(VoldemortTestConstants.getStoreDefinitionsWithRetentionXml()))
+                                                                        .get(0);
+        long start = 10 * Time.MS_PER_DAY;
+
+        // data written before the index was turned on
+        StorageEngine<ByteArray, byte[], byte[]> unindexedEngine = bdbStorage.getStore(retentionStoreDef,
+                                                                                       TestUtils.makeSingleNodeRoutingStrategy());
+        time.setTime(start);
+        put(unindexedEngine, "a", "b", "c");
+        time.setTime(start + 3 * Time.MS_PER_DAY);
+        put(unindexedEngine, "d", "e");
+        unindexedEngine.close();
+
+        voldemortConfig.setBdbExpiryIndexEnabled(true);
+        StorageEngine<ByteArray, byte[], byte[]> indexedEngine = bdbStorage.getStore(retentionStoreDef,
+                                                                                     TestUtils.makeSingleNodeRoutingStrategy());
+        try {
+            assertTrue(indexedEngine instanceof ExpiryIndexed);
+            assertFalse("Index cannot cover the existing data",
+                        ((ExpiryIndexed<?>) indexedEngine).isExpiryIndexComplete());
+
+            // the first run scans everything and backfills the index
+            time.setTime(start + 3 * Time.MS_PER_DAY + 2 * Time.MS_PER_HOUR);
+            DataCleanupJob<ByteArray, byte[], byte[]> cleanupJob = new DataCleanupJob<ByteArray, byte[], byte[]>(indexedEngine,
+                                                                                                                 new ScanPermitWrapper(1),
+                                                                                                                 Time.MS_PER_DAY,
+                                                                                                                 time,
+                                                                                                                 new EventThrottler(1),
+                                                                                                                 null);
+            cleanupJob.run();
+            assertEquals(5, cleanupJob.getEntriesScanned());
+            assertEquals(3, cleanupJob.getEntriesDeleted());
+            assertTrue("Index should be complete after a full scan",
+                       ((ExpiryIndexed<?>) indexedEngine).isExpiryIndexComplete());
+            assertNotContains(indexedEngine, "a", "b", "c");
+            assertContains(indexedEngine, "d", "e");
+
+            put(indexedEngine, "f", "g", "h");
+
+            // the next run only visits the keys written before the cutoff
+            time.setTime(start + 4 * Time.MS_PER_DAY + Time.MS_PER_HOUR);
+            cleanupJob.run();
+            assertEquals(5 + 2, cleanupJob.getEntriesScanned());
+            assertEquals(3 + 2, cleanupJob.getEntriesDeleted());
+            assertNotContains(indexedEngine, "d", "e");
+            assertContains(indexedEngine, "f", "g", "h");
+
+            // rewritten keys expire from their latest write
+            put(indexedEngine, "f");
+            time.setTime(start + 5 * Time.MS_PER_DAY);
+            cleanupJob.run();
+            assertNotContains(indexedEngine, "g", "h");
+            assertContains(indexedEngine, "f");
+        } finally {
+            indexedEngine.close();
+        }
+    }
+
+    @Test
+    public void testPartitionParallelCleanup() {
+        List<StoreDefinition> storeDefs = new StoreDefinitionsMapper().readStoreList(new StringReader(VoldemortTestConstants.getSingleStoreDefinitionsXml()));
+        MetadataStore metadataStore = ServerTestUtils.createMetadataStore(VoldemortTestConstants.getOneNodeCluster(),
+                                                                          storeDefs);
+
+        time.setTime(123);
+        for(int i = 0; i < 200; i++)
+            put("old" + i);
+        time.setTime(123 + Time.MS_PER_DAY + 1);
+        for(int i = 0; i < 100; i++)
+            put("new" + i);
+
+        DataCleanupJob<ByteArray, byte[], byte[]> cleanupJob = new DataCleanupJob<ByteArray, byte[], byte[]>(engine,
+                                                                                                             new ScanPermitWrapper(1),
+                                                                                                             Time.MS_PER_DAY,
+                                                                                                             time,
+                                                                                                             new EventThrottler(1000000),
+                                                                                                             metadataStore,
+                                                                                                             null,
+                                                                                                             4);
+        cleanupJob.run();
+
+        // partition scans, if supported, must still cover every entry once
+        assertEquals(300, cleanupJob.getEntriesScanned());
+        assertEquals(200, cleanupJob.getEntriesDeleted());
+        for(int i = 0; i < 200; i++)
+            assertNotContains(engine, "old" + i);
+        for(int i = 0; i < 100; i++)
+            assertContains("new" + i);
+    }
+
     public void testCleanupStartTime() {
         // Make sure the default is always the next day.
         GregorianCalendar cal = new GregorianCalendar();
@@ -260,13 +360,27 @@ public class DataCleanupJobTest {
     }
 
     private void runRetentionEnforcingStoreTest(boolean onlineDeletes) throws InterruptedException {
+        runRetentionEnforcingStoreTest(onlineDeletes, null);
+    }
+
+    private void runRetentionEnforcingStoreTest(boolean onlineDeletes,
+                                                ExpiredVersionDeleter deleter)
+            throws InterruptedException {
+        runRetentionEnforcingStoreTest(engine, onlineDeletes, deleter);
+    }
+
+    private void runRetentionEnforcingStoreTest(Store<ByteArray, byte[], byte[]> innerStore,
+                                                boolean onlineDeletes,
+                                                ExpiredVersionDeleter deleter)
+            throws InterruptedException {
 
         time.setTime(System.currentTimeMillis());
         StoreDefinition retentionStoreDef = new StoreDefinitionsMapper().readStoreList(new StringReader(VoldemortTestConstants.getStoreDefinitionsWithRetentionXml()))
                                                                         .get(0);
-        RetentionEnforcingStore store = new RetentionEnforcingStore(engine,
+        RetentionEnforcingStore store = new RetentionEnforcingStore(innerStore,
                                                                     retentionStoreDef,
                                                                     onlineDeletes,
+                                                                    deleter,
                                                                     time);
         // do a bunch of puts
         store.put(new ByteArray("k1".getBytes()), new Versioned<byte[]>("v1".getBytes()), null);
@@ -302,6 +416,10 @@ public class DataCleanupJobTest {
                      true,
                      getAllResult.containsKey(new ByteArray("k4".getBytes())));
 
+        // background deletes are applied by the time the deleter is closed
+        if(deleter != null)
+            deleter.close();
+
         // if online deletes are not configured, we should see the deleted keys
         // in the base bdb store, so the datacleanup job can go and delete them
         assertEquals("k1 should be present",
@@ -323,7 +441,29 @@ public class DataCleanupJobTest {
         runRetentionEnforcingStoreTest(true);
     }
 
+    @Test
+    public void testRetentionEnforcingStoreBackgroundDeletes() throws InterruptedException {
+        ExpiredVersionDeleter deleter = new ExpiredVersionDeleter(10);
+        runRetentionEnforcingStoreTest(true, deleter);
+        // k1 may be deleted twice, by its get and the later getAll
+        assertTrue("Both expired keys should have been deleted", deleter.getNumDeleted() >= 2);
+        assertEquals(0, deleter.getNumDropped());
+    }
+
+    @Test
+    public void testRetentionEnforcingStoreThroughWrappers() throws InterruptedException {
+        ExpiredVersionDeleter deleter = new ExpiredVersionDeleter(10);
+        runRetentionEnforcingStoreTest(new LoggingStore<ByteArray, byte[], byte[]>(engine),
+                                       true,
+                                       deleter);
+        assertTrue("Both expired keys should have been deleted", deleter.getNumDeleted() >= 2);
+    }
+
     private void put(String... items) {
+        put(engine, items);
+    }
+
+    private void put(StorageEngine<ByteArray, byte[], byte[]> engine, String... items) {
         for(String item: items) {
             VectorClock clock = null;
             List<Versioned<byte[]>> found = engine.get(new ByteArray(item.getBytes()), null);
@@ -342,10 +482,22 @@ public class DataCleanupJobTest {
     }
 
     private void assertContains(String... keys) {
+        assertContains(engine, keys);
+    }
+
+    private void assertContains(StorageEngine<ByteArray, byte[], byte[]> engine, String... keys) {
         for(String key: keys) {
             List<Versioned<byte[]>> found = engine.get(new ByteArray(key.getBytes()), null);
             assertTrue("Did not find key '" + key + "' in store!", found.size() > 0);
         }
     }
 
+    private void assertNotContains(StorageEngine<ByteArray, byte[], byte[]> engine,
+                                   String... keys) {
+        for(String key: keys) {
+            List<Versioned<byte[]>> found = engine.get(new ByteArray(key.getBytes()), null);
+            assertTrue("Expected key '" + key + "' to be deleted!", found.size() == 0);
+        }
+    }
+
 }
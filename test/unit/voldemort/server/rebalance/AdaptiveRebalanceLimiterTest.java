@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.rebalance;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import voldemort.MockTime;
+
+/**
+ * Test for {@link AdaptiveRebalanceLimiter}
+ */
+public class AdaptiveRebalanceLimiterTest {
+
+    private static final long TARGET_P99_MS = 20;
+    private static final long INTERVAL_MS = 1000;
+
+    private MockTime time;
+    private AdaptiveRebalanceLimiter limiter;
+
+    @Before
+    public void setUp() {
+        time = new MockTime();
+        limiter = new AdaptiveRebalanceLimiter(4, TARGET_P99_MS, INTERVAL_MS, null, null, time);
+    }
+
+    private void acquire(int count) throws InterruptedException {
+        for(int i = 0; i < count; i++)
+            limiter.acquire();
+    }
+
+    @Test
+    public void testGrowsWhileBusyAndThroughputKeepsUp() throws InterruptedException {
+        assertEquals(1, limiter.getLimit());
+
+        // nothing waiting for a migration, no reason to grow
+        limiter.adjust(5, 100);
+        assertEquals(1, limiter.getLimit());
+
+        for(int limit = 1; limit < 4; limit++) {
+            acquire(limit - limiter.getNumActive());
+            limiter.adjust(5, 100 * limit);
+            assertEquals(limit + 1, limiter.getLimit());
+        }
+
+        // capped at the maximum
+        acquire(4 - limiter.getNumActive());
+        limiter.adjust(5, 400);
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testBacksOffOverTargetLatency() throws InterruptedException {
+        for(int limit = 1; limit < 4; limit++) {
+            acquire(limit - limiter.getNumActive());
+            limiter.adjust(5, 100);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        limiter.adjust(TARGET_P99_MS + 1, 100);
+        assertEquals(2, limiter.getLimit());
+        limiter.adjust(TARGET_P99_MS + 1, 100);
+        assertEquals(1, limiter.getLimit());
+        limiter.adjust(TARGET_P99_MS + 1, 100);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testStepsBackWhenThroughputDrops() throws InterruptedException {
+        acquire(1);
+        limiter.adjust(5, 100);
+        assertEquals(2, limiter.getLimit());
+
+        // the second migration slowed everything down
+        acquire(1);
+        limiter.adjust(5, 50);
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testBlocksOverLimit() throws Exception {
+        acquire(1);
+        Thread waiter = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    limiter.acquire();
+                } catch(InterruptedException e) {
+                    // done
+                }
+            }
+        });
+        waiter.start();
+        waiter.join(200);
+        assertEquals(true, waiter.isAlive());
+        assertEquals(1, limiter.getNumActive());
+
+        limiter.release();
+        waiter.join(5000);
+        assertEquals(false, waiter.isAlive());
+        assertEquals(1, limiter.getNumActive());
+    }
+}
@@ -17,6 +17,8 @@
 package voldemort.server.rebalance;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -26,6 +28,9 @@ import org.junit.Test;
 
 import voldemort.ServerTestUtils;
 import voldemort.client.rebalance.RebalanceTaskInfo;
+import voldemort.cluster.Cluster;
+import voldemort.store.StoreDefinition;
+import voldemort.store.metadata.MetadataStore;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -60,4 +65,43 @@ public class RebalancerStateTest {
         assertEquals(jsonIn, jsonOut);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCheckpoint() {
+        Cluster cluster = ServerTestUtils.getLocalCluster(2);
+        List<StoreDefinition> storeDefs = ServerTestUtils.getStoreDefs(2);
+        MetadataStore metadataStore = ServerTestUtils.createMetadataStore(cluster, storeDefs);
+
+        HashMap<String, List<Integer>> storeToPartitionIds = Maps.newHashMap();
+        storeToPartitionIds.put("test1", Lists.newArrayList(0, 1, 2));
+        storeToPartitionIds.put("test2", Lists.newArrayList(3, 4, 5, 6));
+        RebalanceTaskInfo plan = new RebalanceTaskInfo(1, 0, storeToPartitionIds, cluster);
+
+        metadataStore.addRebalancingState(RebalanceTaskInfo.create(plan.toJsonString()));
+        RebalanceTaskInfo info = metadataStore.getRebalancerState().find(0);
+        assertEquals(plan, info);
+
+        // complete one store
+        info.removeStore("test1");
+        metadataStore.checkpointRebalancingState(info);
+
+        RebalanceTaskInfo checkpointed = RebalancerState.create(metadataStore.getRebalancerState()
+                                                                             .toJsonString())
+                                                        .find(0);
+        assertEquals(Lists.newArrayList("test2"),
+                     Lists.newArrayList(checkpointed.getPartitionStores()));
+        assertTrue(checkpointed.isRemainderOf(plan));
+        assertFalse(plan.isRemainderOf(checkpointed));
+
+        // a plan moving other partitions cannot be resumed from it
+        HashMap<String, List<Integer>> otherStoreToPartitionIds = Maps.newHashMap();
+        otherStoreToPartitionIds.put("test2", Lists.newArrayList(3, 4));
+        assertFalse(checkpointed.isRemainderOf(new RebalanceTaskInfo(1,
+                                                                     0,
+                                                                     otherStoreToPartitionIds,
+                                                                     cluster)));
+
+        metadataStore.deleteRebalancingState(checkpointed);
+        assertTrue(metadataStore.getRebalancerState().isEmpty());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.server.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.utils.ClosableIterator;
+
+/**
+ * Tests that a failed partition scan stops the others without interrupting
+ * them
+ * 
+ */
+public class PartitionScannerTest {
+
+    private static final int NUM_PARTITIONS = 8;
+    private static final int KEYS_PER_PARTITION = 1000;
+
+    private final AtomicInteger opened = new AtomicInteger(0);
+    private final AtomicInteger closed = new AtomicInteger(0);
+    private final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+    private final InMemoryStorageEngine<Integer, String, String> engine = new InMemoryStorageEngine<Integer, String, String>("test") {
+
+        @Override
+        public boolean isPartitionScanSupported() {
+            return true;
+        }
+
+        @Override
+        public ClosableIterator<Integer> keys(final int partition) {
+            opened.incrementAndGet();
+            return new ClosableIterator<Integer>() {
+
+                private int next = 0;
+
+                public boolean hasNext() {
+                    // stands in for the cursor I/O, which must not be
+                    // interrupted
+                    if(Thread.currentThread().isInterrupted())
+                        interrupted.set(true);
+                    return next < KEYS_PER_PARTITION;
+                }
+
+                public Integer next() {
+                    return partition * KEYS_PER_PARTITION + next++;
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+        }
+    };
+
+    @Test
+    public void testScansEveryPartition() throws Exception {
+        final AtomicInteger visited = new AtomicInteger(0);
+        PartitionScanner<Integer, String, String> scanner = new PartitionScanner<Integer, String, String>(engine,
+                                                                                                      NUM_PARTITIONS,
+                                                                                                      4);
+        assertTrue(scanner.isParallel());
+        assertTrue(scanner.scanKeys(new PartitionScanner.Visitor<Integer>() {
+
+            public void visit(Integer key) {
+                visited.incrementAndGet();
+            }
+        }));
+        assertEquals(NUM_PARTITIONS * KEYS_PER_PARTITION, visited.get());
+        assertEquals(NUM_PARTITIONS, opened.get());
+        assertEquals(NUM_PARTITIONS, closed.get());
+    }
+
+    @Test
+    public void testFailureStopsOtherPartitionsWithoutInterrupting() throws Exception {
+        final AtomicInteger visited = new AtomicInteger(0);
+        PartitionScanner<Integer, String, String> scanner = new PartitionScanner<Integer, String, String>(engine,
+                                                                                                      NUM_PARTITIONS,
+                                                                                                      4);
+        try {
+            scanner.scanKeys(new PartitionScanner.Visitor<Integer>() {
+
+                public void visit(Integer key) throws Exception {
+                    if(key == KEYS_PER_PARTITION / 2)
+                        throw new IllegalStateException("failed");
+                    visited.incrementAndGet();
+                    Thread.sleep(0, 1000);
+                }
+            });
+            fail("The failure of a partition should fail the scan.");
+        } catch(IllegalStateException e) {
+            // expected
+        }
+
+        // every cursor was closed before the scan returned, and none of
+        // the scanning threads saw an interrupt
+        int visitedOnReturn = visited.get();
+        assertEquals(opened.get(), closed.get());
+        assertFalse(interrupted.get());
+        assertTrue(opened.get() < NUM_PARTITIONS);
+        Thread.sleep(100);
+        assertEquals(visitedOnReturn, visited.get());
+    }
+}
@@ -232,6 +232,38 @@ public abstract class AbstractStorageEngineTest extends AbstractByteArrayStoreTe
         }
     }
 
+    @Test
+    public void testBulkLoad() {
+        StorageEngine<ByteArray, byte[], byte[]> store = getStorageEngine();
+        ByteArray concurrentKey = new ByteArray("blKey1".getBytes());
+        ByteArray newKey = new ByteArray("blKey2".getBytes());
+        ByteArray staleKey = new ByteArray("blKey3".getBytes());
+        store.put(concurrentKey, TestUtils.getVersioned("val1".getBytes(), 1), null);
+        store.put(staleKey, TestUtils.getVersioned("val1".getBytes(), 1, 1), null);
+
+        List<Pair<ByteArray, Versioned<byte[]>>> entries = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>();
+        // one concurrent and one obsolete version of a stored key
+        entries.add(Pair.create(concurrentKey, TestUtils.getVersioned("val2".getBytes(), 2)));
+        entries.add(Pair.create(concurrentKey, TestUtils.getVersioned("val1-obsolete".getBytes(), 1)));
+        // a new key, whose second version supercedes the first
+        entries.add(Pair.create(newKey, TestUtils.getVersioned("val1".getBytes(), 1)));
+        entries.add(Pair.create(newKey, TestUtils.getVersioned("val11".getBytes(), 1, 1)));
+        // only an obsolete version of a stored key
+        entries.add(Pair.create(staleKey, TestUtils.getVersioned("val1-obsolete".getBytes(), 1)));
+
+        assertEquals("Only two keys should be updated", 2, store.bulkLoad(entries.iterator()));
+
+        List<Versioned<byte[]>> expected = new ArrayList<Versioned<byte[]>>();
+        expected.add(TestUtils.getVersioned("val1".getBytes(), 1));
+        expected.add(TestUtils.getVersioned("val2".getBytes(), 2));
+        assertTrue("Both concurrent versions expected",
+                   TestUtils.areVersionedListsEqual(expected, store.get(concurrentKey, null)));
+        assertEquals(1, store.get(newKey, null).size());
+        assertEquals("val11", new String(store.get(newKey, null).get(0).getValue()));
+        assertEquals(1, store.get(staleKey, null).size());
+        assertEquals("val1", new String(store.get(staleKey, null).get(0).getValue()));
+    }
+
     @SuppressWarnings("unused")
     private boolean remove(List<byte[]> list, byte[] item) {
         Iterator<byte[]> it = list.iterator();
@@ -21,10 +21,12 @@ import static junit.framework.Assert.fail;
 
 import java.io.File;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.io.FileDeleteStrategy;
 import org.junit.After;
@@ -38,13 +40,16 @@ import voldemort.cluster.Cluster;
 import voldemort.routing.RoutingStrategy;
 import voldemort.routing.RoutingStrategyFactory;
 import voldemort.server.VoldemortConfig;
+import voldemort.store.PartitionBlockFormat;
 import voldemort.store.StoreBinaryFormat;
 import voldemort.store.StoreDefinition;
+import voldemort.store.compress.CompressionStrategy;
 import voldemort.utils.ByteArray;
 import voldemort.utils.ByteUtils;
 import voldemort.utils.ClosableIterator;
 import voldemort.utils.Pair;
 import voldemort.utils.Props;
+import voldemort.versioning.VectorClock;
 import voldemort.versioning.Versioned;
 import voldemort.xml.ClusterMapper;
 import voldemort.xml.StoreDefinitionsMapper;
@@ -237,4 +242,58 @@ public class PartitionPrefixedBdbStorageEngineTest {
             prefixedBdbStore.close();
         }
     }
+
+    @Test
+    public void testBulkLoadPartitionBlocks() throws Exception {
+        StoreDefinition srcDef = TestUtils.makeStoreDefinition("srcStore");
+        StoreDefinition destDef = TestUtils.makeStoreDefinition("destStore");
+        RoutingStrategy strategy = TestUtils.makeSingleNodeRoutingStrategy();
+        BdbStorageEngine srcStore = (BdbStorageEngine) bdbStorage.getStore(srcDef, strategy);
+        BdbStorageEngine destStore = (BdbStorageEngine) bdbStorage.getStore(destDef, strategy);
+        try {
+            VectorClock clock = new VectorClock().incremented(1, System.currentTimeMillis());
+            VectorClock newerClock = clock.incremented(1, System.currentTimeMillis());
+            Set<Integer> partitions = new TreeSet<Integer>();
+            for(int i = 0; i < 2000; i++) {
+                ByteArray key = new ByteArray(("key" + i).getBytes());
+                partitions.add(strategy.getMasterPartition(key.get()));
+                srcStore.put(key, new Versioned<byte[]>(("value" + i).getBytes(), clock), null);
+                // the destination already has a few keys, some of them newer
+                if(i % 10 == 0)
+                    destStore.put(key, new Versioned<byte[]>("older".getBytes()), null);
+                else if(i % 10 == 1)
+                    destStore.put(key, new Versioned<byte[]>("newer".getBytes(), newerClock), null);
+            }
+
+            // ship every partition through the block format, as the donor does
+            CompressionStrategy compression = PartitionBlockFormat.getCompressionStrategyForType("gzip");
+            List<Pair<ByteArray, Versioned<byte[]>>> shipped = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>();
+            for(int p: partitions) {
+                List<Pair<ByteArray, Versioned<byte[]>>> block = new ArrayList<Pair<ByteArray, Versioned<byte[]>>>();
+                ClosableIterator<Pair<ByteArray, Versioned<byte[]>>> itr = srcStore.entries(p);
+                while(itr.hasNext())
+                    block.add(itr.next());
+                itr.close();
+                String blockName = PartitionBlockFormat.getBlockName(p, 0, compression.getType());
+                byte[] data = compression.deflate(PartitionBlockFormat.toByteArray(block));
+                shipped.addAll(PartitionBlockFormat.fromByteArray(PartitionBlockFormat.getCompressionStrategy(blockName)
+                                                                                      .inflate(data)));
+            }
+            assertEquals(2000, shipped.size());
+
+            // every key except the ones with newer versions gets updated
+            assertEquals(1800, destStore.bulkLoad(shipped.iterator()));
+
+            for(int i = 0; i < 2000; i++) {
+                List<Versioned<byte[]>> values = destStore.get(new ByteArray(("key" + i).getBytes()),
+                                                               null);
+                assertEquals(1, values.size());
+                String expected = (i % 10 == 1) ? "newer" : "value" + i;
+                assertEquals(expected, new String(values.get(0).getValue()));
+            }
+        } finally {
+            srcStore.close();
+            destStore.close();
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.util.List;
+
+import voldemort.MockTime;
+import voldemort.TestUtils;
+import voldemort.store.AbstractByteArrayStoreTest;
+import voldemort.store.Store;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.VectorClock;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.ImmutableList;
+
+public class NearCacheStoreTest extends AbstractByteArrayStoreTest {
+
+    private static final long TTL_MS = 1000;
+
+    private MockTime time;
+    private InMemoryStorageEngine<ByteArray, byte[], byte[]> innerStore;
+    private VersionedCache cache;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        time = new MockTime();
+        innerStore = new InMemoryStorageEngine<ByteArray, byte[], byte[]>("test");
+        cache = new VersionedCache(1024 * 1024, 4, TTL_MS, false, time);
+    }
+
+    @Override
+    public Store<ByteArray, byte[], byte[]> getStore() {
+        return new NearCacheStore(innerStore, cache, false);
+    }
+
+    public void testReadsAreServedFromCacheUntilExpired() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        assertEquals("a", new String(store.get(key, null).get(0).getValue()));
+
+        // A write by somebody else is not seen until the entry expires
+        innerStore.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)), null);
+        assertEquals("a", new String(store.get(key, null).get(0).getValue()));
+        assertEquals(1, cache.getNumHits());
+
+        time.addMilliseconds(TTL_MS);
+        assertEquals("b", new String(store.get(key, null).get(0).getValue()));
+    }
+
+    public void testLocalWritesInvalidate() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        store.get(key, null);
+        store.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)), null);
+        assertEquals("b", new String(store.get(key, null).get(0).getValue()));
+
+        store.delete(key, TestUtils.getClock(1, 1));
+        assertEquals(0, store.get(key, null).size());
+    }
+
+    public void testRevalidationSeesRemoteWrites() {
+        Store<ByteArray, byte[], byte[]> store = new NearCacheStore(innerStore, cache, true);
+        ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        store.get(key, null);
+        assertEquals("a", new String(store.get(key, null).get(0).getValue()));
+        assertEquals(1, cache.getNumHits());
+
+        innerStore.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)), null);
+        assertEquals("b", new String(store.get(key, null).get(0).getValue()));
+    }
+
+    public void testStaleReadCannotRepopulateAfterWrite() {
+        ByteArray key = new ByteArray("key".getBytes());
+        List<Versioned<byte[]>> stale = ImmutableList.of(new Versioned<byte[]>("a".getBytes(),
+                                                                               TestUtils.getClock(1)));
+        cache.invalidate(key, TestUtils.getClock(1, 1));
+        cache.put(key, stale);
+        assertNull(cache.get(key));
+
+        List<Versioned<byte[]>> fresh = ImmutableList.of(new Versioned<byte[]>("b".getBytes(),
+                                                                               TestUtils.getClock(1, 1)));
+        cache.put(key, fresh);
+        assertEquals("b", new String(cache.get(key).get(0).getValue()));
+        cache.put(key, stale);
+        assertEquals("b", new String(cache.get(key).get(0).getValue()));
+    }
+
+    public void testCachedValuesAreCopies() {
+        ByteArray key = new ByteArray("key".getBytes());
+        byte[] value = "a".getBytes();
+        cache.put(key, ImmutableList.of(new Versioned<byte[]>(value, TestUtils.getClock(1))));
+        value[0] = 'x';
+        assertEquals("a", new String(cache.get(key).get(0).getValue()));
+
+        VectorClock clock = (VectorClock) cache.get(key).get(0).getVersion();
+        clock.incrementVersion(2, time.getMilliseconds());
+        assertEquals(TestUtils.getClock(1), cache.get(key).get(0).getVersion());
+
+        cache.get(key).get(0).getValue()[0] = 'y';
+        assertEquals("a", new String(cache.get(key).get(0).getValue()));
+    }
+
+    public void testSizeIsBounded() {
+        VersionedCache offHeapCache = new VersionedCache(2048, 1, 0, true, time);
+        for(int i = 0; i < 100; i++) {
+            offHeapCache.put(new ByteArray(("key" + i).getBytes()),
+                             ImmutableList.of(new Versioned<byte[]>(new byte[100],
+                                                                    TestUtils.getClock(1))));
+        }
+        assertTrue(offHeapCache.getSizeInBytes() <= 2048);
+        assertTrue(offHeapCache.getNumEvictions() > 0);
+        // the most recent entry survives
+        assertNotNull(offHeapCache.get(new ByteArray("key99".getBytes())));
+        assertNull(offHeapCache.get(new ByteArray("key0".getBytes())));
+    }
+}
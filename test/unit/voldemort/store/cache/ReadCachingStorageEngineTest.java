@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.cache;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import voldemort.MockTime;
+import voldemort.TestUtils;
+import voldemort.VoldemortTestConstants;
+import voldemort.store.AbstractStorageEngineTest;
+import voldemort.store.StorageEngine;
+import voldemort.store.StoreDefinition;
+import voldemort.store.logging.LoggingStore;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.retention.RetentionEnforcingStore;
+import voldemort.store.stats.StoreStats;
+import voldemort.utils.ByteArray;
+import voldemort.utils.Pair;
+import voldemort.utils.Time;
+import voldemort.versioning.Versioned;
+import voldemort.xml.StoreDefinitionsMapper;
+
+import com.google.common.collect.ImmutableList;
+
+public class ReadCachingStorageEngineTest extends AbstractStorageEngineTest {
+
+    private InMemoryStorageEngine<ByteArray, byte[], byte[]> innerEngine;
+    private VersionedCache cache;
+    private StoreStats stats;
+    private ReadCachingStorageEngine engine;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        innerEngine = new InMemoryStorageEngine<ByteArray, byte[], byte[]>("test");
+        engine = createEngine(1024 * 1024, 1);
+    }
+
+    private ReadCachingStorageEngine createEngine(long maxSizeInBytes, int admissionThreshold) {
+        cache = new VersionedCache(maxSizeInBytes, 1, 0, false, new MockTime());
+        stats = new StoreStats();
+        ReadCachingStorageEngine readCachingEngine = new ReadCachingStorageEngine(innerEngine,
+                                                                                  cache,
+                                                                                  admissionThreshold,
+                                                                                  1000);
+        readCachingEngine.setStats(stats);
+        return readCachingEngine;
+    }
+
+    @Override
+    public StorageEngine<ByteArray, byte[], byte[]> getStorageEngine() {
+        return engine;
+    }
+
+    @Override
+    public List<ByteArray> getKeys(int numKeys) {
+        List<ByteArray> keys = new ArrayList<ByteArray>(numKeys);
+        for(int i = 0; i < numKeys; i++)
+            keys.add(new ByteArray(TestUtils.randomBytes(10)));
+        return keys;
+    }
+
+    public void testKeysAreAdmittedOnceHot() {
+        engine = createEngine(1024 * 1024, 2);
+        ByteArray key = new ByteArray("key".getBytes());
+        engine.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+
+        engine.get(key, null);
+        assertEquals("A single read should not admit the key", 0, cache.getNumEntries());
+        engine.get(key, null);
+        assertEquals(1, cache.getNumEntries());
+        assertEquals("a", new String(engine.get(key, null).get(0).getValue()));
+
+        assertEquals(1, stats.getReadCacheHits());
+        assertEquals(2, stats.getReadCacheMisses());
+    }
+
+    public void testWritesInvalidateCachedValues() {
+        ByteArray key = new ByteArray("key".getBytes());
+        engine.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        engine.get(key, null);
+        assertEquals(1, cache.getNumEntries());
+
+        engine.put(key, new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1)), null);
+        assertEquals("b", new String(engine.get(key, null).get(0).getValue()));
+
+        // the admin service streams versions in with multiVersionPut
+        engine.multiVersionPut(key,
+                               ImmutableList.of(new Versioned<byte[]>("c".getBytes(),
+                                                                      TestUtils.getClock(1, 1, 1))));
+        assertEquals("c", new String(engine.get(key, null).get(0).getValue()));
+
+        engine.delete(key, TestUtils.getClock(1, 1, 1, 1));
+        assertEquals(0, engine.get(key, null).size());
+    }
+
+    public void testMissingKeysAreCached() {
+        ByteArray key = new ByteArray("key".getBytes());
+        assertEquals(0, engine.get(key, null).size());
+        assertEquals(0, engine.getAll(ImmutableList.of(key), null).size());
+        assertEquals(1, stats.getReadCacheHits());
+
+        engine.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        assertEquals(1, engine.getAll(ImmutableList.of(key), null).size());
+    }
+
+    public void testBulkLoadAndTruncateDropTheCache() {
+        ByteArray key = new ByteArray("key".getBytes());
+        engine.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        engine.get(key, null);
+
+        Versioned<byte[]> loaded = new Versioned<byte[]>("b".getBytes(), TestUtils.getClock(1, 1));
+        List<Pair<ByteArray, Versioned<byte[]>>> entries = ImmutableList.of(Pair.create(key, loaded));
+        engine.bulkLoad(entries.iterator());
+        assertEquals(0, cache.getNumEntries());
+        assertEquals("b", new String(engine.get(key, null).get(0).getValue()));
+
+        engine.truncate();
+        assertEquals(0, cache.getNumEntries());
+        assertEquals(0, engine.get(key, null).size());
+    }
+
+    public void testEvictionsAreReported() {
+        engine = createEngine(512, 1);
+        for(int i = 0; i < 20; i++) {
+            ByteArray key = new ByteArray(("key" + i).getBytes());
+            engine.put(key, new Versioned<byte[]>(new byte[64], TestUtils.getClock(1)), null);
+            engine.get(key, null);
+        }
+        assertTrue(cache.getSizeInBytes() <= 512);
+        assertTrue(stats.getReadCacheEvictions() > 0);
+        assertEquals(cache.getNumEvictions(), stats.getReadCacheEvictions());
+    }
+
+    public void testRetentionReadsAreServedFromTheCache() {
+        StoreDefinition storeDef = new StoreDefinitionsMapper().readStoreList(new StringReader(VoldemortTestConstants.getStoreDefinitionsWithRetentionXml()))
+                                                               .get(0);
+        long retentionMs = storeDef.getRetentionDays() * Time.MS_PER_DAY;
+        MockTime time = new MockTime(System.currentTimeMillis());
+        ByteArray key = new ByteArray("key".getBytes());
+        engine.put(key,
+                   new Versioned<byte[]>("old".getBytes(),
+                                         TestUtils.getClockWithTs(time.getMilliseconds()
+                                                                  - retentionMs - 1, 1)),
+                   null);
+        engine.put(key,
+                   new Versioned<byte[]>("new".getBytes(),
+                                         TestUtils.getClockWithTs(time.getMilliseconds(), 2)),
+                   null);
+
+        // the same wrappers the storage service puts above the engine
+        RetentionEnforcingStore store = new RetentionEnforcingStore(new LoggingStore<ByteArray, byte[], byte[]>(engine),
+                                                                    storeDef,
+                                                                    false,
+                                                                    time);
+        for(int i = 0; i < 3; i++) {
+            List<Versioned<byte[]>> values = store.get(key, null);
+            assertEquals(1, values.size());
+            assertEquals("new", new String(values.get(0).getValue()));
+        }
+        assertEquals(1, stats.getReadCacheMisses());
+        assertEquals(2, stats.getReadCacheHits());
+        // the cache keeps every version, expiry is decided on each read
+        assertEquals(2, cache.get(key).size());
+
+        time.addMilliseconds(retentionMs + 1);
+        assertEquals(0, store.get(key, null).size());
+        assertEquals(0, store.getAll(ImmutableList.of(key), null).size());
+        assertEquals(1, stats.getReadCacheMisses());
+        assertEquals(4, stats.getReadCacheHits());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.coalescing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import voldemort.TestUtils;
+import voldemort.VoldemortException;
+import voldemort.store.AbstractByteArrayStoreTest;
+import voldemort.store.DelegatingStore;
+import voldemort.store.Store;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+public class CoalescingStoreTest extends AbstractByteArrayStoreTest {
+
+    private static final int NUM_THREADS = 8;
+
+    private BlockingStore innerStore;
+    private GetCoalescer coalescer;
+    private ExecutorService executor;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        innerStore = new BlockingStore(new InMemoryStorageEngine<ByteArray, byte[], byte[]>("test"));
+        coalescer = new GetCoalescer();
+        executor = Executors.newFixedThreadPool(NUM_THREADS);
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        innerStore.release();
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    @Override
+    public Store<ByteArray, byte[], byte[]> getStore() {
+        return new CoalescingStore(innerStore, coalescer);
+    }
+
+    public void testConcurrentGetsShareOneLookup() throws Exception {
+        final Store<ByteArray, byte[], byte[]> store = getStore();
+        final ByteArray key = new ByteArray("key".getBytes());
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+
+        innerStore.block();
+        List<Future<List<Versioned<byte[]>>>> results = submitGets(store, key, NUM_THREADS);
+        waitFor(NUM_THREADS - 1);
+        innerStore.release();
+
+        List<Versioned<byte[]>> first = null;
+        for(Future<List<Versioned<byte[]>>> result: results) {
+            List<Versioned<byte[]>> values = result.get(5, TimeUnit.SECONDS);
+            assertEquals(1, values.size());
+            assertEquals("a", new String(values.get(0).getValue()));
+            if(first != null)
+                assertNotSame("Every caller should get its own copy", first.get(0), values.get(0));
+            first = values;
+        }
+        assertEquals(1, innerStore.numGets.get());
+        assertEquals(NUM_THREADS, coalescer.getNumGets());
+        assertEquals(NUM_THREADS - 1, coalescer.getNumCoalescedGets());
+        assertEquals(0, coalescer.getNumGetsInFlight());
+    }
+
+    public void testGetsAfterAWriteDoNotJoinOlderLookups() throws Exception {
+        final Store<ByteArray, byte[], byte[]> store = getStore();
+        final ByteArray key = new ByteArray("key".getBytes());
+
+        innerStore.block();
+        List<Future<List<Versioned<byte[]>>>> before = submitGets(store, key, 1);
+        while(innerStore.numGets.get() < 1)
+            Thread.sleep(5);
+
+        store.put(key, new Versioned<byte[]>("a".getBytes(), TestUtils.getClock(1)), null);
+        List<Future<List<Versioned<byte[]>>>> after = submitGets(store, key, 1);
+        while(innerStore.numGets.get() < 2)
+            Thread.sleep(5);
+        innerStore.release();
+
+        before.get(0).get(5, TimeUnit.SECONDS);
+        List<Versioned<byte[]>> values = after.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals("a", new String(values.get(0).getValue()));
+        assertEquals(0, coalescer.getNumCoalescedGets());
+    }
+
+    public void testFailuresAreSharedWithWaiters() throws Exception {
+        final Store<ByteArray, byte[], byte[]> store = getStore();
+        final ByteArray key = new ByteArray("key".getBytes());
+
+        innerStore.block();
+        innerStore.failGets = true;
+        List<Future<List<Versioned<byte[]>>>> results = submitGets(store, key, NUM_THREADS);
+        waitFor(NUM_THREADS - 1);
+        innerStore.release();
+
+        for(Future<List<Versioned<byte[]>>> result: results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("The failure of the lookup should reach every caller");
+            } catch(ExecutionException e) {
+                assertTrue(e.getCause() instanceof VoldemortException);
+            }
+        }
+        assertEquals(1, innerStore.numGets.get());
+    }
+
+    public void testErrorsAreSharedWithWaiters() throws Exception {
+        final Store<ByteArray, byte[], byte[]> store = getStore();
+        final ByteArray key = new ByteArray("key".getBytes());
+
+        innerStore.block();
+        innerStore.errorGets = true;
+        List<Future<List<Versioned<byte[]>>>> results = submitGets(store, key, NUM_THREADS);
+        waitFor(NUM_THREADS - 1);
+        innerStore.release();
+
+        int numErrors = 0;
+        for(Future<List<Versioned<byte[]>>> result: results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("The error of the lookup should reach every caller");
+            } catch(ExecutionException e) {
+                if(e.getCause() instanceof AssertionError) {
+                    numErrors++;
+                } else {
+                    assertTrue(e.getCause() instanceof VoldemortException);
+                    assertTrue(e.getCause().getCause() instanceof AssertionError);
+                }
+            }
+        }
+        assertEquals("Only the caller doing the lookup sees the error itself", 1, numErrors);
+        assertEquals(0, coalescer.getNumGetsInFlight());
+    }
+
+    private List<Future<List<Versioned<byte[]>>>> submitGets(final Store<ByteArray, byte[], byte[]> store,
+                                                             final ByteArray key,
+                                                             int numGets) {
+        List<Future<List<Versioned<byte[]>>>> results = new ArrayList<Future<List<Versioned<byte[]>>>>();
+        for(int i = 0; i < numGets; i++) {
+            results.add(executor.submit(new Callable<List<Versioned<byte[]>>>() {
+
+                public List<Versioned<byte[]>> call() {
+                    return store.get(key, null);
+                }
+            }));
+        }
+        return results;
+    }
+
+    private void waitFor(int numCoalescedGets) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while(coalescer.getNumCoalescedGets() < numCoalescedGets
+              && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(numCoalescedGets, coalescer.getNumCoalescedGets());
+    }
+
+    /**
+     * Holds gets back until released, counting them
+     */
+    private static class BlockingStore extends DelegatingStore<ByteArray, byte[], byte[]> {
+
+        private final AtomicInteger numGets = new AtomicInteger(0);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+        private volatile boolean failGets = false;
+        private volatile boolean errorGets = false;
+
+        BlockingStore(Store<ByteArray, byte[], byte[]> innerStore) {
+            super(innerStore);
+        }
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        public List<Versioned<byte[]>> get(ByteArray key, byte[] transforms)
+                throws VoldemortException {
+            numGets.incrementAndGet();
+            try {
+                gate.await();
+            } catch(InterruptedException e) {
+                throw new VoldemortException(e);
+            }
+            if(failGets)
+                throw new VoldemortException("Failing as requested.");
+            if(errorGets)
+                throw new AssertionError("Failing as requested.");
+            return super.get(key, transforms);
+        }
+    }
+}
@@ -38,7 +38,8 @@ public class CompressingStoreTest extends AbstractByteArrayStoreTest {
     @Parameters
     public static Collection<Object[]> configs() {
         return Arrays.asList(new Object[][] { { true, "gzip" }, { false, "gzip" }, { true, "lzf" },
-                { false, "lzf" }, { true, "snappy" }, { false, "snappy" } });
+                { false, "lzf" }, { true, "snappy" }, { false, "snappy" }, { true, "dictionary" },
+                { false, "dictionary" } });
     }
 
     @Override
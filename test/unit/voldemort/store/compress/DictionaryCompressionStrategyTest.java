@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import voldemort.serialization.Compression;
+import voldemort.utils.ByteUtils;
+
+public class DictionaryCompressionStrategyTest {
+
+    private static final String[] COLORS = { "red", "green", "blue", "yellow" };
+
+    private final Random random = new Random(42);
+
+    private byte[] record(int i) {
+        return ByteUtils.getBytes("{\"memberId\":" + i + ",\"firstName\":\"name" + random.nextInt()
+                                  + "\",\"favoriteColor\":\"" + COLORS[i % COLORS.length]
+                                  + "\",\"createdAt\":" + (1370000000000L + random.nextInt())
+                                  + ",\"settings\":{\"emailNotifications\":true,"
+                                  + "\"pushNotifications\":false,\"locale\":\"en_US\"}}",
+                                  "UTF-8");
+    }
+
+    private List<byte[]> records(int count) {
+        List<byte[]> records = new ArrayList<byte[]>();
+        for(int i = 0; i < count; i++)
+            records.add(record(i));
+        return records;
+    }
+
+    @Test
+    public void testRoundTripWithoutDictionary() throws IOException {
+        CompressionStrategy strategy = new CompressionStrategyFactory().get(new Compression(DictionaryCompressionStrategy.TYPE,
+                                                                                            null));
+        for(byte[] value: records(10))
+            assertArrayEquals(value, strategy.inflate(strategy.deflate(value)));
+        assertArrayEquals(new byte[0], strategy.inflate(strategy.deflate(new byte[0])));
+    }
+
+    @Test
+    public void testTrainedDictionaryCompressesBetter() throws IOException {
+        byte[] dictionary = new DictionaryTrainer().train(records(500));
+        assertTrue(dictionary.length > 0);
+
+        CompressionStrategy plain = new DictionaryCompressionStrategy((String) null);
+        CompressionStrategy trained = new CompressionStrategyFactory().get(DictionaryCompressionStrategy.addDictionary(null,
+                                                                                                                       dictionary));
+        int plainSize = 0, trainedSize = 0;
+        for(byte[] value: records(100)) {
+            byte[] compressed = trained.deflate(value);
+            assertArrayEquals(value, trained.inflate(compressed));
+            trainedSize += compressed.length;
+            plainSize += plain.deflate(value).length;
+        }
+        assertTrue("Trained dictionary should beat plain deflate, " + trainedSize + " vs "
+                   + plainSize, trainedSize * 2 < plainSize);
+    }
+
+    @Test
+    public void testOldDictionariesStayReadable() throws IOException {
+        DictionaryTrainer trainer = new DictionaryTrainer(4096, 32);
+        Compression first = DictionaryCompressionStrategy.addDictionary(null,
+                                                                        trainer.train(records(100)));
+        DictionaryCompressionStrategy firstStrategy = new DictionaryCompressionStrategy(first.getOptions());
+        assertEquals(1, firstStrategy.getCurrentDictionaryId());
+
+        byte[] value = record(7);
+        byte[] oldCompressed = firstStrategy.deflate(value);
+        byte[] unversioned = new DictionaryCompressionStrategy((String) null).deflate(value);
+
+        Compression second = DictionaryCompressionStrategy.addDictionary(first,
+                                                                         trainer.train(records(50)));
+        DictionaryCompressionStrategy secondStrategy = new DictionaryCompressionStrategy(second.getOptions());
+        assertEquals(2, secondStrategy.getCurrentDictionaryId());
+        assertArrayEquals(value, secondStrategy.inflate(oldCompressed));
+        assertArrayEquals(value, secondStrategy.inflate(unversioned));
+        assertArrayEquals(value, secondStrategy.inflate(secondStrategy.deflate(value)));
+
+        // a strategy that never knew about dictionary 2 must fail loudly
+        try {
+            firstStrategy.inflate(secondStrategy.deflate(value));
+            fail("Should not be able to inflate without the dictionary");
+        } catch(IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEmptyDictionaries() throws IOException {
+        try {
+            DictionaryCompressionStrategy.addDictionary(null, new byte[0]);
+            fail("Should not be able to add an empty dictionary");
+        } catch(IllegalArgumentException e) {
+            // expected
+        }
+
+        // an empty dictionary in the options is ignored
+        Compression compression = DictionaryCompressionStrategy.addDictionary(null,
+                                                                              new DictionaryTrainer().train(records(100)));
+        DictionaryCompressionStrategy strategy = new DictionaryCompressionStrategy(compression.getOptions()
+                                                                                   + ",2:");
+        assertEquals(1, strategy.getCurrentDictionaryId());
+        assertEquals(1, strategy.getDictionaries().size());
+        byte[] value = record(3);
+        assertArrayEquals(value, strategy.inflate(strategy.deflate(value)));
+
+        // samples with nothing in common do not yield a dictionary
+        CompressionStrategy undictionaried = new DictionaryCompressionStrategy((String) null);
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for(int i = 0; i < 50; i++) {
+            byte[] sample = new byte[64];
+            random.nextBytes(sample);
+            samples.add(undictionaried.deflate(sample));
+        }
+        assertNull(DictionaryCompressionStrategy.trainDictionary(null,
+                                                                 samples,
+                                                                 new DictionaryTrainer()));
+    }
+
+    @Test
+    public void testTrainDictionaryFromStoredValues() throws IOException {
+        DictionaryTrainer trainer = new DictionaryTrainer(4096, 32);
+        Compression first = DictionaryCompressionStrategy.addDictionary(null,
+                                                                        trainer.train(records(100)));
+        DictionaryCompressionStrategy firstStrategy = new DictionaryCompressionStrategy(first.getOptions());
+
+        // samples are read as stored, i.e. compressed with the first dictionary
+        List<byte[]> values = records(100);
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for(byte[] value: values)
+            samples.add(firstStrategy.deflate(value));
+
+        Compression second = DictionaryCompressionStrategy.trainDictionary(first, samples, trainer);
+        DictionaryCompressionStrategy secondStrategy = new DictionaryCompressionStrategy(second.getOptions());
+        assertEquals(2, secondStrategy.getCurrentDictionaryId());
+        for(int i = 0; i < values.size(); i++)
+            assertArrayEquals(values.get(i), secondStrategy.inflate(samples.get(i)));
+    }
+
+    @Test
+    public void testStrategiesShareThreadCoders() throws Exception {
+        DictionaryTrainer trainer = new DictionaryTrainer(4096, 32);
+        byte[] firstDictionary = trainer.train(records(100));
+        byte[] secondDictionary = trainer.train(records(50));
+        SortedMap<Integer, byte[]> first = new TreeMap<Integer, byte[]>();
+        first.put(1, firstDictionary);
+        SortedMap<Integer, byte[]> second = new TreeMap<Integer, byte[]>();
+        second.put(2, secondDictionary);
+        DictionaryCompressionStrategy fast = new DictionaryCompressionStrategy(first,
+                                                                               Deflater.BEST_SPEED);
+        DictionaryCompressionStrategy small = new DictionaryCompressionStrategy(second,
+                                                                                Deflater.BEST_COMPRESSION);
+
+        // interleaved on one thread, every value deflates exactly as with a
+        // fresh deflater
+        for(byte[] value: records(20)) {
+            byte[] fastCompressed = fast.deflate(value);
+            byte[] smallCompressed = small.deflate(value);
+            assertArrayEquals(freshDeflate(value, firstDictionary, Deflater.BEST_SPEED),
+                              ByteUtils.copy(fastCompressed, 2, fastCompressed.length));
+            assertArrayEquals(freshDeflate(value, secondDictionary, Deflater.BEST_COMPRESSION),
+                              ByteUtils.copy(smallCompressed, 2, smallCompressed.length));
+            assertArrayEquals(value, fast.inflate(fastCompressed));
+            assertArrayEquals(value, small.inflate(smallCompressed));
+        }
+
+        // a value that fails to inflate leaves the thread's inflater usable
+        try {
+            fast.inflate(new byte[] { 0, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff });
+            fail("Garbage should not inflate");
+        } catch(IOException e) {
+            // expected
+        }
+        byte[] value = record(3);
+        assertArrayEquals(value, fast.inflate(fast.deflate(value)));
+
+        // and every thread gets its own coders
+        final DictionaryCompressionStrategy shared = fast;
+        final List<byte[]> values = records(200);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for(int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+
+                    public Boolean call() throws IOException {
+                        for(byte[] value: values) {
+                            if(!Arrays.equals(value, shared.inflate(shared.deflate(value))))
+                                return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for(Future<Boolean> result: results)
+                assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private byte[] freshDeflate(byte[] value, byte[] dictionary, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(value);
+            deflater.finish();
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while(!deflater.finished())
+                bos.write(buffer, 0, deflater.deflate(buffer));
+            return bos.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Test
+    public void testOptionsRoundTrip() {
+        Compression compression = DictionaryCompressionStrategy.addDictionary(null, new byte[] {
+                1, 2, 3 });
+        compression = DictionaryCompressionStrategy.addDictionary(compression, new byte[] { 4, 5 });
+        SortedMap<Integer, byte[]> dictionaries = DictionaryCompressionStrategy.parseOptions(compression.getOptions());
+        assertEquals(2, dictionaries.size());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, dictionaries.get(1));
+        assertArrayEquals(new byte[] { 4, 5 }, dictionaries.get(2));
+        assertEquals(compression.getOptions(), DictionaryCompressionStrategy.toOptions(dictionaries));
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -211,6 +212,58 @@ public class MetadataStoreTest {
 
     }
 
+    @Test
+    public void testSnapshotPublishedOnPut() {
+        MetadataSnapshot before = metadataStore.getSnapshot();
+        assertEquals(metadataStore.getCluster(), before.getCluster());
+        assertEquals(VoldemortState.NORMAL_SERVER, before.getServerState());
+
+        metadataStore.put(MetadataStore.SERVER_STATE_KEY, VoldemortState.REBALANCING_MASTER_SERVER);
+
+        MetadataSnapshot after = metadataStore.getSnapshot();
+        assertTrue("Version should move forward", after.getVersion() > before.getVersion());
+        assertEquals(VoldemortState.REBALANCING_MASTER_SERVER, after.getServerState());
+        assertEquals(VoldemortState.REBALANCING_MASTER_SERVER,
+                     metadataStore.getServerStateUnlocked());
+        // old snapshots are immutable
+        assertEquals(VoldemortState.NORMAL_SERVER, before.getServerState());
+    }
+
+    @Test
+    public void testSnapshotPublishedOnOutermostUnlock() throws Exception {
+        final Cluster oldCluster = metadataStore.getCluster();
+        final Cluster newCluster = ServerTestUtils.getLocalCluster(2);
+
+        metadataStore.writeLock.lock();
+        try {
+            incrementVersionAndPut(metadataStore, MetadataStore.CLUSTER_KEY, newCluster);
+
+            // the writer sees its own update...
+            assertEquals(newCluster, metadataStore.getCluster());
+            assertEquals(newCluster.getNumberOfNodes(),
+                         metadataStore.getRoutingStrategy(MetadataStore.METADATA_STORE_NAME)
+                                      .getNodes()
+                                      .size());
+
+            // ...but other threads don't until the whole update is done
+            final AtomicReference<Cluster> seen = new AtomicReference<Cluster>();
+            Thread reader = new Thread(new Runnable() {
+
+                public void run() {
+                    seen.set(metadataStore.getCluster());
+                }
+            });
+            reader.start();
+            reader.join();
+            assertEquals(oldCluster, seen.get());
+        } finally {
+            metadataStore.writeLock.unlock();
+        }
+
+        assertEquals(newCluster, metadataStore.getCluster());
+        assertEquals(newCluster, metadataStore.getSnapshot().getCluster());
+    }
+
     private void checkValues(Versioned<byte[]> value, List<Versioned<byte[]>> list, ByteArray key) {
         assertEquals("should return exactly one value ", 1, list.size());
 
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.projection;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+
+import voldemort.TestUtils;
+import voldemort.VoldemortException;
+import voldemort.serialization.Compression;
+import voldemort.serialization.DefaultSerializerFactory;
+import voldemort.serialization.Serializer;
+import voldemort.serialization.SerializerDefinition;
+import voldemort.store.AbstractByteArrayStoreTest;
+import voldemort.store.Store;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.projection.AvroProjection.Operator;
+import voldemort.store.projection.AvroProjection.Predicate;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+public class ProjectingStoreTest extends AbstractByteArrayStoreTest {
+
+    private static final String SCHEMA = "{\"type\": \"record\", \"name\": \"Member\", \"fields\": ["
+                                         + "{\"name\": \"id\", \"type\": \"long\"},"
+                                         + "{\"name\": \"name\", \"type\": \"string\"},"
+                                         + "{\"name\": \"country\", \"type\": [\"null\", \"string\"]},"
+                                         + "{\"name\": \"bio\", \"type\": \"string\"},"
+                                         + "{\"name\": \"tags\", \"type\": {\"type\": \"array\", \"items\": \"string\"}},"
+                                         + "{\"name\": \"address\", \"type\": {\"type\": \"record\", \"name\": \"Address\", \"fields\": ["
+                                         + "{\"name\": \"city\", \"type\": \"string\"}]}}]}";
+
+    private SerializerDefinition serializerDef;
+    private Serializer<Object> serializer;
+    private InMemoryStorageEngine<ByteArray, byte[], byte[]> innerStore;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        serializerDef = new SerializerDefinition("avro-generic", SCHEMA);
+        serializer = getSerializer(serializerDef);
+        innerStore = new InMemoryStorageEngine<ByteArray, byte[], byte[]>("test");
+    }
+
+    @Override
+    public Store<ByteArray, byte[], byte[]> getStore() {
+        return new ProjectingStore(innerStore, new AvroProjector(serializerDef));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Serializer<Object> getSerializer(SerializerDefinition def) {
+        return (Serializer<Object>) new DefaultSerializerFactory().getSerializer(def);
+    }
+
+    private GenericRecord createMember(long id, String name, String country) {
+        Schema schema = Schema.parse(SCHEMA);
+        GenericRecord address = new GenericData.Record(schema.getField("address").schema());
+        address.put("city", new Utf8("city-" + id));
+        GenericData.Array<Object> tags = new GenericData.Array<Object>(2,
+                                                                       schema.getField("tags")
+                                                                             .schema());
+        tags.add(new Utf8("a"));
+        tags.add(new Utf8("b"));
+        GenericRecord member = new GenericData.Record(schema);
+        member.put("id", id);
+        member.put("name", new Utf8(name));
+        member.put("country", country == null ? null : new Utf8(country));
+        member.put("bio", new Utf8("a rather long biography of " + name));
+        member.put("tags", tags);
+        member.put("address", address);
+        return member;
+    }
+
+    private void putMember(Store<ByteArray, byte[], byte[]> store, ByteArray key, GenericRecord member) {
+        store.put(key, new Versioned<byte[]>(serializer.toBytes(member), TestUtils.getClock(1)), null);
+    }
+
+    public void testProjectionRoundTrip() {
+        AvroProjection projection = new AvroProjection(Arrays.asList("id", "name"),
+                                                       Arrays.asList(new Predicate("id",
+                                                                                   Operator.GE,
+                                                                                   10),
+                                                                     new Predicate("country",
+                                                                                   Operator.NE,
+                                                                                   null),
+                                                                     new Predicate("address.city",
+                                                                                   Operator.EQ,
+                                                                                   "x"),
+                                                                     new Predicate("bio",
+                                                                                   Operator.LT,
+                                                                                   1.5)));
+        byte[] bytes = projection.toBytes();
+        assertTrue(AvroProjection.isProjection(bytes));
+        assertFalse(AvroProjection.isProjection("id".getBytes()));
+        assertFalse(AvroProjection.isProjection(null));
+
+        AvroProjection read = AvroProjection.fromBytes(bytes);
+        assertEquals(projection.getFields(), read.getFields());
+        assertEquals(projection.getPredicates().size(), read.getPredicates().size());
+        for(int i = 0; i < projection.getPredicates().size(); i++) {
+            Predicate expected = projection.getPredicates().get(i);
+            Predicate actual = read.getPredicates().get(i);
+            assertEquals(expected.getField(), actual.getField());
+            assertEquals(expected.getOperator(), actual.getOperator());
+            assertEquals(expected.getOperand(), actual.getOperand());
+        }
+    }
+
+    public void testGetProjectsFields() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("member".getBytes());
+        putMember(store, key, createMember(42, "alice", "us"));
+        int fullSize = store.get(key, null).get(0).getValue().length;
+
+        byte[] transforms = new AvroProjection(Arrays.asList("id", "country"), null).toBytes();
+        List<Versioned<byte[]>> values = store.get(key, transforms);
+        assertEquals(1, values.size());
+        assertTrue("Projected value should be smaller",
+                   values.get(0).getValue().length < fullSize);
+        assertEquals(TestUtils.getClock(1), values.get(0).getVersion());
+
+        GenericRecord projected = (GenericRecord) serializer.toObject(values.get(0).getValue());
+        assertEquals(42L, projected.get("id"));
+        assertEquals(new Utf8("us"), projected.get("country"));
+        assertEquals(new Utf8(), projected.get("name"));
+        assertEquals(new Utf8(), projected.get("bio"));
+        assertEquals(0, ((List<?>) projected.get("tags")).size());
+        assertEquals(new Utf8(), ((GenericRecord) projected.get("address")).get("city"));
+    }
+
+    public void testGetEvaluatesPredicates() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("member".getBytes());
+        putMember(store, key, createMember(42, "alice", null));
+
+        assertEquals(1, store.get(key, predicate("id", Operator.EQ, 42)).size());
+        assertEquals(1, store.get(key, predicate("id", Operator.LT, 42.5)).size());
+        assertEquals(0, store.get(key, predicate("id", Operator.GT, 42)).size());
+        assertEquals(1, store.get(key, predicate("name", Operator.GE, "alice")).size());
+        assertEquals(0, store.get(key, predicate("name", Operator.NE, "alice")).size());
+        assertEquals(1, store.get(key, predicate("country", Operator.EQ, null)).size());
+        assertEquals(0, store.get(key, predicate("country", Operator.EQ, "us")).size());
+        assertEquals(1, store.get(key, predicate("address.city", Operator.EQ, "city-42")).size());
+
+        try {
+            store.get(key, predicate("missing", Operator.EQ, 1));
+            fail("Predicates on unknown fields should fail");
+        } catch(VoldemortException e) {
+            // expected
+        }
+    }
+
+    public void testGetAllMixesTransforms() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        Map<ByteArray, GenericRecord> members = new HashMap<ByteArray, GenericRecord>();
+        for(int i = 0; i < 10; i++) {
+            ByteArray key = new ByteArray(("member" + i).getBytes());
+            members.put(key, createMember(i, "member" + i, "us"));
+            putMember(store, key, members.get(key));
+        }
+
+        byte[] projection = new AvroProjection(Arrays.asList("name"),
+                                               Arrays.asList(new Predicate("id", Operator.LT, 5))).toBytes();
+        ByteArray plainKey = new ByteArray("member9".getBytes());
+        Map<ByteArray, byte[]> transforms = new HashMap<ByteArray, byte[]>();
+        for(ByteArray key: members.keySet()) {
+            if(!key.equals(plainKey))
+                transforms.put(key, projection);
+        }
+
+        Map<ByteArray, List<Versioned<byte[]>>> result = store.getAll(members.keySet(), transforms);
+        assertEquals(members.size(), result.size());
+        for(Map.Entry<ByteArray, List<Versioned<byte[]>>> entry: result.entrySet()) {
+            GenericRecord member = members.get(entry.getKey());
+            long id = (Long) member.get("id");
+            if(entry.getKey().equals(plainKey)) {
+                assertEquals(member, serializer.toObject(entry.getValue().get(0).getValue()));
+            } else if(id >= 5) {
+                assertEquals(0, entry.getValue().size());
+            } else {
+                GenericRecord projected = (GenericRecord) serializer.toObject(entry.getValue()
+                                                                                   .get(0)
+                                                                                   .getValue());
+                assertEquals(member.get("name"), projected.get("name"));
+                assertEquals(0L, projected.get("id"));
+            }
+        }
+    }
+
+    public void testPutRejectsProjection() {
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("member".getBytes());
+        try {
+            store.put(key,
+                      new Versioned<byte[]>(serializer.toBytes(createMember(1, "bob", null))),
+                      new AvroProjection(Arrays.asList("id"), null).toBytes());
+            fail("Puts with projections should fail");
+        } catch(VoldemortException e) {
+            // expected
+        }
+    }
+
+    public void testVersionedCompressedValues() throws Exception {
+        Map<Integer, String> schemas = new HashMap<Integer, String>();
+        schemas.put(0, SCHEMA);
+        serializerDef = new SerializerDefinition("avro-generic-versioned",
+                                                 schemas,
+                                                 true,
+                                                 new Compression("gzip", null));
+        serializer = getSerializer(serializerDef);
+        CompressionStrategy compression = new CompressionStrategyFactory().get(serializerDef.getCompression());
+
+        Store<ByteArray, byte[], byte[]> store = getStore();
+        ByteArray key = new ByteArray("member".getBytes());
+        GenericRecord member = createMember(7, "carol", "fr");
+        store.put(key,
+                  new Versioned<byte[]>(compression.deflate(serializer.toBytes(member)),
+                                        TestUtils.getClock(1)),
+                  null);
+
+        List<Versioned<byte[]>> values = store.get(key,
+                                                   new AvroProjection(Arrays.asList("name"), null).toBytes());
+        assertEquals(1, values.size());
+        GenericRecord projected = (GenericRecord) serializer.toObject(compression.inflate(values.get(0)
+                                                                                                .getValue()));
+        assertEquals(member.get("name"), projected.get("name"));
+        assertEquals(new Utf8(), projected.get("bio"));
+    }
+
+    public void testUnsupportedSerializer() {
+        try {
+            new AvroProjector(new SerializerDefinition("string"));
+            fail("Only avro-generic values can be projected");
+        } catch(VoldemortException e) {
+            // expected
+        }
+    }
+
+    private byte[] predicate(String field, Operator operator, Object operand) {
+        return new AvroProjection(null, Arrays.asList(new Predicate(field, operator, operand))).toBytes();
+    }
+}
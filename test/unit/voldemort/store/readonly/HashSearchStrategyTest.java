@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import voldemort.TestUtils;
+import voldemort.cluster.Node;
+import voldemort.serialization.SerializerDefinition;
+import voldemort.store.Store;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Utils;
+import voldemort.versioning.Versioned;
+
+public class HashSearchStrategyTest {
+
+    private SearchStrategy strategy;
+    private File dir;
+
+    @Before
+    public void setUp() {
+        strategy = new HashSearchStrategy();
+        dir = TestUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        Utils.rm(dir);
+    }
+
+    private ByteBuffer makeIndex(byte[][] keys, int[] positions) throws IOException {
+        HashIndexBuilder builder = new HashIndexBuilder();
+        for(int i = 0; i < keys.length; i++)
+            builder.add(keys[i], positions[i]);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        builder.write(new DataOutputStream(stream));
+        return ByteBuffer.wrap(stream.toByteArray());
+    }
+
+    @Test
+    public void testEmptyIndex() throws IOException {
+        ByteBuffer index = makeIndex(new byte[0][], new int[0]);
+        assertEquals(0, index.capacity());
+        assertEquals(-1, strategy.indexOf(index, new byte[8], 0));
+    }
+
+    @Test
+    public void testRandomValues() throws IOException {
+        Random random = new Random(48534543);
+        for(int size: new int[] { 1, 2, 10, 1000, 50000 }) {
+            byte[][] keys = new byte[size][8];
+            int[] positions = new int[size];
+            for(int i = 0; i < size; i++) {
+                random.nextBytes(keys[i]);
+                positions[i] = random.nextInt(Integer.MAX_VALUE);
+            }
+            ByteBuffer index = makeIndex(keys, positions);
+            int numSlots = (int) Math.ceil(size / HashIndexBuilder.LOAD_FACTOR);
+            assertEquals(HashSearchStrategy.HEADER_SIZE + numSlots * HashSearchStrategy.SLOT_SIZE,
+                         index.capacity());
+
+            for(int i = 0; i < size; i++)
+                assertEquals(positions[i], strategy.indexOf(index, keys[i], index.capacity()));
+            for(int i = 0; i < 100; i++) {
+                byte[] key = new byte[8];
+                random.nextBytes(key);
+                assertEquals(-1, strategy.indexOf(index, key, index.capacity()));
+            }
+        }
+    }
+
+    @Test
+    public void testReadOnlyStoreVersion4() throws Exception {
+        SerializerDefinition serDef = new SerializerDefinition("json", "'string'");
+        ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(new BinarySearchStrategy(),
+                                                                                              dir,
+                                                                                              100,
+                                                                                              2,
+                                                                                              1,
+                                                                                              serDef,
+                                                                                              serDef,
+                                                                                              ReadOnlyStorageFormat.READONLY_V4);
+        for(Map.Entry<String, String> entry: testData.getData().entrySet()) {
+            for(Node node: testData.routeRequest(entry.getKey())) {
+                Store<String, String, String> store = testData.getNodeStores().get(node.getId());
+                List<Versioned<String>> found = store.get(entry.getKey(), null);
+                assertEquals(1, found.size());
+                assertEquals(entry.getValue(), found.get(0).getValue());
+            }
+        }
+        for(Store<String, String, String> store: testData.getNodeStores().values())
+            assertEquals(0, store.get("not-a-key", null).size());
+
+        int numKeys = 0;
+        for(ReadOnlyStorageEngine engine: testData.getReadOnlyStores().values()) {
+            ClosableIterator<ByteArray> keys = engine.keys();
+            while(keys.hasNext()) {
+                keys.next();
+                numKeys++;
+            }
+            keys.close();
+        }
+        assertEquals(testData.getData().size(), numKeys);
+    }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
@@ -356,6 +357,54 @@ public class ReadOnlyStorageEngineTest {
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testSwapWithWarmUp() throws Exception {
+        ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(strategy,
+                                                                                              dir,
+                                                                                              TEST_SIZE,
+                                                                                              1,
+                                                                                              1,
+                                                                                              serDef,
+                                                                                              serDef,
+                                                                                              storageType);
+        ReadOnlyStorageEngine coldEngine = testData.getReadOnlyStores().get(0);
+        File storeDir = new File(coldEngine.getStoreDirPath());
+        coldEngine.close();
+
+        ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test",
+                                                                 strategy,
+                                                                 testData.getRoutingStrategy(),
+                                                                 0,
+                                                                 storeDir,
+                                                                 1,
+                                                                 0,
+                                                                 false,
+                                                                 true,
+                                                                 TEST_SIZE / 2);
+        Serializer<String> serializer = (Serializer<String>) new DefaultSerializerFactory().getSerializer(serDef);
+        for(Map.Entry<String, String> entry: testData.getData().entrySet()) {
+            List<Versioned<byte[]>> found = engine.get(new ByteArray(serializer.toBytes(entry.getKey())),
+                                                       null);
+            assertEquals(1, found.size());
+        }
+
+        // swap in a copy of the current version, warming it up first
+        File newVersionDir = new File(storeDir, "version-1");
+        FileUtils.copyDirectory(new File(storeDir, "version-0"), newVersionDir);
+        engine.swapFiles(newVersionDir.getAbsolutePath());
+        assertEquals(1, engine.getCurrentVersionId());
+
+        for(Map.Entry<String, String> entry: testData.getData().entrySet()) {
+            List<Versioned<byte[]>> found = engine.get(new ByteArray(serializer.toBytes(entry.getKey())),
+                                                       null);
+            assertEquals(1, found.size());
+            assertEquals(entry.getValue(), serializer.toObject(found.get(0).getValue()));
+        }
+        engine.close();
+        testData.delete();
+    }
+
     @Test
     public void testSwapRollbackFail() throws IOException {
         ReadOnlyStorageEngine engine = new ReadOnlyStorageEngine("test",
@@ -18,6 +18,7 @@ import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategy;
 import voldemort.routing.RoutingStrategyFactory;
 import voldemort.routing.RoutingStrategyType;
+import voldemort.serialization.Compression;
 import voldemort.serialization.DefaultSerializerFactory;
 import voldemort.serialization.Serializer;
 import voldemort.serialization.SerializerDefinition;
@@ -134,7 +135,8 @@ public class ReadOnlyStorageEngineTestInstance {
                                                              1,
                                                              2,
                                                              10000,
-                                                             false);
+                                                             false,
+                                                             new Compression("snappy", null));
         storeBuilder.build(type);
 
         File nodeDir = TestUtils.createTempDir(baseDir);
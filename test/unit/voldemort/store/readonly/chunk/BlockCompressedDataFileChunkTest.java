@@ -0,0 +1,178 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.readonly.chunk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import voldemort.TestUtils;
+import voldemort.VoldemortException;
+import voldemort.cluster.Node;
+import voldemort.serialization.Compression;
+import voldemort.serialization.SerializerDefinition;
+import voldemort.store.Store;
+import voldemort.store.compress.CompressionStrategy;
+import voldemort.store.compress.CompressionStrategyFactory;
+import voldemort.store.readonly.BinarySearchStrategy;
+import voldemort.store.readonly.ReadOnlyStorageEngine;
+import voldemort.store.readonly.ReadOnlyStorageEngineTestInstance;
+import voldemort.store.readonly.ReadOnlyStorageFormat;
+import voldemort.utils.ByteArray;
+import voldemort.utils.ClosableIterator;
+import voldemort.utils.Utils;
+import voldemort.versioning.Versioned;
+
+public class BlockCompressedDataFileChunkTest {
+
+    private CompressionStrategy strategy;
+    private File dir;
+
+    @Before
+    public void setUp() {
+        strategy = new CompressionStrategyFactory().get(new Compression("snappy", null));
+        dir = TestUtils.createTempDir();
+    }
+
+    @After
+    public void tearDown() {
+        Utils.rm(dir);
+    }
+
+    private DataFileChunk inMemoryChunk(final byte[] bytes) {
+        return new DataFileChunk() {
+
+            public int read(ByteBuffer buffer, long currentOffset) throws IOException {
+                if(currentOffset >= bytes.length)
+                    return -1;
+                int length = Math.min(buffer.remaining(), bytes.length - (int) currentOffset);
+                buffer.put(bytes, (int) currentOffset, length);
+                return length;
+            }
+        };
+    }
+
+    private byte[] compress(byte[] data, int blockSize) throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        BlockCompressedOutputStream out = new BlockCompressedOutputStream(stream,
+                                                                          strategy,
+                                                                          blockSize);
+        // write in uneven pieces so that writes straddle block boundaries
+        int offset = 0;
+        while(offset < data.length) {
+            int length = Math.min(data.length - offset, 1 + offset % 777);
+            out.write(data, offset, length);
+            offset += length;
+        }
+        out.close();
+        return stream.toByteArray();
+    }
+
+    @Test
+    public void testRandomReads() throws IOException {
+        Random random = new Random(1234);
+        byte[] data = new byte[50000];
+        // runs of random bytes, so that the blocks compress
+        for(int i = 0; i < data.length; i++)
+            data[i] = (i % 20 == 0) ? (byte) random.nextInt() : data[i - 1];
+
+        byte[] compressed = compress(data, 1000);
+        assertTrue("Data should have been compressed", compressed.length < data.length);
+
+        BlockCompressedDataFileChunk chunk = new BlockCompressedDataFileChunk(inMemoryChunk(compressed),
+                                                                              compressed.length,
+                                                                              strategy);
+        assertEquals(data.length, chunk.getUncompressedLength());
+        for(int i = 0; i < 500; i++) {
+            int offset = random.nextInt(data.length);
+            ByteBuffer buffer = ByteBuffer.allocate(random.nextInt(3000));
+            int read = chunk.read(buffer, offset);
+            assertEquals(Math.min(buffer.capacity(), data.length - offset), read);
+            for(int j = 0; j < read; j++)
+                assertEquals(data[offset + j], buffer.get(j));
+        }
+        assertEquals(-1, chunk.read(ByteBuffer.allocate(10), data.length));
+    }
+
+    @Test
+    public void testEmptyChunk() throws IOException {
+        byte[] compressed = compress(new byte[0], 1000);
+        assertEquals(0, compressed.length);
+
+        BlockCompressedDataFileChunk chunk = new BlockCompressedDataFileChunk(inMemoryChunk(compressed),
+                                                                              0,
+                                                                              strategy);
+        assertEquals(0, chunk.getUncompressedLength());
+        assertEquals(-1, chunk.read(ByteBuffer.allocate(10), 0));
+    }
+
+    @Test
+    public void testCorruptFooter() throws IOException {
+        byte[] compressed = compress(new byte[5000], 1000);
+        compressed[compressed.length - 1]++;
+        try {
+            new BlockCompressedDataFileChunk(inMemoryChunk(compressed), compressed.length, strategy);
+            fail("Should have detected the corrupt footer");
+        } catch(VoldemortException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReadOnlyStoreVersion3() throws Exception {
+        SerializerDefinition serDef = new SerializerDefinition("json", "'string'");
+        ReadOnlyStorageEngineTestInstance testData = ReadOnlyStorageEngineTestInstance.create(new BinarySearchStrategy(),
+                                                                                              dir,
+                                                                                              100,
+                                                                                              2,
+                                                                                              1,
+                                                                                              serDef,
+                                                                                              serDef,
+                                                                                              ReadOnlyStorageFormat.READONLY_V3);
+        for(Map.Entry<String, String> entry: testData.getData().entrySet()) {
+            for(Node node: testData.routeRequest(entry.getKey())) {
+                Store<String, String, String> store = testData.getNodeStores().get(node.getId());
+                List<Versioned<String>> found = store.get(entry.getKey(), null);
+                assertEquals(1, found.size());
+                assertEquals(entry.getValue(), found.get(0).getValue());
+            }
+        }
+
+        int numKeys = 0;
+        for(ReadOnlyStorageEngine engine: testData.getReadOnlyStores().values()) {
+            ClosableIterator<ByteArray> keys = engine.keys();
+            while(keys.hasNext()) {
+                keys.next();
+                numKeys++;
+            }
+            keys.close();
+        }
+        assertEquals(testData.getData().size(), numKeys);
+    }
+}
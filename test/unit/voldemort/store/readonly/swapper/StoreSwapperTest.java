@@ -23,8 +23,10 @@ import static org.junit.Assert.fail;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -41,6 +43,8 @@ import voldemort.VoldemortException;
 import voldemort.client.RoutingTier;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.cluster.Cluster;
+import voldemort.routing.RoutingStrategy;
+import voldemort.routing.RoutingStrategyFactory;
 import voldemort.routing.RoutingStrategyType;
 import voldemort.serialization.SerializerDefinition;
 import voldemort.server.VoldemortServer;
@@ -56,6 +60,7 @@ import voldemort.utils.VoldemortIOUtils;
 import voldemort.xml.StoreDefinitionsMapper;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Maps;
 
 /**
@@ -161,6 +166,73 @@ public class StoreSwapperTest {
         }
     }
 
+    @Test
+    public void testAdminStoreSwapperStaggered() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+
+        try {
+            StoreDefinition storeDef = adminClient.metadataMgmtOps.getRemoteStoreDefList(0)
+                                                                  .getValue()
+                                                                  .get(0);
+            StoreSwapper swapper = new AdminStoreSwapper(cluster,
+                                                         executor,
+                                                         adminClient,
+                                                         1000000,
+                                                         true,
+                                                         true,
+                                                         new StaggeredSwapCoordinator(cluster,
+                                                                                      storeDef,
+                                                                                      10));
+            testFetchSwap(swapper);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testComputeSwapWaves() {
+        Cluster cluster = ServerTestUtils.getLocalCluster(6);
+
+        // without replication, every node can swap at once
+        StoreDefinition storeDef = ServerTestUtils.getStoreDef(STORE_NAME,
+                                                               1,
+                                                               1,
+                                                               1,
+                                                               1,
+                                                               1,
+                                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+        List<List<Integer>> swapWaves = StaggeredSwapCoordinator.computeSwapWaves(cluster,
+                                                                                  storeDef);
+        assertEquals(1, swapWaves.size());
+        assertEquals(cluster.getNodeIds(), Sets.newHashSet(swapWaves.get(0)));
+
+        // with replication, no two replicas of a partition swap together
+        storeDef = ServerTestUtils.getStoreDef(STORE_NAME,
+                                               2,
+                                               1,
+                                               1,
+                                               1,
+                                               1,
+                                               RoutingStrategyType.CONSISTENT_STRATEGY);
+        swapWaves = StaggeredSwapCoordinator.computeSwapWaves(cluster, storeDef);
+        assertTrue(swapWaves.size() > 1);
+        RoutingStrategy routingStrategy = new RoutingStrategyFactory().updateRoutingStrategy(storeDef,
+                                                                                             cluster);
+        Set<Integer> swappedNodeIds = Sets.newHashSet();
+        for(List<Integer> wave: swapWaves) {
+            swappedNodeIds.addAll(wave);
+            for(int partitionId = 0; partitionId < cluster.getNumberOfPartitions(); partitionId++) {
+                int numReplicasInWave = 0;
+                for(int replicaPartitionId: routingStrategy.getReplicatingPartitionList(partitionId)) {
+                    if(wave.contains(cluster.getNodeForPartitionId(replicaPartitionId).getId()))
+                        numReplicasInWave++;
+                }
+                assertTrue(numReplicasInWave <= 1);
+            }
+        }
+        assertEquals(cluster.getNodeIds(), swappedNodeIds);
+    }
+
     @Test
     public void testHttpStoreSwapper() throws Exception {
         ExecutorService executor = Executors.newCachedThreadPool();
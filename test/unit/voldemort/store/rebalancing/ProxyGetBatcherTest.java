@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.rebalancing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import voldemort.VoldemortException;
+import voldemort.utils.ByteArray;
+
+public class ProxyGetBatcherTest {
+
+    private static final int NUM_GETS = 10;
+
+    private ExecutorService executor;
+    private ProxyGetBatcher batcher;
+    private BlockingFetcher fetcher;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(NUM_GETS + 1);
+        batcher = new ProxyGetBatcher(NUM_GETS);
+        fetcher = new BlockingFetcher();
+    }
+
+    @After
+    public void tearDown() {
+        fetcher.release();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testGetsWaitingForABatchShareTheNext() throws Exception {
+        // the first get is sent alone, and blocks
+        Future<Integer> first = submitFetch("first");
+        assertTrue(fetcher.awaitFetches(1));
+
+        List<Future<Integer>> waiting = new ArrayList<Future<Integer>>();
+        for(int i = 0; i < NUM_GETS; i++)
+            waiting.add(submitFetch("key" + (i % (NUM_GETS / 2))));
+        // give the gets time to queue behind the first batch
+        Thread.sleep(200);
+        fetcher.release();
+
+        assertEquals(1, first.get().intValue());
+        for(Future<Integer> result: waiting)
+            assertEquals(NUM_GETS, result.get().intValue());
+
+        assertEquals(2, fetcher.batches.size());
+        assertEquals("Gets of the same key should share a lookup",
+                     NUM_GETS / 2,
+                     fetcher.batches.get(1).size());
+    }
+
+    @Test
+    public void testBatchFailureReachesEveryGet() throws Exception {
+        fetcher.failure = new ProxyUnreachableException("proxy node down");
+        fetcher.release();
+        try {
+            batcher.fetch(1, new ByteArray("key".getBytes()), null, fetcher);
+            fail("The failure of the batch should be thrown");
+        } catch(ProxyUnreachableException e) {
+            // expected
+        }
+    }
+
+    private Future<Integer> submitFetch(final String key) {
+        return executor.submit(new Callable<Integer>() {
+
+            public Integer call() {
+                return batcher.fetch(1, new ByteArray(key.getBytes()), null, fetcher);
+            }
+        });
+    }
+
+    private static class BlockingFetcher implements ProxyGetBatcher.BatchFetcher {
+
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<Map<ByteArray, byte[]>> batches = new ArrayList<Map<ByteArray, byte[]>>();
+        private volatile VoldemortException failure;
+
+        @Override
+        public void fetch(int proxyNodeId, Map<ByteArray, byte[]> keysToTransforms) {
+            synchronized(this) {
+                batches.add(keysToTransforms);
+                notifyAll();
+            }
+            try {
+                released.await();
+            } catch(InterruptedException e) {
+                throw new VoldemortException(e);
+            }
+            if(failure != null)
+                throw failure;
+        }
+
+        private synchronized boolean awaitFetches(int numFetches) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while(batches.size() < numFetches && System.currentTimeMillis() < deadline)
+                wait(100);
+            return batches.size() >= numFetches;
+        }
+
+        private void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import voldemort.MockTime;
+import voldemort.store.stats.Histogram;
+
+public class ReadHedgingPolicyTest {
+
+    private final MockTime time = new MockTime(System.currentTimeMillis());
+
+    @Test
+    public void testNoHedgingWithoutEnoughSamples() {
+        Histogram histogram = new Histogram(100, 1);
+        ReadHedgingPolicy policy = new ReadHedgingPolicy(histogram, 0.95, 0.1, time);
+        for(int i = 0; i < 10; i++)
+            policy.recordLatency(5);
+        assertEquals(-1, policy.getHedgeDelayMs());
+    }
+
+    @Test
+    public void testHedgeDelayFollowsPercentile() {
+        Histogram histogram = new Histogram(100, 1);
+        ReadHedgingPolicy policy = new ReadHedgingPolicy(histogram, 0.95, 0.1, time);
+        for(int i = 0; i < 100; i++)
+            policy.recordLatency(i < 95 ? 2 : 50);
+        assertEquals(2, policy.getHedgeDelayMs());
+
+        for(int i = 0; i < 1000; i++)
+            policy.recordLatency(20);
+        // cached until the next refresh
+        assertEquals(2, policy.getHedgeDelayMs());
+        time.addMilliseconds(1000);
+        assertEquals(20, policy.getHedgeDelayMs());
+    }
+
+    @Test
+    public void testBudgetBoundsHedgeRatio() {
+        ReadHedgingPolicy policy = new ReadHedgingPolicy(new Histogram(100, 1), 0.95, 0.1, time);
+        int hedges = 0;
+        for(int i = 0; i < 1000; i++) {
+            policy.recordRequest();
+            if(policy.tryAcquireHedge())
+                hedges++;
+        }
+        assertTrue("Too many hedges " + hedges, hedges <= 100);
+        assertTrue("Too few hedges " + hedges, hedges >= 99);
+    }
+
+    @Test
+    public void testBudgetBurstIsCapped() {
+        ReadHedgingPolicy policy = new ReadHedgingPolicy(new Histogram(100, 1), 0.95, 0.5, time);
+        for(int i = 0; i < 1000; i++)
+            policy.recordRequest();
+        int hedges = 0;
+        while(policy.tryAcquireHedge())
+            hedges++;
+        assertEquals(10, hedges);
+        assertFalse(policy.tryAcquireHedge());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import voldemort.MockTime;
+import voldemort.cluster.Node;
+
+public class ReplicaLatencyTrackerTest {
+
+    private MockTime time;
+    private ReplicaLatencyTracker tracker;
+
+    @Before
+    public void setUp() {
+        time = new MockTime();
+        tracker = new ReplicaLatencyTracker(0.5, 1000, 0.5, time);
+    }
+
+    private Node node(int id, int zoneId) {
+        return new Node(id, "localhost", 8080 + id, 6666 + id, 7000 + id, zoneId, new ArrayList<Integer>());
+    }
+
+    private void sample(int nodeId, long requestTimeMs) {
+        tracker.recordRequestStart(nodeId);
+        tracker.recordRequestComplete(nodeId, requestTimeMs);
+    }
+
+    private List<Integer> ids(List<Node> nodes) {
+        List<Integer> ids = new ArrayList<Integer>();
+        for(Node node: nodes)
+            ids.add(node.getId());
+        return ids;
+    }
+
+    @Test
+    public void testSlowReplicaMovesBack() {
+        List<Node> nodes = Arrays.asList(node(0, 0), node(1, 0), node(2, 0));
+        sample(0, 200);
+        sample(1, 5);
+        sample(2, 10);
+        assertEquals(Arrays.asList(1, 2, 0), ids(tracker.orderByLatency(nodes)));
+    }
+
+    @Test
+    public void testSimilarReplicasKeepStaticOrder() {
+        List<Node> nodes = Arrays.asList(node(0, 0), node(1, 0), node(2, 0));
+        sample(0, 12);
+        sample(1, 10);
+        sample(2, 11);
+        assertEquals(Arrays.asList(0, 1, 2), ids(tracker.orderByLatency(nodes)));
+    }
+
+    @Test
+    public void testOutstandingRequestsCount() {
+        List<Node> nodes = Arrays.asList(node(0, 0), node(1, 0));
+        sample(0, 10);
+        sample(1, 10);
+        for(int i = 0; i < 5; i++)
+            tracker.recordRequestStart(0);
+        assertEquals(5, tracker.getOutstandingRequests(0));
+        assertEquals(Arrays.asList(1, 0), ids(tracker.orderByLatency(nodes)));
+    }
+
+    @Test
+    public void testZonePositionsArePreserved() {
+        List<Node> nodes = Arrays.asList(node(0, 0), node(3, 1), node(1, 0), node(4, 1));
+        sample(0, 100);
+        sample(1, 1);
+        sample(3, 100);
+        sample(4, 1);
+        List<Node> ordered = tracker.orderByLatency(nodes);
+        assertEquals(Arrays.asList(1, 4, 0, 3), ids(ordered));
+        for(int i = 0; i < nodes.size(); i++)
+            assertEquals(nodes.get(i).getZoneId(), ordered.get(i).getZoneId());
+    }
+
+    @Test
+    public void testSlowReplicaIsProbedAgainAfterDecay() {
+        sample(0, 100);
+        double score = tracker.getScore(0);
+        time.addMilliseconds(1000);
+        assertEquals(score / 2, tracker.getScore(0), 0.001);
+        time.addMilliseconds(10000);
+        assertTrue(tracker.getScore(0) < 1);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013 LinkedIn, Inc
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package voldemort.store.routed.action;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import voldemort.cluster.Node;
+import voldemort.routing.RouteToAllStrategy;
+import voldemort.store.SleepyStore;
+import voldemort.store.Store;
+import voldemort.store.memory.InMemoryStorageEngine;
+import voldemort.store.nonblockingstore.NonblockingStore;
+import voldemort.store.nonblockingstore.ThreadPoolBasedNonblockingStoreImpl;
+import voldemort.store.routed.BasicPipelineData;
+import voldemort.store.routed.Pipeline;
+import voldemort.store.routed.Pipeline.Event;
+import voldemort.store.routed.Pipeline.Operation;
+import voldemort.store.routed.PipelineRoutedStats;
+import voldemort.store.routed.ReadHedgingPolicy;
+import voldemort.store.stats.Histogram;
+import voldemort.utils.ByteArray;
+import voldemort.versioning.Versioned;
+
+import com.google.common.collect.Maps;
+
+public class PerformParallelRequestsHedgingTest extends AbstractActionTest {
+
+    private static final long SLOW_NODE_MS = 3000;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSlowReplicaIsHedged() throws Exception {
+        Map<Integer, NonblockingStore> nonblockingStores = Maps.newHashMap();
+        for(Node node: cluster.getNodes()) {
+            Store<ByteArray, byte[], byte[]> store = new InMemoryStorageEngine<ByteArray, byte[], byte[]>("test");
+            store.put(aKey, new Versioned<byte[]>(new byte[] { (byte) node.getId() }), null);
+            if(node.getId() == 0)
+                store = new SleepyStore<ByteArray, byte[], byte[]>(SLOW_NODE_MS, store);
+            nonblockingStores.put(node.getId(),
+                                  new ThreadPoolBasedNonblockingStoreImpl(executor, store));
+        }
+
+        Histogram histogram = new Histogram(100, 1);
+        for(int i = 0; i < 1000; i++)
+            histogram.insert(1);
+        ReadHedgingPolicy hedgingPolicy = new ReadHedgingPolicy(histogram, 0.95, 1.0);
+        PipelineRoutedStats stats = new PipelineRoutedStats() {};
+
+        BasicPipelineData<List<Versioned<byte[]>>> pipelineData = new BasicPipelineData<List<Versioned<byte[]>>>();
+        pipelineData.setStats(stats);
+        Pipeline pipeline = new Pipeline(Operation.GET, 10000, TimeUnit.MILLISECONDS);
+        pipeline.addEventAction(Event.STARTED,
+                                new ConfigureNodesDefault<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
+                                                                                                                              Event.CONFIGURED,
+                                                                                                                              failureDetector,
+                                                                                                                              1,
+                                                                                                                              new RouteToAllStrategy(cluster.getNodes()),
+                                                                                                                              aKey));
+        pipeline.addEventAction(Event.CONFIGURED,
+                                new PerformParallelRequests<List<Versioned<byte[]>>, BasicPipelineData<List<Versioned<byte[]>>>>(pipelineData,
+                                                                                                                                 Event.COMPLETED,
+                                                                                                                                 aKey,
+                                                                                                                                 null,
+                                                                                                                                 failureDetector,
+                                                                                                                                 1,
+                                                                                                                                 1,
+                                                                                                                                 SLOW_NODE_MS * 2,
+                                                                                                                                 nonblockingStores,
+                                                                                                                                 null,
+                                                                                                                                 null,
+                                                                                                                                 hedgingPolicy));
+        // spend the budget accumulated by earlier reads
+        hedgingPolicy.recordRequest();
+
+        long start = System.currentTimeMillis();
+        pipeline.addEvent(Event.STARTED);
+        pipeline.execute();
+        long elapsed = System.currentTimeMillis() - start;
+
+        if(pipelineData.getFatalError() != null)
+            throw pipelineData.getFatalError();
+        assertTrue("Hedged read should not wait for the slow replica, took " + elapsed,
+                   elapsed < SLOW_NODE_MS);
+        assertEquals(1, pipelineData.getResponses().size());
+        assertEquals(1, pipelineData.getResponses().get(0).getNode().getId());
+        assertEquals(1, stats.getNumHedgedRequests());
+    }
+}
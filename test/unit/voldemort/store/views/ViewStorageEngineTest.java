@@ -1,6 +1,7 @@
 package voldemort.store.views;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -99,6 +100,33 @@ public class ViewStorageEngineTest extends TestCase {
         assertEquals("b42", found.get("b").get(0).getValue());
     }
 
+    public void testGetAllWithMixedTransforms() {
+        Integer[] values3 = { 10, 20, 30, 40, 50 };
+        target2.put(3, Versioned.value(Arrays.asList(values3)), null);
+        Integer[] filter1 = { 1, 5 };
+        Integer[] filter2 = { 100, 300 };
+        Map<Integer, List<Integer>> transforms = new HashMap<Integer, List<Integer>>();
+        transforms.put(1, Arrays.asList(filter1));
+        transforms.put(100, Arrays.asList(filter2));
+        transforms.put(3, Arrays.asList(filter1));
+
+        Map<Integer, List<Versioned<List<Integer>>>> found = view.getAll(ImmutableList.of(1,
+                                                                                          100,
+                                                                                          3,
+                                                                                          42),
+                                                                         transforms);
+        assertEquals("Missing keys should not be returned", 3, found.size());
+        assertEquals(5, found.get(1).get(0).getValue().size());
+        assertEquals(3, found.get(100).get(0).getValue().size());
+        assertEquals(0, found.get(3).get(0).getValue().size());
+
+        // must match fetching the keys one at a time
+        for(Integer key: found.keySet())
+            assertEquals(view.get(key, transforms.get(key)).get(0).getValue(), found.get(key)
+                                                                                   .get(0)
+                                                                                   .getValue());
+    }
+
     public void testPut() {
         valView.put("abc", Versioned.value("cde"), null);
         assertEquals("c", target1.get("abc", null).get(0).getValue());
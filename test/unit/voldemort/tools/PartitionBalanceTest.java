@@ -16,12 +16,19 @@
 
 package voldemort.tools;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Test;
 
 import voldemort.ClusterTestUtils;
 import voldemort.VoldemortException;
+import voldemort.cluster.Cluster;
+import voldemort.store.StoreDefinition;
 
 /**
  * This test focuses on constructing PartitionBalances. This exercises all of
@@ -140,4 +147,56 @@ public class PartitionBalanceTest {
         assertTrue(veCaught);
     }
 
+    /**
+     * Confirm that scoring and applying swaps incrementally yields the same
+     * utility as constructing a PartitionBalance from scratch.
+     */
+    @Test
+    public void testIncrementalPartitionBalance() {
+        verifyIncrementalPartitionBalance(ClusterTestUtils.getZZCluster(),
+                                          ClusterTestUtils.getZZStoreDefsInMemory());
+        verifyIncrementalPartitionBalance(ClusterTestUtils.getZZZCluster(),
+                                          ClusterTestUtils.getZZZStoreDefsInMemory());
+        verifyIncrementalPartitionBalance(ClusterTestUtils.getZZClusterWithNN(),
+                                          ClusterTestUtils.getZZStoreDefsInMemory());
+    }
+
+    private void verifyIncrementalPartitionBalance(Cluster cluster,
+                                                   List<StoreDefinition> storeDefs) {
+        IncrementalPartitionBalance balance = new IncrementalPartitionBalance(cluster, storeDefs);
+        assertEquals(new PartitionBalance(cluster, storeDefs).getUtility(),
+                     balance.getUtility(),
+                     0.0);
+
+        Random random = new Random(1);
+        List<Integer> nodeIds = new ArrayList<Integer>(cluster.getNodeIds());
+        for(int i = 0; i < 50; i++) {
+            int nodeIdA = nodeIds.get(random.nextInt(nodeIds.size()));
+            int nodeIdB = nodeIds.get(random.nextInt(nodeIds.size()));
+            List<Integer> partitionIdsA = balance.getCluster().getNodeById(nodeIdA).getPartitionIds();
+            List<Integer> partitionIdsB = balance.getCluster().getNodeById(nodeIdB).getPartitionIds();
+            if(nodeIdA == nodeIdB || partitionIdsA.isEmpty() || partitionIdsB.isEmpty()) {
+                continue;
+            }
+            int partitionIdA = partitionIdsA.get(random.nextInt(partitionIdsA.size()));
+            int partitionIdB = partitionIdsB.get(random.nextInt(partitionIdsB.size()));
+
+            Cluster swapped = Repartitioner.swapPartitions(balance.getCluster(),
+                                                           nodeIdA,
+                                                           partitionIdA,
+                                                           nodeIdB,
+                                                           partitionIdB);
+            double expected = new PartitionBalance(swapped, storeDefs).getUtility();
+            assertEquals(expected,
+                         balance.scoreSwap(nodeIdA, partitionIdA, nodeIdB, partitionIdB),
+                         0.0);
+            if(random.nextBoolean()) {
+                assertEquals(expected,
+                             balance.applySwap(nodeIdA, partitionIdA, nodeIdB, partitionIdB),
+                             0.0);
+                assertEquals(swapped, balance.getCluster());
+            }
+        }
+    }
+
 }
@@ -16,6 +16,7 @@
 
 package voldemort.tools;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -604,4 +605,75 @@ public class RepartitionerTest {
         decontigRepartition(currentCluster, storeDefs);
     }
 
+    /**
+     * Verify that repartitioning with a fixed seed yields the same cluster,
+     * regardless of the number of threads used for the search.
+     */
+    @Test
+    public void testRepartitionIsDeterministicForSeed() {
+        Cluster currentCluster = ClusterTestUtils.getZZZCluster();
+        List<StoreDefinition> storeDefs = ClusterTestUtils.getZZZStoreDefsInMemory();
+
+        Cluster singleThreaded = repartitionWithSeed(currentCluster, storeDefs, 42, 1);
+        Cluster multiThreaded = repartitionWithSeed(currentCluster, storeDefs, 42, 4);
+        assertEquals(singleThreaded, multiThreaded);
+        assertEquals(singleThreaded, repartitionWithSeed(currentCluster, storeDefs, 42, 4));
+    }
+
+    /**
+     * Verify that the overloads without a source of randomness still balance
+     * and shuffle partitions.
+     */
+    @Test
+    public void testOverloadsWithoutRandom() {
+        Cluster currentCluster = ClusterTestUtils.getZZCluster();
+        List<StoreDefinition> storeDefs = ClusterTestUtils.getZZStoreDefsInMemory();
+        double currentUtility = new PartitionBalance(currentCluster, storeDefs).getUtility();
+
+        Cluster balancedCluster = Repartitioner.balancePrimaryPartitions(currentCluster, true);
+        assertEquals(currentCluster.getNumberOfPartitions(),
+                     balancedCluster.getNumberOfPartitions());
+
+        Cluster randomCluster = Repartitioner.randomShufflePartitions(currentCluster,
+                                                                      50,
+                                                                      10,
+                                                                      Collections.<Integer> emptyList(),
+                                                                      storeDefs);
+        assertTrue(new PartitionBalance(randomCluster, storeDefs).getUtility() <= currentUtility);
+
+        Cluster greedyCluster = Repartitioner.greedyShufflePartitions(currentCluster,
+                                                                      2,
+                                                                      5,
+                                                                      25,
+                                                                      Collections.<Integer> emptyList(),
+                                                                      storeDefs);
+        assertTrue(new PartitionBalance(greedyCluster, storeDefs).getUtility() <= currentUtility);
+    }
+
+    private Cluster repartitionWithSeed(Cluster currentCluster,
+                                        List<StoreDefinition> storeDefs,
+                                        long seed,
+                                        int numThreads) {
+        return Repartitioner.repartition(currentCluster,
+                                         storeDefs,
+                                         currentCluster,
+                                         storeDefs,
+                                         null,
+                                         3,
+                                         false,
+                                         false,
+                                         true,
+                                         50,
+                                         10,
+                                         Collections.<Integer> emptyList(),
+                                         true,
+                                         2,
+                                         5,
+                                         25,
+                                         Collections.<Integer> emptyList(),
+                                         0,
+                                         seed,
+                                         numThreads);
+    }
+
 }
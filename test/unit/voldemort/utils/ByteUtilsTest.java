@@ -198,6 +198,12 @@ public class ByteUtilsTest extends TestCase {
         }
     }
 
+    public void testMix64() {
+        assertEquals(0L, ByteUtils.mix64(0L));
+        assertEquals(0xb456bcfc34c2cb2cL, ByteUtils.mix64(1L));
+        assertTrue(ByteUtils.mix64(1L) != ByteUtils.mix64(2L));
+    }
+
     public void testFromHexString() {
         specificFromHexStringTest(new byte[] { 0 }, "00");
         specificFromHexStringTest(new byte[] { 1, 2, 3 }, "010203");
@@ -37,6 +37,8 @@ import voldemort.ServerTestUtils;
 import voldemort.client.ClientConfig;
 import voldemort.client.protocol.admin.AdminClient;
 import voldemort.client.protocol.admin.AdminClientConfig;
+import voldemort.client.protocol.admin.KeyRangeDigest;
+import voldemort.client.protocol.admin.filter.KeyRangeFilter;
 import voldemort.cluster.Cluster;
 import voldemort.cluster.Node;
 import voldemort.routing.RoutingStrategy;
@@ -390,6 +392,55 @@ public class ConsistencyCheckTest {
         assertNull(tracker.nextFinished());
     }
 
+    @Test
+    public void testRangeDigest() {
+        ByteArray k1 = new ByteArray(value1);
+        ByteArray k2 = new ByteArray(value2);
+
+        KeyRangeDigest d1 = new KeyRangeDigest(2);
+        KeyRangeDigest d2 = new KeyRangeDigest(2);
+
+        // same content fetched in a different order
+        d1.record(0, k1, 1);
+        d1.record(0, k1, 2);
+        d1.record(1, k2, 3);
+        d2.record(1, k2, 3);
+        d2.record(0, k1, 1);
+        d2.record(0, k1, 2);
+        assertTrue(d1.matches(d2, 0));
+        assertTrue(d1.matches(d2, 1));
+        assertEquals(1, d1.getKeyCount(0));
+        assertEquals(1, d2.getKeyCount(1));
+
+        // missing version in range 0 only
+        KeyRangeDigest d3 = new KeyRangeDigest(2);
+        d3.record(0, k1, 1);
+        d3.record(1, k2, 3);
+        assertFalse(d1.matches(d3, 0));
+        assertTrue(d1.matches(d3, 1));
+
+        // different version in range 1 only
+        KeyRangeDigest d4 = new KeyRangeDigest(2);
+        d4.record(0, k1, 1);
+        d4.record(0, k1, 2);
+        d4.record(1, k2, 4);
+        assertTrue(d1.matches(d4, 0));
+        assertFalse(d1.matches(d4, 1));
+    }
+
+    @Test
+    public void testKeyRangeFilter() {
+        List<Integer> ranges = new ArrayList<Integer>();
+        ranges.add(1);
+        ranges.add(3);
+        KeyRangeFilter filter = KeyRangeFilter.fromBytes(new KeyRangeFilter(4, ranges).toBytes());
+        assertEquals(4, filter.getNumRanges());
+        for(byte[] key: new byte[][] { value1, value2, value3, value4 }) {
+            int range = KeyRangeFilter.getRange(key, 4);
+            assertEquals(range == 1 || range == 3, filter.accept(new ByteArray(key), null));
+        }
+    }
+
     @Test
     public void testOnePartitionEndToEnd() throws Exception {
         long now = System.currentTimeMillis();
@@ -534,5 +585,26 @@ public class ConsistencyCheckTest {
 
         assertEquals(7 - 2, reporter.numTotalKeys);
         assertEquals(3, reporter.numGoodKeys);
+
+        // at most one pending key, compared in several passes, must agree
+        checker = new ConsistencyCheck(urls, STORE_NAME, 0, null);
+        checker.setMaxPendingKeys(1);
+        checker.connect();
+        reporter = checker.execute();
+
+        assertEquals(7 - 2, reporter.numTotalKeys);
+        assertEquals(3, reporter.numGoodKeys);
+
+        // digest mode, split into several passes, must agree
+        for(int digestRanges: new int[] { 1, 4, 64 }) {
+            checker = new ConsistencyCheck(urls, STORE_NAME, 0, null);
+            checker.setDigestRanges(digestRanges);
+            checker.setMaxPendingKeys(1);
+            checker.connect();
+            reporter = checker.execute();
+
+            assertEquals(7 - 2, reporter.numTotalKeys);
+            assertEquals(3, reporter.numGoodKeys);
+        }
     }
 }